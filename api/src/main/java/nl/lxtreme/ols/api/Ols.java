@@ -43,4 +43,14 @@ public interface Ols
   /** The maximum number of blocks. */
   public static final int MAX_BLOCKS = MAX_CHANNELS / CHANNELS_PER_BLOCK;
 
+  /** The number of channels stored in a single sample word. */
+  public static final int CHANNELS_PER_WORD = 32;
+
+  /**
+   * The maximum number of channels of wide captures.
+   * 
+   * @see nl.lxtreme.ols.api.acquisition.WideAcquisitionResult
+   */
+  public static final int MAX_WIDE_CHANNELS = 128;
+
 }
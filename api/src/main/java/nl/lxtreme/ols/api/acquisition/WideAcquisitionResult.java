@@ -0,0 +1,90 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.acquisition;
+
+
+/**
+ * Provides an acquisition result with more than
+ * {@value nl.lxtreme.ols.api.Ols#MAX_CHANNELS} channels.
+ * <p>
+ * The sample values of a wide result are stored as columns of 32-bit words,
+ * one column per group of {@value nl.lxtreme.ols.api.Ols#CHANNELS_PER_WORD}
+ * channels, which all share the same timestamps. Columns of which none of the
+ * channels are enabled need not be stored at all.
+ * </p>
+ * <p>
+ * For compatibility, the methods of {@link AcquisitionResult} provide a view
+ * on the first word only, meaning that {@link #getValues()} and
+ * {@link #getChannels()} only concern the first
+ * {@value nl.lxtreme.ols.api.Ols#MAX_CHANNELS} channels. Use
+ * {@link #getWordView(int)} to let existing tools work on any other group of
+ * channels.
+ * </p>
+ */
+public interface WideAcquisitionResult extends AcquisitionResult
+{
+  // METHODS
+
+  /**
+   * Returns the enabled channels of the word with the given index.
+   * 
+   * @param aWordIdx
+   *          the index of the word, >= 0 && < {@link #getWordCount()}.
+   * @return a bit mask of the enabled channels of the given word.
+   */
+  int getEnabledChannels( int aWordIdx );
+
+  /**
+   * Returns the total number of channels of this result.
+   * 
+   * @return a channel count, > 0 && <=
+   *         {@value nl.lxtreme.ols.api.Ols#MAX_WIDE_CHANNELS}.
+   */
+  int getTotalChannels();
+
+  /**
+   * Returns the sample values of the word with the given index.
+   * 
+   * @param aWordIdx
+   *          the index of the word, >= 0 && < {@link #getWordCount()}.
+   * @return the sample values of the given word, with the same length as
+   *         {@link #getTimestamps()}, or <code>null</code> in case none of the
+   *         channels of the given word are enabled.
+   */
+  int[] getValues( int aWordIdx );
+
+  /**
+   * Returns the number of words each sample consists of.
+   * 
+   * @return a word count, > 0.
+   */
+  int getWordCount();
+
+  /**
+   * Returns a view on a single word of this result, in which the channels of
+   * that word are channels 0 to 31.
+   * 
+   * @param aWordIdx
+   *          the index of the word, >= 0 && < {@link #getWordCount()}.
+   * @return an acquisition result for the given word, never <code>null</code>.
+   */
+  AcquisitionResult getWordView( int aWordIdx );
+}
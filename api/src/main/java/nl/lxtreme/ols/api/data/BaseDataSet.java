@@ -21,9 +21,11 @@
 package nl.lxtreme.ols.api.data;
 
 
+import java.io.*;
 import java.util.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.export.*;
 
 
 /**
@@ -73,6 +75,33 @@ public class BaseDataSet<DATA extends BaseData<DATA>>
     this.timestamps = aData.getTimestamps();
   }
 
+  /**
+   * Creates a new, empty, BaseDataSet for a sub-range of the given data set.
+   * 
+   * @param aSource
+   *          the data set to take the acquisition details from, cannot be
+   *          <code>null</code>;
+   * @param aStartOfDecodeIdx
+   *          the sample index denoting the start of this data set;
+   * @param aEndOfDecodeIdx
+   *          the sample index denoting the end of this data set.
+   */
+  protected BaseDataSet( final BaseDataSet<DATA> aSource, final int aStartOfDecodeIdx, final int aEndOfDecodeIdx )
+  {
+    this.data = new ArrayList<DATA>();
+
+    this.startOfDecode = aStartOfDecodeIdx;
+    this.endOfDecode = aEndOfDecodeIdx;
+
+    this.timingDataPresent = aSource.timingDataPresent;
+    this.sampleRate = aSource.sampleRate;
+
+    this.triggerDataPresent = aSource.triggerDataPresent;
+    this.triggerPosition = aSource.triggerPosition;
+
+    this.timestamps = aSource.timestamps;
+  }
+
   // METHODS
 
   /**
@@ -147,6 +176,31 @@ public class BaseDataSet<DATA extends BaseData<DATA>>
     return this.data.isEmpty();
   }
 
+  /**
+   * Writes all data of this data set as rows to the given table writer.
+   * <p>
+   * The rows are streamed to the given writer, which does not need to keep
+   * them in memory. The writer is <em>not</em> closed by this method.
+   * </p>
+   * 
+   * @param aWriter
+   *          the table writer to write to, cannot be <code>null</code>;
+   * @param aMapper
+   *          the row mapper to map the data onto the rows, cannot be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public final void writeTo( final TableWriter aWriter, final RowMapper<? super DATA> aMapper ) throws IOException
+  {
+    aWriter.setColumns( aMapper.getColumnNames(), aMapper.getColumnTypes() );
+    for ( int i = 0, size = this.data.size(); i < size; i++ )
+    {
+      aMapper.writeRow( aWriter, this.data.get( i ) );
+      aWriter.endRow();
+    }
+  }
+
   /**
    * Adds data to this dataset.
    * 
@@ -166,4 +166,24 @@ public class ChannelAnnotations
     result = ( prime * result ) + this.channel;
     return result;
   }
+
+  /**
+   * Removes all annotations with the given annotation data from this
+   * container, leaving all other annotations intact.
+   * 
+   * @param aData
+   *          the annotation data of the annotations to remove, which is
+   *          compared by identity.
+   */
+  public void removeAnnotations( final Object aData )
+  {
+    final Iterator<ChannelAnnotation> iter = this.annotations.iterator();
+    while ( iter.hasNext() )
+    {
+      if ( iter.next().getData() == aData )
+      {
+        iter.remove();
+      }
+    }
+  }
 }
@@ -21,11 +21,15 @@
 package nl.lxtreme.ols.api.data;
 
 
+import java.beans.*;
 import java.util.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.compare.*;
 import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.data.search.*;
+import nl.lxtreme.ols.api.data.virtual.*;
 
 
 /**
@@ -48,6 +52,25 @@ public final class DataContainer implements AcquisitionResult
   /** The individual annotations. */
   private final Map<Integer, ChannelAnnotations> annotations;
   private final ProjectManager projectManager;
+  /** Incremented upon each change of the annotations. */
+  private volatile int annotationRevision;
+  /** Evaluates (and caches) the virtual channels. */
+  private final VirtualChannels virtualChannels;
+
+  /** Guards the cached definitions and combined data below. */
+  private final Object virtualLock;
+  /** The project the definitions are cached for, null if not cached. */
+  private Project definitionsProject;
+  private List<VirtualChannel> definitions;
+  private AcquisitionResult combinedSource;
+  private List<VirtualChannel> combinedDefinitions;
+  private String[] combinedLabels;
+  private AcquisitionResult combinedData;
+  /** The word of a wide capture that is shown, guarded by the lock above. */
+  private int selectedWord;
+  private AcquisitionResult wordSource;
+  private int wordViewIdx;
+  private AcquisitionResult wordView;
 
   // CONSTRUCTORS
 
@@ -67,6 +90,26 @@ public final class DataContainer implements AcquisitionResult
     this.projectManager = aProjectManager;
 
     this.annotations = new HashMap<Integer, ChannelAnnotations>();
+    this.virtualChannels = new VirtualChannels();
+    this.virtualLock = new Object();
+
+    this.projectManager.addPropertyChangeListener( new PropertyChangeListener()
+    {
+      @Override
+      public void propertyChange( final PropertyChangeEvent aEvent )
+      {
+        final Object value = aEvent.getNewValue();
+        if ( ( value instanceof UserSettings )
+            && VirtualChannels.SETTINGS_NAME.equals( ( ( UserSettings )value ).getName() ) )
+        {
+          // Replaced virtual channel settings are read upon their next use...
+          synchronized ( DataContainer.this.virtualLock )
+          {
+            DataContainer.this.definitionsProject = null;
+          }
+        }
+      }
+    } );
   }
 
   // METHODS
@@ -97,6 +140,7 @@ public final class DataContainer implements AcquisitionResult
       this.annotations.put( Integer.valueOf( aChannelIdx ), annotations );
     }
     annotations.addAnnotation( aStartIdx, aEndIdx, aData );
+    this.annotationRevision++;
   }
 
   /**
@@ -127,6 +171,71 @@ public final class DataContainer implements AcquisitionResult
           + Ols.MAX_CHANNELS );
     }
     this.annotations.remove( Integer.valueOf( aChannelIdx ) );
+    this.annotationRevision++;
+  }
+
+  /**
+   * Compares the captured data against the given capture.
+   * 
+   * @param aOther
+   *          the capture to compare against, cannot be <code>null</code>;
+   * @param aComparator
+   *          the comparator to use, cannot be <code>null</code>.
+   * @return the comparison result, or <code>null</code> in case there is no
+   *         captured data.
+   * @throws InterruptedException
+   *           in case the calling thread was interrupted during the
+   *           comparison.
+   */
+  public CompareResult compareWith( final AcquisitionResult aOther, final CaptureComparator aComparator )
+      throws InterruptedException
+  {
+    if ( !hasCapturedData() )
+    {
+      return null;
+    }
+    return aComparator.compare( getAcquisitionData(), aOther );
+  }
+
+  /**
+   * Searches for all matches of the given search condition in the captured
+   * data.
+   * <p>
+   * This method can take a while for large data sets, so it is advisable to
+   * call it from a background thread. The search is stopped as soon as the
+   * calling thread is interrupted.
+   * </p>
+   * 
+   * @param aCondition
+   *          the condition to search for, cannot be <code>null</code>.
+   * @return a list with all matches, in order of occurrence, never
+   *         <code>null</code>.
+   */
+  public List<SearchMatch> findAll( final SearchCondition aCondition )
+  {
+    final List<SearchMatch> result = new ArrayList<SearchMatch>();
+    if ( !hasCapturedData() )
+    {
+      return result;
+    }
+
+    final AcquisitionResult data = getAcquisitionData();
+    final int size = data.getValues().length;
+
+    int idx = 0;
+    while ( ( idx < size ) && !Thread.currentThread().isInterrupted() )
+    {
+      final SearchMatch match = aCondition.find( data, idx, size );
+      if ( match == null )
+      {
+        break;
+      }
+
+      result.add( match );
+      idx = match.getStartIndex() + 1;
+    }
+
+    return result;
   }
 
   /**
@@ -138,6 +247,18 @@ public final class DataContainer implements AcquisitionResult
     return hasCapturedData() ? getAcquisitionData().getAbsoluteLength() : Ols.NOT_AVAILABLE;
   }
 
+  /**
+   * Returns the revision of the channel annotations, which changes each time
+   * an annotation is added or removed. This allows callers to cache anything
+   * derived from the annotations.
+   * 
+   * @return a revision number.
+   */
+  public int getAnnotationRevision()
+  {
+    return this.annotationRevision;
+  }
+
   /**
    * Returns the number of channel blocks that are available in the data.
    * 
@@ -149,6 +270,22 @@ public final class DataContainer implements AcquisitionResult
     return ( int )Math.min( Ols.MAX_BLOCKS, Math.ceil( getChannels() / ( double )Ols.CHANNELS_PER_BLOCK ) );
   }
 
+  /**
+   * Returns the captured data this container currently provides access to.
+   * <p>
+   * Unlike this container itself, the returned instance changes each time new
+   * data is captured or loaded, or the virtual channels are changed, making it
+   * suitable to identify a capture.
+   * </p>
+   * 
+   * @return the captured data, can be <code>null</code> if no data is
+   *         captured.
+   */
+  public AcquisitionResult getCapturedData()
+  {
+    return getAcquisitionData();
+  }
+
   /**
    * Returns the channel annotations.
    * 
@@ -206,8 +343,23 @@ public final class DataContainer implements AcquisitionResult
     return channelAnnotations.getAnnotations( aStartIdx, aEndIdx );
   }
 
+  /**
+   * Returns all channel annotations.
+   * 
+   * @return a copy of all channel annotations, as map of channel index to
+   *         annotations, never <code>null</code>.
+   */
+  public Map<Integer, ChannelAnnotations> getChannelAnnotations()
+  {
+    return new HashMap<Integer, ChannelAnnotations>( this.annotations );
+  }
+
   /**
    * Returns the channel label.
+   * <p>
+   * The project only stores labels for the first word of channels, hence no
+   * labels are returned while another word of a wide capture is selected.
+   * </p>
    * 
    * @param aChannelIdx
    *          the index of the channel to retrieve the label for, >= 0 && <
@@ -221,9 +373,25 @@ public final class DataContainer implements AcquisitionResult
       throw new IllegalArgumentException( "Invalid channel index: " + aChannelIdx + "! Should be between 0 and "
           + Ols.MAX_CHANNELS );
     }
+    if ( getSelectedWord() > 0 )
+    {
+      return null;
+    }
     return getChannelLabels()[aChannelIdx];
   }
 
+  /**
+   * Returns the number of the first channel of the selected word, which is
+   * to be added to the channel indices of this container to obtain the
+   * channel numbers of the original capture.
+   * 
+   * @return a channel offset, >= 0.
+   */
+  public int getChannelOffset()
+  {
+    return getSelectedWord() * Ols.CHANNELS_PER_WORD;
+  }
+
   /**
    * Returns all channel labels.
    * 
@@ -281,6 +449,34 @@ public final class DataContainer implements AcquisitionResult
     return result;
   }
 
+  /**
+   * Returns the time stamp of the clock edge the given state was sampled on,
+   * in case the captured data is a state view.
+   * <p>
+   * As the state view is taken from the captured data of the project, this
+   * also works when virtual channels are shown on top of it.
+   * </p>
+   *
+   * @param aStateIdx
+   *          the number of the state, >= 0.
+   * @return a time stamp in samples of the original captured data, or
+   *         {@link Ols#NOT_AVAILABLE} if the captured data is not a state view,
+   *         or the state does not exist.
+   */
+  public long getClockEdgeTimestamp( final long aStateIdx )
+  {
+    final AcquisitionResult rawData = this.projectManager.getCurrentProject().getCapturedData();
+    if ( rawData instanceof StateView )
+    {
+      final StateView stateView = ( StateView )rawData;
+      if ( ( aStateIdx >= 0 ) && ( aStateIdx < stateView.getStateCount() ) )
+      {
+        return stateView.getSourceTimestamp( ( int )aStateIdx );
+      }
+    }
+    return Ols.NOT_AVAILABLE;
+  }
+
   /**
    * Get position of a cursor.
    * 
@@ -382,6 +578,63 @@ public final class DataContainer implements AcquisitionResult
     return hasCapturedData() ? getAcquisitionData().getValues() : new int[0];
   }
 
+  /**
+   * Returns the index of the word of channels this container currently
+   * provides access to.
+   * 
+   * @return a word index, >= 0 && < {@link #getWordCount()}.
+   */
+  public int getSelectedWord()
+  {
+    synchronized ( this.virtualLock )
+    {
+      return Math.min( this.selectedWord, getWordCount() - 1 );
+    }
+  }
+
+  /**
+   * Returns the definitions of the virtual channels of the current project.
+   * <p>
+   * The definitions are only read from the project settings once per project,
+   * as this method is called for each access of the captured data.
+   * </p>
+   * 
+   * @return an unmodifiable list of virtual channel definitions, never
+   *         <code>null</code>.
+   */
+  public List<VirtualChannel> getVirtualChannels()
+  {
+    final Project project = this.projectManager.getCurrentProject();
+    synchronized ( this.virtualLock )
+    {
+      if ( ( this.definitions == null ) || ( project != this.definitionsProject ) )
+      {
+        this.definitions = Collections.unmodifiableList( VirtualChannels.readDefinitions( findSettings( project,
+            VirtualChannels.SETTINGS_NAME ) ) );
+        this.definitionsProject = project;
+      }
+      return this.definitions;
+    }
+  }
+
+  /**
+   * Returns the number of words of channels of the captured data, each of
+   * which can be selected by {@link #setSelectedWord(int)}.
+   * 
+   * @return a word count, > 1 for captures with more than
+   *         {@value nl.lxtreme.ols.api.Ols#MAX_CHANNELS} channels, 1 for all
+   *         other captures.
+   */
+  public int getWordCount()
+  {
+    final AcquisitionResult rawData = this.projectManager.getCurrentProject().getCapturedData();
+    if ( rawData instanceof WideAcquisitionResult )
+    {
+      return ( ( WideAcquisitionResult )rawData ).getWordCount();
+    }
+    return 1;
+  }
+
   /**
    * Returns whether any captured data is available.
    * 
@@ -465,6 +718,32 @@ public final class DataContainer implements AcquisitionResult
     return this.projectManager.getCurrentProject().isCursorsEnabled();
   }
 
+  /**
+   * Removes the channel annotations with the given annotation data for the
+   * channel with the given index, leaving all other annotations of that
+   * channel intact.
+   * 
+   * @param aChannelIdx
+   *          the index of channel to remove the annotations for, >=0 && < 32;
+   * @param aData
+   *          the annotation data of the annotations to remove, which is
+   *          compared by identity.
+   */
+  public void removeChannelAnnotations( final int aChannelIdx, final Object aData )
+  {
+    if ( ( aChannelIdx < 0 ) || ( aChannelIdx > Ols.MAX_CHANNELS - 1 ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel index: " + aChannelIdx + "! Should be between 0 and "
+          + Ols.MAX_CHANNELS );
+    }
+    final ChannelAnnotations annotations = this.annotations.get( Integer.valueOf( aChannelIdx ) );
+    if ( annotations != null )
+    {
+      annotations.removeAnnotations( aData );
+      this.annotationRevision++;
+    }
+  }
+
   /**
    * Sets the captured data.
    * 
@@ -474,7 +753,12 @@ public final class DataContainer implements AcquisitionResult
   public void setCapturedData( final AcquisitionResult aData )
   {
     this.projectManager.getCurrentProject().setCapturedData( aData );
+    synchronized ( this.virtualLock )
+    {
+      this.selectedWord = 0;
+    }
     this.annotations.clear();
+    this.annotationRevision++;
   }
 
   /**
@@ -491,6 +775,7 @@ public final class DataContainer implements AcquisitionResult
           + Ols.MAX_CHANNELS );
     }
     this.annotations.put( Integer.valueOf( aChannelIdx ), aAnnotations );
+    this.annotationRevision++;
   }
 
   /**
@@ -568,6 +853,88 @@ public final class DataContainer implements AcquisitionResult
     }
   }
 
+  /**
+   * Selects the word of channels of a wide capture this container provides
+   * access to, making its channels available as channels 0 to 31.
+   * <p>
+   * As the annotations are made for the channels of the previously selected
+   * word, all channel annotations are removed.
+   * </p>
+   * 
+   * @param aWordIdx
+   *          the index of the word to select, >= 0 && < {@link #getWordCount()}
+   *          .
+   */
+  public void setSelectedWord( final int aWordIdx )
+  {
+    if ( ( aWordIdx < 0 ) || ( aWordIdx >= getWordCount() ) )
+    {
+      throw new IllegalArgumentException( "Invalid word index: " + aWordIdx + "!" );
+    }
+    synchronized ( this.virtualLock )
+    {
+      if ( this.selectedWord == aWordIdx )
+      {
+        return;
+      }
+      this.selectedWord = aWordIdx;
+    }
+
+    this.annotations.clear();
+    this.annotationRevision++;
+  }
+
+  /**
+   * Sets the definitions of the virtual channels of the current project.
+   * <p>
+   * The channels the virtual channels are shown on get the label of their
+   * virtual channel; channels that showed a virtual channel before lose their
+   * label. As the sample indices of the captured data change along with the
+   * virtual channels, all channel annotations are removed.
+   * </p>
+   * 
+   * @param aDefinitions
+   *          the virtual channel definitions to set, cannot be
+   *          <code>null</code>.
+   */
+  public void setVirtualChannels( final List<VirtualChannel> aDefinitions )
+  {
+    if ( aDefinitions == null )
+    {
+      throw new IllegalArgumentException( "Definitions cannot be null!" );
+    }
+
+    final Project project = this.projectManager.getCurrentProject();
+    final UserSettings settings = project.getSettings( VirtualChannels.SETTINGS_NAME );
+    if ( settings == null )
+    {
+      throw new IllegalStateException( "Project cannot store virtual channels!" );
+    }
+
+    final List<VirtualChannel> oldDefinitions = getVirtualChannels();
+    synchronized ( this.virtualLock )
+    {
+      VirtualChannels.writeDefinitions( settings, aDefinitions );
+      this.definitions = Collections.unmodifiableList( new ArrayList<VirtualChannel>( aDefinitions ) );
+      this.definitionsProject = project;
+    }
+
+    // Channels that no longer show a virtual channel lose its label...
+    for ( VirtualChannel definition : oldDefinitions )
+    {
+      setChannelLabel( definition.getChannelIndex(), null );
+    }
+    for ( VirtualChannel definition : aDefinitions )
+    {
+      setChannelLabel( definition.getChannelIndex(), definition.getLabel() );
+    }
+
+    this.annotations.clear();
+    this.annotationRevision++;
+
+    project.setChanged( true );
+  }
+
   /**
    * Calculates the time offset
    * 
@@ -587,13 +954,89 @@ public final class DataContainer implements AcquisitionResult
   }
 
   /**
-   * Returns the current acquisition results.
+   * Finds the user settings with the given name in the given project, without
+   * creating them when the project does not have them (yet).
+   *
+   * @param aProject
+   *          the project to search, cannot be <code>null</code>;
+   * @param aName
+   *          the name of the user settings to find, cannot be <code>null</code>.
+   * @return the found user settings, or <code>null</code> if not found.
+   */
+  private UserSettings findSettings( final Project aProject, final String aName )
+  {
+    final UserSettings[] result = { null };
+    aProject.visit( new ProjectVisitor()
+    {
+      @Override
+      public void visit( final UserSettings aSettings )
+      {
+        if ( aName.equals( aSettings.getName() ) )
+        {
+          result[0] = aSettings;
+        }
+      }
+    } );
+    return result[0];
+  }
+
+  /**
+   * Returns the current acquisition results, combined with the virtual
+   * channels (if any).
+   * <p>
+   * For wide captures, only the selected word of channels is returned. As
+   * virtual channels refer to the channels labels of the project, they are
+   * only applied to the first word.
+   * </p>
    * 
-   * @return the captured data, never <code>null</code>.
+   * @return the captured data, can be <code>null</code>.
    */
   private AcquisitionResult getAcquisitionData()
   {
-    return this.projectManager.getCurrentProject().getCapturedData();
+    final AcquisitionResult rawData = this.projectManager.getCurrentProject().getCapturedData();
+    if ( rawData == null )
+    {
+      return null;
+    }
+
+    if ( rawData instanceof WideAcquisitionResult )
+    {
+      final WideAcquisitionResult wideData = ( WideAcquisitionResult )rawData;
+      synchronized ( this.virtualLock )
+      {
+        final int word = Math.min( this.selectedWord, wideData.getWordCount() - 1 );
+        if ( word > 0 )
+        {
+          if ( ( rawData != this.wordSource ) || ( word != this.wordViewIdx ) )
+          {
+            this.wordView = wideData.getWordView( word );
+            this.wordSource = rawData;
+            this.wordViewIdx = word;
+          }
+          return this.wordView;
+        }
+      }
+    }
+
+    final List<VirtualChannel> virtualDefs = getVirtualChannels();
+    if ( virtualDefs.isEmpty() )
+    {
+      return rawData;
+    }
+
+    final String[] labels = getChannelLabels();
+    synchronized ( this.virtualLock )
+    {
+      if ( ( rawData != this.combinedSource ) || !virtualDefs.equals( this.combinedDefinitions )
+          || !Arrays.equals( labels, this.combinedLabels ) )
+      {
+        this.combinedData = this.virtualChannels.apply( rawData, virtualDefs, labels );
+        this.combinedSource = rawData;
+        this.combinedDefinitions = virtualDefs;
+        this.combinedLabels = ( labels == null ) ? null : labels.clone();
+      }
+      return this.combinedData;
+    }
   }
 
   /**
@@ -70,6 +70,8 @@ public final class OlsDataHelper
   {
     int size = -1;
     Integer rate = null, channels = null, enabledChannels = null;
+    // enabled channels of the words beyond the first one (wide captures)...
+    final Integer[] wideEnabledChannels = new Integer[Ols.MAX_WIDE_CHANNELS / Ols.CHANNELS_PER_WORD];
     long triggerPos = -1L;
     long absLen = -1L;
 
@@ -128,6 +130,14 @@ public final class OlsDataHelper
           {
             enabledChannels = safeParseInt( instrValue );
           }
+          else if ( instrKey.startsWith( "EnabledChannels" ) )
+          {
+            final int wordIdx = safeParseInt( instrKey.substring( 15 ) );
+            if ( ( wordIdx > 0 ) && ( wordIdx < wideEnabledChannels.length ) )
+            {
+              wideEnabledChannels[wordIdx] = safeParseInt( instrValue );
+            }
+          }
           else if ( "CursorEnabled".equals( instrKey ) )
           {
             cursors = Boolean.parseBoolean( instrValue );
@@ -183,17 +193,37 @@ public final class OlsDataHelper
       {
         throw new IOException( "Data file is corrupt?! Sample rate is not provided!" );
       }
-      if ( ( channels == null ) || ( channels <= 0 ) || ( channels > 32 ) )
+      if ( ( channels == null ) || ( channels <= 0 ) || ( channels > Ols.MAX_WIDE_CHANNELS ) )
       {
         throw new IOException( "Data file is corrupt?! Channel count is not provided!" );
       }
       // Make sure the enabled channels are defined...
-      if ( enabledChannels == null )
+      final int wordCount = WideCapturedData.getWordCount( channels );
+      final int[] enabledMasks = new int[wordCount];
+      for ( int w = 0; w < wordCount; w++ )
       {
-        enabledChannels = NumberUtils.getBitMask( channels );
+        final Integer mask = ( w == 0 ) ? enabledChannels : wideEnabledChannels[w];
+        if ( mask != null )
+        {
+          enabledMasks[w] = mask.intValue();
+        }
+        else
+        {
+          final int wordChannels = Math.min( Ols.CHANNELS_PER_WORD, channels - ( w * Ols.CHANNELS_PER_WORD ) );
+          enabledMasks[w] = NumberUtils.getBitMask( wordChannels );
+        }
       }
 
-      int[] values = new int[size];
+      final int[][] values = new int[wordCount][];
+      for ( int w = 0; w < wordCount; w++ )
+      {
+        // Do not bother allocating room for words without any enabled
+        // channels, except for the first word...
+        if ( ( w == 0 ) || ( enabledMasks[w] != 0 ) )
+        {
+          values[w] = new int[size];
+        }
+      }
       long[] timestamps = new long[size];
 
       try
@@ -202,7 +232,14 @@ public final class OlsDataHelper
         {
           final String[] dataPair = dataValues.get( i );
 
-          values[i] = ( int )Long.parseLong( dataPair[0], 16 );
+          if ( wordCount == 1 )
+          {
+            values[0][i] = ( int )Long.parseLong( dataPair[0], 16 );
+          }
+          else
+          {
+            parseWideSample( dataPair[0], values, i );
+          }
           timestamps[i] = Long.parseLong( dataPair[1], 10 ) & Long.MAX_VALUE;
         }
       }
@@ -217,7 +254,8 @@ public final class OlsDataHelper
       long absoluteLength = Math.max( absLen, timestamps[size - 1] + ABS_TIME_MARGIN );
 
       // Finally set the captured data, and notify all event listeners...
-      result = new CapturedData( values, timestamps, triggerPos, rate, channels, enabledChannels, absoluteLength );
+      result = WideCapturedData.create( values, timestamps, triggerPos, rate, channels, enabledMasks,
+          absoluteLength );
     }
     finally
     {
@@ -252,6 +290,16 @@ public final class OlsDataHelper
       final int[] values = capturedData.getValues();
       final long[] timestamps = capturedData.getTimestamps();
 
+      final WideAcquisitionResult wideData;
+      if ( capturedData instanceof WideAcquisitionResult )
+      {
+        wideData = ( WideAcquisitionResult )capturedData;
+      }
+      else
+      {
+        wideData = null;
+      }
+
       bw.write( ";Size: " );
       bw.write( Integer.toString( values.length ) );
       bw.newLine();
@@ -261,13 +309,20 @@ public final class OlsDataHelper
       bw.newLine();
 
       bw.write( ";Channels: " );
-      bw.write( Integer.toString( capturedData.getChannels() ) );
+      bw.write( Integer.toString( ( wideData != null ) ? wideData.getTotalChannels() : capturedData.getChannels() ) );
       bw.newLine();
 
       bw.write( ";EnabledChannels: " );
       bw.write( Integer.toString( capturedData.getEnabledChannels() ) );
       bw.newLine();
 
+      for ( int w = 1; ( wideData != null ) && ( w < wideData.getWordCount() ); w++ )
+      {
+        bw.write( String.format( ";EnabledChannels%d: ", Integer.valueOf( w ) ) );
+        bw.write( Integer.toString( wideData.getEnabledChannels( w ) ) );
+        bw.newLine();
+      }
+
       if ( capturedData.hasTriggerData() )
       {
         bw.write( ";TriggerPosition: " );
@@ -296,10 +351,36 @@ public final class OlsDataHelper
           bw.newLine();
         }
       }
-      for ( int i = 0; i < values.length; i++ )
+      if ( wideData != null )
       {
-        bw.write( formatSample( values[i], timestamps[i] ) );
-        bw.newLine();
+        final int[][] columns = new int[wideData.getWordCount()][];
+        for ( int w = 0; w < columns.length; w++ )
+        {
+          columns[w] = wideData.getValues( w );
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < values.length; i++ )
+        {
+          sb.setLength( 0 );
+          // Most significant word first...
+          for ( int w = columns.length - 1; w >= 0; w-- )
+          {
+            appendHexWord( sb, ( columns[w] != null ) ? columns[w][i] : 0 );
+          }
+          sb.append( '@' ).append( timestamps[i] & Long.MAX_VALUE );
+
+          bw.write( sb.toString() );
+          bw.newLine();
+        }
+      }
+      else
+      {
+        for ( int i = 0; i < values.length; i++ )
+        {
+          bw.write( formatSample( values[i], timestamps[i] ) );
+          bw.newLine();
+        }
       }
     }
     finally
@@ -308,6 +389,22 @@ public final class OlsDataHelper
     }
   }
 
+  /**
+   * Appends the given value as eight hexadecimal digits to the given builder.
+   * 
+   * @param aBuilder
+   *          the builder to append to;
+   * @param aValue
+   *          the value to append.
+   */
+  static void appendHexWord( final StringBuilder aBuilder, final int aValue )
+  {
+    for ( int shift = 28; shift >= 0; shift -= 4 )
+    {
+      aBuilder.append( Character.forDigit( ( aValue >>> shift ) & 0x0F, 16 ) );
+    }
+  }
+
   /**
    * Formats the given value and timestamp into a single sample string.
    * 
@@ -325,4 +422,32 @@ public final class OlsDataHelper
     // can be negative (it is a relative timestamp!)...
     return String.format( "%08x@%d", aValue, ( aTimestamp & Long.MAX_VALUE ) );
   }
+
+  /**
+   * Parses a sample value of a wide capture, in which each group of eight
+   * hexadecimal digits (counted from the right) denotes a single word.
+   * 
+   * @param aValue
+   *          the hexadecimal sample value to parse;
+   * @param aColumns
+   *          the columns to store the parsed words in, columns that are
+   *          <code>null</code> are skipped;
+   * @param aIndex
+   *          the sample index to store the words at.
+   * @throws NumberFormatException
+   *           in case the given value is not a valid hexadecimal value.
+   */
+  static void parseWideSample( final String aValue, final int[][] aColumns, final int aIndex )
+  {
+    final int length = aValue.length();
+    for ( int w = 0; w < aColumns.length; w++ )
+    {
+      final int end = length - ( w * 8 );
+      if ( ( aColumns[w] == null ) || ( end <= 0 ) )
+      {
+        continue;
+      }
+      aColumns[w][aIndex] = ( int )Long.parseLong( aValue.substring( Math.max( 0, end - 8 ), end ), 16 );
+    }
+  }
 }
@@ -0,0 +1,341 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.nio.*;
+import java.util.*;
+
+
+/**
+ * Provides a growable buffer of transitions, that is, of sample values along
+ * with the timestamp they occur at, from which a (compressed)
+ * {@link CapturedData} can be created.
+ * <p>
+ * Only the values that differ from their predecessor are retained, so adding
+ * every sample of a capture yields the same result as adding only its
+ * transitions. Timestamps should be added in non-decreasing order; when a
+ * value is added for the same timestamp as the last one, it replaces that
+ * value.
+ * </p>
+ * <p>
+ * This class is <em>not</em> thread-safe.
+ * </p>
+ */
+public final class TransitionBuffer
+{
+  // CONSTANTS
+
+  private static final int DEFAULT_CAPACITY = 1024;
+
+  // VARIABLES
+
+  private int[] values;
+  private long[] timestamps;
+  private int size;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, TransitionBuffer instance.
+   */
+  public TransitionBuffer()
+  {
+    this( DEFAULT_CAPACITY );
+  }
+
+  /**
+   * Creates a new, empty, TransitionBuffer instance.
+   * 
+   * @param aCapacity
+   *          the initial number of transitions to reserve room for, > 0.
+   */
+  public TransitionBuffer( final int aCapacity )
+  {
+    if ( aCapacity <= 0 )
+    {
+      throw new IllegalArgumentException( "Capacity should be positive!" );
+    }
+
+    this.values = new int[aCapacity];
+    this.timestamps = new long[aCapacity];
+    this.size = 0;
+  }
+
+  // METHODS
+
+  /**
+   * Adds a sample value at the given timestamp.
+   * 
+   * @param aTimestamp
+   *          the timestamp of the sample, should be >= the last added
+   *          timestamp;
+   * @param aValue
+   *          the sample value.
+   */
+  public void add( final long aTimestamp, final int aValue )
+  {
+    final int last = this.size - 1;
+    if ( ( last >= 0 ) && ( aTimestamp < this.timestamps[last] ) )
+    {
+      throw new IllegalArgumentException( "Timestamps should be added in order!" );
+    }
+
+    if ( ( last >= 0 ) && ( this.timestamps[last] == aTimestamp ) )
+    {
+      this.values[last] = aValue;
+      // Replacing the value could have made it redundant...
+      if ( ( last > 0 ) && ( this.values[last - 1] == aValue ) )
+      {
+        this.size--;
+      }
+      return;
+    }
+
+    if ( ( last >= 0 ) && ( this.values[last] == aValue ) )
+    {
+      return;
+    }
+
+    append( aTimestamp, aValue );
+  }
+
+  /**
+   * Adds the packed samples from the given array, using consecutive
+   * timestamps.
+   * <p>
+   * Each sample takes the given width in bytes, in little-endian order, like
+   * the samples as read from a generic device. Trailing bytes that do not form
+   * a complete sample are ignored.
+   * </p>
+   * 
+   * @param aTimestamp
+   *          the timestamp of the first sample;
+   * @param aData
+   *          the packed samples, cannot be <code>null</code>;
+   * @param aOffset
+   *          the offset in the given array of the first sample;
+   * @param aLength
+   *          the number of bytes to take from the given array;
+   * @param aWidth
+   *          the width of each sample, in bytes, >= 1 && <= 4;
+   * @param aMask
+   *          the mask to apply to each sample value.
+   * @return the number of samples added, >= 0.
+   */
+  public int addSamples( final long aTimestamp, final byte[] aData, final int aOffset, final int aLength,
+      final int aWidth, final int aMask )
+  {
+    return addSamples( aTimestamp, ByteBuffer.wrap( aData, aOffset, aLength ), aWidth, aMask );
+  }
+
+  /**
+   * Adds the packed samples between the position and limit of the given
+   * buffer, using consecutive timestamps.
+   * <p>
+   * Each sample takes the given width in bytes, in little-endian order,
+   * regardless of the byte order of the given buffer. Only complete samples
+   * are consumed: afterwards, the position of the given buffer points to the
+   * first byte of a trailing, incomplete, sample (if any), making it suitable
+   * for {@link ByteBuffer#compact()}. As the samples are read in place, this
+   * method works equally well for (memory-mapped) direct buffers.
+   * </p>
+   * 
+   * @param aTimestamp
+   *          the timestamp of the first sample;
+   * @param aBuffer
+   *          the buffer with packed samples, cannot be <code>null</code>;
+   * @param aWidth
+   *          the width of each sample, in bytes, >= 1 && <= 4;
+   * @param aMask
+   *          the mask to apply to each sample value.
+   * @return the number of samples added, >= 0.
+   */
+  public int addSamples( final long aTimestamp, final ByteBuffer aBuffer, final int aWidth, final int aMask )
+  {
+    if ( ( aWidth < 1 ) || ( aWidth > 4 ) )
+    {
+      throw new IllegalArgumentException( "Invalid sample width: " + aWidth );
+    }
+
+    // Use a view, as to leave the byte order of the given buffer as-is...
+    final ByteBuffer data = aBuffer.duplicate().order( ByteOrder.LITTLE_ENDIAN );
+
+    final int start = data.position();
+    final int samples = data.remaining() / aWidth;
+    final int end = start + samples * aWidth;
+
+    boolean first = ( this.size == 0 );
+    int last = first ? 0 : this.values[this.size - 1];
+    long timestamp = aTimestamp;
+
+    // Use a specialized loop per width, as this is the hot path for large
+    // captures...
+    switch ( aWidth )
+    {
+      case 1:
+        for ( int i = start; i < end; i++, timestamp++ )
+        {
+          final int value = ( data.get( i ) & 0xFF ) & aMask;
+          if ( first || ( value != last ) )
+          {
+            add( timestamp, value );
+            last = value;
+            first = false;
+          }
+        }
+        break;
+
+      case 2:
+        for ( int i = start; i < end; i += 2, timestamp++ )
+        {
+          final int value = ( data.getShort( i ) & 0xFFFF ) & aMask;
+          if ( first || ( value != last ) )
+          {
+            add( timestamp, value );
+            last = value;
+            first = false;
+          }
+        }
+        break;
+
+      case 3:
+        for ( int i = start; i < end; i += 3, timestamp++ )
+        {
+          final int value = ( ( data.getShort( i ) & 0xFFFF ) | ( ( data.get( i + 2 ) & 0xFF ) << 16 ) ) & aMask;
+          if ( first || ( value != last ) )
+          {
+            add( timestamp, value );
+            last = value;
+            first = false;
+          }
+        }
+        break;
+
+      default:
+        for ( int i = start; i < end; i += 4, timestamp++ )
+        {
+          final int value = data.getInt( i ) & aMask;
+          if ( first || ( value != last ) )
+          {
+            add( timestamp, value );
+            last = value;
+            first = false;
+          }
+        }
+        break;
+    }
+
+    aBuffer.position( end );
+
+    return samples;
+  }
+
+  /**
+   * Removes all transitions from this buffer.
+   */
+  public void clear()
+  {
+    this.size = 0;
+  }
+
+  /**
+   * Returns the timestamp of the last transition.
+   * 
+   * @return the last timestamp, or -1L if this buffer is empty.
+   */
+  public long getLastTimestamp()
+  {
+    return ( this.size == 0 ) ? -1L : this.timestamps[this.size - 1];
+  }
+
+  /**
+   * Returns the value of the last transition.
+   * 
+   * @return the last value, or 0 if this buffer is empty.
+   */
+  public int getLastValue()
+  {
+    return ( this.size == 0 ) ? 0 : this.values[this.size - 1];
+  }
+
+  /**
+   * Returns whether or not this buffer is empty.
+   * 
+   * @return <code>true</code> if no transitions are added to this buffer,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isEmpty()
+  {
+    return this.size == 0;
+  }
+
+  /**
+   * Returns the number of transitions in this buffer.
+   * 
+   * @return a transition count, >= 0.
+   */
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * Creates a captured data of the transitions in this buffer.
+   * 
+   * @param aTriggerPosition
+   *          the trigger position, or {@link nl.lxtreme.ols.api.Ols#NOT_AVAILABLE};
+   * @param aRate
+   *          the sample rate, in Hertz, or
+   *          {@link nl.lxtreme.ols.api.Ols#NOT_AVAILABLE};
+   * @param aChannels
+   *          the number of channels;
+   * @param aEnabledChannels
+   *          the mask of enabled channels;
+   * @param aAbsoluteLength
+   *          the absolute length of the capture, in samples, should be beyond
+   *          the last timestamp.
+   * @return a new captured data, never <code>null</code>.
+   */
+  public CapturedData toCapturedData( final long aTriggerPosition, final int aRate, final int aChannels,
+      final int aEnabledChannels, final long aAbsoluteLength )
+  {
+    return new CapturedData( Arrays.copyOf( this.values, this.size ), Arrays.copyOf( this.timestamps, this.size ),
+        aTriggerPosition, aRate, aChannels, aEnabledChannels, aAbsoluteLength );
+  }
+
+  /**
+   * Appends a transition, growing the buffers when needed.
+   */
+  private void append( final long aTimestamp, final int aValue )
+  {
+    if ( this.size == this.values.length )
+    {
+      final int newCapacity = this.size + ( this.size >> 1 ) + 1;
+      this.values = Arrays.copyOf( this.values, newCapacity );
+      this.timestamps = Arrays.copyOf( this.timestamps, newCapacity );
+    }
+
+    this.values[this.size] = aValue;
+    this.timestamps[this.size] = aTimestamp;
+    this.size++;
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides captured data with more than {@link Ols#MAX_CHANNELS} channels.
+ * <p>
+ * Each group of {@link Ols#CHANNELS_PER_WORD} channels is stored in its own
+ * column of 32-bit words, all sharing the same timestamps. Columns of which no
+ * channel is enabled are not stored at all, so a 128-channel capture with only
+ * the first and last word enabled takes no more room than two 32-channel
+ * captures.
+ * </p>
+ * <p>
+ * The methods inherited from {@link CapturedData} represent the first word of
+ * this capture, allowing existing tools and views to work on it unmodified.
+ * </p>
+ */
+public class WideCapturedData extends CapturedData implements WideAcquisitionResult
+{
+  // VARIABLES
+
+  private final int[][] columns;
+  private final int[] enabledChannels;
+  private final int totalChannels;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new WideCapturedData instance.
+   * 
+   * @param aColumns
+   *          the sample values per word, each column should have the same
+   *          length as the given timestamps, or be <code>null</code> in case
+   *          none of the channels of that word are enabled;
+   * @param aTimestamps
+   *          the timestamps in number of samples since sample start;
+   * @param aTriggerPosition
+   *          the position of the trigger as time value;
+   * @param aRate
+   *          the sampling rate (may be set to <code>NOT_AVAILABLE</code>);
+   * @param aChannels
+   *          the total number of channels;
+   * @param aEnabledChannels
+   *          the bit masks identifying the enabled channels, one per word;
+   * @param aAbsoluteLength
+   *          the absolute number of samples.
+   * @throws IllegalArgumentException
+   *           in case the given columns do not match the given timestamps or
+   *           channel count.
+   */
+  public WideCapturedData( final int[][] aColumns, final long[] aTimestamps, final long aTriggerPosition,
+      final int aRate, final int aChannels, final int[] aEnabledChannels, final long aAbsoluteLength )
+  {
+    super( getFirstColumn( aColumns, aTimestamps ), aTimestamps, aTriggerPosition, aRate, Math.min(
+        Ols.MAX_CHANNELS, aChannels ), getFirstMask( aEnabledChannels ), aAbsoluteLength );
+
+    if ( ( aChannels <= 0 ) || ( aChannels > Ols.MAX_WIDE_CHANNELS ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel count: " + aChannels );
+    }
+
+    final int wordCount = getWordCount( aChannels );
+    if ( ( aColumns.length != wordCount ) || ( aEnabledChannels.length != wordCount ) )
+    {
+      throw new IllegalArgumentException( "Expected " + wordCount + " columns and masks for " + aChannels
+          + " channels!" );
+    }
+
+    for ( int[] column : aColumns )
+    {
+      if ( ( column != null ) && ( column.length != aTimestamps.length ) )
+      {
+        throw new IllegalArgumentException( "Values and timestamps size mismatch!" );
+      }
+    }
+
+    this.columns = aColumns.clone();
+    this.enabledChannels = aEnabledChannels.clone();
+    this.totalChannels = aChannels;
+
+    for ( int i = 0; i < wordCount; i++ )
+    {
+      if ( this.enabledChannels[i] == 0 )
+      {
+        // Nothing enabled, so nothing to keep...
+        this.columns[i] = null;
+      }
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Factory method for creating captured data with an arbitrary number of
+   * channels. In case the given channel count fits in a single word, a plain
+   * {@link CapturedData} instance is returned.
+   * 
+   * @param aColumns
+   *          the sample values per word;
+   * @param aTimestamps
+   *          the timestamps in number of samples since sample start;
+   * @param aTriggerPosition
+   *          the position of the trigger as time value;
+   * @param aRate
+   *          the sampling rate (may be set to <code>NOT_AVAILABLE</code>);
+   * @param aChannels
+   *          the total number of channels;
+   * @param aEnabledChannels
+   *          the bit masks identifying the enabled channels, one per word;
+   * @param aAbsoluteLength
+   *          the absolute number of samples.
+   * @return the captured data, never <code>null</code>.
+   * @see #WideCapturedData(int[][], long[], long, int, int, int[], long)
+   */
+  public static CapturedData create( final int[][] aColumns, final long[] aTimestamps, final long aTriggerPosition,
+      final int aRate, final int aChannels, final int[] aEnabledChannels, final long aAbsoluteLength )
+  {
+    if ( aChannels <= Ols.MAX_CHANNELS )
+    {
+      return new CapturedData( getFirstColumn( aColumns, aTimestamps ), aTimestamps, aTriggerPosition, aRate,
+          aChannels, getFirstMask( aEnabledChannels ), aAbsoluteLength );
+    }
+    return new WideCapturedData( aColumns, aTimestamps, aTriggerPosition, aRate, aChannels, aEnabledChannels,
+        aAbsoluteLength );
+  }
+
+  /**
+   * Returns the number of words needed to store the given number of channels.
+   * 
+   * @param aChannels
+   *          the number of channels, >= 0.
+   * @return a word count.
+   */
+  public static int getWordCount( final int aChannels )
+  {
+    return ( aChannels + Ols.CHANNELS_PER_WORD - 1 ) / Ols.CHANNELS_PER_WORD;
+  }
+
+  /**
+   * Returns the first column, or an all-zero column if it is absent.
+   */
+  private static int[] getFirstColumn( final int[][] aColumns, final long[] aTimestamps )
+  {
+    if ( ( aColumns.length > 0 ) && ( aColumns[0] != null ) )
+    {
+      return aColumns[0];
+    }
+    return new int[aTimestamps.length];
+  }
+
+  /**
+   * Returns the first enablement mask, or zero if it is absent.
+   */
+  private static int getFirstMask( final int[] aEnabledChannels )
+  {
+    return ( aEnabledChannels.length > 0 ) ? aEnabledChannels[0] : 0;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.WideAcquisitionResult#getEnabledChannels(int)
+   */
+  @Override
+  public int getEnabledChannels( final int aWordIdx )
+  {
+    return this.enabledChannels[aWordIdx];
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.WideAcquisitionResult#getTotalChannels()
+   */
+  @Override
+  public int getTotalChannels()
+  {
+    return this.totalChannels;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.WideAcquisitionResult#getValues(int)
+   */
+  @Override
+  public int[] getValues( final int aWordIdx )
+  {
+    if ( aWordIdx == 0 )
+    {
+      // Always available, as our super class needs it anyway...
+      return getValues();
+    }
+    return this.columns[aWordIdx];
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.WideAcquisitionResult#getWordCount()
+   */
+  @Override
+  public int getWordCount()
+  {
+    return this.columns.length;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.WideAcquisitionResult#getWordView(int)
+   */
+  @Override
+  public AcquisitionResult getWordView( final int aWordIdx )
+  {
+    final int channels = Math.min( Ols.CHANNELS_PER_WORD, this.totalChannels - ( aWordIdx * Ols.CHANNELS_PER_WORD ) );
+    final long[] timestamps = getTimestamps();
+    final int[] column = getValues( aWordIdx );
+
+    if ( column == null )
+    {
+      // No enabled channels; a single (all-zero) sample suffices...
+      return new CapturedData( new int[1], new long[1], getTriggerPosition(), getSampleRate(), channels, 0,
+          getAbsoluteLength() );
+    }
+
+    // Only keep the samples at which this word actually changes, as the shared
+    // timestamps also include transitions of all other words...
+    int count = 0;
+    for ( int i = 0; i < column.length; i++ )
+    {
+      if ( ( i == 0 ) || ( column[i] != column[i - 1] ) )
+      {
+        count++;
+      }
+    }
+
+    if ( count == column.length )
+    {
+      return new CapturedData( column, timestamps, getTriggerPosition(), getSampleRate(), channels,
+          this.enabledChannels[aWordIdx], getAbsoluteLength() );
+    }
+
+    final int[] values = new int[count];
+    final long[] times = new long[count];
+    for ( int i = 0, j = 0; i < column.length; i++ )
+    {
+      if ( ( i == 0 ) || ( column[i] != column[i - 1] ) )
+      {
+        values[j] = column[i];
+        times[j] = timestamps[i];
+        j++;
+      }
+    }
+
+    return new CapturedData( values, times, getTriggerPosition(), getSampleRate(), channels,
+        this.enabledChannels[aWordIdx], getAbsoluteLength() );
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString()
+  {
+    return "WideCapturedData[channels=" + this.totalChannels + ", enabled=" + Arrays.toString( this.enabledChannels )
+        + ", samples=" + getTimestamps().length + "]";
+  }
+}
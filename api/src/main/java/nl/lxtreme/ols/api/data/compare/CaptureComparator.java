@@ -0,0 +1,495 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.compare;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Compares two captures and reports all intervals in which their channels
+ * differ.
+ * <p>
+ * Both captures are compared by walking their (compressed) transition arrays
+ * in a single merged pass, so the time needed is linear in the total number
+ * of transitions rather than in the number of samples. The other capture can
+ * be aligned to the reference capture on their trigger positions, or on the
+ * first edge of a channel, and its channels can be mapped onto different
+ * channels of the reference capture.
+ * </p>
+ * <p>
+ * Edges that are shifted by no more than a given tolerance only cause short
+ * mismatches, which are ignored. All reported times are in samples of the
+ * reference capture, hence both captures should be taken at the same sample
+ * rate.
+ * </p>
+ */
+public final class CaptureComparator
+{
+  // INNER TYPES
+
+  /**
+   * Denotes how the other capture is aligned to the reference capture.
+   */
+  public static enum Alignment
+  {
+    /** Compare both captures as-is. */
+    NONE, //
+    /** Align both captures on their trigger positions. */
+    TRIGGER, //
+    /** Align both captures on the first edge of the alignment channel. */
+    EDGE;
+  }
+
+  // CONSTANTS
+
+  /** The number of transitions after which we check for interruption. */
+  private static final int INTERRUPT_CHECK_INTERVAL = 1 << 16;
+
+  // VARIABLES
+
+  private final int[] channelMap;
+  private int channelMask;
+  private int tolerance;
+  private Alignment alignment;
+  private int alignmentChannel;
+  private Edge alignmentEdge;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CaptureComparator instance, which compares all channels
+   * one-to-one without any alignment or tolerance.
+   */
+  public CaptureComparator()
+  {
+    this.channelMap = new int[Ols.MAX_CHANNELS];
+    for ( int i = 0; i < this.channelMap.length; i++ )
+    {
+      this.channelMap[i] = i;
+    }
+    this.channelMask = -1;
+    this.tolerance = 0;
+    this.alignment = Alignment.NONE;
+    this.alignmentEdge = Edge.RISING;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the time of the first edge on the given channel.
+   * 
+   * @return the time of the first edge, or -1 if no such edge exists.
+   */
+  static long findFirstEdge( final AcquisitionResult aData, final int aChannel, final Edge aEdge )
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+    final int mask = 1 << aChannel;
+
+    for ( int i = 1; i < values.length; i++ )
+    {
+      final int oldValue = values[i - 1] & mask;
+      final int newValue = values[i] & mask;
+      if ( oldValue == newValue )
+      {
+        continue;
+      }
+      if ( aEdge.isNone() || ( aEdge == Edge.toEdge( oldValue >>> aChannel, newValue >>> aChannel ) ) )
+      {
+        return timestamps[i];
+      }
+    }
+    return -1L;
+  }
+
+  /**
+   * Returns the index of the last timestamp that is less than or equal to the
+   * given time, or 0 if there is no such timestamp.
+   */
+  static int indexOf( final long[] aTimestamps, final long aTime )
+  {
+    final int idx = Arrays.binarySearch( aTimestamps, aTime );
+    if ( idx >= 0 )
+    {
+      return idx;
+    }
+    return Math.max( 0, -( idx + 1 ) - 1 );
+  }
+
+  /**
+   * Compares the given captures.
+   * 
+   * @param aReference
+   *          the reference capture, cannot be <code>null</code>;
+   * @param aOther
+   *          the capture to compare against the reference, cannot be
+   *          <code>null</code>.
+   * @return the comparison result, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case both captures have timing data, but were taken at
+   *           different sample rates;
+   * @throws InterruptedException
+   *           in case the current thread was interrupted during the
+   *           comparison.
+   */
+  public CompareResult compare( final AcquisitionResult aReference, final AcquisitionResult aOther )
+      throws IllegalArgumentException, InterruptedException
+  {
+    if ( aReference.hasTimingData() && aOther.hasTimingData()
+        && ( aReference.getSampleRate() != aOther.getSampleRate() ) )
+    {
+      throw new IllegalArgumentException( "Cannot compare captures with different sample rates: "
+          + aReference.getSampleRate() + " and " + aOther.getSampleRate() + " Hz!" );
+    }
+
+    final long offset = determineOffset( aReference, aOther );
+
+    final int[] refValues = aReference.getValues();
+    final long[] refTimestamps = aReference.getTimestamps();
+    final int[] otherValues = aOther.getValues();
+    final long[] otherTimestamps = aOther.getTimestamps();
+
+    final List<CompareMismatch> mismatches = new ArrayList<CompareMismatch>();
+
+    if ( ( refTimestamps.length == 0 ) || ( otherTimestamps.length == 0 ) )
+    {
+      return new CompareResult( offset, 0L, 0L, mismatches );
+    }
+
+    // Only compare the range in which both captures have data...
+    final long start = Math.max( refTimestamps[0], otherTimestamps[0] + offset );
+    final long end = Math.min( Math.max( aReference.getAbsoluteLength(), refTimestamps[refTimestamps.length - 1] + 1L ),
+        Math.max( aOther.getAbsoluteLength(), otherTimestamps[otherTimestamps.length - 1] + 1L ) + offset );
+    if ( start >= end )
+    {
+      return new CompareResult( offset, start, start, mismatches );
+    }
+
+    final int mask = determineChannelMask( aReference, aOther );
+    final int[][] mapping = createMappingTables();
+
+    final long[] mismatchStart = new long[Ols.MAX_CHANNELS];
+
+    int refIdx = indexOf( refTimestamps, start );
+    int otherIdx = indexOf( otherTimestamps, start - offset );
+    int prevDiff = 0;
+    int iterations = 0;
+
+    long time = start;
+    while ( time < end )
+    {
+      if ( ( ( ++iterations % INTERRUPT_CHECK_INTERVAL ) == 0 ) && Thread.currentThread().isInterrupted() )
+      {
+        throw new InterruptedException();
+      }
+
+      final int diff = ( refValues[refIdx] ^ remap( mapping, otherValues[otherIdx] ) ) & mask;
+
+      int changed = diff ^ prevDiff;
+      while ( changed != 0 )
+      {
+        final int channel = Integer.numberOfTrailingZeros( changed );
+        changed &= changed - 1;
+
+        if ( ( diff & ( 1 << channel ) ) != 0 )
+        {
+          mismatchStart[channel] = time;
+        }
+        else
+        {
+          addMismatch( mismatches, channel, mismatchStart[channel], time );
+        }
+      }
+      prevDiff = diff;
+
+      // Advance to the next transition of either capture...
+      final long nextRef = ( ( refIdx + 1 ) < refTimestamps.length ) ? refTimestamps[refIdx + 1] : Long.MAX_VALUE;
+      final long nextOther = ( ( otherIdx + 1 ) < otherTimestamps.length ) ? otherTimestamps[otherIdx + 1] + offset
+          : Long.MAX_VALUE;
+
+      time = Math.min( nextRef, nextOther );
+      if ( time == nextRef )
+      {
+        refIdx++;
+      }
+      if ( time == nextOther )
+      {
+        otherIdx++;
+      }
+    }
+
+    // Close all mismatches that last until the end...
+    while ( prevDiff != 0 )
+    {
+      final int channel = Integer.numberOfTrailingZeros( prevDiff );
+      prevDiff &= prevDiff - 1;
+
+      addMismatch( mismatches, channel, mismatchStart[channel], end );
+    }
+
+    Collections.sort( mismatches );
+
+    return new CompareResult( offset, start, end, mismatches );
+  }
+
+  /**
+   * Returns how the other capture is aligned to the reference capture.
+   * 
+   * @return the alignment, never <code>null</code>.
+   */
+  public Alignment getAlignment()
+  {
+    return this.alignment;
+  }
+
+  /**
+   * Returns the channels of the reference capture that are compared.
+   * 
+   * @return a channel bit mask.
+   */
+  public int getChannelMask()
+  {
+    return this.channelMask;
+  }
+
+  /**
+   * Returns the channel of the other capture that is compared against the
+   * given channel of the reference capture.
+   * 
+   * @param aChannel
+   *          the channel of the reference capture, >= 0 && < 32.
+   * @return a channel of the other capture.
+   */
+  public int getMappedChannel( final int aChannel )
+  {
+    return this.channelMap[aChannel];
+  }
+
+  /**
+   * Returns the maximum duration of mismatches that are ignored.
+   * 
+   * @return a tolerance, in samples, >= 0.
+   */
+  public int getTolerance()
+  {
+    return this.tolerance;
+  }
+
+  /**
+   * Aligns both captures on their trigger positions. In case either capture
+   * does not have a trigger position, no alignment takes place.
+   */
+  public void setAlignOnTrigger()
+  {
+    this.alignment = Alignment.TRIGGER;
+  }
+
+  /**
+   * Aligns both captures on the first edge of the given channel. In case
+   * either capture does not have such an edge, no alignment takes place.
+   * 
+   * @param aChannel
+   *          the channel of the reference capture to align on, >= 0 && < 32;
+   * @param aEdge
+   *          the edge to align on, {@link Edge#NONE} for any edge.
+   */
+  public void setAlignOnEdge( final int aChannel, final Edge aEdge )
+  {
+    checkChannel( aChannel );
+    this.alignment = Alignment.EDGE;
+    this.alignmentChannel = aChannel;
+    this.alignmentEdge = aEdge;
+  }
+
+  /**
+   * Compares both captures as-is, without aligning them.
+   */
+  public void setAlignNone()
+  {
+    this.alignment = Alignment.NONE;
+  }
+
+  /**
+   * Maps a channel of the reference capture onto a channel of the other
+   * capture.
+   * 
+   * @param aChannel
+   *          the channel of the reference capture, >= 0 && < 32;
+   * @param aOtherChannel
+   *          the channel of the other capture to compare it with, >= 0 && <
+   *          32.
+   */
+  public void setChannelMapping( final int aChannel, final int aOtherChannel )
+  {
+    checkChannel( aChannel );
+    checkChannel( aOtherChannel );
+    this.channelMap[aChannel] = aOtherChannel;
+  }
+
+  /**
+   * Sets the channels of the reference capture that are to be compared.
+   * 
+   * @param aMask
+   *          the channel bit mask to set.
+   */
+  public void setChannelMask( final int aMask )
+  {
+    this.channelMask = aMask;
+  }
+
+  /**
+   * Sets the maximum duration of mismatches that are to be ignored, for
+   * example, to allow for jitter on edges.
+   * 
+   * @param aTolerance
+   *          the tolerance, in samples, >= 0.
+   */
+  public void setTolerance( final int aTolerance )
+  {
+    if ( aTolerance < 0 )
+    {
+      throw new IllegalArgumentException( "Tolerance cannot be negative!" );
+    }
+    this.tolerance = aTolerance;
+  }
+
+  /**
+   * Remaps the given value of the other capture onto the channels of the
+   * reference capture.
+   */
+  private static int remap( final int[][] aMapping, final int aValue )
+  {
+    if ( aMapping == null )
+    {
+      return aValue;
+    }
+    return aMapping[0][aValue & 0xFF] | aMapping[1][( aValue >>> 8 ) & 0xFF] | aMapping[2][( aValue >>> 16 ) & 0xFF]
+        | aMapping[3][aValue >>> 24];
+  }
+
+  /**
+   * Adds a mismatch in case it exceeds our tolerance.
+   */
+  private void addMismatch( final List<CompareMismatch> aMismatches, final int aChannel, final long aStart,
+      final long aEnd )
+  {
+    if ( ( aEnd - aStart ) > this.tolerance )
+    {
+      aMismatches.add( new CompareMismatch( aChannel, aStart, aEnd ) );
+    }
+  }
+
+  /**
+   * Verifies the given channel index.
+   */
+  private void checkChannel( final int aChannel )
+  {
+    if ( ( aChannel < 0 ) || ( aChannel >= Ols.MAX_CHANNELS ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel: " + aChannel );
+    }
+  }
+
+  /**
+   * Creates the lookup tables that remap the bytes of a value of the other
+   * capture onto the channels of the reference capture.
+   * 
+   * @return the lookup tables, or <code>null</code> if the channel mapping is
+   *         the identity mapping.
+   */
+  private int[][] createMappingTables()
+  {
+    boolean identity = true;
+    for ( int i = 0; identity && ( i < this.channelMap.length ); i++ )
+    {
+      identity = ( this.channelMap[i] == i ) || ( ( this.channelMask & ( 1 << i ) ) == 0 );
+    }
+    if ( identity )
+    {
+      return null;
+    }
+
+    final int[][] result = new int[4][256];
+    for ( int channel = 0; channel < this.channelMap.length; channel++ )
+    {
+      final int otherChannel = this.channelMap[channel];
+      final int[] table = result[otherChannel / 8];
+      final int bit = 1 << ( otherChannel % 8 );
+      for ( int v = 0; v < 256; v++ )
+      {
+        if ( ( v & bit ) != 0 )
+        {
+          table[v] |= ( 1 << channel );
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Determines the channels to compare, which are the channels that are
+   * selected, and enabled in both captures.
+   */
+  private int determineChannelMask( final AcquisitionResult aReference, final AcquisitionResult aOther )
+  {
+    final int otherEnabled = aOther.getEnabledChannels();
+
+    int result = this.channelMask & aReference.getEnabledChannels();
+    for ( int channel = 0; channel < this.channelMap.length; channel++ )
+    {
+      if ( ( otherEnabled & ( 1 << this.channelMap[channel] ) ) == 0 )
+      {
+        result &= ~( 1 << channel );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Determines the offset to add to the timestamps of the other capture in
+   * order to align it with the reference capture.
+   */
+  private long determineOffset( final AcquisitionResult aReference, final AcquisitionResult aOther )
+  {
+    if ( this.alignment == Alignment.TRIGGER )
+    {
+      if ( aReference.hasTriggerData() && aOther.hasTriggerData() )
+      {
+        return aReference.getTriggerPosition() - aOther.getTriggerPosition();
+      }
+    }
+    else if ( this.alignment == Alignment.EDGE )
+    {
+      final long refEdge = findFirstEdge( aReference, this.alignmentChannel, this.alignmentEdge );
+      final long otherEdge = findFirstEdge( aOther, this.channelMap[this.alignmentChannel], this.alignmentEdge );
+      if ( ( refEdge >= 0L ) && ( otherEdge >= 0L ) )
+      {
+        return refEdge - otherEdge;
+      }
+    }
+    return 0L;
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.compare;
+
+
+/**
+ * Denotes a single interval in which a channel of two compared captures
+ * differs.
+ */
+public final class CompareMismatch implements Comparable<CompareMismatch>
+{
+  // VARIABLES
+
+  private final int channel;
+  private final long startTime;
+  private final long endTime;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CompareMismatch instance.
+   * 
+   * @param aChannel
+   *          the channel (of the reference capture) that differs, >= 0;
+   * @param aStartTime
+   *          the time at which the mismatch starts, in samples of the
+   *          reference capture;
+   * @param aEndTime
+   *          the time at which the mismatch ends (exclusive), >= aStartTime.
+   */
+  public CompareMismatch( final int aChannel, final long aStartTime, final long aEndTime )
+  {
+    this.channel = aChannel;
+    this.startTime = aStartTime;
+    this.endTime = aEndTime;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int compareTo( final CompareMismatch aMismatch )
+  {
+    if ( this.startTime != aMismatch.startTime )
+    {
+      return ( this.startTime < aMismatch.startTime ) ? -1 : 1;
+    }
+    if ( this.channel != aMismatch.channel )
+    {
+      return ( this.channel < aMismatch.channel ) ? -1 : 1;
+    }
+    if ( this.endTime != aMismatch.endTime )
+    {
+      return ( this.endTime < aMismatch.endTime ) ? -1 : 1;
+    }
+    return 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals( final Object aObject )
+  {
+    if ( this == aObject )
+    {
+      return true;
+    }
+    if ( !( aObject instanceof CompareMismatch ) )
+    {
+      return false;
+    }
+
+    final CompareMismatch other = ( CompareMismatch )aObject;
+    return ( this.channel == other.channel ) && ( this.startTime == other.startTime )
+        && ( this.endTime == other.endTime );
+  }
+
+  /**
+   * Returns the channel that differs.
+   * 
+   * @return a channel index of the reference capture, >= 0.
+   */
+  public int getChannel()
+  {
+    return this.channel;
+  }
+
+  /**
+   * Returns the duration of this mismatch.
+   * 
+   * @return a duration, in samples, >= 0.
+   */
+  public long getDuration()
+  {
+    return this.endTime - this.startTime;
+  }
+
+  /**
+   * Returns the time at which this mismatch ends.
+   * 
+   * @return an absolute time value (exclusive), in samples.
+   */
+  public long getEndTime()
+  {
+    return this.endTime;
+  }
+
+  /**
+   * Returns the time at which this mismatch starts.
+   * 
+   * @return an absolute time value, in samples.
+   */
+  public long getStartTime()
+  {
+    return this.startTime;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode()
+  {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + this.channel;
+    result = prime * result + ( int )( this.startTime ^ ( this.startTime >>> 32 ) );
+    result = prime * result + ( int )( this.endTime ^ ( this.endTime >>> 32 ) );
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return "CompareMismatch[channel " + this.channel + ": " + this.startTime + ".." + this.endTime + "]";
+  }
+}
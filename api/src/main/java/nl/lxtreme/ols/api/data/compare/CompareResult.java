@@ -0,0 +1,174 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.compare;
+
+
+import java.io.*;
+import java.util.*;
+
+
+/**
+ * Provides the result of comparing two captures.
+ */
+public final class CompareResult
+{
+  // VARIABLES
+
+  private final long offset;
+  private final long startTime;
+  private final long endTime;
+  private final List<CompareMismatch> mismatches;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CompareResult instance.
+   * 
+   * @param aOffset
+   *          the offset that was added to the timestamps of the other capture
+   *          to align it with the reference capture;
+   * @param aStartTime
+   *          the time at which the compared range starts;
+   * @param aEndTime
+   *          the time at which the compared range ends (exclusive);
+   * @param aMismatches
+   *          the (sorted) mismatches, cannot be <code>null</code>.
+   */
+  CompareResult( final long aOffset, final long aStartTime, final long aEndTime,
+      final List<CompareMismatch> aMismatches )
+  {
+    this.offset = aOffset;
+    this.startTime = aStartTime;
+    this.endTime = aEndTime;
+    this.mismatches = Collections.unmodifiableList( aMismatches );
+  }
+
+  // METHODS
+
+  /**
+   * Returns the time at which the compared range ends.
+   * 
+   * @return a time value (exclusive), in samples of the reference capture.
+   */
+  public long getEndTime()
+  {
+    return this.endTime;
+  }
+
+  /**
+   * Returns all mismatches, sorted on their start time.
+   * 
+   * @return an unmodifiable list of mismatches, never <code>null</code>.
+   */
+  public List<CompareMismatch> getMismatches()
+  {
+    return this.mismatches;
+  }
+
+  /**
+   * Returns the mismatches of a single channel, sorted on their start time.
+   * 
+   * @param aChannel
+   *          the channel of the reference capture to return the mismatches
+   *          for.
+   * @return a list of mismatches, never <code>null</code>.
+   */
+  public List<CompareMismatch> getMismatches( final int aChannel )
+  {
+    final List<CompareMismatch> result = new ArrayList<CompareMismatch>();
+    for ( CompareMismatch mismatch : this.mismatches )
+    {
+      if ( mismatch.getChannel() == aChannel )
+      {
+        result.add( mismatch );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the offset that was used to align both captures.
+   * 
+   * @return the number of samples added to the timestamps of the other
+   *         capture.
+   */
+  public long getOffset()
+  {
+    return this.offset;
+  }
+
+  /**
+   * Returns the time at which the compared range starts.
+   * 
+   * @return a time value, in samples of the reference capture.
+   */
+  public long getStartTime()
+  {
+    return this.startTime;
+  }
+
+  /**
+   * Returns whether both captures are equal within the compared range.
+   * 
+   * @return <code>true</code> if no mismatches were found, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isEqual()
+  {
+    return this.mismatches.isEmpty();
+  }
+
+  /**
+   * Writes all mismatches as comma-separated values to the given writer.
+   * 
+   * @param aWriter
+   *          the writer to write to, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void write( final Writer aWriter ) throws IOException
+  {
+    final BufferedWriter bw = new BufferedWriter( aWriter );
+
+    try
+    {
+      bw.write( "\"channel\",\"start\",\"end\",\"duration\"" );
+      bw.newLine();
+
+      final StringBuilder sb = new StringBuilder();
+      for ( CompareMismatch mismatch : this.mismatches )
+      {
+        sb.setLength( 0 );
+        sb.append( mismatch.getChannel() ).append( ',' );
+        sb.append( mismatch.getStartTime() ).append( ',' );
+        sb.append( mismatch.getEndTime() ).append( ',' );
+        sb.append( mismatch.getDuration() );
+
+        bw.write( sb.toString() );
+        bw.newLine();
+      }
+    }
+    finally
+    {
+      bw.flush();
+    }
+  }
+}
@@ -0,0 +1,336 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.export;
+
+
+import java.io.*;
+
+
+/**
+ * Provides a base implementation of {@link TableWriter} that collects rows in
+ * column-oriented batches of a fixed size, and hands each full batch to its
+ * subclass for writing.
+ */
+abstract class BatchingTableWriter implements TableWriter
+{
+  // INNER TYPES
+
+  /**
+   * Holds a batch of rows, stored per column in primitive arrays.
+   */
+  static final class RowBatch
+  {
+    // VARIABLES
+
+    final ColumnType[] types;
+    final long[][] longs;
+    final double[][] doubles;
+    final String[][] strings;
+    final boolean[][] nulls;
+    int rows;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new RowBatch instance.
+     */
+    RowBatch( final ColumnType[] aTypes, final int aCapacity )
+    {
+      this.types = aTypes;
+      this.longs = new long[aTypes.length][];
+      this.doubles = new double[aTypes.length][];
+      this.strings = new String[aTypes.length][];
+      this.nulls = new boolean[aTypes.length][aCapacity];
+
+      for ( int c = 0; c < aTypes.length; c++ )
+      {
+        switch ( aTypes[c] )
+        {
+          case DOUBLE:
+            this.doubles[c] = new double[aCapacity];
+            break;
+          case STRING:
+            this.strings[c] = new String[aCapacity];
+            break;
+          default:
+            this.longs[c] = new long[aCapacity];
+            break;
+        }
+      }
+    }
+  }
+
+  // CONSTANTS
+
+  /** The default number of rows in a batch. */
+  static final int DEFAULT_BATCH_SIZE = 4096;
+
+  // VARIABLES
+
+  private final int batchSize;
+
+  private String[] names;
+  private ColumnType[] types;
+  private RowBatch batch;
+  private int column;
+  private boolean closed;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new BatchingTableWriter instance.
+   * 
+   * @param aBatchSize
+   *          the number of rows in a batch, > 0.
+   */
+  BatchingTableWriter( final int aBatchSize )
+  {
+    if ( aBatchSize <= 0 )
+    {
+      throw new IllegalArgumentException( "Batch size should be positive!" );
+    }
+    this.batchSize = aBatchSize;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final void close() throws IOException
+  {
+    if ( this.closed )
+    {
+      return;
+    }
+    this.closed = true;
+
+    try
+    {
+      if ( ( this.batch != null ) && ( this.batch.rows > 0 ) )
+      {
+        writeBatch( this.batch );
+      }
+    }
+    finally
+    {
+      this.batch = null;
+      finish();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final void endRow() throws IOException
+  {
+    final RowBatch current = getBatch();
+    // Any remaining cells are empty...
+    while ( this.column < this.types.length )
+    {
+      current.nulls[this.column++][current.rows] = true;
+    }
+
+    this.column = 0;
+    if ( ++current.rows == this.batchSize )
+    {
+      writeBatch( current );
+      this.batch = new RowBatch( this.types, this.batchSize );
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final void setColumns( final String[] aNames, final ColumnType[] aTypes ) throws IOException
+  {
+    if ( this.types != null )
+    {
+      throw new IllegalStateException( "Columns already set!" );
+    }
+    if ( ( aNames == null ) || ( aTypes == null ) || ( aNames.length != aTypes.length ) )
+    {
+      throw new IllegalArgumentException( "Column names and types should be given for each column!" );
+    }
+
+    this.names = aNames.clone();
+    this.types = aTypes.clone();
+
+    writeHeader( this.names, this.types );
+
+    this.batch = new RowBatch( this.types, this.batchSize );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final TableWriter writeBoolean( final boolean aValue )
+  {
+    getBatch().longs[nextColumn( ColumnType.BOOLEAN )][this.batch.rows] = aValue ? 1L : 0L;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final TableWriter writeDouble( final double aValue )
+  {
+    getBatch().doubles[nextColumn( ColumnType.DOUBLE )][this.batch.rows] = aValue;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final TableWriter writeInt( final int aValue )
+  {
+    final ColumnType type = currentType();
+    if ( type == ColumnType.INT )
+    {
+      getBatch().longs[nextColumn( ColumnType.INT )][this.batch.rows] = aValue;
+      return this;
+    }
+    return writeLong( aValue );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final TableWriter writeLong( final long aValue )
+  {
+    final ColumnType type = currentType();
+    if ( type == ColumnType.DOUBLE )
+    {
+      return writeDouble( aValue );
+    }
+    getBatch().longs[nextColumn( ColumnType.LONG )][this.batch.rows] = aValue;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final TableWriter writeNull()
+  {
+    getBatch().nulls[nextColumn( null )][this.batch.rows] = true;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final TableWriter writeString( final String aValue )
+  {
+    if ( aValue == null )
+    {
+      return writeNull();
+    }
+    getBatch().strings[nextColumn( ColumnType.STRING )][this.batch.rows] = aValue;
+    return this;
+  }
+
+  /**
+   * Called after the last batch is written, to flush and close the underlying
+   * stream.
+   * 
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  protected abstract void finish() throws IOException;
+
+  /**
+   * Writes a batch of rows. The given batch is no longer used by this writer
+   * afterwards.
+   * 
+   * @param aBatch
+   *          the batch to write, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  protected abstract void writeBatch( RowBatch aBatch ) throws IOException;
+
+  /**
+   * Writes the header of the table.
+   * 
+   * @param aNames
+   *          the column names, never <code>null</code>;
+   * @param aTypes
+   *          the column types, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  protected abstract void writeHeader( String[] aNames, ColumnType[] aTypes ) throws IOException;
+
+  /**
+   * Returns the type of the current column.
+   */
+  private ColumnType currentType()
+  {
+    getBatch();
+    if ( this.column >= this.types.length )
+    {
+      throw new IllegalStateException( "Row has more cells than columns!" );
+    }
+    return this.types[this.column];
+  }
+
+  /**
+   * Returns the current batch, failing if no columns are set yet.
+   */
+  private RowBatch getBatch()
+  {
+    if ( this.closed )
+    {
+      throw new IllegalStateException( "Writer is closed!" );
+    }
+    if ( this.batch == null )
+    {
+      throw new IllegalStateException( "Columns not set!" );
+    }
+    return this.batch;
+  }
+
+  /**
+   * Advances to the next column, verifying the current column has the given
+   * type.
+   * 
+   * @return the index of the current column.
+   */
+  private int nextColumn( final ColumnType aType )
+  {
+    final ColumnType type = currentType();
+    if ( ( aType != null ) && ( type != aType ) )
+    {
+      throw new IllegalStateException( "Column '" + this.names[this.column] + "' is of type " + type
+          + ", cannot write " + aType + "!" );
+    }
+    return this.column++;
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.export;
+
+
+import java.io.*;
+
+
+/**
+ * Provides a {@link TableWriter} that writes a compact, column-oriented binary
+ * table format, intended for (external) analysis scripts.
+ * <p>
+ * All numbers are written in big-endian order. A table consists of:
+ * </p>
+ * <ol>
+ * <li>the magic bytes <tt>"OLSTABLE"</tt>, followed by the format version
+ * (int32, currently {@value #VERSION});</li>
+ * <li>the column count (int32), followed by the name (as Java modified UTF-8,
+ * prefixed by its uint16 length) and type code (uint8, see
+ * {@link ColumnType#getCode()}) of each column;</li>
+ * <li>zero or more batches, each consisting of the row count (int32, &gt; 0)
+ * followed by, for each column, a null bitmap of <tt>(rows + 7) / 8</tt> bytes
+ * (least significant bit first; a set bit denotes an empty cell) and the
+ * values of the column:
+ * <ul>
+ * <li>INT: int32 per row;</li>
+ * <li>LONG: int64 per row;</li>
+ * <li>DOUBLE: IEEE-754 float64 per row;</li>
+ * <li>BOOLEAN: a bitmap of <tt>(rows + 7) / 8</tt> bytes, like the null
+ * bitmap;</li>
+ * <li>STRING: <tt>rows + 1</tt> int32 offsets into the UTF-8 encoded
+ * characters that follow;</li>
+ * </ul>
+ * Empty cells have a value of zero or an empty string;</li>
+ * <li>an int32 with value zero, marking the end of the table.</li>
+ * </ol>
+ */
+public final class BinaryTableWriter extends BatchingTableWriter
+{
+  // CONSTANTS
+
+  /** The version of the written table format. */
+  public static final int VERSION = 1;
+
+  private static final byte[] MAGIC = { 'O', 'L', 'S', 'T', 'A', 'B', 'L', 'E' };
+
+  // VARIABLES
+
+  private final DataOutputStream output;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new BinaryTableWriter instance.
+   * 
+   * @param aStream
+   *          the stream to write the table to, cannot be <code>null</code>.
+   */
+  public BinaryTableWriter( final OutputStream aStream )
+  {
+    this( aStream, DEFAULT_BATCH_SIZE );
+  }
+
+  /**
+   * Creates a new BinaryTableWriter instance.
+   */
+  BinaryTableWriter( final OutputStream aStream, final int aBatchSize )
+  {
+    super( aBatchSize );
+
+    if ( aStream == null )
+    {
+      throw new IllegalArgumentException( "Stream cannot be null!" );
+    }
+    this.output = new DataOutputStream( new BufferedOutputStream( aStream ) );
+  }
+
+  // METHODS
+
+  /**
+   * Writes the given flags as a bitmap.
+   */
+  private static void writeBitmap( final DataOutputStream aOutput, final boolean[] aFlags, final int aCount )
+      throws IOException
+  {
+    for ( int i = 0; i < aCount; i += 8 )
+    {
+      int bits = 0;
+      for ( int b = 0; ( b < 8 ) && ( ( i + b ) < aCount ); b++ )
+      {
+        if ( aFlags[i + b] )
+        {
+          bits |= ( 1 << b );
+        }
+      }
+      aOutput.writeByte( bits );
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void finish() throws IOException
+  {
+    try
+    {
+      this.output.writeInt( 0 );
+      this.output.flush();
+    }
+    finally
+    {
+      this.output.close();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void writeBatch( final RowBatch aBatch ) throws IOException
+  {
+    final int rows = aBatch.rows;
+    this.output.writeInt( rows );
+
+    for ( int c = 0; c < aBatch.types.length; c++ )
+    {
+      writeBitmap( this.output, aBatch.nulls[c], rows );
+
+      switch ( aBatch.types[c] )
+      {
+        case INT:
+          for ( int r = 0; r < rows; r++ )
+          {
+            this.output.writeInt( ( int )aBatch.longs[c][r] );
+          }
+          break;
+
+        case LONG:
+          for ( int r = 0; r < rows; r++ )
+          {
+            this.output.writeLong( aBatch.longs[c][r] );
+          }
+          break;
+
+        case DOUBLE:
+          for ( int r = 0; r < rows; r++ )
+          {
+            this.output.writeDouble( aBatch.doubles[c][r] );
+          }
+          break;
+
+        case BOOLEAN:
+          final boolean[] flags = new boolean[rows];
+          for ( int r = 0; r < rows; r++ )
+          {
+            flags[r] = aBatch.longs[c][r] != 0L;
+          }
+          writeBitmap( this.output, flags, rows );
+          break;
+
+        case STRING:
+          writeStrings( aBatch.strings[c], rows );
+          break;
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void writeHeader( final String[] aNames, final ColumnType[] aTypes ) throws IOException
+  {
+    this.output.write( MAGIC );
+    this.output.writeInt( VERSION );
+    this.output.writeInt( aNames.length );
+    for ( int c = 0; c < aNames.length; c++ )
+    {
+      this.output.writeUTF( aNames[c] );
+      this.output.writeByte( aTypes[c].getCode() );
+    }
+  }
+
+  /**
+   * Writes a column of strings as offsets followed by their UTF-8 encoding.
+   */
+  private void writeStrings( final String[] aValues, final int aRows ) throws IOException
+  {
+    final byte[][] encoded = new byte[aRows][];
+
+    int offset = 0;
+    this.output.writeInt( offset );
+    for ( int r = 0; r < aRows; r++ )
+    {
+      encoded[r] = ( aValues[r] == null ) ? new byte[0] : aValues[r].getBytes( "UTF-8" );
+      offset += encoded[r].length;
+      this.output.writeInt( offset );
+    }
+    for ( int r = 0; r < aRows; r++ )
+    {
+      this.output.write( encoded[r] );
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.export;
+
+
+/**
+ * Denotes the type of the values in a column of a {@link TableWriter}.
+ */
+public enum ColumnType
+{
+  /** 32-bit signed integer values. */
+  INT( 1 ),
+  /** 64-bit signed integer values. */
+  LONG( 2 ),
+  /** 64-bit floating point values. */
+  DOUBLE( 3 ),
+  /** Boolean values. */
+  BOOLEAN( 4 ),
+  /** (Unicode) string values. */
+  STRING( 5 );
+
+  // VARIABLES
+
+  private final int code;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ColumnType instance.
+   */
+  private ColumnType( final int aCode )
+  {
+    this.code = aCode;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the code identifying this type in the binary table format.
+   * 
+   * @return a type code, > 0.
+   * @see BinaryTableWriter
+   */
+  public int getCode()
+  {
+    return this.code;
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.export;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+
+/**
+ * Provides a {@link TableWriter} that writes CSV (RFC 4180) files.
+ * <p>
+ * Numeric cells are formatted directly from their primitive value, and only
+ * strings that need it are quoted. Rows are formatted per batch; for tables
+ * larger than a single batch, batches are formatted in parallel while the
+ * formatted batches are written in order. At most twice the parallelism
+ * number of batches is kept in memory at any time.
+ * </p>
+ */
+public final class CsvTableWriter extends BatchingTableWriter
+{
+  // CONSTANTS
+
+  private static final String LINE_SEPARATOR = System.getProperty( "line.separator", "\n" );
+
+  // VARIABLES
+
+  private final Writer writer;
+  private final char delimiter;
+  private final int parallelism;
+  private final Deque<Future<String>> pending;
+
+  private ExecutorService executor;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CsvTableWriter instance using a comma as delimiter, and
+   * formatting on all available processors.
+   * 
+   * @param aWriter
+   *          the writer to write the CSV data to, cannot be <code>null</code>.
+   */
+  public CsvTableWriter( final Writer aWriter )
+  {
+    this( aWriter, ',', Runtime.getRuntime().availableProcessors() );
+  }
+
+  /**
+   * Creates a new CsvTableWriter instance.
+   * 
+   * @param aWriter
+   *          the writer to write the CSV data to, cannot be <code>null</code>;
+   * @param aDelimiter
+   *          the delimiter to use between cells;
+   * @param aParallelism
+   *          the maximum number of batches to format concurrently, use 1 to
+   *          format all batches on the calling thread.
+   */
+  public CsvTableWriter( final Writer aWriter, final char aDelimiter, final int aParallelism )
+  {
+    this( aWriter, aDelimiter, aParallelism, DEFAULT_BATCH_SIZE );
+  }
+
+  /**
+   * Creates a new CsvTableWriter instance.
+   */
+  CsvTableWriter( final Writer aWriter, final char aDelimiter, final int aParallelism, final int aBatchSize )
+  {
+    super( aBatchSize );
+
+    if ( aWriter == null )
+    {
+      throw new IllegalArgumentException( "Writer cannot be null!" );
+    }
+    if ( ( aDelimiter == '"' ) || ( aDelimiter == '\r' ) || ( aDelimiter == '\n' ) )
+    {
+      throw new IllegalArgumentException( "Invalid delimiter!" );
+    }
+
+    this.writer = aWriter;
+    this.delimiter = aDelimiter;
+    this.parallelism = Math.max( 1, aParallelism );
+    this.pending = new ArrayDeque<Future<String>>();
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void finish() throws IOException
+  {
+    try
+    {
+      while ( !this.pending.isEmpty() )
+      {
+        writePending();
+      }
+      this.writer.flush();
+    }
+    finally
+    {
+      this.writer.close();
+      if ( this.executor != null )
+      {
+        this.executor.shutdownNow();
+        this.executor = null;
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void writeBatch( final RowBatch aBatch ) throws IOException
+  {
+    if ( this.parallelism == 1 )
+    {
+      this.writer.write( format( aBatch ) );
+      return;
+    }
+
+    if ( this.executor == null )
+    {
+      this.executor = Executors.newFixedThreadPool( this.parallelism, new ThreadFactory()
+      {
+        @Override
+        public Thread newThread( final Runnable aRunnable )
+        {
+          final Thread thread = new Thread( aRunnable, "CSV formatter" );
+          thread.setDaemon( true );
+          return thread;
+        }
+      } );
+    }
+
+    this.pending.addLast( this.executor.submit( new Callable<String>()
+    {
+      @Override
+      public String call() throws Exception
+      {
+        return format( aBatch );
+      }
+    } ) );
+
+    // Bound the number of batches in memory...
+    while ( this.pending.size() > ( 2 * this.parallelism ) )
+    {
+      writePending();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void writeHeader( final String[] aNames, final ColumnType[] aTypes ) throws IOException
+  {
+    final StringBuilder sb = new StringBuilder();
+    for ( int c = 0; c < aNames.length; c++ )
+    {
+      if ( c > 0 )
+      {
+        sb.append( this.delimiter );
+      }
+      appendString( sb, aNames[c] );
+    }
+    sb.append( LINE_SEPARATOR );
+
+    this.writer.write( sb.toString() );
+  }
+
+  /**
+   * Appends the given string, quoting it if necessary.
+   */
+  private void appendString( final StringBuilder aBuilder, final String aValue )
+  {
+    boolean quote = false;
+    for ( int i = 0; !quote && ( i < aValue.length() ); i++ )
+    {
+      final char ch = aValue.charAt( i );
+      quote = ( ch == this.delimiter ) || ( ch == '"' ) || ( ch == '\r' ) || ( ch == '\n' );
+    }
+
+    if ( !quote )
+    {
+      aBuilder.append( aValue );
+      return;
+    }
+
+    aBuilder.append( '"' );
+    for ( int i = 0; i < aValue.length(); i++ )
+    {
+      final char ch = aValue.charAt( i );
+      if ( ch == '"' )
+      {
+        aBuilder.append( '"' );
+      }
+      aBuilder.append( ch );
+    }
+    aBuilder.append( '"' );
+  }
+
+  /**
+   * Formats all rows of the given batch.
+   */
+  private String format( final RowBatch aBatch )
+  {
+    final int columns = aBatch.types.length;
+    final StringBuilder sb = new StringBuilder( aBatch.rows * ( columns * 8 + 2 ) );
+
+    for ( int r = 0; r < aBatch.rows; r++ )
+    {
+      for ( int c = 0; c < columns; c++ )
+      {
+        if ( c > 0 )
+        {
+          sb.append( this.delimiter );
+        }
+        if ( aBatch.nulls[c][r] )
+        {
+          continue;
+        }
+
+        switch ( aBatch.types[c] )
+        {
+          case DOUBLE:
+            sb.append( aBatch.doubles[c][r] );
+            break;
+          case STRING:
+            appendString( sb, aBatch.strings[c][r] );
+            break;
+          case BOOLEAN:
+            sb.append( aBatch.longs[c][r] != 0L );
+            break;
+          default:
+            sb.append( aBatch.longs[c][r] );
+            break;
+        }
+      }
+      sb.append( LINE_SEPARATOR );
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Waits for the oldest pending batch to be formatted, and writes it.
+   */
+  private void writePending() throws IOException
+  {
+    final Future<String> future = this.pending.removeFirst();
+    try
+    {
+      this.writer.write( future.get() );
+    }
+    catch ( InterruptedException exception )
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while formatting CSV data!" );
+    }
+    catch ( ExecutionException exception )
+    {
+      final Throwable cause = exception.getCause();
+      if ( cause instanceof RuntimeException )
+      {
+        throw ( RuntimeException )cause;
+      }
+      throw new IOException( "Failed to format CSV data: " + cause );
+    }
+  }
+}
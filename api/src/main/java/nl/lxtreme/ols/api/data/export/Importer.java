@@ -0,0 +1,99 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.export;
+
+
+import java.awt.*;
+import java.io.*;
+
+import nl.lxtreme.ols.api.data.project.*;
+
+
+/**
+ * Provides an importer for importing data from an external entity, such as a
+ * file, in a foreign format.
+ * <p>
+ * Importers are expected to read their input as stream, and to parse it
+ * directly into transitions, for example, using a
+ * {@link nl.lxtreme.ols.api.data.TransitionBuffer}. Importing is done on a
+ * background thread; importers should stop as soon as possible when this
+ * thread is interrupted by throwing an {@link InterruptedIOException}. The
+ * stream given to an importer normally already does this, see
+ * {@link ProgressInputStream}.
+ * </p>
+ */
+public interface Importer
+{
+  // METHODS
+
+  /**
+   * Returns the file extensions supported by this importer.
+   * 
+   * @return the supported file extensions, never <code>null</code>, but may be
+   *         empty.
+   * @see Exporter#getFilenameExtentions()
+   */
+  String[] getFilenameExtentions();
+
+  /**
+   * Returns the name of this importer.
+   * 
+   * @return a name, never <code>null</code> or empty.
+   */
+  String getName();
+
+  /**
+   * Imports the data from the given stream into the given project.
+   * <p>
+   * The imported data is set as captured data of the given project. When
+   * available, the channel labels of the project are set as well.
+   * </p>
+   * 
+   * @param aProject
+   *          the (temporary) project to import the data into, can never be
+   *          <code>null</code>;
+   * @param aStream
+   *          the input stream to read the data from, can never be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or in case the data could not be
+   *           parsed;
+   * @throws InterruptedIOException
+   *           in case the import is cancelled.
+   */
+  void importData( final Project aProject, final InputStream aStream ) throws IOException;
+
+  /**
+   * Allows this importer to ask the user for the settings needed to import
+   * data, for example, the sample rate of the data to import.
+   * <p>
+   * This method is called on the event dispatch thread, before
+   * {@link #importData(Project, InputStream)} is called.
+   * </p>
+   * 
+   * @param aOwner
+   *          the owning window to use for any dialogs, can be
+   *          <code>null</code>.
+   * @return <code>true</code> if the import should continue,
+   *         <code>false</code> if the import is cancelled by the user.
+   */
+  boolean setupImport( final Window aOwner );
+}
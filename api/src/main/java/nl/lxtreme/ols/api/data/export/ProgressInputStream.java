@@ -0,0 +1,164 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.export;
+
+
+import java.io.*;
+
+
+/**
+ * Provides an input stream that reports the progress of reading a stream of a
+ * known length, and that allows reading to be cancelled by interrupting the
+ * reading thread.
+ */
+public final class ProgressInputStream extends FilterInputStream
+{
+  // VARIABLES
+
+  private final long length;
+  private final ImportProgressListener listener;
+
+  private long position;
+  private long mark;
+  private int lastPercentage;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ProgressInputStream instance.
+   * 
+   * @param aStream
+   *          the stream to read from, cannot be <code>null</code>;
+   * @param aLength
+   *          the total number of bytes that is expected to be read, or a value
+   *          <= 0 if unknown;
+   * @param aListener
+   *          the listener to report the progress to, can be <code>null</code>.
+   */
+  public ProgressInputStream( final InputStream aStream, final long aLength, final ImportProgressListener aListener )
+  {
+    super( aStream );
+
+    this.length = aLength;
+    this.listener = aListener;
+    this.lastPercentage = -1;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void mark( final int aReadLimit )
+  {
+    super.mark( aReadLimit );
+    this.mark = this.position;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read() throws IOException
+  {
+    checkInterrupted();
+
+    final int result = super.read();
+    if ( result >= 0 )
+    {
+      advance( 1L );
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int read( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+  {
+    checkInterrupted();
+
+    final int result = super.read( aBuffer, aOffset, aLength );
+    if ( result > 0 )
+    {
+      advance( result );
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void reset() throws IOException
+  {
+    super.reset();
+    this.position = this.mark;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long skip( final long aCount ) throws IOException
+  {
+    checkInterrupted();
+
+    final long result = super.skip( aCount );
+    if ( result > 0L )
+    {
+      advance( result );
+    }
+    return result;
+  }
+
+  /**
+   * Advances the current position, and reports the progress if changed.
+   */
+  private void advance( final long aCount )
+  {
+    this.position += aCount;
+
+    if ( ( this.listener != null ) && ( this.length > 0L ) )
+    {
+      final int percentage = ( int )Math.min( 100L, ( this.position * 100L ) / this.length );
+      if ( percentage != this.lastPercentage )
+      {
+        this.lastPercentage = percentage;
+        this.listener.setProgress( percentage );
+      }
+    }
+  }
+
+  /**
+   * Throws an {@link InterruptedIOException} in case the current thread is
+   * interrupted.
+   */
+  private void checkInterrupted() throws InterruptedIOException
+  {
+    if ( Thread.currentThread().isInterrupted() )
+    {
+      throw new InterruptedIOException( "Import cancelled!" );
+    }
+  }
+}
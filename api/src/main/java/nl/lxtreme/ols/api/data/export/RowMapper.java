@@ -0,0 +1,64 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.export;
+
+
+import java.io.*;
+
+
+/**
+ * Maps (decoded) data entities onto the rows of a {@link TableWriter}.
+ * 
+ * @param <T>
+ *          the type of the data entities to map.
+ */
+public interface RowMapper<T>
+{
+  // METHODS
+
+  /**
+   * Returns the names of the columns.
+   * 
+   * @return the column names, never <code>null</code>.
+   */
+  String[] getColumnNames();
+
+  /**
+   * Returns the types of the columns.
+   * 
+   * @return the column types, never <code>null</code>, with as many elements
+   *         as there are column names.
+   */
+  ColumnType[] getColumnTypes();
+
+  /**
+   * Writes the cells of the row for the given data entity. The row itself is
+   * ended by the caller.
+   * 
+   * @param aWriter
+   *          the writer to write the cells to, cannot be <code>null</code>;
+   * @param aData
+   *          the data entity to write, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  void writeRow( TableWriter aWriter, T aData ) throws IOException;
+}
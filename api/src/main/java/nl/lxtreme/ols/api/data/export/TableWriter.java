@@ -0,0 +1,144 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.export;
+
+
+import java.io.*;
+
+
+/**
+ * Provides a streaming writer for tabular data with typed columns.
+ * <p>
+ * After the columns are set, rows are written cell by cell, in column order,
+ * followed by a call to {@link #endRow()}. Cells are passed as primitives, so
+ * no boxing takes place. Cells that are not written before the end of a row
+ * are considered empty (<code>null</code>). Implementations buffer a bounded
+ * number of rows only, so arbitrary large tables can be written with constant
+ * memory.
+ * </p>
+ * <p>
+ * Implementations are not thread-safe.
+ * </p>
+ */
+public interface TableWriter extends Closeable
+{
+  // METHODS
+
+  /**
+   * Writes all pending rows and closes this writer, including its underlying
+   * stream.
+   * 
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  @Override
+  void close() throws IOException;
+
+  /**
+   * Ends the current row.
+   * 
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  void endRow() throws IOException;
+
+  /**
+   * Sets the columns of the table. Should be called exactly once, before the
+   * first row is written.
+   * 
+   * @param aNames
+   *          the names of the columns, cannot be <code>null</code>;
+   * @param aTypes
+   *          the types of the columns, cannot be <code>null</code> and should
+   *          have as many elements as the given names.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  void setColumns( String[] aNames, ColumnType[] aTypes ) throws IOException;
+
+  /**
+   * Writes a boolean cell.
+   * 
+   * @param aValue
+   *          the value to write.
+   * @return this writer, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case the current column is not a {@link ColumnType#BOOLEAN}
+   *           column.
+   */
+  TableWriter writeBoolean( boolean aValue );
+
+  /**
+   * Writes a floating point cell.
+   * 
+   * @param aValue
+   *          the value to write.
+   * @return this writer, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case the current column is not a {@link ColumnType#DOUBLE}
+   *           column.
+   */
+  TableWriter writeDouble( double aValue );
+
+  /**
+   * Writes an integer cell, which is also accepted by long and floating point
+   * columns.
+   * 
+   * @param aValue
+   *          the value to write.
+   * @return this writer, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case the current column is not a numeric column.
+   */
+  TableWriter writeInt( int aValue );
+
+  /**
+   * Writes a long cell, which is also accepted by floating point columns.
+   * 
+   * @param aValue
+   *          the value to write.
+   * @return this writer, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case the current column is not a {@link ColumnType#LONG} or
+   *           {@link ColumnType#DOUBLE} column.
+   */
+  TableWriter writeLong( long aValue );
+
+  /**
+   * Writes an empty cell.
+   * 
+   * @return this writer, never <code>null</code>.
+   */
+  TableWriter writeNull();
+
+  /**
+   * Writes a string cell.
+   * 
+   * @param aValue
+   *          the value to write, a <code>null</code> value writes an empty
+   *          cell.
+   * @return this writer, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case the current column is not a {@link ColumnType#STRING}
+   *           column.
+   */
+  TableWriter writeString( String aValue );
+}
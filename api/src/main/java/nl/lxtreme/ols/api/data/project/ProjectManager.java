@@ -46,6 +46,20 @@ public interface ProjectManager
    */
   public Project createNewProject();
 
+  /**
+   * Creates a snapshot of the current project.
+   * <p>
+   * The returned snapshot is detached from the current project: later changes
+   * to the current project are not reflected in the snapshot, which makes it
+   * suitable for saving the project on a background thread. The captured data
+   * itself is shared, not copied.
+   * </p>
+   * 
+   * @return a snapshot of the current project, never <code>null</code>.
+   * @see #saveProjectSnapshot(Project, File, ProjectProgressListener)
+   */
+  public Project createSnapshot();
+
   /**
    * Creates a temporary project, useful for loading data files.
    * 
@@ -70,6 +84,21 @@ public interface ProjectManager
    */
   public void loadProject( final InputStream aInput ) throws IOException;
 
+  /**
+   * Loads a project from the given file.
+   * <p>
+   * In contrast to {@link #loadProject(InputStream)}, implementations can use
+   * random access to the given file, for example, to defer loading the captured
+   * data until it is actually used.
+   * </p>
+   * 
+   * @param aFile
+   *          the file to read the project from, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems during the read of the project.
+   */
+  public void loadProjectFile( final File aFile ) throws IOException;
+
   /**
    * Removes the given listener from the list of property change listeners.
    * 
@@ -87,4 +116,56 @@ public interface ProjectManager
    *           in case of I/O problems during writing of the project.
    */
   public void saveProject( final OutputStream aOutput ) throws IOException;
+
+  /**
+   * Stores a project to the given file.
+   * <p>
+   * In contrast to {@link #saveProject(OutputStream)}, implementations can
+   * reuse the unchanged parts of the project file the project was loaded from
+   * or last saved to.
+   * </p>
+   * 
+   * @param aFile
+   *          the file to write the project to, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems during writing of the project.
+   */
+  public void saveProjectFile( final File aFile ) throws IOException;
+
+  /**
+   * Stores the given project snapshot to the given file.
+   * <p>
+   * This method can be called from any thread, and does not alter the current
+   * project. The given file is replaced atomically, that is, it is only
+   * replaced when the snapshot is completely written.
+   * </p>
+   * 
+   * @param aSnapshot
+   *          the project snapshot to store, as obtained by
+   *          {@link #createSnapshot()}, cannot be <code>null</code>;
+   * @param aFile
+   *          the file to write the project to, cannot be <code>null</code>;
+   * @param aListener
+   *          the listener to report the progress to, can be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems during writing of the project.
+   * @see #setProjectSaved(Project, File)
+   */
+  public void saveProjectSnapshot( final Project aSnapshot, final File aFile, final ProjectProgressListener aListener )
+      throws IOException;
+
+  /**
+   * Marks the current project as saved after the given snapshot of it is
+   * successfully stored to the given file.
+   * <p>
+   * In case the current project was changed after the snapshot was taken, it
+   * remains marked as changed.
+   * </p>
+   * 
+   * @param aSnapshot
+   *          the project snapshot that was stored, cannot be <code>null</code>;
+   * @param aFile
+   *          the file the snapshot was stored to, cannot be <code>null</code>.
+   */
+  public void setProjectSaved( final Project aSnapshot, final File aFile );
 }
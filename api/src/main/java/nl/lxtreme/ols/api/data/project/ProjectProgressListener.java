@@ -0,0 +1,39 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.project;
+
+
+/**
+ * Provides a callback for reporting the progress of loading or saving a
+ * project.
+ */
+public interface ProjectProgressListener
+{
+  // METHODS
+
+  /**
+   * Called to report the progress.
+   * 
+   * @param aPercentage
+   *          the progress, in percent, >= 0 && <= 100.
+   */
+  void setProgress( int aPercentage );
+}
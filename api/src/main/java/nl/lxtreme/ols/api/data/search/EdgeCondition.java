@@ -0,0 +1,98 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Provides a search condition that matches an edge on a single channel.
+ */
+public final class EdgeCondition implements SearchCondition
+{
+  // VARIABLES
+
+  private final int mask;
+  private final Edge edge;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new EdgeCondition instance.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel to match the edge on, >= 0 && < 32;
+   * @param aEdge
+   *          the edge to match, use {@link Edge#NONE} to match both rising
+   *          and falling edges. Cannot be <code>null</code>.
+   */
+  public EdgeCondition( final int aChannelIdx, final Edge aEdge )
+  {
+    if ( ( aChannelIdx < 0 ) || ( aChannelIdx >= 32 ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel index: " + aChannelIdx );
+    }
+    if ( aEdge == null )
+    {
+      throw new IllegalArgumentException( "Edge cannot be null!" );
+    }
+    this.mask = 1 << aChannelIdx;
+    this.edge = aEdge;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SearchMatch find( final AcquisitionResult aData, final int aFromIdx, final int aToIdx )
+  {
+    final int[] values = aData.getValues();
+    final int end = Math.min( aToIdx, values.length );
+
+    // An edge is always determined relative to the previous sample...
+    int idx = Math.max( 1, aFromIdx );
+    if ( idx >= end )
+    {
+      return null;
+    }
+
+    int oldValue = values[idx - 1] & this.mask;
+    for ( ; idx < end; idx++ )
+    {
+      final int value = values[idx] & this.mask;
+      if ( value != oldValue )
+      {
+        final boolean rising = ( value != 0 );
+        if ( this.edge.isNone() || ( this.edge.isRising() == rising ) )
+        {
+          return new SearchMatch( aData, idx, idx );
+        }
+      }
+      oldValue = value;
+    }
+
+    return null;
+  }
+}
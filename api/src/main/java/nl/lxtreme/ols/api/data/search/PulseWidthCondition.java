@@ -0,0 +1,130 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a search condition that matches a high or low pulse on a single
+ * channel whose width is within certain bounds, for example, to find glitches.
+ */
+public final class PulseWidthCondition implements SearchCondition
+{
+  // VARIABLES
+
+  private final int mask;
+  private final boolean highPulse;
+  private final long minWidth;
+  private final long maxWidth;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new PulseWidthCondition instance.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel to match the pulse on, >= 0 && < 32;
+   * @param aHighPulse
+   *          <code>true</code> to match high pulses, <code>false</code> to
+   *          match low pulses;
+   * @param aMinWidth
+   *          the minimal width of the pulse, in samples (inclusive);
+   * @param aMaxWidth
+   *          the maximal width of the pulse, in samples (inclusive).
+   */
+  public PulseWidthCondition( final int aChannelIdx, final boolean aHighPulse, final long aMinWidth,
+      final long aMaxWidth )
+  {
+    if ( ( aChannelIdx < 0 ) || ( aChannelIdx >= 32 ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel index: " + aChannelIdx );
+    }
+    if ( aMinWidth > aMaxWidth )
+    {
+      throw new IllegalArgumentException( "Minimal width cannot be larger than maximal width!" );
+    }
+    this.mask = 1 << aChannelIdx;
+    this.highPulse = aHighPulse;
+    this.minWidth = aMinWidth;
+    this.maxWidth = aMaxWidth;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SearchMatch find( final AcquisitionResult aData, final int aFromIdx, final int aToIdx )
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+    final int end = Math.min( aToIdx, values.length );
+
+    // A pulse always starts with an edge, which is determined relative to the
+    // previous sample...
+    int idx = Math.max( 1, aFromIdx );
+    if ( idx >= end )
+    {
+      return null;
+    }
+
+    final int pulseLevel = this.highPulse ? this.mask : 0;
+
+    int pulseStartIdx = -1;
+    int oldValue = values[idx - 1] & this.mask;
+
+    // Pulses may end beyond the given end index, as long as they start before
+    // it...
+    for ( ; idx < values.length; idx++ )
+    {
+      final int value = values[idx] & this.mask;
+      if ( value == oldValue )
+      {
+        continue;
+      }
+      oldValue = value;
+
+      if ( pulseStartIdx >= 0 )
+      {
+        final long width = timestamps[idx] - timestamps[pulseStartIdx];
+        if ( ( width >= this.minWidth ) && ( width <= this.maxWidth ) )
+        {
+          return new SearchMatch( aData, pulseStartIdx, idx );
+        }
+        pulseStartIdx = -1;
+      }
+
+      if ( value == pulseLevel )
+      {
+        if ( idx >= end )
+        {
+          break;
+        }
+        pulseStartIdx = idx;
+      }
+    }
+
+    return null;
+  }
+}
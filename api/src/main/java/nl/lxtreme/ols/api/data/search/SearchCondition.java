@@ -0,0 +1,54 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Denotes a condition that can be searched for in captured data.
+ * <p>
+ * Conditions operate directly on the (compressed) sample values and time
+ * stamps of the captured data, in which each sample index denotes a change of
+ * one or more channels.
+ * </p>
+ */
+public interface SearchCondition
+{
+  // METHODS
+
+  /**
+   * Searches for the first match of this condition that starts at or after
+   * the given sample index.
+   * 
+   * @param aData
+   *          the captured data to search in, cannot be <code>null</code>;
+   * @param aFromIdx
+   *          the sample index to start searching at, >= 0;
+   * @param aToIdx
+   *          the sample index to stop searching at (exclusive), that is, a
+   *          match should start before this index.
+   * @return the first match found, or <code>null</code> if no match was
+   *         found.
+   */
+  SearchMatch find( AcquisitionResult aData, int aFromIdx, int aToIdx );
+}
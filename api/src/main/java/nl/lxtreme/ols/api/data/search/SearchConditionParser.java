@@ -0,0 +1,276 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import java.util.*;
+import java.util.regex.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Parses textual search expressions into {@link SearchCondition}s.
+ * <p>
+ * The grammar of a search expression is:
+ * </p>
+ * 
+ * <pre>
+ * expression := step ( 'then' step )* [ 'within' number ]
+ * step       := 'value' number [ 'mask' number ]
+ *             | ( 'rising' | 'falling' | 'edge' ) channel
+ *             | ( 'high' | 'low' ) channel operator number
+ * operator   := '&lt;' | '&lt;=' | '&gt;' | '&gt;=' | '='
+ * </pre>
+ * <p>
+ * Numbers can be given in decimal, hexadecimal (prefixed with <tt>0x</tt>) or
+ * binary (prefixed with <tt>0b</tt>) notation. Pulse widths and the time given
+ * by <tt>within</tt> are expressed in samples.
+ * </p>
+ */
+public final class SearchConditionParser
+{
+  // CONSTANTS
+
+  private static final Pattern TOKEN = Pattern.compile( "(<=|>=|<|>|=|[^\\s<>=]+)" );
+
+  // VARIABLES
+
+  private final List<String> tokens;
+  private int pos;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SearchConditionParser instance.
+   */
+  private SearchConditionParser( final String aExpression )
+  {
+    this.tokens = new ArrayList<String>();
+
+    final Matcher matcher = TOKEN.matcher( aExpression );
+    while ( matcher.find() )
+    {
+      this.tokens.add( matcher.group( 1 ).toLowerCase() );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Parses the given search expression.
+   * 
+   * @param aExpression
+   *          the expression to parse, cannot be <code>null</code>.
+   * @return the parsed search condition, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given expression was invalid.
+   */
+  public static SearchCondition parse( final String aExpression ) throws IllegalArgumentException
+  {
+    if ( aExpression == null )
+    {
+      throw new IllegalArgumentException( "Expression cannot be null!" );
+    }
+    return new SearchConditionParser( aExpression ).parseExpression();
+  }
+
+  /**
+   * Parses a number in decimal, hexadecimal or binary notation.
+   */
+  private static long parseNumber( final String aToken )
+  {
+    try
+    {
+      if ( aToken.startsWith( "0x" ) )
+      {
+        return Long.parseLong( aToken.substring( 2 ), 16 );
+      }
+      else if ( aToken.startsWith( "0b" ) )
+      {
+        return Long.parseLong( aToken.substring( 2 ), 2 );
+      }
+      return Long.parseLong( aToken );
+    }
+    catch ( NumberFormatException exception )
+    {
+      throw new IllegalArgumentException( "Invalid number: " + aToken );
+    }
+  }
+
+  /**
+   * Returns whether there are more tokens to parse.
+   */
+  private boolean hasMoreTokens()
+  {
+    return this.pos < this.tokens.size();
+  }
+
+  /**
+   * Returns the next token, failing in case no more tokens are available.
+   */
+  private String nextToken( final String aExpected )
+  {
+    if ( !hasMoreTokens() )
+    {
+      throw new IllegalArgumentException( "Unexpected end of expression, expected " + aExpected + "!" );
+    }
+    return this.tokens.get( this.pos++ );
+  }
+
+  /**
+   * Parses a channel index.
+   */
+  private int parseChannel()
+  {
+    final long channel = parseNumber( nextToken( "channel" ) );
+    if ( ( channel < 0L ) || ( channel >= 32L ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel: " + channel );
+    }
+    return ( int )channel;
+  }
+
+  /**
+   * Parses a complete expression.
+   */
+  private SearchCondition parseExpression()
+  {
+    final List<SearchCondition> steps = new ArrayList<SearchCondition>();
+    steps.add( parseStep() );
+
+    long maxGap = -1L;
+    while ( hasMoreTokens() )
+    {
+      final String token = nextToken( "'then' or 'within'" );
+      if ( "then".equals( token ) )
+      {
+        steps.add( parseStep() );
+      }
+      else if ( "within".equals( token ) )
+      {
+        maxGap = parseNumber( nextToken( "time" ) );
+        if ( maxGap < 0L )
+        {
+          throw new IllegalArgumentException( "Time cannot be negative!" );
+        }
+        if ( hasMoreTokens() )
+        {
+          throw new IllegalArgumentException( "Unexpected token: " + this.tokens.get( this.pos ) );
+        }
+      }
+      else
+      {
+        throw new IllegalArgumentException( "Unexpected token: " + token );
+      }
+    }
+
+    if ( ( steps.size() == 1 ) && ( maxGap < 0L ) )
+    {
+      return steps.get( 0 );
+    }
+    return new SequenceCondition( maxGap, steps.toArray( new SearchCondition[steps.size()] ) );
+  }
+
+  /**
+   * Parses a pulse width condition.
+   */
+  private SearchCondition parsePulseWidth( final boolean aHigh )
+  {
+    final int channel = parseChannel();
+    final String operator = nextToken( "operator" );
+    final long width = parseNumber( nextToken( "width" ) );
+
+    long min = 0L;
+    long max = Long.MAX_VALUE;
+    if ( "<".equals( operator ) )
+    {
+      max = width - 1L;
+    }
+    else if ( "<=".equals( operator ) )
+    {
+      max = width;
+    }
+    else if ( ">".equals( operator ) )
+    {
+      min = width + 1L;
+    }
+    else if ( ">=".equals( operator ) )
+    {
+      min = width;
+    }
+    else if ( "=".equals( operator ) )
+    {
+      min = max = width;
+    }
+    else
+    {
+      throw new IllegalArgumentException( "Invalid operator: " + operator );
+    }
+
+    if ( min > max )
+    {
+      throw new IllegalArgumentException( "Pulse width can never match!" );
+    }
+    return new PulseWidthCondition( channel, aHigh, min, max );
+  }
+
+  /**
+   * Parses a single step of an expression.
+   */
+  private SearchCondition parseStep()
+  {
+    final String token = nextToken( "condition" );
+    if ( "value".equals( token ) )
+    {
+      final int value = ( int )parseNumber( nextToken( "value" ) );
+      int mask = 0xFFFFFFFF;
+      if ( hasMoreTokens() && "mask".equals( this.tokens.get( this.pos ) ) )
+      {
+        this.pos++;
+        mask = ( int )parseNumber( nextToken( "mask" ) );
+      }
+      return new ValueCondition( mask, value );
+    }
+    else if ( "rising".equals( token ) )
+    {
+      return new EdgeCondition( parseChannel(), Edge.RISING );
+    }
+    else if ( "falling".equals( token ) )
+    {
+      return new EdgeCondition( parseChannel(), Edge.FALLING );
+    }
+    else if ( "edge".equals( token ) )
+    {
+      return new EdgeCondition( parseChannel(), Edge.NONE );
+    }
+    else if ( "high".equals( token ) )
+    {
+      return parsePulseWidth( true );
+    }
+    else if ( "low".equals( token ) )
+    {
+      return parsePulseWidth( false );
+    }
+
+    throw new IllegalArgumentException( "Unknown condition: " + token );
+  }
+}
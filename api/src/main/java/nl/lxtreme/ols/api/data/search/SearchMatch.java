@@ -0,0 +1,184 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Denotes a single match of a {@link SearchCondition} in the captured data.
+ */
+public final class SearchMatch implements Comparable<SearchMatch>
+{
+  // VARIABLES
+
+  private final int startIdx;
+  private final int endIdx;
+  private final long startTime;
+  private final long endTime;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SearchMatch instance.
+   * 
+   * @param aData
+   *          the captured data the match was found in, cannot be
+   *          <code>null</code>;
+   * @param aStartIdx
+   *          the sample index at which the match starts, >= 0;
+   * @param aEndIdx
+   *          the sample index at which the match ends, >= aStartIdx.
+   */
+  public SearchMatch( final AcquisitionResult aData, final int aStartIdx, final int aEndIdx )
+  {
+    final long[] timestamps = aData.getTimestamps();
+
+    this.startIdx = aStartIdx;
+    this.endIdx = aEndIdx;
+    this.startTime = timestamps[aStartIdx];
+    this.endTime = timestamps[aEndIdx];
+  }
+
+  /**
+   * Creates a new SearchMatch instance for a match that does not necessarily
+   * start or end at a sample transition.
+   * 
+   * @param aStartIdx
+   *          the sample index at which the match starts, >= 0;
+   * @param aEndIdx
+   *          the sample index at which the match ends, >= aStartIdx;
+   * @param aStartTime
+   *          the time at which the match starts;
+   * @param aEndTime
+   *          the time at which the match ends, >= aStartTime.
+   */
+  public SearchMatch( final int aStartIdx, final int aEndIdx, final long aStartTime, final long aEndTime )
+  {
+    this.startIdx = aStartIdx;
+    this.endIdx = aEndIdx;
+    this.startTime = aStartTime;
+    this.endTime = aEndTime;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int compareTo( final SearchMatch aMatch )
+  {
+    if ( this.startTime != aMatch.startTime )
+    {
+      return ( this.startTime < aMatch.startTime ) ? -1 : 1;
+    }
+    if ( this.endTime != aMatch.endTime )
+    {
+      return ( this.endTime < aMatch.endTime ) ? -1 : 1;
+    }
+    return 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals( final Object aObject )
+  {
+    if ( this == aObject )
+    {
+      return true;
+    }
+    if ( !( aObject instanceof SearchMatch ) )
+    {
+      return false;
+    }
+
+    final SearchMatch other = ( SearchMatch )aObject;
+    return ( this.startIdx == other.startIdx ) && ( this.endIdx == other.endIdx )
+        && ( this.startTime == other.startTime ) && ( this.endTime == other.endTime );
+  }
+
+  /**
+   * Returns the sample index at which this match ends.
+   * 
+   * @return a sample index, >= 0.
+   */
+  public int getEndIndex()
+  {
+    return this.endIdx;
+  }
+
+  /**
+   * Returns the time at which this match ends.
+   * 
+   * @return an absolute time value, in samples.
+   */
+  public long getEndTime()
+  {
+    return this.endTime;
+  }
+
+  /**
+   * Returns the sample index at which this match starts.
+   * 
+   * @return a sample index, >= 0.
+   */
+  public int getStartIndex()
+  {
+    return this.startIdx;
+  }
+
+  /**
+   * Returns the time at which this match starts.
+   * 
+   * @return an absolute time value, in samples.
+   */
+  public long getStartTime()
+  {
+    return this.startTime;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode()
+  {
+    final int prime = 31;
+    int result = 1;
+    result = prime * result + this.startIdx;
+    result = prime * result + this.endIdx;
+    result = prime * result + ( int )( this.startTime ^ ( this.startTime >>> 32 ) );
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return "SearchMatch[" + this.startTime + ".." + this.endTime + "]";
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a search condition that matches a sequence of other conditions,
+ * each of which should match strictly after the previous one.
+ */
+public final class SequenceCondition implements SearchCondition
+{
+  // VARIABLES
+
+  private final SearchCondition[] steps;
+  private final long maxGap;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SequenceCondition instance.
+   * 
+   * @param aMaxGap
+   *          the maximal time (in samples) between the end of a step and the
+   *          start of the next step, or a negative value if this time is
+   *          unbounded;
+   * @param aSteps
+   *          the steps of this sequence, at least one step should be given.
+   */
+  public SequenceCondition( final long aMaxGap, final SearchCondition... aSteps )
+  {
+    if ( ( aSteps == null ) || ( aSteps.length < 1 ) )
+    {
+      throw new IllegalArgumentException( "Sequence should contain at least one step!" );
+    }
+    this.steps = aSteps.clone();
+    this.maxGap = aMaxGap;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SearchMatch find( final AcquisitionResult aData, final int aFromIdx, final int aToIdx )
+  {
+    final long[] timestamps = aData.getTimestamps();
+
+    int idx = aFromIdx;
+    while ( idx < aToIdx )
+    {
+      final SearchMatch first = this.steps[0].find( aData, idx, aToIdx );
+      if ( first == null )
+      {
+        return null;
+      }
+
+      SearchMatch last = first;
+      for ( int i = 1; ( last != null ) && ( i < this.steps.length ); i++ )
+      {
+        int windowEnd = timestamps.length;
+        if ( this.maxGap >= 0L )
+        {
+          // Skip directly to the end of the allowed window...
+          windowEnd = indexAfter( timestamps, last.getEndTime() + this.maxGap );
+        }
+
+        last = this.steps[i].find( aData, last.getEndIndex() + 1, windowEnd );
+      }
+
+      if ( last != null )
+      {
+        return new SearchMatch( aData, first.getStartIndex(), last.getEndIndex() );
+      }
+      if ( this.maxGap < 0L )
+      {
+        // Without a time constraint, a later first step will not make the
+        // remaining steps match either...
+        return null;
+      }
+
+      idx = first.getStartIndex() + 1;
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the index of the first time stamp that is beyond the given time.
+   * 
+   * @param aTimestamps
+   *          the (sorted) time stamps to search;
+   * @param aTime
+   *          the time to search for.
+   * @return an index, >= 0 && <= aTimestamps.length.
+   */
+  private static int indexAfter( final long[] aTimestamps, final long aTime )
+  {
+    int idx = Arrays.binarySearch( aTimestamps, aTime );
+    if ( idx < 0 )
+    {
+      return -( idx + 1 );
+    }
+    return idx + 1;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a search condition that matches samples at which the channels in a
+ * given mask get a certain value. A value that is held is matched only once,
+ * regardless of the transitions of the other channels.
+ */
+public final class ValueCondition implements SearchCondition
+{
+  // VARIABLES
+
+  private final int mask;
+  private final int value;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ValueCondition instance.
+   * 
+   * @param aMask
+   *          the mask of channels to match;
+   * @param aValue
+   *          the value the masked channels should have.
+   */
+  public ValueCondition( final int aMask, final int aValue )
+  {
+    this.mask = aMask;
+    this.value = aValue & aMask;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SearchMatch find( final AcquisitionResult aData, final int aFromIdx, final int aToIdx )
+  {
+    final int[] values = aData.getValues();
+    final int end = Math.min( aToIdx, values.length );
+
+    boolean matched = ( aFromIdx > 0 ) && ( aFromIdx <= values.length ) && matches( values[aFromIdx - 1] );
+    for ( int idx = Math.max( 0, aFromIdx ); idx < end; idx++ )
+    {
+      final boolean matching = matches( values[idx] );
+      // Only the sample at which the value is entered is a match, as the
+      // value can be held while unmasked channels keep changing...
+      if ( matching && !matched )
+      {
+        return new SearchMatch( aData, idx, idx );
+      }
+      matched = matching;
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns whether the given sample value matches this condition.
+   */
+  private boolean matches( final int aValue )
+  {
+    return ( aValue & this.mask ) == this.value;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.virtual;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Denotes an expression that derives a virtual channel from the channels of
+ * captured data.
+ * <p>
+ * Expressions are evaluated on the (compressed) transitions of the captured
+ * data, yielding an {@link EdgeStream}. Their string representation is
+ * canonical, that is, two expressions with the same string representation
+ * always yield the same result.
+ * </p>
+ */
+public interface ChannelExpression
+{
+  // METHODS
+
+  /**
+   * Evaluates this expression on the given captured data.
+   * 
+   * @param aData
+   *          the captured data to evaluate this expression on, cannot be
+   *          <code>null</code>.
+   * @return the resulting edge stream, never <code>null</code>.
+   */
+  EdgeStream evaluate( AcquisitionResult aData );
+}
@@ -0,0 +1,295 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.virtual;
+
+
+import java.util.*;
+import java.util.regex.*;
+
+import nl.lxtreme.ols.api.data.virtual.EdgeStream.Operator;
+
+
+/**
+ * Parses textual channel expressions into {@link ChannelExpression}s.
+ * <p>
+ * The grammar of a channel expression is:
+ * </p>
+ * 
+ * <pre>
+ * expression := xor ( '|' xor )*
+ * xor        := and ( '^' and )*
+ * and        := unary ( '&amp;' unary )*
+ * unary      := ( '!' | '~' ) unary | primary
+ * primary    := '(' expression ')' | '0' | '1' | channel
+ *             | ( 'delay' | 'deglitch' ) '(' expression ',' number ')'
+ * channel    := 'ch' number | label
+ * </pre>
+ * <p>
+ * Channels can be referred to by their index (e.g., <tt>ch3</tt>) or by their
+ * label, in which case the label should consist of letters, digits and
+ * underscores only. Delays and pulse widths are expressed in samples.
+ * </p>
+ */
+public final class ChannelExpressionParser
+{
+  // CONSTANTS
+
+  private static final Pattern TOKEN = Pattern.compile( "\\s*([A-Za-z_][A-Za-z0-9_]*|[0-9]+|[&|^!~(),]|\\S)" );
+  private static final Pattern CHANNEL = Pattern.compile( "ch([0-9]+)" );
+
+  // VARIABLES
+
+  private final List<String> tokens;
+  private final String[] labels;
+  private int pos;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ChannelExpressionParser instance.
+   */
+  private ChannelExpressionParser( final String aExpression, final String[] aLabels )
+  {
+    this.tokens = new ArrayList<String>();
+    this.labels = ( aLabels == null ) ? new String[0] : aLabels;
+
+    final Matcher matcher = TOKEN.matcher( aExpression );
+    while ( matcher.find() )
+    {
+      this.tokens.add( matcher.group( 1 ) );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Parses the given channel expression.
+   * 
+   * @param aExpression
+   *          the expression to parse, cannot be <code>null</code>;
+   * @param aLabels
+   *          the labels of the channels, indexed by channel index, can be
+   *          <code>null</code> or contain <code>null</code> values.
+   * @return the parsed channel expression, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given expression was invalid.
+   */
+  public static ChannelExpression parse( final String aExpression, final String[] aLabels )
+      throws IllegalArgumentException
+  {
+    if ( aExpression == null )
+    {
+      throw new IllegalArgumentException( "Expression cannot be null!" );
+    }
+
+    final ChannelExpressionParser parser = new ChannelExpressionParser( aExpression, aLabels );
+    final ChannelExpression result = parser.parseExpression();
+    if ( parser.hasMoreTokens() )
+    {
+      throw new IllegalArgumentException( "Unexpected token: " + parser.tokens.get( parser.pos ) );
+    }
+    return result;
+  }
+
+  /**
+   * Parses a non-negative number of samples.
+   */
+  private static long parseNumber( final String aToken )
+  {
+    try
+    {
+      return Long.parseLong( aToken );
+    }
+    catch ( NumberFormatException exception )
+    {
+      throw new IllegalArgumentException( "Invalid number: " + aToken );
+    }
+  }
+
+  /**
+   * Consumes the next token, failing in case it is not the expected one.
+   */
+  private void expect( final String aExpected )
+  {
+    final String token = nextToken( "'" + aExpected + "'" );
+    if ( !aExpected.equals( token ) )
+    {
+      throw new IllegalArgumentException( "Expected '" + aExpected + "', but got: " + token );
+    }
+  }
+
+  /**
+   * Returns whether there are more tokens to parse.
+   */
+  private boolean hasMoreTokens()
+  {
+    return this.pos < this.tokens.size();
+  }
+
+  /**
+   * Returns the next token, failing in case no more tokens are available.
+   */
+  private String nextToken( final String aExpected )
+  {
+    if ( !hasMoreTokens() )
+    {
+      throw new IllegalArgumentException( "Unexpected end of expression, expected " + aExpected + "!" );
+    }
+    return this.tokens.get( this.pos++ );
+  }
+
+  /**
+   * Parses a conjunction.
+   */
+  private ChannelExpression parseAnd()
+  {
+    ChannelExpression result = parseUnary();
+    while ( peek( "&" ) )
+    {
+      this.pos++;
+      result = new LogicExpression( Operator.AND, result, parseUnary() );
+    }
+    return result;
+  }
+
+  /**
+   * Parses a reference to a channel, either by its index or by its label.
+   */
+  private ChannelExpression parseChannel( final String aToken )
+  {
+    final Matcher matcher = CHANNEL.matcher( aToken.toLowerCase() );
+    if ( matcher.matches() )
+    {
+      final long channel = parseNumber( matcher.group( 1 ) );
+      if ( channel >= 32L )
+      {
+        throw new IllegalArgumentException( "Invalid channel: " + aToken );
+      }
+      return new ChannelReference( ( int )channel );
+    }
+
+    for ( int i = 0; i < Math.min( 32, this.labels.length ); i++ )
+    {
+      if ( aToken.equalsIgnoreCase( this.labels[i] ) )
+      {
+        return new ChannelReference( i );
+      }
+    }
+
+    throw new IllegalArgumentException( "Unknown channel: " + aToken );
+  }
+
+  /**
+   * Parses a complete (sub)expression.
+   */
+  private ChannelExpression parseExpression()
+  {
+    ChannelExpression result = parseXor();
+    while ( peek( "|" ) )
+    {
+      this.pos++;
+      result = new LogicExpression( Operator.OR, result, parseXor() );
+    }
+    return result;
+  }
+
+  /**
+   * Parses the arguments of a delay or deglitch function.
+   */
+  private ChannelExpression parseFunction( final String aName )
+  {
+    expect( "(" );
+    final ChannelExpression operand = parseExpression();
+    expect( "," );
+    final long samples = parseNumber( nextToken( "number" ) );
+    expect( ")" );
+
+    if ( "delay".equals( aName ) )
+    {
+      return new DelayExpression( operand, samples );
+    }
+    return new DeglitchExpression( operand, samples );
+  }
+
+  /**
+   * Parses a primary expression.
+   */
+  private ChannelExpression parsePrimary()
+  {
+    final String token = nextToken( "channel" );
+    if ( "(".equals( token ) )
+    {
+      final ChannelExpression result = parseExpression();
+      expect( ")" );
+      return result;
+    }
+    else if ( "0".equals( token ) || "1".equals( token ) )
+    {
+      return new ConstantExpression( "1".equals( token ) );
+    }
+    else if ( ( "delay".equalsIgnoreCase( token ) || "deglitch".equalsIgnoreCase( token ) ) && peek( "(" ) )
+    {
+      return parseFunction( token.toLowerCase() );
+    }
+    else if ( Character.isLetter( token.charAt( 0 ) ) || ( token.charAt( 0 ) == '_' ) )
+    {
+      return parseChannel( token );
+    }
+
+    throw new IllegalArgumentException( "Unexpected token: " + token );
+  }
+
+  /**
+   * Parses an (optionally) inverted expression.
+   */
+  private ChannelExpression parseUnary()
+  {
+    if ( peek( "!" ) || peek( "~" ) )
+    {
+      this.pos++;
+      return new NotExpression( parseUnary() );
+    }
+    return parsePrimary();
+  }
+
+  /**
+   * Parses an exclusive disjunction.
+   */
+  private ChannelExpression parseXor()
+  {
+    ChannelExpression result = parseAnd();
+    while ( peek( "^" ) )
+    {
+      this.pos++;
+      result = new LogicExpression( Operator.XOR, result, parseAnd() );
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether the next token equals the given token, without consuming
+   * it.
+   */
+  private boolean peek( final String aToken )
+  {
+    return hasMoreTokens() && aToken.equals( this.tokens.get( this.pos ) );
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.virtual;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides an expression with a constant level.
+ */
+final class ConstantExpression implements ChannelExpression
+{
+  // VARIABLES
+
+  private final boolean level;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ConstantExpression instance.
+   * 
+   * @param aLevel
+   *          the constant level.
+   */
+  ConstantExpression( final boolean aLevel )
+  {
+    this.level = aLevel;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EdgeStream evaluate( final AcquisitionResult aData )
+  {
+    return EdgeStream.constant( this.level );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return this.level ? "1" : "0";
+  }
+}
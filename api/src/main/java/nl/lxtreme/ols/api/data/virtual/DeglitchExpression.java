@@ -0,0 +1,77 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.virtual;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides an expression that removes all pulses shorter than a minimal width
+ * from another expression.
+ */
+final class DeglitchExpression implements ChannelExpression
+{
+  // VARIABLES
+
+  private final ChannelExpression operand;
+  private final long minWidth;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DeglitchExpression instance.
+   * 
+   * @param aOperand
+   *          the expression to deglitch, cannot be <code>null</code>;
+   * @param aMinWidth
+   *          the minimal width of a pulse, in samples, >= 0.
+   */
+  DeglitchExpression( final ChannelExpression aOperand, final long aMinWidth )
+  {
+    if ( aMinWidth < 0L )
+    {
+      throw new IllegalArgumentException( "Pulse width cannot be negative!" );
+    }
+    this.operand = aOperand;
+    this.minWidth = aMinWidth;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EdgeStream evaluate( final AcquisitionResult aData )
+  {
+    return this.operand.evaluate( aData ).deglitch( this.minWidth, aData.getAbsoluteLength() );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return "deglitch(" + this.operand + ", " + this.minWidth + ")";
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.virtual;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides an expression that delays another expression by a fixed number of
+ * samples.
+ */
+final class DelayExpression implements ChannelExpression
+{
+  // VARIABLES
+
+  private final ChannelExpression operand;
+  private final long delay;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DelayExpression instance.
+   * 
+   * @param aOperand
+   *          the expression to delay, cannot be <code>null</code>;
+   * @param aDelay
+   *          the delay, in samples, >= 0.
+   */
+  DelayExpression( final ChannelExpression aOperand, final long aDelay )
+  {
+    if ( aDelay < 0L )
+    {
+      throw new IllegalArgumentException( "Delay cannot be negative!" );
+    }
+    this.operand = aOperand;
+    this.delay = aDelay;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EdgeStream evaluate( final AcquisitionResult aData )
+  {
+    return this.operand.evaluate( aData ).delay( this.delay, aData.getAbsoluteLength() );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return "delay(" + this.operand + ", " + this.delay + ")";
+  }
+}
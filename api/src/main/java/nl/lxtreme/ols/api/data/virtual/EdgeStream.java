@@ -0,0 +1,448 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.virtual;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a single channel as a stream of edges, that is, as its level at the
+ * start of a capture followed by the times at which the level toggles.
+ * <p>
+ * Edge streams are derived from the (compressed) transitions of captured data,
+ * and all operations on them work on edges only; they never need the captured
+ * data in a per-sample form.
+ * </p>
+ * <p>
+ * This class is immutable, and hence thread-safe.
+ * </p>
+ */
+public final class EdgeStream
+{
+  // CONSTANTS
+
+  private static final long[] NO_EDGES = new long[0];
+
+  // VARIABLES
+
+  private final boolean initialLevel;
+  private final long[] edges;
+  private final int edgeCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new EdgeStream instance.
+   * 
+   * @param aInitialLevel
+   *          the level at the start of the stream;
+   * @param aEdges
+   *          the times at which the level toggles, in strictly increasing
+   *          order;
+   * @param aEdgeCount
+   *          the number of valid times in the given array.
+   */
+  EdgeStream( final boolean aInitialLevel, final long[] aEdges, final int aEdgeCount )
+  {
+    this.initialLevel = aInitialLevel;
+    this.edges = aEdges;
+    this.edgeCount = aEdgeCount;
+  }
+
+  // METHODS
+
+  /**
+   * Creates an edge stream with a constant level.
+   * 
+   * @param aLevel
+   *          the level of the stream.
+   * @return a new edge stream, never <code>null</code>.
+   */
+  public static EdgeStream constant( final boolean aLevel )
+  {
+    return new EdgeStream( aLevel, NO_EDGES, 0 );
+  }
+
+  /**
+   * Creates an edge stream for a single channel of the given captured data.
+   * 
+   * @param aData
+   *          the captured data to take the channel from, cannot be
+   *          <code>null</code>;
+   * @param aChannelIdx
+   *          the index of the channel, >= 0 && < 32.
+   * @return a new edge stream, never <code>null</code>.
+   */
+  public static EdgeStream of( final AcquisitionResult aData, final int aChannelIdx )
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+    if ( values.length == 0 )
+    {
+      return constant( false );
+    }
+
+    final int mask = 1 << aChannelIdx;
+
+    final Builder builder = new Builder( ( values[0] & mask ) != 0 );
+    int lastValue = values[0] & mask;
+    for ( int i = 1; i < values.length; i++ )
+    {
+      final int value = values[i] & mask;
+      if ( value != lastValue )
+      {
+        builder.toggle( timestamps[i] );
+        lastValue = value;
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the logical AND of this and the given edge stream.
+   * 
+   * @param aOther
+   *          the other edge stream, cannot be <code>null</code>.
+   * @return a new edge stream, never <code>null</code>.
+   */
+  public EdgeStream and( final EdgeStream aOther )
+  {
+    return combine( aOther, Operator.AND );
+  }
+
+  /**
+   * Returns this edge stream with all pulses shorter than the given width
+   * removed.
+   * 
+   * @param aMinWidth
+   *          the minimal width of a pulse, in samples, >= 0.
+   * @param aLength
+   *          the total length of the stream, in samples.
+   * @return a new edge stream, never <code>null</code>.
+   */
+  public EdgeStream deglitch( final long aMinWidth, final long aLength )
+  {
+    final Builder builder = new Builder( this.initialLevel );
+
+    boolean level = this.initialLevel;
+    boolean outLevel = this.initialLevel;
+    for ( int i = 0; i < this.edgeCount; i++ )
+    {
+      level = !level;
+
+      final long start = this.edges[i];
+      final long end = ( ( i + 1 ) < this.edgeCount ) ? this.edges[i + 1] : Math.max( start, aLength );
+      if ( ( level != outLevel ) && ( ( end - start ) >= aMinWidth ) )
+      {
+        builder.toggle( start );
+        outLevel = level;
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns this edge stream delayed by the given number of samples.
+   * <p>
+   * The level at the start of the stream is retained during the delay; edges
+   * that are delayed beyond the given length are dropped.
+   * </p>
+   * 
+   * @param aDelay
+   *          the delay, in samples, >= 0;
+   * @param aLength
+   *          the total length of the stream, in samples.
+   * @return a new edge stream, never <code>null</code>.
+   */
+  public EdgeStream delay( final long aDelay, final long aLength )
+  {
+    final Builder builder = new Builder( this.initialLevel );
+    for ( int i = 0; i < this.edgeCount; i++ )
+    {
+      final long time = this.edges[i] + aDelay;
+      if ( time >= aLength )
+      {
+        break;
+      }
+      builder.toggle( time );
+    }
+    return builder.build();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals( final Object aObject )
+  {
+    if ( this == aObject )
+    {
+      return true;
+    }
+    if ( !( aObject instanceof EdgeStream ) )
+    {
+      return false;
+    }
+
+    final EdgeStream other = ( EdgeStream )aObject;
+    if ( ( this.initialLevel != other.initialLevel ) || ( this.edgeCount != other.edgeCount ) )
+    {
+      return false;
+    }
+    for ( int i = 0; i < this.edgeCount; i++ )
+    {
+      if ( this.edges[i] != other.edges[i] )
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the time of the edge with the given index.
+   * 
+   * @param aIndex
+   *          the index of the edge, >= 0 && < {@link #getEdgeCount()}.
+   * @return the time of the edge, in samples.
+   */
+  public long getEdge( final int aIndex )
+  {
+    if ( ( aIndex < 0 ) || ( aIndex >= this.edgeCount ) )
+    {
+      throw new IndexOutOfBoundsException( "Invalid edge index: " + aIndex );
+    }
+    return this.edges[aIndex];
+  }
+
+  /**
+   * Returns the number of edges in this stream.
+   * 
+   * @return an edge count, >= 0.
+   */
+  public int getEdgeCount()
+  {
+    return this.edgeCount;
+  }
+
+  /**
+   * Returns the level at the start of this stream.
+   * 
+   * @return <code>true</code> if the stream starts high, <code>false</code>
+   *         if it starts low.
+   */
+  public boolean getInitialLevel()
+  {
+    return this.initialLevel;
+  }
+
+  /**
+   * Returns the level of this stream at the given time.
+   * 
+   * @param aTime
+   *          the time to return the level for, in samples.
+   * @return <code>true</code> if the level is high, <code>false</code> if it
+   *         is low.
+   */
+  public boolean getLevel( final long aTime )
+  {
+    int idx = Arrays.binarySearch( this.edges, 0, this.edgeCount, aTime );
+    // The number of edges at or before the given time...
+    idx = ( idx >= 0 ) ? ( idx + 1 ) : -( idx + 1 );
+    return ( ( idx & 1 ) != 0 ) ^ this.initialLevel;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode()
+  {
+    int result = this.initialLevel ? 1 : 0;
+    for ( int i = 0; i < this.edgeCount; i++ )
+    {
+      result = 31 * result + ( int )( this.edges[i] ^ ( this.edges[i] >>> 32 ) );
+    }
+    return result;
+  }
+
+  /**
+   * Returns the inverse of this edge stream.
+   * 
+   * @return a new edge stream, never <code>null</code>.
+   */
+  public EdgeStream not()
+  {
+    return new EdgeStream( !this.initialLevel, this.edges, this.edgeCount );
+  }
+
+  /**
+   * Returns the logical OR of this and the given edge stream.
+   * 
+   * @param aOther
+   *          the other edge stream, cannot be <code>null</code>.
+   * @return a new edge stream, never <code>null</code>.
+   */
+  public EdgeStream or( final EdgeStream aOther )
+  {
+    return combine( aOther, Operator.OR );
+  }
+
+  /**
+   * Returns the logical XOR of this and the given edge stream.
+   * 
+   * @param aOther
+   *          the other edge stream, cannot be <code>null</code>.
+   * @return a new edge stream, never <code>null</code>.
+   */
+  public EdgeStream xor( final EdgeStream aOther )
+  {
+    return combine( aOther, Operator.XOR );
+  }
+
+  /**
+   * Merges the edges of this and the given stream, combining their levels
+   * with the given operator.
+   */
+  private EdgeStream combine( final EdgeStream aOther, final Operator aOperator )
+  {
+    boolean levelA = this.initialLevel;
+    boolean levelB = aOther.initialLevel;
+
+    boolean level = aOperator.apply( levelA, levelB );
+    final Builder builder = new Builder( level );
+
+    int i = 0;
+    int j = 0;
+    while ( ( i < this.edgeCount ) || ( j < aOther.edgeCount ) )
+    {
+      final long timeA = ( i < this.edgeCount ) ? this.edges[i] : Long.MAX_VALUE;
+      final long timeB = ( j < aOther.edgeCount ) ? aOther.edges[j] : Long.MAX_VALUE;
+
+      final long time = Math.min( timeA, timeB );
+      if ( timeA == time )
+      {
+        levelA = !levelA;
+        i++;
+      }
+      if ( timeB == time )
+      {
+        levelB = !levelB;
+        j++;
+      }
+
+      final boolean newLevel = aOperator.apply( levelA, levelB );
+      if ( newLevel != level )
+      {
+        builder.toggle( time );
+        level = newLevel;
+      }
+    }
+    return builder.build();
+  }
+
+  // INNER TYPES
+
+  /**
+   * Denotes the logical operators to combine two edge streams with.
+   */
+  static enum Operator
+  {
+    AND, OR, XOR;
+
+    /**
+     * Applies this operator on the given levels.
+     */
+    boolean apply( final boolean aLevelA, final boolean aLevelB )
+    {
+      switch ( this )
+      {
+        case AND:
+          return aLevelA && aLevelB;
+        case OR:
+          return aLevelA || aLevelB;
+        default:
+          return aLevelA ^ aLevelB;
+      }
+    }
+  }
+
+  /**
+   * Builds an edge stream by appending edges.
+   */
+  static final class Builder
+  {
+    // VARIABLES
+
+    private final boolean initialLevel;
+    private long[] edges;
+    private int count;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Builder instance.
+     */
+    Builder( final boolean aInitialLevel )
+    {
+      this.initialLevel = aInitialLevel;
+      this.edges = new long[16];
+    }
+
+    // METHODS
+
+    /**
+     * Builds the edge stream.
+     */
+    EdgeStream build()
+    {
+      if ( this.count == 0 )
+      {
+        return constant( this.initialLevel );
+      }
+      // Trim excess capacity when it is significant...
+      final long[] result = ( this.edges.length > ( this.count + ( this.count >> 2 ) ) ) ? Arrays.copyOf(
+          this.edges, this.count ) : this.edges;
+      return new EdgeStream( this.initialLevel, result, this.count );
+    }
+
+    /**
+     * Appends a toggle of the level at the given time; a toggle at the same
+     * time as the last toggle cancels it.
+     */
+    void toggle( final long aTime )
+    {
+      if ( ( this.count > 0 ) && ( this.edges[this.count - 1] == aTime ) )
+      {
+        this.count--;
+        return;
+      }
+      if ( this.count == this.edges.length )
+      {
+        this.edges = Arrays.copyOf( this.edges, this.count * 2 );
+      }
+      this.edges[this.count++] = aTime;
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.virtual;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.virtual.EdgeStream.Operator;
+
+
+/**
+ * Provides an expression that combines two expressions with a logical
+ * operator.
+ */
+final class LogicExpression implements ChannelExpression
+{
+  // VARIABLES
+
+  private final Operator operator;
+  private final ChannelExpression left;
+  private final ChannelExpression right;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new LogicExpression instance.
+   * 
+   * @param aOperator
+   *          the operator to combine the operands with, cannot be
+   *          <code>null</code>;
+   * @param aLeft
+   *          the left operand, cannot be <code>null</code>;
+   * @param aRight
+   *          the right operand, cannot be <code>null</code>.
+   */
+  LogicExpression( final Operator aOperator, final ChannelExpression aLeft, final ChannelExpression aRight )
+  {
+    this.operator = aOperator;
+    this.left = aLeft;
+    this.right = aRight;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EdgeStream evaluate( final AcquisitionResult aData )
+  {
+    final EdgeStream leftStream = this.left.evaluate( aData );
+    final EdgeStream rightStream = this.right.evaluate( aData );
+
+    switch ( this.operator )
+    {
+      case AND:
+        return leftStream.and( rightStream );
+      case OR:
+        return leftStream.or( rightStream );
+      default:
+        return leftStream.xor( rightStream );
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    final String symbol;
+    switch ( this.operator )
+    {
+      case AND:
+        symbol = " & ";
+        break;
+      case OR:
+        symbol = " | ";
+        break;
+      default:
+        symbol = " ^ ";
+        break;
+    }
+    return "(" + this.left + symbol + this.right + ")";
+  }
+}
@@ -0,0 +1,331 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.virtual;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a state-mode view on captured (timing) data, in which each sample
+ * denotes the state of all channels at a qualified clock edge.
+ * <p>
+ * The view is derived from the {@link EdgeStream} of the clock channel, so its
+ * creation takes a single pass over the transitions of the captured data, and
+ * only the clock edges are retained. Like captured data, the view only stores
+ * state changes; its time stamps are state numbers. Each state maps back to
+ * the time stamp of its clock edge in the original data. The view does not
+ * keep a reference to the original data, so it can be released independently.
+ * </p>
+ * <p>
+ * This class is immutable, and hence thread-safe.
+ * </p>
+ */
+public final class StateView implements AcquisitionResult
+{
+  // INNER TYPES
+
+  /**
+   * Denotes the clock edges a state view samples on.
+   */
+  public static enum ClockEdge
+  {
+    /** Sample on rising edges of the clock. */
+    RISING, //
+    /** Sample on falling edges of the clock. */
+    FALLING, //
+    /** Sample on both rising and falling edges of the clock. */
+    BOTH;
+
+    /**
+     * Returns whether a clock edge that results in the given level is sampled
+     * on.
+     * 
+     * @param aLevel
+     *          the level of the clock after the edge.
+     * @return <code>true</code> if the clock edge is sampled on,
+     *         <code>false</code> otherwise.
+     */
+    boolean accepts( final boolean aLevel )
+    {
+      return ( this == BOTH ) || ( ( this == RISING ) == aLevel );
+    }
+  }
+
+  // VARIABLES
+
+  private final int channels;
+  private final int enabledChannels;
+  private final long[] stateTimes;
+  private final int[] values;
+  private final long[] timestamps;
+  private final long triggerPosition;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new StateView instance.
+   */
+  private StateView( final int aChannels, final int aEnabledChannels, final long aTriggerPosition,
+      final long[] aStateTimes, final int[] aValues, final long[] aTimestamps )
+  {
+    this.channels = aChannels;
+    this.enabledChannels = aEnabledChannels;
+    this.triggerPosition = aTriggerPosition;
+    this.stateTimes = aStateTimes;
+    this.values = aValues;
+    this.timestamps = aTimestamps;
+  }
+
+  // METHODS
+
+  /**
+   * Creates a state view on the given captured data.
+   * 
+   * @param aSource
+   *          the captured data to create the view on, cannot be
+   *          <code>null</code>;
+   * @param aClockIdx
+   *          the index of the clock channel, >= 0 && < 32;
+   * @param aEdge
+   *          the clock edges to sample on, cannot be <code>null</code>;
+   * @param aQualifierMask
+   *          the bit mask of the channels qualifying the clock edges, use 0 to
+   *          sample on all clock edges;
+   * @param aQualifierValue
+   *          the value the qualifier channels should have for a clock edge to
+   *          be sampled on.
+   * @return a new state view, never <code>null</code>.
+   */
+  public static StateView create( final AcquisitionResult aSource, final int aClockIdx, final ClockEdge aEdge,
+      final int aQualifierMask, final int aQualifierValue )
+  {
+    if ( aEdge == null )
+    {
+      throw new IllegalArgumentException( "Edge cannot be null!" );
+    }
+
+    final int[] sourceValues = aSource.getValues();
+    final long[] sourceTimestamps = aSource.getTimestamps();
+    final EdgeStream clock = EdgeStream.of( aSource, aClockIdx );
+
+    final int edgeCount = clock.getEdgeCount();
+    final long[] stateTimes = new long[edgeCount];
+    int[] values = new int[Math.min( edgeCount, 16 )];
+    long[] timestamps = new long[values.length];
+
+    int stateCount = 0;
+    int count = 0;
+    int srcIdx = 0;
+    boolean level = clock.getInitialLevel();
+    for ( int i = 0; i < edgeCount; i++ )
+    {
+      final long time = clock.getEdge( i );
+      level = !level;
+      if ( !aEdge.accepts( level ) )
+      {
+        continue;
+      }
+
+      // The state is the value just before the clock edge...
+      while ( ( ( srcIdx + 1 ) < sourceTimestamps.length ) && ( sourceTimestamps[srcIdx + 1] < time ) )
+      {
+        srcIdx++;
+      }
+      final int value = sourceValues[srcIdx];
+      if ( ( value & aQualifierMask ) != ( aQualifierValue & aQualifierMask ) )
+      {
+        continue;
+      }
+
+      if ( ( count == 0 ) || ( values[count - 1] != value ) )
+      {
+        if ( count == values.length )
+        {
+          values = Arrays.copyOf( values, count * 2 );
+          timestamps = Arrays.copyOf( timestamps, count * 2 );
+        }
+        values[count] = value;
+        timestamps[count] = stateCount;
+        count++;
+      }
+
+      stateTimes[stateCount++] = time;
+    }
+
+    final long[] usedStateTimes = Arrays.copyOf( stateTimes, stateCount );
+
+    long triggerPosition = Ols.NOT_AVAILABLE;
+    if ( aSource.hasTriggerData() )
+    {
+      // The trigger is at the first state at or after the original trigger...
+      final int idx = Arrays.binarySearch( usedStateTimes, aSource.getTriggerPosition() );
+      triggerPosition = ( idx >= 0 ) ? idx : -( idx + 1 );
+    }
+
+    return new StateView( aSource.getChannels(), aSource.getEnabledChannels(), triggerPosition, usedStateTimes,
+        Arrays.copyOf( values, count ), Arrays.copyOf( timestamps, count ) );
+  }
+
+  /**
+   * Recreates a state view from its states and the time stamps of their clock
+   * edges, for example after it has been stored.
+   * 
+   * @param aStates
+   *          the states of the state view, whose time stamps are state
+   *          numbers, cannot be <code>null</code>;
+   * @param aSourceTimestamps
+   *          the time stamps of the clock edges of all states, as returned by
+   *          {@link #getSourceTimestamp(int)}, cannot be <code>null</code>.
+   * @return a new state view, never <code>null</code>.
+   */
+  public static StateView create( final AcquisitionResult aStates, final long[] aSourceTimestamps )
+  {
+    if ( aStates.getAbsoluteLength() != aSourceTimestamps.length )
+    {
+      throw new IllegalArgumentException( "Number of clock edges does not match the number of states!" );
+    }
+
+    return new StateView( aStates.getChannels(), aStates.getEnabledChannels(), aStates.getTriggerPosition(),
+        aSourceTimestamps.clone(), aStates.getValues(), aStates.getTimestamps() );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getAbsoluteLength()
+   */
+  @Override
+  public long getAbsoluteLength()
+  {
+    return this.stateTimes.length;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getChannels()
+   */
+  @Override
+  public int getChannels()
+  {
+    return this.channels;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getEnabledChannels()
+   */
+  @Override
+  public int getEnabledChannels()
+  {
+    return this.enabledChannels;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getSampleIndex(long)
+   */
+  @Override
+  public int getSampleIndex( final long aTimeValue )
+  {
+    final int idx = Arrays.binarySearch( this.timestamps, aTimeValue );
+    return ( idx >= 0 ) ? idx : Math.max( 0, -( idx + 2 ) );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getSampleRate()
+   */
+  @Override
+  public int getSampleRate()
+  {
+    return Ols.NOT_AVAILABLE;
+  }
+
+  /**
+   * Returns the time stamp of the clock edge of the given state in the
+   * original captured data.
+   * 
+   * @param aStateIdx
+   *          the number of the state, >= 0 && < {@link #getStateCount()}.
+   * @return a time stamp, in samples of the original captured data.
+   */
+  public long getSourceTimestamp( final int aStateIdx )
+  {
+    if ( ( aStateIdx < 0 ) || ( aStateIdx >= this.stateTimes.length ) )
+    {
+      throw new IndexOutOfBoundsException( "Invalid state index: " + aStateIdx );
+    }
+    return this.stateTimes[aStateIdx];
+  }
+
+  /**
+   * Returns the number of states in this view.
+   * 
+   * @return a state count, >= 0.
+   */
+  public int getStateCount()
+  {
+    return this.stateTimes.length;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getTimestamps()
+   */
+  @Override
+  public long[] getTimestamps()
+  {
+    return this.timestamps;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getTriggerPosition()
+   */
+  @Override
+  public long getTriggerPosition()
+  {
+    return this.triggerPosition;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getValues()
+   */
+  @Override
+  public int[] getValues()
+  {
+    return this.values;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#hasTimingData()
+   */
+  @Override
+  public boolean hasTimingData()
+  {
+    return false;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#hasTriggerData()
+   */
+  @Override
+  public boolean hasTriggerData()
+  {
+    return this.triggerPosition != Ols.NOT_AVAILABLE;
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.virtual;
+
+
+/**
+ * Denotes the definition of a virtual channel, that is, a channel whose
+ * samples are derived from other channels by means of a
+ * {@link ChannelExpression}.
+ * <p>
+ * This class is immutable, and hence thread-safe.
+ * </p>
+ */
+public final class VirtualChannel
+{
+  // VARIABLES
+
+  private final int channelIdx;
+  private final String label;
+  private final String expression;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new VirtualChannel instance.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel to show the virtual channel on, >= 0 &&
+   *          < 32;
+   * @param aLabel
+   *          the label of the virtual channel, can be <code>null</code>;
+   * @param aExpression
+   *          the expression defining the virtual channel, cannot be
+   *          <code>null</code>.
+   */
+  public VirtualChannel( final int aChannelIdx, final String aLabel, final String aExpression )
+  {
+    if ( ( aChannelIdx < 0 ) || ( aChannelIdx >= 32 ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel index: " + aChannelIdx );
+    }
+    if ( aExpression == null )
+    {
+      throw new IllegalArgumentException( "Expression cannot be null!" );
+    }
+    this.channelIdx = aChannelIdx;
+    this.label = aLabel;
+    this.expression = aExpression.trim();
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals( final Object aObject )
+  {
+    if ( this == aObject )
+    {
+      return true;
+    }
+    if ( !( aObject instanceof VirtualChannel ) )
+    {
+      return false;
+    }
+
+    final VirtualChannel other = ( VirtualChannel )aObject;
+    if ( this.channelIdx != other.channelIdx )
+    {
+      return false;
+    }
+    if ( ( this.label == null ) ? ( other.label != null ) : !this.label.equals( other.label ) )
+    {
+      return false;
+    }
+    return this.expression.equals( other.expression );
+  }
+
+  /**
+   * Returns the index of the channel this virtual channel is shown on.
+   * 
+   * @return a channel index, >= 0 && < 32.
+   */
+  public int getChannelIndex()
+  {
+    return this.channelIdx;
+  }
+
+  /**
+   * Returns the expression defining this virtual channel.
+   * 
+   * @return an expression, never <code>null</code>.
+   * @see ChannelExpressionParser
+   */
+  public String getExpression()
+  {
+    return this.expression;
+  }
+
+  /**
+   * Returns the label of this virtual channel.
+   * 
+   * @return a label, can be <code>null</code>.
+   */
+  public String getLabel()
+  {
+    return this.label;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode()
+  {
+    final int prime = 31;
+    int result = prime + this.channelIdx;
+    result = prime * result + ( ( this.label == null ) ? 0 : this.label.hashCode() );
+    result = prime * result + this.expression.hashCode();
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return ( ( this.label == null ) ? ( "ch" + this.channelIdx ) : this.label ) + " = " + this.expression;
+  }
+}
@@ -0,0 +1,383 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.virtual;
+
+
+import java.util.*;
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Evaluates virtual channels on captured data.
+ * <p>
+ * Each virtual channel is evaluated lazily, on the transitions of the captured
+ * data, and its resulting {@link EdgeStream} is cached per capture and per
+ * (canonical) expression. Combining the virtual channels with the captured
+ * data only adds the edges of the virtual channels to the compressed samples;
+ * the captured data is never expanded to a per-sample form.
+ * </p>
+ * <p>
+ * Virtual channels can only refer to captured channels, not to other virtual
+ * channels. This class is thread-safe.
+ * </p>
+ */
+public final class VirtualChannels
+{
+  // CONSTANTS
+
+  /** The name of the (project) settings the definitions are stored in. */
+  public static final String SETTINGS_NAME = "virtualChannels";
+
+  private static final Logger LOG = Logger.getLogger( VirtualChannels.class.getName() );
+
+  // VARIABLES
+
+  private final Map<AcquisitionResult, Map<String, EdgeStream>> cache;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new VirtualChannels instance.
+   */
+  public VirtualChannels()
+  {
+    this.cache = new WeakHashMap<AcquisitionResult, Map<String, EdgeStream>>();
+  }
+
+  // METHODS
+
+  /**
+   * Parses the expression of a virtual channel.
+   * <p>
+   * Channel labels only resolve to captured channels, hence the labels of the
+   * channels that show one of the given virtual channels are ignored.
+   * </p>
+   * 
+   * @param aExpression
+   *          the expression to parse, cannot be <code>null</code>;
+   * @param aLabels
+   *          the channel labels to resolve channel references with, can be
+   *          <code>null</code>;
+   * @param aDefinitions
+   *          the currently defined virtual channels, cannot be
+   *          <code>null</code>.
+   * @return the parsed expression, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given expression was invalid.
+   */
+  public static ChannelExpression parse( final String aExpression, final String[] aLabels,
+      final List<VirtualChannel> aDefinitions ) throws IllegalArgumentException
+  {
+    String[] labels = aLabels;
+    if ( ( labels != null ) && !aDefinitions.isEmpty() )
+    {
+      labels = labels.clone();
+      for ( VirtualChannel definition : aDefinitions )
+      {
+        if ( definition.getChannelIndex() < labels.length )
+        {
+          labels[definition.getChannelIndex()] = null;
+        }
+      }
+    }
+    return ChannelExpressionParser.parse( aExpression, labels );
+  }
+
+  /**
+   * Reads the virtual channel definitions from the given settings.
+   * 
+   * @param aSettings
+   *          the settings to read the definitions from, can be
+   *          <code>null</code>.
+   * @return a list of virtual channel definitions, never <code>null</code>.
+   */
+  public static List<VirtualChannel> readDefinitions( final UserSettings aSettings )
+  {
+    final List<VirtualChannel> result = new ArrayList<VirtualChannel>();
+    if ( aSettings == null )
+    {
+      return result;
+    }
+
+    final int count = aSettings.getInt( "count", 0 );
+    for ( int i = 0; i < count; i++ )
+    {
+      final int index = aSettings.getInt( "index." + i, -1 );
+      final String label = aSettings.get( "label." + i, null );
+      final String expression = aSettings.get( "expression." + i, null );
+      if ( ( index >= 0 ) && ( index < Ols.MAX_CHANNELS ) && ( expression != null ) )
+      {
+        result.add( new VirtualChannel( index, label, expression ) );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Writes the given virtual channel definitions to the given settings.
+   * 
+   * @param aSettings
+   *          the settings to write the definitions to, cannot be
+   *          <code>null</code>;
+   * @param aDefinitions
+   *          the definitions to write, cannot be <code>null</code>.
+   */
+  public static void writeDefinitions( final UserSettings aSettings, final List<VirtualChannel> aDefinitions )
+  {
+    aSettings.putInt( "count", aDefinitions.size() );
+    for ( int i = 0; i < aDefinitions.size(); i++ )
+    {
+      final VirtualChannel definition = aDefinitions.get( i );
+      aSettings.putInt( "index." + i, definition.getChannelIndex() );
+      aSettings.put( "label." + i, definition.getLabel() );
+      aSettings.put( "expression." + i, definition.getExpression() );
+    }
+  }
+
+  /**
+   * Combines the given captured data with the given virtual channels.
+   * <p>
+   * The virtual channels are shown on unused channels of the first word of
+   * the captured data; all other channels are left untouched. Virtual channels
+   * whose expression is invalid, or whose index denotes an enabled channel of
+   * the captured data, are ignored.
+   * </p>
+   * 
+   * @param aData
+   *          the captured data to combine, cannot be <code>null</code>;
+   * @param aDefinitions
+   *          the virtual channels to combine, cannot be <code>null</code>;
+   * @param aLabels
+   *          the channel labels to resolve channel references with, can be
+   *          <code>null</code>.
+   * @return the combined captured data, or the given captured data in case no
+   *         (valid) virtual channels are given.
+   */
+  public AcquisitionResult apply( final AcquisitionResult aData, final List<VirtualChannel> aDefinitions,
+      final String[] aLabels )
+  {
+    final List<EdgeStream> streams = new ArrayList<EdgeStream>();
+    final List<Integer> indices = new ArrayList<Integer>();
+
+    final int enabledChannels = aData.getEnabledChannels();
+
+    for ( VirtualChannel definition : aDefinitions )
+    {
+      if ( ( enabledChannels & ( 1 << definition.getChannelIndex() ) ) != 0 )
+      {
+        // Never overwrite the captured channels...
+        LOG.log( Level.WARNING, "Ignoring virtual channel on enabled channel: " + definition );
+        continue;
+      }
+
+      try
+      {
+        final ChannelExpression expression = parse( definition.getExpression(), aLabels, aDefinitions );
+        streams.add( evaluate( aData, expression ) );
+        indices.add( Integer.valueOf( definition.getChannelIndex() ) );
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        LOG.log( Level.WARNING, "Ignoring invalid virtual channel: " + definition, exception );
+      }
+    }
+
+    if ( streams.isEmpty() || ( aData.getValues().length == 0 ) )
+    {
+      return aData;
+    }
+
+    return merge( aData, streams, indices );
+  }
+
+  /**
+   * Evaluates the given expression on the given captured data, reusing an
+   * earlier result if available.
+   * 
+   * @param aData
+   *          the captured data to evaluate the expression on, cannot be
+   *          <code>null</code>;
+   * @param aExpression
+   *          the expression to evaluate, cannot be <code>null</code>.
+   * @return the resulting edge stream, never <code>null</code>.
+   */
+  public EdgeStream evaluate( final AcquisitionResult aData, final ChannelExpression aExpression )
+  {
+    final String key = aExpression.toString();
+
+    Map<String, EdgeStream> streams;
+    synchronized ( this.cache )
+    {
+      streams = this.cache.get( aData );
+      if ( streams == null )
+      {
+        streams = new HashMap<String, EdgeStream>();
+        this.cache.put( aData, streams );
+      }
+
+      final EdgeStream result = streams.get( key );
+      if ( result != null )
+      {
+        return result;
+      }
+    }
+
+    // Evaluate outside the lock; at worst, an expression is evaluated twice...
+    final EdgeStream result = aExpression.evaluate( aData );
+
+    synchronized ( this.cache )
+    {
+      streams.put( key, result );
+    }
+    return result;
+  }
+
+  /**
+   * Merges the edges of the given streams into the compressed samples of the
+   * given captured data.
+   */
+  private AcquisitionResult merge( final AcquisitionResult aData, final List<EdgeStream> aStreams,
+      final List<Integer> aIndices )
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+    final int streamCount = aStreams.size();
+
+    int virtualMask = 0;
+    int virtualValue = 0;
+    int edgeCount = 0;
+    int highestIdx = -1;
+    for ( int s = 0; s < streamCount; s++ )
+    {
+      final int idx = aIndices.get( s ).intValue();
+      final EdgeStream stream = aStreams.get( s );
+      virtualMask |= ( 1 << idx );
+      if ( stream.getInitialLevel() )
+      {
+        virtualValue |= ( 1 << idx );
+      }
+      edgeCount += stream.getEdgeCount();
+      highestIdx = Math.max( highestIdx, idx );
+    }
+
+    // Each sample is either one of the original ones, or an edge of a virtual
+    // channel, hence we never need more room than this...
+    final int capacity = values.length + edgeCount;
+    final long[] newTimestamps = new long[capacity];
+    final int[] newValues = new int[capacity];
+    final int[] sourceIdx = new int[capacity];
+    final int[] edgeIdx = new int[streamCount];
+
+    int count = 0;
+    int i = 0;
+    while ( ( i < values.length ) || hasMoreEdges( aStreams, edgeIdx ) )
+    {
+      long time = ( i < values.length ) ? timestamps[i] : Long.MAX_VALUE;
+      for ( int s = 0; s < streamCount; s++ )
+      {
+        final EdgeStream stream = aStreams.get( s );
+        if ( edgeIdx[s] < stream.getEdgeCount() )
+        {
+          time = Math.min( time, stream.getEdge( edgeIdx[s] ) );
+        }
+      }
+
+      final boolean original = ( i < values.length ) && ( timestamps[i] == time );
+      if ( original )
+      {
+        i++;
+      }
+      for ( int s = 0; s < streamCount; s++ )
+      {
+        final EdgeStream stream = aStreams.get( s );
+        if ( ( edgeIdx[s] < stream.getEdgeCount() ) && ( stream.getEdge( edgeIdx[s] ) == time ) )
+        {
+          virtualValue ^= ( 1 << aIndices.get( s ).intValue() );
+          edgeIdx[s]++;
+        }
+      }
+
+      final int origIdx = Math.max( 0, i - 1 );
+      final int value = ( values[origIdx] & ~virtualMask ) | virtualValue;
+      if ( original || ( count == 0 ) || ( newValues[count - 1] != value ) )
+      {
+        newTimestamps[count] = time;
+        newValues[count] = value;
+        sourceIdx[count] = origIdx;
+        count++;
+      }
+    }
+
+    final int channels = Math.max( aData.getChannels(), highestIdx + 1 );
+    final int enabledChannels = aData.getEnabledChannels() | virtualMask;
+
+    if ( aData instanceof WideAcquisitionResult )
+    {
+      final WideAcquisitionResult wideData = ( WideAcquisitionResult )aData;
+      final int wordCount = wideData.getWordCount();
+      if ( wordCount > 1 )
+      {
+        final int[][] columns = new int[wordCount][];
+        final int[] enabled = new int[wordCount];
+        columns[0] = Arrays.copyOf( newValues, count );
+        enabled[0] = enabledChannels;
+        for ( int w = 1; w < wordCount; w++ )
+        {
+          enabled[w] = wideData.getEnabledChannels( w );
+          final int[] source = wideData.getValues( w );
+          if ( source != null )
+          {
+            columns[w] = new int[count];
+            for ( int k = 0; k < count; k++ )
+            {
+              columns[w][k] = source[sourceIdx[k]];
+            }
+          }
+        }
+        return WideCapturedData.create( columns, Arrays.copyOf( newTimestamps, count ),
+            aData.getTriggerPosition(), aData.getSampleRate(), wideData.getTotalChannels(), enabled,
+            aData.getAbsoluteLength() );
+      }
+    }
+
+    return new CapturedData( Arrays.copyOf( newValues, count ), Arrays.copyOf( newTimestamps, count ),
+        aData.getTriggerPosition(), aData.getSampleRate(), channels, enabledChannels, aData.getAbsoluteLength() );
+  }
+
+  /**
+   * Returns whether any of the given streams has edges left.
+   */
+  private static boolean hasMoreEdges( final List<EdgeStream> aStreams, final int[] aEdgeIdx )
+  {
+    for ( int s = 0; s < aEdgeIdx.length; s++ )
+    {
+      if ( aEdgeIdx[s] < aStreams.get( s ).getEdgeCount() )
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+}
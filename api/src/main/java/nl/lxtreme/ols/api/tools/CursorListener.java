@@ -0,0 +1,50 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.tools;
+
+
+/**
+ * Can be used to create a service that listens for changes in the cursor
+ * positions, for example, to update measurements when the user drags a cursor.
+ */
+public interface CursorListener
+{
+  // METHODS
+
+  /**
+   * Called when a cursor is set or moved.
+   * 
+   * @param aCursorIdx
+   *          the index of the cursor that is changed, >= 0 && < 10;
+   * @param aCursorPosition
+   *          the new (absolute) position of the cursor, as sample time value.
+   */
+  void cursorChanged( int aCursorIdx, long aCursorPosition );
+
+  /**
+   * Called when a cursor is removed.
+   * 
+   * @param aCursorIdx
+   *          the index of the cursor that is removed, >= 0 && < 10.
+   */
+  void cursorRemoved( int aCursorIdx );
+
+}
@@ -0,0 +1,196 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.data.virtual.*;
+import nl.lxtreme.ols.api.data.virtual.StateView.ClockEdge;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link DataContainer}.
+ */
+public class DataContainerTest
+{
+  // VARIABLES
+
+  private ProjectImpl project;
+  private DataContainer container;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.project = new ProjectImpl();
+    this.project.setChannelLabels( new String[32] );
+    this.project.getChannelLabels()[1] = "CLK";
+
+    final ProjectManager pm = mock( ProjectManager.class );
+    doReturn( this.project ).when( pm ).getCurrentProject();
+
+    this.container = new DataContainer( pm );
+  }
+
+  /**
+   * Test method for {@link DataContainer#getClockEdgeTimestamp(long)}.
+   */
+  @Test
+  public void testGetClockEdgeTimestampWithVirtualChannels()
+  {
+    final int[] values = new int[20];
+    final long[] timestamps = new long[20];
+    for ( int i = 0; i < values.length; i++ )
+    {
+      values[i] = ( i & 1 ) | ( ( i & 4 ) >> 1 );
+      timestamps[i] = 3L * i;
+    }
+    final StateView view = StateView.create( new CapturedData( values, timestamps, -1, 100, 8, 0x0F, 60L ), 0,
+        ClockEdge.RISING, 0, 0 );
+
+    final UserSettings settings = mock( UserSettings.class );
+    doReturn( VirtualChannels.SETTINGS_NAME ).when( settings ).getName();
+    this.project.setSettings( settings );
+
+    this.container.setCapturedData( view );
+    this.container.setVirtualChannels( Collections.singletonList( new VirtualChannel( 4, "V", "CLK" ) ) );
+
+    assertFalse( this.container.getCapturedData() instanceof StateView );
+
+    final int stateCount = view.getStateCount();
+    assertEquals( view.getSourceTimestamp( 0 ), this.container.getClockEdgeTimestamp( 0 ) );
+    assertEquals( view.getSourceTimestamp( stateCount - 1 ), this.container.getClockEdgeTimestamp( stateCount - 1 ) );
+    assertEquals( Ols.NOT_AVAILABLE, this.container.getClockEdgeTimestamp( stateCount ) );
+  }
+
+  /**
+   * Test method for {@link DataContainer#getValues()}.
+   */
+  @Test
+  public void testGetValuesDoesNotCreateSettings()
+  {
+    this.container.setCapturedData( new CapturedData( new int[] { 1, 2 }, new long[] { 0L, 1L }, -1, 100, 8, 0xFF,
+        2 ) );
+
+    assertArrayEquals( new int[] { 1, 2 }, this.container.getValues() );
+    assertTrue( this.container.getVirtualChannels().isEmpty() );
+
+    final List<String> names = new ArrayList<String>();
+    this.project.visit( new ProjectVisitor()
+    {
+      @Override
+      public void visit( final UserSettings aSettings )
+      {
+        names.add( aSettings.getName() );
+      }
+    } );
+    assertFalse( names.contains( VirtualChannels.SETTINGS_NAME ) );
+  }
+
+  /**
+   * Test method for {@link DataContainer#removeChannelAnnotations(int, Object)}.
+   */
+  @Test
+  public void testRemoveChannelAnnotationsKeepsOthers()
+  {
+    this.container.setCapturedData( new CapturedData( new int[] { 1, 2 }, new long[] { 0L, 1L }, -1, 100, 8, 0xFF,
+        2 ) );
+
+    final Object marker = new Object();
+    this.container.addChannelAnnotation( 0, 0, 1, "Decoded" );
+    this.container.addChannelAnnotation( 0, 2, 3, marker );
+    this.container.addChannelAnnotation( 1, 0, 1, marker );
+
+    this.container.removeChannelAnnotations( 0, marker );
+
+    final ChannelAnnotations annotations = this.container.getChannelAnnotations().get( Integer.valueOf( 0 ) );
+    assertEquals( 1, annotations.getAnnotations().size() );
+    assertEquals( "Decoded", annotations.getAnnotations().iterator().next().getData() );
+    // Other channels are left intact...
+    assertEquals( 1, this.container.getChannelAnnotations().get( Integer.valueOf( 1 ) ).getAnnotations().size() );
+  }
+
+  /**
+   * Test method for {@link DataContainer#setSelectedWord(int)}.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testSelectWordOfNarrowDataFail()
+  {
+    this.container.setCapturedData( new CapturedData( new int[] { 1, 2 }, new long[] { 0L, 1L }, -1, 100, 8, 0xFF,
+        2 ) );
+
+    assertEquals( 1, this.container.getWordCount() );
+    this.container.setSelectedWord( 1 );
+  }
+
+  /**
+   * Test method for {@link DataContainer#setSelectedWord(int)}.
+   */
+  @Test
+  public void testSelectWordOfWideDataOk()
+  {
+    this.container.setCapturedData( WideCapturedData.create( new int[][] { { 1, 2 }, { 3, 4 } },
+        new long[] { 0L, 1L }, -1, 100, 40, new int[] { -1, 0xFF }, 2 ) );
+
+    assertEquals( 2, this.container.getWordCount() );
+    assertEquals( 0, this.container.getSelectedWord() );
+    assertEquals( 0, this.container.getChannelOffset() );
+    assertEquals( 32, this.container.getChannels() );
+    assertArrayEquals( new int[] { 1, 2 }, this.container.getValues() );
+    assertEquals( "CLK", this.container.getChannelLabel( 1 ) );
+
+    this.container.addChannelAnnotation( 0, 0, 1, "foo" );
+    final int revision = this.container.getAnnotationRevision();
+
+    this.container.setSelectedWord( 1 );
+
+    assertEquals( 1, this.container.getSelectedWord() );
+    assertEquals( 32, this.container.getChannelOffset() );
+    assertEquals( 8, this.container.getChannels() );
+    assertEquals( 0xFF, this.container.getEnabledChannels() );
+    assertArrayEquals( new int[] { 3, 4 }, this.container.getValues() );
+    assertNull( this.container.getChannelLabel( 1 ) );
+    // Annotations of the other word no longer apply...
+    assertTrue( this.container.getChannelAnnotations().isEmpty() );
+    assertTrue( revision != this.container.getAnnotationRevision() );
+
+    // New data always starts with the first word...
+    this.container.setCapturedData( WideCapturedData.create( new int[][] { { 5, 6 }, { 7, 8 } }, new long[] { 0L,
+        1L }, -1, 100, 40, new int[] { -1, 0xFF }, 2 ) );
+
+    assertEquals( 0, this.container.getSelectedWord() );
+    assertArrayEquals( new int[] { 5, 6 }, this.container.getValues() );
+  }
+}
+
+/* EOF */
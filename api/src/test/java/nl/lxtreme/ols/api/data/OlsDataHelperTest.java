@@ -27,6 +27,7 @@ import java.io.*;
 import java.net.*;
 import java.util.*;
 
+import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.project.*;
 import nl.lxtreme.ols.util.*;
 
@@ -423,6 +424,29 @@ public class OlsDataHelperTest
     this.project.assertValues( 0 );
   }
 
+  /**
+   * Test method for {@link OlsDataHelper#read(Project, Reader)}.
+   */
+  @Test
+  public void testReadWideDataOk() throws Exception
+  {
+    final String snippet = ";Rate: 1\n;Channels: 72\n;EnabledChannels: -1\n;EnabledChannels1: 0\n"
+        + ";EnabledChannels2: 255\n" + "ab0000000000000001@0\n8f00000000fffffffe@3";
+
+    final StringReader reader = new StringReader( snippet );
+    OlsDataHelper.read( this.project, reader );
+
+    final WideAcquisitionResult result = ( WideAcquisitionResult )this.project.getCapturedData();
+    assertEquals( 72, result.getTotalChannels() );
+    assertEquals( 3, result.getWordCount() );
+    assertEquals( 255, result.getEnabledChannels( 2 ) );
+
+    this.project.assertTimeStamps( 0, 3 );
+    this.project.assertValues( 1, 0xfffffffe );
+    assertNull( result.getValues( 1 ) );
+    assertArrayEquals( new int[] { 0xab, 0x8f }, result.getValues( 2 ) );
+  }
+
   /**
    * Test method for {@link OlsDataHelper#read(Project, Reader)}.
    */
@@ -566,4 +590,37 @@ public class OlsDataHelperTest
     assertTrue( snippet.contains( "00000000@1" ) );
     assertTrue( snippet.contains( "80000000@2" ) );
   }
+
+  /**
+   * Test method for {@link OlsDataHelper#write(Project, Writer)}.
+   */
+  @Test
+  public void testWriteWideDataOk() throws Exception
+  {
+    final int[][] columns = { { 1, 2 }, null, { 0x80000000, 3 } };
+    this.project.setCapturedData( new WideCapturedData( columns, new long[] { 0L, 5L }, -1, 100, 96, new int[] {
+        -1, 0, -1 }, 6 ) );
+
+    final StringWriter writer = new StringWriter();
+    OlsDataHelper.write( this.project, writer );
+
+    final String snippet = writer.toString();
+    assertTrue( snippet.contains( ";Channels: 96" ) );
+    assertTrue( snippet.contains( ";EnabledChannels: -1" ) );
+    assertTrue( snippet.contains( ";EnabledChannels1: 0" ) );
+    assertTrue( snippet.contains( ";EnabledChannels2: -1" ) );
+    assertTrue( snippet.contains( "800000000000000000000001@0" ) );
+    assertTrue( snippet.contains( "000000030000000000000002@5" ) );
+
+    // Reading it back should yield the same data...
+    final ProjectImpl other = new ProjectImpl();
+    OlsDataHelper.read( other, new StringReader( snippet ) );
+
+    final WideAcquisitionResult result = ( WideAcquisitionResult )other.getCapturedData();
+    assertEquals( 96, result.getTotalChannels() );
+    assertArrayEquals( new int[] { 1, 2 }, result.getValues( 0 ) );
+    assertNull( result.getValues( 1 ) );
+    assertArrayEquals( new int[] { 0x80000000, 3 }, result.getValues( 2 ) );
+    assertArrayEquals( new long[] { 0L, 5L }, result.getTimestamps() );
+  }
 }
@@ -0,0 +1,126 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.nio.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link TransitionBuffer}.
+ */
+public class TransitionBufferTest
+{
+  // METHODS
+
+  /**
+   * Test method for {@link TransitionBuffer#add(long, int)}.
+   */
+  @Test
+  public void testAddRetainsTransitionsOnly()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer( 1 );
+    buffer.add( 0L, 1 );
+    buffer.add( 1L, 1 );
+    buffer.add( 2L, 2 );
+    buffer.add( 3L, 3 );
+    // Replaces the last value, which makes it redundant...
+    buffer.add( 3L, 2 );
+    buffer.add( 5L, 4 );
+
+    final CapturedData data = buffer.toCapturedData( -1L, 100, 8, 0xFF, 6L );
+    assertArrayEquals( new int[] { 1, 2, 4 }, data.getValues() );
+    assertArrayEquals( new long[] { 0L, 2L, 5L }, data.getTimestamps() );
+    assertEquals( 5L, buffer.getLastTimestamp() );
+    assertEquals( 4, buffer.getLastValue() );
+  }
+
+  /**
+   * Test method for {@link TransitionBuffer#add(long, int)}.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testAddOutOfOrderFails()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer();
+    buffer.add( 10L, 1 );
+    buffer.add( 9L, 2 );
+  }
+
+  /**
+   * Test method for {@link TransitionBuffer#addSamples(long, byte[], int, int, int, int)}.
+   */
+  @Test
+  public void testAddSamplesFromArray()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer();
+    final byte[] data = { 0x7F, 0x01, 0x00, 0x01, 0x00, 0x01, 0x02, ( byte )0x81, 0x02 };
+
+    // Skip the first byte, and ignore the trailing byte...
+    assertEquals( 4, buffer.addSamples( 0L, data, 1, 8, 2, 0x7FFF ) );
+
+    final CapturedData result = buffer.toCapturedData( -1L, 100, 15, 0x7FFF, 4L );
+    assertArrayEquals( new int[] { 0x0001, 0x0201, 0x0281 }, result.getValues() );
+    assertArrayEquals( new long[] { 0L, 2L, 3L }, result.getTimestamps() );
+  }
+
+  /**
+   * Test method for {@link TransitionBuffer#addSamples(long, ByteBuffer, int, int)}.
+   */
+  @Test
+  public void testAddSamplesFromBuffer()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer();
+    final ByteBuffer data = ByteBuffer.allocateDirect( 16 );
+    data.put( new byte[] { 0x01, 0x02, 0x03, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08 } ).flip();
+
+    assertEquals( 3, buffer.addSamples( 0L, data, 3, 0xFFFFFF ) );
+    // Only the incomplete sample remains, and the byte order is untouched...
+    assertEquals( 9, data.position() );
+    assertEquals( ByteOrder.BIG_ENDIAN, data.order() );
+
+    // Continue with the remainder, like a reader would do...
+    data.compact();
+    data.put( ( byte )0x09 ).flip();
+    assertEquals( 1, buffer.addSamples( 3L, data, 3, 0xFFFFFF ) );
+
+    final CapturedData result = buffer.toCapturedData( -1L, 100, 24, 0xFFFFFF, 4L );
+    assertArrayEquals( new int[] { 0x030201, 0x060504, 0x090807 }, result.getValues() );
+    assertArrayEquals( new long[] { 0L, 2L, 3L }, result.getTimestamps() );
+  }
+
+  /**
+   * Test method for {@link TransitionBuffer#addSamples(long, ByteBuffer, int, int)}.
+   */
+  @Test
+  public void testAddFourByteSamplesWithMask()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer();
+    final ByteBuffer data = ByteBuffer.wrap( new byte[] { 0x01, 0x00, 0x00, ( byte )0x80, 0x01, 0x00, 0x00, 0x00 } );
+
+    assertEquals( 2, buffer.addSamples( 0L, data, 4, 0x0000FFFF ) );
+    assertEquals( 1, buffer.size() );
+    assertEquals( 1, buffer.getLastValue() );
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link WideCapturedData}.
+ */
+public class WideCapturedDataTest
+{
+  // METHODS
+
+  /**
+   * Test method for {@link WideCapturedData#create(int[][], long[], long, int, int, int[], long)}.
+   */
+  @Test
+  public void testCreateNarrowYieldsPlainCapturedData()
+  {
+    final CapturedData data = WideCapturedData.create( new int[][] { { 1, 2 } }, new long[] { 0L, 1L }, -1, 100, 8,
+        new int[] { 0xFF }, 2 );
+
+    assertFalse( data instanceof WideAcquisitionResult );
+    assertEquals( 8, data.getChannels() );
+    assertEquals( 0xFF, data.getEnabledChannels() );
+    assertArrayEquals( new int[] { 1, 2 }, data.getValues() );
+  }
+
+  /**
+   * Test method for {@link WideCapturedData#WideCapturedData(int[][], long[], long, int, int, int[], long)}.
+   */
+  @Test
+  public void testCreateWideOk()
+  {
+    final CapturedData data = WideCapturedData.create( new int[][] { { 1, 2 }, { 3, 4 } }, new long[] { 0L, 1L },
+        -1, 100, 40, new int[] { -1, 0xFF }, 2 );
+
+    assertTrue( data instanceof WideAcquisitionResult );
+
+    final WideAcquisitionResult wide = ( WideAcquisitionResult )data;
+    assertEquals( 32, wide.getChannels() );
+    assertEquals( 40, wide.getTotalChannels() );
+    assertEquals( 2, wide.getWordCount() );
+    assertArrayEquals( new int[] { 1, 2 }, wide.getValues() );
+    assertArrayEquals( new int[] { 3, 4 }, wide.getValues( 1 ) );
+  }
+
+  /**
+   * Test method for {@link WideCapturedData#getValues(int)}.
+   */
+  @Test
+  public void testDisabledWordIsNotStored()
+  {
+    final WideCapturedData data = new WideCapturedData( new int[][] { null, { 3, 4 }, { 5, 6 } }, new long[] { 0L,
+        1L }, -1, 100, 96, new int[] { 0, 0, 1 }, 2 );
+
+    assertArrayEquals( new int[] { 0, 0 }, data.getValues( 0 ) );
+    assertNull( data.getValues( 1 ) );
+    assertArrayEquals( new int[] { 5, 6 }, data.getValues( 2 ) );
+  }
+
+  /**
+   * Test method for {@link WideCapturedData#WideCapturedData(int[][], long[], long, int, int, int[], long)}.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidColumnCountFail()
+  {
+    new WideCapturedData( new int[][] { { 1 } }, new long[] { 0L }, -1, 100, 64, new int[] { -1 }, 1 );
+  }
+
+  /**
+   * Test method for {@link WideCapturedData#WideCapturedData(int[][], long[], long, int, int, int[], long)}.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidColumnLengthFail()
+  {
+    new WideCapturedData( new int[][] { { 1 }, { 1, 2 } }, new long[] { 0L }, -1, 100, 64, new int[] { -1, -1 }, 1 );
+  }
+
+  /**
+   * Test method for {@link WideCapturedData#getWordView(int)}.
+   */
+  @Test
+  public void testWordViewRemovesRedundantSamples()
+  {
+    final WideCapturedData data = new WideCapturedData( new int[][] { { 1, 2, 3, 4 }, { 7, 7, 8, 8 } }, new long[] {
+        0L, 2L, 4L, 6L }, 1L, 100, 48, new int[] { -1, 0xFFFF }, 10 );
+
+    final AcquisitionResult view = data.getWordView( 1 );
+    assertEquals( 16, view.getChannels() );
+    assertEquals( 0xFFFF, view.getEnabledChannels() );
+    assertEquals( 1L, view.getTriggerPosition() );
+    assertEquals( 10L, view.getAbsoluteLength() );
+    assertArrayEquals( new int[] { 7, 8 }, view.getValues() );
+    assertArrayEquals( new long[] { 0L, 4L }, view.getTimestamps() );
+
+    final AcquisitionResult first = data.getWordView( 0 );
+    assertArrayEquals( new int[] { 1, 2, 3, 4 }, first.getValues() );
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.compare;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CaptureComparator}.
+ */
+public class CaptureComparatorTest
+{
+  // VARIABLES
+
+  private CaptureComparator comparator;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.comparator = new CaptureComparator();
+  }
+
+  /**
+   * Tests that both captures can be aligned on the first edge of a channel.
+   */
+  @Test
+  public void testAlignOnEdge() throws Exception
+  {
+    final AcquisitionResult ref = createData( -1L, 0x0, 0L, 0x1, 10L, 0x3, 20L, 0x0, 30L );
+    final AcquisitionResult other = createData( -1L, 0x0, 0L, 0x1, 15L, 0x3, 25L, 0x0, 35L );
+
+    this.comparator.setAlignOnEdge( 0, Edge.RISING );
+
+    final CompareResult result = this.comparator.compare( ref, other );
+    assertEquals( -5L, result.getOffset() );
+    assertTrue( result.isEqual() );
+  }
+
+  /**
+   * Tests that both captures can be aligned on their trigger positions.
+   */
+  @Test
+  public void testAlignOnTrigger() throws Exception
+  {
+    final AcquisitionResult ref = createData( 10L, 0x0, 0L, 0x1, 10L, 0x0, 20L );
+    final AcquisitionResult other = createData( 12L, 0x0, 0L, 0x1, 12L, 0x0, 22L );
+
+    assertFalse( this.comparator.compare( ref, other ).isEqual() );
+
+    this.comparator.setAlignOnTrigger();
+
+    final CompareResult result = this.comparator.compare( ref, other );
+    assertEquals( -2L, result.getOffset() );
+    assertTrue( result.isEqual() );
+  }
+
+  /**
+   * Tests that channels can be mapped onto other channels.
+   */
+  @Test
+  public void testChannelMapping() throws Exception
+  {
+    final AcquisitionResult ref = createData( -1L, 0x0, 0L, 0x1, 10L, 0x0, 20L );
+    final AcquisitionResult other = createData( -1L, 0x0, 0L, 0x100, 10L, 0x0, 20L );
+
+    this.comparator.setChannelMask( 0x1 );
+    assertFalse( this.comparator.compare( ref, other ).isEqual() );
+
+    this.comparator.setChannelMapping( 0, 8 );
+    assertTrue( this.comparator.compare( ref, other ).isEqual() );
+  }
+
+  /**
+   * Tests that differences are reported per channel.
+   */
+  @Test
+  public void testMismatchesPerChannel() throws Exception
+  {
+    final AcquisitionResult ref = createData( -1L, 0x0, 0L, 0x3, 10L, 0x0, 20L, 0x2, 30L );
+    final AcquisitionResult other = createData( -1L, 0x0, 0L, 0x1, 10L, 0x0, 25L, 0x2, 30L );
+
+    final CompareResult result = this.comparator.compare( ref, other );
+
+    final List<CompareMismatch> mismatches = result.getMismatches();
+    assertEquals( 2, mismatches.size() );
+    assertEquals( new CompareMismatch( 1, 10L, 20L ), mismatches.get( 0 ) );
+    assertEquals( new CompareMismatch( 0, 20L, 25L ), mismatches.get( 1 ) );
+
+    assertEquals( 1, result.getMismatches( 0 ).size() );
+    assertEquals( 5L, result.getMismatches( 0 ).get( 0 ).getDuration() );
+  }
+
+  /**
+   * Tests that captures taken at different sample rates are not compared.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testDifferentSampleRatesFail() throws Exception
+  {
+    final AcquisitionResult ref = createData( -1L, 0x0, 0L, 0x1, 10L, 0x0, 20L );
+    final AcquisitionResult other = new CapturedData( new int[] { 0x0, 0x1, 0x0 }, new long[] { 0L, 10L, 20L }, -1L,
+        200, 32, -1, 30L );
+
+    this.comparator.compare( ref, other );
+  }
+
+  /**
+   * Tests that mismatches up to the tolerance are ignored.
+   */
+  @Test
+  public void testToleranceIgnoresJitter() throws Exception
+  {
+    final AcquisitionResult ref = createData( -1L, 0x0, 0L, 0x1, 10L, 0x0, 20L );
+    final AcquisitionResult other = createData( -1L, 0x0, 0L, 0x1, 12L, 0x0, 19L );
+
+    assertEquals( 2, this.comparator.compare( ref, other ).getMismatches().size() );
+
+    this.comparator.setTolerance( 2 );
+    assertTrue( this.comparator.compare( ref, other ).isEqual() );
+
+    this.comparator.setTolerance( 1 );
+    assertEquals( Arrays.asList( new CompareMismatch( 0, 10L, 12L ) ), this.comparator.compare( ref, other )
+        .getMismatches() );
+  }
+
+  /**
+   * Tests that the result can be written as CSV.
+   */
+  @Test
+  public void testWriteResult() throws Exception
+  {
+    final AcquisitionResult ref = createData( -1L, 0x0, 0L, 0x1, 10L, 0x0, 20L );
+    final AcquisitionResult other = createData( -1L, 0x0, 0L, 0x0, 30L );
+
+    final StringWriter writer = new StringWriter();
+    this.comparator.compare( ref, other ).write( writer );
+
+    final String[] lines = writer.toString().split( "[\r\n]+" );
+    assertEquals( 2, lines.length );
+    assertEquals( "0,10,20,10", lines[1] );
+  }
+
+  /**
+   * Creates captured data from the given value/timestamp pairs, which ends
+   * right after the last timestamp.
+   */
+  private static AcquisitionResult createData( final long aTriggerPos, final long... aPairs )
+  {
+    final int[] values = new int[aPairs.length / 2];
+    final long[] timestamps = new long[values.length];
+    for ( int i = 0; i < values.length; i++ )
+    {
+      values[i] = ( int )aPairs[2 * i];
+      timestamps[i] = aPairs[( 2 * i ) + 1];
+    }
+    return new CapturedData( values, timestamps, aTriggerPos, 100, 32, -1, timestamps[timestamps.length - 1] + 10L );
+  }
+}
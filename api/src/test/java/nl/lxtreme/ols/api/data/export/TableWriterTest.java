@@ -0,0 +1,169 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.export;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CsvTableWriter} and {@link BinaryTableWriter}.
+ */
+public class TableWriterTest
+{
+  // CONSTANTS
+
+  private static final String NL = System.getProperty( "line.separator", "\n" );
+
+  private static final String[] NAMES = { "index", "time", "event?", "name" };
+  private static final ColumnType[] TYPES = { ColumnType.INT, ColumnType.DOUBLE, ColumnType.BOOLEAN,
+      ColumnType.STRING };
+
+  // METHODS
+
+  /**
+   * Tests that the binary table format can be read back.
+   */
+  @Test
+  public void testBinaryTable() throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+    final TableWriter writer = new BinaryTableWriter( baos, 2 );
+    writer.setColumns( NAMES, TYPES );
+    writeRows( writer, 3 );
+    writer.close();
+
+    final DataInputStream input = new DataInputStream( new ByteArrayInputStream( baos.toByteArray() ) );
+
+    final byte[] magic = new byte[8];
+    input.readFully( magic );
+    assertEquals( "OLSTABLE", new String( magic, "US-ASCII" ) );
+    assertEquals( BinaryTableWriter.VERSION, input.readInt() );
+    assertEquals( 4, input.readInt() );
+    for ( int c = 0; c < 4; c++ )
+    {
+      assertEquals( NAMES[c], input.readUTF() );
+      assertEquals( TYPES[c].getCode(), input.readByte() );
+    }
+
+    // First batch: rows 0 and 1...
+    assertEquals( 2, input.readInt() );
+    assertEquals( 0, input.readByte() ); // no nulls
+    assertEquals( 0, input.readInt() );
+    assertEquals( 1, input.readInt() );
+    assertEquals( 0, input.readByte() ); // no nulls
+    assertEquals( 0.0, input.readDouble(), 0.0 );
+    assertEquals( 0.5, input.readDouble(), 0.0 );
+    assertEquals( 0, input.readByte() ); // no nulls
+    assertEquals( 0x2, input.readByte() ); // row 1 is an event
+    assertEquals( 0x2, input.readByte() ); // row 1 has no name
+    assertEquals( 0, input.readInt() );
+    assertEquals( 5, input.readInt() );
+    assertEquals( 5, input.readInt() );
+    final byte[] name = new byte[5];
+    input.readFully( name );
+    assertEquals( "row 0", new String( name, "UTF-8" ) );
+
+    // Second batch: row 2...
+    assertEquals( 1, input.readInt() );
+    input.skipBytes( 1 + 4 + 1 + 8 + 1 + 1 + 1 + 8 + 5 );
+
+    // End marker...
+    assertEquals( 0, input.readInt() );
+    assertEquals( -1, input.read() );
+  }
+
+  /**
+   * Tests that cells of the wrong type are rejected.
+   */
+  @Test( expected = IllegalStateException.class )
+  public void testCellTypeMismatchFail() throws IOException
+  {
+    final TableWriter writer = new CsvTableWriter( new StringWriter(), ',', 1 );
+    writer.setColumns( NAMES, TYPES );
+    writer.writeString( "not an int" );
+  }
+
+  /**
+   * Tests that primitives are formatted, and strings are quoted only when
+   * needed.
+   */
+  @Test
+  public void testCsvFormatting() throws IOException
+  {
+    final StringWriter output = new StringWriter();
+
+    final TableWriter writer = new CsvTableWriter( output, ',', 1 );
+    writer.setColumns( NAMES, TYPES );
+    writer.writeInt( -42 ).writeInt( 3 ).writeBoolean( true ).writeString( "a \"b\", c" ).endRow();
+    writer.writeInt( Integer.MAX_VALUE ).writeDouble( 1.5E-6 ).endRow();
+    writer.close();
+
+    assertEquals( "index,time,event?,name" + NL //
+        + "-42,3.0,true,\"a \"\"b\"\", c\"" + NL //
+        + "2147483647,1.5E-6,," + NL, output.toString() );
+  }
+
+  /**
+   * Tests that formatting batches in parallel retains the order of the rows.
+   */
+  @Test
+  public void testCsvParallelFormattingRetainsOrder() throws IOException
+  {
+    final int rows = 10000;
+
+    final StringWriter sequential = new StringWriter();
+    TableWriter writer = new CsvTableWriter( sequential, ';', 1, 64 );
+    writer.setColumns( NAMES, TYPES );
+    writeRows( writer, rows );
+    writer.close();
+
+    final StringWriter parallel = new StringWriter();
+    writer = new CsvTableWriter( parallel, ';', 4, 64 );
+    writer.setColumns( NAMES, TYPES );
+    writeRows( writer, rows );
+    writer.close();
+
+    assertEquals( sequential.toString(), parallel.toString() );
+    assertTrue( parallel.toString().endsWith( "9999;4999.5;true;" + NL ) );
+  }
+
+  /**
+   * Writes the given number of test rows.
+   */
+  private static void writeRows( final TableWriter aWriter, final int aCount ) throws IOException
+  {
+    for ( int i = 0; i < aCount; i++ )
+    {
+      aWriter.writeInt( i ).writeDouble( i / 2.0 ).writeBoolean( ( i % 2 ) != 0 );
+      if ( ( i % 2 ) == 0 )
+      {
+        aWriter.writeString( "row " + i );
+      }
+      aWriter.endRow();
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import static org.junit.Assert.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for the various {@link SearchCondition}s and the
+ * {@link SearchConditionParser}.
+ */
+public class SearchConditionTest
+{
+  // VARIABLES
+
+  private AcquisitionResult data;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    // channel 0: a clock-like signal with a glitch at time 40..41;
+    // channel 1: goes high at time 30 and low again at time 60.
+    final int[] values = { 0x0, 0x1, 0x0, 0x1, 0x2, 0x3, 0x2, 0x3, 0x2, 0x0 };
+    final long[] timestamps = { 0L, 10L, 20L, 25L, 30L, 40L, 41L, 50L, 55L, 60L };
+
+    this.data = new CapturedData( values, timestamps, -1L, 100, 8, 0xFF, 70L );
+  }
+
+  /**
+   * Tests that an edge condition finds rising and falling edges.
+   */
+  @Test
+  public void testEdgeCondition()
+  {
+    final SearchCondition rising = new EdgeCondition( 1, Edge.RISING );
+    assertMatch( 4, 4, rising.find( this.data, 0, 10 ) );
+    assertNull( rising.find( this.data, 5, 10 ) );
+
+    final SearchCondition falling = new EdgeCondition( 0, Edge.FALLING );
+    assertMatch( 2, 2, falling.find( this.data, 0, 10 ) );
+    assertMatch( 4, 4, falling.find( this.data, 3, 10 ) );
+
+    final SearchCondition any = new EdgeCondition( 0, Edge.NONE );
+    assertMatch( 1, 1, any.find( this.data, 0, 10 ) );
+    assertNull( any.find( this.data, 0, 1 ) );
+  }
+
+  /**
+   * Tests that the parser yields equivalent conditions.
+   */
+  @Test
+  public void testParseExpressions()
+  {
+    assertMatch( 4, 4, SearchConditionParser.parse( "rising 1" ).find( this.data, 0, 10 ) );
+    assertMatch( 5, 6, SearchConditionParser.parse( "high 0 < 2" ).find( this.data, 0, 10 ) );
+    assertMatch( 4, 4, SearchConditionParser.parse( "VALUE 0x2 MASK 0b11" ).find( this.data, 0, 10 ) );
+    assertMatch( 4, 5, SearchConditionParser.parse( "rising 1 then rising 0 within 10" ).find( this.data, 0, 10 ) );
+  }
+
+  /**
+   * Tests that invalid expressions are rejected.
+   */
+  @Test
+  public void testParseInvalidExpressions()
+  {
+    final String[] expressions = { "", "rising", "rising 32", "high 0 ! 3", "value zz", "rising 0 then",
+        "rising 0 within 10 then rising 1", "low 0 < 0", "foo 1" };
+    for ( String expression : expressions )
+    {
+      try
+      {
+        SearchConditionParser.parse( expression );
+        fail( "Expected expression to be rejected: " + expression );
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        // Ok; expected...
+      }
+    }
+  }
+
+  /**
+   * Tests that a pulse width condition only matches pulses of the right width.
+   */
+  @Test
+  public void testPulseWidthCondition()
+  {
+    final SearchCondition glitch = new PulseWidthCondition( 0, true, 0L, 2L );
+    assertMatch( 5, 6, glitch.find( this.data, 0, 10 ) );
+
+    final SearchCondition lowPulse = new PulseWidthCondition( 0, false, 5L, 5L );
+    assertMatch( 2, 3, lowPulse.find( this.data, 0, 10 ) );
+
+    final SearchCondition wideHigh = new PulseWidthCondition( 1, true, 30L, 30L );
+    assertMatch( 4, 9, wideHigh.find( this.data, 0, 10 ) );
+    assertNull( wideHigh.find( this.data, 5, 10 ) );
+  }
+
+  /**
+   * Tests that a sequence condition honours the maximal time between steps.
+   */
+  @Test
+  public void testSequenceCondition()
+  {
+    final SearchCondition risingCh1 = new EdgeCondition( 1, Edge.RISING );
+    final SearchCondition fallingCh1 = new EdgeCondition( 1, Edge.FALLING );
+
+    assertMatch( 4, 9, new SequenceCondition( -1L, risingCh1, fallingCh1 ).find( this.data, 0, 10 ) );
+    assertMatch( 4, 9, new SequenceCondition( 30L, risingCh1, fallingCh1 ).find( this.data, 0, 10 ) );
+    assertNull( new SequenceCondition( 29L, risingCh1, fallingCh1 ).find( this.data, 0, 10 ) );
+
+    // First rising edge of ch0 at 10 is followed by its falling edge at 20,
+    // within 5 only the second pair (25..30) matches...
+    final SearchCondition seq = new SequenceCondition( 5L, new EdgeCondition( 0, Edge.RISING ), new EdgeCondition(
+        0, Edge.FALLING ) );
+    assertMatch( 3, 4, seq.find( this.data, 0, 10 ) );
+  }
+
+  /**
+   * Tests that a value condition matches the masked value.
+   */
+  @Test
+  public void testValueCondition()
+  {
+    assertMatch( 5, 5, new ValueCondition( 0x3, 0x3 ).find( this.data, 0, 10 ) );
+    assertMatch( 4, 4, new ValueCondition( 0x2, 0x2 ).find( this.data, 0, 10 ) );
+    assertMatch( 9, 9, new ValueCondition( 0x3, 0x0 ).find( this.data, 3, 10 ) );
+    assertNull( new ValueCondition( 0x4, 0x4 ).find( this.data, 0, 10 ) );
+  }
+
+  /**
+   * Tests that a value condition matches a held value only once, even though
+   * the other channels keep changing.
+   */
+  @Test
+  public void testValueConditionHeldValue()
+  {
+    assertMatch( 4, 4, new ValueCondition( 0x2, 0x2 ).find( this.data, 0, 10 ) );
+    assertNull( new ValueCondition( 0x2, 0x2 ).find( this.data, 5, 10 ) );
+  }
+
+  /**
+   * Asserts the given match starts and ends at the given sample indexes.
+   */
+  private void assertMatch( final int aStartIdx, final int aEndIdx, final SearchMatch aMatch )
+  {
+    assertNotNull( aMatch );
+    assertEquals( aStartIdx, aMatch.getStartIndex() );
+    assertEquals( aEndIdx, aMatch.getEndIndex() );
+    assertEquals( this.data.getTimestamps()[aStartIdx], aMatch.getStartTime() );
+    assertEquals( this.data.getTimestamps()[aEndIdx], aMatch.getEndTime() );
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.virtual;
+
+
+import static org.junit.Assert.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link StateView}.
+ */
+public class StateViewTest
+{
+  // VARIABLES
+
+  private AcquisitionResult data;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    // channel 0: clock, rising at 10, 30, 50 and 70, falling at 20, 40, 60;
+    // channel 1: qualifier, high between 25 and 55;
+    // channels 4..7: data nibble, changing at 15, 35 and 65.
+    final int[] values = { 0x00, 0x01, 0x51, 0x50, 0x52, 0x53, 0x93, 0x92, 0x93, 0x91, 0x90, 0xA0, 0xA1 };
+    final long[] timestamps = { 0L, 10L, 15L, 20L, 25L, 30L, 35L, 40L, 50L, 55L, 60L, 65L, 70L };
+
+    this.data = new CapturedData( values, timestamps, 45L, 1000, 8, 0xFF, 80L );
+  }
+
+  /**
+   * Tests that sampling on both edges yields a state per clock edge.
+   */
+  @Test
+  public void testSampleOnBothEdges()
+  {
+    final StateView view = StateView.create( this.data, 0, StateView.ClockEdge.BOTH, 0, 0 );
+
+    assertEquals( 7, view.getStateCount() );
+    assertEquals( 7L, view.getAbsoluteLength() );
+    assertEquals( 20L, view.getSourceTimestamp( 1 ) );
+    assertEquals( 70L, view.getSourceTimestamp( 6 ) );
+  }
+
+  /**
+   * Tests that the qualifier channels restrict the sampled clock edges.
+   */
+  @Test
+  public void testSampleOnQualifiedEdges()
+  {
+    final StateView view = StateView.create( this.data, 0, StateView.ClockEdge.RISING, 0x2, 0x2 );
+
+    // Only the clock edges at 30 and 50 are qualified...
+    assertEquals( 2, view.getStateCount() );
+    assertEquals( 30L, view.getSourceTimestamp( 0 ) );
+    assertEquals( 50L, view.getSourceTimestamp( 1 ) );
+    assertArrayEquals( new int[] { 0x52, 0x92 }, view.getValues() );
+  }
+
+  /**
+   * Tests that sampling on rising edges yields the values just before each
+   * edge, and maps each state back to its original time stamp.
+   */
+  @Test
+  public void testSampleOnRisingEdges()
+  {
+    final StateView view = StateView.create( this.data, 0, StateView.ClockEdge.RISING, 0, 0 );
+
+    assertEquals( this.data.getChannels(), view.getChannels() );
+    assertEquals( this.data.getEnabledChannels(), view.getEnabledChannels() );
+    assertEquals( 4, view.getStateCount() );
+    assertFalse( view.hasTimingData() );
+    assertEquals( Ols.NOT_AVAILABLE, view.getSampleRate() );
+
+    assertArrayEquals( new int[] { 0x00, 0x52, 0x92, 0xA0 }, view.getValues() );
+    assertArrayEquals( new long[] { 0L, 1L, 2L, 3L }, view.getTimestamps() );
+
+    assertEquals( 10L, view.getSourceTimestamp( 0 ) );
+    assertEquals( 70L, view.getSourceTimestamp( 3 ) );
+
+    // The trigger at 45 lies between the states at 30 and 50...
+    assertTrue( view.hasTriggerData() );
+    assertEquals( 2L, view.getTriggerPosition() );
+  }
+
+  /**
+   * Tests that equal consecutive states are compressed.
+   */
+  @Test
+  public void testStatesAreCompressed()
+  {
+    final StateView view = StateView.create( this.data, 0, StateView.ClockEdge.FALLING, 0, 0 );
+
+    // Falling edges at 20, 40 and 60 sample 0x51, 0x93 and 0x91...
+    assertEquals( 3, view.getStateCount() );
+    assertArrayEquals( new int[] { 0x51, 0x93, 0x91 }, view.getValues() );
+
+    final StateView constant = StateView.create( this.data, 2, StateView.ClockEdge.FALLING, 0, 0 );
+    assertEquals( 0, constant.getStateCount() );
+    assertEquals( 0, constant.getValues().length );
+  }
+}
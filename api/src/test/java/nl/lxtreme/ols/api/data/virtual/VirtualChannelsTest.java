@@ -0,0 +1,257 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.virtual;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link ChannelExpressionParser}, {@link EdgeStream} and
+ * {@link VirtualChannels}.
+ */
+public class VirtualChannelsTest
+{
+  // VARIABLES
+
+  private AcquisitionResult data;
+  private String[] labels;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    // channel 0: a clock-like signal with a glitch at time 40..41;
+    // channel 1: goes high at time 30 and low again at time 60.
+    final int[] values = { 0x0, 0x1, 0x0, 0x1, 0x2, 0x3, 0x2, 0x3, 0x2, 0x0 };
+    final long[] timestamps = { 0L, 10L, 20L, 25L, 30L, 40L, 41L, 50L, 55L, 60L };
+
+    this.data = new CapturedData( values, timestamps, -1L, 100, 8, 0xFF, 70L );
+
+    this.labels = new String[32];
+    this.labels[0] = "CLK";
+    this.labels[1] = "CS";
+  }
+
+  /**
+   * Tests that the virtual channels are merged into the compressed samples,
+   * without expanding them.
+   */
+  @Test
+  public void testApplyVirtualChannels()
+  {
+    final List<VirtualChannel> definitions = new ArrayList<VirtualChannel>();
+    definitions.add( new VirtualChannel( 8, "SEL", "CLK & CS" ) );
+    definitions.add( new VirtualChannel( 9, null, "delay(CS, 15)" ) );
+
+    final AcquisitionResult result = new VirtualChannels().apply( this.data, definitions, this.labels );
+
+    assertEquals( 10, result.getChannels() );
+    assertEquals( 0x3FF, result.getEnabledChannels() );
+    assertEquals( 70L, result.getAbsoluteLength() );
+
+    // Only the delayed edge at 45 is new, all other edges coincide...
+    final long[] timestamps = result.getTimestamps();
+    assertEquals( 11, timestamps.length );
+    assertEquals( 45L, timestamps[7] );
+
+    for ( int i = 0; i < timestamps.length; i++ )
+    {
+      final int value = result.getValues()[i];
+      final boolean clk = ( value & 0x1 ) != 0;
+      final boolean cs = ( value & 0x2 ) != 0;
+      assertEquals( "at " + timestamps[i], clk && cs, ( value & 0x100 ) != 0 );
+      assertEquals( "at " + timestamps[i], ( timestamps[i] >= 45L ), ( value & 0x200 ) != 0 );
+    }
+  }
+
+  /**
+   * Tests that invalid virtual channels are ignored, and that no virtual
+   * channels yield the original captured data.
+   */
+  @Test
+  public void testApplyWithoutValidVirtualChannels()
+  {
+    final VirtualChannels virtualChannels = new VirtualChannels();
+    assertSame( this.data, virtualChannels.apply( this.data, Collections.<VirtualChannel> emptyList(), this.labels ) );
+    assertSame( this.data, virtualChannels.apply( this.data,
+        Collections.singletonList( new VirtualChannel( 8, null, "CLK &" ) ), this.labels ) );
+  }
+
+  /**
+   * Tests that virtual channels are never shown on enabled channels of the
+   * captured data.
+   */
+  @Test
+  public void testApplyOnEnabledChannelIgnored()
+  {
+    final List<VirtualChannel> definitions = new ArrayList<VirtualChannel>();
+    definitions.add( new VirtualChannel( 1, "SEL", "CLK" ) );
+
+    final VirtualChannels virtualChannels = new VirtualChannels();
+    assertSame( this.data, virtualChannels.apply( this.data, definitions, this.labels ) );
+
+    definitions.add( new VirtualChannel( 8, "NCLK", "!CLK" ) );
+
+    final AcquisitionResult result = virtualChannels.apply( this.data, definitions, this.labels );
+    assertEquals( 0x1FF, result.getEnabledChannels() );
+    // All edges of the virtual channel coincide with the original samples...
+    assertArrayEquals( this.data.getTimestamps(), result.getTimestamps() );
+    for ( int i = 0; i < result.getValues().length; i++ )
+    {
+      final int value = result.getValues()[i];
+      // Channel 1 still shows CS, not the virtual channel...
+      assertEquals( this.data.getValues()[i], value & 0xFF );
+      assertEquals( ( value & 0x1 ) == 0, ( value & 0x100 ) != 0 );
+    }
+  }
+
+  /**
+   * Tests that logical combinations of channels are evaluated correctly.
+   */
+  @Test
+  public void testLogicExpressions()
+  {
+    assertEdges( evaluate( "ch0 & ch1" ), false, 40L, 41L, 50L, 55L );
+    assertEdges( evaluate( "CLK & !CS" ), false, 10L, 20L, 25L, 30L );
+    assertEdges( evaluate( "ch0 | ch1" ), false, 10L, 20L, 25L, 60L );
+    assertEdges( evaluate( "~(ch0 ^ ch0)" ), true );
+    assertEdges( evaluate( "1 & ch1" ), false, 30L, 60L );
+  }
+
+  /**
+   * Tests that delays are evaluated correctly.
+   */
+  @Test
+  public void testDelay()
+  {
+    // The falling edge is delayed beyond the end of the capture...
+    assertEdges( evaluate( "delay(ch1, 15)" ), false, 45L );
+    assertEdges( evaluate( "delay(!ch1, 0)" ), true, 30L, 60L );
+  }
+
+  /**
+   * Tests that deglitching removes short pulses only.
+   */
+  @Test
+  public void testDeglitch()
+  {
+    assertEdges( evaluate( "deglitch(ch0, 2)" ), false, 10L, 20L, 25L, 30L, 50L, 55L );
+    assertEdges( evaluate( "deglitch(ch0, 6)" ), false, 10L, 30L );
+    assertEdges( evaluate( "deglitch(ch1, 100)" ), false );
+  }
+
+  /**
+   * Tests that evaluated expressions are cached per capture and canonical
+   * expression.
+   */
+  @Test
+  public void testEvaluationIsCached()
+  {
+    final VirtualChannels virtualChannels = new VirtualChannels();
+
+    final EdgeStream first = virtualChannels.evaluate( this.data, parse( "CLK & !CS" ) );
+    assertSame( first, virtualChannels.evaluate( this.data, parse( "ch0&!ch1" ) ) );
+    assertNotSame( first, virtualChannels.evaluate( this.data, parse( "ch0 & ch1" ) ) );
+
+    final AcquisitionResult other = new CapturedData( this.data.getValues(), this.data.getTimestamps(), -1L, 100, 8,
+        0xFF, 70L );
+    assertNotSame( first, virtualChannels.evaluate( other, parse( "ch0 & !ch1" ) ) );
+  }
+
+  /**
+   * Tests that the parser yields canonical expressions, and rejects invalid
+   * expressions.
+   */
+  @Test
+  public void testParseExpressions()
+  {
+    assertEquals( "(ch1 & !ch0)", parse( "cs & !clk" ).toString() );
+    assertEquals( "(ch0 | ((ch1 & ch2) ^ 1))", parse( "ch0 | ch1 & ch2 ^ 1" ).toString() );
+    assertEquals( "deglitch(delay(ch3, 2), 5)", parse( "DEGLITCH(delay(ch3,2),5)" ).toString() );
+
+    final String[] invalid = { "", "ch0 &", "foo", "ch32", "delay(ch0)", "(ch0", "ch0 ch1", "ch0 + ch1" };
+    for ( String expression : invalid )
+    {
+      try
+      {
+        parse( expression );
+        fail( "Expected expression to be rejected: " + expression );
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        // Ok; expected...
+      }
+    }
+  }
+
+  /**
+   * Tests that virtual channels cannot refer to other virtual channels by
+   * their label.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testReferToVirtualChannelFail()
+  {
+    this.labels[8] = "SEL";
+    VirtualChannels.parse( "SEL & CLK", this.labels,
+        Collections.singletonList( new VirtualChannel( 8, "SEL", "CLK & CS" ) ) );
+  }
+
+  /**
+   * Asserts that the given edge stream has the given initial level and edges.
+   */
+  private static void assertEdges( final EdgeStream aStream, final boolean aInitialLevel, final long... aEdges )
+  {
+    assertEquals( aInitialLevel, aStream.getInitialLevel() );
+    assertEquals( aEdges.length, aStream.getEdgeCount() );
+    for ( int i = 0; i < aEdges.length; i++ )
+    {
+      assertEquals( aEdges[i], aStream.getEdge( i ) );
+    }
+  }
+
+  /**
+   * Evaluates the given expression on the test data.
+   */
+  private EdgeStream evaluate( final String aExpression )
+  {
+    return parse( aExpression ).evaluate( this.data );
+  }
+
+  /**
+   * Parses the given expression with the test labels.
+   */
+  private ChannelExpression parse( final String aExpression )
+  {
+    return ChannelExpressionParser.parse( aExpression, this.labels );
+  }
+}
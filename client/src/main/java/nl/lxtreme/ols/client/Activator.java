@@ -35,6 +35,7 @@ import nl.lxtreme.ols.api.ui.*;
 import nl.lxtreme.ols.client.data.project.*;
 import nl.lxtreme.ols.client.osgi.*;
 import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.metrics.*;
 import nl.lxtreme.ols.util.osgi.*;
 
 import org.apache.felix.dm.*;
@@ -62,6 +63,10 @@ public class Activator extends DependencyActivatorBase
   private static final String OLS_EXPORTER_MAGIC_VALUE = "1.0";
   private static final String OLS_EXPORTER_CLASS_KEY = "OLS-ExporterClass";
 
+  private static final String OLS_IMPORTER_MAGIC_KEY = "OLS-Importer";
+  private static final String OLS_IMPORTER_MAGIC_VALUE = "1.0";
+  private static final String OLS_IMPORTER_CLASS_KEY = "OLS-ImporterClass";
+
   private static final String OLS_COMPONENT_PROVIDER_MAGIC_KEY = "OLS-ComponentProvider";
   private static final String OLS_COMPONENT_PROVIDER_CLASS_KEY = "OLS-ComponentProviderClass";
   /** a RegEx for the supported components. */
@@ -144,6 +149,27 @@ public class Activator extends DependencyActivatorBase
     };
   }
 
+  /**
+   * Creates the bundle observer for importers.
+   * 
+   * @return a bundle observer, never <code>null</code>.
+   */
+  private static BundleObserver createImporterBundleObserver()
+  {
+    return new BundleServiceObserver( OLS_IMPORTER_MAGIC_KEY, OLS_IMPORTER_MAGIC_VALUE, OLS_IMPORTER_CLASS_KEY,
+        Importer.class.getName() )
+    {
+      @Override
+      protected Dictionary<?, ?> getServiceProperties( final Bundle aBundle, final Object aService,
+          final ManifestHeader... aEntries )
+      {
+        Properties result = new Properties();
+        result.put( Action.NAME, ( ( Importer )aService ).getName() );
+        return result;
+      }
+    };
+  }
+
   /**
    * Creates the bundle observer for tools.
    * 
@@ -193,7 +219,11 @@ public class Activator extends DependencyActivatorBase
         .add( createToolBundleObserver() ) //
         .add( createDeviceBundleObserver() ) //
         .add( createExporterBundleObserver() ) //
+        .add( createImporterBundleObserver() ) //
         .add( createComponentProviderBundleObserver() );
+    // In fast startup mode, do not let the scanning of bundles delay the
+    // startup of the UI...
+    this.bundleWatcher.setDeferred( StartupTimer.isFastStartupMode() );
     // Start watching all bundles for extenders...
     this.bundleWatcher.start();
 
@@ -264,6 +294,11 @@ public class Activator extends DependencyActivatorBase
                 .setCallbacks( "addExporter", "removeExporter" ) //
                 .setRequired( false ) //
             ) //
+            .add( createServiceDependency() //
+                .setService( Importer.class ) //
+                .setCallbacks( "addImporter", "removeImporter" ) //
+                .setRequired( false ) //
+            ) //
         );
   }
 }
@@ -23,27 +23,38 @@ package nl.lxtreme.ols.client;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.beans.*;
 import java.io.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import javax.swing.*;
+import javax.swing.Timer;
 import javax.swing.event.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.compare.*;
 import nl.lxtreme.ols.api.data.export.*;
 import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.data.search.*;
+import nl.lxtreme.ols.api.data.virtual.*;
 import nl.lxtreme.ols.api.devices.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.api.ui.*;
 import nl.lxtreme.ols.client.action.*;
 import nl.lxtreme.ols.client.action.manager.*;
+import nl.lxtreme.ols.client.data.importer.*;
+import nl.lxtreme.ols.client.data.project.*;
+import nl.lxtreme.ols.client.data.workspace.*;
 import nl.lxtreme.ols.client.diagram.*;
 import nl.lxtreme.ols.client.diagram.settings.*;
+import nl.lxtreme.ols.client.osgi.*;
 import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.metrics.*;
 import nl.lxtreme.ols.util.swing.*;
 import nl.lxtreme.ols.util.swing.component.*;
 
@@ -107,6 +118,137 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Provides a background worker that adds captured data to the capture
+   * history, as this might spill older captures to disk.
+   */
+  final class CaptureHistoryWorker extends SwingWorker<Void, Void>
+  {
+    // VARIABLES
+
+    private final String name;
+    private final AcquisitionResult data;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new CaptureHistoryWorker instance.
+     */
+    CaptureHistoryWorker( final String aName, final AcquisitionResult aData )
+    {
+      this.name = aName;
+      this.data = aData;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Void doInBackground() throws Exception
+    {
+      ClientController.this.captureWorkspace.add( this.name, this.data );
+      return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      updateActionsOnEDT();
+    }
+  }
+
+  /**
+   * Provides a background worker that reads a data file and compares the
+   * captured data against the capture in that file.
+   */
+  final class CompareWorker extends SwingWorker<CompareResult, Void>
+  {
+    // VARIABLES
+
+    private final File file;
+    private final CaptureComparator comparator;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new CompareWorker instance.
+     */
+    CompareWorker( final File aFile, final CaptureComparator aComparator )
+    {
+      this.file = aFile;
+      this.comparator = aComparator;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected CompareResult doInBackground() throws Exception
+    {
+      final FileReader reader = new FileReader( this.file );
+
+      final AcquisitionResult other;
+      try
+      {
+        final Project tempProject = ClientController.this.projectManager.createTemporaryProject();
+        OlsDataHelper.read( tempProject, reader );
+
+        other = tempProject.getCapturedData();
+      }
+      finally
+      {
+        HostUtils.closeResource( reader );
+      }
+
+      if ( other == null )
+      {
+        throw new IOException( "No capture data found in " + this.file.getName() + "!" );
+      }
+
+      return ClientController.this.dataContainer.compareWith( other, this.comparator );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      if ( isCancelled() || ( ClientController.this.compareWorker != this ) )
+      {
+        // Superseded by another comparison...
+        return;
+      }
+      ClientController.this.compareWorker = null;
+
+      try
+      {
+        setCompareResult( get() );
+      }
+      catch ( Exception exception )
+      {
+        final Throwable cause = ( exception instanceof ExecutionException ) ? exception.getCause() : exception;
+        // Make sure to handle IO-interrupted exceptions properly!
+        if ( !HostUtils.handleInterruptedException( cause ) )
+        {
+          LOG.log( Level.WARNING, "Capture comparison failed!", cause );
+          setStatusOnEDT( "Capture comparison failed: {0}", cause.getMessage() );
+          if ( cause instanceof IOException )
+          {
+            JErrorDialog.showDialog( getMainFrame(), "Loading the capture data to compare with failed!", cause );
+          }
+        }
+      }
+    }
+  }
+
   /**
    * Provides a default tool context implementation.
    */
@@ -174,54 +316,448 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc}
+     */
+    @Override
+    public int getEndSampleIndex()
+    {
+      return this.endSampleIdx;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLength()
+    {
+      return Math.max( 0, this.endSampleIdx - this.startSampleIdx );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getStartSampleIndex()
+    {
+      return this.startSampleIdx;
+    }
+  }
+
+  /**
+   * Provides a background worker that imports a file, using one of the
+   * registered importers, into a temporary project.
+   */
+  final class ImportWorker extends SwingWorker<Project, Void>
+  {
+    // VARIABLES
+
+    private final Importer importer;
+    private final File file;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new ImportWorker instance.
+     */
+    ImportWorker( final Importer aImporter, final File aFile )
+    {
+      this.importer = aImporter;
+      this.file = aFile;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Project doInBackground() throws Exception
+    {
+      final ImportProgressListener listener = new ImportProgressListener()
+      {
+        @Override
+        public void setProgress( final int aPercentage )
+        {
+          ClientController.this.progressAccumulatingRunnable.add( Integer.valueOf( aPercentage ) );
+        }
+      };
+
+      final InputStream stream = new ProgressInputStream( new BufferedInputStream( new FileInputStream( this.file ) ),
+          this.file.length(), listener );
+      try
+      {
+        final Project tempProject = ClientController.this.projectManager.createTemporaryProject();
+        this.importer.importData( tempProject, stream );
+        return tempProject;
+      }
+      finally
+      {
+        HostUtils.closeResource( stream );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      if ( ClientController.this.importWorker == this )
+      {
+        ClientController.this.importWorker = null;
+      }
+
+      try
+      {
+        final Project tempProject = get();
+
+        addToCaptureHistory( this.file.getName(), tempProject.getCapturedData() );
+
+        setChannelLabels( tempProject.getChannelLabels() );
+        setAcquisitionResult( tempProject.getCapturedData() );
+        zoomToFit();
+
+        setStatusOnEDT( "Capture data imported from {0} ...", this.file.getName() );
+      }
+      catch ( CancellationException exception )
+      {
+        setStatusOnEDT( "Import of {0} cancelled ...", this.file.getName() );
+      }
+      catch ( Exception exception )
+      {
+        final Throwable cause = ( exception instanceof ExecutionException ) ? exception.getCause() : exception;
+        // Make sure to handle IO-interrupted exceptions properly!
+        if ( !HostUtils.handleInterruptedException( cause ) )
+        {
+          LOG.log( Level.WARNING, "Import with '" + this.importer.getName() + "' failed!", cause );
+          JErrorDialog.showDialog( getMainFrame(), "Importing capture data failed!", cause );
+        }
+      }
+      finally
+      {
+        setProgressOnEDT( 0 );
+        updateActionsOnEDT();
+      }
+    }
+  }
+
+  /**
+   * A runnable implementation that accumulates several calls to avoid an
+   * avalanche of events on the EDT.
+   */
+  final class ProgressUpdatingRunnable extends AccumulatingRunnable<Integer>
+  {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void run( final List<Integer> aArgs )
+    {
+      final Integer percentage = aArgs.get( aArgs.size() - 1 );
+      setProgressOnEDT( percentage.intValue() );
+      updateActionsOnEDT();
+    }
+  }
+
+  /**
+   * Provides a background worker that loads the captured data of a lazily
+   * opened project, so its data file is not parsed on the EDT.
+   */
+  final class ProjectLoadWorker extends SwingWorker<AcquisitionResult, Void>
+  {
+    // VARIABLES
+
+    private final Project project;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new ProjectLoadWorker instance.
+     */
+    ProjectLoadWorker( final Project aProject )
+    {
+      this.project = aProject;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected AcquisitionResult doInBackground() throws Exception
+    {
+      // Triggers the lazy load of the captured data...
+      return this.project.getCapturedData();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      if ( this.project != ClientController.this.projectManager.getCurrentProject() )
+      {
+        // Superseded by another project...
+        return;
+      }
+
+      zoomToFit();
+
+      setStatusOnEDT( "Project {0} loaded ...", this.project.getName() );
+    }
+  }
+
+  /**
+   * Provides a background worker that stores a snapshot of the current project
+   * to a file.
+   */
+  final class SaveProjectWorker extends SwingWorker<Void, Void>
+  {
+    // VARIABLES
+
+    private final Project snapshot;
+    private final File file;
+    private final boolean autosave;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new SaveProjectWorker instance.
+     */
+    SaveProjectWorker( final Project aSnapshot, final File aFile, final boolean aAutosave )
+    {
+      this.snapshot = aSnapshot;
+      this.file = aFile;
+      this.autosave = aAutosave;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Void doInBackground() throws Exception
+    {
+      final ProjectProgressListener listener = this.autosave ? null : new ProjectProgressListener()
+      {
+        @Override
+        public void setProgress( final int aPercentage )
+        {
+          ClientController.this.progressAccumulatingRunnable.add( Integer.valueOf( aPercentage ) );
+        }
+      };
+
+      ClientController.this.projectManager.saveProjectSnapshot( this.snapshot, this.file, listener );
+      return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      if ( ClientController.this.saveProjectWorker == this )
+      {
+        ClientController.this.saveProjectWorker = null;
+      }
+
+      try
+      {
+        get();
+
+        if ( this.autosave )
+        {
+          LOG.log( Level.FINE, "Project autosaved to {0} ...", this.file );
+        }
+        else
+        {
+          ClientController.this.projectManager.setProjectSaved( this.snapshot, this.file );
+
+          // The autosaved project is no longer needed...
+          getAutosaveFile().delete();
+
+          setStatusOnEDT( "Project {0} saved ...", this.snapshot.getName() );
+        }
+      }
+      catch ( Exception exception )
+      {
+        final Throwable cause = ( exception instanceof ExecutionException ) ? exception.getCause() : exception;
+        // Make sure to handle IO-interrupted exceptions properly!
+        if ( !HostUtils.handleInterruptedException( cause ) )
+        {
+          if ( this.autosave )
+          {
+            LOG.log( Level.WARNING, "Autosaving project failed!", cause );
+          }
+          else
+          {
+            LOG.log( Level.WARNING, "Saving OLS project failed!", cause );
+            JErrorDialog.showDialog( getMainFrame(), "Saving the project data failed!", cause );
+          }
+        }
+      }
+      finally
+      {
+        if ( !this.autosave )
+        {
+          setProgressOnEDT( 0 );
+        }
+        updateActionsOnEDT();
+      }
+    }
+  }
+
+  /**
+   * Provides a background worker that searches the captured data for all
+   * matches of a search condition.
+   */
+  final class SearchWorker extends SwingWorker<List<SearchMatch>, Void>
+  {
+    // VARIABLES
+
+    private final SearchCondition condition;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new SearchWorker instance.
+     */
+    SearchWorker( final SearchCondition aCondition )
+    {
+      this.condition = aCondition;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<SearchMatch> doInBackground() throws Exception
+    {
+      return ClientController.this.dataContainer.findAll( this.condition );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      if ( isCancelled() || ( ClientController.this.searchWorker != this ) )
+      {
+        // Superseded by another search...
+        return;
+      }
+
+      try
+      {
+        setSearchMatches( get() );
+      }
+      catch ( Exception exception )
+      {
+        LOG.log( Level.WARNING, "Pattern search failed!", exception );
+        setStatusOnEDT( "Pattern search failed: {0}", exception.getMessage() );
+      }
+    }
+  }
+
+  /**
+   * Provides a background worker that retrieves the captured data of a capture
+   * in the capture history, which might need to be read back from disk.
+   */
+  final class SelectCaptureWorker extends SwingWorker<AcquisitionResult, Void>
+  {
+    // VARIABLES
+
+    private final int index;
+    private final CaptureWorkspace.Capture capture;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new SelectCaptureWorker instance.
      */
-    @Override
-    public int getEndSampleIndex()
+    SelectCaptureWorker( final int aIndex, final CaptureWorkspace.Capture aCapture )
     {
-      return this.endSampleIdx;
+      this.index = aIndex;
+      this.capture = aCapture;
     }
 
+    // METHODS
+
     /**
      * {@inheritDoc}
      */
     @Override
-    public int getLength()
+    protected AcquisitionResult doInBackground() throws Exception
     {
-      return Math.max( 0, this.endSampleIdx - this.startSampleIdx );
+      return ClientController.this.captureWorkspace.getData( this.capture );
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public int getStartSampleIndex()
+    protected void done()
     {
-      return this.startSampleIdx;
+      if ( ClientController.this.selectCaptureWorker != this )
+      {
+        // Superseded by another selection...
+        return;
+      }
+      ClientController.this.selectCaptureWorker = null;
+
+      try
+      {
+        final AcquisitionResult data = get();
+        if ( data != null )
+        {
+          showCapture( this.index, this.capture, data );
+        }
+      }
+      catch ( Exception exception )
+      {
+        final Throwable cause = ( exception instanceof ExecutionException ) ? exception.getCause() : exception;
+        LOG.log( Level.WARNING, "Restoring capture failed!", cause );
+        setStatusOnEDT( "Restoring capture {0} failed: {1}", this.capture.getName(), cause.getMessage() );
+      }
     }
   }
 
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( ClientController.class.getName() );
+
+  /** The maximum number of mismatches that are annotated in the diagram. */
+  private static final int MAX_MISMATCH_ANNOTATIONS = 10000;
   /**
-   * A runnable implementation that accumulates several calls to avoid an
-   * avalanche of events on the EDT.
+   * The data of the mismatch annotations, which is compared by identity to
+   * tell them apart from the annotations of tools.
    */
-  final class ProgressUpdatingRunnable extends AccumulatingRunnable<Integer>
+  private static final Object MISMATCH_ANNOTATION = new Object()
   {
-    /**
-     * {@inheritDoc}
-     */
     @Override
-    protected void run( final List<Integer> aArgs )
+    public String toString()
     {
-      final Integer percentage = aArgs.get( aArgs.size() - 1 );
-      setProgressOnEDT( percentage.intValue() );
-      updateActionsOnEDT();
+      return "Mismatch";
     }
-  }
+  };
 
-  // CONSTANTS
+  /** The interval in which changed projects are autosaved, in milliseconds. */
+  private static final int AUTOSAVE_INTERVAL = 2 * 60 * 1000;
 
-  private static final Logger LOG = Logger.getLogger( ClientController.class.getName() );
+  /** The maximum number of captures kept in the capture history. */
+  private static final int MAX_HISTORY_CAPTURES = 32;
+  /**
+   * The memory budget (in megabytes) of the capture history, defaults to a
+   * quarter of the maximum heap size.
+   */
+  public static final String PROPERTY_CAPTURE_CACHE_BUDGET = "nl.lxtreme.ols.client.captureCacheBudget";
 
   // VARIABLES
 
@@ -231,10 +767,12 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
   private final List<Device> devices;
   private final List<Tool<?>> tools;
   private final List<Exporter> exporters;
+  private final List<Importer> importers;
 
   private final EventListenerList evenListeners;
   private final ProgressUpdatingRunnable progressAccumulatingRunnable;
   private final AccumulatingRepaintingRunnable repaintAccumulatingRunnable;
+  private final CursorListenerHelper cursorListenerHelper;
 
   private DataContainer dataContainer;
 
@@ -242,6 +780,19 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
   private volatile DataAcquisitionService dataAcquisitionService;
   private volatile MainFrame mainFrame;
   private volatile HostProperties hostProperties;
+  private volatile List<SearchMatch> searchMatches;
+  private volatile int searchMatchIdx;
+  private SearchWorker searchWorker;
+  private volatile CompareResult compareResult;
+  private CompareWorker compareWorker;
+  private int compareAnnotatedChannels;
+  private SaveProjectWorker saveProjectWorker;
+  private volatile ImportWorker importWorker;
+  private SelectCaptureWorker selectCaptureWorker;
+  private final Timer autosaveTimer;
+  private final PropertyChangeListener autosaveTrigger;
+  private volatile boolean autosaveNeeded;
+  private final CaptureWorkspace captureWorkspace;
 
   // CONSTRUCTORS
 
@@ -262,12 +813,48 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     this.devices = new ArrayList<Device>();
     this.tools = new ArrayList<Tool<?>>();
     this.exporters = new ArrayList<Exporter>();
+    this.importers = new ArrayList<Importer>();
 
     this.evenListeners = new EventListenerList();
     this.actionManager = ActionManagerFactory.createActionManager( this );
 
     this.progressAccumulatingRunnable = new ProgressUpdatingRunnable();
     this.repaintAccumulatingRunnable = new AccumulatingRepaintingRunnable();
+
+    this.cursorListenerHelper = new CursorListenerHelper( aBundleContext );
+
+    this.searchMatches = Collections.emptyList();
+
+    final long defaultBudget = Runtime.getRuntime().maxMemory() / ( 4L * 1024L * 1024L );
+    final long budget = Long.getLong( PROPERTY_CAPTURE_CACHE_BUDGET, defaultBudget ).longValue();
+    this.captureWorkspace = new CaptureWorkspace( new CaptureCache( budget * 1024L * 1024L, null /* spillDir */),
+        MAX_HISTORY_CAPTURES );
+
+    this.autosaveTimer = new Timer( AUTOSAVE_INTERVAL, new ActionListener()
+    {
+      @Override
+      public void actionPerformed( final ActionEvent aEvent )
+      {
+        autosaveProject();
+      }
+    } );
+    this.autosaveTrigger = new PropertyChangeListener()
+    {
+      @Override
+      public void propertyChange( final PropertyChangeEvent aEvent )
+      {
+        // Any property change, except for the changed flag itself, warrants a
+        // new autosave...
+        if ( !ProjectProperties.PROPERTY_CHANGED.equals( aEvent.getPropertyName() ) )
+        {
+          ClientController.this.autosaveNeeded = true;
+        }
+      }
+    };
+
+    // The importers for generic formats are always available...
+    addImporter( new RawBinaryImporter() );
+    addImporter( new CsvSampleImporter() );
   }
 
   // METHODS
@@ -278,6 +865,7 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
   @Override
   public void acquisitionComplete( final AcquisitionResult aData )
   {
+    addToCaptureHistory( String.format( "Capture at %tT", new Date() ), aData );
     setAcquisitionResult( aData );
     // XXX zoom to fit; shouldn't we restore the last zoom settings?
     zoomToFit();
@@ -372,6 +960,25 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Adds a given importer to this controller.
+   * <p>
+   * This method is called by the dependency manager.
+   * </p>
+   * 
+   * @param aImporter
+   *          the importer to add, cannot be <code>null</code>.
+   */
+  public void addImporter( final Importer aImporter )
+  {
+    synchronized ( this.importers )
+    {
+      this.importers.add( aImporter );
+
+      this.actionManager.add( new ImportAction( this, aImporter.getName() ) );
+    }
+  }
+
   /**
    * Adds the given component provider to this controller, and does this
    * synchronously on the EDT.
@@ -424,6 +1031,59 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Defines a virtual channel, derived from the captured channels. A virtual
+   * channel with the same label as an existing one replaces it, otherwise it
+   * is shown on the first unused channel.
+   * 
+   * @param aLabel
+   *          the label of the virtual channel, can be <code>null</code>;
+   * @param aExpression
+   *          the expression defining the virtual channel, cannot be
+   *          <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given expression was invalid, or no unused channel
+   *           is left.
+   */
+  public void addVirtualChannel( final String aLabel, final String aExpression ) throws IllegalArgumentException
+  {
+    final List<VirtualChannel> definitions = new ArrayList<VirtualChannel>( this.dataContainer.getVirtualChannels() );
+
+    int channelIdx = -1;
+    final Iterator<VirtualChannel> iter = definitions.iterator();
+    while ( iter.hasNext() )
+    {
+      final VirtualChannel definition = iter.next();
+      if ( ( aLabel != null ) && aLabel.equalsIgnoreCase( definition.getLabel() ) )
+      {
+        channelIdx = definition.getChannelIndex();
+        iter.remove();
+      }
+    }
+
+    // Fail early in case the expression is not valid...
+    VirtualChannels.parse( aExpression, this.dataContainer.getChannelLabels(), definitions );
+
+    if ( channelIdx < 0 )
+    {
+      final int usedChannels = this.dataContainer.getEnabledChannels();
+      for ( int i = 0; ( channelIdx < 0 ) && ( i < Ols.MAX_CHANNELS ); i++ )
+      {
+        if ( ( usedChannels & ( 1 << i ) ) == 0 )
+        {
+          channelIdx = i;
+        }
+      }
+    }
+    if ( channelIdx < 0 )
+    {
+      throw new IllegalArgumentException( "No unused channel left to show the virtual channel on!" );
+    }
+
+    definitions.add( new VirtualChannel( channelIdx, aLabel, aExpression ) );
+    setVirtualChannels( definitions );
+  }
+
   /**
    * @see nl.lxtreme.ols.client.IClientController#cancelCapture()
    */
@@ -435,6 +1095,13 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
       acquisitionService.cancelAcquisition();
     }
 
+    // Cancelling also applies to a running import...
+    final ImportWorker worker = this.importWorker;
+    if ( worker != null )
+    {
+      worker.cancel( true /* mayInterruptIfRunning */);
+    }
+
     updateActionsOnEDT();
   }
 
@@ -488,8 +1155,8 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     for ( int i = 0; i < Ols.MAX_CURSORS; i++ )
     {
       this.dataContainer.setCursorPosition( i, null );
+      fireCursorChangedEvent( i, -1 ); // removed...
     }
-    fireCursorChangedEvent( 0, -1 ); // removed...
 
     updateActionsOnEDT();
   }
@@ -517,12 +1184,43 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     this.dataContainer.clearChannelAnnotations( aChannelIdx );
   }
 
+  /**
+   * Removes all virtual channels.
+   */
+  public void clearVirtualChannels()
+  {
+    setVirtualChannels( Collections.<VirtualChannel> emptyList() );
+  }
+
+  /**
+   * Reads the given data file and compares the captured data against its
+   * capture, both in the background. Any previous comparison that is still
+   * running is cancelled.
+   * 
+   * @param aFile
+   *          the data file with the capture to compare against, cannot be
+   *          <code>null</code>;
+   * @param aComparator
+   *          the comparator to use, cannot be <code>null</code>.
+   */
+  public void compareWith( final File aFile, final CaptureComparator aComparator )
+  {
+    cancelCompare();
+
+    setStatusOnEDT( "Comparing capture with {0} ...", aFile.getName() );
+
+    this.compareWorker = new CompareWorker( aFile, aComparator );
+    this.compareWorker.execute();
+  }
+
   /**
    * {@inheritDoc}
    */
   public void createNewProject()
   {
     this.projectManager.createNewProject();
+    // The capture history belongs to the previous project...
+    this.captureWorkspace.clear();
 
     if ( this.mainFrame != null )
     {
@@ -537,6 +1235,22 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
    */
   public void exit()
   {
+    this.autosaveTimer.stop();
+
+    // Make sure a pending save is completed before we go down...
+    final SaveProjectWorker worker = this.saveProjectWorker;
+    if ( worker != null )
+    {
+      try
+      {
+        worker.get();
+      }
+      catch ( Exception exception )
+      {
+        LOG.log( Level.WARNING, "Saving project failed while shutting down client!", exception );
+      }
+    }
+
     // Close the main window ourselves; we should do this explicitly...
     if ( this.mainFrame != null )
     {
@@ -568,6 +1282,37 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Exports the result of the last capture comparison as comma-separated
+   * values.
+   * 
+   * @param aExportFile
+   *          the file to export to, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void exportCompareResult( final File aExportFile ) throws IOException
+  {
+    final CompareResult result = this.compareResult;
+    if ( result == null )
+    {
+      return;
+    }
+
+    final FileWriter writer = new FileWriter( aExportFile );
+
+    try
+    {
+      result.write( writer );
+
+      setStatusOnEDT( "Comparison exported to {0} ...", aExportFile.getName() );
+    }
+    finally
+    {
+      HostUtils.closeResource( writer );
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -732,6 +1477,49 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     return exporter.getFilenameExtentions();
   }
 
+  /**
+   * Returns all available importers.
+   * 
+   * @return an array of importer names, never <code>null</code>, but an empty
+   *         array is possible.
+   */
+  public String[] getImporterNames()
+  {
+    final String[] result;
+
+    synchronized ( this.importers )
+    {
+      result = new String[this.importers.size()];
+
+      int i = 0;
+      for ( Importer importer : this.importers )
+      {
+        result[i++] = importer.getName();
+      }
+    }
+    // Make sure we've got a predictable order of names...
+    Arrays.sort( result );
+
+    return result;
+  }
+
+  /**
+   * Returns the filename extensions of the importer with the given name.
+   * 
+   * @param aImporterName
+   *          the name of the importer, cannot be <code>null</code>.
+   * @return an array of extensions, never <code>null</code>.
+   */
+  public String[] getImportExtensions( final String aImporterName )
+  {
+    final Importer importer = getImporter( aImporterName );
+    if ( importer == null )
+    {
+      return new String[0];
+    }
+    return importer.getFilenameExtentions();
+  }
+
   /**
    * Returns the current value of hostProperties.
    * 
@@ -835,6 +1623,32 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Goes to the next match of the last pattern search, wrapping around to the
+   * first match after the last one.
+   */
+  public void gotoNextSearchMatch()
+  {
+    final List<SearchMatch> matches = this.searchMatches;
+    if ( ( this.mainFrame != null ) && !matches.isEmpty() )
+    {
+      gotoSearchMatch( ( this.searchMatchIdx + 1 ) % matches.size() );
+    }
+  }
+
+  /**
+   * Goes to the previous match of the last pattern search, wrapping around to
+   * the last match before the first one.
+   */
+  public void gotoPreviousSearchMatch()
+  {
+    final List<SearchMatch> matches = this.searchMatches;
+    if ( ( this.mainFrame != null ) && !matches.isEmpty() )
+    {
+      gotoSearchMatch( ( this.searchMatchIdx + matches.size() - 1 ) % matches.size() );
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -924,6 +1738,17 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     return this.projectManager.getCurrentProject().isChanged();
   }
 
+  /**
+   * Returns whether or not the current project is being saved.
+   * 
+   * @return <code>true</code> if the current project is being saved,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isSavingProject()
+  {
+    return this.saveProjectWorker != null;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -958,6 +1783,8 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
       final Project tempProject = this.projectManager.createTemporaryProject();
       OlsDataHelper.read( tempProject, reader );
 
+      addToCaptureHistory( aFile.getName(), tempProject.getCapturedData() );
+
       setChannelLabels( tempProject.getChannelLabels() );
       setCursorData( tempProject.getCursorPositions(), tempProject.isCursorsEnabled() );
       setAcquisitionResult( tempProject.getCapturedData() );
@@ -977,29 +1804,59 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
   }
 
   /**
-   * {@inheritDoc}
+   * Imports the given file with the importer with the given name.
+   * <p>
+   * The file is imported asynchronously, and can be cancelled with
+   * {@link #cancelCapture()}. Any errors are reported to the user.
+   * </p>
+   * 
+   * @param aImporterName
+   *          the name of the importer to use, cannot be <code>null</code>;
+   * @param aFile
+   *          the file to import, cannot be <code>null</code>.
    */
-  public void openProjectFile( final File aFile ) throws IOException
+  public void importFrom( final String aImporterName, final File aFile )
   {
-    FileInputStream fis = null;
-
-    try
+    final Importer importer = getImporter( aImporterName );
+    if ( ( importer == null ) || isImporting() )
     {
-      fis = new FileInputStream( aFile );
+      return;
+    }
 
-      this.projectManager.loadProject( fis );
+    final ImportWorker worker = new ImportWorker( importer, aFile );
+    this.importWorker = worker;
+    worker.execute();
 
-      final Project project = this.projectManager.getCurrentProject();
-      project.setFilename( aFile );
+    setStatusOnEDT( "Importing {0} ...", aFile.getName() );
+    updateActionsOnEDT();
+  }
 
-      zoomToFit();
+  /**
+   * Returns whether or not a file is being imported.
+   * 
+   * @return <code>true</code> if an import is in progress, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isImporting()
+  {
+    return this.importWorker != null;
+  }
 
-      setStatusOnEDT( "Project {0} loaded ...", project.getName() );
-    }
-    finally
-    {
-      HostUtils.closeResource( fis );
-    }
+  /**
+   * {@inheritDoc}
+   */
+  public void openProjectFile( final File aFile ) throws IOException
+  {
+    this.projectManager.loadProjectFile( aFile );
+    // The capture history belongs to the previous project...
+    this.captureWorkspace.clear();
+
+    final Project project = this.projectManager.getCurrentProject();
+    project.setFilename( aFile );
+
+    setStatusOnEDT( "Loading project {0} ...", project.getName() );
+
+    new ProjectLoadWorker( project ).execute();
   }
 
   /**
@@ -1054,35 +1911,64 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
         LOG.log( Level.FINE, "No action for device {}?!", deviceName );
       }
     }
-
-    updateActionsOnEDT();
+
+    updateActionsOnEDT();
+  }
+
+  /**
+   * Removes a given exporter from this controller.
+   * <p>
+   * This method is called by the dependency manager.
+   * </p>
+   * 
+   * @param aExporter
+   *          the exporter to remove, cannot be <code>null</code>.
+   */
+  public void removeExporter( final Exporter aExporter )
+  {
+    synchronized ( this.exporters )
+    {
+      this.exporters.remove( aExporter );
+
+      final String exporterName = aExporter.getName();
+
+      try
+      {
+        IManagedAction action = this.actionManager.getAction( ExportAction.getID( exporterName ) );
+        this.actionManager.remove( action );
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        LOG.log( Level.FINE, "No action for exporter {}?!", exporterName );
+      }
+    }
   }
 
   /**
-   * Removes a given exporter from this controller.
+   * Removes a given importer from this controller.
    * <p>
    * This method is called by the dependency manager.
    * </p>
    * 
-   * @param aExporter
-   *          the exporter to remove, cannot be <code>null</code>.
+   * @param aImporter
+   *          the importer to remove, cannot be <code>null</code>.
    */
-  public void removeExporter( final Exporter aExporter )
+  public void removeImporter( final Importer aImporter )
   {
-    synchronized ( this.exporters )
+    synchronized ( this.importers )
     {
-      this.exporters.remove( aExporter );
+      this.importers.remove( aImporter );
 
-      final String exporterName = aExporter.getName();
+      final String importerName = aImporter.getName();
 
       try
       {
-        IManagedAction action = this.actionManager.getAction( ExportAction.getID( exporterName ) );
+        IManagedAction action = this.actionManager.getAction( ImportAction.getID( importerName ) );
         this.actionManager.remove( action );
       }
       catch ( IllegalArgumentException exception )
       {
-        LOG.log( Level.FINE, "No action for exporter {}?!", exporterName );
+        LOG.log( Level.FINE, "No action for importer {}?!", importerName );
       }
     }
   }
@@ -1236,26 +2122,122 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
   }
 
   /**
-   * {@inheritDoc}
+   * Saves the current project under the given name to the given file.
+   * <p>
+   * The project is saved asynchronously: a snapshot of the project is taken,
+   * after which it is written in the background. Any errors are reported to
+   * the user.
+   * </p>
+   * 
+   * @param aName
+   *          the name of the project;
+   * @param aFile
+   *          the file to save the project to, cannot be <code>null</code>.
    */
-  public void saveProjectFile( final String aName, final File aFile ) throws IOException
+  public void saveProjectFile( final String aName, final File aFile )
   {
-    FileOutputStream out = null;
-    try
-    {
-      final Project project = this.projectManager.getCurrentProject();
-      project.setFilename( aFile );
-      project.setName( aName );
+    final Project project = this.projectManager.getCurrentProject();
+    project.setFilename( aFile );
+    project.setName( aName );
+
+    // Take a snapshot on the EDT, and write it in the background...
+    final SaveProjectWorker worker = new SaveProjectWorker( this.projectManager.createSnapshot(), aFile, false );
+    this.saveProjectWorker = worker;
+    worker.execute();
 
-      out = new FileOutputStream( aFile );
-      this.projectManager.saveProject( out );
+    setStatusOnEDT( "Saving project {0} ...", aName );
+    updateActionsOnEDT();
+  }
+
+  /**
+   * Selects the capture with the given index in the capture history, restoring
+   * its captured data, cursors and annotations.
+   * 
+   * @param aIndex
+   *          the index of the capture to select.
+   */
+  public void selectCapture( final int aIndex )
+  {
+    final CaptureWorkspace workspace = this.captureWorkspace;
 
-      setStatusOnEDT( "Project {0} saved ...", aName );
+    final int count = workspace.getCaptureCount();
+    if ( ( aIndex < 0 ) || ( aIndex >= count ) || ( aIndex == workspace.getSelectedIndex() ) )
+    {
+      return;
     }
-    finally
+
+    final CaptureWorkspace.Capture capture = workspace.getCapture( aIndex );
+
+    // The captured data might need to be read back from disk...
+    this.selectCaptureWorker = new SelectCaptureWorker( aIndex, capture );
+    this.selectCaptureWorker.execute();
+  }
+
+  /**
+   * Selects the word of channels of a wide capture that is to be shown and
+   * analysed by the tools.
+   * 
+   * @param aWordIdx
+   *          the index of the word to select, >= 0.
+   */
+  public void selectChannelWord( final int aWordIdx )
+  {
+    if ( ( aWordIdx < 0 ) || ( aWordIdx >= this.dataContainer.getWordCount() )
+        || ( aWordIdx == this.dataContainer.getSelectedWord() ) )
     {
-      HostUtils.closeResource( out );
+      return;
     }
+
+    this.dataContainer.setSelectedWord( aWordIdx );
+    // Other channels are shown, so previous results no longer apply...
+    cancelSearch();
+    cancelCompare();
+    this.searchMatches = Collections.emptyList();
+    this.compareResult = null;
+    this.compareAnnotatedChannels = 0;
+
+    final int offset = this.dataContainer.getChannelOffset();
+    setStatusOnEDT( "Showing channels {0} to {1} ...", Integer.valueOf( offset ),
+        Integer.valueOf( offset + this.dataContainer.getChannels() - 1 ) );
+
+    // The number of shown channels might have changed...
+    zoomToFit();
+  }
+
+  /**
+   * Selects the next capture in the capture history, if any.
+   */
+  public void selectNextCapture()
+  {
+    selectCapture( this.captureWorkspace.getSelectedIndex() + 1 );
+  }
+
+  /**
+   * Selects the previous capture in the capture history, if any.
+   */
+  public void selectPreviousCapture()
+  {
+    selectCapture( this.captureWorkspace.getSelectedIndex() - 1 );
+  }
+
+  /**
+   * Searches the captured data in the background for all matches of the given
+   * search condition. Any previous search that is still running is cancelled.
+   * 
+   * @param aCondition
+   *          the condition to search for, cannot be <code>null</code>.
+   */
+  public void searchPattern( final SearchCondition aCondition )
+  {
+    cancelSearch();
+
+    this.searchMatches = Collections.emptyList();
+    updateActionsOnEDT();
+
+    setStatusOnEDT( "Searching for pattern ..." );
+
+    this.searchWorker = new SearchWorker( aCondition );
+    this.searchWorker.execute();
   }
 
   /**
@@ -1310,6 +2292,22 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     updateActionsOnEDT();
   }
 
+  /**
+   * Lets the importer with the given name ask the user for its settings.
+   * 
+   * @param aImporterName
+   *          the name of the importer to set up, cannot be <code>null</code>;
+   * @param aOwner
+   *          the owning window of any dialog shown.
+   * @return <code>true</code> if the import can continue, <code>false</code>
+   *         if the user cancelled it.
+   */
+  public boolean setupImport( final String aImporterName, final Window aOwner )
+  {
+    final Importer importer = getImporter( aImporterName );
+    return ( importer != null ) && importer.setupImport( aOwner );
+  }
+
   /**
    * Shows the "about OLS" dialog on screen. the parent window to use, can be
    * <code>null</code>.
@@ -1397,6 +2395,8 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
 
     initOSSpecifics( hostProperties.getShortName() );
 
+    this.cursorListenerHelper.open();
+
     // Make sure we're running on the EDT to ensure the Swing threading model is
     // correctly defined...
     SwingUtilities.invokeLater( new Runnable()
@@ -1414,9 +2414,19 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
         mainFrame.setTitle( hostProperties.getFullName() );
         mainFrame.setStatus( "{0} v{1} ready ...", hostProperties.getShortName(), hostProperties.getVersion() );
 
+        final File autosaveFile = getAutosaveFile();
+        if ( autosaveFile.exists() )
+        {
+          mainFrame.setStatus( "Autosaved project available in {0} ...", autosaveFile );
+        }
+
+        ClientController.this.autosaveTimer.start();
+
         LOG.info( "Client started ..." );
 
         mainFrame.setVisible( true );
+
+        StartupTimer.resume().phase( "ui.shown" );
       }
     } );
   }
@@ -1427,6 +2437,11 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
    */
   public void stop()
   {
+    this.cursorListenerHelper.close();
+
+    this.autosaveTimer.stop();
+    this.captureWorkspace.close();
+
     // Make sure we're running on the EDT to ensure the Swing threading model is
     // correctly defined...
     SwingUtilities.invokeLater( new Runnable()
@@ -1510,6 +2525,34 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     updateActionsOnEDT();
   }
 
+  /**
+   * Autosaves the current project in the background, if it is changed since
+   * it was last (auto)saved.
+   */
+  final void autosaveProject()
+  {
+    if ( !this.autosaveNeeded || isSavingProject() || !isProjectChanged() )
+    {
+      return;
+    }
+    this.autosaveNeeded = false;
+
+    final SaveProjectWorker worker = new SaveProjectWorker( this.projectManager.createSnapshot(), getAutosaveFile(),
+        true /* autosave */);
+    this.saveProjectWorker = worker;
+    worker.execute();
+  }
+
+  /**
+   * Returns the file to which changed projects are autosaved.
+   * 
+   * @return the autosave file, never <code>null</code>.
+   */
+  final File getAutosaveFile()
+  {
+    return HostUtils.createLocalDataFile( "ols.autosave", OpenProjectAction.OLS_PROJECT_EXTENSION );
+  }
+
   /**
    * Returns the current main frame.
    * 
@@ -1544,6 +2587,10 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     {
       this.projectManager.removePropertyChangeListener( this.mainFrame );
     }
+    if ( this.projectManager != null )
+    {
+      this.projectManager.removePropertyChangeListener( this.autosaveTrigger );
+    }
 
     this.projectManager = null;
     this.dataContainer = null;
@@ -1579,7 +2626,12 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     {
       this.projectManager.removePropertyChangeListener( this.mainFrame );
     }
+    if ( this.projectManager != null )
+    {
+      this.projectManager.removePropertyChangeListener( this.autosaveTrigger );
+    }
     this.projectManager = aProjectManager;
+    this.projectManager.addPropertyChangeListener( this.autosaveTrigger );
     this.dataContainer = new DataContainer( this.projectManager );
   }
 
@@ -1618,11 +2670,18 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
         final boolean deviceControllerSet = ( device != null );
         final boolean deviceCapturing = ( acquisitionService != null ) && acquisitionService.isAcquiring();
         final boolean deviceSetup = deviceControllerSet && !deviceCapturing && device.isSetup();
+        final boolean importing = isImporting();
 
         getAction( CaptureAction.ID ).setEnabled( deviceControllerSet );
-        getAction( CancelCaptureAction.ID ).setEnabled( deviceCapturing );
+        getAction( CancelCaptureAction.ID ).setEnabled( deviceCapturing || importing );
         getAction( RepeatCaptureAction.ID ).setEnabled( deviceSetup );
 
+        final int selectedCapture = ClientController.this.captureWorkspace.getSelectedIndex();
+        final int captureCount = ClientController.this.captureWorkspace.getCaptureCount();
+        getAction( SelectPreviousCaptureAction.ID ).setEnabled( selectedCapture > 0 );
+        getAction( SelectNextCaptureAction.ID ).setEnabled( ( selectedCapture >= 0 )
+            && ( selectedCapture < ( captureCount - 1 ) ) );
+
         final boolean projectChanged = isProjectChanged();
         final boolean projectSavedBefore = !isAnonymousProject();
         final boolean dataAvailable = hasCapturedData();
@@ -1630,8 +2689,10 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
         final boolean cursorsEnabled = areCursorsEnabled();
         final boolean enableCursors = dataAvailable && cursorsEnabled;
 
-        getAction( SaveProjectAction.ID ).setEnabled( projectChanged );
-        getAction( SaveProjectAsAction.ID ).setEnabled( projectSavedBefore && projectChanged );
+        final boolean projectSaving = isSavingProject();
+
+        getAction( SaveProjectAction.ID ).setEnabled( projectChanged && !projectSaving );
+        getAction( SaveProjectAsAction.ID ).setEnabled( projectSavedBefore && projectChanged && !projectSaving );
         getAction( SaveDataFileAction.ID ).setEnabled( dataAvailable );
 
         getAction( ZoomInAction.ID ).setEnabled( dataAvailable );
@@ -1641,6 +2702,17 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
 
         getAction( GotoTriggerAction.ID ).setEnabled( triggerEnable );
 
+        final boolean searchMatchesFound = dataAvailable && hasSearchMatches();
+        getAction( SearchPatternAction.ID ).setEnabled( dataAvailable );
+        getAction( FindNextMatchAction.ID ).setEnabled( searchMatchesFound );
+        getAction( FindPreviousMatchAction.ID ).setEnabled( searchMatchesFound );
+
+        getAction( CompareCaptureAction.ID ).setEnabled( dataAvailable );
+        getAction( ExportCompareResultAction.ID ).setEnabled( dataAvailable && hasCompareResult() );
+
+        getAction( AddVirtualChannelAction.ID ).setEnabled( dataAvailable );
+        getAction( RemoveVirtualChannelsAction.ID ).setEnabled( dataAvailable && hasVirtualChannels() );
+
         // Update the cursor actions accordingly...
         getAction( SetCursorModeAction.ID ).setEnabled( dataAvailable );
         getAction( SetCursorModeAction.ID ).putValue( Action.SELECTED_KEY, Boolean.valueOf( cursorsEnabled ) );
@@ -1678,6 +2750,13 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
         {
           exportAction.setEnabled( dataAvailable );
         }
+
+        // Update the importers...
+        final IManagedAction[] importActions = getActionsByType( ImportAction.class );
+        for ( final IManagedAction importAction : importActions )
+        {
+          importAction.setEnabled( !importing );
+        }
       }
     } );
   }
@@ -1728,6 +2807,39 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     return this.dataContainer.hasCapturedData();
   }
 
+  /**
+   * Returns whether or not there is a result of a capture comparison.
+   * 
+   * @return <code>true</code> if there is a comparison result,
+   *         <code>false</code> otherwise.
+   */
+  protected boolean hasCompareResult()
+  {
+    return this.compareResult != null;
+  }
+
+  /**
+   * Returns whether or not any virtual channels are defined.
+   * 
+   * @return <code>true</code> if there are virtual channels,
+   *         <code>false</code> otherwise.
+   */
+  protected boolean hasVirtualChannels()
+  {
+    return !this.dataContainer.getVirtualChannels().isEmpty();
+  }
+
+  /**
+   * Returns whether or not the last pattern search yielded any matches.
+   * 
+   * @return <code>true</code> if there are search matches, <code>false</code>
+   *         otherwise.
+   */
+  protected boolean hasSearchMatches()
+  {
+    return !this.searchMatches.isEmpty();
+  }
+
   /**
    * Returns whether or not there is trigger data available.
    * 
@@ -1776,6 +2888,32 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     return this.dataContainer.isCursorPositionSet( aCursorIdx );
   }
 
+  /**
+   * Cancels the capture comparison that is still running, if any, ensuring
+   * its results are never applied.
+   */
+  private void cancelCompare()
+  {
+    if ( this.compareWorker != null )
+    {
+      this.compareWorker.cancel( true /* mayInterruptIfRunning */);
+      this.compareWorker = null;
+    }
+  }
+
+  /**
+   * Cancels the pattern search that is still running, if any, ensuring its
+   * results are never applied.
+   */
+  private void cancelSearch()
+  {
+    if ( this.searchWorker != null )
+    {
+      this.searchWorker.cancel( true /* mayInterruptIfRunning */);
+      this.searchWorker = null;
+    }
+  }
+
   /**
    * Creates the tool context denoting the range of samples that should be
    * analysed by a tool.
@@ -1859,6 +2997,17 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
         listener.cursorRemoved( aCursorIdx );
       }
     }
+
+    // Notify all (external) cursor listeners, such as tools...
+    final Long cursorPosition = this.dataContainer.getCursorPosition( aCursorIdx );
+    if ( ( aMouseXpos >= 0 ) && ( cursorPosition != null ) )
+    {
+      this.cursorListenerHelper.cursorChanged( aCursorIdx, cursorPosition.longValue() );
+    }
+    else
+    {
+      this.cursorListenerHelper.cursorRemoved( aCursorIdx );
+    }
   }
 
   /**
@@ -1907,6 +3056,24 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     return null;
   }
 
+  /**
+   * Returns the importer with the given name, or <code>null</code> if none.
+   */
+  private Importer getImporter( final String aName )
+  {
+    synchronized ( this.importers )
+    {
+      for ( Importer importer : this.importers )
+      {
+        if ( aName.equals( importer.getName() ) )
+        {
+          return importer;
+        }
+      }
+    }
+    return null;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -1925,6 +3092,24 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     return null;
   }
 
+  /**
+   * Goes to the search match with the given index.
+   * 
+   * @param aMatchIdx
+   *          the index of the search match to go to, >= 0.
+   */
+  private void gotoSearchMatch( final int aMatchIdx )
+  {
+    final List<SearchMatch> matches = this.searchMatches;
+
+    this.searchMatchIdx = aMatchIdx;
+
+    final SearchMatch match = matches.get( aMatchIdx );
+    this.mainFrame.gotoPosition( match.getStartTime() );
+
+    setStatusOnEDT( "Match {0} of {1} ...", Integer.valueOf( aMatchIdx + 1 ), Integer.valueOf( matches.size() ) );
+  }
+
   /**
    * Initializes the OS-specific stuff.
    * 
@@ -2005,6 +3190,24 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Adds the given captured data to the capture history, after retaining the
+   * state of the currently selected capture.
+   * 
+   * @param aName
+   *          the name of the capture;
+   * @param aData
+   *          the captured data to add, can be <code>null</code>.
+   */
+  private void addToCaptureHistory( final String aName, final AcquisitionResult aData )
+  {
+    if ( aData != null )
+    {
+      storeCaptureState();
+      new CaptureHistoryWorker( aName, aData ).execute();
+    }
+  }
+
   /**
    * Sets the captured data and zooms the view to show all the data.
    * 
@@ -2014,6 +3217,12 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
   private void setAcquisitionResult( final AcquisitionResult aData )
   {
     this.dataContainer.setCapturedData( aData );
+    // Previous search results no longer apply to the new data...
+    cancelSearch();
+    cancelCompare();
+    this.searchMatches = Collections.emptyList();
+    this.compareResult = null;
+    this.compareAnnotatedChannels = 0;
   }
 
   /**
@@ -2031,6 +3240,31 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Sets the virtual channels, and updates the signal display accordingly.
+   * 
+   * @param aDefinitions
+   *          the virtual channels to set, cannot be <code>null</code>.
+   */
+  private void setVirtualChannels( final List<VirtualChannel> aDefinitions )
+  {
+    this.dataContainer.setVirtualChannels( aDefinitions );
+    // The sample indices have changed, so previous results no longer apply...
+    cancelSearch();
+    cancelCompare();
+    this.searchMatches = Collections.emptyList();
+    this.compareResult = null;
+    this.compareAnnotatedChannels = 0;
+
+    if ( this.mainFrame != null )
+    {
+      this.mainFrame.setChannelLabels( this.dataContainer.getChannelLabels() );
+    }
+
+    updateActionsOnEDT();
+    repaintMainFrame();
+  }
+
   /**
    * @param aCursorData
    *          the cursor positions to set, cannot be <code>null</code>;
@@ -2047,6 +3281,134 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Shows the given captured data of the capture with the given index in the
+   * capture history, restoring its cursors and annotations.
+   * 
+   * @param aIndex
+   *          the index of the capture to show;
+   * @param aCapture
+   *          the capture to show;
+   * @param aData
+   *          the captured data of the capture to show.
+   */
+  private void showCapture( final int aIndex, final CaptureWorkspace.Capture aCapture, final AcquisitionResult aData )
+  {
+    final CaptureWorkspace workspace = this.captureWorkspace;
+    if ( ( aIndex >= workspace.getCaptureCount() ) || ( workspace.getCapture( aIndex ) != aCapture ) )
+    {
+      // The capture history has changed in the meantime...
+      return;
+    }
+
+    storeCaptureState();
+    workspace.select( aIndex );
+
+    setAcquisitionResult( aData );
+    for ( Map.Entry<Integer, ChannelAnnotations> entry : aCapture.getChannelAnnotations().entrySet() )
+    {
+      this.dataContainer.setChannelAnnotations( entry.getKey().intValue(), entry.getValue() );
+    }
+    setCursorData( aCapture.getCursorPositions(), aCapture.isCursorsEnabled() );
+
+    zoomToFit();
+
+    setStatusOnEDT( "Showing capture {0} of {1}: {2} ...", Integer.valueOf( aIndex + 1 ),
+        Integer.valueOf( workspace.getCaptureCount() ), aCapture.getName() );
+
+    updateActionsOnEDT();
+  }
+
+  /**
+   * Retains the cursors and annotations of the current captured data in the
+   * selected capture of the capture history.
+   */
+  private void storeCaptureState()
+  {
+    final CaptureWorkspace.Capture capture = this.captureWorkspace.getSelectedCapture();
+    if ( ( capture != null ) && ( this.dataContainer != null ) )
+    {
+      final Project project = this.projectManager.getCurrentProject();
+      capture.setCursors( project.getCursorPositions(), project.isCursorsEnabled() );
+      capture.setChannelAnnotations( this.dataContainer.getChannelAnnotations() );
+    }
+  }
+
+  /**
+   * Sets the result of the last capture comparison. All mismatches are
+   * annotated in the diagram, and can be navigated like search matches.
+   * 
+   * @param aResult
+   *          the comparison result to set, can be <code>null</code>.
+   */
+  private void setCompareResult( final CompareResult aResult )
+  {
+    this.compareResult = aResult;
+
+    // Remove the annotations of a previous comparison, but not those of any
+    // tool...
+    for ( int i = 0; i < Ols.MAX_CHANNELS; i++ )
+    {
+      if ( ( this.compareAnnotatedChannels & ( 1 << i ) ) != 0 )
+      {
+        this.dataContainer.removeChannelAnnotations( i, MISMATCH_ANNOTATION );
+      }
+    }
+    this.compareAnnotatedChannels = 0;
+
+    if ( ( aResult == null ) || aResult.isEqual() )
+    {
+      this.searchMatches = Collections.emptyList();
+      setStatusOnEDT( ( aResult == null ) ? "Nothing to compare ..." : "Captures are equal ..." );
+      updateActionsOnEDT();
+      repaintMainFrame();
+      return;
+    }
+
+    final List<CompareMismatch> mismatches = aResult.getMismatches();
+    final List<SearchMatch> matches = new ArrayList<SearchMatch>( mismatches.size() );
+    for ( CompareMismatch mismatch : mismatches )
+    {
+      final int startIdx = this.dataContainer.getSampleIndex( mismatch.getStartTime() );
+      final int endIdx = Math.max( startIdx, this.dataContainer.getSampleIndex( mismatch.getEndTime() - 1L ) );
+
+      if ( matches.size() < MAX_MISMATCH_ANNOTATIONS )
+      {
+        this.dataContainer.addChannelAnnotation( mismatch.getChannel(), startIdx, endIdx, MISMATCH_ANNOTATION );
+        this.compareAnnotatedChannels |= ( 1 << mismatch.getChannel() );
+      }
+
+      matches.add( new SearchMatch( startIdx, endIdx, mismatch.getStartTime(), mismatch.getEndTime() ) );
+    }
+
+    setSearchMatches( matches );
+    repaintMainFrame();
+  }
+
+  /**
+   * Sets the matches of the last pattern search and goes to the first match,
+   * if any.
+   * 
+   * @param aMatches
+   *          the search matches to set, cannot be <code>null</code>.
+   */
+  private void setSearchMatches( final List<SearchMatch> aMatches )
+  {
+    this.searchMatches = aMatches;
+    this.searchMatchIdx = 0;
+
+    if ( aMatches.isEmpty() )
+    {
+      setStatusOnEDT( "No matches found ..." );
+    }
+    else if ( this.mainFrame != null )
+    {
+      gotoSearchMatch( 0 );
+    }
+
+    updateActionsOnEDT();
+  }
+
   /**
    * @param aLookAndFeelClass
    */
@@ -33,6 +33,7 @@ import javax.swing.*;
 import javax.swing.event.*;
 
 import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.client.about.*;
 import nl.lxtreme.ols.client.action.*;
 import nl.lxtreme.ols.client.data.project.*;
@@ -227,6 +228,97 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     }
   }
 
+  /**
+   * Provides a builder for building the channel word menu upon selection of
+   * the menu.
+   */
+  static class ChannelWordMenuBuilder extends AbstractMenuBuilder
+  {
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new MainFrame.ChannelWordMenuBuilder instance.
+     */
+    public ChannelWordMenuBuilder( final ClientController aController )
+    {
+      super( aController );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void menuSelected( final MenuEvent aEvent )
+    {
+      super.menuSelected( aEvent );
+
+      // Existing menu items are retained, so their selection needs an update...
+      final JMenu menu = ( JMenu )aEvent.getSource();
+      final String selectedName = SelectChannelWordAction.getName( getSelectedWord() );
+      for ( int i = 0, size = menu.getItemCount(); i < size; i++ )
+      {
+        final JMenuItem item = menu.getItem( i );
+        if ( item instanceof JRadioButtonMenuItem )
+        {
+          item.setSelected( selectedName.equals( item.getText() ) );
+        }
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected JMenuItem createMenuItem( final String aWordName )
+    {
+      final String[] names = getMenuItemNames();
+      final int wordIdx = Arrays.asList( names ).indexOf( aWordName );
+      return new JRadioButtonMenuItem( new SelectChannelWordAction( this.controller, wordIdx ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String[] getMenuItemNames()
+    {
+      final DataContainer dataContainer = this.controller.getDataContainer();
+      if ( !dataContainer.hasCapturedData() )
+      {
+        return new String[0];
+      }
+
+      final String[] result = new String[dataContainer.getWordCount()];
+      for ( int i = 0; i < result.length; i++ )
+      {
+        result[i] = SelectChannelWordAction.getName( i );
+      }
+      return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getNoItemsName()
+    {
+      return "No captured data.";
+    }
+
+    /**
+     * Returns the index of the currently shown word of channels.
+     * 
+     * @return a word index, >= 0.
+     */
+    private int getSelectedWord()
+    {
+      final DataContainer dataContainer = this.controller.getDataContainer();
+      return dataContainer.hasCapturedData() ? dataContainer.getSelectedWord() : 0;
+    }
+  }
+
   /**
    * Provides a builder for building the devices menu upon selection of the
    * menu.
@@ -333,6 +425,47 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     }
   }
 
+  /**
+   * Provides a builder for building the import menu upon selection of the menu.
+   */
+  static class ImportMenuBuilder extends AbstractMenuBuilder
+  {
+    /**
+     * Creates a new MainFrame.ImportMenuBuilder instance.
+     */
+    public ImportMenuBuilder( final ClientController aController )
+    {
+      super( aController );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected JMenuItem createMenuItem( final String aImporterName )
+    {
+      return new JMenuItem( new ImportAction( this.controller, aImporterName ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String[] getMenuItemNames()
+    {
+      return this.controller.getImporterNames();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getNoItemsName()
+    {
+      return "No importers.";
+    }
+  }
+
   /**
    * Listens to window-close events for our main frame, explicitly invoking code
    * to close it on all platforms.
@@ -449,10 +582,12 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
   private final Diagram diagram;
   private final JTextStatusBar status;
 
+  private JMenu channelWordMenu;
   private JMenu deviceMenu;
   private JMenu toolsMenu;
   private JMenu windowMenu;
   private JMenu exportMenu;
+  private JMenu importMenu;
 
   private volatile String lastSelectedDeviceName;
 
@@ -749,6 +884,10 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     this.exportMenu.setMnemonic( 'e' );
     this.exportMenu.addMenuListener( new ExportMenuBuilder( this.controller ) );
 
+    this.importMenu = new JMenu( "Import ..." );
+    this.importMenu.setMnemonic( 'i' );
+    this.importMenu.addMenuListener( new ImportMenuBuilder( this.controller ) );
+
     final JMenu fileMenu = new JMenu( "File" );
     fileMenu.setMnemonic( 'F' );
     bar.add( fileMenu );
@@ -761,6 +900,7 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     fileMenu.add( this.controller.getAction( OpenDataFileAction.ID ) );
     fileMenu.add( this.controller.getAction( SaveDataFileAction.ID ) );
     fileMenu.addSeparator();
+    fileMenu.add( this.importMenu );
     fileMenu.add( this.exportMenu );
 
     final HostInfo hostInfo = HostUtils.getHostInfo();
@@ -788,8 +928,15 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     captureMenu.add( this.controller.getAction( RepeatCaptureAction.ID ) );
     captureMenu.add( this.controller.getAction( CancelCaptureAction.ID ) );
     captureMenu.addSeparator();
+    captureMenu.add( this.controller.getAction( SelectPreviousCaptureAction.ID ) );
+    captureMenu.add( this.controller.getAction( SelectNextCaptureAction.ID ) );
+    captureMenu.addSeparator();
     captureMenu.add( this.deviceMenu );
 
+    this.channelWordMenu = new JMenu( "Show channels" );
+    this.channelWordMenu.setMnemonic( 'h' );
+    this.channelWordMenu.addMenuListener( new ChannelWordMenuBuilder( this.controller ) );
+
     final JMenu diagramMenu = bar.add( new JMenu( "Diagram" ) );
     diagramMenu.setMnemonic( 'D' );
 
@@ -798,6 +945,8 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     diagramMenu.add( this.controller.getAction( ZoomDefaultAction.ID ) );
     diagramMenu.add( this.controller.getAction( ZoomFitAction.ID ) );
     diagramMenu.addSeparator();
+    diagramMenu.add( this.channelWordMenu );
+    diagramMenu.addSeparator();
     diagramMenu.add( this.controller.getAction( GotoTriggerAction.ID ) );
     diagramMenu.add( this.controller.getAction( GotoFirstCursorAction.ID ) );
     diagramMenu.add( this.controller.getAction( GotoLastCursorAction.ID ) );
@@ -809,6 +958,16 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     diagramMenu.add( new JCheckBoxMenuItem( this.controller.getAction( SetCursorModeAction.ID ) ) );
     diagramMenu.add( this.controller.getAction( ClearCursors.ID ) );
     diagramMenu.addSeparator();
+    diagramMenu.add( this.controller.getAction( SearchPatternAction.ID ) );
+    diagramMenu.add( this.controller.getAction( FindNextMatchAction.ID ) );
+    diagramMenu.add( this.controller.getAction( FindPreviousMatchAction.ID ) );
+    diagramMenu.addSeparator();
+    diagramMenu.add( this.controller.getAction( CompareCaptureAction.ID ) );
+    diagramMenu.add( this.controller.getAction( ExportCompareResultAction.ID ) );
+    diagramMenu.addSeparator();
+    diagramMenu.add( this.controller.getAction( AddVirtualChannelAction.ID ) );
+    diagramMenu.add( this.controller.getAction( RemoveVirtualChannelsAction.ID ) );
+    diagramMenu.addSeparator();
     diagramMenu.add( this.controller.getAction( RemoveAnnotationsAction.ID ) );
     diagramMenu.addSeparator();
     diagramMenu.add( this.controller.getAction( ShowDiagramModeSettingsDialogAction.ID ) );
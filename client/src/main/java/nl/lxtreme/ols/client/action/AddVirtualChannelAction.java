@@ -0,0 +1,118 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import java.awt.*;
+import java.awt.event.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.client.*;
+import nl.lxtreme.ols.util.swing.*;
+
+
+/**
+ * Provides an action that defines a virtual channel, derived from the
+ * captured channels.
+ */
+public class AddVirtualChannelAction extends BaseAction
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String ID = "AddVirtualChannel";
+
+  private static final String SYNTAX_HELP = "<html>Enter the virtual channel as <tt>[label =] expression</tt>, " //
+      + "for example:<ul>" //
+      + "<li><tt>SEL = CS1 &amp; !CS2</tt> &ndash; logic combination of the channels labeled CS1 and CS2;</li>" //
+      + "<li><tt>ch0 ^ ch1</tt> &ndash; exclusive or of channels 0 and 1 (also: <tt>|</tt>, <tt>~</tt>);</li>" //
+      + "<li><tt>deglitch(ch3, 3)</tt> &ndash; channel 3 without pulses shorter than 3 samples;</li>" //
+      + "<li><tt>delay(ch2, 10)</tt> &ndash; channel 2 delayed by 10 samples.</li>" //
+      + "</ul>The virtual channel is shown on the first unused channel.</html>";
+
+  // VARIABLES
+
+  private String lastDefinition = "";
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new AddVirtualChannelAction instance.
+   * 
+   * @param aController
+   *          the controller to use for this action.
+   */
+  public AddVirtualChannelAction( final ClientController aController )
+  {
+    super( ID, aController, "Define virtual channel ...", "Define a channel derived from the captured channels" );
+  }
+
+  // METHODS
+
+  /**
+   * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    final Window owner = SwingComponentUtils.getOwningWindow( aEvent );
+
+    String definition = this.lastDefinition;
+    boolean defined = false;
+    while ( !defined )
+    {
+      definition = ( String )JOptionPane.showInputDialog( owner, SYNTAX_HELP, "Define virtual channel ...",
+          JOptionPane.QUESTION_MESSAGE, null, null, definition );
+      if ( definition == null )
+      {
+        // Cancelled by user...
+        return;
+      }
+
+      String label = null;
+      String expression = definition;
+
+      final int eqIdx = definition.indexOf( '=' );
+      if ( eqIdx >= 0 )
+      {
+        label = definition.substring( 0, eqIdx ).trim();
+        expression = definition.substring( eqIdx + 1 );
+      }
+
+      try
+      {
+        getController().addVirtualChannel( "".equals( label ) ? null : label, expression );
+        defined = true;
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        JOptionPane.showMessageDialog( owner, exception.getMessage(), "Invalid virtual channel",
+            JOptionPane.ERROR_MESSAGE );
+      }
+    }
+
+    this.lastDefinition = definition;
+  }
+}
+
+/* EOF */
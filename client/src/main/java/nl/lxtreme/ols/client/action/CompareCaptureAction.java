@@ -0,0 +1,207 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import static nl.lxtreme.ols.util.swing.SwingComponentUtils.*;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import java.util.logging.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.compare.*;
+import nl.lxtreme.ols.client.*;
+import nl.lxtreme.ols.util.swing.*;
+
+
+/**
+ * Provides an action that compares the captured data against the capture of
+ * another data file.
+ */
+public class CompareCaptureAction extends BaseAction
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Logger LOG = Logger.getLogger( CompareCaptureAction.class.getName() );
+
+  public static final String ID = "CompareCapture";
+
+  private static final String[] ALIGNMENTS = { "None", "Trigger position", "First rising edge", "First falling edge" };
+
+  // VARIABLES
+
+  private int lastAlignment = 1;
+  private int lastAlignmentChannel = 0;
+  private int lastTolerance = 0;
+  private String lastMapping = "";
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CompareCaptureAction instance.
+   * 
+   * @param aController
+   *          the controller to use for this action.
+   */
+  public CompareCaptureAction( final ClientController aController )
+  {
+    super( ID, aController, "Compare with capture ...", "Compare the captured data with another data file" );
+  }
+
+  // METHODS
+
+  /**
+   * Parses a channel mapping in the form of "0=8, 1=9", and applies it to the
+   * given comparator.
+   * 
+   * @throws IllegalArgumentException
+   *           in case the given mapping is invalid.
+   */
+  static void applyChannelMapping( final CaptureComparator aComparator, final String aMapping )
+  {
+    final String mapping = aMapping.trim();
+    if ( mapping.isEmpty() )
+    {
+      return;
+    }
+
+    for ( String pair : mapping.split( "\\s*,\\s*" ) )
+    {
+      final String[] channels = pair.split( "\\s*=\\s*" );
+      if ( channels.length != 2 )
+      {
+        throw new IllegalArgumentException( "Invalid channel mapping: " + pair );
+      }
+      try
+      {
+        aComparator.setChannelMapping( Integer.parseInt( channels[0].trim() ), Integer.parseInt( channels[1].trim() ) );
+      }
+      catch ( NumberFormatException exception )
+      {
+        throw new IllegalArgumentException( "Invalid channel mapping: " + pair );
+      }
+    }
+  }
+
+  /**
+   * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    final Window owner = SwingComponentUtils.getOwningWindow( aEvent );
+
+    final CaptureComparator comparator = showOptionsDialog( owner );
+    if ( comparator == null )
+    {
+      // Cancelled by user...
+      return;
+    }
+
+    final File file = SwingComponentUtils.showFileOpenDialog( owner, OpenDataFileAction.OLS_FILEFILTER );
+    if ( file != null )
+    {
+      LOG.log( Level.INFO, "Comparing capture data with file {0}", file );
+
+      getController().compareWith( file, comparator );
+    }
+  }
+
+  /**
+   * Shows the comparison options to the user.
+   * 
+   * @return the comparator with the chosen options, or <code>null</code> if
+   *         the user cancelled the dialog.
+   */
+  private CaptureComparator showOptionsDialog( final Window aOwner )
+  {
+    final JComboBox alignment = new JComboBox( ALIGNMENTS );
+    alignment.setSelectedIndex( this.lastAlignment );
+    final JSpinner alignmentChannel = new JSpinner( new SpinnerNumberModel( this.lastAlignmentChannel, 0, 31, 1 ) );
+    final JSpinner tolerance = new JSpinner( new SpinnerNumberModel( this.lastTolerance, 0, Integer.MAX_VALUE, 1 ) );
+    final JTextField mapping = new JTextField( this.lastMapping, 15 );
+    mapping.setToolTipText( "Maps channels of this capture onto channels of the other capture, e.g.: 0=8, 1=9" );
+
+    final JPanel editorsPane = new JPanel( new SpringLayout() );
+    editorsPane.add( createRightAlignedLabel( "Align on" ) );
+    editorsPane.add( alignment );
+    editorsPane.add( createRightAlignedLabel( "Alignment channel" ) );
+    editorsPane.add( alignmentChannel );
+    editorsPane.add( createRightAlignedLabel( "Edge tolerance (samples)" ) );
+    editorsPane.add( tolerance );
+    editorsPane.add( createRightAlignedLabel( "Channel mapping" ) );
+    editorsPane.add( mapping );
+
+    SpringLayoutUtils.makeEditorGrid( editorsPane, 10, 10 );
+
+    while ( true )
+    {
+      final int choice = JOptionPane.showConfirmDialog( aOwner, editorsPane, "Compare with capture ...",
+          JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE );
+      if ( choice != JOptionPane.OK_OPTION )
+      {
+        return null;
+      }
+
+      this.lastAlignment = alignment.getSelectedIndex();
+      this.lastAlignmentChannel = ( ( Number )alignmentChannel.getValue() ).intValue();
+      this.lastTolerance = ( ( Number )tolerance.getValue() ).intValue();
+      this.lastMapping = mapping.getText();
+
+      try
+      {
+        final CaptureComparator result = new CaptureComparator();
+        result.setTolerance( this.lastTolerance );
+        applyChannelMapping( result, this.lastMapping );
+
+        switch ( this.lastAlignment )
+        {
+          case 1:
+            result.setAlignOnTrigger();
+            break;
+          case 2:
+            result.setAlignOnEdge( this.lastAlignmentChannel, Edge.RISING );
+            break;
+          case 3:
+            result.setAlignOnEdge( this.lastAlignmentChannel, Edge.FALLING );
+            break;
+          default:
+            result.setAlignNone();
+            break;
+        }
+
+        return result;
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        JOptionPane.showMessageDialog( aOwner, exception.getMessage(), "Invalid options", JOptionPane.ERROR_MESSAGE );
+      }
+    }
+  }
+}
+
+/* EOF */
@@ -0,0 +1,102 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import java.util.logging.*;
+
+import javax.swing.filechooser.*;
+import javax.swing.filechooser.FileFilter;
+
+import nl.lxtreme.ols.client.*;
+import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.swing.*;
+import nl.lxtreme.ols.util.swing.component.*;
+
+
+/**
+ * Provides an action that exports the result of the last capture comparison.
+ */
+public class ExportCompareResultAction extends BaseAction
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Logger LOG = Logger.getLogger( ExportCompareResultAction.class.getName() );
+
+  public static final String ID = "ExportCompareResult";
+
+  private static final String CSV_FILE_EXTENSION = "csv";
+  private static final FileFilter CSV_FILEFILTER = new FileNameExtensionFilter( "Comma-separated values file",
+      CSV_FILE_EXTENSION );
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ExportCompareResultAction instance.
+   * 
+   * @param aController
+   *          the controller to use for this action.
+   */
+  public ExportCompareResultAction( final ClientController aController )
+  {
+    super( ID, aController, "Export comparison ...", "Export the mismatches of the last capture comparison" );
+  }
+
+  // METHODS
+
+  /**
+   * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    final Window owner = SwingComponentUtils.getOwningWindow( aEvent );
+
+    final File file = SwingComponentUtils.showFileSaveDialog( owner, CSV_FILEFILTER );
+    if ( file != null )
+    {
+      final File actualFile = HostUtils.setFileExtension( file, CSV_FILE_EXTENSION );
+
+      LOG.log( Level.INFO, "Exporting comparison to file {0}", actualFile );
+
+      try
+      {
+        getController().exportCompareResult( actualFile );
+      }
+      catch ( IOException exception )
+      {
+        // Make sure to handle IO-interrupted exceptions properly!
+        if ( !HostUtils.handleInterruptedException( exception ) )
+        {
+          LOG.log( Level.WARNING, "Exporting comparison failed!", exception );
+          JErrorDialog.showDialog( owner, "Exporting the comparison failed!", exception );
+        }
+      }
+    }
+  }
+}
+
+/* EOF */
@@ -0,0 +1,123 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import java.util.logging.*;
+
+import javax.swing.filechooser.*;
+
+import nl.lxtreme.ols.client.*;
+import nl.lxtreme.ols.util.swing.*;
+
+
+/**
+ * Provides an import from file functionality.
+ */
+public class ImportAction extends BaseAction
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  private static final String ID = "ImportAction.";
+
+  private static final Logger LOG = Logger.getLogger( ImportAction.class.getName() );
+
+  // VARIABLES
+
+  private final String importerName;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ImportAction instance.
+   * 
+   * @param aController
+   *          the client controller to use;
+   * @param aImporterName
+   *          the name of the importer to invoke in this action.
+   */
+  public ImportAction( final ClientController aController, final String aImporterName )
+  {
+    super( getID( aImporterName ), aController, aImporterName, "Import capture data from a " + aImporterName
+        + " file" );
+
+    this.importerName = aImporterName;
+  }
+
+  // METHODS
+
+  /**
+   * Creates an ID for an action that represents the "import" action for the
+   * importer with the given name.
+   * 
+   * @param aImporterName
+   *          the name of the importer to create the ID for, cannot be
+   *          <code>null</code>.
+   * @return a ID, never <code>null</code>.
+   */
+  public static final String getID( final String aImporterName )
+  {
+    return ID.concat( aImporterName );
+  }
+
+  /**
+   * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    final Window owner = SwingComponentUtils.getOwningWindow( aEvent );
+
+    final ClientController controller = getController();
+
+    final String[] extensions = controller.getImportExtensions( this.importerName );
+
+    final File importFile;
+    if ( extensions.length == 0 )
+    {
+      importFile = SwingComponentUtils.showFileOpenDialog( owner );
+    }
+    else
+    {
+      importFile = SwingComponentUtils.showFileOpenDialog( owner, //
+          new FileNameExtensionFilter( "Valid import format(s)", extensions ) );
+    }
+
+    if ( ( importFile != null ) && controller.setupImport( this.importerName, owner ) )
+    {
+      if ( LOG.isLoggable( Level.INFO ) )
+      {
+        LOG.info( "Importing capture data from file: " + importFile );
+      }
+
+      // The actual import is done in the background; errors are reported by
+      // the controller...
+      controller.importFrom( this.importerName, importFile );
+    }
+  }
+}
+
+/* EOF */
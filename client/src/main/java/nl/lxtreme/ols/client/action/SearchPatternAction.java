@@ -0,0 +1,108 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import java.awt.*;
+import java.awt.event.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.data.search.*;
+import nl.lxtreme.ols.client.*;
+import nl.lxtreme.ols.util.swing.*;
+
+
+/**
+ * Provides an action that searches the captured data for a pattern.
+ */
+public class SearchPatternAction extends BaseAction
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String ID = "SearchPattern";
+
+  private static final String SYNTAX_HELP = "<html>Enter the pattern to search for, for example:<ul>" //
+      + "<li><tt>value 0x0A mask 0xFF</tt> &ndash; channels 0..7 equal 0x0A;</li>" //
+      + "<li><tt>rising 3</tt>, <tt>falling 3</tt> or <tt>edge 3</tt> &ndash; an edge on channel 3;</li>" //
+      + "<li><tt>high 2 &lt; 5</tt> &ndash; a high pulse on channel 2 shorter than 5 samples;</li>" //
+      + "<li><tt>falling 0 then rising 1 within 100</tt> &ndash; a sequence of conditions.</li>" //
+      + "</ul></html>";
+
+  // VARIABLES
+
+  private String lastPattern = "";
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SearchPatternAction instance.
+   * 
+   * @param aController
+   *          the controller to use for this action.
+   */
+  public SearchPatternAction( final ClientController aController )
+  {
+    super( ID, aController, "Find pattern ...", "Search the captured data for a pattern" );
+    putValue( ACCELERATOR_KEY, SwingComponentUtils.createMenuKeyMask( KeyEvent.VK_F, InputEvent.SHIFT_MASK ) );
+  }
+
+  // METHODS
+
+  /**
+   * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    final Window owner = SwingComponentUtils.getOwningWindow( aEvent );
+
+    String pattern = this.lastPattern;
+    SearchCondition condition = null;
+    while ( condition == null )
+    {
+      pattern = ( String )JOptionPane.showInputDialog( owner, SYNTAX_HELP, "Find pattern ...",
+          JOptionPane.QUESTION_MESSAGE, null, null, pattern );
+      if ( pattern == null )
+      {
+        // Cancelled by user...
+        return;
+      }
+
+      try
+      {
+        condition = SearchConditionParser.parse( pattern );
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        JOptionPane.showMessageDialog( owner, exception.getMessage(), "Invalid pattern", JOptionPane.ERROR_MESSAGE );
+      }
+    }
+
+    this.lastPattern = pattern;
+
+    getController().searchPattern( condition );
+  }
+}
+
+/* EOF */
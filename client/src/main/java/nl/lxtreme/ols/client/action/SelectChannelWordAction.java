@@ -0,0 +1,102 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import java.awt.event.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.client.*;
+
+
+/**
+ * Provides an action that selects which word of channels of a wide capture is
+ * shown.
+ */
+public class SelectChannelWordAction extends BaseAction
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  private static final String ID = "SelectChannelWord.";
+
+  // VARIABLES
+
+  private final int wordIdx;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SelectChannelWordAction instance.
+   * 
+   * @param aController
+   *          the controller to use;
+   * @param aWordIdx
+   *          the index of the word of channels this action represents, >= 0.
+   */
+  public SelectChannelWordAction( final ClientController aController, final int aWordIdx )
+  {
+    super( getID( aWordIdx ), aController, getName( aWordIdx ), "Show the channels of word " + aWordIdx );
+    this.wordIdx = aWordIdx;
+  }
+
+  // METHODS
+
+  /**
+   * Creates an ID for an action that represents the "select channel word"
+   * action for the word with the given index.
+   * 
+   * @param aWordIdx
+   *          the index of the word to create the ID for, >= 0.
+   * @return a ID, never <code>null</code>.
+   */
+  public static final String getID( final int aWordIdx )
+  {
+    return ID + aWordIdx;
+  }
+
+  /**
+   * Returns the name of the word with the given index, which denotes its range
+   * of channels.
+   * 
+   * @param aWordIdx
+   *          the index of the word to create the name for, >= 0.
+   * @return a name, never <code>null</code>.
+   */
+  public static final String getName( final int aWordIdx )
+  {
+    final int first = aWordIdx * Ols.CHANNELS_PER_WORD;
+    return String.format( "Channels %d - %d", Integer.valueOf( first ),
+        Integer.valueOf( first + Ols.CHANNELS_PER_WORD - 1 ) );
+  }
+
+  /**
+   * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    getController().selectChannelWord( this.wordIdx );
+  }
+}
+
+/* EOF */
@@ -79,6 +79,8 @@ public final class ActionManagerFactory
     aActionManager.add( new CaptureAction( aController ) ).setEnabled( false );
     aActionManager.add( new CancelCaptureAction( aController ) ).setEnabled( false );
     aActionManager.add( new RepeatCaptureAction( aController ) ).setEnabled( false );
+    aActionManager.add( new SelectPreviousCaptureAction( aController ) ).setEnabled( false );
+    aActionManager.add( new SelectNextCaptureAction( aController ) ).setEnabled( false );
 
     aActionManager.add( new ZoomInAction( aController ) ).setEnabled( false );
     aActionManager.add( new ZoomOutAction( aController ) ).setEnabled( false );
@@ -93,6 +95,13 @@ public final class ActionManagerFactory
     aActionManager.add( new GotoFirstCursorAction( aController ) ).setEnabled( false );
     aActionManager.add( new GotoLastCursorAction( aController ) ).setEnabled( false );
     aActionManager.add( new ClearCursors( aController ) ).setEnabled( false );
+    aActionManager.add( new SearchPatternAction( aController ) ).setEnabled( false );
+    aActionManager.add( new FindNextMatchAction( aController ) ).setEnabled( false );
+    aActionManager.add( new FindPreviousMatchAction( aController ) ).setEnabled( false );
+    aActionManager.add( new CompareCaptureAction( aController ) ).setEnabled( false );
+    aActionManager.add( new ExportCompareResultAction( aController ) ).setEnabled( false );
+    aActionManager.add( new AddVirtualChannelAction( aController ) ).setEnabled( false );
+    aActionManager.add( new RemoveVirtualChannelsAction( aController ) ).setEnabled( false );
     aActionManager.add( new SetCursorModeAction( aController ) );
     for ( int c = 0; c < Ols.MAX_CURSORS; c++ )
     {
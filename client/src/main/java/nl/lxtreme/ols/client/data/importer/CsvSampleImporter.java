@@ -0,0 +1,390 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.data.importer;
+
+
+import static nl.lxtreme.ols.util.swing.SwingComponentUtils.*;
+
+import java.awt.*;
+import java.io.*;
+import java.util.*;
+import java.util.List;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.swing.*;
+import nl.lxtreme.ols.util.swing.validation.*;
+
+
+/**
+ * Provides an importer for sample tables in comma-separated values format, as
+ * written by many logic analyzer applications.
+ * <p>
+ * The first column of each row denotes the time of the sample, either as
+ * sample index, or in seconds (when it contains a fraction or exponent). When
+ * the table has a single data column, it contains the sample value itself (in
+ * decimal or, prefixed with "0x", hexadecimal notation); otherwise, each data
+ * column represents a single channel. An optional header row provides the
+ * channel labels. The values, comma, semicolon or tab separated, are collected
+ * directly into a {@link TransitionBuffer}.
+ * </p>
+ */
+public class CsvSampleImporter implements Importer
+{
+  // CONSTANTS
+
+  private static final char[] DELIMITERS = { ',', ';', '\t' };
+
+  // VARIABLES
+
+  private volatile int sampleRate;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CsvSampleImporter instance.
+   */
+  public CsvSampleImporter()
+  {
+    this( 1000000 );
+  }
+
+  /**
+   * Creates a new CsvSampleImporter instance.
+   * 
+   * @param aSampleRate
+   *          the sample rate, in Hertz, > 0.
+   */
+  CsvSampleImporter( final int aSampleRate )
+  {
+    this.sampleRate = aSampleRate;
+  }
+
+  // METHODS
+
+  /**
+   * Determines the delimiter used in the given line.
+   * 
+   * @param aLine
+   *          the line to determine the delimiter for, cannot be
+   *          <code>null</code>.
+   * @return the most occurring delimiter, defaults to a comma.
+   */
+  static char detectDelimiter( final String aLine )
+  {
+    char result = DELIMITERS[0];
+    int maxCount = 0;
+    for ( char delimiter : DELIMITERS )
+    {
+      int count = 0;
+      for ( int i = 0; i < aLine.length(); i++ )
+      {
+        if ( aLine.charAt( i ) == delimiter )
+        {
+          count++;
+        }
+      }
+      if ( count > maxCount )
+      {
+        maxCount = count;
+        result = delimiter;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Splits the given line into its (unquoted) cells.
+   * 
+   * @param aLine
+   *          the line to split, cannot be <code>null</code>;
+   * @param aDelimiter
+   *          the delimiter to split on.
+   * @return the trimmed cells of the line, never <code>null</code>.
+   */
+  static List<String> split( final String aLine, final char aDelimiter )
+  {
+    final List<String> result = new ArrayList<String>();
+    final StringBuilder cell = new StringBuilder();
+
+    boolean quoted = false;
+    for ( int i = 0; i < aLine.length(); i++ )
+    {
+      final char ch = aLine.charAt( i );
+      if ( ch == '"' )
+      {
+        if ( quoted && ( ( i + 1 ) < aLine.length() ) && ( aLine.charAt( i + 1 ) == '"' ) )
+        {
+          // Escaped quote...
+          cell.append( ch );
+          i++;
+        }
+        else
+        {
+          quoted = !quoted;
+        }
+      }
+      else if ( ( ch == aDelimiter ) && !quoted )
+      {
+        result.add( cell.toString().trim() );
+        cell.setLength( 0 );
+      }
+      else
+      {
+        cell.append( ch );
+      }
+    }
+    result.add( cell.toString().trim() );
+
+    return result;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#getFilenameExtentions()
+   */
+  @Override
+  public String[] getFilenameExtentions()
+  {
+    return new String[] { "csv", "txt" };
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#getName()
+   */
+  @Override
+  public String getName()
+  {
+    return "CSV sample table";
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#importData(nl.lxtreme.ols.api.data.project.Project,
+   *      java.io.InputStream)
+   */
+  @Override
+  public void importData( final Project aProject, final InputStream aStream ) throws IOException
+  {
+    final BufferedReader reader = new BufferedReader( new InputStreamReader( aStream, "UTF-8" ) );
+    final int rate = this.sampleRate;
+
+    final TransitionBuffer buffer = new TransitionBuffer();
+
+    String[] labels = null;
+    char delimiter = 0;
+    int columns = -1;
+    int usedBits = 0;
+    long offset = 0L;
+    long lastTimestamp = -1L;
+    long triggerPosition = Ols.NOT_AVAILABLE;
+
+    int lineNo = 0;
+    String line;
+    while ( ( line = reader.readLine() ) != null )
+    {
+      lineNo++;
+      if ( line.trim().isEmpty() )
+      {
+        continue;
+      }
+
+      if ( delimiter == 0 )
+      {
+        delimiter = detectDelimiter( line );
+      }
+
+      final List<String> cells = split( line, delimiter );
+      if ( cells.size() < 2 )
+      {
+        throw new IOException( "Line " + lineNo + " should contain a time and at least one value!" );
+      }
+
+      if ( columns < 0 )
+      {
+        columns = cells.size() - 1;
+        if ( columns > Ols.MAX_CHANNELS )
+        {
+          throw new IOException( "Sample table contains more than " + Ols.MAX_CHANNELS + " channels!" );
+        }
+
+        if ( !isNumber( cells.get( 0 ) ) )
+        {
+          // Header row...
+          labels = cells.subList( 1, cells.size() ).toArray( new String[columns] );
+          continue;
+        }
+      }
+      else if ( cells.size() != ( columns + 1 ) )
+      {
+        throw new IOException( "Line " + lineNo + " should contain " + ( columns + 1 ) + " values!" );
+      }
+
+      long timestamp = parseTime( cells.get( 0 ), rate, lineNo );
+      if ( lastTimestamp < 0L )
+      {
+        // Times relative to a trigger can be negative; make them start at
+        // zero, and use the original zero as trigger position...
+        if ( timestamp < 0L )
+        {
+          offset = -timestamp;
+          triggerPosition = offset;
+        }
+      }
+      timestamp += offset;
+      if ( timestamp < lastTimestamp )
+      {
+        throw new IOException( "Line " + lineNo + " goes back in time!" );
+      }
+
+      int value = 0;
+      if ( columns == 1 )
+      {
+        value = parseValue( cells.get( 1 ), lineNo );
+      }
+      else
+      {
+        for ( int i = 0; i < columns; i++ )
+        {
+          if ( parseValue( cells.get( i + 1 ), lineNo ) != 0 )
+          {
+            value |= ( 1 << i );
+          }
+        }
+      }
+
+      usedBits |= value;
+      buffer.add( timestamp, value );
+      lastTimestamp = timestamp;
+    }
+
+    if ( lastTimestamp < 0L )
+    {
+      throw new IOException( "Sample table does not contain any samples!" );
+    }
+
+    // With a single value column, the number of channels follows from the
+    // values themselves...
+    final int channels = ( columns == 1 ) ? Math.max( 1, Integer.SIZE - Integer.numberOfLeadingZeros( usedBits ) )
+        : columns;
+    final int enabledMask = ( int )( ( 1L << channels ) - 1L );
+
+    aProject.setCapturedData( buffer.toCapturedData( triggerPosition, rate, channels, enabledMask,
+        lastTimestamp + 1L ) );
+    if ( ( labels != null ) && ( columns > 1 ) )
+    {
+      aProject.setChannelLabels( labels );
+    }
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#setupImport(java.awt.Window)
+   */
+  @Override
+  public boolean setupImport( final Window aOwner )
+  {
+    final JTextField rateField = new JTextField( String.valueOf( this.sampleRate ), 10 );
+    rateField.setInputVerifier( JComponentInputVerifier.create( Integer.TYPE, "Invalid sample rate!" ) );
+
+    final JPanel panel = new JPanel( new SpringLayout() );
+
+    SpringLayoutUtils.addSeparator( panel, "Import settings" );
+
+    panel.add( createRightAlignedLabel( "Sample rate" ) );
+    panel.add( rateField );
+
+    SpringLayoutUtils.makeEditorGrid( panel, 6, 6 );
+
+    final int choice = JOptionPane.showConfirmDialog( aOwner, panel, "CSV sample table import",
+        JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE );
+    if ( choice != JOptionPane.OK_OPTION )
+    {
+      return false;
+    }
+
+    final int rate = NumberUtils.smartParseInt( rateField.getText(), 1000000 );
+    if ( rate <= 0 )
+    {
+      JOptionPane.showMessageDialog( aOwner, "Invalid sample rate!", "Error", JOptionPane.ERROR_MESSAGE );
+      return false;
+    }
+
+    this.sampleRate = rate;
+    return true;
+  }
+
+  /**
+   * Returns whether the given cell contains a number.
+   */
+  private boolean isNumber( final String aCell )
+  {
+    try
+    {
+      Double.parseDouble( aCell );
+      return true;
+    }
+    catch ( NumberFormatException exception )
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Parses the time of a sample, either as sample index or in seconds.
+   */
+  private long parseTime( final String aCell, final int aRate, final int aLineNo ) throws IOException
+  {
+    try
+    {
+      if ( ( aCell.indexOf( '.' ) >= 0 ) || ( aCell.indexOf( 'e' ) >= 0 ) || ( aCell.indexOf( 'E' ) >= 0 ) )
+      {
+        return Math.round( Double.parseDouble( aCell ) * aRate );
+      }
+      return Long.parseLong( aCell );
+    }
+    catch ( NumberFormatException exception )
+    {
+      throw new IOException( "Invalid time on line " + aLineNo + ": " + aCell );
+    }
+  }
+
+  /**
+   * Parses a sample value, in decimal or hexadecimal notation.
+   */
+  private int parseValue( final String aCell, final int aLineNo ) throws IOException
+  {
+    try
+    {
+      if ( aCell.startsWith( "0x" ) || aCell.startsWith( "0X" ) )
+      {
+        return ( int )Long.parseLong( aCell.substring( 2 ), 16 );
+      }
+      return ( int )Long.parseLong( aCell );
+    }
+    catch ( NumberFormatException exception )
+    {
+      throw new IOException( "Invalid value on line " + aLineNo + ": " + aCell );
+    }
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.data.importer;
+
+
+import static nl.lxtreme.ols.util.swing.SwingComponentUtils.*;
+
+import java.awt.*;
+import java.io.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.swing.*;
+import nl.lxtreme.ols.util.swing.validation.*;
+
+
+/**
+ * Provides an importer for raw binary sample dumps, in which each sample is
+ * stored as a fixed number of bytes in little-endian order, like the samples
+ * read by the generic device.
+ * <p>
+ * The file is read in large blocks, which are unpacked directly into a
+ * {@link TransitionBuffer}, so only the transitions are retained.
+ * </p>
+ */
+public class RawBinaryImporter implements Importer
+{
+  // CONSTANTS
+
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  // VARIABLES
+
+  private volatile int sampleWidth;
+  private volatile int channelCount;
+  private volatile int sampleRate;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new RawBinaryImporter instance.
+   */
+  public RawBinaryImporter()
+  {
+    this( 1, 8, 1000000 );
+  }
+
+  /**
+   * Creates a new RawBinaryImporter instance.
+   * 
+   * @param aSampleWidth
+   *          the number of bytes per sample, >= 1 && <= 4;
+   * @param aChannelCount
+   *          the number of channels per sample, >= 1 && <= 8 * sample width;
+   * @param aSampleRate
+   *          the sample rate, in Hertz, > 0.
+   */
+  RawBinaryImporter( final int aSampleWidth, final int aChannelCount, final int aSampleRate )
+  {
+    this.sampleWidth = aSampleWidth;
+    this.channelCount = aChannelCount;
+    this.sampleRate = aSampleRate;
+  }
+
+  // METHODS
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#getFilenameExtentions()
+   */
+  @Override
+  public String[] getFilenameExtentions()
+  {
+    return new String[] { "bin", "raw" };
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#getName()
+   */
+  @Override
+  public String getName()
+  {
+    return "Raw binary";
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#importData(nl.lxtreme.ols.api.data.project.Project,
+   *      java.io.InputStream)
+   */
+  @Override
+  public void importData( final Project aProject, final InputStream aStream ) throws IOException
+  {
+    final int width = this.sampleWidth;
+    final int channels = this.channelCount;
+    final int enabledMask = ( int )( ( 1L << channels ) - 1L );
+
+    final TransitionBuffer buffer = new TransitionBuffer();
+    final byte[] data = new byte[BUFFER_SIZE];
+
+    long sampleCount = 0L;
+    // The number of bytes of an incomplete sample, left from the last read...
+    int remaining = 0;
+
+    int read;
+    while ( ( read = aStream.read( data, remaining, data.length - remaining ) ) >= 0 )
+    {
+      final int length = remaining + read;
+      final int samples = buffer.addSamples( sampleCount, data, 0, length, width, enabledMask );
+      sampleCount += samples;
+
+      remaining = length - ( samples * width );
+      System.arraycopy( data, samples * width, data, 0, remaining );
+    }
+
+    if ( sampleCount == 0L )
+    {
+      throw new IOException( "File does not contain any samples!" );
+    }
+
+    aProject.setCapturedData( buffer.toCapturedData( Ols.NOT_AVAILABLE, this.sampleRate, channels, enabledMask,
+        sampleCount ) );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#setupImport(java.awt.Window)
+   */
+  @Override
+  public boolean setupImport( final Window aOwner )
+  {
+    final JTextField widthField = new JTextField( String.valueOf( this.sampleWidth ), 10 );
+    widthField.setInputVerifier( JComponentInputVerifier.create( Integer.TYPE, "Invalid sample width!" ) );
+
+    final JTextField channelsField = new JTextField( String.valueOf( this.channelCount ), 10 );
+    channelsField.setInputVerifier( JComponentInputVerifier.create( Integer.TYPE, "Invalid channel count!" ) );
+
+    final JTextField rateField = new JTextField( String.valueOf( this.sampleRate ), 10 );
+    rateField.setInputVerifier( JComponentInputVerifier.create( Integer.TYPE, "Invalid sample rate!" ) );
+
+    final JPanel panel = new JPanel( new SpringLayout() );
+
+    SpringLayoutUtils.addSeparator( panel, "Import settings" );
+
+    panel.add( createRightAlignedLabel( "Sample width (bytes)" ) );
+    panel.add( widthField );
+
+    panel.add( createRightAlignedLabel( "Channel count" ) );
+    panel.add( channelsField );
+
+    panel.add( createRightAlignedLabel( "Sample rate" ) );
+    panel.add( rateField );
+
+    SpringLayoutUtils.makeEditorGrid( panel, 6, 6 );
+
+    final int choice = JOptionPane.showConfirmDialog( aOwner, panel, "Raw binary import", JOptionPane.OK_CANCEL_OPTION,
+        JOptionPane.PLAIN_MESSAGE );
+    if ( choice != JOptionPane.OK_OPTION )
+    {
+      return false;
+    }
+
+    final int width = NumberUtils.smartParseInt( widthField.getText(), 1 );
+    final int channels = NumberUtils.smartParseInt( channelsField.getText(), 8 * width );
+    final int rate = NumberUtils.smartParseInt( rateField.getText(), 1000000 );
+
+    if ( ( width < 1 ) || ( width > 4 ) || ( channels < 1 ) || ( channels > ( 8 * width ) ) || ( rate <= 0 ) )
+    {
+      JOptionPane.showMessageDialog( aOwner, "Invalid import settings! The sample width should be between 1 and 4 "
+          + "bytes, and there can be at most 8 channels per byte.", "Error", JOptionPane.ERROR_MESSAGE );
+      return false;
+    }
+
+    this.sampleWidth = width;
+    this.channelCount = channels;
+    this.sampleRate = rate;
+    return true;
+  }
+}
@@ -37,6 +37,24 @@ import nl.lxtreme.ols.client.data.settings.*;
  */
 final class ProjectImpl implements Project, ProjectProperties
 {
+  // INNER TYPES
+
+  /**
+   * Provides a way to load the captured data of a project on demand.
+   */
+  static interface CapturedDataLoader
+  {
+    /**
+     * Loads the captured data, including the cursor positions.
+     * 
+     * @return a temporary project with the loaded captured data and cursors,
+     *         never <code>null</code>.
+     * @throws IOException
+     *           in case of I/O problems.
+     */
+    Project load() throws IOException;
+  }
+
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( ProjectImpl.class.getName() );
@@ -55,6 +73,22 @@ final class ProjectImpl implements Project, ProjectProperties
   private Date lastModified;
   private String sourceVersion;
   private File filename;
+  private File capturedDataSource;
+  private CapturedDataLoader capturedDataLoader;
+  /** Whether the captured data is being loaded by some thread. */
+  private boolean capturedDataLoading;
+  /** The reason the lazy load of the captured data failed, if it did. */
+  private IOException capturedDataLoadFailure;
+  /** Whether the cursors were changed while the captured data was pending. */
+  private boolean cursorsChangedWhilePending;
+  private boolean cursorsEnabledChangedWhilePending;
+
+  /** Incremented for each change of this project. */
+  private int revision;
+  /** Incremented for each change of the captured data or cursors. */
+  private int capturedDataRevision;
+  /** The project this project is a snapshot of, if any. */
+  private ProjectImpl origin;
 
   // CONSTRUCTORS
 
@@ -95,6 +129,8 @@ final class ProjectImpl implements Project, ProjectProperties
   @Override
   public AcquisitionResult getCapturedData()
   {
+    ensureCapturedDataLoaded( false /* aWait */);
+
     return this.capturedData;
   }
 
@@ -113,6 +149,8 @@ final class ProjectImpl implements Project, ProjectProperties
   @Override
   public Long[] getCursorPositions()
   {
+    ensureCapturedDataLoaded( false /* aWait */);
+
     return this.cursors;
   }
 
@@ -182,6 +220,8 @@ final class ProjectImpl implements Project, ProjectProperties
   @Override
   public boolean isCursorsEnabled()
   {
+    ensureCapturedDataLoaded( false /* aWait */);
+
     return this.cursorsEnabled;
   }
 
@@ -202,8 +242,20 @@ final class ProjectImpl implements Project, ProjectProperties
   @Override
   public void setCapturedData( final AcquisitionResult aCapturedData )
   {
-    final AcquisitionResult old = this.capturedData;
-    this.capturedData = aCapturedData;
+    final AcquisitionResult old;
+    synchronized ( this )
+    {
+      // Any pending lazy load is superseded by the given data...
+      this.capturedDataLoader = null;
+      this.capturedDataLoadFailure = null;
+      this.capturedDataSource = null;
+      this.cursorsChangedWhilePending = false;
+      this.cursorsEnabledChangedWhilePending = false;
+      this.capturedDataRevision++;
+
+      old = this.capturedData;
+      this.capturedData = aCapturedData;
+    }
 
     this.propertyChangeSupport.firePropertyChange( PROPERTY_CAPTURED_DATA, old, aCapturedData );
 
@@ -217,8 +269,16 @@ final class ProjectImpl implements Project, ProjectProperties
   @Override
   public void setChanged( final boolean aChanged )
   {
-    final boolean old = this.changed;
-    this.changed = aChanged;
+    final boolean old;
+    synchronized ( this )
+    {
+      old = this.changed;
+      this.changed = aChanged;
+      if ( aChanged )
+      {
+        this.revision++;
+      }
+    }
 
     this.propertyChangeSupport.firePropertyChange( PROPERTY_CHANGED, old, aChanged );
   }
@@ -255,6 +315,21 @@ final class ProjectImpl implements Project, ProjectProperties
       throw new IllegalArgumentException( "Cursors cannot be null!" );
     }
 
+    // Cursors are stored along with the captured data; a pending load of it
+    // should not overwrite the given cursors...
+    synchronized ( this )
+    {
+      if ( this.capturedDataLoader != null )
+      {
+        this.cursorsChangedWhilePending = true;
+      }
+      else
+      {
+        dropCapturedDataSource();
+      }
+      this.capturedDataRevision++;
+    }
+
     final Long[] old = Arrays.copyOf( this.cursors, this.cursors.length );
     Arrays.fill( this.cursors, null );
     System.arraycopy( aCursors, 0, this.cursors, 0, aCursors.length );
@@ -271,6 +346,21 @@ final class ProjectImpl implements Project, ProjectProperties
   @Override
   public void setCursorsEnabled( final boolean aEnabled )
   {
+    // Cursors are stored along with the captured data; a pending load of it
+    // should not overwrite the given setting...
+    synchronized ( this )
+    {
+      if ( this.capturedDataLoader != null )
+      {
+        this.cursorsEnabledChangedWhilePending = true;
+      }
+      else
+      {
+        dropCapturedDataSource();
+      }
+      this.capturedDataRevision++;
+    }
+
     final boolean old = this.cursorsEnabled;
     this.cursorsEnabled = aEnabled;
 
@@ -381,6 +471,169 @@ final class ProjectImpl implements Project, ProjectProperties
     }
   }
 
+  /**
+   * Creates a snapshot of this project, which is detached from this project.
+   * <p>
+   * All state is copied, except for the captured data, which is shared as it
+   * is never modified. A pending lazy load of the captured data is shared as
+   * well, and does not cause the captured data to be loaded.
+   * </p>
+   * 
+   * @return a new snapshot of this project, never <code>null</code>.
+   */
+  final synchronized ProjectImpl createSnapshot()
+  {
+    final ProjectImpl result = new ProjectImpl();
+
+    result.name = this.name;
+    System.arraycopy( this.channelLabels, 0, result.channelLabels, 0, this.channelLabels.length );
+    System.arraycopy( this.cursors, 0, result.cursors, 0, this.cursors.length );
+    for ( UserSettings settings : this.settings.values() )
+    {
+      final Properties props = new Properties();
+      for ( Map.Entry<String, Object> entry : settings )
+      {
+        props.put( entry.getKey(), entry.getValue() );
+      }
+      result.settings.put( settings.getName(), new UserSettingsImpl( settings.getName(), props ) );
+    }
+    result.capturedData = this.capturedData;
+    result.changed = this.changed;
+    result.cursorsEnabled = this.cursorsEnabled;
+    result.lastModified = this.lastModified;
+    result.sourceVersion = this.sourceVersion;
+    result.filename = this.filename;
+    result.capturedDataSource = this.capturedDataSource;
+    result.capturedDataLoader = this.capturedDataLoader;
+    result.capturedDataLoadFailure = this.capturedDataLoadFailure;
+    result.cursorsChangedWhilePending = this.cursorsChangedWhilePending;
+    result.cursorsEnabledChangedWhilePending = this.cursorsEnabledChangedWhilePending;
+
+    result.revision = this.revision;
+    result.capturedDataRevision = this.capturedDataRevision;
+    result.origin = this;
+
+    return result;
+  }
+
+  /**
+   * Returns the project file that holds an unmodified copy of the captured
+   * data of this project.
+   * 
+   * @return the project file with the current captured data, or
+   *         <code>null</code> if the captured data was changed since it was
+   *         last loaded or saved.
+   */
+  final synchronized File getCapturedDataSource()
+  {
+    if ( this.cursorsChangedWhilePending || this.cursorsEnabledChangedWhilePending )
+    {
+      // The project file still holds the cursors from before the change...
+      return null;
+    }
+    return this.capturedDataSource;
+  }
+
+  /**
+   * Returns whether this project has captured data, without loading it.
+   * 
+   * @return <code>true</code> if this project has (loaded or pending) captured
+   *         data, <code>false</code> otherwise.
+   */
+  final synchronized boolean hasCapturedData()
+  {
+    return ( this.capturedData != null ) || ( this.capturedDataLoader != null );
+  }
+
+  /**
+   * Returns whether the lazy load of the captured data of this project failed,
+   * meaning that its captured data is only available in its project file.
+   * 
+   * @return <code>true</code> if the captured data could not be loaded,
+   *         <code>false</code> otherwise.
+   */
+  final synchronized boolean isCapturedDataLoadFailed()
+  {
+    return this.capturedDataLoadFailure != null;
+  }
+
+  /**
+   * Returns whether the captured data of this project is (still) to be loaded.
+   * 
+   * @return <code>true</code> if the captured data is not yet loaded,
+   *         <code>false</code> if it is loaded or if there is no captured data
+   *         at all.
+   */
+  final synchronized boolean isCapturedDataPending()
+  {
+    return this.capturedDataLoader != null;
+  }
+
+  /**
+   * Marks this project as saved, after the given snapshot of it is stored to
+   * the given file.
+   * <p>
+   * Only the state that did not change since the snapshot was taken is marked
+   * as saved.
+   * </p>
+   * 
+   * @param aSnapshot
+   *          the snapshot that was stored, cannot be <code>null</code>;
+   * @param aFile
+   *          the file the snapshot was stored to, cannot be <code>null</code>.
+   */
+  final void setSaved( final ProjectImpl aSnapshot, final File aFile )
+  {
+    final boolean unchanged;
+    synchronized ( this )
+    {
+      if ( aSnapshot.origin != this )
+      {
+        // Snapshot of another project...
+        return;
+      }
+
+      if ( this.capturedDataRevision == aSnapshot.capturedDataRevision )
+      {
+        // The saved file now holds an up-to-date copy of the captured data...
+        this.capturedDataSource = aSnapshot.hasCapturedData() ? aFile : null;
+      }
+      unchanged = ( this.revision == aSnapshot.revision );
+    }
+
+    if ( unchanged )
+    {
+      // Mark the project as no longer changed...
+      setChanged( false );
+    }
+  }
+
+  /**
+   * Sets the project file that holds an unmodified copy of the captured data
+   * of this project, along with the loader to lazily read it.
+   * <p>
+   * This method does not mark this project as changed, nor does it fire any
+   * property change events.
+   * </p>
+   * 
+   * @param aSource
+   *          the project file with the current captured data, can be
+   *          <code>null</code>;
+   * @param aLoader
+   *          the loader to use on the first access of the captured data, can
+   *          be <code>null</code> to retain the current loader (if any).
+   */
+  final synchronized void setCapturedDataSource( final File aSource, final CapturedDataLoader aLoader )
+  {
+    this.capturedDataSource = aSource;
+    if ( aLoader != null )
+    {
+      this.capturedDataLoader = aLoader;
+      this.cursorsChangedWhilePending = false;
+      this.cursorsEnabledChangedWhilePending = false;
+    }
+  }
+
   /**
    * Returns the current set of property change listeners.
    * 
@@ -390,4 +643,116 @@ final class ProjectImpl implements Project, ProjectProperties
   {
     return this.propertyChangeSupport.getPropertyChangeListeners();
   }
+
+  /**
+   * Forgets about the project file holding the captured data, as the captured
+   * data or cursors are changed. In case the captured data could not be
+   * loaded, the project file remains the only copy of it, and is retained.
+   */
+  private void dropCapturedDataSource()
+  {
+    if ( this.capturedDataLoadFailure == null )
+    {
+      this.capturedDataSource = null;
+    }
+  }
+
+  /**
+   * Loads the captured data and cursors, if there's a pending lazy load.
+   * <p>
+   * The captured data is parsed without holding the lock of this project, so
+   * that, for example, the event dispatch thread is not blocked when it
+   * paints the (yet empty) project while a background thread loads it. Cursors
+   * that are changed before the load completes are not overwritten by it.
+   * </p>
+   * 
+   * @param aWait
+   *          <code>true</code> to wait until a load by another thread is
+   *          completed, <code>false</code> to return immediately in that case.
+   */
+  private void ensureCapturedDataLoaded( final boolean aWait )
+  {
+    final CapturedDataLoader loader;
+    synchronized ( this )
+    {
+      while ( this.capturedDataLoading )
+      {
+        if ( !aWait )
+        {
+          return;
+        }
+        try
+        {
+          wait();
+        }
+        catch ( InterruptedException exception )
+        {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+
+      loader = this.capturedDataLoader;
+      if ( loader == null )
+      {
+        return;
+      }
+      this.capturedDataLoading = true;
+    }
+
+    Project loaded = null;
+    IOException failure = null;
+    try
+    {
+      loaded = loader.load();
+    }
+    catch ( IOException exception )
+    {
+      failure = exception;
+    }
+
+    synchronized ( this )
+    {
+      this.capturedDataLoading = false;
+      notifyAll();
+
+      if ( this.capturedDataLoader != loader )
+      {
+        // Superseded by other captured data...
+        return;
+      }
+      // Only try once, even if the load fails...
+      this.capturedDataLoader = null;
+
+      final boolean keepCursors = this.cursorsChangedWhilePending;
+      final boolean keepCursorsEnabled = this.cursorsEnabledChangedWhilePending;
+      this.cursorsChangedWhilePending = false;
+      this.cursorsEnabledChangedWhilePending = false;
+
+      if ( failure != null )
+      {
+        // Keep the project file, as it is the only copy of the captured data...
+        this.capturedDataLoadFailure = failure;
+
+        LOG.log( Level.WARNING, "Failed to load captured data!", failure );
+        return;
+      }
+
+      this.capturedData = loaded.getCapturedData();
+      // Cursors changed in the meantime take precedence over the loaded ones,
+      // and make the project file outdated...
+      if ( keepCursors || keepCursorsEnabled )
+      {
+        dropCapturedDataSource();
+      }
+      if ( !keepCursors )
+      {
+        System.arraycopy( loaded.getCursorPositions(), 0, this.cursors, 0, this.cursors.length );
+      }
+      if ( !keepCursorsEnabled )
+      {
+        this.cursorsEnabled = loaded.isCursorsEnabled();
+      }
+    }
+  }
 }
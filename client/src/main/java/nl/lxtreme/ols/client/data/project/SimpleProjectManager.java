@@ -38,9 +38,82 @@ import nl.lxtreme.ols.util.*;
 /**
  * Provides a simple implementation of a project manager, which writes an entire
  * project as (compressed) ZIP-file.
+ * <p>
+ * Project files are read using random access: the metadata, channel labels and
+ * settings are read directly, while the (potentially large) captured data is
+ * only read on its first access. When saving to a file, captured data that is
+ * not changed since it was loaded or saved is copied as-is from the previous
+ * project file. The captured data is stored uncompressed, making this copy a
+ * plain byte copy.
+ * </p>
  */
 public class SimpleProjectManager implements ProjectManager, ProjectProperties
 {
+  // INNER TYPES
+
+  /**
+   * Loads the captured data lazily from a project file.
+   */
+  private final class ZipFileCapturedDataLoader implements ProjectImpl.CapturedDataLoader
+  {
+    // VARIABLES
+
+    private final File file;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new ZipFileCapturedDataLoader instance.
+     * 
+     * @param aFile
+     *          the project file to load the captured data from, cannot be
+     *          <code>null</code>.
+     */
+    public ZipFileCapturedDataLoader( final File aFile )
+    {
+      this.file = aFile;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Project load() throws IOException
+    {
+      final ProjectImpl result = new ProjectImpl();
+
+      final ZipFile zipFile = new ZipFile( this.file );
+      try
+      {
+        final ZipEntry entry = zipFile.getEntry( FILENAME_CAPTURE_RESULTS );
+        if ( entry == null )
+        {
+          throw new IOException( "Project file no longer contains captured data!" );
+        }
+
+        LOG.log( Level.FINE, "Loading captured data from {0} ...", this.file );
+
+        final InputStream is = new BufferedInputStream( zipFile.getInputStream( entry ) );
+        try
+        {
+          loadCapturedResults( result, is );
+        }
+        finally
+        {
+          HostUtils.closeResource( is );
+        }
+      }
+      finally
+      {
+        zipFile.close();
+      }
+
+      return result;
+    }
+  }
+
   // CONSTANTS
 
   private static final String FILENAME_PROJECT_METADATA = "ols.project";
@@ -83,6 +156,15 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
     return setProject( new ProjectImpl() );
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.data.project.ProjectManager#createSnapshot()
+   */
+  @Override
+  public Project createSnapshot()
+  {
+    return this.project.createSnapshot();
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.project.ProjectManager#createTemporaryProject()
    */
@@ -166,6 +248,90 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
     }
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.data.project.ProjectManager#loadProjectFile(java.io.File)
+   */
+  @Override
+  public void loadProjectFile( final File aFile ) throws IOException
+  {
+    if ( aFile == null )
+    {
+      throw new IllegalArgumentException( "File cannot be null!" );
+    }
+
+    final ProjectImpl newProject = new ProjectImpl();
+
+    final ZipFile zipFile;
+    try
+    {
+      zipFile = new ZipFile( aFile );
+    }
+    catch ( ZipException exception )
+    {
+      throw new IOException( "Invalid project file!" );
+    }
+
+    try
+    {
+      boolean entriesSeen = false;
+
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while ( entries.hasMoreElements() )
+      {
+        final ZipEntry ze = entries.nextElement();
+
+        final String name = ze.getName();
+        if ( FILENAME_CAPTURE_RESULTS.equals( name ) )
+        {
+          // Defer reading the captured data until it is actually used...
+          newProject.setCapturedDataSource( aFile, new ZipFileCapturedDataLoader( aFile ) );
+          entriesSeen = true;
+          continue;
+        }
+
+        final InputStream is = new BufferedInputStream( zipFile.getInputStream( ze ) );
+        try
+        {
+          if ( FILENAME_PROJECT_METADATA.equals( name ) )
+          {
+            loadProjectMetadata( newProject, is );
+            entriesSeen = true;
+          }
+          else if ( FILENAME_CHANNEL_LABELS.equals( name ) )
+          {
+            loadChannelLabels( newProject, is );
+            entriesSeen = true;
+          }
+          else if ( name.startsWith( FILENAME_PROJECT_SETTINGS ) )
+          {
+            final String userSettingsName = name.substring( FILENAME_PROJECT_SETTINGS.length() );
+            loadProjectSettings( newProject, userSettingsName, is );
+            entriesSeen = true;
+          }
+        }
+        finally
+        {
+          HostUtils.closeResource( is );
+        }
+      }
+
+      if ( !entriesSeen )
+      {
+        throw new IOException( "Invalid project file!" );
+      }
+
+      // Publish the newly loaded project...
+      setProject( newProject );
+
+      // Mark the project as no longer changed...
+      newProject.setChanged( false );
+    }
+    finally
+    {
+      zipFile.close();
+    }
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.project.ProjectManager#removePropertyChangeListener(java.beans.PropertyChangeListener)
    */
@@ -210,6 +376,81 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
     }
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.data.project.ProjectManager#saveProjectFile(java.io.File)
+   */
+  @Override
+  public void saveProjectFile( final File aFile ) throws IOException
+  {
+    final Project snapshot = createSnapshot();
+
+    saveProjectSnapshot( snapshot, aFile, null );
+
+    setProjectSaved( snapshot, aFile );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.project.ProjectManager#saveProjectSnapshot(nl.lxtreme.ols.api.data.project.Project,
+   *      java.io.File, nl.lxtreme.ols.api.data.project.ProjectProgressListener)
+   */
+  @Override
+  public void saveProjectSnapshot( final Project aSnapshot, final File aFile, final ProjectProgressListener aListener )
+      throws IOException
+  {
+    if ( !( aSnapshot instanceof ProjectImpl ) )
+    {
+      throw new IllegalArgumentException( "Invalid project snapshot!" );
+    }
+    if ( aFile == null )
+    {
+      throw new IllegalArgumentException( "File cannot be null!" );
+    }
+
+    final ProjectImpl snapshot = ( ProjectImpl )aSnapshot;
+
+    // Write to a temporary file first, as we might need to copy the captured
+    // data from the file we're about to replace, and we do not want to leave
+    // a partially written project file behind...
+    final File tempFile = File.createTempFile( "ols", ".tmp", aFile.getAbsoluteFile().getParentFile() );
+
+    final BufferedOutputStream os = new BufferedOutputStream( new FileOutputStream( tempFile ) );
+    final ZipOutputStream zipOS = new ZipOutputStream( os );
+
+    zipOS.setComment( this.hostProperties.getFullName().concat( " project file" ) );
+
+    try
+    {
+      storeProjectMetadata( snapshot, zipOS );
+      // Store the channel labels...
+      storeChannelLabels( snapshot, zipOS );
+      // Store the settings...
+      storeProjectSettings( snapshot, zipOS );
+      // Store the last capture results, uncompressed...
+      storeCapturedResultsUncompressed( snapshot, zipOS, aListener );
+
+      zipOS.close();
+
+      // Renaming replaces the original file atomically on most platforms; on
+      // others we've to remove the original file first...
+      if ( !tempFile.renameTo( aFile ) && ( !aFile.delete() || !tempFile.renameTo( aFile ) ) )
+      {
+        throw new IOException( "Failed to replace project file!" );
+      }
+
+      reportProgress( aListener, 100 );
+    }
+    finally
+    {
+      HostUtils.closeResource( zipOS );
+      HostUtils.closeResource( os );
+
+      if ( tempFile.exists() && !tempFile.delete() )
+      {
+        tempFile.deleteOnExit();
+      }
+    }
+  }
+
   /**
    * Sets hostProperties to the given value.
    * 
@@ -222,7 +463,26 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
   }
 
   /**
-   * Reads the capture results from the given ZIP-input stream.
+   * @see nl.lxtreme.ols.api.data.project.ProjectManager#setProjectSaved(nl.lxtreme.ols.api.data.project.Project,
+   *      java.io.File)
+   */
+  @Override
+  public void setProjectSaved( final Project aSnapshot, final File aFile )
+  {
+    if ( !( aSnapshot instanceof ProjectImpl ) )
+    {
+      throw new IllegalArgumentException( "Invalid project snapshot!" );
+    }
+    if ( aFile == null )
+    {
+      throw new IllegalArgumentException( "File cannot be null!" );
+    }
+
+    this.project.setSaved( ( ProjectImpl )aSnapshot, aFile );
+  }
+
+  /**
+   * Reads the capture results from the given (ZIP-entry) input stream.
    * 
    * @param aProject
    *          the project to read the capture results for;
@@ -231,13 +491,13 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void loadCapturedResults( final Project aProject, final ZipInputStream aZipIS ) throws IOException
+  protected void loadCapturedResults( final Project aProject, final InputStream aZipIS ) throws IOException
   {
     OlsDataHelper.read( aProject, new InputStreamReader( aZipIS ) );
   }
 
   /**
-   * Reads the project channel labels from the given ZIP-input stream.
+   * Reads the project channel labels from the given (ZIP-entry) input stream.
    * 
    * @param aProject
    *          the project to read the channel labels for;
@@ -246,7 +506,7 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void loadChannelLabels( final Project aProject, final ZipInputStream aZipIS ) throws IOException
+  protected void loadChannelLabels( final Project aProject, final InputStream aZipIS ) throws IOException
   {
     final InputStreamReader isReader = new InputStreamReader( aZipIS );
     final BufferedReader reader = new BufferedReader( isReader );
@@ -269,7 +529,7 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
   }
 
   /**
-   * Reads the project metadata to the given ZIP-input stream.
+   * Reads the project metadata from the given (ZIP-entry) input stream.
    * 
    * @param aProject
    *          the project to read the metadata for;
@@ -278,7 +538,7 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void loadProjectMetadata( final Project aProject, final ZipInputStream aZipIS ) throws IOException
+  protected void loadProjectMetadata( final Project aProject, final InputStream aZipIS ) throws IOException
   {
     final InputStreamReader isReader = new InputStreamReader( aZipIS );
     final BufferedReader reader = new BufferedReader( isReader );
@@ -304,7 +564,7 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
   }
 
   /**
-   * Reads the project settings to the given ZIP-input stream.
+   * Reads the project settings from the given (ZIP-entry) input stream.
    * 
    * @param aProject
    *          the project to read the settings for;
@@ -316,7 +576,7 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
    *           in case of I/O problems.
    */
   protected void loadProjectSettings( final ProjectImpl aProject, final String aUserSettingsName,
-      final ZipInputStream aZipIS ) throws IOException
+      final InputStream aZipIS ) throws IOException
   {
     final Properties settings = new Properties();
     try
@@ -342,11 +602,13 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
    * @param aZipOS
    *          the ZIP output stream to write the capture results to.
    * @throws IOException
-   *           in case of I/O problems.
+   *           in case of I/O problems, or in case the captured data could not
+   *           be loaded.
    */
   protected void storeCapturedResults( final Project aProject, final ZipOutputStream aZipOS ) throws IOException
   {
     final AcquisitionResult data = aProject.getCapturedData();
+    checkCapturedDataLoaded( aProject );
     if ( data == null )
     {
       return;
@@ -487,6 +749,189 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
     }
   }
 
+  /**
+   * Verifies that the captured data of the given project could be loaded, as
+   * storing it without its captured data would lose that data.
+   * 
+   * @param aProject
+   *          the project to verify, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case the captured data of the given project could not be
+   *           loaded.
+   */
+  private static void checkCapturedDataLoaded( final Project aProject ) throws IOException
+  {
+    if ( ( aProject instanceof ProjectImpl ) && ( ( ProjectImpl )aProject ).isCapturedDataLoadFailed() )
+    {
+      throw new IOException( "Captured data could not be loaded; refusing to save the project without it!" );
+    }
+  }
+
+  /**
+   * Copies all bytes from the given input stream to the given output stream,
+   * reporting the progress between the given percentages.
+   */
+  private static void copy( final InputStream aInput, final OutputStream aOutput, final long aSize,
+      final ProjectProgressListener aListener, final int aFromPercentage, final int aToPercentage ) throws IOException
+  {
+    final byte[] buffer = new byte[65536];
+    long copied = 0L;
+    int read;
+    while ( ( read = aInput.read( buffer ) ) >= 0 )
+    {
+      if ( Thread.currentThread().isInterrupted() )
+      {
+        throw new InterruptedIOException( "Saving project interrupted!" );
+      }
+
+      aOutput.write( buffer, 0, read );
+
+      copied += read;
+      if ( aSize > 0L )
+      {
+        reportProgress( aListener,
+            aFromPercentage + ( int )( ( ( aToPercentage - aFromPercentage ) * Math.min( copied, aSize ) ) / aSize ) );
+      }
+    }
+  }
+
+  /**
+   * Reports the given progress to the given listener, if any.
+   */
+  private static void reportProgress( final ProjectProgressListener aListener, final int aPercentage )
+  {
+    if ( aListener != null )
+    {
+      aListener.setProgress( aPercentage );
+    }
+  }
+
+  /**
+   * Creates a new uncompressed ZIP-entry for the captured data.
+   */
+  private static ZipEntry createStoredEntry( final long aSize, final long aCrc )
+  {
+    final ZipEntry zipEntry = new ZipEntry( FILENAME_CAPTURE_RESULTS );
+    zipEntry.setMethod( ZipEntry.STORED );
+    zipEntry.setSize( aSize );
+    zipEntry.setCompressedSize( aSize );
+    zipEntry.setCrc( aCrc );
+    return zipEntry;
+  }
+
+  /**
+   * Copies the captured data as-is from the given project file to the given
+   * ZIP-output stream.
+   * 
+   * @return <code>true</code> if the captured data is copied,
+   *         <code>false</code> if the given project file does not contain
+   *         captured data.
+   */
+  private boolean copyCapturedResults( final File aSource, final ZipOutputStream aZipOS,
+      final ProjectProgressListener aListener ) throws IOException
+  {
+    final ZipFile zipFile = new ZipFile( aSource );
+    try
+    {
+      final ZipEntry entry = zipFile.getEntry( FILENAME_CAPTURE_RESULTS );
+      if ( ( entry == null ) || ( entry.getSize() < 0L ) || ( entry.getCrc() < 0L ) )
+      {
+        return false;
+      }
+
+      aZipOS.putNextEntry( createStoredEntry( entry.getSize(), entry.getCrc() ) );
+
+      final InputStream is = zipFile.getInputStream( entry );
+      try
+      {
+        copy( is, aZipOS, entry.getSize(), aListener, 0, 100 );
+      }
+      finally
+      {
+        HostUtils.closeResource( is );
+      }
+
+      aZipOS.closeEntry();
+      return true;
+    }
+    finally
+    {
+      zipFile.close();
+    }
+  }
+
+  /**
+   * Stores the captured results of the given project as uncompressed entry to
+   * the given ZIP-output stream.
+   * <p>
+   * In case the captured data did not change since it was last loaded or
+   * saved, it is copied from its project file without (re)formatting it. If
+   * the given project does not have capture results, this method does
+   * nothing.
+   * </p>
+   * 
+   * @throws IOException
+   *           in case of I/O problems, or in case the captured data could not
+   *           be loaded nor copied, as storing the project without it would
+   *           lose the captured data.
+   */
+  private void storeCapturedResultsUncompressed( final ProjectImpl aProject, final ZipOutputStream aZipOS,
+      final ProjectProgressListener aListener ) throws IOException
+  {
+    final File source = aProject.getCapturedDataSource();
+    if ( ( source != null ) && source.exists() && copyCapturedResults( source, aZipOS, aListener ) )
+    {
+      return;
+    }
+
+    final AcquisitionResult data = aProject.getCapturedData();
+    checkCapturedDataLoaded( aProject );
+    if ( data == null )
+    {
+      return;
+    }
+
+    // A stored entry needs its size and CRC up front, so format the data to a
+    // temporary file first...
+    final File tempFile = File.createTempFile( "ols", ".data" );
+    try
+    {
+      final CheckedOutputStream cos = new CheckedOutputStream( new BufferedOutputStream( new FileOutputStream(
+          tempFile ) ), new CRC32() );
+      try
+      {
+        OlsDataHelper.write( aProject, new OutputStreamWriter( cos ) );
+      }
+      finally
+      {
+        HostUtils.closeResource( cos );
+      }
+
+      reportProgress( aListener, 50 );
+
+      aZipOS.putNextEntry( createStoredEntry( tempFile.length(), cos.getChecksum().getValue() ) );
+
+      final InputStream is = new FileInputStream( tempFile );
+      try
+      {
+        copy( is, aZipOS, tempFile.length(), aListener, 50, 100 );
+      }
+      finally
+      {
+        HostUtils.closeResource( is );
+      }
+
+      aZipOS.closeEntry();
+    }
+    finally
+    {
+      if ( !tempFile.delete() )
+      {
+        tempFile.deleteOnExit();
+      }
+    }
+  }
+
   /**
    * Sets the current project to the given project, moving all registered
    * property change listeners to the new project.
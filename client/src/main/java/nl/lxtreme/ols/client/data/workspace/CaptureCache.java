@@ -0,0 +1,659 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.data.workspace;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.virtual.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides a cache for captured data that keeps the most recently used
+ * captures in memory, within a given memory budget.
+ * <p>
+ * Captures that do not fit in the memory budget are spilled to disk in a
+ * compact binary form, and transparently read back when they are used again.
+ * As captured data is never modified, a capture is spilled only once; evicting
+ * it a second time merely drops its in-memory copy. State views are read back
+ * along with the clock edges of their states.
+ * </p>
+ * <p>
+ * This class is thread-safe. Spilling and reading back captures is done
+ * outside the lock of this cache, so concurrent callers are not blocked by it;
+ * as this still involves disk I/O, {@link #add(AcquisitionResult)} and
+ * {@link #get(long)} should not be called on the EDT.
+ * </p>
+ */
+public final class CaptureCache implements Closeable
+{
+  // INNER TYPES
+
+  /**
+   * Denotes a single cached capture.
+   */
+  static final class Entry
+  {
+    // VARIABLES
+
+    final long size;
+    AcquisitionResult data;
+    File spillFile;
+    /** Whether this entry is currently being written to disk. */
+    boolean spilling;
+    /** Whether this entry is removed from the cache. */
+    boolean removed;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Entry instance.
+     */
+    Entry( final AcquisitionResult aData )
+    {
+      this.data = aData;
+      this.size = estimateSize( aData );
+    }
+  }
+
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( CaptureCache.class.getName() );
+
+  /** Identifies the spill file format. */
+  private static final int SPILL_MAGIC = 0x4f4c5343; // "OLSC"
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  // VARIABLES
+
+  private final long memoryBudget;
+  private final File spillDir;
+  /** All entries, in least-recently-used order. */
+  private final LinkedHashMap<Long, Entry> entries;
+
+  private long memoryUsed;
+  private long nextKey;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CaptureCache instance.
+   * 
+   * @param aMemoryBudget
+   *          the maximum number of bytes the in-memory captures may take, >=
+   *          0. The most recently used capture is always kept in memory,
+   *          regardless of its size;
+   * @param aSpillDir
+   *          the directory to spill captures to, can be <code>null</code> to
+   *          use the default temporary directory.
+   */
+  public CaptureCache( final long aMemoryBudget, final File aSpillDir )
+  {
+    if ( aMemoryBudget < 0L )
+    {
+      throw new IllegalArgumentException( "Memory budget cannot be negative!" );
+    }
+
+    this.memoryBudget = aMemoryBudget;
+    this.spillDir = aSpillDir;
+    // Use access-order to get LRU semantics...
+    this.entries = new LinkedHashMap<Long, Entry>( 16, 0.75f, true /* accessOrder */);
+  }
+
+  // METHODS
+
+  /**
+   * Returns the (approximate) number of bytes the given capture takes in
+   * memory.
+   * 
+   * @param aData
+   *          the capture to estimate the size for, cannot be <code>null</code>.
+   * @return a size, in bytes.
+   */
+  static long estimateSize( final AcquisitionResult aData )
+  {
+    final long sampleCount = aData.getTimestamps().length;
+
+    int columns = 1;
+    if ( aData instanceof WideAcquisitionResult )
+    {
+      final WideAcquisitionResult wideData = ( WideAcquisitionResult )aData;
+      for ( int i = 1; i < wideData.getWordCount(); i++ )
+      {
+        if ( wideData.getValues( i ) != null )
+        {
+          columns++;
+        }
+      }
+    }
+
+    return sampleCount * ( 8L + 4L * columns );
+  }
+
+  /**
+   * Removes the given file, if any.
+   */
+  private static void deleteFile( final File aFile )
+  {
+    if ( ( aFile != null ) && !aFile.delete() )
+    {
+      aFile.deleteOnExit();
+    }
+  }
+
+  /**
+   * Reads a capture from the given spill file.
+   */
+  private static AcquisitionResult readSpillFile( final File aFile ) throws IOException
+  {
+    final DataInputStream dis = new DataInputStream( new BufferedInputStream( new FileInputStream( aFile ), BUFFER_SIZE ) );
+    try
+    {
+      if ( dis.readInt() != SPILL_MAGIC )
+      {
+        throw new IOException( "Invalid spill file: " + aFile );
+      }
+
+      final int rate = dis.readInt();
+      final int channels = dis.readInt();
+      final long triggerPosition = dis.readLong();
+      final long absoluteLength = dis.readLong();
+
+      final int wordCount = dis.readInt();
+      final int[] enabledChannels = new int[wordCount];
+      for ( int i = 0; i < wordCount; i++ )
+      {
+        enabledChannels[i] = dis.readInt();
+      }
+
+      final int sampleCount = dis.readInt();
+
+      // Timestamps are sorted, so store their deltas as variable-length
+      // integers...
+      final long[] timestamps = new long[sampleCount];
+      long timestamp = 0L;
+      for ( int i = 0; i < sampleCount; i++ )
+      {
+        timestamp += readVarLong( dis );
+        timestamps[i] = timestamp;
+      }
+
+      final int[][] columns = new int[wordCount][];
+      for ( int w = 0; w < wordCount; w++ )
+      {
+        if ( !dis.readBoolean() )
+        {
+          continue;
+        }
+
+        final int[] column = new int[sampleCount];
+        for ( int i = 0; i < sampleCount; i++ )
+        {
+          column[i] = dis.readInt();
+        }
+        columns[w] = column;
+      }
+
+      final AcquisitionResult result = WideCapturedData.create( columns, timestamps, triggerPosition, rate,
+          channels, enabledChannels, absoluteLength );
+
+      if ( dis.readBoolean() )
+      {
+        // A state view; restore the time stamps of its clock edges...
+        final long[] sourceTimestamps = new long[dis.readInt()];
+        long sourceTimestamp = 0L;
+        for ( int i = 0; i < sourceTimestamps.length; i++ )
+        {
+          sourceTimestamp += readVarLong( dis );
+          sourceTimestamps[i] = sourceTimestamp;
+        }
+        return StateView.create( result, sourceTimestamps );
+      }
+
+      return result;
+    }
+    finally
+    {
+      HostUtils.closeResource( dis );
+    }
+  }
+
+  /**
+   * Reads a variable-length, zig-zag encoded, long value.
+   */
+  private static long readVarLong( final DataInput aInput ) throws IOException
+  {
+    long value = 0L;
+    int shift = 0;
+    int b;
+    do
+    {
+      b = aInput.readUnsignedByte();
+      value |= ( long )( b & 0x7f ) << shift;
+      shift += 7;
+    }
+    while ( ( b & 0x80 ) != 0 );
+
+    return ( value >>> 1 ) ^ -( value & 1L );
+  }
+
+  /**
+   * Writes the given capture to the given spill file.
+   */
+  private static void writeSpillFile( final File aFile, final AcquisitionResult aData ) throws IOException
+  {
+    final int wordCount;
+    final int totalChannels;
+    final int[] enabledChannels;
+    final int[][] columns;
+
+    if ( aData instanceof WideAcquisitionResult )
+    {
+      final WideAcquisitionResult wideData = ( WideAcquisitionResult )aData;
+      wordCount = wideData.getWordCount();
+      totalChannels = wideData.getTotalChannels();
+      enabledChannels = new int[wordCount];
+      columns = new int[wordCount][];
+      for ( int w = 0; w < wordCount; w++ )
+      {
+        enabledChannels[w] = wideData.getEnabledChannels( w );
+        columns[w] = wideData.getValues( w );
+      }
+    }
+    else
+    {
+      wordCount = 1;
+      totalChannels = aData.getChannels();
+      enabledChannels = new int[] { aData.getEnabledChannels() };
+      columns = new int[][] { aData.getValues() };
+    }
+
+    final long[] timestamps = aData.getTimestamps();
+
+    final DataOutputStream dos = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( aFile ),
+        BUFFER_SIZE ) );
+    try
+    {
+      dos.writeInt( SPILL_MAGIC );
+      dos.writeInt( aData.getSampleRate() );
+      dos.writeInt( totalChannels );
+      dos.writeLong( aData.getTriggerPosition() );
+      dos.writeLong( aData.getAbsoluteLength() );
+
+      dos.writeInt( wordCount );
+      for ( int i = 0; i < wordCount; i++ )
+      {
+        dos.writeInt( enabledChannels[i] );
+      }
+
+      dos.writeInt( timestamps.length );
+
+      long previous = 0L;
+      for ( long timestamp : timestamps )
+      {
+        writeVarLong( dos, timestamp - previous );
+        previous = timestamp;
+      }
+
+      for ( int[] column : columns )
+      {
+        dos.writeBoolean( column != null );
+        if ( column != null )
+        {
+          for ( int value : column )
+          {
+            dos.writeInt( value );
+          }
+        }
+      }
+
+      dos.writeBoolean( aData instanceof StateView );
+      if ( aData instanceof StateView )
+      {
+        final StateView stateView = ( StateView )aData;
+        final int stateCount = stateView.getStateCount();
+
+        dos.writeInt( stateCount );
+
+        previous = 0L;
+        for ( int i = 0; i < stateCount; i++ )
+        {
+          final long sourceTimestamp = stateView.getSourceTimestamp( i );
+          writeVarLong( dos, sourceTimestamp - previous );
+          previous = sourceTimestamp;
+        }
+      }
+    }
+    finally
+    {
+      HostUtils.closeResource( dos );
+    }
+  }
+
+  /**
+   * Writes the given value as variable-length, zig-zag encoded, long value.
+   */
+  private static void writeVarLong( final DataOutput aOutput, final long aValue ) throws IOException
+  {
+    long value = ( aValue << 1 ) ^ ( aValue >> 63 );
+    while ( ( value & ~0x7fL ) != 0L )
+    {
+      aOutput.writeByte( ( int )( ( value & 0x7f ) | 0x80 ) );
+      value >>>= 7;
+    }
+    aOutput.writeByte( ( int )value );
+  }
+
+  /**
+   * Adds the given capture to this cache, making it the most recently used
+   * capture.
+   * 
+   * @param aData
+   *          the capture to add, cannot be <code>null</code>.
+   * @return the key of the added capture, to be used for retrieving it later.
+   */
+  public long add( final AcquisitionResult aData )
+  {
+    if ( aData == null )
+    {
+      throw new IllegalArgumentException( "Data cannot be null!" );
+    }
+
+    final Entry entry = new Entry( aData );
+    final long key;
+
+    synchronized ( this )
+    {
+      key = this.nextKey++;
+
+      this.entries.put( Long.valueOf( key ), entry );
+      this.memoryUsed += entry.size;
+    }
+
+    evict( entry );
+
+    return key;
+  }
+
+  /**
+   * Removes all captures from this cache, and removes all spill files.
+   */
+  @Override
+  public synchronized void close()
+  {
+    for ( Entry entry : this.entries.values() )
+    {
+      entry.removed = true;
+      deleteSpillFile( entry );
+    }
+    this.entries.clear();
+    this.memoryUsed = 0L;
+  }
+
+  /**
+   * Returns the capture with the given key, making it the most recently used
+   * capture. If needed, the capture is read back from disk.
+   * 
+   * @param aKey
+   *          the key of the capture to return.
+   * @return the capture, or <code>null</code> if no capture with the given key
+   *         exists.
+   * @throws IOException
+   *           in case the capture could not be read back from disk.
+   */
+  public AcquisitionResult get( final long aKey ) throws IOException
+  {
+    final Entry entry;
+    final File spillFile;
+
+    synchronized ( this )
+    {
+      entry = this.entries.get( Long.valueOf( aKey ) );
+      if ( entry == null )
+      {
+        return null;
+      }
+      if ( entry.data != null )
+      {
+        return entry.data;
+      }
+      spillFile = entry.spillFile;
+    }
+
+    LOG.log( Level.FINE, "Reading capture #{0} back from disk ...", Long.valueOf( aKey ) );
+
+    AcquisitionResult data;
+    try
+    {
+      data = readSpillFile( spillFile );
+    }
+    catch ( IOException exception )
+    {
+      synchronized ( this )
+      {
+        if ( entry.removed )
+        {
+          // Removed while we were reading it; its spill file is gone...
+          return null;
+        }
+      }
+      throw exception;
+    }
+
+    synchronized ( this )
+    {
+      if ( entry.removed )
+      {
+        return null;
+      }
+      if ( entry.data == null )
+      {
+        entry.data = data;
+        this.memoryUsed += entry.size;
+      }
+      else
+      {
+        // Concurrently read back by another caller...
+        data = entry.data;
+      }
+    }
+
+    evict( entry );
+
+    return data;
+  }
+
+  /**
+   * Returns the memory budget of this cache.
+   * 
+   * @return the memory budget, in bytes.
+   */
+  public long getMemoryBudget()
+  {
+    return this.memoryBudget;
+  }
+
+  /**
+   * Returns the number of bytes currently taken by the in-memory captures.
+   * 
+   * @return the used memory, in bytes.
+   */
+  public synchronized long getMemoryUsed()
+  {
+    return this.memoryUsed;
+  }
+
+  /**
+   * Returns whether the capture with the given key is currently in memory.
+   * 
+   * @param aKey
+   *          the key of the capture to test.
+   * @return <code>true</code> if the capture is in memory, <code>false</code>
+   *         if it is spilled to disk or does not exist.
+   */
+  public synchronized boolean isResident( final long aKey )
+  {
+    final Entry entry = this.entries.get( Long.valueOf( aKey ) );
+    return ( entry != null ) && ( entry.data != null );
+  }
+
+  /**
+   * Removes the capture with the given key from this cache.
+   * 
+   * @param aKey
+   *          the key of the capture to remove.
+   */
+  public synchronized void remove( final long aKey )
+  {
+    final Entry entry = this.entries.remove( Long.valueOf( aKey ) );
+    if ( entry != null )
+    {
+      entry.removed = true;
+      if ( entry.data != null )
+      {
+        this.memoryUsed -= entry.size;
+      }
+      deleteSpillFile( entry );
+    }
+  }
+
+  /**
+   * Removes the spill file of the given entry, if any.
+   */
+  private void deleteSpillFile( final Entry aEntry )
+  {
+    deleteFile( aEntry.spillFile );
+    aEntry.spillFile = null;
+  }
+
+  /**
+   * Drops the in-memory copy of the given entry.
+   */
+  private void drop( final Entry aEntry )
+  {
+    aEntry.data = null;
+    this.memoryUsed -= aEntry.size;
+  }
+
+  /**
+   * Evicts the least recently used captures until the memory budget is met
+   * again, spilling them to disk if needed. The spill files are written without
+   * holding the lock of this cache.
+   * 
+   * @param aRetained
+   *          the entry that should never be evicted.
+   */
+  private void evict( final Entry aRetained )
+  {
+    final Set<Entry> failed = new HashSet<Entry>();
+
+    while ( true )
+    {
+      final Entry victim;
+      final AcquisitionResult data;
+
+      synchronized ( this )
+      {
+        victim = findVictim( aRetained, failed );
+        if ( victim == null )
+        {
+          return;
+        }
+
+        if ( victim.spillFile != null )
+        {
+          // Already on disk; only drop its in-memory copy...
+          drop( victim );
+          continue;
+        }
+
+        victim.spilling = true;
+        data = victim.data;
+      }
+
+      File spillFile = null;
+      try
+      {
+        spillFile = File.createTempFile( "ols", ".capture", this.spillDir );
+        writeSpillFile( spillFile, data );
+      }
+      catch ( IOException exception )
+      {
+        LOG.log( Level.WARNING, "Failed to spill capture to disk; keeping it in memory!", exception );
+        deleteFile( spillFile );
+        spillFile = null;
+        failed.add( victim );
+      }
+
+      synchronized ( this )
+      {
+        victim.spilling = false;
+
+        if ( victim.removed )
+        {
+          deleteFile( spillFile );
+        }
+        else if ( spillFile != null )
+        {
+          victim.spillFile = spillFile;
+          // The budget might be met already by concurrent removals...
+          if ( ( this.memoryUsed > this.memoryBudget ) && ( victim.data != null ) )
+          {
+            drop( victim );
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the least recently used entry that should be evicted in order to
+   * meet the memory budget.
+   * 
+   * @param aRetained
+   *          the entry that should never be evicted;
+   * @param aFailed
+   *          the entries that could not be spilled to disk.
+   * @return the entry to evict, or <code>null</code> if the memory budget is
+   *         met or no entry can be evicted.
+   */
+  private Entry findVictim( final Entry aRetained, final Set<Entry> aFailed )
+  {
+    if ( this.memoryUsed <= this.memoryBudget )
+    {
+      return null;
+    }
+
+    for ( Entry entry : this.entries.values() )
+    {
+      if ( ( entry != aRetained ) && ( entry.data != null ) && !entry.spilling && !aFailed.contains( entry ) )
+      {
+        return entry;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,330 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.data.workspace;
+
+
+import java.io.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Provides a workspace holding multiple captures, of which one is selected at
+ * any given time.
+ * <p>
+ * Besides its captured data, each capture keeps its own cursors and channel
+ * annotations. The captured data itself is kept in a {@link CaptureCache}, so
+ * only the most recently used captures occupy memory.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class CaptureWorkspace implements Closeable
+{
+  // INNER TYPES
+
+  /**
+   * Denotes a single capture in this workspace, along with its state.
+   */
+  public static final class Capture
+  {
+    // VARIABLES
+
+    private final String name;
+    private final long key;
+    private final Long[] cursors;
+    private boolean cursorsEnabled;
+    private final Map<Integer, ChannelAnnotations> annotations;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Capture instance.
+     */
+    Capture( final String aName, final long aKey )
+    {
+      this.name = aName;
+      this.key = aKey;
+      this.cursors = new Long[Ols.MAX_CURSORS];
+      this.annotations = new HashMap<Integer, ChannelAnnotations>();
+    }
+
+    // METHODS
+
+    /**
+     * Returns the channel annotations of this capture.
+     * 
+     * @return a map of channel index to annotations, never <code>null</code>.
+     */
+    public Map<Integer, ChannelAnnotations> getChannelAnnotations()
+    {
+      return Collections.unmodifiableMap( this.annotations );
+    }
+
+    /**
+     * Returns the cursor positions of this capture.
+     * 
+     * @return a copy of the cursor positions, never <code>null</code>.
+     */
+    public Long[] getCursorPositions()
+    {
+      return this.cursors.clone();
+    }
+
+    /**
+     * Returns the name of this capture.
+     * 
+     * @return a name, never <code>null</code>.
+     */
+    public String getName()
+    {
+      return this.name;
+    }
+
+    /**
+     * Returns whether the cursors of this capture are enabled.
+     * 
+     * @return <code>true</code> if the cursors are enabled, <code>false</code>
+     *         otherwise.
+     */
+    public boolean isCursorsEnabled()
+    {
+      return this.cursorsEnabled;
+    }
+
+    /**
+     * Sets the channel annotations of this capture.
+     * 
+     * @param aAnnotations
+     *          the annotations to set, cannot be <code>null</code>.
+     */
+    public void setChannelAnnotations( final Map<Integer, ChannelAnnotations> aAnnotations )
+    {
+      this.annotations.clear();
+      this.annotations.putAll( aAnnotations );
+    }
+
+    /**
+     * Sets the cursors of this capture.
+     * 
+     * @param aCursors
+     *          the cursor positions to set, cannot be <code>null</code>;
+     * @param aCursorsEnabled
+     *          <code>true</code> if the cursors are enabled, <code>false</code>
+     *          otherwise.
+     */
+    public void setCursors( final Long[] aCursors, final boolean aCursorsEnabled )
+    {
+      Arrays.fill( this.cursors, null );
+      System.arraycopy( aCursors, 0, this.cursors, 0, Math.min( aCursors.length, this.cursors.length ) );
+      this.cursorsEnabled = aCursorsEnabled;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+      return this.name;
+    }
+  }
+
+  // VARIABLES
+
+  private final CaptureCache cache;
+  private final int maxCaptures;
+  private final List<Capture> captures;
+
+  private int selectedIdx;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CaptureWorkspace instance.
+   * 
+   * @param aCache
+   *          the cache to keep the captured data in, cannot be
+   *          <code>null</code>;
+   * @param aMaxCaptures
+   *          the maximum number of captures to keep, > 0. When more captures
+   *          are added, the oldest ones are removed.
+   */
+  public CaptureWorkspace( final CaptureCache aCache, final int aMaxCaptures )
+  {
+    if ( aCache == null )
+    {
+      throw new IllegalArgumentException( "Cache cannot be null!" );
+    }
+    if ( aMaxCaptures <= 0 )
+    {
+      throw new IllegalArgumentException( "Maximum number of captures should be positive!" );
+    }
+
+    this.cache = aCache;
+    this.maxCaptures = aMaxCaptures;
+    this.captures = new ArrayList<Capture>();
+    this.selectedIdx = -1;
+  }
+
+  // METHODS
+
+  /**
+   * Adds the given captured data to this workspace, and selects it.
+   * 
+   * @param aName
+   *          the name of the capture, cannot be <code>null</code>;
+   * @param aData
+   *          the captured data to add, cannot be <code>null</code>.
+   * @return the added capture, never <code>null</code>.
+   */
+  public Capture add( final String aName, final AcquisitionResult aData )
+  {
+    if ( aName == null )
+    {
+      throw new IllegalArgumentException( "Name cannot be null!" );
+    }
+
+    // Adding to the cache might spill other captures to disk; do this without
+    // holding our own lock...
+    final Capture capture = new Capture( aName, this.cache.add( aData ) );
+
+    synchronized ( this )
+    {
+      this.captures.add( capture );
+
+      while ( this.captures.size() > this.maxCaptures )
+      {
+        final Capture oldest = this.captures.remove( 0 );
+        this.cache.remove( oldest.key );
+      }
+
+      this.selectedIdx = this.captures.size() - 1;
+    }
+
+    return capture;
+  }
+
+  /**
+   * Removes all captures from this workspace.
+   */
+  public synchronized void clear()
+  {
+    for ( Capture capture : this.captures )
+    {
+      this.cache.remove( capture.key );
+    }
+    this.captures.clear();
+    this.selectedIdx = -1;
+  }
+
+  /**
+   * Removes all captures from this workspace, and closes the underlying cache.
+   */
+  @Override
+  public synchronized void close()
+  {
+    this.captures.clear();
+    this.selectedIdx = -1;
+    this.cache.close();
+  }
+
+  /**
+   * Returns the capture with the given index.
+   * 
+   * @param aIndex
+   *          the index of the capture to return, >= 0 && < capture count.
+   * @return the capture, never <code>null</code>.
+   */
+  public synchronized Capture getCapture( final int aIndex )
+  {
+    return this.captures.get( aIndex );
+  }
+
+  /**
+   * Returns the number of captures in this workspace.
+   * 
+   * @return a capture count, >= 0.
+   */
+  public synchronized int getCaptureCount()
+  {
+    return this.captures.size();
+  }
+
+  /**
+   * Returns the captured data of the given capture, reading it back from disk
+   * if needed.
+   * 
+   * @param aCapture
+   *          the capture to return the data for, cannot be <code>null</code>.
+   * @return the captured data, or <code>null</code> if the given capture is
+   *         no longer part of this workspace.
+   * @throws IOException
+   *           in case the captured data could not be read back from disk.
+   */
+  public AcquisitionResult getData( final Capture aCapture ) throws IOException
+  {
+    return this.cache.get( aCapture.key );
+  }
+
+  /**
+   * Returns the selected capture.
+   * 
+   * @return the selected capture, or <code>null</code> if this workspace is
+   *         empty.
+   */
+  public synchronized Capture getSelectedCapture()
+  {
+    return ( this.selectedIdx < 0 ) ? null : this.captures.get( this.selectedIdx );
+  }
+
+  /**
+   * Returns the index of the selected capture.
+   * 
+   * @return the index of the selected capture, or -1 if this workspace is
+   *         empty.
+   */
+  public synchronized int getSelectedIndex()
+  {
+    return this.selectedIdx;
+  }
+
+  /**
+   * Selects the capture with the given index.
+   * 
+   * @param aIndex
+   *          the index of the capture to select, >= 0 && < capture count.
+   * @return the selected capture, never <code>null</code>.
+   */
+  public synchronized Capture select( final int aIndex )
+  {
+    if ( ( aIndex < 0 ) || ( aIndex >= this.captures.size() ) )
+    {
+      throw new IndexOutOfBoundsException( "Invalid capture index: " + aIndex );
+    }
+    this.selectedIdx = aIndex;
+    return this.captures.get( aIndex );
+  }
+}
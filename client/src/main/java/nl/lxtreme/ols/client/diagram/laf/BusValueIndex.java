@@ -0,0 +1,292 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.diagram.laf;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.client.diagram.settings.*;
+
+
+/**
+ * Provides the precomputed values of a single bus for an acquisition result.
+ * <p>
+ * The bus values are extracted once, and only the samples at which the bus
+ * value actually changes are retained. On top of these values, a pyramid of
+ * minimum and maximum values is built, so the value envelope of any range of
+ * samples can be determined in logarithmic time. This allows zoomed out views
+ * of (wide) buses to be drawn with an effort proportional to the number of
+ * pixels instead of the number of samples.
+ * </p>
+ * <p>
+ * Instances of this class are immutable, and can therefore be shared between
+ * threads.
+ * </p>
+ */
+final class BusValueIndex
+{
+  // CONSTANTS
+
+  /** The number of entries of a level that are combined in the next level. */
+  private static final int FANOUT = 16;
+
+  // VARIABLES
+
+  private final int[] sourceValues;
+  private final BusDefinition bus;
+  private final long[] timestamps;
+  /** level 0 contains the actual bus values. */
+  private final long[][] minLevels;
+  private final long[][] maxLevels;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new BusValueIndex instance.
+   */
+  private BusValueIndex( final int[] aSourceValues, final BusDefinition aBus, final long[] aTimestamps,
+      final long[] aValues )
+  {
+    this.sourceValues = aSourceValues;
+    this.bus = aBus;
+    this.timestamps = aTimestamps;
+
+    int levelCount = 1;
+    for ( int size = aValues.length; size > FANOUT; size = ( size + FANOUT - 1 ) / FANOUT )
+    {
+      levelCount++;
+    }
+
+    this.minLevels = new long[levelCount][];
+    this.maxLevels = new long[levelCount][];
+    this.minLevels[0] = aValues;
+    this.maxLevels[0] = aValues;
+
+    for ( int level = 1; level < levelCount; level++ )
+    {
+      final long[] prevMin = this.minLevels[level - 1];
+      final long[] prevMax = this.maxLevels[level - 1];
+
+      final int size = ( prevMin.length + FANOUT - 1 ) / FANOUT;
+      final long[] min = new long[size];
+      final long[] max = new long[size];
+
+      for ( int i = 0; i < size; i++ )
+      {
+        final int start = i * FANOUT;
+        final int end = Math.min( prevMin.length, start + FANOUT );
+
+        long minValue = Long.MAX_VALUE;
+        long maxValue = Long.MIN_VALUE;
+        for ( int j = start; j < end; j++ )
+        {
+          minValue = Math.min( minValue, prevMin[j] );
+          maxValue = Math.max( maxValue, prevMax[j] );
+        }
+        min[i] = minValue;
+        max[i] = maxValue;
+      }
+
+      this.minLevels[level] = min;
+      this.maxLevels[level] = max;
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Creates a new bus value index.
+   * 
+   * @param aValues
+   *          the sample values to extract the bus values from;
+   * @param aTimestamps
+   *          the timestamps of the sample values;
+   * @param aBus
+   *          the bus to create the index for.
+   * @return a new bus value index, never <code>null</code>.
+   */
+  public static BusValueIndex create( final int[] aValues, final long[] aTimestamps, final BusDefinition aBus )
+  {
+    // First pass: count the number of bus value changes, to avoid resizing
+    // arrays...
+    int count = 0;
+    long lastValue = -1L;
+    for ( int i = 0; i < aValues.length; i++ )
+    {
+      final long value = aBus.extractValue( aValues[i] );
+      if ( ( i == 0 ) || ( value != lastValue ) )
+      {
+        count++;
+        lastValue = value;
+      }
+    }
+
+    final long[] timestamps = new long[count];
+    final long[] values = new long[count];
+
+    // Second pass: record all bus value changes...
+    for ( int i = 0, j = 0; i < aValues.length; i++ )
+    {
+      final long value = aBus.extractValue( aValues[i] );
+      if ( ( i == 0 ) || ( value != lastValue ) )
+      {
+        timestamps[j] = aTimestamps[i];
+        values[j] = value;
+        j++;
+        lastValue = value;
+      }
+    }
+
+    return new BusValueIndex( aValues, aBus, timestamps, values );
+  }
+
+  /**
+   * Returns the largest bus value in the given range of value changes.
+   * 
+   * @param aFromIdx
+   *          the index of the first value change, inclusive;
+   * @param aToIdx
+   *          the index of the last value change, inclusive.
+   * @return the maximum bus value in the given range.
+   */
+  public long getMaximum( final int aFromIdx, final int aToIdx )
+  {
+    return query( this.maxLevels, true /* aMaximum */, aFromIdx, aToIdx );
+  }
+
+  /**
+   * Returns the smallest bus value in the given range of value changes.
+   * 
+   * @param aFromIdx
+   *          the index of the first value change, inclusive;
+   * @param aToIdx
+   *          the index of the last value change, inclusive.
+   * @return the minimum bus value in the given range.
+   */
+  public long getMinimum( final int aFromIdx, final int aToIdx )
+  {
+    return query( this.minLevels, false /* aMaximum */, aFromIdx, aToIdx );
+  }
+
+  /**
+   * Returns the time of the value change with the given index.
+   * 
+   * @param aIdx
+   *          the index of the value change.
+   * @return a timestamp.
+   */
+  public long getTimestamp( final int aIdx )
+  {
+    return this.timestamps[aIdx];
+  }
+
+  /**
+   * Returns the bus value of the value change with the given index.
+   * 
+   * @param aIdx
+   *          the index of the value change.
+   * @return a bus value.
+   */
+  public long getValue( final int aIdx )
+  {
+    return this.minLevels[0][aIdx];
+  }
+
+  /**
+   * Returns the index of the value change that is in effect at the given time.
+   * 
+   * @param aTime
+   *          the time to search for.
+   * @return the index of the last value change at or before the given time, or
+   *         0 if the given time lies before the first value change.
+   */
+  public int indexOf( final long aTime )
+  {
+    int idx = Arrays.binarySearch( this.timestamps, aTime );
+    if ( idx < 0 )
+    {
+      // Not found; the insertion point is the first value change after the
+      // given time...
+      idx = -( idx + 1 ) - 1;
+    }
+    return Math.max( 0, idx );
+  }
+
+  /**
+   * Returns whether this index was created for the given data and bus.
+   * 
+   * @param aValues
+   *          the sample values, compared by identity;
+   * @param aBus
+   *          the bus definition.
+   * @return <code>true</code> if this index can be used for the given data and
+   *         bus, <code>false</code> otherwise.
+   */
+  public boolean isIndexFor( final int[] aValues, final BusDefinition aBus )
+  {
+    return ( this.sourceValues == aValues ) && this.bus.equals( aBus );
+  }
+
+  /**
+   * Returns the number of value changes in this index.
+   * 
+   * @return a size, >= 0.
+   */
+  public int size()
+  {
+    return this.timestamps.length;
+  }
+
+  /**
+   * Determines the minimum or maximum value in the given (inclusive) range,
+   * by using the largest possible blocks of the level pyramid.
+   */
+  private long query( final long[][] aLevels, final boolean aMaximum, final int aFromIdx, final int aToIdx )
+  {
+    long result = aMaximum ? Long.MIN_VALUE : Long.MAX_VALUE;
+
+    int from = aFromIdx;
+    int to = aToIdx;
+    for ( int level = 0; ( level < aLevels.length ) && ( from <= to ); level++ )
+    {
+      final long[] values = aLevels[level];
+      final boolean lastLevel = ( level == ( aLevels.length - 1 ) );
+
+      // Take the partial blocks at both ends of the range on this level...
+      while ( ( from <= to ) && ( lastLevel || ( ( from % FANOUT ) != 0 ) ) )
+      {
+        result = aMaximum ? Math.max( result, values[from] ) : Math.min( result, values[from] );
+        from++;
+      }
+      while ( ( from <= to ) && ( ( ( to + 1 ) % FANOUT ) != 0 ) )
+      {
+        result = aMaximum ? Math.max( result, values[to] ) : Math.min( result, values[to] );
+        to--;
+      }
+
+      // ...and continue with the complete blocks on the next level...
+      from /= FANOUT;
+      to = ( ( to + 1 ) / FANOUT ) - 1;
+    }
+
+    return result;
+  }
+}
@@ -30,6 +30,7 @@ import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.client.diagram.*;
 import nl.lxtreme.ols.client.diagram.settings.*;
+import nl.lxtreme.ols.client.diagram.settings.BusDefinition.Display;
 import nl.lxtreme.ols.client.diagram.settings.DiagramSettings.ColorTarget;
 import nl.lxtreme.ols.util.*;
 
@@ -135,6 +136,8 @@ public class DiagramRowLabelsUI extends ComponentUI
     final int indexYpos = ( int )( ( channelHeight + fm.getHeight() + indexFm.getHeight() ) / 2.0 ) - PADDING_Y;
 
     final int enabledChannels = dataContainer.getEnabledChannels();
+    // The channels of a wide capture are shown with their original numbers...
+    final int wordOffset = dataContainer.getChannelOffset();
 
     // Draw top grid line...
     canvas.drawLine( clipArea.x, 0, clipArea.x + clipArea.width, 0 );
@@ -166,7 +169,7 @@ public class DiagramRowLabelsUI extends ComponentUI
           canvas.setColor( settings.getGridColor() );
           canvas.drawLine( clipArea.x, y1 + channelHeight - 1, clipArea.x + clipArea.width, y1 + channelHeight - 1 );
 
-          String indexStr = Integer.toString( labelIdx );
+          String indexStr = Integer.toString( labelIdx + wordOffset );
           String label = dataContainer.getChannelLabel( labelIdx );
           if ( StringUtils.isEmpty( label ) )
           {
@@ -223,6 +226,30 @@ public class DiagramRowLabelsUI extends ComponentUI
         yofs += channelHeight;
       }
     }
+
+    // Draw the user-defined buses...
+    for ( BusDefinition bus : settings.getBusDefinitions() )
+    {
+      final boolean analog = Display.ANALOG.equals( bus.getDisplay() );
+      final int rowHeight = analog ? scopeHeight : channelHeight;
+
+      // draw background...
+      canvas.setColor( analog ? settings.getBackgroundColor() : settings.getGroupBackgroundColor() );
+      canvas.fillRect( clipArea.x, yofs, clipArea.width, rowHeight );
+
+      // draw bottom grid line
+      canvas.setColor( settings.getGridColor() );
+      canvas.drawLine( clipArea.x, yofs + rowHeight - 1, clipArea.x + clipArea.width, yofs + rowHeight - 1 );
+
+      final String label = bus.getName();
+      final int labelXpos = ( clipArea.width - fm.stringWidth( label ) - PADDING_X );
+      final int labelYpos = analog ? ( ( rowHeight + fm.getHeight() ) / 2 ) : textYpos;
+
+      canvas.setColor( settings.getTextColor() );
+      canvas.drawString( label, labelXpos, yofs + labelYpos );
+
+      yofs += rowHeight;
+    }
   }
 
   /**
@@ -260,6 +287,10 @@ public class DiagramRowLabelsUI extends ComponentUI
       }
       minWidth = Math.max( minWidth, fm.stringWidth( label ) );
     }
+    for ( BusDefinition bus : aRowLabels.getDiagram().getDiagramSettings().getBusDefinitions() )
+    {
+      minWidth = Math.max( minWidth, fm.stringWidth( bus.getName() ) );
+    }
 
     // Ensure there's room for some padding...
     minWidth += 2 * PADDING_X;
@@ -0,0 +1,300 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.diagram.laf;
+
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
+
+
+/**
+ * Provides a cache of pre-rendered, fixed-width vertical strips ("tiles") of
+ * the diagram.
+ * <p>
+ * Tiles are identified by their horizontal index, and are only valid for the
+ * zoom scale, diagram height, captured data, diagram settings and annotations
+ * they were rendered for. As soon as any of these changes, all tiles are
+ * discarded. The least recently used tiles are evicted when the total size of
+ * all tiles exceeds the memory budget of this cache.
+ * </p>
+ * <p>
+ * When only the zoom scale changes, the discarded tiles are kept aside as
+ * previews: they can be rescaled to quickly show an approximation of a tile
+ * while the actual tile is being rendered.
+ * </p>
+ * <p>
+ * This class is <b>not</b> thread-safe, and is intended to be used from the
+ * EDT only.
+ * </p>
+ */
+final class DiagramTileCache
+{
+  // CONSTANTS
+
+  /** The width of a single tile, in pixels. */
+  static final int TILE_WIDTH = 256;
+
+  /** The default memory budget, in bytes. */
+  static final long DEFAULT_MEMORY_BUDGET = 32L * 1024L * 1024L;
+
+  // VARIABLES
+
+  private final LinkedHashMap<Integer, BufferedImage> tiles;
+  private final long memoryBudget;
+  private long memoryUsed;
+
+  private final Map<Integer, BufferedImage> previewTiles;
+  private long previewMemoryUsed;
+  private double previewScale;
+
+  private double scale;
+  private int height;
+  private Object data;
+  private Object settings;
+  private int annotationRevision;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DiagramTileCache instance.
+   * 
+   * @param aMemoryBudget
+   *          the maximum number of bytes all tiles may take, > 0.
+   */
+  DiagramTileCache( final long aMemoryBudget )
+  {
+    this.memoryBudget = aMemoryBudget;
+    // Use access-order to get LRU semantics...
+    this.tiles = new LinkedHashMap<Integer, BufferedImage>( 16, 0.75f, true /* accessOrder */);
+    this.previewTiles = new HashMap<Integer, BufferedImage>();
+  }
+
+  // METHODS
+
+  /**
+   * Returns the (approximate) number of bytes taken by the given image.
+   */
+  private static long getSize( final BufferedImage aImage )
+  {
+    final int bytesPerPixel = Math.max( 1, aImage.getColorModel().getPixelSize() / 8 );
+    return ( long )aImage.getWidth() * aImage.getHeight() * bytesPerPixel;
+  }
+
+  /**
+   * Returns whether a tile of the given height fits in this cache.
+   * 
+   * @param aHeight
+   *          the height of the tile, in pixels.
+   * @return <code>true</code> if tiles of the given height can be cached,
+   *         <code>false</code> otherwise.
+   */
+  public boolean canCache( final int aHeight )
+  {
+    // Require room for at least a couple of tiles, otherwise we're merely
+    // thrashing our cache...
+    return ( aHeight > 0 ) && ( ( 4L * TILE_WIDTH * aHeight * 4L ) <= this.memoryBudget );
+  }
+
+  /**
+   * Discards all cached tiles.
+   */
+  public void clear()
+  {
+    this.tiles.clear();
+    this.memoryUsed = 0L;
+
+    this.previewTiles.clear();
+    this.previewMemoryUsed = 0L;
+  }
+
+  /**
+   * Returns the cached tile with the given index.
+   * 
+   * @param aTileIdx
+   *          the index of the tile to return.
+   * @return the cached tile, or <code>null</code> if no such tile is cached.
+   */
+  public BufferedImage get( final int aTileIdx )
+  {
+    return this.tiles.get( Integer.valueOf( aTileIdx ) );
+  }
+
+  /**
+   * Paints a preview of the tile with the given index, by rescaling the tiles
+   * that were rendered for the previous zoom scale.
+   * 
+   * @param aCanvas
+   *          the canvas to paint on, cannot be <code>null</code>;
+   * @param aTileIdx
+   *          the index of the tile to paint a preview for;
+   * @param aBackground
+   *          the color to fill the tile with in case no preview is available,
+   *          can be <code>null</code> to leave the tile untouched.
+   * @return <code>true</code> if (part of) the tile was painted using the
+   *         previous tiles, <code>false</code> otherwise.
+   */
+  public boolean paintPreview( final Graphics2D aCanvas, final int aTileIdx, final Color aBackground )
+  {
+    final int x1 = aTileIdx * TILE_WIDTH;
+    final int x2 = x1 + TILE_WIDTH;
+
+    if ( aBackground != null )
+    {
+      aCanvas.setColor( aBackground );
+      aCanvas.fillRect( x1, 0, TILE_WIDTH, this.height );
+    }
+
+    if ( this.previewTiles.isEmpty() )
+    {
+      return false;
+    }
+
+    // Ratio to convert x-coordinates of the previous scale to the current...
+    final double ratio = this.scale / this.previewScale;
+
+    final Object oldHint = aCanvas.getRenderingHint( RenderingHints.KEY_INTERPOLATION );
+    aCanvas.setRenderingHint( RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR );
+
+    boolean result = false;
+    for ( Map.Entry<Integer, BufferedImage> entry : this.previewTiles.entrySet() )
+    {
+      final BufferedImage image = entry.getValue();
+
+      final int srcX1 = entry.getKey().intValue() * TILE_WIDTH;
+      final int srcX2 = srcX1 + image.getWidth();
+
+      // Determine the overlap with our tile, in the current coordinates...
+      final int dstX1 = Math.max( x1, ( int )Math.floor( srcX1 * ratio ) );
+      final int dstX2 = Math.min( x2, ( int )Math.ceil( srcX2 * ratio ) );
+      if ( dstX1 >= dstX2 )
+      {
+        continue;
+      }
+
+      final int sx1 = ( int )Math.floor( dstX1 / ratio ) - srcX1;
+      final int sx2 = ( int )Math.ceil( dstX2 / ratio ) - srcX1;
+      final int h = Math.min( this.height, image.getHeight() );
+
+      aCanvas.drawImage( image, dstX1, 0, dstX2, h, Math.max( 0, sx1 ), 0, Math.min( image.getWidth(), sx2 ), h,
+          null );
+      result = true;
+    }
+
+    aCanvas.setRenderingHint( RenderingHints.KEY_INTERPOLATION, ( oldHint != null ) ? oldHint
+        : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR );
+
+    return result;
+  }
+
+  /**
+   * Adds a tile to this cache, evicting the least recently used tiles if
+   * needed.
+   * 
+   * @param aTileIdx
+   *          the index of the tile to add;
+   * @param aImage
+   *          the rendered tile, cannot be <code>null</code>.
+   */
+  public void put( final int aTileIdx, final BufferedImage aImage )
+  {
+    final BufferedImage old = this.tiles.put( Integer.valueOf( aTileIdx ), aImage );
+    if ( old != null )
+    {
+      this.memoryUsed -= getSize( old );
+    }
+    this.memoryUsed += getSize( aImage );
+
+    final Iterator<BufferedImage> iter = this.tiles.values().iterator();
+    while ( ( this.memoryUsed > this.memoryBudget ) && iter.hasNext() )
+    {
+      final BufferedImage image = iter.next();
+      if ( image == aImage )
+      {
+        // Never evict the tile we've just added...
+        continue;
+      }
+      this.memoryUsed -= getSize( image );
+      iter.remove();
+    }
+
+    // Previews are only a stop-gap; drop them as soon as we need their room...
+    if ( ( this.memoryUsed + this.previewMemoryUsed ) > this.memoryBudget )
+    {
+      this.previewTiles.clear();
+      this.previewMemoryUsed = 0L;
+    }
+  }
+
+  /**
+   * Validates the cached tiles against the given rendering parameters, and
+   * discards all tiles if they are no longer valid. In case only the scale
+   * has changed, the discarded tiles are retained as previews.
+   * 
+   * @param aScale
+   *          the current zoom scale;
+   * @param aHeight
+   *          the current height of the diagram;
+   * @param aData
+   *          the captured data that is rendered, compared by identity;
+   * @param aSettings
+   *          the diagram settings that are used, compared by identity;
+   * @param aAnnotationRevision
+   *          the current annotation revision.
+   * @return <code>true</code> if the cached tiles are still valid,
+   *         <code>false</code> if they were discarded.
+   */
+  public boolean validate( final double aScale, final int aHeight, final Object aData, final Object aSettings,
+      final int aAnnotationRevision )
+  {
+    if ( ( this.scale == aScale ) && ( this.height == aHeight ) && ( this.data == aData )
+        && ( this.settings == aSettings ) && ( this.annotationRevision == aAnnotationRevision ) )
+    {
+      return true;
+    }
+
+    final boolean onlyScaleChanged = ( this.height == aHeight ) && ( this.data == aData )
+        && ( this.settings == aSettings ) && ( this.annotationRevision == aAnnotationRevision );
+    if ( onlyScaleChanged && !this.tiles.isEmpty() )
+    {
+      // Keep the current tiles as previews for the new scale...
+      this.previewTiles.clear();
+      this.previewTiles.putAll( this.tiles );
+      this.previewMemoryUsed = this.memoryUsed;
+      this.previewScale = this.scale;
+
+      this.tiles.clear();
+      this.memoryUsed = 0L;
+    }
+    else if ( !onlyScaleChanged )
+    {
+      clear();
+    }
+
+    this.scale = aScale;
+    this.height = aHeight;
+    this.data = aData;
+    this.settings = aSettings;
+    this.annotationRevision = aAnnotationRevision;
+
+    return false;
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.diagram.laf;
+
+
+import java.awt.image.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+import javax.swing.*;
+
+
+/**
+ * Renders diagram tiles on a pool of background threads, and hands the
+ * finished tiles back on the EDT.
+ * <p>
+ * All methods of this class should be called from the EDT. Work that has
+ * become stale, because the diagram is zoomed, scrolled or changed in the
+ * meantime, is cancelled, and any tile rendered by stale work is discarded.
+ * </p>
+ */
+final class DiagramTileRenderer
+{
+  // INNER TYPES
+
+  /**
+   * Provides a callback for tiles that are rendered.
+   */
+  static interface TileListener
+  {
+    /**
+     * Called on the EDT when a tile is rendered.
+     * 
+     * @param aTileIdx
+     *          the index of the rendered tile;
+     * @param aTile
+     *          the rendered tile, never <code>null</code>.
+     */
+    void tileRendered( int aTileIdx, BufferedImage aTile );
+  }
+
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( DiagramTileRenderer.class.getName() );
+
+  // VARIABLES
+
+  private final ExecutorService executor;
+  private final Map<Integer, Future<?>> pending;
+  private int generation;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DiagramTileRenderer instance.
+   */
+  DiagramTileRenderer()
+  {
+    final int poolSize = Math.max( 1, Runtime.getRuntime().availableProcessors() - 1 );
+    final AtomicInteger threadCount = new AtomicInteger();
+
+    this.executor = Executors.newFixedThreadPool( poolSize, new ThreadFactory()
+    {
+      @Override
+      public Thread newThread( final Runnable aRunnable )
+      {
+        final Thread thread = new Thread( aRunnable, "Diagram tile renderer " + threadCount.incrementAndGet() );
+        thread.setDaemon( true );
+        thread.setPriority( Thread.NORM_PRIORITY - 1 );
+        return thread;
+      }
+    } );
+    this.pending = new HashMap<Integer, Future<?>>();
+  }
+
+  // METHODS
+
+  /**
+   * Cancels all pending work, and makes sure that tiles that are currently
+   * being rendered are discarded.
+   */
+  public void cancelAll()
+  {
+    for ( Future<?> future : this.pending.values() )
+    {
+      future.cancel( true /* mayInterruptIfRunning */);
+    }
+    this.pending.clear();
+    this.generation++;
+  }
+
+  /**
+   * Returns whether the tile with the given index is currently being rendered.
+   * 
+   * @param aTileIdx
+   *          the index of the tile to test.
+   * @return <code>true</code> if the tile is being rendered, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isPending( final int aTileIdx )
+  {
+    return this.pending.containsKey( Integer.valueOf( aTileIdx ) );
+  }
+
+  /**
+   * Renders a tile in the background, unless it is already being rendered.
+   * 
+   * @param aTileIdx
+   *          the index of the tile to render;
+   * @param aTask
+   *          the task that actually renders the tile, cannot be
+   *          <code>null</code>;
+   * @param aListener
+   *          the listener to call on the EDT once the tile is rendered, cannot
+   *          be <code>null</code>.
+   */
+  public void render( final int aTileIdx, final Callable<BufferedImage> aTask, final TileListener aListener )
+  {
+    final Integer key = Integer.valueOf( aTileIdx );
+    if ( this.pending.containsKey( key ) )
+    {
+      return;
+    }
+
+    final int requestGeneration = this.generation;
+
+    final Future<?> future = this.executor.submit( new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        BufferedImage tile = null;
+        try
+        {
+          tile = aTask.call();
+        }
+        catch ( Exception exception )
+        {
+          LOG.log( Level.WARNING, "Failed to render diagram tile!", exception );
+        }
+
+        if ( Thread.currentThread().isInterrupted() )
+        {
+          // Cancelled; don't bother to hand over the result...
+          return;
+        }
+
+        final BufferedImage result = tile;
+        SwingUtilities.invokeLater( new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            if ( requestGeneration != DiagramTileRenderer.this.generation )
+            {
+              // Stale result...
+              return;
+            }
+
+            DiagramTileRenderer.this.pending.remove( key );
+            if ( result != null )
+            {
+              aListener.tileRendered( aTileIdx, result );
+            }
+          }
+        } );
+      }
+    } );
+
+    this.pending.put( key, future );
+  }
+
+  /**
+   * Cancels all pending work for tiles outside the given range.
+   * 
+   * @param aFirstTileIdx
+   *          the index of the first tile to retain;
+   * @param aLastTileIdx
+   *          the index of the last tile to retain.
+   */
+  public void retain( final int aFirstTileIdx, final int aLastTileIdx )
+  {
+    final Iterator<Map.Entry<Integer, Future<?>>> iter = this.pending.entrySet().iterator();
+    while ( iter.hasNext() )
+    {
+      final Map.Entry<Integer, Future<?>> entry = iter.next();
+      final int tileIdx = entry.getKey().intValue();
+      if ( ( tileIdx < aFirstTileIdx ) || ( tileIdx > aLastTileIdx ) )
+      {
+        entry.getValue().cancel( true /* mayInterruptIfRunning */);
+        iter.remove();
+      }
+    }
+  }
+
+  /**
+   * Shuts down this renderer, cancelling all pending work.
+   */
+  public void shutdown()
+  {
+    cancelAll();
+    this.executor.shutdownNow();
+  }
+}
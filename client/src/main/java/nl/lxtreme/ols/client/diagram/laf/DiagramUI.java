@@ -23,7 +23,9 @@ package nl.lxtreme.ols.client.diagram.laf;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import javax.swing.*;
@@ -36,10 +38,12 @@ import nl.lxtreme.ols.client.*;
 import nl.lxtreme.ols.client.action.*;
 import nl.lxtreme.ols.client.diagram.*;
 import nl.lxtreme.ols.client.diagram.settings.*;
+import nl.lxtreme.ols.client.diagram.settings.BusDefinition.Display;
 import nl.lxtreme.ols.client.diagram.settings.DiagramSettings.ColorTarget;
 import nl.lxtreme.ols.client.diagram.settings.DiagramSettings.EdgeSlope;
 import nl.lxtreme.ols.client.diagram.settings.DiagramSettings.SignalAlignment;
 import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.metrics.*;
 import nl.lxtreme.ols.util.swing.*;
 
 
@@ -358,7 +362,7 @@ public class DiagramUI extends ComponentUI
       }
       else
       {
-        sb.append( "Channel " ).append( aChannelIndex );
+        sb.append( "Channel " ).append( aChannelIndex + dataContainer.getChannelOffset() );
       }
       sb.append( " | " );
 
@@ -383,6 +387,13 @@ public class DiagramUI extends ComponentUI
         if ( !dataContainer.hasTimingData() )
         {
           sb.append( "Sample: " ).append( idxMouseX );
+
+          final long clockEdge = dataContainer.getClockEdgeTimestamp( idxMouseX );
+          if ( clockEdge != Ols.NOT_AVAILABLE )
+          {
+            // Show where the state was sampled in the original data...
+            sb.append( " | Clock edge: " ).append( clockEdge );
+          }
         }
         else
         {
@@ -429,6 +440,13 @@ public class DiagramUI extends ComponentUI
   // VARIABLES
 
   private final JPopupMenu contextMenu;
+  private final DiagramTileCache tileCache;
+  private DiagramTileRenderer tileRenderer;
+  private volatile ValueLabelCache valueLabelCache;
+  private SignalSnapshot signalSnapshot;
+  private final Map<BusDefinition, BusValueIndex> busValueIndexes;
+  private final TimerMetric paintTimer;
+  private final CounterMetric tileMisses;
   private Font labelFont;
   private final Cursor cursorDefault;
   private final Cursor cursorDrag;
@@ -453,6 +471,10 @@ public class DiagramUI extends ComponentUI
     this.cursorDefault = Cursor.getPredefinedCursor( Cursor.DEFAULT_CURSOR );
     this.cursorDrag = Cursor.getPredefinedCursor( Cursor.MOVE_CURSOR );
 
+    this.tileCache = new DiagramTileCache( DiagramTileCache.DEFAULT_MEMORY_BUDGET );
+    this.busValueIndexes = new HashMap<BusDefinition, BusValueIndex>();
+    this.paintTimer = Metrics.getTimer( "diagram.paint" );
+    this.tileMisses = Metrics.getCounter( "diagram.tileMisses" );
   }
 
   // METHODS
@@ -493,6 +515,11 @@ public class DiagramUI extends ComponentUI
       }
     }
 
+    for ( BusDefinition bus : settings.getBusDefinitions() )
+    {
+      height += Display.ANALOG.equals( bus.getDisplay() ) ? scopeHeight : channelHeight;
+    }
+
     final int width = ( int )( aDiagram.getScale() * dataContainer.getAbsoluteLength() );
 
     final Dimension newDiagramSize = new Dimension( width, height );
@@ -527,6 +554,8 @@ public class DiagramUI extends ComponentUI
     diagram.addMouseListener( mouseListener );
     diagram.addMouseMotionListener( mouseListener );
     diagram.addMouseWheelListener( mouseListener );
+
+    this.tileRenderer = new DiagramTileRenderer();
   }
 
   /**
@@ -544,7 +573,7 @@ public class DiagramUI extends ComponentUI
       return;
     }
 
-    final long start = System.currentTimeMillis();
+    final long start = TimerMetric.start();
     final Graphics2D canvas = ( Graphics2D )aCanvas;
 
     // obtain portion of graphics that needs to be drawn
@@ -559,14 +588,259 @@ public class DiagramUI extends ComponentUI
 
     canvas.setFont( this.labelFont );
 
-    // draw all signal groups...
-    paintSignals( canvas, diagram, clipArea, firstRow, lastRow );
+    final SignalSnapshot snapshot = getSignalSnapshot( diagram );
 
-    // draw cursors if enabled...
+    final int height = diagram.getHeight();
+    if ( this.tileCache.canCache( height ) )
+    {
+      if ( !this.tileCache.validate( diagram.getScale(), height, dataContainer.getValues(),
+          diagram.getDiagramSettings(), dataContainer.getAnnotationRevision() ) )
+      {
+        // Whatever is being rendered right now is no longer of any use...
+        this.tileRenderer.cancelAll();
+      }
+
+      // Stop rendering tiles that are scrolled out of view...
+      final Rectangle visibleRect = diagram.getVisibleRect();
+      this.tileRenderer.retain( ( visibleRect.x / DiagramTileCache.TILE_WIDTH ) - 1,
+          ( ( visibleRect.x + visibleRect.width ) / DiagramTileCache.TILE_WIDTH ) + 1 );
+
+      final Color background = diagram.isOpaque() ? diagram.getBackground() : null;
+
+      // blit all (cached) tiles overlapping the clip area; tiles that are not
+      // yet rendered are shown as preview until their rendering is finished...
+      final int firstTile = Math.max( 0, cx ) / DiagramTileCache.TILE_WIDTH;
+      final int lastTile = Math.max( 0, cw - 1 ) / DiagramTileCache.TILE_WIDTH;
+      for ( int tileIdx = firstTile; tileIdx <= lastTile; tileIdx++ )
+      {
+        final BufferedImage tile = this.tileCache.get( tileIdx );
+        if ( tile != null )
+        {
+          canvas.drawImage( tile, tileIdx * DiagramTileCache.TILE_WIDTH, 0, null );
+        }
+        else
+        {
+          this.tileCache.paintPreview( canvas, tileIdx, background );
+
+          if ( !this.tileRenderer.isPending( tileIdx ) )
+          {
+            this.tileRenderer.render( tileIdx, createTileTask( canvas, diagram, snapshot, tileIdx, height ),
+                createTileListener( diagram ) );
+            this.tileMisses.increment();
+          }
+        }
+      }
+    }
+    else
+    {
+      // draw all signal groups...
+      paintSignals( canvas, snapshot, diagram.getScale(), clipArea, firstRow, lastRow );
+    }
+
+    // draw cursors if enabled, always as overlay...
     paintCursors( canvas, diagram, clipArea, firstRow, lastRow );
 
-    final long end = System.currentTimeMillis();
-    LOG.log( Level.FINE, "Render time = {0}ms.", Long.valueOf( end - start ) );
+    final long duration = this.paintTimer.stop( start );
+    LOG.log( Level.FINE, "Render time = {0}ms.", Long.valueOf( duration / 1000000L ) );
+  }
+
+  /**
+   * @see javax.swing.plaf.ComponentUI#uninstallUI(javax.swing.JComponent)
+   */
+  @Override
+  public void uninstallUI( final JComponent aComponent )
+  {
+    if ( this.tileRenderer != null )
+    {
+      this.tileRenderer.shutdown();
+      this.tileRenderer = null;
+    }
+    this.tileCache.clear();
+    this.signalSnapshot = null;
+
+    super.uninstallUI( aComponent );
+  }
+
+  /**
+   * Searches the index of the sample that lies right before the given time
+   * value.
+   * 
+   * @param aTimestamps
+   *          the (sorted) timestamps to search in;
+   * @param aFromIdx
+   *          the index to start searching from;
+   * @param aTime
+   *          the time value to search for.
+   * @return the index of the sample that lies right before the given time
+   *         value, >= 0.
+   */
+  private static int findDataIndex( final long[] aTimestamps, final int aFromIdx, final long aTime )
+  {
+    int idx = Arrays.binarySearch( aTimestamps, aFromIdx, aTimestamps.length, aTime );
+    if ( idx < 0 )
+    {
+      // Not found; use the insertion point, being the first larger timestamp...
+      idx = -( idx + 1 );
+    }
+    // Make sure everything is inside the expected ranges...
+    return Math.min( aTimestamps.length - 1, Math.max( 0, idx - 1 ) );
+  }
+
+  /**
+   * Creates a listener that caches rendered tiles and repaints them.
+   * 
+   * @param aDiagram
+   *          the diagram to repaint.
+   * @return a new tile listener, never <code>null</code>.
+   */
+  private DiagramTileRenderer.TileListener createTileListener( final Diagram aDiagram )
+  {
+    return new DiagramTileRenderer.TileListener()
+    {
+      @Override
+      public void tileRendered( final int aTileIdx, final BufferedImage aTile )
+      {
+        DiagramUI.this.tileCache.put( aTileIdx, aTile );
+        aDiagram.repaint( aTileIdx * DiagramTileCache.TILE_WIDTH, 0, aTile.getWidth(), aTile.getHeight() );
+      }
+    };
+  }
+
+  /**
+   * Creates a task that renders a single tile of the diagram.
+   * <p>
+   * The task only uses the given snapshot and the state that is taken from the
+   * diagram right away, so it can safely run outside the EDT.
+   * </p>
+   * 
+   * @param aCanvas
+   *          the canvas the tile will be painted on;
+   * @param aDiagram
+   *          the diagram to render;
+   * @param aSnapshot
+   *          the snapshot of the data and settings to render;
+   * @param aTileIdx
+   *          the index of the tile to render;
+   * @param aHeight
+   *          the height of the tile.
+   * @return the task rendering the tile, never <code>null</code>.
+   */
+  private Callable<BufferedImage> createTileTask( final Graphics2D aCanvas, final Diagram aDiagram,
+      final SignalSnapshot aSnapshot, final int aTileIdx, final int aHeight )
+  {
+    final int x = aTileIdx * DiagramTileCache.TILE_WIDTH;
+
+    final GraphicsConfiguration gc = aDiagram.getGraphicsConfiguration();
+    final boolean opaque = aDiagram.isOpaque();
+    final Color background = aDiagram.getBackground();
+    final RenderingHints hints = aCanvas.getRenderingHints();
+    final Font font = this.labelFont;
+
+    final double scale = aDiagram.getScale();
+
+    // Take one sample extra on both sides, so that anything straddling the
+    // tile boundaries is painted in both tiles...
+    final long firstRow = Math.max( 0L, aDiagram.convertPointToSampleIndex( new Point( x, 0 ) ) - 1L );
+    final long lastRow = aDiagram.convertPointToSampleIndex( new Point( x + DiagramTileCache.TILE_WIDTH, 0 ) ) + 1L;
+
+    return new Callable<BufferedImage>()
+    {
+      @Override
+      public BufferedImage call() throws Exception
+      {
+        final int width = DiagramTileCache.TILE_WIDTH;
+
+        final BufferedImage result;
+        if ( gc != null )
+        {
+          result = gc.createCompatibleImage( width, aHeight, opaque ? Transparency.OPAQUE : Transparency.TRANSLUCENT );
+        }
+        else
+        {
+          result = new BufferedImage( width, aHeight, opaque ? BufferedImage.TYPE_INT_RGB
+              : BufferedImage.TYPE_INT_ARGB );
+        }
+
+        final Graphics2D canvas = result.createGraphics();
+        try
+        {
+          canvas.setRenderingHints( hints );
+          canvas.setFont( font );
+          canvas.translate( -x, 0 );
+
+          final Rectangle tileArea = new Rectangle( x, 0, width, aHeight );
+          canvas.setClip( tileArea );
+
+          if ( opaque )
+          {
+            canvas.setColor( background );
+            canvas.fill( tileArea );
+          }
+
+          paintSignals( canvas, aSnapshot, scale, tileArea, firstRow, lastRow );
+        }
+        finally
+        {
+          canvas.dispose();
+        }
+
+        return result;
+      }
+    };
+  }
+
+  /**
+   * Returns the value index for the given bus, creating it if it does not yet
+   * exist for the given data.
+   * 
+   * @param aValues
+   *          the sample values;
+   * @param aTimestamps
+   *          the timestamps of the sample values;
+   * @param aBus
+   *          the bus to get the value index for.
+   * @return a bus value index, never <code>null</code>.
+   */
+  private BusValueIndex getBusValueIndex( final int[] aValues, final long[] aTimestamps, final BusDefinition aBus )
+  {
+    synchronized ( this.busValueIndexes )
+    {
+      BusValueIndex result = this.busValueIndexes.get( aBus );
+      if ( ( result == null ) || !result.isIndexFor( aValues, aBus ) )
+      {
+        if ( ( result != null ) || ( this.busValueIndexes.size() > 32 ) )
+        {
+          // The data has changed; all indexes are stale...
+          this.busValueIndexes.clear();
+        }
+
+        result = BusValueIndex.create( aValues, aTimestamps, aBus );
+        this.busValueIndexes.put( aBus, result );
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Returns the snapshot of the data and settings of the given diagram, taking
+   * a new snapshot if the current one is outdated. Should be called on the EDT.
+   * 
+   * @param aDiagram
+   *          the diagram to get the snapshot for.
+   * @return a signal snapshot, never <code>null</code>.
+   */
+  private SignalSnapshot getSignalSnapshot( final Diagram aDiagram )
+  {
+    final DataContainer dataContainer = aDiagram.getDataContainer();
+    final DiagramSettings settings = aDiagram.getDiagramSettings();
+
+    SignalSnapshot result = this.signalSnapshot;
+    if ( ( result == null ) || !result.isSnapshotOf( dataContainer, settings ) )
+    {
+      result = SignalSnapshot.create( dataContainer, settings );
+      this.signalSnapshot = result;
+    }
+    return result;
   }
 
   /**
@@ -584,6 +858,25 @@ public class DiagramUI extends ComponentUI
     return result;
   }
 
+  /**
+   * Returns the value label cache for the given font metrics, creating a new
+   * one if the font metrics have changed.
+   * 
+   * @param aFontMetrics
+   *          the font metrics to get the value labels for.
+   * @return a value label cache, never <code>null</code>.
+   */
+  private ValueLabelCache getValueLabelCache( final FontMetrics aFontMetrics )
+  {
+    ValueLabelCache result = this.valueLabelCache;
+    if ( ( result == null ) || !result.isValidFor( aFontMetrics ) )
+    {
+      result = new ValueLabelCache( aFontMetrics );
+      this.valueLabelCache = result;
+    }
+    return result;
+  }
+
   /**
    * @see LafHelper#paintChannelBackground(Graphics2D, DiagramSettings,
    *      Rectangle, int, int)
@@ -594,6 +887,214 @@ public class DiagramUI extends ComponentUI
     LafHelper.paintChannelBackground( aCanvas, aSettings, aClipArea, aChannelIdx, aYoffset );
   }
 
+  /**
+   * Draws a user-defined bus as analog (scope) trace. For each pixel column,
+   * the envelope of all values in that column is drawn.
+   */
+  private void paintBusAnalog( final Graphics2D aCanvas, final DiagramSettings aSettings, final BusValueIndex aIndex,
+      final BusDefinition aBus, final double aScale, final Rectangle aClipArea, final int aYoffset )
+  {
+    final int scopeHeight = aSettings.getScopeHeight();
+    final long maxValue = aBus.getMaxValue();
+    final double valueScale = ( scopeHeight - ( 2.0 * PADDING_Y ) ) / maxValue;
+
+    // draw background...
+    aCanvas.setColor( aSettings.getBackgroundColor() );
+    aCanvas.fillRect( aClipArea.x, aYoffset, aClipArea.width, scopeHeight );
+
+    if ( aIndex.size() == 0 )
+    {
+      return;
+    }
+
+    aCanvas.setColor( aSettings.getScopeColor() );
+
+    final int x2 = aClipArea.x + aClipArea.width;
+    for ( int x = Math.max( 0, aClipArea.x ); x < x2; x++ )
+    {
+      final long t1 = ( long )( x / aScale );
+      final long t2 = Math.max( t1, ( long )( ( x + 1 ) / aScale ) - 1L );
+
+      // Include the last value of the previous column, so the trace is drawn
+      // as one continuous line...
+      final int idx1 = aIndex.indexOf( Math.max( 0L, t1 - 1L ) );
+      final int idx2 = aIndex.indexOf( t2 );
+
+      final long min = aIndex.getMinimum( idx1, idx2 );
+      final long max = aIndex.getMaximum( idx1, idx2 );
+
+      final int yTop = aYoffset + PADDING_Y + ( int )( ( maxValue - max ) * valueScale );
+      final int yBottom = aYoffset + PADDING_Y + ( int )( ( maxValue - min ) * valueScale );
+
+      aCanvas.fillRect( x, yTop, 1, ( yBottom - yTop ) + 1 );
+    }
+  }
+
+  /**
+   * Draws all user-defined buses, starting at the given vertical offset.
+   */
+  private void paintBuses( final Graphics2D aCanvas, final SignalSnapshot aSnapshot, final double aScale,
+      final Rectangle aClipArea, final long aFromIndex, final long aToIndex, final int aYoffset,
+      final int aSignalOffset, final double aEdgeX )
+  {
+    final DiagramSettings settings = aSnapshot.getSettings();
+    final int[] values = aSnapshot.getValues();
+    final long[] timestamps = aSnapshot.getTimestamps();
+
+    int yofs = aYoffset;
+    for ( BusDefinition bus : settings.getBusDefinitions() )
+    {
+      if ( Thread.currentThread().isInterrupted() )
+      {
+        // Rendering is cancelled; no need to continue...
+        return;
+      }
+
+      final BusValueIndex index = getBusValueIndex( values, timestamps, bus );
+
+      if ( Display.ANALOG.equals( bus.getDisplay() ) )
+      {
+        paintBusAnalog( aCanvas, settings, index, bus, aScale, aClipArea, yofs );
+        yofs += settings.getScopeHeight();
+      }
+      else
+      {
+        paintBusValues( aCanvas, settings, index, bus, aScale, aClipArea, aFromIndex, aToIndex, yofs,
+            aSignalOffset, aEdgeX );
+        yofs += settings.getChannelHeight();
+      }
+
+      // draw bottom grid line
+      paintGridLine( aCanvas, settings, aClipArea, yofs - 1 );
+    }
+  }
+
+  /**
+   * Draws a user-defined bus as row of (hexadecimal or decimal) values. Value
+   * changes that are closer together than a single pixel are drawn as a
+   * single "busy" segment, so the drawing effort is bounded by the width of
+   * the clip area.
+   */
+  private void paintBusValues( final Graphics2D aCanvas, final DiagramSettings aSettings,
+      final BusValueIndex aIndex, final BusDefinition aBus, final double aScale, final Rectangle aClipArea,
+      final long aFromIndex, final long aToIndex, final int aYoffset, final int aSignalOffset, final double aEdgeX )
+  {
+    final int channelHeight = aSettings.getChannelHeight();
+    final int signalHeight = aSettings.getSignalHeight();
+
+    // draw background...
+    aCanvas.setColor( aSettings.getGroupBackgroundColor() );
+    aCanvas.fillRect( aClipArea.x, aYoffset, aClipArea.width, channelHeight );
+
+    final int size = aIndex.size();
+    if ( size == 0 )
+    {
+      return;
+    }
+
+    final FontMetrics fm = aCanvas.getFontMetrics();
+    final ValueLabelCache labels = getValueLabelCache( fm );
+    final boolean hex = Display.HEX.equals( aBus.getDisplay() );
+    final int digits = aBus.getHexDigits();
+    final int minLabelWidth = labels.getMinimumLabelWidth( hex ? digits : 1 );
+
+    final int first = aIndex.indexOf( aFromIndex );
+    final int last = aIndex.indexOf( aToIndex );
+
+    // At most one segment is started in each pixel column...
+    final int maxSegments = Math.min( ( last - first ) + 1, aClipArea.width + 4 );
+    final ByteValuePolyline polyline = new ByteValuePolyline( 2 * maxSegments );
+    final int maxLabels = ( aClipArea.width / Math.max( 1, minLabelWidth ) ) + 4;
+    final int[] labelXpos = new int[maxLabels];
+    final long[] labelValues = new long[maxLabels];
+    int labelCount = 0;
+
+    final int yTop = aYoffset + aSignalOffset;
+    final int yBottom = yTop + signalHeight;
+
+    aCanvas.setColor( aSettings.getGroupByteColor() );
+
+    int pIdx = 0;
+    int idx = first;
+    while ( ( idx <= last ) && ( pIdx < polyline.n ) )
+    {
+      final long start = aIndex.getTimestamp( idx );
+      final int column = ( int )( aScale * start );
+
+      int next = idx + 1;
+      boolean busy = false;
+      if ( ( next < size ) && ( ( int )( aScale * aIndex.getTimestamp( next ) ) == column ) )
+      {
+        // Multiple value changes within a single pixel column; skip to the
+        // first value change in the next column...
+        final long nextColumnTime = ( long )Math.ceil( ( column + 1 ) / aScale );
+        next = Math.max( idx + 1, aIndex.indexOf( nextColumnTime - 1L ) + 1 );
+        busy = true;
+      }
+
+      final long end = ( next < size ) ? aIndex.getTimestamp( next ) : ( aToIndex + 1 );
+
+      // Calculate display coordinates...
+      final int x1 = ( int )( ( aScale * start ) - aEdgeX );
+      final int x2 = ( int )( ( aScale * ( end - 1 ) ) + aEdgeX );
+
+      final int bit = ( idx % 2 );
+      polyline.x[pIdx] = x1;
+      polyline.y1[pIdx] = bit == 0 ? yBottom : yTop;
+      polyline.y2[pIdx] = bit == 0 ? yTop : yBottom;
+      polyline.x[pIdx + 1] = x2;
+      polyline.y1[pIdx + 1] = polyline.y1[pIdx];
+      polyline.y2[pIdx + 1] = polyline.y2[pIdx];
+      pIdx += 2;
+
+      if ( busy )
+      {
+        aCanvas.fillRect( x1, yTop, Math.max( 1, x2 - x1 ), signalHeight );
+      }
+      else
+      {
+        // if steady long enough, add value
+        final int segmentWidth = x2 - x1;
+        if ( ( segmentWidth > minLabelWidth ) && ( labelCount < maxLabels ) )
+        {
+          final long value = aIndex.getValue( idx );
+          final int labelWidth = hex ? labels.getLabelWidth( value, digits ) : labels.getDecimalLabelWidth( value );
+          if ( segmentWidth > labelWidth )
+          {
+            labelXpos[labelCount] = ( int )( ( ( x1 + x2 ) - labelWidth ) / 2.0 );
+            labelValues[labelCount] = value;
+            labelCount++;
+          }
+        }
+      }
+
+      idx = next;
+    }
+
+    // draw all labels in one go...
+    final int labelYpos = aYoffset + ( fm.getHeight() + aSignalOffset );
+    final char[] buffer = new char[20];
+    aCanvas.setColor( aSettings.getTextColor() );
+    for ( int i = 0; i < labelCount; i++ )
+    {
+      final int length;
+      if ( hex )
+      {
+        ValueLabelCache.writeLabel( labelValues[i], digits, buffer, 0 );
+        length = digits;
+      }
+      else
+      {
+        length = ValueLabelCache.writeDecimalLabel( labelValues[i], buffer, 0 );
+      }
+      aCanvas.drawChars( buffer, 0, length, labelXpos[i], labelYpos );
+    }
+
+    aCanvas.setColor( aSettings.getGroupByteColor() );
+    aCanvas.drawPolyline( polyline.x, polyline.y1, pIdx );
+    aCanvas.drawPolyline( polyline.x, polyline.y2, pIdx );
+  }
+
   /**
    * @param aCanvas
    * @param aFirstRow
@@ -634,18 +1135,26 @@ public class DiagramUI extends ComponentUI
    * @param aClipArea
    * @param aYoffset
    */
-  private void paintGridLine( final Graphics2D aCanvas, final Diagram aDiagram, final Rectangle aClipArea,
+  private void paintGridLine( final Graphics2D aCanvas, final DiagramSettings aSettings, final Rectangle aClipArea,
       final int aYoffset )
   {
-    aCanvas.setColor( aDiagram.getDiagramSettings().getGridColor() );
+    aCanvas.setColor( aSettings.getGridColor() );
     aCanvas.drawLine( aClipArea.x, aYoffset, aClipArea.x + aClipArea.width, aYoffset );
   }
 
   /**
    * Draws all signals, byte values and scopes.
+   * <p>
+   * This method only accesses the given snapshot, and can therefore be called
+   * from outside the EDT.
+   * </p>
    * 
    * @param aCanvas
    *          the canvas to paint on;
+   * @param aSnapshot
+   *          the snapshot of the data and diagram settings to paint;
+   * @param aScale
+   *          the zoom scale to use;
    * @param aClipArea
    *          the clip area to paint;
    * @param aFromIndex
@@ -653,15 +1162,14 @@ public class DiagramUI extends ComponentUI
    * @param aToIndex
    *          the last sample to paint.
    */
-  private void paintSignals( final Graphics2D aCanvas, final Diagram aDiagram, final Rectangle aClipArea,
-      final long aFromIndex, final long aToIndex )
+  private void paintSignals( final Graphics2D aCanvas, final SignalSnapshot aSnapshot, final double aScale,
+      final Rectangle aClipArea, final long aFromIndex, final long aToIndex )
   {
-    final DataContainer dataContainer = aDiagram.getDataContainer();
-    final DiagramSettings settings = aDiagram.getDiagramSettings();
+    final DiagramSettings settings = aSnapshot.getSettings();
 
-    final int enabled = dataContainer.getEnabledChannels();
-    final long[] timestamps = dataContainer.getTimestamps();
-    final int[] values = dataContainer.getValues();
+    final int enabled = aSnapshot.getEnabledChannels();
+    final long[] timestamps = aSnapshot.getTimestamps();
+    final int[] values = aSnapshot.getValues();
 
     final int channelHeight = settings.getChannelHeight();
     final int signalHeight = settings.getSignalHeight();
@@ -684,7 +1192,7 @@ public class DiagramUI extends ComponentUI
 
     final double scopeScaleFactor = ( 256.0 / ( scopeHeight - ( 2 * PADDING_Y ) ) );
 
-    final double scale = aDiagram.getScale();
+    final double scale = aScale;
 
     final double edgeSlopeFactor = ( settings.getEdgeSlope() == EdgeSlope.PERPENDICULAR ) ? 0.5 : 0.3;
     final double edgeX = ( scale * edgeSlopeFactor );
@@ -695,41 +1203,16 @@ public class DiagramUI extends ComponentUI
 
     // Search the first sample index the is right before the to-be-displayed
     // from index...
-    int dataStartIndex = 0;
-    do
-    {
-      if ( timestamps[dataStartIndex] >= aFromIndex )
-      {
-        // Found it; use this as starting time-index...
-        break;
-      }
-      dataStartIndex++;
-    }
-    while ( dataStartIndex < timestamps.length );
-    // Make sure everything is inside the expected ranges...
-    dataStartIndex = Math.min( timestamps.length - 1, Math.max( 0, dataStartIndex - 1 ) );
-
+    final int dataStartIndex = findDataIndex( timestamps, 0, aFromIndex );
     // Search the last sample index the is right before the to-be-displayed
     // to index...
-    int dataEndIndex = dataStartIndex;
-    do
-    {
-      if ( timestamps[dataEndIndex] >= aToIndex )
-      {
-        // Found it; use this as starting time-index...
-        break;
-      }
-      dataEndIndex++;
-    }
-    while ( dataEndIndex < timestamps.length );
-    // Make sure everything is inside the expected ranges...
-    dataEndIndex = Math.min( timestamps.length - 1, Math.max( 0, dataEndIndex - 1 ) );
+    final int dataEndIndex = findDataIndex( timestamps, dataStartIndex, aToIndex );
 
-    final long triggerPosition = dataContainer.getTriggerPosition();
+    final long triggerPosition = aSnapshot.getTriggerPosition();
 
     int yofs = 0;
 
-    final int blockCnt = dataContainer.getBlockCount();
+    final int blockCnt = aSnapshot.getBlockCount();
     for ( int block = 0; block < blockCnt; block++ )
     {
       final int channelsOffset = Ols.CHANNELS_PER_BLOCK * block;
@@ -738,13 +1221,18 @@ public class DiagramUI extends ComponentUI
       {
         continue;
       }
+      if ( Thread.currentThread().isInterrupted() )
+      {
+        // Rendering is cancelled; no need to continue...
+        return;
+      }
 
       if ( settings.isShowChannels( block ) )
       {
         final SignalPolyline polyline = new SignalPolyline( n );
 
         // draw actual data
-        final int channelsPerBlock = dataContainer.getChannelsForBlock( block );
+        final int channelsPerBlock = aSnapshot.getChannelsForBlock( block );
         for ( int bit = 0; bit < channelsPerBlock; bit++ )
         {
           final int channelIdx = channelsOffset + bit;
@@ -812,7 +1300,7 @@ public class DiagramUI extends ComponentUI
           final Graphics2D newCanvas = ( Graphics2D )aCanvas.create();
           newCanvas.setRenderingHint( RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON );
 
-          final Iterator<ChannelAnnotation> annotations = dataContainer.getChannelAnnotations( channelIdx,
+          final Iterator<ChannelAnnotation> annotations = aSnapshot.getChannelAnnotations( channelIdx,
               dataStartIndex, timestamps.length );
           while ( annotations.hasNext() )
           {
@@ -858,7 +1346,7 @@ public class DiagramUI extends ComponentUI
             }
           }
 
-          paintGridLine( aCanvas, aDiagram, aClipArea, ( channelHeight * bit ) + yofs + ( channelHeight - 1 ) );
+          paintGridLine( aCanvas, settings, aClipArea, ( channelHeight * bit ) + yofs + ( channelHeight - 1 ) );
         }
         yofs += ( channelHeight * Ols.CHANNELS_PER_BLOCK );
       }
@@ -897,13 +1385,22 @@ public class DiagramUI extends ComponentUI
 
         yofs += scopeHeight;
         // draw bottom grid line
-        paintGridLine( aCanvas, aDiagram, aClipArea, yofs - 1 );
+        paintGridLine( aCanvas, settings, aClipArea, yofs - 1 );
       }
 
       if ( settings.isShowByte( block ) )
       {
         final ByteValuePolyline bytePolyline = new ByteValuePolyline( n );
 
+        final ValueLabelCache labels = getValueLabelCache( fm );
+        final int minLabelWidth = labels.getMinimumLabelWidth( 2 );
+        // Labels are only drawn for segments that are wider than the smallest
+        // label, which bounds the number of labels in the clip area...
+        final int maxLabels = ( aClipArea.width / Math.max( 1, minLabelWidth ) ) + 4;
+        final int[] labelXpos = new int[maxLabels];
+        final int[] labelValues = new int[maxLabels];
+        int labelCount = 0;
+
         long currentSample = aFromIndex - 1;
         int pIdx = 0;
 
@@ -944,15 +1441,16 @@ public class DiagramUI extends ComponentUI
           pIdx += 2;
 
           // if steady long enough, add hex value
-          final String byteValue = String.format( "%02X", Integer.valueOf( currentValue ) );
-          final int labelWidth = fm.stringWidth( byteValue );
-
-          if ( ( x2 - x1 ) > labelWidth )
+          final int segmentWidth = x2 - x1;
+          if ( ( segmentWidth > minLabelWidth ) && ( labelCount < maxLabels ) )
           {
-            final int labelXpos = ( int )( ( ( x1 + x2 ) - labelWidth ) / 2.0 );
-
-            aCanvas.setColor( settings.getTextColor() );
-            aCanvas.drawString( byteValue, labelXpos, yofs + ( fontHeight + signalOffset ) );
+            final int labelWidth = labels.getByteLabelWidth( currentValue );
+            if ( segmentWidth > labelWidth )
+            {
+              labelXpos[labelCount] = ( int )( ( ( x1 + x2 ) - labelWidth ) / 2.0 );
+              labelValues[labelCount] = currentValue;
+              labelCount++;
+            }
           }
 
           // Update loop administration...
@@ -960,14 +1458,26 @@ public class DiagramUI extends ComponentUI
           currentSample = nextSample;
         }
 
+        // draw all labels in one go...
+        final int labelYpos = yofs + ( fontHeight + signalOffset );
+        aCanvas.setColor( settings.getTextColor() );
+        for ( int i = 0; i < labelCount; i++ )
+        {
+          aCanvas.drawChars( ValueLabelCache.BYTE_LABELS, ValueLabelCache.getByteLabelOffset( labelValues[i] ), 2,
+              labelXpos[i], labelYpos );
+        }
+
         aCanvas.setColor( settings.getGroupByteColor() );
         aCanvas.drawPolyline( bytePolyline.x, bytePolyline.y1, pIdx );
         aCanvas.drawPolyline( bytePolyline.x, bytePolyline.y2, pIdx );
 
         yofs += channelHeight;
         // draw bottom grid line
-        paintGridLine( aCanvas, aDiagram, aClipArea, yofs - 1 );
+        paintGridLine( aCanvas, settings, aClipArea, yofs - 1 );
       }
     }
+
+    // draw all user-defined buses below the channel groups...
+    paintBuses( aCanvas, aSnapshot, scale, aClipArea, aFromIndex, aToIndex, yofs, signalOffset, edgeX );
   }
 }
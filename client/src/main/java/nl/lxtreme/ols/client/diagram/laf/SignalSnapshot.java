@@ -0,0 +1,234 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.diagram.laf;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.client.diagram.settings.*;
+
+
+/**
+ * Provides a snapshot of all state needed to paint the signals of a diagram.
+ * <p>
+ * The data container and diagram settings are mutated on the EDT, and reading
+ * them might even cause the captured data to be (lazily) loaded or merged with
+ * virtual channels. A snapshot is therefore always to be taken on the EDT; it
+ * copies the annotations and settings, and retains the (immutable) sample
+ * values and timestamps as-is.
+ * </p>
+ * <p>
+ * Instances of this class are immutable, and can therefore be shared between
+ * threads, such as the threads rendering the diagram tiles.
+ * </p>
+ */
+final class SignalSnapshot
+{
+  // CONSTANTS
+
+  private static final ChannelAnnotation[] NO_ANNOTATIONS = new ChannelAnnotation[0];
+
+  // VARIABLES
+
+  private final int[] values;
+  private final long[] timestamps;
+  private final int enabledChannels;
+  private final long triggerPosition;
+  private final int[] channelsForBlock;
+  private final ChannelAnnotation[][] annotations;
+  private final int annotationRevision;
+  private final DiagramSettings sourceSettings;
+  private final DiagramSettings settings;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SignalSnapshot instance.
+   */
+  private SignalSnapshot( final DataContainer aDataContainer, final DiagramSettings aSettings )
+  {
+    this.values = aDataContainer.getValues();
+    this.timestamps = aDataContainer.getTimestamps();
+    this.enabledChannels = aDataContainer.getEnabledChannels();
+    this.triggerPosition = aDataContainer.getTriggerPosition();
+
+    this.channelsForBlock = new int[aDataContainer.getBlockCount()];
+    for ( int i = 0; i < this.channelsForBlock.length; i++ )
+    {
+      this.channelsForBlock[i] = aDataContainer.getChannelsForBlock( i );
+    }
+
+    this.annotations = new ChannelAnnotation[Ols.MAX_CHANNELS][];
+    for ( int i = 0; i < Ols.MAX_CHANNELS; i++ )
+    {
+      final List<ChannelAnnotation> channelAnnotations = new ArrayList<ChannelAnnotation>();
+
+      final Iterator<ChannelAnnotation> iter = aDataContainer.getChannelAnnotations( i, 0, Integer.MAX_VALUE );
+      while ( iter.hasNext() )
+      {
+        channelAnnotations.add( iter.next() );
+      }
+
+      this.annotations[i] = channelAnnotations.isEmpty() ? NO_ANNOTATIONS : channelAnnotations
+          .toArray( new ChannelAnnotation[channelAnnotations.size()] );
+    }
+    this.annotationRevision = aDataContainer.getAnnotationRevision();
+
+    this.sourceSettings = aSettings;
+    this.settings = new MutableDiagramSettings( aSettings );
+  }
+
+  // METHODS
+
+  /**
+   * Takes a snapshot of the given data container and diagram settings. Should
+   * be called on the EDT.
+   * 
+   * @param aDataContainer
+   *          the data container to take a snapshot of, cannot be
+   *          <code>null</code> and should have captured data;
+   * @param aSettings
+   *          the diagram settings to take a snapshot of, cannot be
+   *          <code>null</code>.
+   * @return a new snapshot, never <code>null</code>.
+   */
+  public static SignalSnapshot create( final DataContainer aDataContainer, final DiagramSettings aSettings )
+  {
+    return new SignalSnapshot( aDataContainer, aSettings );
+  }
+
+  /**
+   * Returns the number of channel blocks.
+   * 
+   * @return a block count, >= 0.
+   */
+  public int getBlockCount()
+  {
+    return this.channelsForBlock.length;
+  }
+
+  /**
+   * Returns all annotations of the given channel that are in the given range.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel;
+   * @param aStartIdx
+   *          the start of the range;
+   * @param aEndIdx
+   *          the end of the range.
+   * @return an iterator over the annotations, never <code>null</code>.
+   */
+  public Iterator<ChannelAnnotation> getChannelAnnotations( final int aChannelIdx, final int aStartIdx,
+      final int aEndIdx )
+  {
+    final List<ChannelAnnotation> result = new ArrayList<ChannelAnnotation>();
+    for ( ChannelAnnotation annotation : this.annotations[aChannelIdx] )
+    {
+      if ( annotation.isInRange( aStartIdx, aEndIdx ) )
+      {
+        result.add( annotation );
+      }
+    }
+    return result.iterator();
+  }
+
+  /**
+   * Returns the number of channels in the given block.
+   * 
+   * @param aBlockNr
+   *          the block number.
+   * @return a channel count, >= 0.
+   */
+  public int getChannelsForBlock( final int aBlockNr )
+  {
+    return this.channelsForBlock[aBlockNr];
+  }
+
+  /**
+   * Returns the mask of enabled channels.
+   * 
+   * @return the enabled channels.
+   */
+  public int getEnabledChannels()
+  {
+    return this.enabledChannels;
+  }
+
+  /**
+   * Returns the (copied) diagram settings.
+   * 
+   * @return the diagram settings, never <code>null</code>.
+   */
+  public DiagramSettings getSettings()
+  {
+    return this.settings;
+  }
+
+  /**
+   * Returns the sample timestamps.
+   * 
+   * @return the timestamps, never <code>null</code>.
+   */
+  public long[] getTimestamps()
+  {
+    return this.timestamps;
+  }
+
+  /**
+   * Returns the trigger position.
+   * 
+   * @return the trigger position, or {@link Ols#NOT_AVAILABLE}.
+   */
+  public long getTriggerPosition()
+  {
+    return this.triggerPosition;
+  }
+
+  /**
+   * Returns the sample values.
+   * 
+   * @return the values, never <code>null</code>.
+   */
+  public int[] getValues()
+  {
+    return this.values;
+  }
+
+  /**
+   * Returns whether this snapshot still reflects the given data container and
+   * diagram settings.
+   * 
+   * @param aDataContainer
+   *          the data container to test;
+   * @param aSettings
+   *          the diagram settings to test.
+   * @return <code>true</code> if this snapshot is still up-to-date,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isSnapshotOf( final DataContainer aDataContainer, final DiagramSettings aSettings )
+  {
+    return ( this.sourceSettings == aSettings ) && ( this.values == aDataContainer.getValues() )
+        && ( this.timestamps == aDataContainer.getTimestamps() )
+        && ( this.annotationRevision == aDataContainer.getAnnotationRevision() );
+  }
+}
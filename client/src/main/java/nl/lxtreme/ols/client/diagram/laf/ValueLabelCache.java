@@ -0,0 +1,239 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.diagram.laf;
+
+
+import java.awt.*;
+import java.awt.font.*;
+
+
+/**
+ * Provides precomputed hexadecimal labels and their widths for the byte (and
+ * wider bus) value rows of the diagram.
+ * <p>
+ * All byte labels are kept in a single character array, so they can be drawn
+ * using {@link Graphics#drawChars(char[], int, int, int, int)} without creating
+ * any strings. The width of labels is determined from the widths of the
+ * individual hex digits, which are measured once for the font they are
+ * rendered with.
+ * </p>
+ * <p>
+ * Instances of this class are immutable, and can therefore be shared between
+ * threads.
+ * </p>
+ */
+final class ValueLabelCache
+{
+  // CONSTANTS
+
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  /** All byte values as two hex digits each, 00 up to and including FF. */
+  static final char[] BYTE_LABELS;
+
+  static
+  {
+    BYTE_LABELS = new char[256 * 2];
+    for ( int i = 0; i < 256; i++ )
+    {
+      BYTE_LABELS[2 * i] = HEX_DIGITS[( i >> 4 ) & 0x0f];
+      BYTE_LABELS[( 2 * i ) + 1] = HEX_DIGITS[i & 0x0f];
+    }
+  }
+
+  // VARIABLES
+
+  private final Font font;
+  private final FontRenderContext fontRenderContext;
+  private final int[] digitWidths;
+  private final int minDigitWidth;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ValueLabelCache instance.
+   * 
+   * @param aFontMetrics
+   *          the font metrics to measure the labels with, cannot be
+   *          <code>null</code>.
+   */
+  ValueLabelCache( final FontMetrics aFontMetrics )
+  {
+    this.font = aFontMetrics.getFont();
+    this.fontRenderContext = aFontMetrics.getFontRenderContext();
+
+    this.digitWidths = new int[HEX_DIGITS.length];
+
+    int minWidth = Integer.MAX_VALUE;
+    for ( int i = 0; i < HEX_DIGITS.length; i++ )
+    {
+      this.digitWidths[i] = aFontMetrics.charWidth( HEX_DIGITS[i] );
+      minWidth = Math.min( minWidth, this.digitWidths[i] );
+    }
+    this.minDigitWidth = minWidth;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the offset of the label for the given byte value in
+   * {@link #BYTE_LABELS}.
+   * 
+   * @param aValue
+   *          the byte value to get the label offset for, >= 0 && < 256.
+   * @return an offset in {@link #BYTE_LABELS}.
+   */
+  static int getByteLabelOffset( final int aValue )
+  {
+    return ( aValue & 0xff ) << 1;
+  }
+
+  /**
+   * Writes the given value as decimal digits in the given buffer.
+   * 
+   * @param aValue
+   *          the value to write, >= 0;
+   * @param aBuffer
+   *          the buffer to write the digits to, should have room for at least
+   *          19 digits;
+   * @param aOffset
+   *          the offset in the buffer to start writing at.
+   * @return the number of digits written, > 0.
+   */
+  static int writeDecimalLabel( final long aValue, final char[] aBuffer, final int aOffset )
+  {
+    int digits = 1;
+    for ( long value = aValue / 10L; value > 0L; value /= 10L )
+    {
+      digits++;
+    }
+
+    long value = aValue;
+    for ( int i = aOffset + digits - 1; i >= aOffset; i-- )
+    {
+      aBuffer[i] = HEX_DIGITS[( int )( value % 10L )];
+      value /= 10L;
+    }
+    return digits;
+  }
+
+  /**
+   * Writes the given value as hex digits in the given buffer.
+   * 
+   * @param aValue
+   *          the value to write;
+   * @param aDigits
+   *          the number of hex digits to write, > 0 && <= 16;
+   * @param aBuffer
+   *          the buffer to write the digits to;
+   * @param aOffset
+   *          the offset in the buffer to start writing at.
+   */
+  static void writeLabel( final long aValue, final int aDigits, final char[] aBuffer, final int aOffset )
+  {
+    long value = aValue;
+    for ( int i = aOffset + aDigits - 1; i >= aOffset; i-- )
+    {
+      aBuffer[i] = HEX_DIGITS[( int )( value & 0x0f )];
+      value >>>= 4;
+    }
+  }
+
+  /**
+   * Returns the width of the label for the given byte value.
+   * 
+   * @param aValue
+   *          the byte value to get the label width for.
+   * @return a label width, in pixels.
+   */
+  public int getByteLabelWidth( final int aValue )
+  {
+    return this.digitWidths[( aValue >> 4 ) & 0x0f] + this.digitWidths[aValue & 0x0f];
+  }
+
+  /**
+   * Returns the width of the decimal label for the given value.
+   * 
+   * @param aValue
+   *          the value to get the label width for, >= 0.
+   * @return a label width, in pixels.
+   */
+  public int getDecimalLabelWidth( final long aValue )
+  {
+    int result = 0;
+    long value = aValue;
+    do
+    {
+      result += this.digitWidths[( int )( value % 10L )];
+      value /= 10L;
+    }
+    while ( value > 0L );
+    return result;
+  }
+
+  /**
+   * Returns the width of the label for the given value.
+   * 
+   * @param aValue
+   *          the value to get the label width for;
+   * @param aDigits
+   *          the number of hex digits of the label, > 0 && <= 16.
+   * @return a label width, in pixels.
+   */
+  public int getLabelWidth( final long aValue, final int aDigits )
+  {
+    int result = 0;
+    long value = aValue;
+    for ( int i = 0; i < aDigits; i++ )
+    {
+      result += this.digitWidths[( int )( value & 0x0f )];
+      value >>>= 4;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the minimal width any label with the given number of digits can
+   * have. Segments that are not wider than this do not need any label work.
+   * 
+   * @param aDigits
+   *          the number of hex digits of the label, > 0.
+   * @return a minimal label width, in pixels.
+   */
+  public int getMinimumLabelWidth( final int aDigits )
+  {
+    return aDigits * this.minDigitWidth;
+  }
+
+  /**
+   * Returns whether this cache can be used for the given font metrics.
+   * 
+   * @param aFontMetrics
+   *          the font metrics to test, cannot be <code>null</code>.
+   * @return <code>true</code> if the labels of this cache were measured with
+   *         the same font metrics, <code>false</code> otherwise.
+   */
+  public boolean isValidFor( final FontMetrics aFontMetrics )
+  {
+    return this.font.equals( aFontMetrics.getFont() )
+        && this.fontRenderContext.equals( aFontMetrics.getFontRenderContext() );
+  }
+}
@@ -0,0 +1,387 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.diagram.settings;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+
+
+/**
+ * Defines a bus, being an arbitrary set of channels that together form a
+ * single multi-bit value, for example the output of an ADC.
+ * <p>
+ * The first channel of a bus denotes its least significant bit. A bus can be
+ * displayed as hexadecimal or decimal values, or as an analog (scope) trace.
+ * </p>
+ * <p>
+ * Bus definitions can be written and parsed in the following textual form:
+ * </p>
+ * 
+ * <pre>
+ * name: channels [hex|dec|analog]
+ * </pre>
+ * <p>
+ * where <em>channels</em> is a comma-separated list of channel indexes or
+ * channel ranges, like <tt>0-11</tt> or <tt>15,14,13,12</tt>. The display mode
+ * is optional and defaults to hexadecimal values.
+ * </p>
+ * <p>
+ * Instances of this class are immutable.
+ * </p>
+ */
+public final class BusDefinition
+{
+  // INNER TYPES
+
+  /**
+   * Denotes how the values of a bus are displayed.
+   */
+  public static enum Display
+  {
+    HEX( "hex" ), //
+    DECIMAL( "dec" ), //
+    ANALOG( "analog" );
+
+    private final String keyword;
+
+    private Display( final String aKeyword )
+    {
+      this.keyword = aKeyword;
+    }
+
+    /**
+     * Returns the display mode corresponding to the given keyword.
+     * 
+     * @param aKeyword
+     *          the keyword to return the display mode for.
+     * @return the display mode, or <code>null</code> if the keyword is unknown.
+     */
+    static Display forKeyword( final String aKeyword )
+    {
+      for ( Display display : values() )
+      {
+        if ( display.keyword.equalsIgnoreCase( aKeyword ) )
+        {
+          return display;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * @see java.lang.Enum#toString()
+     */
+    @Override
+    public String toString()
+    {
+      return this.keyword;
+    }
+  }
+
+  // CONSTANTS
+
+  /** The maximum number of channels a single bus can have. */
+  public static final int MAX_WIDTH = Ols.MAX_CHANNELS;
+
+  // VARIABLES
+
+  private final String name;
+  private final int[] channels;
+  private final Display display;
+  /** per byte of a sample, the contribution of that byte to the bus value. */
+  private final long[][] lookupTables;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new BusDefinition instance.
+   * 
+   * @param aName
+   *          the name of the bus, cannot be <code>null</code> or empty;
+   * @param aChannels
+   *          the channels forming the bus, starting with the least significant
+   *          bit, cannot be <code>null</code> or empty;
+   * @param aDisplay
+   *          how the bus values should be displayed, cannot be
+   *          <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case one of the given arguments was invalid.
+   */
+  public BusDefinition( final String aName, final int[] aChannels, final Display aDisplay )
+      throws IllegalArgumentException
+  {
+    if ( ( aName == null ) || "".equals( aName.trim() ) || ( aName.indexOf( ':' ) >= 0 ) )
+    {
+      throw new IllegalArgumentException( "Invalid bus name!" );
+    }
+    if ( ( aChannels == null ) || ( aChannels.length == 0 ) || ( aChannels.length > MAX_WIDTH ) )
+    {
+      throw new IllegalArgumentException( "Bus should have between 1 and " + MAX_WIDTH + " channels!" );
+    }
+    if ( aDisplay == null )
+    {
+      throw new IllegalArgumentException( "Display cannot be null!" );
+    }
+
+    int usedChannels = 0;
+    for ( int channel : aChannels )
+    {
+      if ( ( channel < 0 ) || ( channel >= Ols.MAX_CHANNELS ) )
+      {
+        throw new IllegalArgumentException( "Invalid channel: " + channel + "!" );
+      }
+      if ( ( usedChannels & ( 1 << channel ) ) != 0 )
+      {
+        throw new IllegalArgumentException( "Channel " + channel + " is used more than once!" );
+      }
+      usedChannels |= ( 1 << channel );
+    }
+
+    this.name = aName.trim();
+    this.channels = aChannels.clone();
+    this.display = aDisplay;
+
+    // Precompute, for each byte of a sample value, the bits it contributes to
+    // the bus value; extracting a bus value then takes only four lookups...
+    this.lookupTables = new long[4][256];
+    for ( int bit = 0; bit < this.channels.length; bit++ )
+    {
+      final int channel = this.channels[bit];
+      final long[] table = this.lookupTables[channel / 8];
+      final int mask = 1 << ( channel % 8 );
+      for ( int i = 0; i < 256; i++ )
+      {
+        if ( ( i & mask ) != 0 )
+        {
+          table[i] |= ( 1L << bit );
+        }
+      }
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Parses the given text into a bus definition.
+   * 
+   * @param aText
+   *          the text to parse, cannot be <code>null</code>.
+   * @return the parsed bus definition, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given text could not be parsed.
+   */
+  public static BusDefinition parse( final String aText ) throws IllegalArgumentException
+  {
+    final int colonIdx = aText.indexOf( ':' );
+    if ( colonIdx < 0 )
+    {
+      throw new IllegalArgumentException( "Missing ':' after bus name!" );
+    }
+
+    final String name = aText.substring( 0, colonIdx );
+    final String[] parts = aText.substring( colonIdx + 1 ).trim().split( "\\s+" );
+    if ( ( parts.length < 1 ) || ( parts.length > 2 ) || "".equals( parts[0] ) )
+    {
+      throw new IllegalArgumentException( "Expected a channel list and an optional display mode!" );
+    }
+
+    Display display = Display.HEX;
+    if ( parts.length > 1 )
+    {
+      display = Display.forKeyword( parts[1] );
+      if ( display == null )
+      {
+        throw new IllegalArgumentException( "Unknown display mode: " + parts[1] + "!" );
+      }
+    }
+
+    final List<Integer> channels = new ArrayList<Integer>();
+    for ( String item : parts[0].split( "," ) )
+    {
+      final int dashIdx = item.indexOf( '-' );
+      if ( dashIdx > 0 )
+      {
+        final int first = parseChannel( item.substring( 0, dashIdx ) );
+        final int last = parseChannel( item.substring( dashIdx + 1 ) );
+        final int step = ( first <= last ) ? 1 : -1;
+        for ( int channel = first; channel != ( last + step ); channel += step )
+        {
+          channels.add( Integer.valueOf( channel ) );
+        }
+      }
+      else
+      {
+        channels.add( Integer.valueOf( parseChannel( item ) ) );
+      }
+    }
+
+    final int[] result = new int[channels.size()];
+    for ( int i = 0; i < result.length; i++ )
+    {
+      result[i] = channels.get( i ).intValue();
+    }
+
+    return new BusDefinition( name, result, display );
+  }
+
+  /**
+   * Parses a single channel index.
+   */
+  private static int parseChannel( final String aText ) throws IllegalArgumentException
+  {
+    try
+    {
+      return Integer.parseInt( aText.trim() );
+    }
+    catch ( NumberFormatException exception )
+    {
+      throw new IllegalArgumentException( "Invalid channel: " + aText + "!" );
+    }
+  }
+
+  /**
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals( final Object aObject )
+  {
+    if ( this == aObject )
+    {
+      return true;
+    }
+    if ( ( aObject == null ) || ( getClass() != aObject.getClass() ) )
+    {
+      return false;
+    }
+
+    final BusDefinition other = ( BusDefinition )aObject;
+    return this.name.equals( other.name ) && Arrays.equals( this.channels, other.channels )
+        && ( this.display == other.display );
+  }
+
+  /**
+   * Extracts the value of this bus from the given sample value.
+   * 
+   * @param aSampleValue
+   *          the sample value to extract the bus value from.
+   * @return the bus value, >= 0 && <= {@link #getMaxValue()}.
+   */
+  public long extractValue( final int aSampleValue )
+  {
+    return this.lookupTables[0][aSampleValue & 0xff] //
+        | this.lookupTables[1][( aSampleValue >>> 8 ) & 0xff] //
+        | this.lookupTables[2][( aSampleValue >>> 16 ) & 0xff] //
+        | this.lookupTables[3][( aSampleValue >>> 24 ) & 0xff];
+  }
+
+  /**
+   * Returns the channels of this bus, starting with the least significant bit.
+   * 
+   * @return a copy of the channel indexes, never <code>null</code>.
+   */
+  public int[] getChannels()
+  {
+    return this.channels.clone();
+  }
+
+  /**
+   * Returns how the values of this bus are to be displayed.
+   * 
+   * @return the display mode, never <code>null</code>.
+   */
+  public Display getDisplay()
+  {
+    return this.display;
+  }
+
+  /**
+   * Returns the number of hex digits needed to show the values of this bus.
+   * 
+   * @return a number of hex digits, > 0.
+   */
+  public int getHexDigits()
+  {
+    return ( this.channels.length + 3 ) / 4;
+  }
+
+  /**
+   * Returns the largest value this bus can have.
+   * 
+   * @return a maximum value, > 0.
+   */
+  public long getMaxValue()
+  {
+    return ( 1L << this.channels.length ) - 1L;
+  }
+
+  /**
+   * Returns the name of this bus.
+   * 
+   * @return a name, never <code>null</code>.
+   */
+  public String getName()
+  {
+    return this.name;
+  }
+
+  /**
+   * Returns the number of bits of this bus.
+   * 
+   * @return a bit width, > 0 && <= {@link #MAX_WIDTH}.
+   */
+  public int getWidth()
+  {
+    return this.channels.length;
+  }
+
+  /**
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode()
+  {
+    return ( 31 * ( ( 31 * this.name.hashCode() ) + Arrays.hashCode( this.channels ) ) ) + this.display.hashCode();
+  }
+
+  /**
+   * Returns this bus definition in its textual form, which can be parsed by
+   * {@link #parse(String)}.
+   * 
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder( this.name ).append( ": " );
+    for ( int i = 0; i < this.channels.length; i++ )
+    {
+      if ( i > 0 )
+      {
+        sb.append( ',' );
+      }
+      sb.append( this.channels[i] );
+    }
+    sb.append( ' ' ).append( this.display );
+    return sb.toString();
+  }
+}
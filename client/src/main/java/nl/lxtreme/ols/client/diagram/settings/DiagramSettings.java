@@ -22,6 +22,8 @@ package nl.lxtreme.ols.client.diagram.settings;
 
 
 import java.awt.*;
+import java.util.*;
+import java.util.List;
 
 import nl.lxtreme.ols.api.*;
 
@@ -94,6 +96,13 @@ public interface DiagramSettings extends UserSettings
    */
   Color getBackgroundColor();
 
+  /**
+   * Returns the user-defined buses, which are shown below all channel groups.
+   * 
+   * @return an unmodifiable list of bus definitions, never <code>null</code>.
+   */
+  List<BusDefinition> getBusDefinitions();
+
   /**
    * Returns the signal color.
    * 
@@ -25,6 +25,8 @@ import static nl.lxtreme.ols.util.swing.SwingComponentUtils.*;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.util.*;
+import java.util.List;
 
 import javax.swing.*;
 
@@ -175,6 +177,7 @@ public class GeneralSettingsDialog extends JDialog implements Configurable, Clos
   private JTextField[] cursorColor;
   private JTextField[] channelColor;
   private JCheckBox showCursorTimings;
+  private JTextArea busDefinitions;
 
   private int channelColorCount;
 
@@ -313,12 +316,34 @@ public class GeneralSettingsDialog extends JDialog implements Configurable, Clos
    */
   final void setColorSchemeTabState( final boolean aEnable )
   {
-    for ( int i = 1; i < this.tabbedPane.getTabCount(); i++ )
+    // The first two tabs (general & buses) are not color scheme-related...
+    for ( int i = 2; i < this.tabbedPane.getTabCount(); i++ )
     {
       this.tabbedPane.setEnabledAt( i, aEnable );
     }
   }
 
+  /**
+   * @return
+   */
+  private JPanel createBusDefinitionsPane()
+  {
+    this.busDefinitions = new JTextArea( 10, 40 );
+
+    final JLabel help = new JLabel( "<html>One bus per line, as <tt>name: channels [hex|dec|analog]</tt>.<br>"
+        + "Channels are a comma-separated list of channels or ranges, like <tt>0-11</tt> or "
+        + "<tt>15,14,13,12</tt>;<br>the first channel is the least significant bit.</html>" );
+
+    final JPanel result = new JPanel( new GridBagLayout() );
+
+    result.add( help, new GridBagConstraints( 0, 0, 1, 1, 1.0, 0.0, GridBagConstraints.NORTHWEST,
+        GridBagConstraints.HORIZONTAL, new Insets( 6, 6, 6, 6 ), 0, 0 ) );
+    result.add( new JScrollPane( this.busDefinitions ), new GridBagConstraints( 0, 1, 1, 1, 1.0, 1.0,
+        GridBagConstraints.NORTH, GridBagConstraints.BOTH, new Insets( 0, 6, 6, 6 ), 0, 0 ) );
+
+    return result;
+  }
+
   /**
    * @param aBlockNr
    *          the channel block number to create a color scheme editor for, >= 0
@@ -510,6 +535,7 @@ public class GeneralSettingsDialog extends JDialog implements Configurable, Clos
   {
     this.tabbedPane = new JTabbedPane( SwingConstants.TOP, JTabbedPane.SCROLL_TAB_LAYOUT );
     this.tabbedPane.addTab( "General", createGeneralSettingsPane() );
+    this.tabbedPane.addTab( "Buses", createBusDefinitionsPane() );
     this.tabbedPane.addTab( "General colors", createColorSchemePane() );
     this.tabbedPane.addTab( "Cursor colors", createCursorColorSchemePane() );
     this.tabbedPane.addTab( "Channel colors", createChannelColorSchemePane( 0 ) );
@@ -669,6 +695,24 @@ public class GeneralSettingsDialog extends JDialog implements Configurable, Clos
       }
     }
 
+    final List<BusDefinition> busDefinitionsValue = new ArrayList<BusDefinition>();
+    for ( String line : this.busDefinitions.getText().split( "\\n" ) )
+    {
+      if ( line.trim().length() == 0 )
+      {
+        continue;
+      }
+      try
+      {
+        busDefinitionsValue.add( BusDefinition.parse( line ) );
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        showErrorMessage( "Invalid bus definition '" + line.trim() + "': " + exception.getMessage() );
+        return false;
+      }
+    }
+
     // Update all settings in one go; this way, we make it more or less
     // atomic...
     synchronized ( this.settings )
@@ -680,6 +724,7 @@ public class GeneralSettingsDialog extends JDialog implements Configurable, Clos
       this.settings.setColorTarget( colorTargetValue );
       this.settings.setColorScheme( colorSchemeValue );
       this.settings.setEdgeSlope( edgeSlopeValue );
+      this.settings.setBusDefinitions( busDefinitionsValue );
 
       if ( ColorScheme.CUSTOM.equals( colorSchemeValue ) )
       {
@@ -755,6 +800,13 @@ public class GeneralSettingsDialog extends JDialog implements Configurable, Clos
         }
       }
 
+      final StringBuilder buses = new StringBuilder();
+      for ( BusDefinition bus : this.settings.getBusDefinitions() )
+      {
+        buses.append( bus ).append( '\n' );
+      }
+      this.busDefinitions.setText( buses.toString() );
+
       setColorSchemeTabState( customSchemeSelected );
     }
   }
@@ -22,6 +22,9 @@ package nl.lxtreme.ols.client.diagram.settings;
 
 
 import java.awt.*;
+import java.util.*;
+import java.util.List;
+import java.util.logging.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.client.data.settings.*;
@@ -36,6 +39,8 @@ public class MutableDiagramSettings extends UserSettingsImpl implements DiagramS
 
   public static final String NAME = "DiagramSettings";
 
+  private static final Logger LOG = Logger.getLogger( MutableDiagramSettings.class.getName() );
+
   private static final long serialVersionUID = 1L;
 
   private static final ColorScheme DEFAULT_COLOR_SCHEME = ColorScheme.DARK;
@@ -48,6 +53,11 @@ public class MutableDiagramSettings extends UserSettingsImpl implements DiagramS
   private static final SignalAlignment DEFAULT_SIGNAL_ALIGNMENT = SignalAlignment.CENTER;
   private static final EdgeSlope DEFAULT_EDGE_SLOPE = EdgeSlope.NON_PERPENDICULAR;
 
+  // VARIABLES
+
+  /** lazily parsed from the bus properties. */
+  private transient volatile List<BusDefinition> busDefinitions;
+
   // CONSTRUCTORS
 
   /**
@@ -105,6 +115,7 @@ public class MutableDiagramSettings extends UserSettingsImpl implements DiagramS
       setTextColor( aDiagramSettings.getTextColor() );
       setTimeColor( aDiagramSettings.getTimeColor() );
       setTriggerColor( aDiagramSettings.getTriggerColor() );
+      setBusDefinitions( aDiagramSettings.getBusDefinitions() );
     }
   }
 
@@ -138,6 +149,42 @@ public class MutableDiagramSettings extends UserSettingsImpl implements DiagramS
     return getColor( "backgroundColor", getDefaultBackgroundColor() );
   }
 
+  /**
+   * @see nl.lxtreme.ols.client.diagram.settings.DiagramSettings#getBusDefinitions()
+   */
+  @Override
+  public final List<BusDefinition> getBusDefinitions()
+  {
+    List<BusDefinition> result = this.busDefinitions;
+    if ( result == null )
+    {
+      final int count = getInt( "busCount", 0 );
+
+      final List<BusDefinition> buses = new ArrayList<BusDefinition>( count );
+      for ( int i = 0; i < count; i++ )
+      {
+        final String definition = get( "bus." + i, null );
+        if ( definition == null )
+        {
+          continue;
+        }
+
+        try
+        {
+          buses.add( BusDefinition.parse( definition ) );
+        }
+        catch ( IllegalArgumentException exception )
+        {
+          LOG.log( Level.WARNING, "Ignoring invalid bus definition: {0}", definition );
+        }
+      }
+
+      result = Collections.unmodifiableList( buses );
+      this.busDefinitions = result;
+    }
+    return result;
+  }
+
   /**
    * @see nl.lxtreme.ols.client.diagram.settings.DiagramSettings#getChannelColor(int)
    */
@@ -359,6 +406,29 @@ public class MutableDiagramSettings extends UserSettingsImpl implements DiagramS
     putColor( "backgroundColor", aBackgroundColor );
   }
 
+  /**
+   * Sets the user-defined buses, replacing any existing ones.
+   * 
+   * @param aBusDefinitions
+   *          the bus definitions to set, cannot be <code>null</code>.
+   */
+  public final void setBusDefinitions( final List<BusDefinition> aBusDefinitions )
+  {
+    final int oldCount = getInt( "busCount", 0 );
+    for ( int i = aBusDefinitions.size(); i < oldCount; i++ )
+    {
+      delete( "bus." + i );
+    }
+
+    putInt( "busCount", aBusDefinitions.size() );
+    for ( int i = 0; i < aBusDefinitions.size(); i++ )
+    {
+      put( "bus." + i, aBusDefinitions.get( i ).toString() );
+    }
+
+    this.busDefinitions = Collections.unmodifiableList( new ArrayList<BusDefinition>( aBusDefinitions ) );
+  }
+
   /**
    * @param aChannelColor
    *          the channelColors to set
@@ -0,0 +1,81 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.osgi;
+
+
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.util.osgi.*;
+
+import org.osgi.framework.*;
+
+
+/**
+ * Whiteboard helper for all {@link CursorListener}s.
+ */
+public class CursorListenerHelper extends WhiteboardHelper<CursorListener> implements CursorListener
+{
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CursorListenerHelper instance.
+   * 
+   * @param aContext
+   *          the current bundle context to use.
+   */
+  public CursorListenerHelper( final BundleContext aContext )
+  {
+    super( aContext, CursorListener.class );
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void cursorChanged( final int aCursorIdx, final long aCursorPosition )
+  {
+    final Object[] services = getServices();
+    if ( services != null )
+    {
+      for ( Object service : services )
+      {
+        ( ( CursorListener )service ).cursorChanged( aCursorIdx, aCursorPosition );
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void cursorRemoved( final int aCursorIdx )
+  {
+    final Object[] services = getServices();
+    if ( services != null )
+    {
+      for ( Object service : services )
+      {
+        ( ( CursorListener )service ).cursorRemoved( aCursorIdx );
+      }
+    }
+  }
+}
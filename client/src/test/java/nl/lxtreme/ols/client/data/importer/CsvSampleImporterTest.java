@@ -0,0 +1,128 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.data.importer;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.test.data.project.*;
+
+import org.junit.*;
+
+
+/**
+ * Provides test cases for {@link CsvSampleImporter}.
+ */
+public class CsvSampleImporterTest
+{
+  // VARIABLES
+
+  private CsvSampleImporter importer;
+  private Project project;
+
+  // METHODS
+
+  /**
+   * Set up for each test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.importer = new CsvSampleImporter( 1000000 );
+
+    this.project = new StubTestProject();
+    this.project.setChannelLabels( new String[Ols.MAX_CHANNELS] );
+  }
+
+  /**
+   * Tests the splitting of (quoted) cells.
+   */
+  @Test
+  public void testSplit()
+  {
+    assertEquals( ';', CsvSampleImporter.detectDelimiter( "Time;A;B,C" ) );
+    assertEquals( Arrays.asList( "1", "a,b", "say \"hi\"", "" ), //
+        CsvSampleImporter.split( "1, \"a,b\",\"say \"\"hi\"\"\",", ',' ) );
+  }
+
+  /**
+   * Tests that a table with one column per channel, and its times in seconds
+   * relative to the trigger, is imported correctly.
+   */
+  @Test
+  public void testImportChannelColumnsInSeconds() throws IOException
+  {
+    importData( "Time [s], CLK, DATA\n" //
+        + "-0.000002, 0, 1\n" //
+        + "-0.000001, 1, 1\n" //
+        + "0.0, 0, 0\n" //
+        + "0.000003, 0, 0\n" );
+
+    final AcquisitionResult result = this.project.getCapturedData();
+    assertArrayEquals( new int[] { 2, 3, 0 }, result.getValues() );
+    assertArrayEquals( new long[] { 0, 1, 2 }, result.getTimestamps() );
+    assertEquals( 6L, result.getAbsoluteLength() );
+    assertEquals( 2L, result.getTriggerPosition() );
+    assertEquals( 2, result.getChannels() );
+    assertEquals( "CLK", this.project.getChannelLabels()[0] );
+    assertEquals( "DATA", this.project.getChannelLabels()[1] );
+  }
+
+  /**
+   * Tests that a table with a single value column, indexed by sample, is
+   * imported correctly.
+   */
+  @Test
+  public void testImportValueColumn() throws IOException
+  {
+    importData( "0\t0x00\n10\t0x21\n11\t33\n20\t0x01\n" );
+
+    final AcquisitionResult result = this.project.getCapturedData();
+    assertArrayEquals( new int[] { 0x00, 0x21, 0x01 }, result.getValues() );
+    assertArrayEquals( new long[] { 0, 10, 20 }, result.getTimestamps() );
+    assertEquals( 21L, result.getAbsoluteLength() );
+    assertEquals( 1000000, result.getSampleRate() );
+    assertEquals( 6, result.getChannels() );
+  }
+
+  /**
+   * Tests that rows with a differing number of columns are rejected.
+   */
+  @Test( expected = IOException.class )
+  public void testImportRaggedTableFails() throws IOException
+  {
+    importData( "0,1,0\n1,1\n" );
+  }
+
+  /**
+   * Imports the given CSV data into the test project.
+   */
+  private void importData( final String aData ) throws IOException
+  {
+    this.importer.importData( this.project, new ByteArrayInputStream( aData.getBytes( "UTF-8" ) ) );
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.data.importer;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.test.data.project.*;
+
+import org.junit.*;
+
+
+/**
+ * Provides test cases for {@link RawBinaryImporter}.
+ */
+public class RawBinaryImporterTest
+{
+  // INNER TYPES
+
+  /**
+   * Returns its data in small, odd-sized, portions, to test that partial
+   * samples are handled correctly.
+   */
+  static final class TrickleInputStream extends ByteArrayInputStream
+  {
+    TrickleInputStream( final byte[] aData )
+    {
+      super( aData );
+    }
+
+    @Override
+    public synchronized int read( final byte[] aBuffer, final int aOffset, final int aLength )
+    {
+      return super.read( aBuffer, aOffset, Math.min( 3, aLength ) );
+    }
+  }
+
+  // VARIABLES
+
+  private Project project;
+
+  // METHODS
+
+  /**
+   * Set up for each test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.project = new StubTestProject();
+    this.project.setChannelLabels( new String[Ols.MAX_CHANNELS] );
+  }
+
+  /**
+   * Tests that an empty file is rejected.
+   */
+  @Test( expected = IOException.class )
+  public void testImportEmptyFileFails() throws IOException
+  {
+    new RawBinaryImporter( 1, 8, 1000 ).importData( this.project, new ByteArrayInputStream( new byte[1] ) );
+  }
+
+  /**
+   * Tests that single-byte samples are imported as transitions.
+   */
+  @Test
+  public void testImportSingleByteSamples() throws IOException
+  {
+    final byte[] data = { 0x01, 0x01, 0x11, 0x03, 0x03, 0x03 };
+    new RawBinaryImporter( 1, 4, 1000 ).importData( this.project, new ByteArrayInputStream( data ) );
+
+    final AcquisitionResult result = this.project.getCapturedData();
+    // Only the lower four channels are used...
+    assertArrayEquals( new int[] { 1, 3 }, result.getValues() );
+    assertArrayEquals( new long[] { 0, 3 }, result.getTimestamps() );
+    assertEquals( 6L, result.getAbsoluteLength() );
+    assertEquals( 1000, result.getSampleRate() );
+    assertEquals( 4, result.getChannels() );
+    assertEquals( 0x0F, result.getEnabledChannels() );
+  }
+
+  /**
+   * Tests that multi-byte samples spanning several reads are imported
+   * correctly, and that the progress is reported.
+   */
+  @Test
+  public void testImportThreeByteSamples() throws IOException
+  {
+    final byte[] data = { 0x01, 0x00, 0x00, 0x01, 0x00, 0x00, 0x00, 0x02, ( byte )0x80, 0x00, 0x00, 0x00, 0x7F };
+
+    final int[] progress = { 0 };
+    final ImportProgressListener listener = new ImportProgressListener()
+    {
+      @Override
+      public void setProgress( final int aPercentage )
+      {
+        progress[0] = aPercentage;
+      }
+    };
+
+    new RawBinaryImporter( 3, 24, 2000 ).importData( this.project, new ProgressInputStream( new TrickleInputStream(
+        data ), data.length, listener ) );
+
+    final AcquisitionResult result = this.project.getCapturedData();
+    // The trailing byte does not form a complete sample...
+    assertArrayEquals( new int[] { 0x000001, 0x800200, 0x000000 }, result.getValues() );
+    assertArrayEquals( new long[] { 0, 2, 3 }, result.getTimestamps() );
+    assertEquals( 4L, result.getAbsoluteLength() );
+    assertEquals( 24, result.getChannels() );
+    assertEquals( 100, progress[0] );
+  }
+}
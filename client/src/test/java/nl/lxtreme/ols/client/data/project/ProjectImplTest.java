@@ -29,6 +29,7 @@ import java.util.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.project.*;
 import nl.lxtreme.ols.client.data.settings.*;
 import nl.lxtreme.ols.test.*;
 import nl.lxtreme.ols.test.data.*;
@@ -244,6 +245,43 @@ public class ProjectImplTest
     assertTrue( this.project.isChanged() );
   }
 
+  /**
+   * Tests that setting the cursors while the captured data is pending does not
+   * load it, and that the load does not overwrite the set cursors.
+   */
+  @Test
+  public void testSetCursorPositionsWhileLoadPending()
+  {
+    final AcquisitionResult data = DataTestUtils.getMockedCapturedData();
+    final int[] loadCount = { 0 };
+
+    this.project.setCapturedDataSource( new File( "test.ols" ), new ProjectImpl.CapturedDataLoader()
+    {
+      @Override
+      public Project load()
+      {
+        loadCount[0]++;
+
+        final ProjectImpl loaded = new ProjectImpl();
+        loaded.setCapturedData( data );
+        loaded.setCursorPositions( Long.valueOf( 5L ) );
+        loaded.setCursorsEnabled( true );
+        return loaded;
+      }
+    } );
+
+    this.project.setCursorPositions( Long.valueOf( 100L ) );
+    assertEquals( 0, loadCount[0] );
+    assertNull( this.project.getCapturedDataSource() );
+
+    assertSame( data, this.project.getCapturedData() );
+    assertEquals( 1, loadCount[0] );
+    assertEquals( Long.valueOf( 100L ), this.project.getCursorPositions()[0] );
+    // Only the changed cursors are retained...
+    assertTrue( this.project.isCursorsEnabled() );
+    assertNull( this.project.getCapturedDataSource() );
+  }
+
   /**
    * Test method for {@link ProjectImpl#setCursorsEnabled(boolean)}.
    */
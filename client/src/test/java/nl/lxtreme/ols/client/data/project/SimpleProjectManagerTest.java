@@ -25,6 +25,7 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import java.io.*;
+import java.util.zip.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
@@ -43,6 +44,7 @@ public class SimpleProjectManagerTest
   // VARIABLES
 
   private SimpleProjectManager projectManager;
+  private File projectFile;
 
   // METHODS
 
@@ -57,6 +59,18 @@ public class SimpleProjectManagerTest
 
     this.projectManager = new SimpleProjectManager();
     this.projectManager.setHostProperties( mockProperties );
+
+    this.projectFile = File.createTempFile( "ols", ".olp" );
+    this.projectFile.delete();
+  }
+
+  /**
+   * Cleans up after the test cases.
+   */
+  @After
+  public void tearDown()
+  {
+    this.projectFile.delete();
   }
 
   /**
@@ -216,4 +230,238 @@ public class SimpleProjectManagerTest
     assertNotSame( settings, this.projectManager.getCurrentProject().getSettings( settingsName ) );
     assertEquals( "value", this.projectManager.getCurrentProject().getSettings( settingsName ).get( "key", "default" ) );
   }
+
+  /**
+   * Test method for {@link SimpleProjectManager#loadProjectFile(java.io.File)}.
+   */
+  @Test( expected = IOException.class )
+  public void testLoadInvalidProjectFileFail() throws IOException
+  {
+    final FileOutputStream fos = new FileOutputStream( this.projectFile );
+    fos.write( "hello world!".getBytes() );
+    fos.close();
+
+    this.projectManager.loadProjectFile( this.projectFile );
+  }
+
+  /**
+   * Test method for {@link SimpleProjectManager#loadProjectFile(java.io.File)}.
+   */
+  @Test
+  public void testLoadProjectFileDefersLoadingCaptureResults() throws IOException
+  {
+    final AcquisitionResult mockedCapturedData = DataTestUtils.getMockedCapturedData();
+
+    final Project project = this.projectManager.getCurrentProject();
+    project.setName( "testProject" );
+    project.setCapturedData( mockedCapturedData );
+
+    this.projectManager.saveProjectFile( this.projectFile );
+
+    this.projectManager.createNewProject();
+    this.projectManager.loadProjectFile( this.projectFile );
+
+    final ProjectImpl loadedProject = ( ProjectImpl )this.projectManager.getCurrentProject();
+    assertEquals( "testProject", loadedProject.getName() );
+    assertTrue( loadedProject.isCapturedDataPending() );
+    assertFalse( loadedProject.isChanged() );
+
+    DataTestUtils.assertEquals( mockedCapturedData, loadedProject.getCapturedData() );
+    assertFalse( loadedProject.isCapturedDataPending() );
+    assertFalse( loadedProject.isChanged() );
+  }
+
+  /**
+   * Test method for {@link SimpleProjectManager#saveProjectFile(java.io.File)}.
+   */
+  @Test
+  public void testSaveProjectFileCopiesUnchangedCaptureResults() throws IOException
+  {
+    final AcquisitionResult mockedCapturedData = DataTestUtils.getMockedCapturedData();
+
+    final Project project = this.projectManager.getCurrentProject();
+    project.setName( "testProject" );
+    project.setCapturedData( mockedCapturedData );
+
+    this.projectManager.saveProjectFile( this.projectFile );
+
+    this.projectManager.createNewProject();
+    this.projectManager.loadProjectFile( this.projectFile );
+
+    // Only change the metadata...
+    this.projectManager.getCurrentProject().setName( "otherProject" );
+    this.projectManager.saveProjectFile( this.projectFile );
+
+    final ProjectImpl savedProject = ( ProjectImpl )this.projectManager.getCurrentProject();
+    assertTrue( "Captured data loaded while saving?!", savedProject.isCapturedDataPending() );
+    assertEquals( this.projectFile, savedProject.getCapturedDataSource() );
+
+    this.projectManager.createNewProject();
+    this.projectManager.loadProjectFile( this.projectFile );
+
+    assertEquals( "otherProject", this.projectManager.getCurrentProject().getName() );
+    DataTestUtils.assertEquals( mockedCapturedData, this.projectManager.getCurrentProject().getCapturedData() );
+  }
+
+  /**
+   * Test method for {@link SimpleProjectManager#saveProjectFile(java.io.File)}.
+   */
+  @Test
+  public void testSaveProjectFileNeverDropsCaptureResultsThatFailedToLoad() throws IOException
+  {
+    final AcquisitionResult mockedCapturedData = DataTestUtils.getMockedCapturedData();
+
+    final Project project = this.projectManager.getCurrentProject();
+    project.setCapturedData( mockedCapturedData );
+
+    this.projectManager.saveProjectFile( this.projectFile );
+
+    this.projectManager.createNewProject();
+    this.projectManager.loadProjectFile( this.projectFile );
+
+    // Let the lazy load fail...
+    final File movedFile = new File( this.projectFile.getPath() + ".moved" );
+    assertTrue( this.projectFile.renameTo( movedFile ) );
+
+    final ProjectImpl loadedProject = ( ProjectImpl )this.projectManager.getCurrentProject();
+    try
+    {
+      assertNull( loadedProject.getCapturedData() );
+      assertTrue( loadedProject.isCapturedDataLoadFailed() );
+
+      loadedProject.setCursorsEnabled( true );
+      assertEquals( this.projectFile, loadedProject.getCapturedDataSource() );
+
+      try
+      {
+        // The captured data can neither be loaded nor copied...
+        this.projectManager.saveProjectFile( this.projectFile );
+        fail( "IOException expected!" );
+      }
+      catch ( IOException exception )
+      {
+        // Ok; expected...
+      }
+      assertFalse( this.projectFile.exists() );
+    }
+    finally
+    {
+      assertTrue( movedFile.renameTo( this.projectFile ) );
+    }
+
+    // Once the project file is back, its captured data is copied...
+    this.projectManager.saveProjectFile( this.projectFile );
+
+    this.projectManager.createNewProject();
+    this.projectManager.loadProjectFile( this.projectFile );
+
+    DataTestUtils.assertEquals( mockedCapturedData, this.projectManager.getCurrentProject().getCapturedData() );
+  }
+
+  /**
+   * Test method for {@link SimpleProjectManager#saveProjectFile(java.io.File)}.
+   */
+  @Test
+  public void testSaveProjectFileStoresCaptureResultsUncompressed() throws IOException
+  {
+    final AcquisitionResult mockedCapturedData = DataTestUtils.getMockedCapturedData();
+
+    final Project project = this.projectManager.getCurrentProject();
+    project.setCapturedData( mockedCapturedData );
+    project.setCursorPositions( Long.valueOf( 3L ) );
+    project.setCursorsEnabled( true );
+
+    this.projectManager.saveProjectFile( this.projectFile );
+    assertFalse( project.isChanged() );
+
+    final ZipFile zipFile = new ZipFile( this.projectFile );
+    try
+    {
+      final ZipEntry entry = zipFile.getEntry( "data.ols" );
+      assertNotNull( entry );
+      assertEquals( ZipEntry.STORED, entry.getMethod() );
+    }
+    finally
+    {
+      zipFile.close();
+    }
+
+    // Project files should remain readable as stream as well...
+    final FileInputStream fis = new FileInputStream( this.projectFile );
+    try
+    {
+      this.projectManager.loadProject( fis );
+    }
+    finally
+    {
+      HostUtils.closeResource( fis );
+    }
+
+    DataTestUtils.assertEquals( mockedCapturedData, this.projectManager.getCurrentProject().getCapturedData() );
+    assertEquals( Long.valueOf( 3L ), this.projectManager.getCurrentProject().getCursorPositions()[0] );
+  }
+
+  /**
+   * Test method for
+   * {@link SimpleProjectManager#saveProjectSnapshot(Project, File, ProjectProgressListener)}
+   * .
+   */
+  @Test
+  public void testSaveProjectSnapshotIsDetachedFromProject() throws IOException
+  {
+    final Project project = this.projectManager.getCurrentProject();
+    project.setName( "testProject" );
+    project.setCapturedData( DataTestUtils.getMockedCapturedData() );
+
+    final Project snapshot = this.projectManager.createSnapshot();
+
+    // Change the project after the snapshot is taken...
+    project.setName( "otherProject" );
+    project.getSettings( "test" ).put( "key", "value" );
+
+    final int[] progress = { -1 };
+    this.projectManager.saveProjectSnapshot( snapshot, this.projectFile, new ProjectProgressListener()
+    {
+      @Override
+      public void setProgress( final int aPercentage )
+      {
+        assertTrue( aPercentage >= progress[0] );
+        progress[0] = aPercentage;
+      }
+    } );
+    assertEquals( 100, progress[0] );
+
+    // Saving a snapshot should not touch the project itself...
+    assertTrue( project.isChanged() );
+
+    this.projectManager.createNewProject();
+    this.projectManager.loadProjectFile( this.projectFile );
+
+    assertEquals( "testProject", this.projectManager.getCurrentProject().getName() );
+    assertEquals( "default", this.projectManager.getCurrentProject().getSettings( "test" ).get( "key", "default" ) );
+  }
+
+  /**
+   * Test method for {@link SimpleProjectManager#setProjectSaved(Project, File)}.
+   */
+  @Test
+  public void testSetProjectSavedRetainsLaterChanges() throws IOException
+  {
+    final Project project = this.projectManager.getCurrentProject();
+    project.setName( "testProject" );
+
+    Project snapshot = this.projectManager.createSnapshot();
+    this.projectManager.saveProjectSnapshot( snapshot, this.projectFile, null );
+
+    project.setName( "otherProject" );
+
+    this.projectManager.setProjectSaved( snapshot, this.projectFile );
+    assertTrue( "Project changed after snapshot, yet marked as saved?!", project.isChanged() );
+
+    snapshot = this.projectManager.createSnapshot();
+    this.projectManager.saveProjectSnapshot( snapshot, this.projectFile, null );
+
+    this.projectManager.setProjectSaved( snapshot, this.projectFile );
+    assertFalse( project.isChanged() );
+  }
 }
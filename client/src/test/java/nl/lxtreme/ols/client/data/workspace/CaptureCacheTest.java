@@ -0,0 +1,261 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.data.workspace;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.virtual.*;
+import nl.lxtreme.ols.api.data.virtual.StateView.ClockEdge;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CaptureCache}.
+ */
+public class CaptureCacheTest
+{
+  // VARIABLES
+
+  private File spillDir;
+  private CaptureCache cache;
+
+  // METHODS
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    this.spillDir = File.createTempFile( "ols", ".spill" );
+    this.spillDir.delete();
+    this.spillDir.mkdirs();
+  }
+
+  /**
+   * Cleans up after the test cases.
+   */
+  @After
+  public void tearDown()
+  {
+    if ( this.cache != null )
+    {
+      this.cache.close();
+    }
+    this.spillDir.delete();
+  }
+
+  /**
+   * Tests that closing the cache removes all spill files.
+   */
+  @Test
+  public void testCloseRemovesSpillFiles() throws Exception
+  {
+    this.cache = new CaptureCache( 0L, this.spillDir );
+
+    this.cache.add( createData( 100, 1 ) );
+    this.cache.add( createData( 100, 2 ) );
+    assertEquals( 1, this.spillDir.list().length );
+
+    this.cache.close();
+    assertEquals( 0, this.spillDir.list().length );
+  }
+
+  /**
+   * Tests that the least recently used captures are evicted from memory first.
+   */
+  @Test
+  public void testLeastRecentlyUsedEviction() throws Exception
+  {
+    final CapturedData data = createData( 1000, 1 );
+    final long size = CaptureCache.estimateSize( data );
+
+    this.cache = new CaptureCache( 2 * size, this.spillDir );
+
+    final long key1 = this.cache.add( data );
+    final long key2 = this.cache.add( createData( 1000, 2 ) );
+    assertTrue( this.cache.isResident( key1 ) );
+    assertTrue( this.cache.isResident( key2 ) );
+
+    // Touch the first capture, making the second the least recently used...
+    this.cache.get( key1 );
+
+    final long key3 = this.cache.add( createData( 1000, 3 ) );
+    assertTrue( this.cache.isResident( key1 ) );
+    assertFalse( this.cache.isResident( key2 ) );
+    assertTrue( this.cache.isResident( key3 ) );
+    assertTrue( this.cache.getMemoryUsed() <= this.cache.getMemoryBudget() );
+
+    assertSameData( createData( 1000, 2 ), this.cache.get( key2 ) );
+  }
+
+  /**
+   * Tests that removed captures can no longer be obtained.
+   */
+  @Test
+  public void testRemove() throws Exception
+  {
+    this.cache = new CaptureCache( 0L, this.spillDir );
+
+    final long key = this.cache.add( createData( 10, 1 ) );
+    this.cache.add( createData( 10, 2 ) );
+
+    this.cache.remove( key );
+    assertNull( this.cache.get( key ) );
+    assertEquals( 0, this.spillDir.list().length );
+  }
+
+  /**
+   * Tests that captures exceeding the memory budget are spilled to disk and
+   * read back unchanged.
+   */
+  @Test
+  public void testSpillAndReload() throws Exception
+  {
+    this.cache = new CaptureCache( 0L, this.spillDir );
+
+    final CapturedData data = createData( 5000, 7 );
+    final long key = this.cache.add( data );
+    // The most recently added capture always remains available...
+    assertTrue( this.cache.isResident( key ) );
+
+    this.cache.add( createData( 10, 1 ) );
+    assertFalse( this.cache.isResident( key ) );
+
+    assertSameData( data, this.cache.get( key ) );
+  }
+
+  /**
+   * Tests that state views survive being spilled, including the clock edges of
+   * their states.
+   */
+  @Test
+  public void testSpillStateView() throws Exception
+  {
+    this.cache = new CaptureCache( 0L, this.spillDir );
+
+    final int size = 400;
+    final int[] values = new int[size];
+    final long[] timestamps = new long[size];
+    for ( int i = 0; i < size; i++ )
+    {
+      // Channel 0 is the clock, channel 1 the data...
+      values[i] = ( i & 1 ) | ( ( ( i / 4 ) & 1 ) << 1 );
+      timestamps[i] = 5L * i;
+    }
+
+    final StateView view = StateView.create( new CapturedData( values, timestamps, 100L, 1000000, 8, 0xFF,
+        5L * size ), 0, ClockEdge.RISING, 0, 0 );
+    final long key = this.cache.add( view );
+    this.cache.add( createData( 10, 1 ) );
+    assertFalse( this.cache.isResident( key ) );
+
+    final AcquisitionResult result = this.cache.get( key );
+    assertTrue( result instanceof StateView );
+
+    final StateView restored = ( StateView )result;
+    assertEquals( view.getStateCount(), restored.getStateCount() );
+    for ( int i = 0; i < view.getStateCount(); i++ )
+    {
+      assertEquals( view.getSourceTimestamp( i ), restored.getSourceTimestamp( i ) );
+    }
+    assertSameData( view, restored );
+  }
+
+  /**
+   * Tests that captures with more than 32 channels survive being spilled.
+   */
+  @Test
+  public void testSpillWideCapture() throws Exception
+  {
+    this.cache = new CaptureCache( 0L, this.spillDir );
+
+    final int size = 500;
+    final int[][] columns = new int[3][size];
+    final long[] timestamps = new long[size];
+    for ( int i = 0; i < size; i++ )
+    {
+      columns[0][i] = i;
+      columns[1][i] = ~i;
+      columns[2][i] = i * 31;
+      timestamps[i] = 3L * i;
+    }
+
+    final CapturedData data = WideCapturedData.create( columns, timestamps, 30L, 1000000, 96, new int[] { -1, -1,
+        0xffff }, 3L * size );
+    final long key = this.cache.add( data );
+    this.cache.add( createData( 10, 1 ) );
+    assertFalse( this.cache.isResident( key ) );
+
+    final AcquisitionResult result = this.cache.get( key );
+    assertTrue( result instanceof WideAcquisitionResult );
+
+    final WideAcquisitionResult wide = ( WideAcquisitionResult )result;
+    assertEquals( 3, wide.getWordCount() );
+    assertEquals( 96, wide.getTotalChannels() );
+    assertEquals( 0xffff, wide.getEnabledChannels( 2 ) );
+    for ( int w = 0; w < 3; w++ )
+    {
+      assertArrayEquals( columns[w], wide.getValues( w ) );
+    }
+    assertArrayEquals( timestamps, result.getTimestamps() );
+    assertEquals( 30L, result.getTriggerPosition() );
+    assertEquals( 3L * size, result.getAbsoluteLength() );
+  }
+
+  /**
+   * Creates a new captured data instance with a predictable content.
+   */
+  private static CapturedData createData( final int aSize, final int aSeed )
+  {
+    final int[] values = new int[aSize];
+    final long[] timestamps = new long[aSize];
+    long time = 0L;
+    for ( int i = 0; i < aSize; i++ )
+    {
+      values[i] = i * aSeed;
+      timestamps[i] = time;
+      time += 1 + ( i % 5 );
+    }
+    return new CapturedData( values, timestamps, aSize / 2, 100000000 + aSeed, 16, 0xffff, time );
+  }
+
+  /**
+   * Asserts that the given captured data are equal.
+   */
+  private static void assertSameData( final AcquisitionResult aExpected, final AcquisitionResult aActual )
+  {
+    assertNotNull( aActual );
+    assertArrayEquals( aExpected.getValues(), aActual.getValues() );
+    assertArrayEquals( aExpected.getTimestamps(), aActual.getTimestamps() );
+    assertEquals( aExpected.getTriggerPosition(), aActual.getTriggerPosition() );
+    assertEquals( aExpected.getSampleRate(), aActual.getSampleRate() );
+    assertEquals( aExpected.getChannels(), aActual.getChannels() );
+    assertEquals( aExpected.getEnabledChannels(), aActual.getEnabledChannels() );
+    assertEquals( aExpected.getAbsoluteLength(), aActual.getAbsoluteLength() );
+  }
+}
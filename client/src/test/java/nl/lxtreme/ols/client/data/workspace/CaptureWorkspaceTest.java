@@ -0,0 +1,143 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.data.workspace;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CaptureWorkspace}.
+ */
+public class CaptureWorkspaceTest
+{
+  // VARIABLES
+
+  private CaptureWorkspace workspace;
+
+  // METHODS
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    this.workspace = new CaptureWorkspace( new CaptureCache( 0L, null ), 3 );
+  }
+
+  /**
+   * Cleans up after the test cases.
+   */
+  @After
+  public void tearDown()
+  {
+    this.workspace.close();
+  }
+
+  /**
+   * Tests that adding a capture selects it.
+   */
+  @Test
+  public void testAddSelectsCapture() throws Exception
+  {
+    assertNull( this.workspace.getSelectedCapture() );
+    assertEquals( -1, this.workspace.getSelectedIndex() );
+
+    final CapturedData data = createData( 1 );
+    this.workspace.add( "first", data );
+    final CaptureWorkspace.Capture second = this.workspace.add( "second", createData( 2 ) );
+
+    assertEquals( 2, this.workspace.getCaptureCount() );
+    assertEquals( 1, this.workspace.getSelectedIndex() );
+    assertSame( second, this.workspace.getSelectedCapture() );
+
+    final AcquisitionResult result = this.workspace.getData( this.workspace.select( 0 ) );
+    assertArrayEquals( data.getValues(), result.getValues() );
+  }
+
+  /**
+   * Tests that each capture retains its own cursors and annotations.
+   */
+  @Test
+  public void testCaptureRetainsState() throws Exception
+  {
+    final CaptureWorkspace.Capture first = this.workspace.add( "first", createData( 1 ) );
+    final CaptureWorkspace.Capture second = this.workspace.add( "second", createData( 2 ) );
+
+    final ChannelAnnotations annotations = new ChannelAnnotations( 3 );
+    first.setCursors( new Long[] { Long.valueOf( 10L ), null, Long.valueOf( 20L ) }, true );
+    first.setChannelAnnotations( Collections.singletonMap( Integer.valueOf( 3 ), annotations ) );
+
+    assertTrue( first.isCursorsEnabled() );
+    assertEquals( Long.valueOf( 10L ), first.getCursorPositions()[0] );
+    assertNull( first.getCursorPositions()[1] );
+    assertEquals( Long.valueOf( 20L ), first.getCursorPositions()[2] );
+    assertSame( annotations, first.getChannelAnnotations().get( Integer.valueOf( 3 ) ) );
+
+    assertFalse( second.isCursorsEnabled() );
+    assertNull( second.getCursorPositions()[0] );
+    assertTrue( second.getChannelAnnotations().isEmpty() );
+  }
+
+  /**
+   * Tests that the oldest captures are removed when the maximum number of
+   * captures is exceeded.
+   */
+  @Test
+  public void testOldestCapturesAreRemoved() throws Exception
+  {
+    final CaptureWorkspace.Capture first = this.workspace.add( "1", createData( 1 ) );
+    for ( int i = 2; i <= 5; i++ )
+    {
+      this.workspace.add( String.valueOf( i ), createData( i ) );
+    }
+
+    assertEquals( 3, this.workspace.getCaptureCount() );
+    assertEquals( "3", this.workspace.getCapture( 0 ).getName() );
+    assertEquals( 2, this.workspace.getSelectedIndex() );
+    assertNull( this.workspace.getData( first ) );
+
+    this.workspace.clear();
+    assertEquals( 0, this.workspace.getCaptureCount() );
+    assertNull( this.workspace.getSelectedCapture() );
+  }
+
+  /**
+   * Creates a new captured data instance with a predictable content.
+   */
+  private static CapturedData createData( final int aSeed )
+  {
+    final int[] values = new int[100];
+    for ( int i = 0; i < values.length; i++ )
+    {
+      values[i] = i * aSeed;
+    }
+    return new CapturedData( values, 0L, 1000000, 8, 0xff );
+  }
+}
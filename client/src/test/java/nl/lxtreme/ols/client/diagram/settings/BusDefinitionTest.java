@@ -0,0 +1,121 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.diagram.settings;
+
+
+import static org.junit.Assert.*;
+
+import nl.lxtreme.ols.client.diagram.settings.BusDefinition.Display;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link BusDefinition}.
+ */
+public class BusDefinitionTest
+{
+  // METHODS
+
+  /**
+   * Test method for {@link BusDefinition#extractValue(int)}.
+   */
+  @Test
+  public void testExtractValueAcrossBlocks()
+  {
+    // 12-bit bus spanning channels 6..17, so it crosses two block boundaries...
+    final BusDefinition bus = BusDefinition.parse( "ADC: 6-17" );
+    assertEquals( 12, bus.getWidth() );
+    assertEquals( 3, bus.getHexDigits() );
+    assertEquals( 0xFFFL, bus.getMaxValue() );
+
+    assertEquals( 0xABCL, bus.extractValue( 0xABC << 6 ) );
+    assertEquals( 0x000L, bus.extractValue( ~( 0xFFF << 6 ) ) );
+    assertEquals( 0xFFFL, bus.extractValue( -1 ) );
+  }
+
+  /**
+   * Test method for {@link BusDefinition#extractValue(int)}.
+   */
+  @Test
+  public void testExtractValueReversedBitOrder()
+  {
+    final BusDefinition bus = BusDefinition.parse( "Nibble: 3-0 dec" );
+    assertEquals( Display.DECIMAL, bus.getDisplay() );
+
+    // channel 3 is the least significant bit...
+    assertEquals( 1L, bus.extractValue( 0x08 ) );
+    assertEquals( 8L, bus.extractValue( 0x01 ) );
+    assertEquals( 6L, bus.extractValue( 0x06 ) );
+  }
+
+  /**
+   * Test method for {@link BusDefinition#extractValue(int)}.
+   */
+  @Test
+  public void testExtractValueOfFullWidthBus()
+  {
+    final BusDefinition bus = BusDefinition.parse( "All: 0-31 analog" );
+    assertEquals( 0xFFFFFFFFL, bus.extractValue( -1 ) );
+    assertEquals( 0x80000001L, bus.extractValue( 0x80000001 ) );
+  }
+
+  /**
+   * Test method for {@link BusDefinition#parse(String)}.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testParseDuplicateChannelFail()
+  {
+    BusDefinition.parse( "Bus: 0-3,2" );
+  }
+
+  /**
+   * Test method for {@link BusDefinition#parse(String)}.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testParseInvalidChannelFail()
+  {
+    BusDefinition.parse( "Bus: 30-32" );
+  }
+
+  /**
+   * Test method for {@link BusDefinition#parse(String)}.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testParseUnknownDisplayFail()
+  {
+    BusDefinition.parse( "Bus: 0-3 octal" );
+  }
+
+  /**
+   * Test method for {@link BusDefinition#toString()}.
+   */
+  @Test
+  public void testToStringCanBeParsed()
+  {
+    final BusDefinition bus = BusDefinition.parse( " Data bus : 7-4,12 analog" );
+    assertEquals( "Data bus", bus.getName() );
+
+    final BusDefinition parsed = BusDefinition.parse( bus.toString() );
+    assertEquals( bus, parsed );
+    assertArrayEquals( new int[] { 7, 6, 5, 4, 12 }, parsed.getChannels() );
+  }
+}
@@ -24,6 +24,7 @@ package nl.lxtreme.ols.client.diagram.settings;
 import static org.junit.Assert.*;
 
 import java.awt.*;
+import java.util.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.client.data.settings.*;
@@ -77,6 +78,32 @@ public class MutableDiagramSettingsTest
     assertEquals( Color.BLACK, settings.getBackgroundColor() );
   }
 
+  /**
+   * Test method for {@link MutableDiagramSettings#getBusDefinitions()} .
+   */
+  @Test
+  public void testGetBusDefinitions()
+  {
+    final MutableDiagramSettings settings = new MutableDiagramSettings();
+    assertTrue( settings.getBusDefinitions().isEmpty() );
+
+    final BusDefinition adc = BusDefinition.parse( "ADC: 0-11 analog" );
+    final BusDefinition nibble = BusDefinition.parse( "Nibble: 15,14,13,12" );
+    settings.setBusDefinitions( Arrays.asList( adc, nibble ) );
+
+    // Bus definitions should survive both the copy constructor and the
+    // persisted user settings...
+    final MutableDiagramSettings copy = new MutableDiagramSettings( settings );
+    assertEquals( Arrays.asList( adc, nibble ), copy.getBusDefinitions() );
+
+    final MutableDiagramSettings restored = new MutableDiagramSettings( new UserSettingsImpl(
+        MutableDiagramSettings.NAME, settings.getProperties() ) );
+    assertEquals( Arrays.asList( adc, nibble ), restored.getBusDefinitions() );
+
+    settings.setBusDefinitions( Arrays.asList( nibble ) );
+    assertEquals( Arrays.asList( nibble ), settings.getBusDefinitions() );
+  }
+
   /**
    * Test method for {@link MutableDiagramSettings#getChannelColor(int)} .
    */
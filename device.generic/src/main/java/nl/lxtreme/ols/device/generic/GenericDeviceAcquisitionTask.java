@@ -22,6 +22,8 @@ package nl.lxtreme.ols.device.generic;
 
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.*;
@@ -33,6 +35,12 @@ import nl.lxtreme.ols.util.*;
 
 /**
  * Provides a generic acquisition task that can read from any file-based source.
+ * <p>
+ * In bulk read mode, regular files are memory-mapped and other sources, like
+ * FIFOs, are read in large blocks. In both cases, the samples are unpacked in
+ * place directly into a {@link TransitionBuffer}, so only the transitions are
+ * retained.
+ * </p>
  */
 public final class GenericDeviceAcquisitionTask implements AcquisitionTask
 {
@@ -40,12 +48,17 @@ public final class GenericDeviceAcquisitionTask implements AcquisitionTask
 
   private static final Logger LOG = Logger.getLogger( GenericDeviceAcquisitionTask.class.getName() );
 
+  /** The number of bytes mapped at once for regular files. */
+  private static final int MAP_REGION_SIZE = 64 * 1024 * 1024;
+  /** The number of bytes read at once for other sources. */
+  private static final int BLOCK_SIZE = 1024 * 1024;
+
   // VARIABLES
 
   private final AcquisitionProgressListener progressListener;
   private final GenericDeviceConfigDialog deviceConfig;
 
-  private InputStream inputStream;
+  private FileInputStream inputStream;
 
   // CONSTRUCTORS
 
@@ -78,7 +91,14 @@ public final class GenericDeviceAcquisitionTask implements AcquisitionTask
     final int rate = this.deviceConfig.getSampleRate();
     final int channels = this.deviceConfig.getChannelCount();
 
-    final int count = depth * width;
+    if ( this.deviceConfig.isBulkReadMode() )
+    {
+      return bulkRead( width, depth, rate, channels );
+    }
+
+    // The sample depth is a number of samples, each of which is read as
+    // 'width' bytes, just like in bulk read mode...
+    final int count = depth;
 
     final int[] values = new int[count];
     final long[] timestamps = new long[count];
@@ -129,6 +149,103 @@ public final class GenericDeviceAcquisitionTask implements AcquisitionTask
     this.inputStream = new FileInputStream( this.deviceConfig.getDevicePath() );
   }
 
+  /**
+   * Reads all samples in bulk, compressing them directly into transitions.
+   */
+  private AcquisitionResult bulkRead( final int aWidth, final int aDepth, final int aRate, final int aChannels )
+      throws IOException
+  {
+    final int mask = ( aChannels >= Ols.MAX_CHANNELS ) ? 0xFFFFFFFF : ( int )( ( 1L << aChannels ) - 1L );
+    // A depth of zero denotes all available samples...
+    final long maxSamples = ( aDepth > 0 ) ? aDepth : Long.MAX_VALUE;
+
+    final FileChannel channel = this.inputStream.getChannel();
+    final TransitionBuffer buffer = new TransitionBuffer();
+
+    final long sampleCount;
+    if ( new File( this.deviceConfig.getDevicePath() ).isFile() )
+    {
+      sampleCount = readMapped( channel, buffer, aWidth, mask, maxSamples );
+    }
+    else
+    {
+      sampleCount = readBlocks( channel, buffer, aWidth, mask, maxSamples );
+    }
+
+    if ( sampleCount == 0L )
+    {
+      throw new EOFException( "Data readout interrupted: EOF." );
+    }
+
+    LOG.log( Level.FINE, "Read {0} samples, resulting in {1} transitions.", new Object[] { Long.valueOf( sampleCount ),
+        Integer.valueOf( buffer.size() ) } );
+
+    return buffer.toCapturedData( Ols.NOT_AVAILABLE, aRate, aChannels, mask, sampleCount );
+  }
+
+  /**
+   * Reads the samples from a non-seekable source, like a FIFO, in blocks.
+   */
+  private long readBlocks( final FileChannel aChannel, final TransitionBuffer aBuffer, final int aWidth,
+      final int aMask, final long aMaxSamples ) throws IOException
+  {
+    final boolean bounded = ( aMaxSamples < Long.MAX_VALUE );
+    final ByteBuffer block = ByteBuffer.allocateDirect( BLOCK_SIZE );
+
+    long sample = 0L;
+    while ( !Thread.currentThread().isInterrupted() && ( sample < aMaxSamples ) )
+    {
+      if ( bounded )
+      {
+        // Do not read beyond the last requested sample...
+        final long wanted = ( ( aMaxSamples - sample ) * aWidth ) - block.position();
+        block.limit( ( int )Math.min( block.capacity(), block.position() + wanted ) );
+      }
+
+      if ( aChannel.read( block ) < 0 )
+      {
+        break;
+      }
+
+      block.flip();
+      sample += aBuffer.addSamples( sample, block, aWidth, aMask );
+      // Retain any incomplete sample for the next read...
+      block.compact();
+
+      if ( bounded )
+      {
+        this.progressListener.acquisitionInProgress( ( int )( ( sample * 100L ) / aMaxSamples ) );
+      }
+    }
+
+    return sample;
+  }
+
+  /**
+   * Reads the samples from a regular file by mapping it into memory, region
+   * by region.
+   */
+  private long readMapped( final FileChannel aChannel, final TransitionBuffer aBuffer, final int aWidth,
+      final int aMask, final long aMaxSamples ) throws IOException
+  {
+    final long total = Math.min( aChannel.size() / aWidth, aMaxSamples );
+    final long regionSamples = MAP_REGION_SIZE / aWidth;
+
+    long sample = 0L;
+    while ( !Thread.currentThread().isInterrupted() && ( sample < total ) )
+    {
+      final long count = Math.min( regionSamples, total - sample );
+      final MappedByteBuffer region = aChannel.map( FileChannel.MapMode.READ_ONLY, sample * aWidth, count * aWidth );
+
+      aBuffer.addSamples( sample, region, aWidth, aMask );
+      sample += count;
+
+      this.progressListener.acquisitionInProgress( ( int )( ( sample * 100L ) / total ) );
+    }
+
+    return sample;
+  }
+
   /**
    * Reads <code>channels</code> / 8 bytes from stream and compiles them into a
    * single integer.
@@ -54,6 +54,7 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
   private JTextField sampleDepth;
   private JTextField sampleWidth;
   private JTextField channelCount;
+  private JCheckBox bulkRead;
 
   private boolean setupConfirmed;
 
@@ -117,6 +118,10 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
 
   /**
    * Returns the number of samples to take.
+   * <p>
+   * In bulk read mode, a sample depth of zero denotes that all samples up to
+   * the end of the input are to be taken.
+   * </p>
    *
    * @return the sample depth, >= 0.
    */
@@ -148,6 +153,18 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
     return result;
   }
 
+  /**
+   * Returns whether the device should be read in bulk, which is considerably
+   * faster for file- and FIFO-based sources.
+   *
+   * @return <code>true</code> if the device is to be read in bulk,
+   *         <code>false</code> if it is to be read sample by sample.
+   */
+  public boolean isBulkReadMode()
+  {
+    return this.bulkRead.isSelected();
+  }
+
   /**
    * @see nl.lxtreme.ols.api.Configurable#readPreferences(nl.lxtreme.ols.api.UserSettings)
    */
@@ -159,6 +176,7 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
     this.sampleDepth.setText( aSettings.get( "sampleDepth", this.sampleDepth.getText() ) );
     this.sampleRate.setText( aSettings.get( "sampleRate", this.sampleRate.getText() ) );
     this.sampleWidth.setText( aSettings.get( "sampleWidth", this.sampleWidth.getText() ) );
+    this.bulkRead.setSelected( aSettings.getBoolean( "bulkRead", this.bulkRead.isSelected() ) );
   }
 
   /**
@@ -187,6 +205,7 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
     aSettings.put( "sampleDepth", this.sampleDepth.getText() );
     aSettings.put( "sampleRate", this.sampleRate.getText() );
     aSettings.put( "sampleWidth", this.sampleWidth.getText() );
+    aSettings.putBoolean( "bulkRead", this.bulkRead.isSelected() );
   }
 
   /**
@@ -214,6 +233,9 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
     this.sampleWidth.setText( "1" );
     this.sampleWidth.setInputVerifier( JComponentInputVerifier.create( Integer.TYPE, "Invalid sample width!" ) );
 
+    this.bulkRead = new JCheckBox();
+    this.bulkRead.setToolTipText( "Reads files and FIFOs in bulk; a sample depth of 0 reads the entire input." );
+
     final JPanel result = new JPanel( new SpringLayout() );
 
     SpringLayoutUtils.addSeparator( result, "Acquisition settings" );
@@ -233,6 +255,9 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
     result.add( createRightAlignedLabel( "Sample width" ) );
     result.add( this.sampleWidth );
 
+    result.add( createRightAlignedLabel( "Bulk read" ) );
+    result.add( this.bulkRead );
+
     SpringLayoutUtils.makeEditorGrid( result, 6, 6 );
 
     return result;
@@ -53,16 +53,20 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
   private final DeviceProfileManager deviceProfileManager;
   private final AcquisitionProgressListener acquisitionProgressListener;
   private final LogicSnifferConfig config;
+  private final StreamConnection connection;
+  private final LogicSnifferSession session;
+  private final boolean persistentSession;
 
-  private StreamConnection connection;
   private SumpResultReader inputStream;
   private SumpCommandWriter outputStream;
   private int trigcount;
+  private boolean completed;
 
   // CONSTRUCTORS
 
   /**
-   * Creates a new LogicSnifferDevice instance.
+   * Creates a new LogicSnifferDevice instance, which uses the given connection
+   * for a single capture only.
    */
   public LogicSnifferAcquisitionTask( final LogicSnifferConfig aConfig, final StreamConnection aConnection,
       final DeviceProfileManager aDeviceProfileManager, final AcquisitionProgressListener aProgressListener )
@@ -71,6 +75,32 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
     this.connection = aConnection;
     this.deviceProfileManager = aDeviceProfileManager;
     this.acquisitionProgressListener = aProgressListener;
+
+    this.session = new LogicSnifferSession( aConfig )
+    {
+      @Override
+      protected StreamConnection openConnection() throws IOException
+      {
+        return getStreamConnection();
+      }
+    };
+    this.persistentSession = false;
+  }
+
+  /**
+   * Creates a new LogicSnifferDevice instance, which uses the given session,
+   * and keeps it open after a successful capture.
+   */
+  public LogicSnifferAcquisitionTask( final LogicSnifferConfig aConfig, final LogicSnifferSession aSession,
+      final DeviceProfileManager aDeviceProfileManager, final AcquisitionProgressListener aProgressListener )
+  {
+    this.config = aConfig;
+    this.connection = null;
+    this.deviceProfileManager = aDeviceProfileManager;
+    this.acquisitionProgressListener = aProgressListener;
+
+    this.session = aSession;
+    this.persistentSession = true;
   }
 
   // METHODS
@@ -92,8 +122,12 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
   {
     LOG.info( "Starting capture ..." );
 
-    // First try to find the logic sniffer itself...
-    detectDevice();
+    // First try to find the logic sniffer itself, unless it is already
+    // detected in a previous capture...
+    if ( !verifyDetectedDevice() )
+    {
+      detectDevice();
+    }
 
     // check if data needs to be multiplexed
     final int channelCount = this.config.getChannelCount();
@@ -154,6 +188,8 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
     // Process the actual samples...
     createSampleProcessor( sampleCount, buffer, callback ).process();
 
+    this.completed = true;
+
     return new CapturedData( values, timestamps, triggerPos[0], rate, channelCount,
         this.config.getEnabledChannelsMask(), absoluteLength[0] );
   }
@@ -179,51 +215,19 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
 
   /**
    * Detaches the currently attached port, if one exists. This will close the
-   * serial port.
+   * serial port, unless this task uses a persistent session and the capture
+   * was successful, in which case the port is kept open for the next capture.
    */
   @Override
   public void close()
   {
-    StreamConnection conn = getStreamConnection();
-    if ( conn != null )
+    if ( !this.persistentSession || !this.completed )
     {
-      try
-      {
-        // try to make sure device is reset...
-        if ( this.outputStream != null )
-        {
-          this.outputStream.writeCmdReset();
-        }
-      }
-      catch ( final IOException exception )
-      {
-        // Make sure to handle IO-interrupted exceptions properly!
-        if ( !HostUtils.handleInterruptedException( exception ) )
-        {
-          LOG.log( Level.WARNING, "Detaching failed!", exception );
-        }
-      }
-      finally
-      {
-        HostUtils.closeResource( this.outputStream );
-        HostUtils.closeResource( this.inputStream );
-
-        try
-        {
-          conn.close();
-        }
-        catch ( IOException exception )
-        {
-          LOG.log( Level.WARNING, "Closing connection failed!", exception );
-        }
-        finally
-        {
-          this.connection = null;
-          this.outputStream = null;
-          this.inputStream = null;
-        }
-      }
+      this.session.close();
     }
+
+    this.outputStream = null;
+    this.inputStream = null;
   }
 
   /**
@@ -241,36 +245,10 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
   @Override
   public void open() throws IOException
   {
-    final StreamConnection conn = getStreamConnection();
-
-    try
-    {
-      if ( conn == null )
-      {
-        throw new IOException( "Failed to open a valid connection!" );
-      }
-
-      this.outputStream = new SumpCommandWriter( this.config, conn.openDataOutputStream() );
-      this.inputStream = new SumpResultReader( this.config, conn.openDataInputStream() );
+    this.session.open();
 
-      // We don't expect any data, so flush all data pending in the given
-      // input stream. See issue #34.
-      this.inputStream.flush();
-    }
-    catch ( final Exception exception )
-    {
-      final String portName = this.config.getPortName();
-
-      LOG.log( Level.WARNING, "Failed to open/use {0}! Possible reason: {1}",
-          new Object[] { portName, exception.getMessage() } );
-      LOG.log( Level.FINE, "Detailed stack trace:", exception );
-
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        throw new IOException( "Failed to open/use " + portName + "! Possible reason: " + exception.getMessage() );
-      }
-    }
+    this.outputStream = this.session.getCommandWriter();
+    this.inputStream = this.session.getResultReader();
   }
 
   /**
@@ -465,6 +443,9 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
       final DeviceProfile profile = getDeviceProfile( metadata );
       this.config.setDeviceProfile( profile );
     }
+
+    // Keep the results for succeeding captures on the same session...
+    this.session.setDeviceDetected( id, metadata );
   }
 
   /**
@@ -603,4 +584,43 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
 
     return aSampleIdx;
   }
+
+  /**
+   * Verifies whether the device detected in a previous capture is still
+   * present, restoring its device profile if so. If the link with the device
+   * is failed, the session is reopened so the device can be detected again.
+   * 
+   * @return <code>true</code> if the previously detected device can be used
+   *         as-is, <code>false</code> if the device needs to be detected.
+   * @throws IOException
+   *           in case the session could not be reopened.
+   */
+  private boolean verifyDetectedDevice() throws IOException
+  {
+    if ( !this.session.isDeviceDetected() )
+    {
+      return false;
+    }
+
+    if ( this.session.verifyLink() )
+    {
+      LOG.fine( "Reusing previously detected device ..." );
+
+      // The configuration dialog may have changed the device profile since
+      // the device was detected, so restore it as the detection does...
+      final LogicSnifferMetadata metadata = this.session.getMetadata();
+      if ( metadata != null )
+      {
+        this.config.setDeviceProfile( getDeviceProfile( metadata ) );
+      }
+      return true;
+    }
+
+    LOG.info( "Link with device failed; reconnecting ..." );
+
+    this.session.close();
+    open();
+
+    return false;
+  }
 }
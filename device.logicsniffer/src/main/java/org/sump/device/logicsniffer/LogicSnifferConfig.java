@@ -36,13 +36,13 @@ public final class LogicSnifferConfig
   // CONSTANTS
 
   // mask for delay value
-  private final static int TRIGGER_DELAYMASK = 0x0000ffff;
+  final static int TRIGGER_DELAYMASK = 0x0000ffff;
   // mask for level value
-  private final static int TRIGGER_LEVELMASK = 0x00030000;
+  final static int TRIGGER_LEVELMASK = 0x00030000;
   // mask for channel value
-  private final static int TRIGGER_CHANNELMASK = 0x01f00000;
+  final static int TRIGGER_CHANNELMASK = 0x01f00000;
   // trigger operates in serial mode
-  private final static int TRIGGER_SERIAL = 0x04000000;
+  final static int TRIGGER_SERIAL = 0x04000000;
   /** The number of trigger stages. */
   public final static int TRIGGER_STAGES = 4;
   // trigger will start capture when fired
@@ -49,6 +49,7 @@ public class LogicSnifferDevice implements Device
   // VARIABLES
 
   private final LogicSnifferConfig deviceConfig;
+  private final LogicSnifferSession session;
 
   private DeviceProfileManagerTracker deviceProfileManagerTracker;
   private StreamConnectionFactory streamConnectionFactory;
@@ -65,6 +66,17 @@ public class LogicSnifferDevice implements Device
   {
     this.deviceConfig = new LogicSnifferConfig();
     this.setup = false;
+
+    // Keep the connection open across captures, allowing repeated captures to
+    // start without having to detect the device again...
+    this.session = new LogicSnifferSession( this.deviceConfig )
+    {
+      @Override
+      protected StreamConnection openConnection() throws IOException
+      {
+        return getStreamConnection();
+      }
+    };
   }
 
   // METHODS
@@ -76,7 +88,7 @@ public class LogicSnifferDevice implements Device
   public AcquisitionTask createAcquisitionTask( final AcquisitionProgressListener aProgressListener )
       throws IOException
   {
-    return new LogicSnifferAcquisitionTask( this.deviceConfig, getStreamConnection(), getDeviceProfileManager(),
+    return new LogicSnifferAcquisitionTask( this.deviceConfig, this.session, getDeviceProfileManager(),
         aProgressListener );
   }
 
@@ -106,6 +118,10 @@ public class LogicSnifferDevice implements Device
   @Override
   public boolean setupCapture( final Window aOwner )
   {
+    // Release the port, as the dialog might want to use it for detecting the
+    // device, or the port settings might change...
+    this.session.close();
+
     // check if dialog exists with different owner and dispose if so
     if ( ( this.configDialog != null ) && ( this.configDialog.getOwner() != aOwner ) )
     {
@@ -128,6 +144,7 @@ public class LogicSnifferDevice implements Device
    */
   protected void destroy()
   {
+    this.session.close();
     this.streamConnectionFactory.close();
     this.deviceProfileManagerTracker.close();
   }
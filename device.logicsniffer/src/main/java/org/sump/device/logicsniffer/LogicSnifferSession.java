@@ -0,0 +1,296 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import java.io.*;
+import java.util.logging.*;
+
+import javax.microedition.io.*;
+
+import nl.lxtreme.ols.util.*;
+
+import org.sump.device.logicsniffer.protocol.*;
+
+
+/**
+ * Provides a session with a LogicSniffer device, which keeps the connection
+ * with the device open across several captures.
+ * <p>
+ * Once the device is detected, its ID and metadata are cached, so that
+ * succeeding captures only need to verify that the device still responds,
+ * instead of having to reconnect and detect the device all over again. As the
+ * command writer is retained as well, only the configuration commands whose
+ * values are changed since the last capture are resent. In case the link with
+ * the device fails, the session is closed, causing the next capture to start
+ * with a fresh connection and a full detection of the device.
+ * </p>
+ */
+public abstract class LogicSnifferSession implements SumpProtocolConstants, Closeable
+{
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( LogicSnifferSession.class.getName() );
+
+  // VARIABLES
+
+  private final LogicSnifferConfig config;
+
+  private StreamConnection connection;
+  private SumpResultReader inputStream;
+  private SumpCommandWriter outputStream;
+
+  private int deviceId;
+  private LogicSnifferMetadata metadata;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new LogicSnifferSession instance.
+   * 
+   * @param aConfig
+   *          the device configuration to use, cannot be <code>null</code>.
+   */
+  protected LogicSnifferSession( final LogicSnifferConfig aConfig )
+  {
+    this.config = aConfig;
+    this.deviceId = -1;
+  }
+
+  // METHODS
+
+  /**
+   * Closes this session by resetting the device and closing the connection
+   * with it. The next call to {@link #open()} will open a new connection.
+   */
+  @Override
+  public synchronized void close()
+  {
+    final StreamConnection conn = this.connection;
+    if ( conn != null )
+    {
+      try
+      {
+        // try to make sure device is reset...
+        if ( this.outputStream != null )
+        {
+          this.outputStream.writeCmdReset();
+        }
+      }
+      catch ( final IOException exception )
+      {
+        // Make sure to handle IO-interrupted exceptions properly!
+        if ( !HostUtils.handleInterruptedException( exception ) )
+        {
+          LOG.log( Level.WARNING, "Detaching failed!", exception );
+        }
+      }
+      finally
+      {
+        HostUtils.closeResource( this.outputStream );
+        HostUtils.closeResource( this.inputStream );
+
+        try
+        {
+          conn.close();
+        }
+        catch ( IOException exception )
+        {
+          LOG.log( Level.WARNING, "Closing connection failed!", exception );
+        }
+        finally
+        {
+          this.connection = null;
+          this.outputStream = null;
+          this.inputStream = null;
+        }
+      }
+    }
+
+    // A new connection requires the device to be detected again...
+    this.deviceId = -1;
+    this.metadata = null;
+  }
+
+  /**
+   * Returns the writer for sending commands to the device.
+   * 
+   * @return the command writer, or <code>null</code> if this session is not
+   *         open.
+   */
+  public synchronized SumpCommandWriter getCommandWriter()
+  {
+    return this.outputStream;
+  }
+
+  /**
+   * Returns the cached metadata of the detected device.
+   * 
+   * @return the device metadata, or <code>null</code> if the device is not
+   *         detected (yet).
+   */
+  public synchronized LogicSnifferMetadata getMetadata()
+  {
+    return this.metadata;
+  }
+
+  /**
+   * Returns the reader for reading results from the device.
+   * 
+   * @return the result reader, or <code>null</code> if this session is not
+   *         open.
+   */
+  public synchronized SumpResultReader getResultReader()
+  {
+    return this.inputStream;
+  }
+
+  /**
+   * Returns whether the device is detected in this session.
+   * 
+   * @return <code>true</code> if the device is detected, <code>false</code>
+   *         otherwise.
+   */
+  public synchronized boolean isDeviceDetected()
+  {
+    return ( this.connection != null ) && ( this.deviceId == SLA_V1 );
+  }
+
+  /**
+   * Returns whether this session has an open connection with the device.
+   * 
+   * @return <code>true</code> if this session is open, <code>false</code>
+   *         otherwise.
+   */
+  public synchronized boolean isOpen()
+  {
+    return this.connection != null;
+  }
+
+  /**
+   * Opens the connection with the device, if not already open.
+   * <p>
+   * This method will directly flush all incoming data, and, if configured,
+   * delay a bit to ensure the device hardware is properly initialized.
+   * </p>
+   * 
+   * @throws IOException
+   *           in case of I/O problems during attaching to the device.
+   */
+  public synchronized void open() throws IOException
+  {
+    if ( this.connection != null )
+    {
+      return;
+    }
+
+    try
+    {
+      final StreamConnection conn = openConnection();
+      if ( conn == null )
+      {
+        throw new IOException( "Failed to open a valid connection!" );
+      }
+
+      this.connection = conn;
+      this.outputStream = new SumpCommandWriter( this.config, conn.openDataOutputStream() );
+      this.inputStream = new SumpResultReader( this.config, conn.openDataInputStream() );
+
+      // We don't expect any data, so flush all data pending in the given
+      // input stream. See issue #34.
+      this.inputStream.flush();
+    }
+    catch ( final Exception exception )
+    {
+      final String portName = this.config.getPortName();
+
+      LOG.log( Level.WARNING, "Failed to open/use {0}! Possible reason: {1}",
+          new Object[] { portName, exception.getMessage() } );
+      LOG.log( Level.FINE, "Detailed stack trace:", exception );
+
+      close();
+
+      // Make sure to handle IO-interrupted exceptions properly!
+      if ( !HostUtils.handleInterruptedException( exception ) )
+      {
+        throw new IOException( "Failed to open/use " + portName + "! Possible reason: " + exception.getMessage() );
+      }
+    }
+  }
+
+  /**
+   * Marks the device as detected, caching its ID and metadata.
+   * 
+   * @param aDeviceId
+   *          the detected device ID;
+   * @param aMetadata
+   *          the device metadata, can be <code>null</code>.
+   */
+  public synchronized void setDeviceDetected( final int aDeviceId, final LogicSnifferMetadata aMetadata )
+  {
+    this.deviceId = aDeviceId;
+    this.metadata = aMetadata;
+  }
+
+  /**
+   * Verifies that the detected device still responds, by requesting its ID
+   * once.
+   * 
+   * @return <code>true</code> if the device responded with the cached ID,
+   *         <code>false</code> if the link with the device failed.
+   */
+  public synchronized boolean verifyLink()
+  {
+    if ( !isDeviceDetected() )
+    {
+      return false;
+    }
+
+    try
+    {
+      // Make sure nothing is left in our input buffer...
+      this.inputStream.flush();
+
+      this.outputStream.writeCmdGetId();
+
+      return this.inputStream.readDeviceId() == this.deviceId;
+    }
+    catch ( IOException exception )
+    {
+      // Make sure to handle IO-interrupted exceptions properly!
+      if ( !HostUtils.handleInterruptedException( exception ) )
+      {
+        LOG.log( Level.INFO, "Link with device failed!", exception );
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Opens a new connection with the device.
+   * 
+   * @return a new stream connection, can be <code>null</code> in case no
+   *         connection could be made.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  protected abstract StreamConnection openConnection() throws IOException;
+}
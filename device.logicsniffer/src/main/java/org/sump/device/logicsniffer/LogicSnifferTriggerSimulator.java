@@ -0,0 +1,318 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a software implementation of the (multi-stage) trigger of the
+ * LogicSniffer, allowing a trigger configuration to be evaluated against
+ * previously captured data instead of against the actual device.
+ * <p>
+ * The trigger stages are evaluated exactly as they are sent to the device by
+ * the {@link org.sump.device.logicsniffer.protocol.SumpCommandWriter}: each
+ * stage is armed once the trigger level reaches its configured level, matches
+ * its mask and value either against the parallel input word or against the
+ * shift register of a single (serial) channel, and after its delay either
+ * starts the capture or raises the trigger level by one. Where the device
+ * stops after the first capture trigger, this simulator resets all stages and
+ * continues at the next transition of the input, in order to find <em>all</em>
+ * positions at which the trigger would fire.
+ * </p>
+ * <p>
+ * The evaluation is done on the compressed (transition) data directly: as the
+ * input does not change in between two transitions, only the samples at which
+ * a transition, a delayed trigger or a change in the trigger level occurs
+ * need to be evaluated. The shift registers of serial stages are fast
+ * forwarded over constant input.
+ * </p>
+ */
+public final class LogicSnifferTriggerSimulator
+{
+  // CONSTANTS
+
+  private static final int MAX_LEVEL = ( LogicSnifferConfig.TRIGGER_LEVELMASK >>> 16 );
+
+  // VARIABLES
+
+  private final boolean triggerEnabled;
+  private final int stageCount;
+  private final int[] masks;
+  private final int[] values;
+  private final int[] levels;
+  private final int[] delays;
+  private final int[] channels;
+  private final boolean[] serial;
+  private final boolean[] capture;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new LogicSnifferTriggerSimulator instance.
+   * 
+   * @param aConfig
+   *          the configuration holding the trigger stages to simulate, cannot
+   *          be <code>null</code>. The trigger settings are copied, so later
+   *          changes to the configuration are not reflected.
+   */
+  public LogicSnifferTriggerSimulator( final LogicSnifferConfig aConfig )
+  {
+    this.triggerEnabled = aConfig.isTriggerEnabled();
+    this.stageCount = aConfig.getMaxTriggerStages();
+
+    this.masks = new int[this.stageCount];
+    this.values = new int[this.stageCount];
+    this.levels = new int[this.stageCount];
+    this.delays = new int[this.stageCount];
+    this.channels = new int[this.stageCount];
+    this.serial = new boolean[this.stageCount];
+    this.capture = new boolean[this.stageCount];
+
+    for ( int i = 0; i < this.stageCount; i++ )
+    {
+      final int config = aConfig.getTriggerConfig( i );
+
+      this.masks[i] = aConfig.getTriggerMask( i );
+      this.values[i] = aConfig.getTriggerValue( i );
+      this.delays[i] = config & LogicSnifferConfig.TRIGGER_DELAYMASK;
+      this.levels[i] = ( config & LogicSnifferConfig.TRIGGER_LEVELMASK ) >>> 16;
+      this.channels[i] = ( config & LogicSnifferConfig.TRIGGER_CHANNELMASK ) >>> 20;
+      this.serial[i] = ( config & LogicSnifferConfig.TRIGGER_SERIAL ) != 0;
+      this.capture[i] = ( config & LogicSnifferConfig.TRIGGER_CAPTURE ) != 0;
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Shifts the given (serial) input bit the given number of times into the
+   * given shift register. The most recent sample ends up in the MSB.
+   */
+  static int shift( final int aRegister, final boolean aBit, final long aCount )
+  {
+    if ( aCount <= 0 )
+    {
+      return aRegister;
+    }
+    if ( aCount >= 32 )
+    {
+      return aBit ? -1 : 0;
+    }
+    final int n = ( int )aCount;
+    final int shifted = aRegister >>> n;
+    return aBit ? ( shifted | ( -1 << ( 32 - n ) ) ) : shifted;
+  }
+
+  /**
+   * Returns the first position at which the trigger would fire for the given
+   * data.
+   * 
+   * @param aData
+   *          the captured data to evaluate the trigger against, cannot be
+   *          <code>null</code>.
+   * @return the timestamp at which the capture would be started, or -1 if the
+   *         trigger does not fire at all.
+   */
+  public long findFirstTriggerPosition( final AcquisitionResult aData )
+  {
+    final long[] result = simulate( aData, true );
+    return ( result.length > 0 ) ? result[0] : -1L;
+  }
+
+  /**
+   * Returns all positions at which the trigger would fire for the given data.
+   * 
+   * @param aData
+   *          the captured data to evaluate the trigger against, cannot be
+   *          <code>null</code>.
+   * @return the (ascending) timestamps at which the capture would be started,
+   *         never <code>null</code>.
+   */
+  public long[] findTriggerPositions( final AcquisitionResult aData )
+  {
+    return simulate( aData, false );
+  }
+
+  /**
+   * Returns whether the given stage matches the given input.
+   */
+  private boolean matches( final int aStage, final int aValue, final int aShiftRegister )
+  {
+    final int input = this.serial[aStage] ? aShiftRegister : aValue;
+    return ( ( input ^ this.values[aStage] ) & this.masks[aStage] ) == 0;
+  }
+
+  /**
+   * Runs the actual simulation.
+   * 
+   * @param aData
+   *          the data to simulate the trigger for;
+   * @param aFirstOnly
+   *          <code>true</code> to stop after the first trigger position,
+   *          <code>false</code> to find all trigger positions.
+   * @return the trigger positions, never <code>null</code>.
+   */
+  private long[] simulate( final AcquisitionResult aData, final boolean aFirstOnly )
+  {
+    final int[] data = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+    if ( timestamps.length == 0 )
+    {
+      return new long[0];
+    }
+
+    final long end = Math.max( aData.getAbsoluteLength(), timestamps[timestamps.length - 1] + 1L );
+
+    if ( !this.triggerEnabled )
+    {
+      // Without triggers, the capture starts right away...
+      return new long[] { timestamps[0] };
+    }
+
+    final List<Long> result = new ArrayList<Long>();
+
+    final int[] shiftRegisters = new int[this.stageCount];
+    final boolean[] matched = new boolean[this.stageCount];
+    final long[] fireAt = new long[this.stageCount];
+    Arrays.fill( fireAt, -1L );
+
+    int level = 0;
+    int idx = 0;
+    long time = timestamps[0];
+
+    while ( time < end )
+    {
+      // Determine the input at the current time...
+      while ( ( ( idx + 1 ) < timestamps.length ) && ( timestamps[idx + 1] <= time ) )
+      {
+        idx++;
+      }
+      final int value = data[idx];
+      final long nextTransition = ( ( idx + 1 ) < timestamps.length ) ? timestamps[idx + 1] : end;
+
+      // Shift the current sample into the serial stages...
+      for ( int i = 0; i < this.stageCount; i++ )
+      {
+        if ( this.serial[i] )
+        {
+          shiftRegisters[i] = shift( shiftRegisters[i], ( value & ( 1 << this.channels[i] ) ) != 0, 1 );
+        }
+      }
+
+      // Let all armed stages look for a match...
+      for ( int i = 0; i < this.stageCount; i++ )
+      {
+        if ( !matched[i] && ( level >= this.levels[i] ) && matches( i, value, shiftRegisters[i] ) )
+        {
+          matched[i] = true;
+          fireAt[i] = time + this.delays[i];
+        }
+      }
+
+      // Fire all stages whose delay has expired...
+      boolean levelChanged = false;
+      boolean captured = false;
+      for ( int i = 0; i < this.stageCount; i++ )
+      {
+        if ( fireAt[i] != time )
+        {
+          continue;
+        }
+        fireAt[i] = -1L;
+        if ( this.capture[i] )
+        {
+          captured = true;
+        }
+        else if ( level < MAX_LEVEL )
+        {
+          levelChanged = true;
+        }
+      }
+
+      if ( captured )
+      {
+        result.add( Long.valueOf( time ) );
+        if ( aFirstOnly )
+        {
+          break;
+        }
+
+        // Re-arm all stages to look for the next trigger position...
+        level = 0;
+        Arrays.fill( matched, false );
+        Arrays.fill( fireAt, -1L );
+      }
+      else if ( levelChanged )
+      {
+        level++;
+      }
+
+      // Determine the next sample at which anything can change. After a
+      // capture, the re-armed stages only look at the next transition, so the
+      // same input does not trigger over and over again...
+      long next = nextTransition;
+      if ( !captured && levelChanged )
+      {
+        // Other stages might become armed at the next sample...
+        next = time + 1L;
+      }
+      for ( int i = 0; !captured && ( next > ( time + 1L ) ) && ( i < this.stageCount ); i++ )
+      {
+        if ( fireAt[i] >= 0L )
+        {
+          next = Math.min( next, fireAt[i] );
+        }
+        if ( this.serial[i] && !matched[i] && ( level >= this.levels[i] ) )
+        {
+          // Serial stages can still match as long as their shift register
+          // is not yet saturated with the current input...
+          final int saturated = shift( shiftRegisters[i], ( value & ( 1 << this.channels[i] ) ) != 0, 32 );
+          if ( shiftRegisters[i] != saturated )
+          {
+            next = time + 1L;
+          }
+        }
+      }
+
+      // Fast forward the serial stages over the samples we're skipping...
+      for ( int i = 0; i < this.stageCount; i++ )
+      {
+        if ( this.serial[i] )
+        {
+          shiftRegisters[i] = shift( shiftRegisters[i], ( value & ( 1 << this.channels[i] ) ) != 0, next - time - 1L );
+        }
+      }
+
+      time = next;
+    }
+
+    final long[] positions = new long[result.size()];
+    for ( int i = 0; i < positions.length; i++ )
+    {
+      positions[i] = result.get( i ).longValue();
+    }
+    return positions;
+  }
+}
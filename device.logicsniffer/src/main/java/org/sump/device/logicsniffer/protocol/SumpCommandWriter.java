@@ -22,6 +22,7 @@ package org.sump.device.logicsniffer.protocol;
 
 
 import java.io.*;
+import java.util.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.util.*;
@@ -85,6 +86,7 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
 
   protected final LogicSnifferConfig config;
   private final DataOutputStream outputStream;
+  private final Map<Integer, Integer> sentConfiguration;
 
   // CONSTRUCTORS
 
@@ -100,6 +102,7 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
   {
     this.config = aConfiguration;
     this.outputStream = aOutputStream;
+    this.sentConfiguration = new HashMap<Integer, Integer>();
   }
 
   // METHODS
@@ -172,6 +175,10 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
    */
   public void writeCmdReset() throws IOException
   {
+    // A reset might clear the device's registers, hence we need to send the
+    // entire configuration again...
+    this.sentConfiguration.clear();
+
     for ( int i = 0; i < 5; i++ )
     {
       sendCommand( CMD_RESET );
@@ -187,15 +194,20 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
   }
 
   /**
-   * @param aConfiguration
+   * Writes the device configuration. Configuration commands whose value is
+   * not changed since they were last sent (and the device is not reset in
+   * between) are not sent again.
+   * 
+   * @return the trigger count.
    * @throws IOException
+   *           in case of I/O problems.
    */
   public int writeDeviceConfiguration() throws IOException
   {
     int trigcount;
 
     // set the sampling frequency...
-    sendCommand( SETDIVIDER, this.config.getDivider() );
+    sendConfigurationCommand( SETDIVIDER, this.config.getDivider() );
 
     final int stopCounter = configureTriggers();
     final int readCounter = this.config.getReadCounter();
@@ -223,7 +235,7 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
     }
 
     // set the capture size...
-    sendCommand( SETSIZE, size );
+    sendConfigurationCommand( SETSIZE, size );
 
     int flags = 0;
     if ( this.config.isExternalClock() )
@@ -301,7 +313,7 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
     LOG.log( Level.FINE, "Flags: 0b{0}", Integer.toBinaryString( flags ) );
 
     // finally set the device flags...
-    sendCommand( SETFLAGS, flags );
+    sendConfigurationCommand( SETFLAGS, flags );
 
     return trigcount;
   }
@@ -329,6 +341,32 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
     this.outputStream.flush();
   }
 
+  /**
+   * Sends a long configuration command to the given stream, but only if its
+   * data differs from the data last sent for the same opcode.
+   * 
+   * @param aOpcode
+   *          one byte operation code
+   * @param aData
+   *          four byte data portion
+   * @throws IOException
+   *           if writing to stream fails
+   */
+  protected final void sendConfigurationCommand( final int aOpcode, final int aData ) throws IOException
+  {
+    final Integer opcode = Integer.valueOf( aOpcode & 0xFF );
+    final Integer data = Integer.valueOf( aData );
+    if ( data.equals( this.sentConfiguration.get( opcode ) ) )
+    {
+      LOG.log( Level.FINE, "Skipping unchanged command: {0}", Integer.toHexString( aOpcode & 0xFF ) );
+      return;
+    }
+
+    sendCommand( aOpcode, aData );
+    // Only remember the value once it is actually sent...
+    this.sentConfiguration.put( opcode, data );
+  }
+
   /**
    * Sends a long command to the given stream.
    * 
@@ -380,17 +418,17 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
       for ( int i = 0; i < this.config.getMaxTriggerStages(); i++ )
       {
         final int indexMask = 4 * i;
-        sendCommand( SETTRIGMASK | indexMask, this.config.getTriggerMask( i ) );
-        sendCommand( SETTRIGVAL | indexMask, this.config.getTriggerValue( i ) );
-        sendCommand( SETTRIGCFG | indexMask, this.config.getTriggerConfig( i ) );
+        sendConfigurationCommand( SETTRIGMASK | indexMask, this.config.getTriggerMask( i ) );
+        sendConfigurationCommand( SETTRIGVAL | indexMask, this.config.getTriggerValue( i ) );
+        sendConfigurationCommand( SETTRIGCFG | indexMask, this.config.getTriggerConfig( i ) );
       }
       effectiveStopCounter = this.config.getStopCounter();
     }
     else
     {
-      sendCommand( SETTRIGMASK, 0 );
-      sendCommand( SETTRIGVAL, 0 );
-      sendCommand( SETTRIGCFG, LogicSnifferConfig.TRIGGER_CAPTURE );
+      sendConfigurationCommand( SETTRIGMASK, 0 );
+      sendConfigurationCommand( SETTRIGVAL, 0 );
+      sendConfigurationCommand( SETTRIGCFG, LogicSnifferConfig.TRIGGER_CAPTURE );
       effectiveStopCounter = this.config.getReadCounter();
     }
 
@@ -0,0 +1,325 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.logging.*;
+
+import javax.microedition.io.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+import org.junit.*;
+import org.sump.device.logicsniffer.VirtualLogicSnifferDevice.NullAcquisitionProgressListener;
+import org.sump.device.logicsniffer.profile.*;
+import org.sump.device.logicsniffer.profile.DeviceProfile.CaptureClockSource;
+
+
+/**
+ * Test cases for {@link LogicSnifferSession}.
+ */
+public class LogicSnifferSessionTest
+{
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( LogicSnifferSessionTest.class.getName() );
+
+  private static final int CAPTURES = 25;
+
+  // VARIABLES
+
+  private LogicSnifferConfig config;
+  private VirtualLogicSnifferDevice device;
+  private LogicSnifferSession session;
+
+  private volatile boolean linkBroken;
+
+  // METHODS
+
+  /**
+   * Set up for each test case.
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    this.config = new LogicSnifferConfig();
+    this.device = new VirtualLogicSnifferDevice( this.config );
+
+    final DeviceProfile deviceProfile = this.device.addDeviceProfile( "VirtualLS", "\"Virtual LogicSniffer\"" );
+    this.config.setDeviceProfile( deviceProfile );
+
+    this.config.setBaudrate( 9600 ); // don't care
+    this.config.setPortName( "/dev/virtual" ); // don't care
+    this.config.setClockSource( CaptureClockSource.INTERNAL );
+    this.config.setEnabledChannels( 0x000000FF );
+    this.config.setRatio( 0.5 );
+    this.config.setRleEnabled( false );
+    this.config.setSampleCount( 1024 );
+    this.config.setSampleRate( 100000000 );
+    this.config.setTriggerEnabled( true );
+
+    this.session = new LogicSnifferSession( this.config )
+    {
+      @Override
+      protected StreamConnection openConnection() throws IOException
+      {
+        LogicSnifferSessionTest.this.linkBroken = false;
+        return createConnection( LogicSnifferSessionTest.this.device.getStreamConnection() );
+      }
+    };
+  }
+
+  /**
+   * Tear down for each test case.
+   */
+  @After
+  public void tearDown()
+  {
+    this.session.close();
+    this.device.close();
+  }
+
+  /**
+   * Tests that repeated captures on the same session only verify the link with
+   * the device and rearm it, and measures the capture-to-capture latency.
+   */
+  @Test( timeout = 10000 )
+  public void testRepeatedCapturesReuseDetectedDevice() throws Exception
+  {
+    final long firstLatency = capture();
+    final int firstCommands = this.device.getReceivedCommandCount();
+
+    assertTrue( this.session.isOpen() );
+    assertTrue( this.session.isDeviceDetected() );
+
+    long totalLatency = 0L;
+    for ( int i = 0; i < CAPTURES; i++ )
+    {
+      final int commands = this.device.getReceivedCommandCount();
+
+      totalLatency += capture();
+
+      // Only the ID-request and the run command should be sent...
+      assertEquals( 2, this.device.getReceivedCommandCount() - commands );
+    }
+    this.device.assertReadAndDelayCount( 1024, 512 );
+
+    final long repeatLatency = totalLatency / CAPTURES;
+
+    LOG.log( Level.INFO, "First capture took {0} us ({1} commands), repeated captures took {2} us on average",
+        new Object[] { Long.valueOf( firstLatency / 1000L ), Integer.valueOf( firstCommands ),
+            Long.valueOf( repeatLatency / 1000L ) } );
+  }
+
+  /**
+   * Tests that only the changed configuration is sent to the device.
+   */
+  @Test( timeout = 10000 )
+  public void testChangedConfigurationIsResent() throws Exception
+  {
+    capture();
+
+    this.config.setSampleRate( 50000000 );
+
+    final int commands = this.device.getReceivedCommandCount();
+    capture();
+
+    // ID-request, divider & run command...
+    assertEquals( 3, this.device.getReceivedCommandCount() - commands );
+    this.device.assertSampleRate( 50000000 );
+  }
+
+  /**
+   * Tests that a failing link causes the device to be detected again.
+   */
+  @Test( timeout = 10000 )
+  public void testFailingLinkCausesRedetect() throws Exception
+  {
+    capture();
+
+    this.linkBroken = true;
+
+    final int commands = this.device.getReceivedCommandCount();
+    capture();
+
+    // The entire configuration should be sent again...
+    assertTrue( ( this.device.getReceivedCommandCount() - commands ) > 3 );
+    assertTrue( this.session.isDeviceDetected() );
+    assertFalse( this.linkBroken );
+  }
+
+  /**
+   * Tests that a failing capture closes the session.
+   */
+  @Test( timeout = 10000 )
+  public void testFailingCaptureClosesSession() throws Exception
+  {
+    capture();
+
+    // Too few samples to capture...
+    this.config.setSampleCount( 2 );
+
+    final LogicSnifferAcquisitionTask task = createTask();
+    task.open();
+    try
+    {
+      task.call();
+      fail( "Expected capture to fail!" );
+    }
+    catch ( InternalError error )
+    {
+      // Ok; expected...
+    }
+    finally
+    {
+      task.close();
+    }
+
+    assertFalse( this.session.isOpen() );
+    assertFalse( this.session.isDeviceDetected() );
+  }
+
+  /**
+   * Performs a single capture on the session.
+   * 
+   * @return the time it took to complete the capture, in nanoseconds.
+   */
+  private long capture() throws IOException, InterruptedException
+  {
+    final long start = System.nanoTime();
+
+    final LogicSnifferAcquisitionTask task = createTask();
+    task.open();
+    try
+    {
+      final AcquisitionResult result = task.call();
+      assertNotNull( result );
+    }
+    finally
+    {
+      task.close();
+    }
+
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Creates a connection that uses the streams of the given connection, but
+   * whose input fails as long as the link is marked as broken. Closing it
+   * leaves the given connection as-is, allowing it to be reopened.
+   */
+  private StreamConnection createConnection( final StreamConnection aConnection ) throws IOException
+  {
+    final InputStream is = new FilterInputStream( aConnection.openInputStream() )
+    {
+      @Override
+      public int available() throws IOException
+      {
+        checkLink();
+        return super.available();
+      }
+
+      @Override
+      public int read() throws IOException
+      {
+        checkLink();
+        return super.read();
+      }
+
+      @Override
+      public int read( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+      {
+        checkLink();
+        return super.read( aBuffer, aOffset, aLength );
+      }
+
+      @Override
+      public void close()
+      {
+        // Keep the underlying stream open...
+      }
+    };
+    final OutputStream os = new FilterOutputStream( aConnection.openOutputStream() )
+    {
+      @Override
+      public void close()
+      {
+        // Keep the underlying stream open...
+      }
+    };
+
+    return new StreamConnection()
+    {
+      @Override
+      public void close()
+      {
+        // Nothing to do...
+      }
+
+      @Override
+      public DataInputStream openDataInputStream()
+      {
+        return new DataInputStream( is );
+      }
+
+      @Override
+      public DataOutputStream openDataOutputStream()
+      {
+        return new DataOutputStream( os );
+      }
+
+      @Override
+      public InputStream openInputStream()
+      {
+        return is;
+      }
+
+      @Override
+      public OutputStream openOutputStream()
+      {
+        return os;
+      }
+    };
+  }
+
+  /**
+   * Mimics a failing link with the device.
+   */
+  private void checkLink() throws IOException
+  {
+    if ( this.linkBroken )
+    {
+      throw new IOException( "Link broken!" );
+    }
+  }
+
+  /**
+   * Creates a new acquisition task for the session.
+   */
+  private LogicSnifferAcquisitionTask createTask()
+  {
+    return new LogicSnifferAcquisitionTask( this.config, this.session, this.device.getDeviceProfileManager(),
+        new NullAcquisitionProgressListener() );
+  }
+}
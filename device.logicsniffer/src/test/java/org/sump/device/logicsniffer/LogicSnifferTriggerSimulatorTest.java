@@ -0,0 +1,167 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import static org.junit.Assert.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link LogicSnifferTriggerSimulator}.
+ */
+public class LogicSnifferTriggerSimulatorTest
+{
+  // VARIABLES
+
+  private LogicSnifferConfig config;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.config = new LogicSnifferConfig();
+    this.config.setTriggerEnabled( true );
+
+    // Same as a "simple" trigger: make sure stages > 0 will not interfere...
+    for ( int stage = 1; stage < LogicSnifferConfig.TRIGGER_STAGES; stage++ )
+    {
+      this.config.setParallelTrigger( stage, 0, 0, 3, 0, false );
+    }
+  }
+
+  /**
+   * Tests that a disabled trigger fires at the very first sample.
+   */
+  @Test
+  public void testDisabledTriggerFiresImmediately()
+  {
+    this.config.setTriggerEnabled( false );
+
+    final LogicSnifferTriggerSimulator simulator = new LogicSnifferTriggerSimulator( this.config );
+    assertArrayEquals( new long[] { 0L }, simulator.findTriggerPositions( createData( 0, 0, 5, 10 ) ) );
+  }
+
+  /**
+   * Tests that the delay of a stage postpones the trigger.
+   */
+  @Test
+  public void testParallelTriggerWithDelay()
+  {
+    this.config.setParallelTrigger( 0, 0x07, 0x05, 0, 3, true );
+
+    final LogicSnifferTriggerSimulator simulator = new LogicSnifferTriggerSimulator( this.config );
+    assertArrayEquals( new long[] { 13L, 33L }, simulator.findTriggerPositions( createData( 0, 0, 5, 10, 0, 20, 5,
+        30, 0, 40 ) ) );
+  }
+
+  /**
+   * Tests that a parallel trigger fires on every matching transition.
+   */
+  @Test
+  public void testParallelTriggerFiresOnEachMatch()
+  {
+    this.config.setParallelTrigger( 0, 0x07, 0x05, 0, 0, true );
+
+    final LogicSnifferTriggerSimulator simulator = new LogicSnifferTriggerSimulator( this.config );
+
+    final CapturedData data = createData( 0, 0, 5, 10, 0xF0, 20, 0xFD, 30 );
+    assertArrayEquals( new long[] { 10L, 30L }, simulator.findTriggerPositions( data ) );
+    assertEquals( 10L, simulator.findFirstTriggerPosition( data ) );
+  }
+
+  /**
+   * Tests that no trigger positions are found when nothing matches.
+   */
+  @Test
+  public void testParallelTriggerWithoutMatch()
+  {
+    this.config.setParallelTrigger( 0, 0xFF, 0x80, 0, 0, true );
+
+    final LogicSnifferTriggerSimulator simulator = new LogicSnifferTriggerSimulator( this.config );
+
+    final CapturedData data = createData( 0, 0, 5, 10 );
+    assertEquals( 0, simulator.findTriggerPositions( data ).length );
+    assertEquals( -1L, simulator.findFirstTriggerPosition( data ) );
+  }
+
+  /**
+   * Tests that a serial stage matches on the bit pattern of a single channel.
+   */
+  @Test
+  public void testSerialTrigger()
+  {
+    // Most recent sample in the MSB: looking for 0, 1, 0, 1 on channel 1...
+    this.config.setSerialTrigger( 0, 1, 0xF0000000, 0xA0000000, 0, 0, true );
+
+    final LogicSnifferTriggerSimulator simulator = new LogicSnifferTriggerSimulator( this.config );
+    assertArrayEquals( new long[] { 3L }, simulator.findTriggerPositions( createData( 0, 0, 2, 1, 0, 2, 2, 3, 0, 4 ) ) );
+  }
+
+  /**
+   * Tests that a serial stage sees all samples of a long, constant run.
+   */
+  @Test
+  public void testSerialTriggerOnLongRun()
+  {
+    // Sixteen consecutive ones on channel 0...
+    this.config.setSerialTrigger( 0, 0, 0xFFFF0000, 0xFFFF0000, 0, 0, true );
+
+    final LogicSnifferTriggerSimulator simulator = new LogicSnifferTriggerSimulator( this.config );
+    assertArrayEquals( new long[] { 115L, 215L }, simulator.findTriggerPositions( createData( 0, 0, 1, 100, 0, 160,
+        1, 200, 0, 250 ) ) );
+  }
+
+  /**
+   * Tests that a stage is only armed once the trigger level is reached.
+   */
+  @Test
+  public void testTwoLevelTrigger()
+  {
+    this.config.setParallelTrigger( 0, 0x01, 0x01, 0, 0, false );
+    this.config.setParallelTrigger( 1, 0x02, 0x02, 1, 0, true );
+
+    final LogicSnifferTriggerSimulator simulator = new LogicSnifferTriggerSimulator( this.config );
+    assertArrayEquals( new long[] { 8L }, simulator.findTriggerPositions( createData( 2, 0, 1, 5, 2, 8, 0, 12 ) ) );
+  }
+
+  /**
+   * Creates captured data from the given value/timestamp pairs.
+   */
+  private static CapturedData createData( final int... aPairs )
+  {
+    final int[] values = new int[aPairs.length / 2];
+    final long[] timestamps = new long[values.length];
+    for ( int i = 0; i < values.length; i++ )
+    {
+      values[i] = aPairs[2 * i];
+      timestamps[i] = aPairs[( 2 * i ) + 1];
+    }
+    return new CapturedData( values, timestamps, -1L, 1000000, 32, -1, timestamps[timestamps.length - 1] + 1L );
+  }
+}
@@ -82,6 +82,7 @@ public class VirtualLogicSnifferDevice extends LogicSnifferAcquisitionTask
     private volatile int enabledGroups;
     private volatile boolean ddrMode;
     private volatile boolean rleMode;
+    private volatile int commandCount;
 
     // CONSTRUCTORS
 
@@ -123,6 +124,7 @@ public class VirtualLogicSnifferDevice extends LogicSnifferAcquisitionTask
 
           // First byte denotes the command...
           command = this.is.read();
+          this.commandCount++;
 
           // Short or long command?
           if ( ( command & 0x80 ) != 0 )
@@ -213,6 +215,16 @@ public class VirtualLogicSnifferDevice extends LogicSnifferAcquisitionTask
       while ( this.running && !isInterrupted() );
     }
 
+    /**
+     * Returns the number of commands received so far.
+     * 
+     * @return a command count, >= 0.
+     */
+    public int getCommandCount()
+    {
+      return this.commandCount;
+    }
+
     /**
      * Stops this runnable.
      */
@@ -385,7 +397,8 @@ public class VirtualLogicSnifferDevice extends LogicSnifferAcquisitionTask
   public VirtualLogicSnifferDevice( final LogicSnifferConfig aConfig, final SampleProvider aSampleProvider )
       throws IOException
   {
-    super( aConfig, null /* aConnection */, new DeviceProfileManager(), new NullAcquisitionProgressListener() );
+    super( aConfig, ( StreamConnection )null /* aConnection */, new DeviceProfileManager(),
+        new NullAcquisitionProgressListener() );
 
     // Quite a lot of data can be pumped from this device, so we need some room
     // for it to store it all...
@@ -537,6 +550,16 @@ public class VirtualLogicSnifferDevice extends LogicSnifferAcquisitionTask
     while ( this.streamReader.isAlive() );
   }
 
+  /**
+   * Returns the number of commands the device received so far.
+   * 
+   * @return a command count, >= 0.
+   */
+  public int getReceivedCommandCount()
+  {
+    return this.streamReader.getCommandCount();
+  }
+
   /**
    * Sets the divider as written to the device.
    * 
@@ -29,6 +29,7 @@ import java.util.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.devices.*;
+import nl.lxtreme.ols.device.test.generator.*;
 
 
 /**
@@ -37,6 +38,14 @@ import nl.lxtreme.ols.api.devices.*;
  */
 public class TestAcquisitionTask implements AcquisitionTask
 {
+  // CONSTANTS
+
+  /** The sample rate of all generated signals, 100 MHz. */
+  private static final int GENERATOR_RATE = 100000000;
+  private static final int TICKS_PER_US = GENERATOR_RATE / 1000000;
+  /** The maximum length of data functions that generate every sample. */
+  private static final int MAX_SAMPLED_LENGTH = 16777216;
+
   // VARIABLES
 
   private final TestDeviceDialog configDialog;
@@ -68,60 +77,49 @@ public class TestAcquisitionTask implements AcquisitionTask
     final int dataLength = this.configDialog.getDataLength();
     final int channels = this.configDialog.getChannels();
 
-    final int[] data;
-    int rate = 1000000000;
+    final SignalGenerator generator = createGenerator( dataFunction );
+    if ( generator != null )
+    {
+      return generator.createCapture( dataLength, GENERATOR_RATE, channels, this.progressListener );
+    }
+
+    // These data functions change (nearly) every sample, so they cannot benefit
+    // from generating transitions only...
+    final int[] data = new int[Math.min( dataLength, MAX_SAMPLED_LENGTH )];
+    final int rate = 1000000000;
 
     final double halfWidth = ( 1L << ( channels - 1 ) ) / 2.0;
+    final Random rnd = new Random();
 
-    if ( DATA_FUNCTIONS[6].equals( dataFunction ) )
-    {
-      final I2CGenerator generator = new I2CGenerator();
-      generator.writeBitStream( "Hello World, this is a sample I2C bit stream!" );
-      data = generator.getData();
-      rate = generator.getRate();
-    }
-    else if ( DATA_FUNCTIONS[7].equals( dataFunction ) )
+    for ( int i = 0; i < data.length; i++ )
     {
-      final OneWireGenerator generator = new OneWireGenerator( true /* aStandard */);
-      generator.writeBitStream( "Hello World, this is a sample 1-wire bit stream!" );
-      data = generator.getData();
-      rate = generator.getRate();
-    }
-    else
-    {
-      final Random rnd = new Random();
-
-      data = new int[dataLength];
-      for ( int i = 0; i < data.length; i++ )
+      if ( DATA_FUNCTIONS[0].equals( dataFunction ) )
+      {
+        final int v = ( i / 8 ) & 0xff;
+        data[i] = ( 255 - v ) | ( v << 8 ) | ( ( 255 - v ) << 16 ) | ( v << 24 );
+      }
+      else if ( DATA_FUNCTIONS[1].equals( dataFunction ) )
+      {
+        data[i] = 0x00;
+      }
+      else if ( DATA_FUNCTIONS[2].equals( dataFunction ) )
+      {
+        data[i] = ( int )( halfWidth + ( halfWidth * Math.sin( i / ( data.length / ( double )channels ) ) ) );
+      }
+      else if ( DATA_FUNCTIONS[3].equals( dataFunction ) )
+      {
+        data[i] = ( ( i % 2 ) == 0 ) ? 0x55 : 0xAA;
+      }
+      else if ( DATA_FUNCTIONS[4].equals( dataFunction ) )
+      {
+        data[i] = ( ( i % 4 ) == 0 ) ? 0x55 : 0xAA;
+      }
+      else if ( DATA_FUNCTIONS[5].equals( dataFunction ) )
       {
-        if ( DATA_FUNCTIONS[0].equals( dataFunction ) )
-        {
-          final int v = ( i / 8 ) & 0xff;
-          data[i] = ( 255 - v ) | ( v << 8 ) | ( ( 255 - v ) << 16 ) | ( v << 24 );
-        }
-        else if ( DATA_FUNCTIONS[1].equals( dataFunction ) )
-        {
-          data[i] = 0x00;
-        }
-        else if ( DATA_FUNCTIONS[2].equals( dataFunction ) )
-        {
-          data[i] = ( int )( halfWidth + ( halfWidth * Math.sin( i / ( data.length / ( double )channels ) ) ) );
-        }
-        else if ( DATA_FUNCTIONS[3].equals( dataFunction ) )
-        {
-          data[i] = ( ( i % 2 ) == 0 ) ? 0x55 : 0xAA;
-        }
-        else if ( DATA_FUNCTIONS[4].equals( dataFunction ) )
-        {
-          data[i] = ( ( i % 4 ) == 0 ) ? 0x55 : 0xAA;
-        }
-        else if ( DATA_FUNCTIONS[5].equals( dataFunction ) )
-        {
-          data[i] = rnd.nextInt();
-        }
-
-        this.progressListener.acquisitionInProgress( ( int )( ( i * 100.0 ) / data.length ) );
+        data[i] = rnd.nextInt();
       }
+
+      this.progressListener.acquisitionInProgress( ( int )( ( i * 100.0 ) / data.length ) );
     }
 
     return new CapturedData( data, 23, rate, channels, Integer.MAX_VALUE );
@@ -144,4 +142,76 @@ public class TestAcquisitionTask implements AcquisitionTask
   {
     // No-op
   }
+
+  /**
+   * Creates the signal generator for the given data function.
+   * 
+   * @param aDataFunction
+   *          the data function to create the generator for.
+   * @return a signal generator, or <code>null</code> if the given data
+   *         function is not based on a signal generator.
+   */
+  private SignalGenerator createGenerator( final String aDataFunction )
+  {
+    final SignalGenerator generator = new SignalGenerator();
+
+    if ( DATA_FUNCTIONS[6].equals( aDataFunction ) )
+    {
+      generator.add( new I2CSource( 1, 0, 125L /* 400 kHz */, 0x2a, bytes( "I2C" ), 10000L ) );
+    }
+    else if ( DATA_FUNCTIONS[7].equals( aDataFunction ) )
+    {
+      generator.add( new OneWireSource( 2, true /* aStandard */, TICKS_PER_US, bytes( "1-Wire" ), 10000L ) );
+    }
+    else if ( DATA_FUNCTIONS[8].equals( aDataFunction ) )
+    {
+      generator.add( new UartSource( 0, 868L /* 115200 Bd */, bytes( "UART" ), 10000L ) );
+    }
+    else if ( DATA_FUNCTIONS[9].equals( aDataFunction ) )
+    {
+      generator.add( new SpiSource( 0, 1, 2, 50L /* 1 MHz */, bytes( "SPI" ), 1000L ) );
+    }
+    else if ( DATA_FUNCTIONS[10].equals( aDataFunction ) )
+    {
+      generator.add( new JtagSource( 0, 1, 2, 5L /* 10 MHz */, bytes( "JTAG" ), 1000L ) );
+    }
+    else if ( DATA_FUNCTIONS[11].equals( aDataFunction ) )
+    {
+      generator.add( new PwmSource( 0, 1000L, 0L, 1000L, 10L ) );
+    }
+    else if ( DATA_FUNCTIONS[12].equals( aDataFunction ) )
+    {
+      generator.add( new ClockSource( 0, 500L /* 100 kHz */, 10, System.nanoTime() ) );
+    }
+    else if ( DATA_FUNCTIONS[13].equals( aDataFunction ) )
+    {
+      generator.add( new GlitchSource( 0, 10000L, 5, System.nanoTime() ) );
+    }
+    else if ( DATA_FUNCTIONS[14].equals( aDataFunction ) )
+    {
+      // Channels beyond the configured number of channels are left out...
+      generator.add( new UartSource( 0, 868L, bytes( "UART" ), 10000L ) );
+      generator.add( new SpiSource( 1, 2, 3, 50L, bytes( "SPI" ), 1000L ) );
+      generator.add( new I2CSource( 4, 5, 125L, 0x2a, bytes( "I2C" ), 10000L ) );
+      generator.add( new OneWireSource( 6, true /* aStandard */, TICKS_PER_US, bytes( "1-Wire" ), 10000L ) );
+      generator.add( new JtagSource( 7, 8, 9, 5L, bytes( "JTAG" ), 1000L ) );
+      generator.add( new PwmSource( 10, 1000L, 0L, 1000L, 10L ) );
+      generator.add( new ClockSource( 11, 500L, 10, System.nanoTime() ) );
+      generator.add( new GlitchSource( 12, 10000L, 5, System.nanoTime() ) );
+    }
+    else
+    {
+      return null;
+    }
+
+    return generator;
+  }
+
+  /**
+   * Returns the sample message for the given protocol.
+   */
+  private static byte[] bytes( final String aProtocol )
+  {
+    return ( "Hello World, this is a sample " + aProtocol + " bit stream!" ).getBytes();
+  }
 }
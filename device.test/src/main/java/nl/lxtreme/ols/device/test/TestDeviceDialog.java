@@ -42,9 +42,11 @@ public class TestDeviceDialog extends JDialog implements Configurable, Closeable
   private static final long serialVersionUID = 1L;
 
   static final String[] DATA_FUNCTIONS = new String[] { "Sawtooth", "All zeros", "Sine", "odd-even", "0x55-0xAA",
-      "Random", "I2C sample", "1-Wire sample" };
+      "Random", "I2C sample", "1-Wire sample", "UART sample", "SPI sample", "JTAG sample", "PWM sweep",
+      "Clock with jitter", "Random glitches", "Mixed bus sample" };
   static final Integer[] CHANNELS = new Integer[] { 1, 4, 8, 16, 32 };
-  static final Integer[] DATA_LENGTH = new Integer[] { 16, 256, 1024, 4096, 8192, 16384, 32768, 65536, 131072 };
+  static final Integer[] DATA_LENGTH = new Integer[] { 16, 256, 1024, 4096, 8192, 16384, 32768, 65536, 131072,
+      1048576, 16777216, 268435456, 1073741824 };
 
   // VARIABLES
 
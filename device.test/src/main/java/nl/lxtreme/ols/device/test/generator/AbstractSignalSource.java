@@ -0,0 +1,227 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test.generator;
+
+
+/**
+ * Provides a base class for signal sources that describe their signal as a
+ * sequence of steps, each holding a value for a number of ticks.
+ * <p>
+ * Steps are generated lazily, a few at a time, so a source can describe an
+ * arbitrary long signal in constant memory.
+ * </p>
+ */
+public abstract class AbstractSignalSource implements SignalSource
+{
+  // CONSTANTS
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  // VARIABLES
+
+  private final int idleValue;
+
+  private int[] stepValues;
+  private long[] stepDurations;
+  private int head;
+  private int count;
+
+  private boolean started;
+  private boolean exhausted;
+  private int value;
+  private long end;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new AbstractSignalSource instance.
+   * 
+   * @param aIdleValue
+   *          the value of this source before its first and after its last
+   *          step.
+   */
+  protected AbstractSignalSource( final int aIdleValue )
+  {
+    this.idleValue = aIdleValue;
+
+    this.stepValues = new int[INITIAL_CAPACITY];
+    this.stepDurations = new long[INITIAL_CAPACITY];
+  }
+
+  // METHODS
+
+  /**
+   * Returns the bit mask for the given channel.
+   * 
+   * @param aChannel
+   *          the channel index, >= 0 && < 32.
+   * @return a bit mask.
+   */
+  protected static int mask( final int aChannel )
+  {
+    if ( ( aChannel < 0 ) || ( aChannel >= 32 ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel: " + aChannel );
+    }
+    return 1 << aChannel;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final void advance()
+  {
+    ensureStarted();
+
+    if ( this.end != Long.MAX_VALUE )
+    {
+      if ( !pollStep( this.end ) )
+      {
+        this.value = this.idleValue;
+        this.end = Long.MAX_VALUE;
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getNextTransition()
+  {
+    ensureStarted();
+    return this.end;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int getValue()
+  {
+    ensureStarted();
+    return this.value;
+  }
+
+  /**
+   * Called when this source has run out of steps, to generate new steps using
+   * {@link #hold(int, long)}.
+   * 
+   * @return <code>true</code> if steps are generated, <code>false</code> if
+   *         this source has ended.
+   */
+  protected abstract boolean generate();
+
+  /**
+   * Returns the idle value of this source.
+   * 
+   * @return the idle value.
+   */
+  protected final int getIdleValue()
+  {
+    return this.idleValue;
+  }
+
+  /**
+   * Appends a step to this source, holding the given value for the given
+   * number of ticks.
+   * 
+   * @param aValue
+   *          the value to hold;
+   * @param aTicks
+   *          the number of ticks to hold the value, steps of zero or less
+   *          ticks are ignored.
+   */
+  protected final void hold( final int aValue, final long aTicks )
+  {
+    if ( aTicks <= 0L )
+    {
+      return;
+    }
+
+    if ( this.count == this.stepValues.length )
+    {
+      final int newCapacity = this.count * 2;
+      final int[] values = new int[newCapacity];
+      final long[] durations = new long[newCapacity];
+      for ( int i = 0; i < this.count; i++ )
+      {
+        final int idx = ( this.head + i ) % this.count;
+        values[i] = this.stepValues[idx];
+        durations[i] = this.stepDurations[idx];
+      }
+      this.stepValues = values;
+      this.stepDurations = durations;
+      this.head = 0;
+    }
+
+    final int tail = ( this.head + this.count ) % this.stepValues.length;
+    this.stepValues[tail] = aValue;
+    this.stepDurations[tail] = aTicks;
+    this.count++;
+  }
+
+  /**
+   * Starts this source at time zero, if not already done.
+   */
+  private void ensureStarted()
+  {
+    if ( !this.started )
+    {
+      this.started = true;
+      if ( !pollStep( 0L ) )
+      {
+        this.value = this.idleValue;
+        this.end = Long.MAX_VALUE;
+      }
+    }
+  }
+
+  /**
+   * Takes the next step, starting at the given time.
+   * 
+   * @param aStart
+   *          the start time of the next step.
+   * @return <code>true</code> if a next step was taken, <code>false</code> if
+   *         this source has ended.
+   */
+  private boolean pollStep( final long aStart )
+  {
+    while ( this.count == 0 )
+    {
+      if ( this.exhausted || !generate() )
+      {
+        this.exhausted = true;
+        return false;
+      }
+    }
+
+    this.value = this.stepValues[this.head];
+    this.end = aStart + this.stepDurations[this.head];
+
+    this.head = ( this.head + 1 ) % this.stepValues.length;
+    this.count--;
+    return true;
+  }
+}
+
+/* EOF */
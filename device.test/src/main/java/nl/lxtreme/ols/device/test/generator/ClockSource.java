@@ -0,0 +1,106 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test.generator;
+
+
+import java.util.*;
+
+
+/**
+ * Provides a clock signal source, whose edges have a random jitter.
+ */
+public final class ClockSource extends AbstractSignalSource
+{
+  // CONSTANTS
+
+  private static final int CYCLES_PER_STEP = 64;
+
+  // VARIABLES
+
+  private final int channel;
+  private final long halfPeriod;
+  private final int jitter;
+  private final Random random;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ClockSource instance.
+   * 
+   * @param aChannel
+   *          the channel to generate the clock on;
+   * @param aHalfPeriod
+   *          the nominal half period of the clock, in ticks, > 0;
+   * @param aJitter
+   *          the maximum deviation of each half period, in ticks, >= 0;
+   * @param aSeed
+   *          the seed for the jitter, to allow reproducible signals.
+   */
+  public ClockSource( final int aChannel, final long aHalfPeriod, final int aJitter, final long aSeed )
+  {
+    super( 0 );
+
+    if ( aHalfPeriod <= 0L )
+    {
+      throw new IllegalArgumentException( "Half period should be positive!" );
+    }
+    if ( aJitter < 0 )
+    {
+      throw new IllegalArgumentException( "Jitter cannot be negative!" );
+    }
+
+    this.channel = mask( aChannel );
+    this.halfPeriod = aHalfPeriod;
+    this.jitter = aJitter;
+    this.random = new Random( aSeed );
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean generate()
+  {
+    for ( int n = 0; n < CYCLES_PER_STEP; n++ )
+    {
+      hold( this.channel, nextHalfPeriod() );
+      hold( 0, nextHalfPeriod() );
+    }
+    return true;
+  }
+
+  /**
+   * Returns the next half period, including its jitter.
+   */
+  private long nextHalfPeriod()
+  {
+    if ( this.jitter == 0 )
+    {
+      return this.halfPeriod;
+    }
+    final long deviation = this.random.nextInt( 2 * this.jitter + 1 ) - this.jitter;
+    return Math.max( 1L, this.halfPeriod + deviation );
+  }
+}
+
+/* EOF */
@@ -0,0 +1,86 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test.generator;
+
+
+import java.util.*;
+
+
+/**
+ * Provides a signal source of random glitches, being short pulses on an
+ * otherwise low signal.
+ */
+public final class GlitchSource extends AbstractSignalSource
+{
+  // VARIABLES
+
+  private final int channel;
+  private final double meanInterval;
+  private final int maxWidth;
+  private final Random random;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new GlitchSource instance.
+   * 
+   * @param aChannel
+   *          the channel to generate the glitches on;
+   * @param aMeanInterval
+   *          the mean time between two glitches, in ticks, > 0;
+   * @param aMaxWidth
+   *          the maximum width of a glitch, in ticks, > 0;
+   * @param aSeed
+   *          the seed for the glitches, to allow reproducible signals.
+   */
+  public GlitchSource( final int aChannel, final long aMeanInterval, final int aMaxWidth, final long aSeed )
+  {
+    super( 0 );
+
+    if ( ( aMeanInterval <= 0L ) || ( aMaxWidth <= 0 ) )
+    {
+      throw new IllegalArgumentException( "Interval and width should be positive!" );
+    }
+
+    this.channel = mask( aChannel );
+    this.meanInterval = aMeanInterval;
+    this.maxWidth = aMaxWidth;
+    this.random = new Random( aSeed );
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean generate()
+  {
+    // Exponentially distributed intervals, as for independent events...
+    final double interval = -this.meanInterval * Math.log( 1.0 - this.random.nextDouble() );
+
+    hold( 0, 1L + ( long )interval );
+    hold( this.channel, 1L + this.random.nextInt( this.maxWidth ) );
+    return true;
+  }
+}
+
+/* EOF */
@@ -0,0 +1,138 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test.generator;
+
+
+/**
+ * Provides an I2C signal source, repeatedly writing its data to a 7-bit slave
+ * address. All bytes are acknowledged.
+ */
+public final class I2CSource extends AbstractSignalSource
+{
+  // VARIABLES
+
+  private final int scl;
+  private final int sda;
+  private final long halfPeriod;
+  private final int address;
+  private final byte[] data;
+  private final long gap;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new I2CSource instance.
+   * 
+   * @param aSclChannel
+   *          the channel of the serial clock;
+   * @param aSdaChannel
+   *          the channel of the serial data;
+   * @param aHalfPeriod
+   *          the half period of the serial clock, in ticks, > 0;
+   * @param aAddress
+   *          the 7-bit slave address to write to;
+   * @param aData
+   *          the data to write, cannot be <code>null</code> or empty;
+   * @param aGap
+   *          the idle time between two transfers, in ticks.
+   */
+  public I2CSource( final int aSclChannel, final int aSdaChannel, final long aHalfPeriod, final int aAddress,
+      final byte[] aData, final long aGap )
+  {
+    super( mask( aSclChannel ) | mask( aSdaChannel ) );
+
+    if ( aHalfPeriod <= 0L )
+    {
+      throw new IllegalArgumentException( "Half period should be positive!" );
+    }
+    if ( ( aData == null ) || ( aData.length == 0 ) )
+    {
+      throw new IllegalArgumentException( "Data cannot be null or empty!" );
+    }
+
+    this.scl = mask( aSclChannel );
+    this.sda = mask( aSdaChannel );
+    this.halfPeriod = aHalfPeriod;
+    this.address = aAddress & 0x7f;
+    this.data = aData.clone();
+    this.gap = aGap;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean generate()
+  {
+    // The bus is idle before the START condition, also at the very start...
+    hold( getIdleValue(), this.halfPeriod );
+
+    // START: SDA goes low while SCL is high...
+    hold( this.scl, this.halfPeriod );
+
+    writeByte( this.address << 1 );
+    for ( byte b : this.data )
+    {
+      writeByte( b );
+    }
+
+    // STOP: SDA goes high while SCL is high...
+    hold( 0, this.halfPeriod );
+    hold( this.scl, this.halfPeriod );
+
+    hold( getIdleValue(), this.gap );
+    return true;
+  }
+
+  /**
+   * Writes a single bit, changing SDA halfway the low phase of SCL, so it
+   * never changes along with an edge of SCL.
+   * 
+   * @return the value of SDA for the written bit.
+   */
+  private int writeBit( final int aPrevious, final boolean aBit )
+  {
+    final int value = aBit ? this.sda : 0;
+    final long setup = this.halfPeriod / 2;
+    hold( aPrevious, setup );
+    hold( value, this.halfPeriod - setup );
+    hold( value | this.scl, this.halfPeriod );
+    return value;
+  }
+
+  /**
+   * Writes a single byte, followed by an acknowledge of the slave.
+   */
+  private void writeByte( final int aValue )
+  {
+    // SDA is low after both the START condition and an acknowledge...
+    int previous = 0;
+    for ( int bit = 7; bit >= 0; bit-- )
+    {
+      previous = writeBit( previous, ( aValue & ( 1 << bit ) ) != 0 );
+    }
+    writeBit( previous, false /* ACK */);
+  }
+}
+
+/* EOF */
@@ -0,0 +1,126 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test.generator;
+
+
+/**
+ * Provides a JTAG signal source, repeatedly resetting the TAP controller and
+ * shifting its data through the data register, least significant bit first.
+ */
+public final class JtagSource extends AbstractSignalSource
+{
+  // VARIABLES
+
+  private final int tck;
+  private final int tms;
+  private final int tdi;
+  private final long halfPeriod;
+  private final byte[] data;
+  private final long gap;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new JtagSource instance.
+   * 
+   * @param aTckChannel
+   *          the channel of the test clock;
+   * @param aTmsChannel
+   *          the channel of the test mode select;
+   * @param aTdiChannel
+   *          the channel of the test data input;
+   * @param aHalfPeriod
+   *          the half period of the test clock, in ticks, > 0;
+   * @param aData
+   *          the data to shift in, cannot be <code>null</code> or empty;
+   * @param aGap
+   *          the idle time between two transfers, in ticks.
+   */
+  public JtagSource( final int aTckChannel, final int aTmsChannel, final int aTdiChannel, final long aHalfPeriod,
+      final byte[] aData, final long aGap )
+  {
+    super( 0 );
+
+    if ( aHalfPeriod <= 0L )
+    {
+      throw new IllegalArgumentException( "Half period should be positive!" );
+    }
+    if ( ( aData == null ) || ( aData.length == 0 ) )
+    {
+      throw new IllegalArgumentException( "Data cannot be null or empty!" );
+    }
+
+    this.tck = mask( aTckChannel );
+    this.tms = mask( aTmsChannel );
+    this.tdi = mask( aTdiChannel );
+    this.halfPeriod = aHalfPeriod;
+    this.data = aData.clone();
+    this.gap = aGap;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean generate()
+  {
+    // Test-Logic-Reset...
+    for ( int n = 0; n < 5; n++ )
+    {
+      clock( true, false );
+    }
+    // Run-Test/Idle -> Select-DR-Scan -> Capture-DR -> Shift-DR...
+    clock( false, false );
+    clock( true, false );
+    clock( false, false );
+    clock( false, false );
+
+    final int bits = this.data.length * 8;
+    for ( int n = 0; n < bits; n++ )
+    {
+      final boolean bit = ( this.data[n / 8] & ( 1 << ( n % 8 ) ) ) != 0;
+      // Last bit moves to Exit1-DR...
+      clock( n == ( bits - 1 ), bit );
+    }
+
+    // Update-DR -> Run-Test/Idle...
+    clock( true, false );
+    clock( false, false );
+
+    hold( 0, this.gap );
+    return true;
+  }
+
+  /**
+   * Clocks a single TMS/TDI pair, which changes while TCK is low and is
+   * sampled on its rising edge.
+   */
+  private void clock( final boolean aTms, final boolean aTdi )
+  {
+    final int value = ( aTms ? this.tms : 0 ) | ( aTdi ? this.tdi : 0 );
+    hold( value, this.halfPeriod );
+    hold( value | this.tck, this.halfPeriod );
+  }
+}
+
+/* EOF */
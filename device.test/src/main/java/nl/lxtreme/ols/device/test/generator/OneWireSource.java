@@ -0,0 +1,136 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test.generator;
+
+
+/**
+ * Provides a 1-Wire signal source, repeatedly sending a reset/presence pulse
+ * followed by its data, least significant bit first.
+ * <p>
+ * The bus timing is based on application note 126
+ * "1-Wire Communication Through Software" of Maxim (May 30, 2002).
+ * </p>
+ */
+public final class OneWireSource extends AbstractSignalSource
+{
+  // VARIABLES
+
+  private final int line;
+  private final byte[] data;
+  private final long gap;
+  private final long a, b, c, d, h, i, j;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new OneWireSource instance.
+   * 
+   * @param aChannel
+   *          the channel of the 1-Wire bus;
+   * @param aStandard
+   *          <code>true</code> to use the "standard" bus timing mode,
+   *          <code>false</code> to use the "overdrive" bus timing mode;
+   * @param aTicksPerMicrosecond
+   *          the number of ticks per microsecond, > 0;
+   * @param aData
+   *          the data to send, cannot be <code>null</code> or empty;
+   * @param aGap
+   *          the idle time between two transfers, in ticks.
+   */
+  public OneWireSource( final int aChannel, final boolean aStandard, final int aTicksPerMicrosecond,
+      final byte[] aData, final long aGap )
+  {
+    super( mask( aChannel ) );
+
+    if ( aTicksPerMicrosecond <= 0 )
+    {
+      throw new IllegalArgumentException( "Ticks per microsecond should be positive!" );
+    }
+    if ( ( aData == null ) || ( aData.length == 0 ) )
+    {
+      throw new IllegalArgumentException( "Data cannot be null or empty!" );
+    }
+
+    this.line = mask( aChannel );
+    this.data = aData.clone();
+    this.gap = aGap;
+
+    final double tick = aTicksPerMicrosecond;
+    if ( aStandard )
+    {
+      this.a = ( long )( 6.0 * tick );
+      this.b = ( long )( 64.0 * tick );
+      this.c = ( long )( 60.0 * tick );
+      this.d = ( long )( 10.0 * tick );
+      this.h = ( long )( 480.0 * tick );
+      this.i = ( long )( 70.0 * tick );
+      this.j = ( long )( 410.0 * tick );
+    }
+    else
+    {
+      this.a = ( long )( 1.5 * tick );
+      this.b = ( long )( 7.5 * tick );
+      this.c = ( long )( 7.5 * tick );
+      this.d = ( long )( 2.5 * tick );
+      this.h = ( long )( 70.0 * tick );
+      this.i = ( long )( 8.5 * tick );
+      this.j = ( long )( 40.0 * tick );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean generate()
+  {
+    // Reset pulse, followed by the presence pulse of the slave, which is
+    // sampled by the master after I ticks...
+    hold( 0, this.h );
+    hold( this.line, this.i / 2 );
+    hold( 0, this.i - ( this.i / 2 ) + ( this.j / 4 ) );
+    hold( this.line, this.j - ( this.j / 4 ) );
+
+    for ( byte value : this.data )
+    {
+      for ( int bit = 0; bit < 8; bit++ )
+      {
+        if ( ( value & ( 1 << bit ) ) != 0 )
+        {
+          hold( 0, this.a );
+          hold( this.line, this.b );
+        }
+        else
+        {
+          hold( 0, this.c );
+          hold( this.line, this.d );
+        }
+      }
+    }
+
+    hold( this.line, this.gap );
+    return true;
+  }
+}
+
+/* EOF */
@@ -0,0 +1,128 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test.generator;
+
+
+/**
+ * Provides a PWM signal source, whose duty cycle sweeps between a minimum and
+ * maximum value.
+ */
+public final class PwmSource extends AbstractSignalSource
+{
+  // VARIABLES
+
+  private final int channel;
+  private final long period;
+  private final long minHigh;
+  private final long maxHigh;
+  private final long step;
+
+  private long high;
+  private boolean rising;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new PwmSource instance with a fixed duty cycle.
+   * 
+   * @param aChannel
+   *          the channel to generate the signal on;
+   * @param aPeriod
+   *          the period of the signal, in ticks, > 1;
+   * @param aHigh
+   *          the time the signal is high in each period, in ticks.
+   */
+  public PwmSource( final int aChannel, final long aPeriod, final long aHigh )
+  {
+    this( aChannel, aPeriod, aHigh, aHigh, 0L );
+  }
+
+  /**
+   * Creates a new PwmSource instance with a sweeping duty cycle.
+   * 
+   * @param aChannel
+   *          the channel to generate the signal on;
+   * @param aPeriod
+   *          the period of the signal, in ticks, > 1;
+   * @param aMinHigh
+   *          the minimum time the signal is high in each period, in ticks;
+   * @param aMaxHigh
+   *          the maximum time the signal is high in each period, in ticks;
+   * @param aStep
+   *          the number of ticks the high time changes each period.
+   */
+  public PwmSource( final int aChannel, final long aPeriod, final long aMinHigh, final long aMaxHigh, final long aStep )
+  {
+    super( 0 );
+
+    if ( aPeriod <= 1L )
+    {
+      throw new IllegalArgumentException( "Period should be larger than one!" );
+    }
+    if ( ( aMinHigh < 0L ) || ( aMinHigh > aMaxHigh ) || ( aMaxHigh > aPeriod ) )
+    {
+      throw new IllegalArgumentException( "Invalid high time(s)!" );
+    }
+
+    this.channel = mask( aChannel );
+    this.period = aPeriod;
+    this.minHigh = aMinHigh;
+    this.maxHigh = aMaxHigh;
+    this.step = Math.max( 0L, aStep );
+
+    this.high = aMinHigh;
+    this.rising = true;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean generate()
+  {
+    hold( this.channel, this.high );
+    hold( 0, this.period - this.high );
+
+    if ( this.rising )
+    {
+      this.high += this.step;
+      if ( this.high >= this.maxHigh )
+      {
+        this.high = this.maxHigh;
+        this.rising = false;
+      }
+    }
+    else
+    {
+      this.high -= this.step;
+      if ( this.high <= this.minHigh )
+      {
+        this.high = this.minHigh;
+        this.rising = true;
+      }
+    }
+    return true;
+  }
+}
+
+/* EOF */
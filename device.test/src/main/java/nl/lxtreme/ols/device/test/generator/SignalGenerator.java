@@ -0,0 +1,256 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test.generator;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Composes multiple signal sources into a single multi-channel signal, and
+ * emits only its transitions.
+ * <p>
+ * As the amount of work depends on the number of transitions rather than the
+ * number of ticks, long captures with few transitions are cheap to generate.
+ * </p>
+ */
+public final class SignalGenerator
+{
+  // INNER TYPES
+
+  /**
+   * Collects transitions into primitive arrays, growing them as needed.
+   */
+  static final class CaptureBuilder implements TransitionSink
+  {
+    // CONSTANTS
+
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    // VARIABLES
+
+    private int[] values;
+    private long[] timestamps;
+    private int size;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new CaptureBuilder instance.
+     */
+    CaptureBuilder()
+    {
+      this.values = new int[1024];
+      this.timestamps = new long[1024];
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void transition( final long aTime, final int aValue )
+    {
+      if ( this.size == this.values.length )
+      {
+        if ( this.size == MAX_CAPACITY )
+        {
+          throw new IllegalStateException( "Too many transitions!" );
+        }
+        final int newCapacity = ( int )Math.min( MAX_CAPACITY, this.size * 2L );
+        this.values = Arrays.copyOf( this.values, newCapacity );
+        this.timestamps = Arrays.copyOf( this.timestamps, newCapacity );
+      }
+      this.values[this.size] = aValue;
+      this.timestamps[this.size] = aTime;
+      this.size++;
+    }
+
+    /**
+     * Creates the captured data from all collected transitions.
+     */
+    CapturedData createCapture( final long aTriggerPosition, final int aRate, final int aChannels,
+        final int aEnabledChannels, final long aLength )
+    {
+      final int[] v = Arrays.copyOf( this.values, this.size );
+      final long[] t = Arrays.copyOf( this.timestamps, this.size );
+      return new CapturedData( v, t, aTriggerPosition, aRate, aChannels, aEnabledChannels, aLength );
+    }
+  }
+
+  // VARIABLES
+
+  private final List<SignalSource> sources;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SignalGenerator instance.
+   */
+  public SignalGenerator()
+  {
+    this.sources = new ArrayList<SignalSource>();
+  }
+
+  // METHODS
+
+  /**
+   * Adds a signal source to this generator.
+   * 
+   * @param aSource
+   *          the source to add, cannot be <code>null</code>. Sources should
+   *          drive distinct channels.
+   * @return this generator, for chaining.
+   */
+  public SignalGenerator add( final SignalSource aSource )
+  {
+    if ( aSource == null )
+    {
+      throw new IllegalArgumentException( "Source cannot be null!" );
+    }
+    this.sources.add( aSource );
+    return this;
+  }
+
+  /**
+   * Generates a capture of the given length from all added sources.
+   * 
+   * @param aLength
+   *          the length of the capture, in ticks, > 0;
+   * @param aRate
+   *          the sample rate of the capture, in Hertz;
+   * @param aChannels
+   *          the number of channels of the capture, > 0 && <= 32;
+   * @param aListener
+   *          the listener to report the progress to, can be <code>null</code>.
+   * @return the generated captured data, never <code>null</code>.
+   */
+  public CapturedData createCapture( final long aLength, final int aRate, final int aChannels,
+      final AcquisitionProgressListener aListener )
+  {
+    if ( ( aChannels <= 0 ) || ( aChannels > Ols.MAX_CHANNELS ) )
+    {
+      throw new IllegalArgumentException( "Invalid number of channels: " + aChannels );
+    }
+
+    final int channelMask = ( aChannels == Ols.MAX_CHANNELS ) ? -1 : ( ( 1 << aChannels ) - 1 );
+
+    final CaptureBuilder builder = new CaptureBuilder();
+    generate( aLength, new TransitionSink()
+    {
+      private int lastPercentage = -1;
+
+      @Override
+      public void transition( final long aTime, final int aValue )
+      {
+        builder.transition( aTime, aValue & channelMask );
+
+        if ( aListener != null )
+        {
+          final int percentage = ( int )( ( aTime * 100.0 ) / aLength );
+          if ( percentage != this.lastPercentage )
+          {
+            aListener.acquisitionInProgress( percentage );
+            this.lastPercentage = percentage;
+          }
+        }
+      }
+    } );
+
+    return builder.createCapture( Ols.NOT_AVAILABLE, aRate, aChannels, channelMask, aLength );
+  }
+
+  /**
+   * Generates the transitions of all added sources until the given length is
+   * reached.
+   * <p>
+   * The sink is always called for time zero, and afterwards only when the
+   * combined value of all sources changes.
+   * </p>
+   * 
+   * @param aLength
+   *          the length to generate, in ticks, > 0;
+   * @param aSink
+   *          the sink to emit the transitions to, cannot be <code>null</code>.
+   */
+  public void generate( final long aLength, final TransitionSink aSink )
+  {
+    if ( aLength <= 0L )
+    {
+      throw new IllegalArgumentException( "Length should be positive!" );
+    }
+
+    final SignalSource[] srcs = this.sources.toArray( new SignalSource[this.sources.size()] );
+
+    int value = combine( srcs );
+    aSink.transition( 0L, value );
+
+    while ( true )
+    {
+      long time = Long.MAX_VALUE;
+      for ( SignalSource src : srcs )
+      {
+        time = Math.min( time, src.getNextTransition() );
+      }
+
+      if ( time >= aLength )
+      {
+        break;
+      }
+
+      for ( SignalSource src : srcs )
+      {
+        // Also catch up with zero-length steps of other sources...
+        while ( src.getNextTransition() <= time )
+        {
+          src.advance();
+        }
+      }
+
+      final int newValue = combine( srcs );
+      if ( newValue != value )
+      {
+        aSink.transition( time, newValue );
+        value = newValue;
+      }
+    }
+  }
+
+  /**
+   * Combines the current values of all given sources.
+   */
+  private static int combine( final SignalSource[] aSources )
+  {
+    int result = 0;
+    for ( SignalSource src : aSources )
+    {
+      result |= src.getValue();
+    }
+    return result;
+  }
+}
+
+/* EOF */
@@ -0,0 +1,57 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test.generator;
+
+
+/**
+ * Provides a source of signal transitions for one or more channels.
+ * <p>
+ * A signal source is a cursor over a sequence of transitions, ordered by time.
+ * Its value is always the bit mask of the channels it drives, already shifted
+ * to their channel positions.
+ * </p>
+ */
+public interface SignalSource
+{
+  // METHODS
+
+  /**
+   * Advances this source to its next transition.
+   */
+  void advance();
+
+  /**
+   * Returns the time (in ticks) of the next transition of this source.
+   * 
+   * @return the time of the next transition, or {@link Long#MAX_VALUE} if this
+   *         source will no longer change.
+   */
+  long getNextTransition();
+
+  /**
+   * Returns the current value of this source.
+   * 
+   * @return the current value, as bit mask of the channels this source drives.
+   */
+  int getValue();
+}
+
+/* EOF */
@@ -0,0 +1,105 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test.generator;
+
+
+/**
+ * Provides a SPI signal source, sending its data repeatedly in mode 0, most
+ * significant bit first.
+ */
+public final class SpiSource extends AbstractSignalSource
+{
+  // VARIABLES
+
+  private final int sck;
+  private final int mosi;
+  private final int cs;
+  private final long halfPeriod;
+  private final byte[] data;
+  private final long gap;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SpiSource instance.
+   * 
+   * @param aSckChannel
+   *          the channel of the serial clock;
+   * @param aMosiChannel
+   *          the channel of the master-out/slave-in data;
+   * @param aCsChannel
+   *          the channel of the (active low) chip select;
+   * @param aHalfPeriod
+   *          the half period of the serial clock, in ticks, > 0;
+   * @param aData
+   *          the data to send, cannot be <code>null</code> or empty;
+   * @param aGap
+   *          the idle time between two transfers, in ticks.
+   */
+  public SpiSource( final int aSckChannel, final int aMosiChannel, final int aCsChannel, final long aHalfPeriod,
+      final byte[] aData, final long aGap )
+  {
+    super( mask( aCsChannel ) );
+
+    if ( aHalfPeriod <= 0L )
+    {
+      throw new IllegalArgumentException( "Half period should be positive!" );
+    }
+    if ( ( aData == null ) || ( aData.length == 0 ) )
+    {
+      throw new IllegalArgumentException( "Data cannot be null or empty!" );
+    }
+
+    this.sck = mask( aSckChannel );
+    this.mosi = mask( aMosiChannel );
+    this.cs = mask( aCsChannel );
+    this.halfPeriod = aHalfPeriod;
+    this.data = aData.clone();
+    this.gap = aGap;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean generate()
+  {
+    for ( byte b : this.data )
+    {
+      for ( int bit = 7; bit >= 0; bit-- )
+      {
+        final int value = ( ( b & ( 1 << bit ) ) != 0 ) ? this.mosi : 0;
+        // Data changes while the clock is low, and is sampled on its rising
+        // edge...
+        hold( value, this.halfPeriod );
+        hold( value | this.sck, this.halfPeriod );
+      }
+    }
+    hold( 0, this.halfPeriod );
+
+    hold( this.cs, this.gap );
+    return true;
+  }
+}
+
+/* EOF */
@@ -0,0 +1,102 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test.generator;
+
+
+/**
+ * Provides an UART signal source, sending its data repeatedly as 8N1 frames,
+ * least significant bit first.
+ */
+public final class UartSource extends AbstractSignalSource
+{
+  // VARIABLES
+
+  private final int txd;
+  private final long ticksPerBit;
+  private final byte[] data;
+  private final long gap;
+
+  private int idx;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new UartSource instance.
+   * 
+   * @param aChannel
+   *          the channel to send the data on;
+   * @param aTicksPerBit
+   *          the duration of a single bit, in ticks, > 0;
+   * @param aData
+   *          the data to send, cannot be <code>null</code> or empty;
+   * @param aGap
+   *          the idle time between two repetitions of the data, in ticks.
+   */
+  public UartSource( final int aChannel, final long aTicksPerBit, final byte[] aData, final long aGap )
+  {
+    super( mask( aChannel ) );
+
+    if ( aTicksPerBit <= 0L )
+    {
+      throw new IllegalArgumentException( "Ticks per bit should be positive!" );
+    }
+    if ( ( aData == null ) || ( aData.length == 0 ) )
+    {
+      throw new IllegalArgumentException( "Data cannot be null or empty!" );
+    }
+
+    this.txd = mask( aChannel );
+    this.ticksPerBit = aTicksPerBit;
+    this.data = aData.clone();
+    this.gap = aGap;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean generate()
+  {
+    // Start bit...
+    hold( 0, this.ticksPerBit );
+
+    int value = this.data[this.idx];
+    for ( int bit = 0; bit < 8; bit++ )
+    {
+      hold( ( ( value & 0x01 ) != 0 ) ? this.txd : 0, this.ticksPerBit );
+      value >>= 1;
+    }
+
+    // Stop bit...
+    hold( this.txd, this.ticksPerBit );
+
+    if ( ++this.idx == this.data.length )
+    {
+      this.idx = 0;
+      hold( this.txd, this.gap );
+    }
+    return true;
+  }
+}
+
+/* EOF */
@@ -0,0 +1,215 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test.generator;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link SignalGenerator} and its signal sources.
+ */
+public class SignalGeneratorTest
+{
+  // INNER TYPES
+
+  /**
+   * Records all transitions it receives.
+   */
+  static final class RecordingSink implements TransitionSink
+  {
+    final List<long[]> transitions = new ArrayList<long[]>();
+
+    @Override
+    public void transition( final long aTime, final int aValue )
+    {
+      this.transitions.add( new long[] { aTime, aValue } );
+    }
+
+    /**
+     * Returns the value at the given time.
+     */
+    int valueAt( final long aTime )
+    {
+      int result = 0;
+      for ( long[] transition : this.transitions )
+      {
+        if ( transition[0] > aTime )
+        {
+          break;
+        }
+        result = ( int )transition[1];
+      }
+      return result;
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Tests that the transitions of multiple sources are merged, and only
+   * emitted when the combined value changes.
+   */
+  @Test
+  public void testCombinesSources()
+  {
+    final RecordingSink sink = new RecordingSink();
+
+    final SignalGenerator generator = new SignalGenerator();
+    generator.add( new PwmSource( 0, 10L, 5L ) );
+    generator.add( new PwmSource( 1, 20L, 10L ) );
+    generator.add( new PwmSource( 2, 10L, 10L ) ); // always high
+    generator.generate( 40L, sink );
+
+    long lastTime = -1L;
+    int lastValue = -1;
+    for ( long[] transition : sink.transitions )
+    {
+      assertTrue( transition[0] > lastTime );
+      assertTrue( transition[1] != lastValue );
+      lastTime = transition[0];
+      lastValue = ( int )transition[1];
+    }
+
+    assertEquals( 0L, sink.transitions.get( 0 )[0] );
+    assertEquals( 0x07, sink.valueAt( 0L ) );
+    assertEquals( 0x06, sink.valueAt( 5L ) );
+    assertEquals( 0x05, sink.valueAt( 10L ) );
+    assertEquals( 0x04, sink.valueAt( 15L ) );
+    assertEquals( 0x07, sink.valueAt( 20L ) );
+  }
+
+  /**
+   * Tests that very long captures only cost as much as their transitions.
+   */
+  @Test
+  public void testCreateLongCapture()
+  {
+    final long length = 1000000000L;
+
+    final SignalGenerator generator = new SignalGenerator();
+    generator.add( new UartSource( 0, 868L, "Hello World!".getBytes(), 100000L ) );
+    generator.add( new GlitchSource( 1, 1000000L, 5, 42L ) );
+
+    final CapturedData data = generator.createCapture( length, 100000000, 8, null /* aListener */);
+
+    assertEquals( length, data.getAbsoluteLength() );
+    assertTrue( data.getValues().length < 2000000 );
+    assertEquals( data.getValues().length, data.getTimestamps().length );
+    assertTrue( data.getTimestamps()[data.getTimestamps().length - 1] < length );
+  }
+
+  /**
+   * Tests that the I2C source clocks nine bits per byte.
+   */
+  @Test
+  public void testI2CClocksNineBitsPerByte()
+  {
+    final RecordingSink sink = new RecordingSink();
+
+    final SignalGenerator generator = new SignalGenerator();
+    generator.add( new I2CSource( 0, 1, 10L, 0x2a, new byte[] { 1, 2, 3 }, 1000000L ) );
+    generator.generate( 1000000L, sink );
+
+    int risingEdges = 0;
+    int lastValue = sink.valueAt( 0L );
+    for ( long[] transition : sink.transitions )
+    {
+      if ( ( ( lastValue & 0x01 ) == 0 ) && ( ( transition[1] & 0x01 ) != 0 ) )
+      {
+        risingEdges++;
+      }
+      lastValue = ( int )transition[1];
+    }
+
+    // Four bytes (address + data), plus the rising edge of the STOP
+    // condition...
+    assertEquals( ( 4 * 9 ) + 1, risingEdges );
+  }
+
+  /**
+   * Tests that the I2C source starts with an idle bus, and never changes SDA
+   * along with an edge of SCL.
+   */
+  @Test
+  public void testI2CStartsIdleAndSeparatesEdges()
+  {
+    final RecordingSink sink = new RecordingSink();
+
+    final SignalGenerator generator = new SignalGenerator();
+    generator.add( new I2CSource( 0, 1, 10L, 0x2a, new byte[] { ( byte )0xa5 }, 1000000L ) );
+    generator.generate( 1000000L, sink );
+
+    // Both SCL and SDA are high before the first START condition...
+    int lastValue = sink.valueAt( 0L );
+    assertEquals( 0x03, lastValue );
+
+    for ( long[] transition : sink.transitions )
+    {
+      final int changed = lastValue ^ ( int )transition[1];
+      assertTrue( "SCL and SDA changed at " + transition[0], changed != 0x03 );
+      lastValue = ( int )transition[1];
+    }
+    // The first SDA change is the START condition, while SCL is high...
+    assertEquals( 0x01, sink.transitions.get( 1 )[1] );
+  }
+
+  /**
+   * Tests that the UART source sends its data as 8N1 frames.
+   */
+  @Test
+  public void testUartFrames()
+  {
+    final byte[] message = "OLS".getBytes();
+    final long bitTime = 100L;
+
+    final RecordingSink sink = new RecordingSink();
+
+    final SignalGenerator generator = new SignalGenerator();
+    generator.add( new UartSource( 3, bitTime, message, 1000L ) );
+    generator.generate( 10000L, sink );
+
+    for ( int i = 0; i < message.length; i++ )
+    {
+      final long frameStart = i * 10 * bitTime;
+      // Sample in the middle of each bit...
+      assertEquals( "start bit", 0, sink.valueAt( frameStart + ( bitTime / 2 ) ) );
+
+      int value = 0;
+      for ( int bit = 0; bit < 8; bit++ )
+      {
+        if ( sink.valueAt( frameStart + ( ( bit + 1 ) * bitTime ) + ( bitTime / 2 ) ) != 0 )
+        {
+          value |= 1 << bit;
+        }
+      }
+      assertEquals( message[i], ( byte )value );
+
+      assertEquals( "stop bit", 0x08, sink.valueAt( frameStart + ( 9 * bitTime ) + ( bitTime / 2 ) ) );
+    }
+  }
+}
@@ -0,0 +1,330 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.sigrok;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.regex.*;
+
+import nl.lxtreme.ols.api.*;
+
+
+/**
+ * Represents the "metadata" entry of a sigrok session archive, which is a
+ * simple INI-style file describing the (single) logic device of the session.
+ */
+final class SigrokMetadata
+{
+  // CONSTANTS
+
+  static final String DEFAULT_CAPTURE_FILE = "logic-1";
+
+  private static final String DEVICE_SECTION = "device 1";
+  private static final Pattern RATE_PATTERN = Pattern.compile( "(\\d+(?:\\.\\d+)?)\\s*([kKmMgG]?)\\s*(?:[hH][zZ])?" );
+  private static final Pattern PROBE_PATTERN = Pattern.compile( "probe\\s*(\\d+)" );
+
+  // VARIABLES
+
+  private final String captureFile;
+  private final int sampleRate;
+  private final int unitSize;
+  private final String[] probeNames;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SigrokMetadata instance.
+   * 
+   * @param aCaptureFile
+   *          the base name of the logic data entries, cannot be
+   *          <code>null</code>;
+   * @param aSampleRate
+   *          the sample rate, in Hertz, or {@link Ols#NOT_AVAILABLE};
+   * @param aUnitSize
+   *          the number of bytes per sample, > 0 && <= 4;
+   * @param aProbeNames
+   *          the names of all probes, cannot be <code>null</code>.
+   */
+  SigrokMetadata( final String aCaptureFile, final int aSampleRate, final int aUnitSize, final String[] aProbeNames )
+  {
+    this.captureFile = aCaptureFile;
+    this.sampleRate = aSampleRate;
+    this.unitSize = aUnitSize;
+    this.probeNames = aProbeNames;
+  }
+
+  // METHODS
+
+  /**
+   * Formats the given sample rate the way sigrok does.
+   * 
+   * @param aRate
+   *          the sample rate to format, in Hertz, > 0.
+   * @return a sample rate string, such as "1 MHz", never <code>null</code>.
+   */
+  static String formatSampleRate( final int aRate )
+  {
+    if ( ( aRate >= 1000000000 ) && ( ( aRate % 1000000000 ) == 0 ) )
+    {
+      return ( aRate / 1000000000 ) + " GHz";
+    }
+    if ( ( aRate >= 1000000 ) && ( ( aRate % 1000000 ) == 0 ) )
+    {
+      return ( aRate / 1000000 ) + " MHz";
+    }
+    if ( ( aRate >= 1000 ) && ( ( aRate % 1000 ) == 0 ) )
+    {
+      return ( aRate / 1000 ) + " kHz";
+    }
+    return aRate + " Hz";
+  }
+
+  /**
+   * Parses a sample rate string as written by sigrok, such as "200 kHz".
+   * 
+   * @param aValue
+   *          the value to parse, cannot be <code>null</code>.
+   * @return the sample rate, in Hertz.
+   * @throws IOException
+   *           in case the given value is not a valid sample rate.
+   */
+  static int parseSampleRate( final String aValue ) throws IOException
+  {
+    final Matcher matcher = RATE_PATTERN.matcher( aValue.trim() );
+    if ( !matcher.matches() )
+    {
+      throw new IOException( "Invalid sample rate: " + aValue );
+    }
+
+    double rate = Double.parseDouble( matcher.group( 1 ) );
+    final String suffix = matcher.group( 2 ).toLowerCase();
+    if ( "k".equals( suffix ) )
+    {
+      rate *= 1.0e3;
+    }
+    else if ( "m".equals( suffix ) )
+    {
+      rate *= 1.0e6;
+    }
+    else if ( "g".equals( suffix ) )
+    {
+      rate *= 1.0e9;
+    }
+
+    if ( ( rate < 1.0 ) || ( rate > Integer.MAX_VALUE ) )
+    {
+      throw new IOException( "Unsupported sample rate: " + aValue );
+    }
+    return ( int )Math.round( rate );
+  }
+
+  /**
+   * Reads the metadata of a sigrok session from the given reader.
+   * 
+   * @param aReader
+   *          the reader to read the metadata from, cannot be <code>null</code>.
+   * @return the read metadata, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or in case the metadata does not
+   *           describe a logic capture OLS can handle.
+   */
+  static SigrokMetadata read( final BufferedReader aReader ) throws IOException
+  {
+    String section = null;
+    String captureFile = null;
+    int sampleRate = Ols.NOT_AVAILABLE;
+    int totalProbes = -1;
+    int unitSize = -1;
+    final Map<Integer, String> probes = new HashMap<Integer, String>();
+
+    String line;
+    while ( ( line = aReader.readLine() ) != null )
+    {
+      line = line.trim();
+      if ( line.isEmpty() || line.startsWith( "#" ) || line.startsWith( ";" ) )
+      {
+        continue;
+      }
+      if ( line.startsWith( "[" ) && line.endsWith( "]" ) )
+      {
+        section = line.substring( 1, line.length() - 1 ).trim();
+        continue;
+      }
+
+      final int eqIdx = line.indexOf( '=' );
+      if ( ( eqIdx < 0 ) || !DEVICE_SECTION.equals( section ) )
+      {
+        continue;
+      }
+
+      final String key = line.substring( 0, eqIdx ).trim();
+      final String value = line.substring( eqIdx + 1 ).trim();
+
+      final Matcher probeMatcher = PROBE_PATTERN.matcher( key );
+      if ( "capturefile".equals( key ) )
+      {
+        captureFile = value;
+      }
+      else if ( "samplerate".equals( key ) )
+      {
+        sampleRate = parseSampleRate( value );
+      }
+      else if ( "total probes".equals( key ) )
+      {
+        totalProbes = parseInt( key, value );
+      }
+      else if ( "unitsize".equals( key ) )
+      {
+        unitSize = parseInt( key, value );
+      }
+      else if ( probeMatcher.matches() )
+      {
+        probes.put( Integer.valueOf( parseInt( key, probeMatcher.group( 1 ) ) ), value );
+      }
+    }
+
+    if ( captureFile == null )
+    {
+      throw new IOException( "Session does not contain any logic data!" );
+    }
+    if ( totalProbes < 0 )
+    {
+      totalProbes = probes.isEmpty() ? 8 * Math.max( 1, unitSize ) : Collections.max( probes.keySet() ).intValue();
+    }
+    if ( ( totalProbes < 1 ) || ( totalProbes > Ols.MAX_CHANNELS ) )
+    {
+      throw new IOException( "Unsupported number of probes: " + totalProbes + "! Should be between 1 and "
+          + Ols.MAX_CHANNELS );
+    }
+    if ( unitSize < 0 )
+    {
+      // Older sessions do not mention the unit size...
+      unitSize = ( totalProbes + 7 ) / 8;
+    }
+    if ( ( unitSize < 1 ) || ( unitSize > 4 ) || ( ( unitSize * 8 ) < totalProbes ) )
+    {
+      throw new IOException( "Unsupported unit size: " + unitSize );
+    }
+
+    // Probes are numbered from one onwards...
+    final String[] probeNames = new String[totalProbes];
+    for ( int i = 0; i < totalProbes; i++ )
+    {
+      probeNames[i] = probes.get( Integer.valueOf( i + 1 ) );
+    }
+
+    return new SigrokMetadata( captureFile, sampleRate, unitSize, probeNames );
+  }
+
+  /**
+   * Parses the given value as integer.
+   */
+  private static int parseInt( final String aKey, final String aValue ) throws IOException
+  {
+    try
+    {
+      return Integer.parseInt( aValue.trim() );
+    }
+    catch ( NumberFormatException exception )
+    {
+      throw new IOException( "Invalid value for " + aKey + ": " + aValue );
+    }
+  }
+
+  /**
+   * Returns the base name of the logic data entries.
+   * 
+   * @return a capture file name, never <code>null</code>.
+   */
+  public String getCaptureFile()
+  {
+    return this.captureFile;
+  }
+
+  /**
+   * Returns the number of probes.
+   * 
+   * @return a probe count, > 0 && <= {@value Ols#MAX_CHANNELS}.
+   */
+  public int getProbeCount()
+  {
+    return this.probeNames.length;
+  }
+
+  /**
+   * Returns the name of the probe with the given index.
+   * 
+   * @param aIndex
+   *          the (zero-based) index of the probe.
+   * @return the probe name, can be <code>null</code>.
+   */
+  public String getProbeName( final int aIndex )
+  {
+    return this.probeNames[aIndex];
+  }
+
+  /**
+   * Returns the sample rate.
+   * 
+   * @return a sample rate, in Hertz, or {@link Ols#NOT_AVAILABLE}.
+   */
+  public int getSampleRate()
+  {
+    return this.sampleRate;
+  }
+
+  /**
+   * Returns the number of bytes used for each sample.
+   * 
+   * @return a unit size, > 0 && <= 4.
+   */
+  public int getUnitSize()
+  {
+    return this.unitSize;
+  }
+
+  /**
+   * Writes this metadata to the given writer.
+   * 
+   * @param aWriter
+   *          the writer to write to, cannot be <code>null</code>.
+   */
+  public void write( final PrintWriter aWriter )
+  {
+    aWriter.print( "[global]\n" );
+    aWriter.print( "sigrok version=0.2.0\n" );
+    aWriter.print( "\n" );
+    aWriter.print( "[" + DEVICE_SECTION + "]\n" );
+    aWriter.print( "capturefile=" + this.captureFile + "\n" );
+    aWriter.print( "total probes=" + this.probeNames.length + "\n" );
+    if ( this.sampleRate > 0 )
+    {
+      aWriter.print( "samplerate=" + formatSampleRate( this.sampleRate ) + "\n" );
+    }
+    for ( int i = 0; i < this.probeNames.length; i++ )
+    {
+      aWriter.print( "probe" + ( i + 1 ) + "=" + this.probeNames[i] + "\n" );
+    }
+    aWriter.print( "unitsize=" + this.unitSize + "\n" );
+    aWriter.flush();
+  }
+}
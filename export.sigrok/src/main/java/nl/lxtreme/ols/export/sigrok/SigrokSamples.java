@@ -0,0 +1,271 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.sigrok;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+
+/**
+ * Converts between the per-sample packed format used in the logic data entries
+ * of a sigrok session, and the transition-compressed form used by OLS.
+ * <p>
+ * In sigrok's format, each sample takes "unit size" bytes in little-endian
+ * order, in which the least significant bit represents the first probe.
+ * </p>
+ */
+final class SigrokSamples
+{
+  // INNER TYPES
+
+  /**
+   * Provides the transitions found in a single chunk of samples.
+   */
+  static final class Chunk
+  {
+    // VARIABLES
+
+    final int[] values;
+    /** the sample offsets of the transitions, relative to the chunk start. */
+    final int[] offsets;
+    final int count;
+    final int samples;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Chunk instance.
+     */
+    Chunk( final int[] aValues, final int[] aOffsets, final int aCount, final int aSamples )
+    {
+      this.values = aValues;
+      this.offsets = aOffsets;
+      this.count = aCount;
+      this.samples = aSamples;
+    }
+  }
+
+  // CONSTANTS
+
+  /** the size of a single logic data entry, in bytes, as used by sigrok. */
+  static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SigrokSamples instance, never used.
+   */
+  private SigrokSamples()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Waits for the given chunk conversion to complete.
+   * 
+   * @param aFuture
+   *          the future to wait for, cannot be <code>null</code>.
+   * @return the result of the conversion.
+   * @throws IOException
+   *           in case the conversion failed, or the waiting was interrupted.
+   */
+  static <T> T await( final Future<T> aFuture ) throws IOException
+  {
+    try
+    {
+      return aFuture.get();
+    }
+    catch ( InterruptedException exception )
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while converting sigrok samples!" );
+    }
+    catch ( ExecutionException exception )
+    {
+      final Throwable cause = exception.getCause();
+      if ( cause instanceof RuntimeException )
+      {
+        throw ( RuntimeException )cause;
+      }
+      throw new IOException( "Failed to convert sigrok samples: " + cause );
+    }
+  }
+
+  /**
+   * Compresses a chunk of packed samples into transitions.
+   * 
+   * @param aData
+   *          the packed samples;
+   * @param aLength
+   *          the number of valid bytes in the given data;
+   * @param aUnitSize
+   *          the number of bytes per sample, > 0 && <= 4;
+   * @param aMask
+   *          the mask of the probes to retain.
+   * @return the transitions of the given chunk, the first sample of the chunk
+   *         is always regarded as transition.
+   */
+  static Chunk compress( final byte[] aData, final int aLength, final int aUnitSize, final int aMask )
+  {
+    final int samples = aLength / aUnitSize;
+
+    int[] values = new int[16];
+    int[] offsets = new int[16];
+    int count = 0;
+
+    int last = 0;
+    for ( int s = 0, i = 0; s < samples; s++, i += aUnitSize )
+    {
+      int value;
+      switch ( aUnitSize )
+      {
+        case 1:
+          value = aData[i] & 0xFF;
+          break;
+        case 2:
+          value = ( aData[i] & 0xFF ) | ( ( aData[i + 1] & 0xFF ) << 8 );
+          break;
+        case 3:
+          value = ( aData[i] & 0xFF ) | ( ( aData[i + 1] & 0xFF ) << 8 ) | ( ( aData[i + 2] & 0xFF ) << 16 );
+          break;
+        default:
+          value = ( aData[i] & 0xFF ) | ( ( aData[i + 1] & 0xFF ) << 8 ) | ( ( aData[i + 2] & 0xFF ) << 16 )
+              | ( ( aData[i + 3] & 0xFF ) << 24 );
+          break;
+      }
+      value &= aMask;
+
+      if ( ( s == 0 ) || ( value != last ) )
+      {
+        if ( count == values.length )
+        {
+          values = Arrays.copyOf( values, count * 2 );
+          offsets = Arrays.copyOf( offsets, count * 2 );
+        }
+        values[count] = value;
+        offsets[count] = s;
+        count++;
+        last = value;
+      }
+    }
+
+    return new Chunk( values, offsets, count, samples );
+  }
+
+  /**
+   * Creates an executor for converting chunks in parallel.
+   * 
+   * @param aParallelism
+   *          the number of threads to use, > 0;
+   * @param aName
+   *          the name of the threads, cannot be <code>null</code>.
+   * @return a new executor using daemon threads, never <code>null</code>.
+   */
+  static ExecutorService newExecutor( final int aParallelism, final String aName )
+  {
+    return Executors.newFixedThreadPool( aParallelism, new ThreadFactory()
+    {
+      @Override
+      public Thread newThread( final Runnable aRunnable )
+      {
+        final Thread thread = new Thread( aRunnable, aName );
+        thread.setDaemon( true );
+        return thread;
+      }
+    } );
+  }
+
+  /**
+   * Returns the index of the transition that is in effect at the given sample.
+   * 
+   * @param aTimestamps
+   *          the (sorted) transition timestamps;
+   * @param aSample
+   *          the sample to search for.
+   * @return a transition index, >= 0.
+   */
+  static int findTransition( final long[] aTimestamps, final long aSample )
+  {
+    final int idx = Arrays.binarySearch( aTimestamps, aSample );
+    if ( idx >= 0 )
+    {
+      return idx;
+    }
+    // Samples before the first transition take its value...
+    return Math.max( 0, -idx - 2 );
+  }
+
+  /**
+   * Expands the given transitions into a chunk of packed samples.
+   * 
+   * @param aValues
+   *          the transition values;
+   * @param aTimestamps
+   *          the transition timestamps, as absolute sample indexes;
+   * @param aStart
+   *          the first sample to pack;
+   * @param aSamples
+   *          the number of samples to pack;
+   * @param aUnitSize
+   *          the number of bytes per sample, > 0 && <= 4.
+   * @return the packed samples, never <code>null</code>.
+   */
+  static byte[] pack( final int[] aValues, final long[] aTimestamps, final long aStart, final int aSamples,
+      final int aUnitSize )
+  {
+    final byte[] result = new byte[aSamples * aUnitSize];
+    final long end = aStart + aSamples;
+
+    int idx = findTransition( aTimestamps, aStart );
+    long runStart = aStart;
+    while ( runStart < end )
+    {
+      final long runEnd = ( ( idx + 1 ) < aTimestamps.length ) ? Math.min( end, aTimestamps[idx + 1] ) : end;
+      final int value = aValues[idx];
+
+      final int from = ( int )( runStart - aStart ) * aUnitSize;
+      final int to = ( int )( runEnd - aStart ) * aUnitSize;
+      if ( aUnitSize == 1 )
+      {
+        Arrays.fill( result, from, to, ( byte )value );
+      }
+      else if ( value != 0 )
+      {
+        for ( int i = from; i < to; i += aUnitSize )
+        {
+          for ( int b = 0; b < aUnitSize; b++ )
+          {
+            result[i + b] = ( byte )( value >>> ( 8 * b ) );
+          }
+        }
+      }
+
+      runStart = runEnd;
+      idx++;
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.sigrok;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides an exporter for sigrok session archives (.sr files).
+ * <p>
+ * A session archive is a ZIP file containing a "version" entry, a "metadata"
+ * entry and the packed samples in a number of "logic-1-N" entries. The
+ * captured data is expanded into packed samples per entry; these entries are
+ * expanded in parallel while the expanded entries are written in order. At
+ * most twice the parallelism number of entries is kept in memory at any time.
+ * </p>
+ */
+public class SigrokSessionExporter implements Exporter
+{
+  // CONSTANTS
+
+  static final String VERSION_ENTRY = "version";
+  static final String METADATA_ENTRY = "metadata";
+  static final String SESSION_VERSION = "2";
+
+  // VARIABLES
+
+  private final int parallelism;
+  private final int chunkSize;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SigrokSessionExporter instance, expanding the samples on all
+   * available processors.
+   */
+  public SigrokSessionExporter()
+  {
+    this( Runtime.getRuntime().availableProcessors(), SigrokSamples.CHUNK_SIZE );
+  }
+
+  /**
+   * Creates a new SigrokSessionExporter instance.
+   * 
+   * @param aParallelism
+   *          the maximum number of entries to expand concurrently;
+   * @param aChunkSize
+   *          the maximum size of a single logic data entry, in bytes.
+   */
+  SigrokSessionExporter( final int aParallelism, final int aChunkSize )
+  {
+    this.parallelism = Math.max( 1, aParallelism );
+    this.chunkSize = aChunkSize;
+  }
+
+  // METHODS
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Exporter#export(nl.lxtreme.ols.api.data.DataContainer,
+   *      javax.swing.JComponent, java.io.OutputStream)
+   */
+  @Override
+  public void export( final DataContainer aContainer, final JComponent aComponent, final OutputStream aStream )
+      throws IOException
+  {
+    final int channels = Math.min( aContainer.getChannels(), Ols.MAX_CHANNELS );
+    final int unitSize = Math.max( 1, ( channels + 7 ) / 8 );
+
+    final String[] probeNames = new String[channels];
+    for ( int i = 0; i < channels; i++ )
+    {
+      String label = aContainer.getChannelLabel( i );
+      if ( StringUtils.isEmpty( label ) )
+      {
+        label = Integer.toString( i );
+      }
+      probeNames[i] = label.replaceAll( "[\\r\\n]+", " " ).trim();
+    }
+
+    final SigrokMetadata metadata = new SigrokMetadata( SigrokMetadata.DEFAULT_CAPTURE_FILE,
+        aContainer.getSampleRate(), unitSize, probeNames );
+
+    final ZipOutputStream zos = new ZipOutputStream( aStream );
+    // Sample data compresses well, even at the fastest level...
+    zos.setLevel( Deflater.BEST_SPEED );
+
+    zos.putNextEntry( new ZipEntry( VERSION_ENTRY ) );
+    zos.write( SESSION_VERSION.getBytes( "US-ASCII" ) );
+    zos.closeEntry();
+
+    zos.putNextEntry( new ZipEntry( METADATA_ENTRY ) );
+    final PrintWriter writer = new PrintWriter( new OutputStreamWriter( zos, "UTF-8" ) );
+    metadata.write( writer );
+    zos.closeEntry();
+
+    writeLogicData( zos, aContainer.getValues(), aContainer.getTimestamps(), aContainer.getAbsoluteLength(),
+        unitSize, metadata.getCaptureFile() );
+
+    zos.finish();
+    zos.flush();
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Exporter#getFilenameExtentions()
+   */
+  @Override
+  public String[] getFilenameExtentions()
+  {
+    return new String[] { "sr" };
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Exporter#getName()
+   */
+  @Override
+  public String getName()
+  {
+    return "sigrok Session";
+  }
+
+  /**
+   * Writes the given transitions as packed samples in one or more logic data
+   * entries.
+   */
+  private void writeLogicData( final ZipOutputStream aStream, final int[] aValues, final long[] aTimestamps,
+      final long aAbsoluteLength, final int aUnitSize, final String aCaptureFile ) throws IOException
+  {
+    if ( ( aValues == null ) || ( aValues.length == 0 ) || ( aAbsoluteLength <= 0L ) )
+    {
+      return;
+    }
+
+    final int samplesPerChunk = Math.max( 1, this.chunkSize / aUnitSize );
+    final long chunkCount = ( aAbsoluteLength + samplesPerChunk - 1 ) / samplesPerChunk;
+
+    final Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+    ExecutorService executor = null;
+
+    try
+    {
+      int entryNr = 1;
+      for ( long c = 0; c < chunkCount; c++ )
+      {
+        final long start = c * samplesPerChunk;
+        final int samples = ( int )Math.min( samplesPerChunk, aAbsoluteLength - start );
+
+        if ( this.parallelism == 1 )
+        {
+          writeEntry( aStream, aCaptureFile, entryNr++, SigrokSamples.pack( aValues, aTimestamps, start, samples,
+              aUnitSize ) );
+          continue;
+        }
+
+        if ( executor == null )
+        {
+          executor = SigrokSamples.newExecutor( this.parallelism, "sigrok exporter" );
+        }
+
+        pending.addLast( executor.submit( new Callable<byte[]>()
+        {
+          @Override
+          public byte[] call() throws Exception
+          {
+            return SigrokSamples.pack( aValues, aTimestamps, start, samples, aUnitSize );
+          }
+        } ) );
+
+        // Bound the number of entries in memory...
+        while ( pending.size() > ( 2 * this.parallelism ) )
+        {
+          writeEntry( aStream, aCaptureFile, entryNr++, SigrokSamples.await( pending.removeFirst() ) );
+        }
+      }
+
+      while ( !pending.isEmpty() )
+      {
+        writeEntry( aStream, aCaptureFile, entryNr++, SigrokSamples.await( pending.removeFirst() ) );
+      }
+    }
+    finally
+    {
+      if ( executor != null )
+      {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Writes a single logic data entry.
+   */
+  private void writeEntry( final ZipOutputStream aStream, final String aCaptureFile, final int aEntryNr,
+      final byte[] aData ) throws IOException
+  {
+    aStream.putNextEntry( new ZipEntry( aCaptureFile + "-" + aEntryNr ) );
+    aStream.write( aData );
+    aStream.closeEntry();
+  }
+}
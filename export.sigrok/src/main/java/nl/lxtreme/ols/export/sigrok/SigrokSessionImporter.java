@@ -0,0 +1,336 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.sigrok;
+
+
+import java.awt.*;
+import java.io.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.data.project.*;
+
+
+/**
+ * Provides an importer for sigrok session archives (.sr files).
+ * <p>
+ * The archive is read as stream; each logic data entry is inflated on the
+ * calling thread, while the packed samples of the entries are compressed into
+ * transitions in parallel. At most twice the parallelism number of inflated
+ * entries is kept in memory at any time. Once all entries are read, the
+ * transitions of all entries are merged into a single {@link CapturedData}.
+ * </p>
+ */
+public class SigrokSessionImporter implements Importer
+{
+  // CONSTANTS
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  // VARIABLES
+
+  private final int parallelism;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SigrokSessionImporter instance, compressing the samples on
+   * all available processors.
+   */
+  public SigrokSessionImporter()
+  {
+    this( Runtime.getRuntime().availableProcessors() );
+  }
+
+  /**
+   * Creates a new SigrokSessionImporter instance.
+   * 
+   * @param aParallelism
+   *          the maximum number of entries to compress concurrently.
+   */
+  SigrokSessionImporter( final int aParallelism )
+  {
+    this.parallelism = Math.max( 1, aParallelism );
+  }
+
+  // METHODS
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#getFilenameExtentions()
+   */
+  @Override
+  public String[] getFilenameExtentions()
+  {
+    return new String[] { "sr" };
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#getName()
+   */
+  @Override
+  public String getName()
+  {
+    return "sigrok Session";
+  }
+
+  /**
+   * Reads a sigrok session archive from the given stream, and sets it as
+   * captured data of the given project. The probe names of the session are
+   * used as channel labels.
+   * 
+   * @see nl.lxtreme.ols.api.data.export.Importer#importData(nl.lxtreme.ols.api.data.project.Project,
+   *      java.io.InputStream)
+   */
+  @Override
+  public void importData( final Project aProject, final InputStream aStream ) throws IOException
+  {
+    final ZipInputStream zis = new ZipInputStream( new BufferedInputStream( aStream, BUFFER_SIZE ) );
+
+    final SortedMap<Integer, Future<SigrokSamples.Chunk>> chunks = new TreeMap<Integer, Future<SigrokSamples.Chunk>>();
+    final Deque<Future<SigrokSamples.Chunk>> pending = new ArrayDeque<Future<SigrokSamples.Chunk>>();
+    // Logic data entries that precede the metadata entry...
+    final SortedMap<Integer, byte[]> deferred = new TreeMap<Integer, byte[]>();
+
+    final ExecutorService executor = SigrokSamples.newExecutor( this.parallelism, "sigrok importer" );
+    try
+    {
+      SigrokMetadata metadata = null;
+      boolean versionSeen = false;
+
+      ZipEntry entry;
+      while ( ( entry = zis.getNextEntry() ) != null )
+      {
+        final String name = entry.getName();
+        if ( SigrokSessionExporter.VERSION_ENTRY.equals( name ) )
+        {
+          final String version = new String( readEntry( zis ), "US-ASCII" ).trim();
+          if ( !"1".equals( version ) && !SigrokSessionExporter.SESSION_VERSION.equals( version ) )
+          {
+            throw new IOException( "Unsupported sigrok session version: " + version );
+          }
+          versionSeen = true;
+        }
+        else if ( SigrokSessionExporter.METADATA_ENTRY.equals( name ) )
+        {
+          metadata = SigrokMetadata.read( new BufferedReader( new InputStreamReader( new ByteArrayInputStream(
+              readEntry( zis ) ), "UTF-8" ) ) );
+
+          for ( Map.Entry<Integer, byte[]> deferredEntry : deferred.entrySet() )
+          {
+            submit( executor, chunks, pending, deferredEntry.getKey(), deferredEntry.getValue(), metadata );
+          }
+          deferred.clear();
+        }
+        else
+        {
+          final String captureFile = ( metadata == null ) ? SigrokMetadata.DEFAULT_CAPTURE_FILE : metadata
+              .getCaptureFile();
+          final int entryNr = getEntryNumber( captureFile, name );
+          if ( entryNr < 0 )
+          {
+            // Not a logic data entry of our device...
+            continue;
+          }
+
+          if ( metadata == null )
+          {
+            deferred.put( Integer.valueOf( entryNr ), readEntry( zis ) );
+          }
+          else
+          {
+            submit( executor, chunks, pending, Integer.valueOf( entryNr ), readEntry( zis ), metadata );
+          }
+        }
+      }
+
+      if ( !versionSeen || ( metadata == null ) )
+      {
+        throw new IOException( "Not a valid sigrok session!" );
+      }
+
+      while ( !pending.isEmpty() )
+      {
+        SigrokSamples.await( pending.removeFirst() );
+      }
+
+      final List<SigrokSamples.Chunk> result = new ArrayList<SigrokSamples.Chunk>( chunks.size() );
+      for ( Future<SigrokSamples.Chunk> chunk : chunks.values() )
+      {
+        result.add( SigrokSamples.await( chunk ) );
+      }
+
+      final String[] labels = new String[metadata.getProbeCount()];
+      for ( int i = 0; i < labels.length; i++ )
+      {
+        labels[i] = metadata.getProbeName( i );
+      }
+
+      aProject.setCapturedData( merge( result, metadata ) );
+      aProject.setChannelLabels( labels );
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#setupImport(java.awt.Window)
+   */
+  @Override
+  public boolean setupImport( final Window aOwner )
+  {
+    // Sessions are self-describing...
+    return true;
+  }
+
+  /**
+   * Returns the sequence number of the logic data entry with the given name.
+   * 
+   * @return the entry number, or -1 if the given name does not denote a logic
+   *         data entry.
+   */
+  static int getEntryNumber( final String aCaptureFile, final String aName )
+  {
+    if ( aCaptureFile.equals( aName ) )
+    {
+      // Older sessions use a single entry...
+      return 0;
+    }
+    if ( !aName.startsWith( aCaptureFile + "-" ) )
+    {
+      return -1;
+    }
+    try
+    {
+      return Integer.parseInt( aName.substring( aCaptureFile.length() + 1 ) );
+    }
+    catch ( NumberFormatException exception )
+    {
+      return -1;
+    }
+  }
+
+  /**
+   * Merges the transitions of all chunks into a single captured data.
+   */
+  static AcquisitionResult merge( final List<SigrokSamples.Chunk> aChunks, final SigrokMetadata aMetadata )
+      throws IOException
+  {
+    int size = 0;
+    long absLength = 0L;
+    for ( SigrokSamples.Chunk chunk : aChunks )
+    {
+      size += chunk.count;
+      absLength += chunk.samples;
+    }
+
+    if ( absLength == 0L )
+    {
+      throw new IOException( "Session does not contain any samples!" );
+    }
+
+    final int[] values = new int[size];
+    final long[] timestamps = new long[size];
+
+    int n = 0;
+    long offset = 0L;
+    for ( SigrokSamples.Chunk chunk : aChunks )
+    {
+      for ( int i = 0; i < chunk.count; i++ )
+      {
+        // Each chunk starts with a transition, which is only a real transition
+        // if it differs from the last value of the previous chunk...
+        if ( ( i == 0 ) && ( n > 0 ) && ( values[n - 1] == chunk.values[0] ) )
+        {
+          continue;
+        }
+        values[n] = chunk.values[i];
+        timestamps[n] = offset + chunk.offsets[i];
+        n++;
+      }
+      offset += chunk.samples;
+    }
+
+    final int probes = aMetadata.getProbeCount();
+    final int enabledMask = ( int )( ( 1L << probes ) - 1L );
+
+    return new CapturedData( Arrays.copyOf( values, n ), Arrays.copyOf( timestamps, n ), Ols.NOT_AVAILABLE,
+        aMetadata.getSampleRate(), probes, enabledMask, absLength );
+  }
+
+  /**
+   * Reads the remainder of the current entry.
+   */
+  private static byte[] readEntry( final ZipInputStream aStream ) throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream( BUFFER_SIZE );
+    final byte[] buffer = new byte[BUFFER_SIZE];
+
+    int read;
+    while ( ( read = aStream.read( buffer ) ) > 0 )
+    {
+      baos.write( buffer, 0, read );
+    }
+    return baos.toByteArray();
+  }
+
+  /**
+   * Submits the compression of a logic data entry, and bounds the number of
+   * entries that are pending.
+   */
+  private void submit( final ExecutorService aExecutor, final Map<Integer, Future<SigrokSamples.Chunk>> aChunks,
+      final Deque<Future<SigrokSamples.Chunk>> aPending, final Integer aEntryNr, final byte[] aData,
+      final SigrokMetadata aMetadata ) throws IOException
+  {
+    if ( aChunks.containsKey( aEntryNr ) )
+    {
+      throw new IOException( "Duplicate logic data entry: " + aEntryNr );
+    }
+
+    final int unitSize = aMetadata.getUnitSize();
+    final int mask = ( int )( ( 1L << aMetadata.getProbeCount() ) - 1L );
+
+    final Future<SigrokSamples.Chunk> future = aExecutor.submit( new Callable<SigrokSamples.Chunk>()
+    {
+      @Override
+      public SigrokSamples.Chunk call() throws Exception
+      {
+        return SigrokSamples.compress( aData, aData.length, unitSize, mask );
+      }
+    } );
+
+    aChunks.put( aEntryNr, future );
+    aPending.addLast( future );
+
+    // Bound the number of inflated entries in memory...
+    while ( aPending.size() > ( 2 * this.parallelism ) )
+    {
+      SigrokSamples.await( aPending.removeFirst() );
+    }
+  }
+}
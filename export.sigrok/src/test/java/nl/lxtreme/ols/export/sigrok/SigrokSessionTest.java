@@ -0,0 +1,169 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.sigrok;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.zip.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.test.data.project.*;
+
+import org.junit.*;
+
+
+/**
+ * Provides test cases for {@link SigrokSessionExporter} and
+ * {@link SigrokSessionImporter}.
+ */
+public class SigrokSessionTest
+{
+  // METHODS
+
+  /**
+   * Creates a data container for the given project.
+   */
+  private static DataContainer createContainer( final Project aProject )
+  {
+    final StubTestProjectManager projectManager = new StubTestProjectManager();
+    projectManager.setCurrentProject( aProject );
+
+    return new DataContainer( projectManager );
+  }
+
+  /**
+   * Creates an empty project.
+   */
+  private static Project createProject()
+  {
+    final StubTestProject project = new StubTestProject();
+    project.setChannelLabels( new String[Ols.MAX_CHANNELS] );
+    return project;
+  }
+
+  /**
+   * Tests that a session written by sigrok is read correctly, and that
+   * transitions spanning multiple entries are merged.
+   */
+  @Test
+  public void testImportSigrokSession() throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final ZipOutputStream zos = new ZipOutputStream( baos );
+    writeEntry( zos, "version", "2".getBytes( "US-ASCII" ) );
+    writeEntry( zos, "metadata", ( "[global]\nsigrok version=0.2.0\n\n[device 1]\ncapturefile=logic-1\n"
+        + "total probes=3\nsamplerate=200 kHz\nprobe1=CLK\nprobe2=DATA\nprobe3=CS\nunitsize=1\n" )
+        .getBytes( "UTF-8" ) );
+    // Entries are not necessarily stored in order; the fourth bit is not a
+    // probe and should be ignored...
+    writeEntry( zos, "logic-1-2", new byte[] { 0x03, 0x03, 0x0B, 0x01 } );
+    writeEntry( zos, "logic-1-1", new byte[] { 0x00, 0x00, 0x01, 0x03 } );
+    zos.close();
+
+    final Project project = createProject();
+    new SigrokSessionImporter( 2 ).importData( project, new ByteArrayInputStream( baos.toByteArray() ) );
+
+    final DataContainer container = createContainer( project );
+
+    assertArrayEquals( new int[] { 0, 1, 3, 1 }, container.getValues() );
+    assertArrayEquals( new long[] { 0, 2, 3, 7 }, container.getTimestamps() );
+    assertEquals( 8L, container.getAbsoluteLength() );
+    assertEquals( 200000, container.getSampleRate() );
+    assertEquals( 3, container.getChannels() );
+    assertEquals( 0x07, container.getEnabledChannels() );
+    assertEquals( "CLK", container.getChannelLabel( 0 ) );
+    assertEquals( "CS", container.getChannelLabel( 2 ) );
+  }
+
+  /**
+   * Tests that a capture survives a round trip through a session archive that
+   * is split into many entries.
+   */
+  @Test
+  public void testRoundTripMultipleEntries() throws IOException
+  {
+    final int[] values = { 0x0001, 0x0802, 0x0803, 0x0FFF, 0x0000, 0x0400 };
+    final long[] timestamps = { 0L, 7L, 8L, 31L, 32L, 95L };
+
+    final DataContainer source = createContainer( createProject() );
+    source.setCapturedData( new CapturedData( values, timestamps, Ols.NOT_AVAILABLE, 1000000, 12, 0x0FFF, 100L ) );
+    source.setChannelLabel( 3, "MOSI" );
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    // Use 16 bytes, or 8 samples per entry...
+    new SigrokSessionExporter( 3, 16 ).export( source, null, baos );
+
+    int entries = 0;
+    final ZipInputStream zis = new ZipInputStream( new ByteArrayInputStream( baos.toByteArray() ) );
+    ZipEntry entry;
+    while ( ( entry = zis.getNextEntry() ) != null )
+    {
+      if ( entry.getName().startsWith( "logic-1-" ) )
+      {
+        entries++;
+      }
+    }
+    assertEquals( 13, entries );
+
+    final Project project = createProject();
+    new SigrokSessionImporter( 3 ).importData( project, new ByteArrayInputStream( baos.toByteArray() ) );
+
+    final DataContainer target = createContainer( project );
+
+    assertArrayEquals( values, target.getValues() );
+    assertArrayEquals( timestamps, target.getTimestamps() );
+    assertEquals( 100L, target.getAbsoluteLength() );
+    assertEquals( 1000000, target.getSampleRate() );
+    assertEquals( 12, target.getChannels() );
+    assertEquals( "MOSI", target.getChannelLabel( 3 ) );
+    assertEquals( "0", target.getChannelLabel( 0 ) );
+  }
+
+  /**
+   * Tests the formatting and parsing of sample rates.
+   */
+  @Test
+  public void testSampleRates() throws IOException
+  {
+    assertEquals( "1 MHz", SigrokMetadata.formatSampleRate( 1000000 ) );
+    assertEquals( "200 kHz", SigrokMetadata.formatSampleRate( 200000 ) );
+    assertEquals( "1500 Hz", SigrokMetadata.formatSampleRate( 1500 ) );
+
+    assertEquals( 1000000, SigrokMetadata.parseSampleRate( "1 MHz" ) );
+    assertEquals( 200000, SigrokMetadata.parseSampleRate( "200kHz" ) );
+    assertEquals( 1500, SigrokMetadata.parseSampleRate( "1.5 kHz" ) );
+    assertEquals( 10, SigrokMetadata.parseSampleRate( "10" ) );
+  }
+
+  /**
+   * Writes a single entry to the given archive.
+   */
+  private void writeEntry( final ZipOutputStream aStream, final String aName, final byte[] aData ) throws IOException
+  {
+    aStream.putNextEntry( new ZipEntry( aName ) );
+    aStream.write( aData );
+    aStream.closeEntry();
+  }
+}
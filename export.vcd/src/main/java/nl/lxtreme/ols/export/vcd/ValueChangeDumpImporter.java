@@ -0,0 +1,419 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.vcd;
+
+
+import java.awt.*;
+import java.io.*;
+import java.util.*;
+import java.util.List;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.data.project.*;
+
+
+/**
+ * Provides an importer for the "value change dump" format, as specified in
+ * IEEE Std 1364-2001.
+ * <p>
+ * The dump is tokenized while it is read, and all value changes are directly
+ * collected into a {@link TransitionBuffer}; each bit of each variable is
+ * mapped onto its own channel, in order of declaration. The timescale of the
+ * dump determines the sample rate of the imported data.
+ * </p>
+ */
+public class ValueChangeDumpImporter implements Importer
+{
+  // INNER TYPES
+
+  /**
+   * Provides a simple whitespace-separated tokenizer for VCD files.
+   */
+  static final class Tokenizer
+  {
+    // VARIABLES
+
+    private final Reader reader;
+    private final char[] buffer;
+    private final StringBuilder token;
+
+    private int pos;
+    private int limit;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Tokenizer instance.
+     */
+    Tokenizer( final Reader aReader )
+    {
+      this.reader = aReader;
+      this.buffer = new char[BUFFER_SIZE];
+      this.token = new StringBuilder();
+    }
+
+    // METHODS
+
+    /**
+     * Returns the next token.
+     * 
+     * @return the next token, or <code>null</code> if the end of the stream is
+     *         reached.
+     */
+    String next() throws IOException
+    {
+      int ch;
+      do
+      {
+        ch = read();
+      }
+      while ( ( ch >= 0 ) && Character.isWhitespace( ch ) );
+
+      if ( ch < 0 )
+      {
+        return null;
+      }
+
+      this.token.setLength( 0 );
+      do
+      {
+        this.token.append( ( char )ch );
+        ch = read();
+      }
+      while ( ( ch >= 0 ) && !Character.isWhitespace( ch ) );
+
+      return this.token.toString();
+    }
+
+    /**
+     * Returns all tokens up to the next "$end" keyword.
+     * 
+     * @return the tokens before the next "$end", never <code>null</code>.
+     */
+    List<String> nextUntilEnd() throws IOException
+    {
+      final List<String> result = new ArrayList<String>();
+
+      String tok;
+      while ( ( ( tok = next() ) != null ) && !END.equals( tok ) )
+      {
+        result.add( tok );
+      }
+      return result;
+    }
+
+    /**
+     * Reads a single character.
+     */
+    private int read() throws IOException
+    {
+      if ( this.pos == this.limit )
+      {
+        this.limit = this.reader.read( this.buffer );
+        this.pos = 0;
+        if ( this.limit <= 0 )
+        {
+          this.limit = 0;
+          return -1;
+        }
+      }
+      return this.buffer[this.pos++];
+    }
+  }
+
+  // CONSTANTS
+
+  static final String END = "$end";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  /** One second, in femtoseconds. */
+  private static final long SECOND = 1000000000000000L;
+
+  private static final String[] UNITS = { "s", "ms", "us", "ns", "ps", "fs" };
+  private static final long[] UNIT_VALUES = { SECOND, SECOND / 1000L, SECOND / 1000000L, SECOND / 1000000000L,
+      1000L, 1L };
+
+  // METHODS
+
+  /**
+   * Parses the given timescale, such as "1 ns" or "10us".
+   * 
+   * @param aTimescale
+   *          the timescale to parse, cannot be <code>null</code>.
+   * @return the timescale, in femtoseconds, > 0.
+   * @throws IOException
+   *           in case the given timescale is invalid.
+   */
+  static long parseTimescale( final String aTimescale ) throws IOException
+  {
+    final String value = aTimescale.replaceAll( "\\s+", "" );
+
+    int i = 0;
+    while ( ( i < value.length() ) && Character.isDigit( value.charAt( i ) ) )
+    {
+      i++;
+    }
+
+    if ( i > 0 )
+    {
+      final long magnitude = Long.parseLong( value.substring( 0, i ) );
+      final String unit = value.substring( i );
+      for ( int u = 0; u < UNITS.length; u++ )
+      {
+        if ( UNITS[u].equals( unit ) && ( magnitude > 0L ) )
+        {
+          return magnitude * UNIT_VALUES[u];
+        }
+      }
+    }
+
+    throw new IOException( "Unsupported timescale: " + aTimescale );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#getFilenameExtentions()
+   */
+  @Override
+  public String[] getFilenameExtentions()
+  {
+    return new String[] { "vcd" };
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#getName()
+   */
+  @Override
+  public String getName()
+  {
+    return "Value Change Dump";
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#importData(nl.lxtreme.ols.api.data.project.Project,
+   *      java.io.InputStream)
+   */
+  @Override
+  public void importData( final Project aProject, final InputStream aStream ) throws IOException
+  {
+    final Tokenizer tokenizer = new Tokenizer( new InputStreamReader( aStream, "ISO-8859-1" ) );
+
+    // Maps a variable identifier onto its first channel and its width...
+    final Map<String, int[]> variables = new HashMap<String, int[]>();
+    final List<String> labels = new ArrayList<String>();
+    final TransitionBuffer buffer = new TransitionBuffer();
+
+    // Without timescale, assume a timescale of 1 ns...
+    long multiplier = 1L;
+    long divisor = 1L;
+    int rate = 1000000000;
+
+    long time = 0L;
+    int state = 0;
+
+    String tok;
+    while ( ( tok = tokenizer.next() ) != null )
+    {
+      final char ch = tok.charAt( 0 );
+      if ( ch == '$' )
+      {
+        if ( "$timescale".equals( tok ) )
+        {
+          final StringBuilder sb = new StringBuilder();
+          for ( String part : tokenizer.nextUntilEnd() )
+          {
+            sb.append( part );
+          }
+          final long timescale = parseTimescale( sb.toString() );
+
+          // Determine the sample rate, which should fit in an integer...
+          if ( timescale >= SECOND )
+          {
+            multiplier = timescale / SECOND;
+            divisor = 1L;
+            rate = 1;
+          }
+          else
+          {
+            multiplier = 1L;
+            divisor = 1L;
+            while ( ( SECOND / ( timescale * divisor ) ) > Integer.MAX_VALUE )
+            {
+              divisor *= 10L;
+            }
+            rate = ( int )( SECOND / ( timescale * divisor ) );
+          }
+        }
+        else if ( "$var".equals( tok ) )
+        {
+          final List<String> parts = tokenizer.nextUntilEnd();
+          if ( parts.size() < 4 )
+          {
+            throw new IOException( "Invalid variable definition: " + parts );
+          }
+          defineVariable( variables, labels, parts );
+        }
+        else if ( "$dumpvars".equals( tok ) || "$dumpall".equals( tok ) || "$dumpon".equals( tok )
+            || "$dumpoff".equals( tok ) || END.equals( tok ) )
+        {
+          // Value changes follow; their closing $end is ignored...
+        }
+        else
+        {
+          // $date, $version, $comment, $scope, $upscope, $enddefinitions...
+          tokenizer.nextUntilEnd();
+        }
+      }
+      else if ( ch == '#' )
+      {
+        final long newTime = parseTime( tok ) * multiplier / divisor;
+        if ( newTime < time )
+        {
+          throw new IOException( "Time cannot go backwards: " + tok );
+        }
+
+        buffer.add( time, state );
+        time = newTime;
+      }
+      else if ( ( ch == 'b' ) || ( ch == 'B' ) )
+      {
+        final int[] var = variables.get( tokenizer.next() );
+        if ( var != null )
+        {
+          state = applyVector( state, var, tok.substring( 1 ) );
+        }
+      }
+      else if ( ( ch == 'r' ) || ( ch == 'R' ) )
+      {
+        // Real values are not supported; skip its identifier...
+        tokenizer.next();
+      }
+      else if ( ( ch == '0' ) || ( ch == '1' ) || ( ch == 'x' ) || ( ch == 'X' ) || ( ch == 'z' ) || ( ch == 'Z' ) )
+      {
+        final int[] var = variables.get( tok.substring( 1 ) );
+        if ( var != null )
+        {
+          final int mask = 1 << var[0];
+          state = ( ch == '1' ) ? ( state | mask ) : ( state & ~mask );
+        }
+      }
+      else
+      {
+        throw new IOException( "Unexpected token: " + tok );
+      }
+    }
+
+    final int channels = labels.size();
+    if ( channels == 0 )
+    {
+      throw new IOException( "Value change dump does not define any variables!" );
+    }
+
+    buffer.add( time, state );
+
+    final long absLength = Math.max( time, buffer.getLastTimestamp() + 1L );
+    final int enabledMask = ( int )( ( 1L << channels ) - 1L );
+
+    aProject.setCapturedData( buffer.toCapturedData( Ols.NOT_AVAILABLE, rate, channels, enabledMask, absLength ) );
+    aProject.setChannelLabels( labels.toArray( new String[channels] ) );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#setupImport(java.awt.Window)
+   */
+  @Override
+  public boolean setupImport( final Window aOwner )
+  {
+    // The timescale in the dump defines the sample rate...
+    return true;
+  }
+
+  /**
+   * Applies the given vector value to the given state.
+   */
+  private int applyVector( final int aState, final int[] aVariable, final String aBits )
+  {
+    int state = aState;
+    final int length = aBits.length();
+    for ( int i = 0; i < aVariable[1]; i++ )
+    {
+      // The bits are given MSB first, and are zero-extended...
+      final char bit = ( i < length ) ? aBits.charAt( length - 1 - i ) : '0';
+      final int mask = 1 << ( aVariable[0] + i );
+      state = ( bit == '1' ) ? ( state | mask ) : ( state & ~mask );
+    }
+    return state;
+  }
+
+  /**
+   * Defines a new variable, allocating one channel for each of its bits.
+   */
+  private void defineVariable( final Map<String, int[]> aVariables, final List<String> aLabels,
+      final List<String> aParts ) throws IOException
+  {
+    final String type = aParts.get( 0 );
+    final String id = aParts.get( 2 );
+    if ( "real".equals( type ) || "realtime".equals( type ) || aVariables.containsKey( id ) )
+    {
+      // Real variables are not supported, and aliases are already defined...
+      return;
+    }
+
+    final int width;
+    try
+    {
+      width = Integer.parseInt( aParts.get( 1 ) );
+    }
+    catch ( NumberFormatException exception )
+    {
+      throw new IOException( "Invalid variable width: " + aParts.get( 1 ) );
+    }
+
+    final int base = aLabels.size();
+    if ( ( width < 1 ) || ( ( base + width ) > Ols.MAX_CHANNELS ) )
+    {
+      throw new IOException( "Value change dump defines more than " + Ols.MAX_CHANNELS + " signals!" );
+    }
+
+    final String name = aParts.get( 3 );
+    for ( int i = 0; i < width; i++ )
+    {
+      aLabels.add( ( width == 1 ) ? name : name + "[" + i + "]" );
+    }
+    aVariables.put( id, new int[] { base, width } );
+  }
+
+  /**
+   * Parses a time token.
+   */
+  private long parseTime( final String aToken ) throws IOException
+  {
+    try
+    {
+      return Long.parseLong( aToken.substring( 1 ) );
+    }
+    catch ( NumberFormatException exception )
+    {
+      throw new IOException( "Invalid time: " + aToken );
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.vcd;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.test.data.project.*;
+
+import org.junit.*;
+
+
+/**
+ * Provides test cases for {@link ValueChangeDumpImporter}.
+ */
+public class ValueChangeDumpImporterTest
+{
+  // VARIABLES
+
+  private ValueChangeDumpImporter importer;
+  private Project project;
+
+  // METHODS
+
+  /**
+   * Set up for each test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.importer = new ValueChangeDumpImporter();
+
+    this.project = new StubTestProject();
+    this.project.setChannelLabels( new String[Ols.MAX_CHANNELS] );
+  }
+
+  /**
+   * Tests that a dump with scalars and vectors is imported correctly.
+   */
+  @Test
+  public void testImportScalarsAndVectors() throws IOException
+  {
+    final String vcd = "$date today $end\n" //
+        + "$timescale 10 ns $end\n" //
+        + "$scope module top $end\n" //
+        + "$var wire 1 ! clk $end\n" //
+        + "$var wire 2 \" bus [1:0] $end\n" //
+        + "$var wire 1 ! clk_alias $end\n" //
+        + "$var real 64 # ignored $end\n" //
+        + "$upscope $end\n" //
+        + "$enddefinitions $end\n" //
+        + "#0\n$dumpvars\n0!\nbx \"\nr1.5 #\n$end\n" //
+        + "#2\n1!\n#3\nb10 \"\n#4\n0!\nb1 \"\n#4\n#6\n";
+
+    importData( vcd );
+
+    final AcquisitionResult data = this.project.getCapturedData();
+    assertArrayEquals( new int[] { 0, 1, 5, 2 }, data.getValues() );
+    assertArrayEquals( new long[] { 0, 2, 3, 4 }, data.getTimestamps() );
+    assertEquals( 6L, data.getAbsoluteLength() );
+    assertEquals( 100000000, data.getSampleRate() );
+    assertEquals( 3, data.getChannels() );
+    assertEquals( 0x07, data.getEnabledChannels() );
+
+    final String[] labels = this.project.getChannelLabels();
+    assertEquals( "clk", labels[0] );
+    assertEquals( "bus[0]", labels[1] );
+    assertEquals( "bus[1]", labels[2] );
+  }
+
+  /**
+   * Tests that timescales that exceed the maximum sample rate are scaled down.
+   */
+  @Test
+  public void testImportPicosecondTimescale() throws IOException
+  {
+    importData( "$timescale 1 ps $end $var wire 1 ! a $end $enddefinitions $end #0 0! #1500 1! #3000 0! #4000" );
+
+    final AcquisitionResult data = this.project.getCapturedData();
+    assertEquals( 1000000000, data.getSampleRate() );
+    assertArrayEquals( new int[] { 0, 1, 0 }, data.getValues() );
+    assertArrayEquals( new long[] { 0, 1, 3 }, data.getTimestamps() );
+    assertEquals( 4L, data.getAbsoluteLength() );
+  }
+
+  /**
+   * Tests that invalid dumps are rejected.
+   */
+  @Test( expected = IOException.class )
+  public void testImportWithoutVariablesFails() throws IOException
+  {
+    importData( "$timescale 1 ns $end $enddefinitions $end #0 #10" );
+  }
+
+  /**
+   * Tests that the data exported by {@link ValueChangeDumpExporter} can be
+   * imported again.
+   */
+  @Test
+  public void testRoundTrip() throws IOException
+  {
+    final int[] values = { 0x01, 0x02, 0x06, 0x00 };
+    final long[] timestamps = { 0L, 10L, 11L, 40L };
+
+    final StubTestProject source = new StubTestProject();
+    source.setChannelLabels( new String[Ols.MAX_CHANNELS] );
+    source.setCapturedData( new CapturedData( values, timestamps, Ols.NOT_AVAILABLE, 1000000, 8, 0x07, 50L ) );
+
+    final StubTestProjectManager projectManager = new StubTestProjectManager();
+    projectManager.setCurrentProject( source );
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    new ValueChangeDumpExporter().export( new DataContainer( projectManager ), null, baos );
+
+    this.importer.importData( this.project, new ByteArrayInputStream( baos.toByteArray() ) );
+
+    final AcquisitionResult data = this.project.getCapturedData();
+    assertArrayEquals( values, data.getValues() );
+    assertArrayEquals( timestamps, data.getTimestamps() );
+    assertEquals( 50L, data.getAbsoluteLength() );
+    assertEquals( 1000000, data.getSampleRate() );
+    assertEquals( 3, data.getChannels() );
+    assertEquals( "channel1", this.project.getChannelLabels()[1] );
+  }
+
+  /**
+   * Imports the given VCD data into the test project.
+   */
+  private void importData( final String aData ) throws IOException
+  {
+    this.importer.importData( this.project, new ByteArrayInputStream( aData.getBytes( "ISO-8859-1" ) ) );
+  }
+}
@@ -21,22 +21,34 @@
 package nl.lxtreme.ols.runner;
 
 
+import java.awt.*;
 import java.io.*;
 import java.util.*;
+import java.util.List;
 import java.util.logging.*;
 import java.util.logging.Logger;
+import java.util.zip.*;
 
 import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.metrics.*;
 
 import org.apache.felix.framework.*;
 import org.apache.felix.framework.util.*;
 import org.apache.felix.main.*;
 import org.osgi.framework.*;
+import org.osgi.framework.startlevel.*;
 
 
 /**
  * Provides a main entry point for starting the OLS client from the command
  * line.
+ * <p>
+ * When the system property {@value #PROPERTY_FAST_STARTUP} is set to
+ * <code>true</code>, the bundle cache is reused as long as the bundles in the
+ * plugin and binary directories are unchanged. In that case, the tool and
+ * exporter bundles are started only after the main window is shown, and the
+ * initial scan of the plugin directory is deferred.
+ * </p>
  */
 public final class Runner
 {
@@ -44,11 +56,25 @@ public final class Runner
 
   private static final String[] AUTO_START_BUNDLES = { "org.apache.felix.configadmin", "org.apache.felix.fileinstall" };
 
+  /** Enables the fast startup mode. */
+  public static final String PROPERTY_FAST_STARTUP = StartupTimer.PROPERTY_FAST_STARTUP;
+
+  /** The manifest headers of bundles that can be started after the UI is shown. */
+  private static final String[] DEFERRED_BUNDLE_HEADERS = { "OLS-Tool", "OLS-Exporter", "OLS-Importer" };
+  /** The start level of all bundles needed to show the UI. */
+  private static final int INITIAL_START_LEVEL = 3;
+  /** The start level of all bundles that can be started after the UI is shown. */
+  private static final int DEFERRED_START_LEVEL = 4;
+
+  /** The name of the file in the bundle cache holding its fingerprint. */
+  private static final String FINGERPRINT_FILE = "ols.fingerprint";
+
   private static final Logger LOG = Logger.getLogger( Runner.class.getName() );
 
   // VARIABLES
 
   private final HostActivator hostActivator;
+  private final StartupTimer startupTimer;
   private Felix framework;
 
   // CONSTRUCTORS
@@ -58,12 +84,21 @@ public final class Runner
    */
   public Runner() throws Exception
   {
+    this.startupTimer = StartupTimer.start();
+
     final Map<String, Object> config = new HashMap<String, Object>();
 
     final String pluginDir = getPluginDir();
     final String binaryDir = getBinaryDir();
     final String bundleCacheDir = getBundleCacheDir();
 
+    final boolean fastStartup = StartupTimer.isFastStartupMode();
+    final String fingerprint = fastStartup ? getFingerprint( pluginDir, binaryDir ) : null;
+    final File fingerprintFile = new File( bundleCacheDir, FINGERPRINT_FILE );
+    // Only reuse the bundle cache if it is created from the very same
+    // bundles, otherwise stale bundles could be resolved...
+    final boolean reuseCache = fastStartup && fingerprint.equals( readFingerprint( fingerprintFile ) );
+
     // We only start a single bundle: the file install bundle; this bundle will
     // be responsible for starting all other bundles...
     final String autoStartBundles = getAutoInstallBundles( binaryDir );
@@ -80,11 +115,18 @@ public final class Runner
     // otherwise it is created /relatively/ to the current working directory,
     // which is problematic when you start the client with a relative path...
     config.put( Constants.FRAMEWORK_STORAGE, bundleCacheDir );
-    config.put( Constants.FRAMEWORK_BEGINNING_STARTLEVEL, "4" );
+    if ( fastStartup && !reuseCache )
+    {
+      config.put( Constants.FRAMEWORK_STORAGE_CLEAN, Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT );
+    }
+    config.put( Constants.FRAMEWORK_BEGINNING_STARTLEVEL,
+        Integer.toString( reuseCache ? INITIAL_START_LEVEL : DEFERRED_START_LEVEL ) );
     config.put( FelixConstants.BUNDLE_STARTLEVEL_PROP, "1" );
     config.put( FelixConstants.LOG_LEVEL_PROP, "1" );
 
-    System.setProperty( "felix.fileinstall.noInitialDelay", Boolean.toString( true ) );
+    // With a valid bundle cache, all bundles are already installed, so the
+    // plugin directory does not need to be scanned before the UI is shown...
+    System.setProperty( "felix.fileinstall.noInitialDelay", Boolean.toString( !reuseCache ) );
     System.setProperty( "felix.fileinstall.dir", pluginDir );
     System.setProperty( "felix.fileinstall.start.level", "2" );
     // NOTE: the 'false' actually *disables* config save! See
@@ -96,13 +138,33 @@ public final class Runner
 
     try
     {
+      this.startupTimer.phase( "configure" );
+
       this.framework = new Felix( config );
       this.framework.init();
 
+      this.startupTimer.phase( "framework.init" );
+
+      if ( reuseCache )
+      {
+        deferBundles( this.framework.getBundleContext() );
+      }
+
       AutoProcessor.process( config, this.framework.getBundleContext() );
 
       this.framework.start();
 
+      this.startupTimer.phase( "framework.start" );
+
+      if ( reuseCache )
+      {
+        startDeferredBundles();
+      }
+      else if ( fastStartup )
+      {
+        writeFingerprint( fingerprintFile, fingerprint );
+      }
+
       LOG.log( Level.INFO, "Bootstrap complete ..." );
       // Issue #36: log something about where we're trying to read/store stuff,
       // makes offline debugging a bit easier...
@@ -138,6 +200,33 @@ public final class Runner
     runner.waitForStop();
   }
 
+  /**
+   * Moves all bundles that are not needed to show the UI to the deferred start
+   * level.
+   * 
+   * @param aContext
+   *          the bundle context of the framework, cannot be <code>null</code>.
+   */
+  private static void deferBundles( final BundleContext aContext )
+  {
+    int count = 0;
+    for ( Bundle bundle : aContext.getBundles() )
+    {
+      final Dictionary<?, ?> headers = bundle.getHeaders();
+      for ( String header : DEFERRED_BUNDLE_HEADERS )
+      {
+        if ( headers.get( header ) != null )
+        {
+          bundle.adapt( BundleStartLevel.class ).setStartLevel( DEFERRED_START_LEVEL );
+          count++;
+          break;
+        }
+      }
+    }
+
+    LOG.log( Level.FINE, "Deferred starting {0} bundle(s) ...", Integer.valueOf( count ) );
+  }
+
   /**
    * Returns a space-separated list of bundles that should be started by the
    * framework. These bundles should be present in the given directory.
@@ -187,6 +276,37 @@ public final class Runner
     return result.toString();
   }
 
+  /**
+   * Calculates a fingerprint of all bundles in the given directories.
+   * 
+   * @param aDirs
+   *          the directories to fingerprint, cannot be <code>null</code>.
+   * @return a fingerprint, never <code>null</code>.
+   */
+  private static String getFingerprint( final String... aDirs )
+  {
+    final CRC32 crc = new CRC32();
+    for ( String dir : aDirs )
+    {
+      final File[] files = new File( dir ).listFiles();
+      if ( files == null )
+      {
+        continue;
+      }
+
+      Arrays.sort( files );
+      for ( File file : files )
+      {
+        final String entry = file.getName() + ":" + file.length() + ":" + file.lastModified() + ";";
+        crc.update( entry.getBytes() );
+      }
+    }
+    // Include the runtime, as the resolution also depends on its packages...
+    crc.update( System.getProperty( "java.version", "" ).getBytes() );
+
+    return Long.toHexString( crc.getValue() );
+  }
+
   /**
    * Determines the binary directory.
    * 
@@ -258,6 +378,63 @@ public final class Runner
     throw new RuntimeException( "Failed to find plugins folder! Is '-Dnl.lxtreme.ols.bundle.dir' specified?" );
   }
 
+  /**
+   * Reads the fingerprint of the bundle cache.
+   * 
+   * @param aFile
+   *          the file to read the fingerprint from, cannot be <code>null</code>.
+   * @return the fingerprint, or <code>null</code> if it could not be read.
+   */
+  private static String readFingerprint( final File aFile )
+  {
+    if ( !aFile.isFile() )
+    {
+      return null;
+    }
+
+    BufferedReader reader = null;
+    try
+    {
+      reader = new BufferedReader( new FileReader( aFile ) );
+      return reader.readLine();
+    }
+    catch ( IOException exception )
+    {
+      LOG.log( Level.FINE, "Failed to read bundle cache fingerprint!", exception );
+      return null;
+    }
+    finally
+    {
+      HostUtils.closeResource( reader );
+    }
+  }
+
+  /**
+   * Writes the fingerprint of the bundle cache.
+   * 
+   * @param aFile
+   *          the file to write the fingerprint to, cannot be <code>null</code>;
+   * @param aFingerprint
+   *          the fingerprint to write, cannot be <code>null</code>.
+   */
+  private static void writeFingerprint( final File aFile, final String aFingerprint )
+  {
+    Writer writer = null;
+    try
+    {
+      writer = new FileWriter( aFile );
+      writer.write( aFingerprint );
+    }
+    catch ( IOException exception )
+    {
+      LOG.log( Level.WARNING, "Failed to write bundle cache fingerprint!", exception );
+    }
+    finally
+    {
+      HostUtils.closeResource( writer );
+    }
+  }
+
   /**
    * Waits until the OSGi framework is shut down.
    * 
@@ -281,6 +458,33 @@ public final class Runner
   {
     return Boolean.parseBoolean( System.getProperty( "nl.lxtreme.ols.client.debug", "false" ) );
   }
+
+  /**
+   * Raises the start level of the framework, causing the deferred bundles to
+   * be started in the background, once the UI is shown.
+   */
+  private void startDeferredBundles()
+  {
+    // The client creates and shows its UI on the EDT, so by queueing after it,
+    // we wait until the UI is shown...
+    EventQueue.invokeLater( new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        final FrameworkStartLevel startLevel = Runner.this.framework.adapt( FrameworkStartLevel.class );
+        // Raising the start level is done asynchronously by the framework...
+        startLevel.setStartLevel( DEFERRED_START_LEVEL, new FrameworkListener()
+        {
+          @Override
+          public void frameworkEvent( final FrameworkEvent aEvent )
+          {
+            Runner.this.startupTimer.phase( "deferred.bundles" );
+          }
+        } );
+      }
+    } );
+  }
 }
 
 /* EOF */
@@ -24,6 +24,7 @@ package nl.lxtreme.ols.acquisition;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.*;
@@ -31,6 +32,7 @@ import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.acquisition.AcquisitionResultStatus.ResultStatus;
 import nl.lxtreme.ols.api.devices.*;
 import nl.lxtreme.ols.api.task.*;
+import nl.lxtreme.ols.util.metrics.*;
 
 
 /**
@@ -43,6 +45,9 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
 
   private static final Logger LOG = Logger.getLogger( BackgroundDataAcquisitionService.class.getName() );
 
+  private static final String METRIC_SAMPLES_PER_SECOND = "acquisition.samplesPerSecond";
+  private static final String METRIC_BYTES_PER_SECOND = "acquisition.bytesPerSecond";
+
   // VARIABLES
 
   private final List<AcquisitionProgressListener> acquisitionProgressListeners;
@@ -53,6 +58,9 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
   private volatile Future<?> acquisitionFutureTask;
   private volatile Task<AcquisitionResult> acquisitionTask;
 
+  private volatile long samplesPerSecond;
+  private volatile long bytesPerSecond;
+
   // CONSTRUCTORS
 
   /**
@@ -73,11 +81,19 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
   @Override
   public void acquireData( final Device aDevice ) throws IOException
   {
+    final AtomicLong startTime = new AtomicLong();
+    final AtomicBoolean firstSample = new AtomicBoolean();
+
     final AcquisitionTask innerTask = aDevice.createAcquisitionTask( new AcquisitionProgressListener()
     {
       @Override
       public void acquisitionInProgress( final int aPercentage )
       {
+        if ( firstSample.compareAndSet( false, true ) )
+        {
+          // The first progress report is the first sign of incoming data...
+          Metrics.getTimer( "acquisition.timeToFirstSample" ).stop( startTime.get() );
+        }
         fireAcquisitionInProgressEvent( aPercentage );
       }
     } );
@@ -92,7 +108,14 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
         innerTask.open();
         try
         {
-          return innerTask.call();
+          startTime.set( TimerMetric.start() );
+
+          final AcquisitionResult result = innerTask.call();
+          if ( result != null )
+          {
+            updateAcquisitionMetrics( result, Metrics.getTimer( "acquisition.duration" ).stop( startTime.get() ) );
+          }
+          return result;
         }
         finally
         {
@@ -214,6 +237,32 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
     this.acquisitionStatusListeners.remove( aListener );
   }
 
+  /**
+   * Starts this data acquisition service.
+   * <p>
+   * Called by the dependency manager.
+   * </p>
+   */
+  public void start()
+  {
+    Metrics.register( new GaugeMetric( METRIC_SAMPLES_PER_SECOND )
+    {
+      @Override
+      public long getValue()
+      {
+        return BackgroundDataAcquisitionService.this.samplesPerSecond;
+      }
+    } );
+    Metrics.register( new GaugeMetric( METRIC_BYTES_PER_SECOND )
+    {
+      @Override
+      public long getValue()
+      {
+        return BackgroundDataAcquisitionService.this.bytesPerSecond;
+      }
+    } );
+  }
+
   /**
    * Closes/shuts down this data acquisition service.
    * <p>
@@ -222,6 +271,9 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
    */
   public void stop()
   {
+    Metrics.unregister( METRIC_SAMPLES_PER_SECOND );
+    Metrics.unregister( METRIC_BYTES_PER_SECOND );
+
     if ( ( this.acquisitionFutureTask != null ) && !this.acquisitionFutureTask.isDone() )
     {
       this.acquisitionFutureTask.cancel( true /* mayInterruptIfRunning */);
@@ -241,7 +293,10 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
       this.acquisitionFutureTask = null;
 
       final AcquisitionResult result = ( AcquisitionResult )aResult;
+
+      final long startTime = TimerMetric.start();
       fireAcquisitionCompleteEvent( result );
+      Metrics.getTimer( "acquisition.postProcessing" ).stop( startTime );
 
       final AcquisitionResultStatus status = new AcquisitionResultStatus( ResultStatus.NORMAL );
       fireAcquisitionEndedEvent( status );
@@ -327,4 +382,38 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
       statusListenerIter.next().acquisitionStarted();
     }
   }
+
+  /**
+   * Updates the acquisition metrics for the given acquisition result.
+   * 
+   * @param aResult
+   *          the acquisition result to update the metrics for;
+   * @param aDuration
+   *          the time it took to acquire the given result, in nanoseconds.
+   */
+  final void updateAcquisitionMetrics( final AcquisitionResult aResult, final long aDuration )
+  {
+    // Each enabled group of eight channels takes one byte per sample...
+    final int enabledChannels = aResult.getEnabledChannels();
+    int bytesPerSample = 0;
+    for ( int i = 0; i < Ols.MAX_BLOCKS; i++ )
+    {
+      if ( ( ( enabledChannels >> ( i * Ols.CHANNELS_PER_BLOCK ) ) & 0xFF ) != 0 )
+      {
+        bytesPerSample++;
+      }
+    }
+
+    final long samples = Math.max( 0L, aResult.getAbsoluteLength() );
+    final long bytes = samples * bytesPerSample;
+
+    Metrics.getCounter( "acquisition.samples" ).add( samples );
+    Metrics.getCounter( "acquisition.bytes" ).add( bytes );
+
+    if ( aDuration > 0L )
+    {
+      this.samplesPerSecond = ( long )( ( samples * 1.0e9 ) / aDuration );
+      this.bytesPerSecond = ( long )( ( bytes * 1.0e9 ) / aDuration );
+    }
+  }
 }
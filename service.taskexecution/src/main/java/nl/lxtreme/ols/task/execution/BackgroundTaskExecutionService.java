@@ -25,6 +25,7 @@ import java.util.concurrent.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.task.*;
+import nl.lxtreme.ols.util.metrics.*;
 
 
 /**
@@ -39,11 +40,14 @@ public class BackgroundTaskExecutionService implements TaskExecutionService
 
   private static final int POOL_SIZE = 5;
 
+  private static final String METRIC_QUEUE_DEPTH = "taskexecution.queueDepth";
+  private static final String METRIC_ACTIVE_COUNT = "taskexecution.activeCount";
+
   // VARIABLES
 
   private final TaskStatusListener taskStatusListener;
 
-  final ExecutorService executorService;
+  final ThreadPoolExecutor executorService;
 
   // CONSTANTS
 
@@ -54,7 +58,25 @@ public class BackgroundTaskExecutionService implements TaskExecutionService
   {
     this.taskStatusListener = aTaskStatusListener;
 
-    this.executorService = Executors.newFixedThreadPool( POOL_SIZE );
+    this.executorService = new ThreadPoolExecutor( POOL_SIZE, POOL_SIZE, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>() );
+
+    Metrics.register( new GaugeMetric( METRIC_QUEUE_DEPTH )
+    {
+      @Override
+      public long getValue()
+      {
+        return BackgroundTaskExecutionService.this.executorService.getQueue().size();
+      }
+    } );
+    Metrics.register( new GaugeMetric( METRIC_ACTIVE_COUNT )
+    {
+      @Override
+      public long getValue()
+      {
+        return BackgroundTaskExecutionService.this.executorService.getActiveCount();
+      }
+    } );
   }
 
   // METHODS
@@ -73,6 +95,9 @@ public class BackgroundTaskExecutionService implements TaskExecutionService
       throw new IllegalStateException( "Service already shut down!" );
     }
 
+    Metrics.unregister( METRIC_QUEUE_DEPTH );
+    Metrics.unregister( METRIC_ACTIVE_COUNT );
+
     // Force the running tasks to be cancelled immediately...
     this.executorService.shutdownNow();
 
@@ -110,6 +135,7 @@ public class BackgroundTaskExecutionService implements TaskExecutionService
     final Callable<RESULT_TYPE> task = new Callable<RESULT_TYPE>()
     {
       private final TaskStatusListener tsl = BackgroundTaskExecutionService.this.taskStatusListener;
+      private final TimerMetric timer = Metrics.getTimer( getMetricName( aTask ) );
 
       /**
        * {@inheritDoc}
@@ -119,9 +145,11 @@ public class BackgroundTaskExecutionService implements TaskExecutionService
       {
         this.tsl.taskStarted( aTask );
 
+        final long startTime = TimerMetric.start();
         try
         {
           RESULT_TYPE result = aTask.call();
+          this.timer.stop( startTime );
           this.tsl.taskEnded( aTask, result );
           return result;
         }
@@ -135,4 +163,20 @@ public class BackgroundTaskExecutionService implements TaskExecutionService
 
     return this.executorService.submit( task );
   }
+
+  /**
+   * Returns the name of the metric that records the execution times of the
+   * given task.
+   * 
+   * @param aTask
+   *          the task to return the metric name for, cannot be
+   *          <code>null</code>.
+   * @return a metric name, never <code>null</code>.
+   */
+  static String getMetricName( final Task<?> aTask )
+  {
+    final Class<?> type = aTask.getClass();
+    final String name = type.isAnonymousClass() ? type.getName() : type.getSimpleName();
+    return "task.".concat( name );
+  }
 }
@@ -57,6 +57,15 @@ public class StubTestProjectManager implements ProjectManager
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Project createSnapshot()
+  {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -84,6 +93,15 @@ public class StubTestProjectManager implements ProjectManager
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void loadProjectFile( final File aFile ) throws IOException
+  {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -102,6 +120,34 @@ public class StubTestProjectManager implements ProjectManager
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void saveProjectFile( final File aFile ) throws IOException
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void saveProjectSnapshot( final Project aSnapshot, final File aFile, final ProjectProgressListener aListener )
+      throws IOException
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setProjectSaved( final Project aSnapshot, final File aFile )
+  {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * @param aProject
    */
@@ -285,6 +285,7 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
   private JComponent createSettingsPane()
   {
     final int channelCount = getData().getChannels();
+    final int channelOffset = getChannelOffset();
 
     final String modes[] = new String[] { "Standard", "Overdrive" };
 
@@ -293,7 +294,7 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
     SpringLayoutUtils.addSeparator( panel, "Settings" );
 
     panel.add( createRightAlignedLabel( "1-Wire Line" ) );
-    this.owLine = SwingComponentUtils.createChannelSelector( channelCount );
+    this.owLine = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.owLine.setSelectedIndex( 0 );
     panel.add( this.owLine );
 
@@ -0,0 +1,76 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.asm45;
+
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.data.export.*;
+
+
+/**
+ * Maps decoded Asm45 data onto table rows, for exporting it.
+ */
+final class Asm45DataRowMapper implements RowMapper<Asm45Data>
+{
+  // CONSTANTS
+
+  private static final String[] NAMES = { "index", "clocks", "block", "address", "value", "bus grant", "type",
+      "event" };
+  private static final ColumnType[] TYPES = { ColumnType.INT, ColumnType.INT, ColumnType.INT, ColumnType.INT,
+      ColumnType.INT, ColumnType.BOOLEAN, ColumnType.STRING, ColumnType.STRING };
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String[] getColumnNames()
+  {
+    return NAMES.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ColumnType[] getColumnTypes()
+  {
+    return TYPES.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeRow( final TableWriter aWriter, final Asm45Data aData ) throws IOException
+  {
+    aWriter.writeInt( aData.getIndex() );
+    aWriter.writeInt( aData.getClocks() );
+    aWriter.writeInt( aData.getBlock() );
+    aWriter.writeInt( aData.getAddress() );
+    aWriter.writeInt( aData.getValue() );
+    aWriter.writeBoolean( aData.getBusGrant() );
+    aWriter.writeString( aData.getType() );
+    aWriter.writeString( aData.getEvent() );
+  }
+}
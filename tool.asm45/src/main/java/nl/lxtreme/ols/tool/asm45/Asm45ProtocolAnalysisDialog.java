@@ -34,11 +34,11 @@ import java.util.logging.*;
 import javax.swing.*;
 
 import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.export.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.ToolUtils.RestorableAction;
 import nl.lxtreme.ols.util.*;
-import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
@@ -117,9 +117,9 @@ public final class Asm45ProtocolAnalysisDialog extends BaseToolDialog<Asm45DataS
   @Override
   public void exportToFile( final File aOutputFile, final ExportFormat aFormat ) throws IOException
   {
-    if ( ExportFormat.CSV.equals( aFormat ) )
+    if ( ExportFormat.CSV.equals( aFormat ) || ExportFormat.BINARY.equals( aFormat ) )
     {
-      storeToCsvFile( aOutputFile, getLastResult() );
+      storeToTableFile( aOutputFile, aFormat, getLastResult() );
     }
     else if ( ExportFormat.HTML.equals( aFormat ) )
     {
@@ -364,6 +364,7 @@ public final class Asm45ProtocolAnalysisDialog extends BaseToolDialog<Asm45DataS
   private JPanel createSettingsPane()
   {
     final int channelCount = getData().getChannels();
+    final int channelOffset = getChannelOffset();
 
     final JPanel panel = new JPanel( new SpringLayout() );
 
@@ -387,37 +388,37 @@ public final class Asm45ProtocolAnalysisDialog extends BaseToolDialog<Asm45DataS
     panel.add( this.bscLinesConfigLabel );
 
     panel.add( this.lineSMCLabel );
-    this.lineSMC = SwingComponentUtils.createChannelSelector( channelCount );
+    this.lineSMC = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.lineSMC.setSelectedIndex( 22 );
     panel.add( this.lineSMC );
 
     panel.add( this.lineSTMLabel );
-    this.lineSTM = SwingComponentUtils.createChannelSelector( channelCount );
+    this.lineSTM = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.lineSTM.setSelectedIndex( 23 );
     panel.add( this.lineSTM );
 
     panel.add( this.lineEBGLabel );
-    this.lineEBG = SwingComponentUtils.createChannelSelector( channelCount );
+    this.lineEBG = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.lineEBG.setSelectedIndex( 25 );
     panel.add( this.lineEBG );
 
     panel.add( this.lineBYTELabel );
-    this.lineBYTE = SwingComponentUtils.createChannelSelector( channelCount );
+    this.lineBYTE = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.lineBYTE.setSelectedIndex( 26 );
     panel.add( this.lineBYTE );
 
     panel.add( this.lineBLLabel );
-    this.lineBL = SwingComponentUtils.createChannelSelector( channelCount );
+    this.lineBL = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.lineBL.setSelectedIndex( 27 );
     panel.add( this.lineBL );
 
     panel.add( this.lineWRTLabel );
-    this.lineWRT = SwingComponentUtils.createChannelSelector( channelCount );
+    this.lineWRT = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.lineWRT.setSelectedIndex( 29 );
     panel.add( this.lineWRT );
 
     panel.add( this.lineSYNCLabel );
-    this.lineSYNC = SwingComponentUtils.createChannelSelector( channelCount );
+    this.lineSYNC = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.lineSYNC.setSelectedIndex( 30 );
     panel.add( this.lineSYNC );
 
@@ -532,37 +533,35 @@ public final class Asm45ProtocolAnalysisDialog extends BaseToolDialog<Asm45DataS
   }
 
   /**
-   * Stores the given analysis results to the given file in CSV format.
+   * Stores the given analysis results to the given file as CSV or binary table.
    * 
-   * @param aSelectedFile
-   * @param aAnalysisResult
+   * @param aFile
+   *          the file to write to;
+   * @param aFormat
+   *          the tabular format to write in;
+   * @param aDataSet
+   *          the analysis results to write.
    */
-  private void storeToCsvFile( final File aSelectedFile, final Asm45DataSet aAnalysisResult )
+  private void storeToTableFile( final File aFile, final ExportFormat aFormat, final Asm45DataSet aDataSet )
   {
     try
     {
-      final CsvExporter exporter = ExportUtils.createCsvExporter( aSelectedFile );
-
-      exporter.setHeaders( "index", "clocks", "block", "address", "value", "bus grant", "type", "event" );
-
-      final List<Asm45Data> dataSet = aAnalysisResult.getData();
-      for ( int i = 0; i < dataSet.size(); i++ )
+      final TableWriter writer = ToolUtils.createTableWriter( aFile, aFormat );
+      try
       {
-        final Asm45Data ds = dataSet.get( i );
-        exporter.addRow( Integer.valueOf( i ), Integer.valueOf( ds.getClocks() ),
-            StringUtils.integerToHexString( ds.getBlock(), 2 ), StringUtils.integerToHexString( ds.getAddress(), 4 ),
-            StringUtils.integerToHexString( ds.getValue(), 4 ), ds.getBusGrant() ? "X" : "-", ds.getType(),
-            ds.getEvent() );
+        aDataSet.writeTo( writer, new Asm45DataRowMapper() );
+      }
+      finally
+      {
+        writer.close();
       }
-
-      exporter.close();
     }
     catch ( final IOException exception )
     {
       // Make sure to handle IO-interrupted exceptions properly!
       if ( !HostUtils.handleInterruptedException( exception ) )
       {
-        LOG.log( Level.WARNING, "CSV export failed!", exception );
+        LOG.log( Level.WARNING, "Table export failed!", exception );
       }
     }
   }
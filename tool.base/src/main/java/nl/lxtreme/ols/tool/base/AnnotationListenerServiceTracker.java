@@ -24,6 +24,7 @@ package nl.lxtreme.ols.tool.base;
 import org.osgi.framework.*;
 
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.util.metrics.*;
 import nl.lxtreme.ols.util.osgi.*;
 
 
@@ -36,6 +37,8 @@ public class AnnotationListenerServiceTracker implements AnnotationListener
 
   private final WhiteboardHelper<AnnotationListener> annotationListenerHelper;
 
+  private volatile CounterMetric annotationCounter;
+
   // CONSTRUCTORS
 
   /**
@@ -94,6 +97,12 @@ public class AnnotationListenerServiceTracker implements AnnotationListener
   @Override
   public void onAnnotation( final Annotation<?> aAnnotation )
   {
+    final CounterMetric counter = this.annotationCounter;
+    if ( counter != null )
+    {
+      counter.increment();
+    }
+
     this.annotationListenerHelper.accept( new WhiteboardHelper.Visitor<AnnotationListener>()
     {
       @Override
@@ -112,4 +121,17 @@ public class AnnotationListenerServiceTracker implements AnnotationListener
     this.annotationListenerHelper.open( true /* trackAllServices */);
   }
 
+  /**
+   * Sets the counter that should count all annotations passing through this
+   * service tracker.
+   * 
+   * @param aCounter
+   *          the annotation counter to use, can be <code>null</code> to stop
+   *          counting annotations.
+   */
+  public void setAnnotationCounter( final CounterMetric aCounter )
+  {
+    this.annotationCounter = aCounter;
+  }
+
 }
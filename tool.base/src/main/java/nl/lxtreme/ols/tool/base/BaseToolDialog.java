@@ -28,8 +28,10 @@ import javax.swing.*;
 
 import nl.lxtreme.ols.api.Configurable;
 import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.task.*;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.util.metrics.*;
 import nl.lxtreme.ols.util.swing.*;
 import nl.lxtreme.ols.util.swing.StandardActionFactory.CloseAction.Closeable;
 
@@ -67,6 +69,8 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JDialog implements Too
   private volatile Future<RESULT_TYPE> toolFutureTask;
   private volatile ToolTask<RESULT_TYPE> toolTask;
   private volatile RESULT_TYPE lastResult;
+  private volatile DecodeResultCache.Key cacheKey;
+  private volatile DecodeResultCache.Recorder cacheRecorder;
 
   // CONSTRUCTORS
 
@@ -93,6 +97,11 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JDialog implements Too
     this.taskExecutionService = new TaskExecutionServiceTracker( aBundleContext );
     this.annotationListener = new AnnotationListenerServiceTracker( aBundleContext );
     this.toolProgressListener = new ToolProgressListenerServiceTracker( aBundleContext );
+
+    // The decode durations themselves are recorded by the task execution
+    // service; we only need to count the annotations...
+    this.annotationListener.setAnnotationCounter( Metrics.getCounter( "tool."
+        + aTool.getClass().getSimpleName() + ".annotations" ) );
   }
 
   /**
@@ -186,7 +195,39 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JDialog implements Too
       throw new IllegalStateException( "Tool is already running!" );
     }
 
-    this.toolTask = this.tool.createToolTask( this.context, this.toolProgressListener, this.annotationListener );
+    AnnotationListener annotationListener = this.annotationListener;
+
+    this.cacheKey = null;
+    this.cacheRecorder = null;
+    if ( isResultCacheable() )
+    {
+      final DecodeResultCache.Key key = DecodeResultCache.createKey( this.context, this.tool.getName(), this );
+
+      final DecodeResultCache.CachedResult<RESULT_TYPE> cached = DecodeResultCache.getInstance().get( key );
+      if ( cached != null )
+      {
+        // Nothing changed since the last time this tool was invoked; reuse the
+        // previous results instead of decoding everything once again...
+        cached.replay( this.annotationListener );
+        this.lastResult = cached.getResult();
+
+        SwingComponentUtils.invokeOnEDT( new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            onToolEnded( cached.getResult() );
+          }
+        } );
+        return;
+      }
+
+      this.cacheKey = key;
+      this.cacheRecorder = new DecodeResultCache.Recorder( annotationListener );
+      annotationListener = this.cacheRecorder;
+    }
+
+    this.toolTask = this.tool.createToolTask( this.context, this.toolProgressListener, annotationListener );
     prepareToolTask( this.toolTask );
 
     this.toolFutureTask = this.taskExecutionService.execute( this.toolTask );
@@ -220,6 +261,13 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JDialog implements Too
     {
       this.lastResult = ( RESULT_TYPE )aResult;
 
+      final DecodeResultCache.Key key = this.cacheKey;
+      final DecodeResultCache.Recorder recorder = this.cacheRecorder;
+      if ( ( key != null ) && ( recorder != null ) )
+      {
+        DecodeResultCache.getInstance().put( key, recorder.createResult( this.lastResult ) );
+      }
+
       SwingComponentUtils.invokeOnEDT( new Runnable()
       {
         @Override
@@ -297,6 +345,23 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JDialog implements Too
     return this.bundleContext;
   }
 
+  /**
+   * Returns the number of the first channel of the acquisition result data in
+   * the original capture, which is non-zero in case another word of channels
+   * of a wide capture is selected.
+   * 
+   * @return a channel offset, >= 0.
+   */
+  protected final int getChannelOffset()
+  {
+    final AcquisitionResult data = getData();
+    if ( data instanceof DataContainer )
+    {
+      return ( ( DataContainer )data ).getChannelOffset();
+    }
+    return 0;
+  }
+
   /**
    * Returns the acquisition result data.
    * 
@@ -307,6 +372,26 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JDialog implements Too
     return this.context.getData();
   }
 
+  /**
+   * Returns whether the results of this tool can be cached, and reused when
+   * this tool is invoked once again on the same captured data with the same
+   * settings.
+   * <p>
+   * By default, results are cacheable. Note that the settings of this tool
+   * are taken from {@link #writePreferences(nl.lxtreme.ols.api.UserSettings)},
+   * which therefore should write <em>all</em> settings that influence the
+   * result of this tool.
+   * </p>
+   * 
+   * @return <code>true</code> if the results of this tool are cacheable,
+   *         <code>false</code> otherwise.
+   * @see DecodeResultCache
+   */
+  protected boolean isResultCacheable()
+  {
+    return true;
+  }
+
   /**
    * Called right before this dialog is made invisible.
    */
@@ -0,0 +1,615 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.lang.ref.*;
+import java.util.*;
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.util.metrics.*;
+
+
+/**
+ * Provides a cache for the results of tools, allowing a tool to be re-invoked
+ * on the same capture with the same settings without having to decode the
+ * captured data again.
+ * <p>
+ * Results are keyed by the identity of the captured data, the name of the tool,
+ * a snapshot of the tool's settings and the decoded range of samples. A request
+ * for a sub-range of a cached result is served by slicing the cached result,
+ * provided it implements {@link Sliceable}. Results are evicted in least
+ * recently used order once their (estimated) size exceeds the memory budget of
+ * this cache. Results of captured data that is no longer referenced are evicted
+ * as well.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class DecodeResultCache
+{
+  // INNER TYPES
+
+  /**
+   * Denotes the result of a single tool invocation, along with the annotations
+   * it reported.
+   */
+  public static final class CachedResult<RESULT_TYPE>
+  {
+    // VARIABLES
+
+    private final RESULT_TYPE result;
+    private final boolean clearedAll;
+    private final Set<Integer> clearedChannels;
+    private final List<Annotation<?>> annotations;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new CachedResult instance.
+     */
+    CachedResult( final RESULT_TYPE aResult, final boolean aClearedAll, final Set<Integer> aClearedChannels,
+        final List<Annotation<?>> aAnnotations )
+    {
+      this.result = aResult;
+      this.clearedAll = aClearedAll;
+      this.clearedChannels = aClearedChannels;
+      this.annotations = aAnnotations;
+    }
+
+    // METHODS
+
+    /**
+     * Returns the number of annotations reported along with the result.
+     * 
+     * @return an annotation count, >= 0.
+     */
+    public int getAnnotationCount()
+    {
+      return this.annotations.size();
+    }
+
+    /**
+     * Returns the cached tool result.
+     * 
+     * @return the tool result, can be <code>null</code>.
+     */
+    public RESULT_TYPE getResult()
+    {
+      return this.result;
+    }
+
+    /**
+     * Reports all annotations of this result to the given annotation listener,
+     * clearing the same annotations as the tool did.
+     * 
+     * @param aListener
+     *          the annotation listener to replay the annotations to, cannot be
+     *          <code>null</code>.
+     */
+    public void replay( final AnnotationListener aListener )
+    {
+      if ( this.clearedAll )
+      {
+        aListener.clearAnnotations();
+      }
+      for ( Integer channelIdx : this.clearedChannels )
+      {
+        aListener.clearAnnotations( channelIdx.intValue() );
+      }
+      for ( Annotation<?> annotation : this.annotations )
+      {
+        aListener.onAnnotation( annotation );
+      }
+    }
+
+    /**
+     * Returns a copy of this result restricted to the given range of samples.
+     * 
+     * @return a sliced result, or <code>null</code> if the result cannot be
+     *         sliced.
+     */
+    @SuppressWarnings( "unchecked" )
+    CachedResult<RESULT_TYPE> slice( final int aStartSampleIdx, final int aEndSampleIdx )
+    {
+      if ( !( this.result instanceof Sliceable ) )
+      {
+        return null;
+      }
+
+      final List<Annotation<?>> sliced = new ArrayList<Annotation<?>>();
+      for ( Annotation<?> annotation : this.annotations )
+      {
+        if ( annotation instanceof DataAnnotation )
+        {
+          final DataAnnotation<?> dataAnnotation = ( DataAnnotation<?> )annotation;
+          if ( ( dataAnnotation.getStartSampleIndex() < aStartSampleIdx )
+              || ( dataAnnotation.getEndSampleIndex() > aEndSampleIdx ) )
+          {
+            continue;
+          }
+        }
+        sliced.add( annotation );
+      }
+
+      final RESULT_TYPE slicedResult = ( ( Sliceable<RESULT_TYPE> )this.result ).slice( aStartSampleIdx,
+          aEndSampleIdx );
+      return new CachedResult<RESULT_TYPE>( slicedResult, this.clearedAll, this.clearedChannels, sliced );
+    }
+  }
+
+  /**
+   * Denotes the key of a cached tool result.
+   */
+  public static final class Key
+  {
+    // VARIABLES
+
+    private final Reference<AcquisitionResult> capture;
+    private final int captureHash;
+    private final String toolName;
+    private final UserSettings settings;
+    private final int startSampleIdx;
+    private final int endSampleIdx;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Key instance.
+     */
+    Key( final AcquisitionResult aCapture, final String aToolName, final UserSettings aSettings,
+        final int aStartSampleIdx, final int aEndSampleIdx )
+    {
+      this.capture = new WeakReference<AcquisitionResult>( aCapture );
+      this.captureHash = System.identityHashCode( aCapture );
+      this.toolName = aToolName;
+      this.settings = aSettings;
+      this.startSampleIdx = aStartSampleIdx;
+      this.endSampleIdx = aEndSampleIdx;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( final Object aObject )
+    {
+      if ( this == aObject )
+      {
+        return true;
+      }
+      if ( !( aObject instanceof Key ) )
+      {
+        return false;
+      }
+
+      final Key other = ( Key )aObject;
+      return isSameInvocation( other ) && ( this.startSampleIdx == other.startSampleIdx )
+          && ( this.endSampleIdx == other.endSampleIdx );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+      int result = this.captureHash;
+      result = 31 * result + this.toolName.hashCode();
+      result = 31 * result + this.settings.hashCode();
+      result = 31 * result + this.startSampleIdx;
+      result = 31 * result + this.endSampleIdx;
+      return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+      return this.toolName + "[" + this.startSampleIdx + ".." + this.endSampleIdx + "]";
+    }
+
+    /**
+     * Returns whether the range of this key contains the range of the given
+     * key.
+     */
+    final boolean contains( final Key aKey )
+    {
+      return ( this.startSampleIdx <= aKey.startSampleIdx ) && ( this.endSampleIdx >= aKey.endSampleIdx );
+    }
+
+    /**
+     * Returns whether the captured data of this key is no longer referenced.
+     */
+    final boolean isStale()
+    {
+      return this.capture.get() == null;
+    }
+
+    /**
+     * Returns whether this key denotes the same tool on the same capture with
+     * the same settings as the given key, regardless of the decoded range.
+     */
+    final boolean isSameInvocation( final Key aKey )
+    {
+      final AcquisitionResult thisCapture = this.capture.get();
+      return ( thisCapture != null ) && ( thisCapture == aKey.capture.get() ) && this.toolName.equals( aKey.toolName )
+          && this.settings.equals( aKey.settings );
+    }
+  }
+
+  /**
+   * Provides an annotation listener that passes all annotations on to another
+   * annotation listener, while recording them for the cache.
+   */
+  public static final class Recorder implements AnnotationListener
+  {
+    // VARIABLES
+
+    private final AnnotationListener delegate;
+    private final Set<Integer> clearedChannels;
+    private final List<Annotation<?>> annotations;
+
+    private volatile boolean clearedAll;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Recorder instance.
+     * 
+     * @param aDelegate
+     *          the annotation listener to pass all annotations on to, cannot be
+     *          <code>null</code>.
+     */
+    public Recorder( final AnnotationListener aDelegate )
+    {
+      this.delegate = aDelegate;
+      this.clearedChannels = new LinkedHashSet<Integer>();
+      this.annotations = new ArrayList<Annotation<?>>();
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearAnnotations()
+    {
+      synchronized ( this.annotations )
+      {
+        this.clearedAll = true;
+        this.clearedChannels.clear();
+        this.annotations.clear();
+      }
+      this.delegate.clearAnnotations();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearAnnotations( final int aChannelIdx )
+    {
+      synchronized ( this.annotations )
+      {
+        this.clearedChannels.add( Integer.valueOf( aChannelIdx ) );
+
+        final Iterator<Annotation<?>> iter = this.annotations.iterator();
+        while ( iter.hasNext() )
+        {
+          if ( iter.next().getChannel() == aChannelIdx )
+          {
+            iter.remove();
+          }
+        }
+      }
+      this.delegate.clearAnnotations( aChannelIdx );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onAnnotation( final Annotation<?> aAnnotation )
+    {
+      synchronized ( this.annotations )
+      {
+        this.annotations.add( aAnnotation );
+      }
+      this.delegate.onAnnotation( aAnnotation );
+    }
+
+    /**
+     * Creates a cached result of the given tool result and all annotations
+     * recorded so far.
+     * 
+     * @param aResult
+     *          the tool result to cache, can be <code>null</code>.
+     * @return a new cached result, never <code>null</code>.
+     */
+    public <RESULT_TYPE> CachedResult<RESULT_TYPE> createResult( final RESULT_TYPE aResult )
+    {
+      synchronized ( this.annotations )
+      {
+        return new CachedResult<RESULT_TYPE>( aResult, this.clearedAll, new LinkedHashSet<Integer>(
+            this.clearedChannels ), new ArrayList<Annotation<?>>( this.annotations ) );
+      }
+    }
+  }
+
+  // CONSTANTS
+
+  /** The property denoting the memory budget of the cache, in megabytes. */
+  public static final String PROPERTY_CACHE_BUDGET = "nl.lxtreme.ols.tool.decodeCacheBudget";
+
+  private static final int DEFAULT_CACHE_BUDGET = 64;
+
+  /** The estimated size of a result, excluding its decoded data. */
+  private static final long ESTIMATED_RESULT_SIZE = 1024L;
+  /** The estimated size of a single decoded data item. */
+  private static final long ESTIMATED_DATA_SIZE = 64L;
+  /** The estimated size of a single annotation. */
+  private static final long ESTIMATED_ANNOTATION_SIZE = 128L;
+
+  private static final Logger LOG = Logger.getLogger( DecodeResultCache.class.getName() );
+
+  private static final DecodeResultCache INSTANCE = new DecodeResultCache( Integer.getInteger(
+      PROPERTY_CACHE_BUDGET, DEFAULT_CACHE_BUDGET ).intValue() * 1024L * 1024L );
+
+  // VARIABLES
+
+  private final long budget;
+  private final LinkedHashMap<Key, CachedResult<?>> entries;
+  private final Map<Key, Long> sizes;
+
+  private final CounterMetric hits;
+  private final CounterMetric misses;
+
+  private long size;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DecodeResultCache instance.
+   * 
+   * @param aBudget
+   *          the memory budget of this cache, in bytes, >= 0.
+   */
+  public DecodeResultCache( final long aBudget )
+  {
+    if ( aBudget < 0L )
+    {
+      throw new IllegalArgumentException( "Budget cannot be negative!" );
+    }
+
+    this.budget = aBudget;
+    this.entries = new LinkedHashMap<Key, CachedResult<?>>( 16, 0.75f, true /* accessOrder */);
+    this.sizes = new HashMap<Key, Long>();
+
+    this.hits = Metrics.getCounter( "tool.decodeCache.hits" );
+    this.misses = Metrics.getCounter( "tool.decodeCache.misses" );
+  }
+
+  // METHODS
+
+  /**
+   * Returns the shared decode result cache, whose budget is defined by the
+   * {@link #PROPERTY_CACHE_BUDGET} system property.
+   * 
+   * @return the shared cache, never <code>null</code>.
+   */
+  public static DecodeResultCache getInstance()
+  {
+    return INSTANCE;
+  }
+
+  /**
+   * Creates a cache key for invoking the given tool on the given context.
+   * 
+   * @param aContext
+   *          the tool context with the captured data and decode range, cannot
+   *          be <code>null</code>;
+   * @param aToolName
+   *          the name of the tool, cannot be <code>null</code>;
+   * @param aSettings
+   *          the provider of the tool settings, cannot be <code>null</code>.
+   * @return a new cache key, never <code>null</code>.
+   */
+  public static Key createKey( final ToolContext aContext, final String aToolName, final Configurable aSettings )
+  {
+    final SettingsSnapshot snapshot = new SettingsSnapshot( aToolName );
+    aSettings.writePreferences( snapshot );
+
+    // A data container is merely a view on the actual captured data...
+    AcquisitionResult capture = aContext.getData();
+    if ( capture instanceof DataContainer )
+    {
+      capture = ( ( DataContainer )capture ).getCapturedData();
+    }
+
+    return new Key( capture, aToolName, snapshot, aContext.getStartSampleIndex(), aContext.getEndSampleIndex() );
+  }
+
+  /**
+   * Removes all results from this cache.
+   */
+  public synchronized void clear()
+  {
+    this.entries.clear();
+    this.sizes.clear();
+    this.size = 0L;
+  }
+
+  /**
+   * Returns the cached result for the given key.
+   * <p>
+   * If no result is cached for exactly the given key, a result of the same
+   * tool invocation covering a larger range of samples is sliced to the range
+   * of the given key.
+   * </p>
+   * 
+   * @param aKey
+   *          the key to return the cached result for, cannot be
+   *          <code>null</code>.
+   * @return the cached result, or <code>null</code> if no result is cached for
+   *         the given key.
+   */
+  @SuppressWarnings( "unchecked" )
+  public synchronized <RESULT_TYPE> CachedResult<RESULT_TYPE> get( final Key aKey )
+  {
+    purgeStaleEntries();
+
+    CachedResult<RESULT_TYPE> result = ( CachedResult<RESULT_TYPE> )this.entries.get( aKey );
+    if ( result == null )
+    {
+      for ( Map.Entry<Key, CachedResult<?>> entry : this.entries.entrySet() )
+      {
+        final Key key = entry.getKey();
+        if ( key.isSameInvocation( aKey ) && key.contains( aKey ) )
+        {
+          result = ( ( CachedResult<RESULT_TYPE> )entry.getValue() ).slice( aKey.startSampleIdx, aKey.endSampleIdx );
+          if ( result != null )
+          {
+            // Mark the entry as recently used...
+            this.entries.get( key );
+            break;
+          }
+        }
+      }
+    }
+
+    if ( result != null )
+    {
+      this.hits.increment();
+    }
+    else
+    {
+      this.misses.increment();
+    }
+    return result;
+  }
+
+  /**
+   * Returns the memory budget of this cache.
+   * 
+   * @return a budget, in bytes, >= 0.
+   */
+  public long getBudget()
+  {
+    return this.budget;
+  }
+
+  /**
+   * Returns the number of results in this cache.
+   * 
+   * @return a result count, >= 0.
+   */
+  public synchronized int getSize()
+  {
+    return this.entries.size();
+  }
+
+  /**
+   * Adds the given result to this cache, evicting the least recently used
+   * results in case the memory budget is exceeded.
+   * 
+   * @param aKey
+   *          the key of the result, cannot be <code>null</code>;
+   * @param aResult
+   *          the result to cache, cannot be <code>null</code>.
+   */
+  public synchronized void put( final Key aKey, final CachedResult<?> aResult )
+  {
+    purgeStaleEntries();
+
+    final long resultSize = estimateSize( aResult );
+    if ( resultSize > this.budget )
+    {
+      LOG.log( Level.FINE, "Not caching result of {0}; its size exceeds the cache budget.", aKey );
+      return;
+    }
+
+    remove( aKey );
+
+    this.entries.put( aKey, aResult );
+    this.sizes.put( aKey, Long.valueOf( resultSize ) );
+    this.size += resultSize;
+
+    final Iterator<Key> iter = this.entries.keySet().iterator();
+    while ( ( this.size > this.budget ) && iter.hasNext() )
+    {
+      final Key key = iter.next();
+      iter.remove();
+      this.size -= this.sizes.remove( key ).longValue();
+    }
+  }
+
+  /**
+   * Returns the estimated memory size of the given result.
+   */
+  private long estimateSize( final CachedResult<?> aResult )
+  {
+    long result = ESTIMATED_RESULT_SIZE + ( aResult.getAnnotationCount() * ESTIMATED_ANNOTATION_SIZE );
+    if ( aResult.getResult() instanceof BaseDataSet )
+    {
+      result += ( ( BaseDataSet<?> )aResult.getResult() ).getData().size() * ESTIMATED_DATA_SIZE;
+    }
+    return result;
+  }
+
+  /**
+   * Removes all results of captured data that is no longer referenced.
+   */
+  private void purgeStaleEntries()
+  {
+    final Iterator<Key> iter = this.entries.keySet().iterator();
+    while ( iter.hasNext() )
+    {
+      final Key key = iter.next();
+      if ( key.isStale() )
+      {
+        iter.remove();
+        this.size -= this.sizes.remove( key ).longValue();
+      }
+    }
+  }
+
+  /**
+   * Removes the result with the given key.
+   */
+  private void remove( final Key aKey )
+  {
+    if ( this.entries.remove( aKey ) != null )
+    {
+      this.size -= this.sizes.remove( aKey ).longValue();
+    }
+  }
+}
@@ -37,7 +37,7 @@ public interface ExportAware<RESULT_TYPE>
    */
   public static enum ExportFormat
   {
-    CSV, HTML;
+    CSV, HTML, BINARY;
   }
 
   // METHODS
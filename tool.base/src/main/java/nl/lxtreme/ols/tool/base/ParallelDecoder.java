@@ -0,0 +1,158 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+
+/**
+ * Provides some utility methods for decoding independent chunks (frames,
+ * transactions) of sample data concurrently.
+ * <p>
+ * A decoder that wants to use this typically performs a fast pre-pass over the
+ * sample data to find frame boundaries, decodes each chunk between these
+ * boundaries in a separate task, and merges the results of all chunks in
+ * order afterwards.
+ * </p>
+ */
+public final class ParallelDecoder
+{
+  // CONSTANTS
+
+  /**
+   * The minimal number of samples a chunk should consist of, smaller chunks do
+   * not outweigh the overhead of scheduling them.
+   */
+  public static final int MIN_CHUNK_SIZE = 1 << 16;
+
+  /** The number of chunks to create per available processor. */
+  private static final int CHUNKS_PER_PROCESSOR = 4;
+
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger( 0 );
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ParallelDecoder instance, never used.
+   */
+  private ParallelDecoder()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Returns the preferred size of a chunk for the given decoding range.
+   * 
+   * @param aStartIdx
+   *          the start sample index of the decoding range;
+   * @param aEndIdx
+   *          the end sample index of the decoding range.
+   * @return a chunk size, in samples, >= {@link #MIN_CHUNK_SIZE}.
+   */
+  public static int getChunkSize( final int aStartIdx, final int aEndIdx )
+  {
+    final int chunkCount = getParallelism() * CHUNKS_PER_PROCESSOR;
+    return Math.max( MIN_CHUNK_SIZE, ( aEndIdx - aStartIdx ) / chunkCount );
+  }
+
+  /**
+   * Returns the number of tasks that can be run concurrently.
+   * 
+   * @return a parallelism level, >= 1.
+   */
+  public static int getParallelism()
+  {
+    return Math.max( 1, Runtime.getRuntime().availableProcessors() );
+  }
+
+  /**
+   * Invokes all given tasks concurrently, and returns their results in the
+   * same order as the given tasks.
+   * 
+   * @param aTasks
+   *          the tasks to invoke, cannot be <code>null</code>.
+   * @return the results of the given tasks, never <code>null</code>.
+   * @throws InterruptedException
+   *           in case the calling thread was interrupted while waiting for the
+   *           results, in which case all pending tasks are cancelled;
+   * @throws Exception
+   *           in case one of the given tasks failed.
+   */
+  public static <T> List<T> invokeAll( final List<? extends Callable<T>> aTasks ) throws Exception
+  {
+    final List<T> results = new ArrayList<T>( aTasks.size() );
+    if ( aTasks.isEmpty() )
+    {
+      return results;
+    }
+
+    final int threadCount = Math.min( aTasks.size(), getParallelism() );
+    final ExecutorService executor = Executors.newFixedThreadPool( threadCount, new ThreadFactory()
+    {
+      @Override
+      public Thread newThread( final Runnable aRunnable )
+      {
+        final Thread thread = new Thread( aRunnable, "ParallelDecoder-" + THREAD_COUNTER.incrementAndGet() );
+        thread.setDaemon( true );
+        thread.setPriority( Thread.NORM_PRIORITY - 1 );
+        return thread;
+      }
+    } );
+
+    try
+    {
+      final List<Future<T>> futures = new ArrayList<Future<T>>( aTasks.size() );
+      for ( Callable<T> task : aTasks )
+      {
+        futures.add( executor.submit( task ) );
+      }
+
+      for ( Future<T> future : futures )
+      {
+        try
+        {
+          results.add( future.get() );
+        }
+        catch ( ExecutionException exception )
+        {
+          final Throwable cause = exception.getCause();
+          if ( cause instanceof Exception )
+          {
+            throw ( Exception )cause;
+          }
+          throw exception;
+        }
+      }
+
+      return results;
+    }
+    finally
+    {
+      // Cancels all pending tasks in case of failures or interruptions...
+      executor.shutdownNow();
+    }
+  }
+}
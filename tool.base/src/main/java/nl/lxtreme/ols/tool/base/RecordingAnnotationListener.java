@@ -0,0 +1,140 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.tools.*;
+
+
+/**
+ * Provides an annotation listener that records all annotations, allowing them
+ * to be replayed later on to another annotation listener.
+ * <p>
+ * This is used to collect the annotations of chunks that are decoded
+ * concurrently, and to report them in order after all chunks are decoded.
+ * Requests to clear annotations are recorded as well, and are replayed in the
+ * same order as the annotations.
+ * </p>
+ */
+public final class RecordingAnnotationListener implements AnnotationListener
+{
+  // INNER TYPES
+
+  /**
+   * Denotes a recorded request to clear annotations.
+   */
+  static final class ClearEvent
+  {
+    // VARIABLES
+
+    final int channelIdx;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new ClearEvent instance.
+     * 
+     * @param aChannelIdx
+     *          the index of the channel to clear, or -1 to clear all channels.
+     */
+    ClearEvent( final int aChannelIdx )
+    {
+      this.channelIdx = aChannelIdx;
+    }
+  }
+
+  // VARIABLES
+
+  /** Contains both annotations and clear events, in the order they occurred. */
+  private final List<Object> events;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new RecordingAnnotationListener instance.
+   */
+  public RecordingAnnotationListener()
+  {
+    this.events = new ArrayList<Object>();
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clearAnnotations()
+  {
+    this.events.add( new ClearEvent( -1 ) );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clearAnnotations( final int aChannelIdx )
+  {
+    this.events.add( new ClearEvent( aChannelIdx ) );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onAnnotation( final Annotation<?> aAnnotation )
+  {
+    this.events.add( aAnnotation );
+  }
+
+  /**
+   * Replays all recorded annotations and clear requests, in the order they
+   * were recorded, to the given annotation listener.
+   * 
+   * @param aListener
+   *          the annotation listener to replay the annotations to, cannot be
+   *          <code>null</code>.
+   */
+  public void replay( final AnnotationListener aListener )
+  {
+    for ( Object event : this.events )
+    {
+      if ( event instanceof ClearEvent )
+      {
+        final int channelIdx = ( ( ClearEvent )event ).channelIdx;
+        if ( channelIdx < 0 )
+        {
+          aListener.clearAnnotations();
+        }
+        else
+        {
+          aListener.clearAnnotations( channelIdx );
+        }
+      }
+      else
+      {
+        aListener.onAnnotation( ( Annotation<?> )event );
+      }
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+
+
+/**
+ * Provides an in-memory {@link UserSettings} implementation that can be
+ * compared to other snapshots, used to capture the settings of a tool at the
+ * moment it is invoked.
+ */
+final class SettingsSnapshot implements UserSettings
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  // VARIABLES
+
+  private final String name;
+  private final SortedMap<String, Object> values;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SettingsSnapshot instance.
+   * 
+   * @param aName
+   *          the name of this snapshot, cannot be <code>null</code>.
+   */
+  public SettingsSnapshot( final String aName )
+  {
+    this.name = aName;
+    this.values = new TreeMap<String, Object>();
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals( final Object aObject )
+  {
+    if ( this == aObject )
+    {
+      return true;
+    }
+    if ( !( aObject instanceof SettingsSnapshot ) )
+    {
+      return false;
+    }
+
+    final SettingsSnapshot other = ( SettingsSnapshot )aObject;
+    return this.name.equals( other.name ) && this.values.equals( other.values );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String get( final String aName, final String aDefaultValue )
+  {
+    final Object value = this.values.get( aName );
+    return ( value == null ) ? aDefaultValue : String.valueOf( value );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean getBoolean( final String aName, final boolean aDefaultValue )
+  {
+    final Object value = this.values.get( aName );
+    return ( value instanceof Boolean ) ? ( ( Boolean )value ).booleanValue() : aDefaultValue;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getInt( final String aName, final int aDefaultValue )
+  {
+    final Object value = this.values.get( aName );
+    return ( value instanceof Integer ) ? ( ( Integer )value ).intValue() : aDefaultValue;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getLong( final String aName, final long aDefaultValue )
+  {
+    final Object value = this.values.get( aName );
+    return ( value instanceof Long ) ? ( ( Long )value ).longValue() : aDefaultValue;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getName()
+  {
+    return this.name;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode()
+  {
+    return 31 * this.name.hashCode() + this.values.hashCode();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterator<Map.Entry<String, Object>> iterator()
+  {
+    return Collections.unmodifiableMap( this.values ).entrySet().iterator();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void put( final String aName, final String aValue )
+  {
+    this.values.put( aName, aValue );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void putBoolean( final String aName, final boolean aValue )
+  {
+    this.values.put( aName, Boolean.valueOf( aValue ) );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void putInt( final String aName, final int aValue )
+  {
+    this.values.put( aName, Integer.valueOf( aValue ) );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void putLong( final String aName, final long aValue )
+  {
+    this.values.put( aName, Long.valueOf( aValue ) );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return this.name + this.values;
+  }
+}
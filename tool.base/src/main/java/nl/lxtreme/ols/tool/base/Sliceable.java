@@ -0,0 +1,47 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+/**
+ * Denotes a tool result that can be restricted to a sub-range of the samples
+ * it was decoded from.
+ * 
+ * @param <RESULT_TYPE>
+ *          the type of the tool result.
+ * @see DecodeResultCache
+ */
+public interface Sliceable<RESULT_TYPE>
+{
+  // METHODS
+
+  /**
+   * Returns a copy of this result containing only the decoded data that lies
+   * entirely within the given range of samples.
+   * 
+   * @param aStartSampleIdx
+   *          the sample index denoting the start of the range;
+   * @param aEndSampleIdx
+   *          the sample index denoting the end of the range.
+   * @return a sliced copy of this result, never <code>null</code>.
+   */
+  RESULT_TYPE slice( int aStartSampleIdx, int aEndSampleIdx );
+}
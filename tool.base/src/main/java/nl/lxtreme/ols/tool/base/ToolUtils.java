@@ -26,6 +26,7 @@ import java.awt.event.*;
 import java.io.*;
 import javax.swing.*;
 
+import nl.lxtreme.ols.api.data.export.*;
 import nl.lxtreme.ols.tool.base.ExportAware.*;
 import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.swing.*;
@@ -52,7 +53,7 @@ public class ToolUtils
 
   /**
    * Provides an export action, that is capable of exporting the analysis
-   * results to either CSV or HTML.
+   * results to either CSV, HTML or a binary table.
    */
   static final class ExportAction extends AbstractAction
   {
@@ -90,7 +91,8 @@ public class ToolUtils
     public void actionPerformed( final ActionEvent aEvent )
     {
       final Window owner = SwingComponentUtils.getOwningWindow( aEvent );
-      final File selectedFile = SwingComponentUtils.showFileSaveDialog( owner, StdFileFilter.CSV, StdFileFilter.HTML );
+      final File selectedFile = SwingComponentUtils.showFileSaveDialog( owner, StdFileFilter.CSV, StdFileFilter.HTML,
+          StdFileFilter.BINARY_TABLE );
 
       if ( selectedFile != null )
       {
@@ -101,6 +103,10 @@ public class ToolUtils
         {
           format = ExportFormat.HTML;
         }
+        else if ( "bin".equalsIgnoreCase( filenameExt ) )
+        {
+          format = ExportFormat.BINARY;
+        }
 
         try
         {
@@ -264,6 +270,34 @@ public class ToolUtils
     return runButton;
   }
 
+  /**
+   * Creates a table writer that writes to the given file in the given format.
+   * 
+   * @param aFile
+   *          the file to write to, cannot be <code>null</code>;
+   * @param aFormat
+   *          the format to write in, should be either {@link ExportFormat#CSV}
+   *          or {@link ExportFormat#BINARY}.
+   * @return a new table writer, never <code>null</code>. The caller is
+   *         responsible for closing it.
+   * @throws IOException
+   *           in case the given file could not be created.
+   * @throws IllegalArgumentException
+   *           in case the given format is not a tabular format.
+   */
+  public static TableWriter createTableWriter( final File aFile, final ExportFormat aFormat ) throws IOException
+  {
+    if ( ExportFormat.CSV.equals( aFormat ) )
+    {
+      return new CsvTableWriter( new BufferedWriter( new FileWriter( aFile ) ) );
+    }
+    else if ( ExportFormat.BINARY.equals( aFormat ) )
+    {
+      return new BinaryTableWriter( new FileOutputStream( aFile ) );
+    }
+    throw new IllegalArgumentException( "Not a tabular export format: " + aFormat );
+  }
+
   /**
    * Convenience method to show an error message.
    * 
@@ -0,0 +1,427 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base.stream;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import nl.lxtreme.ols.api.data.export.*;
+
+
+/**
+ * Provides a pipeline of layered decoders, in which each decoder publishes its
+ * frames to the next (higher-level) decoder.
+ * <p>
+ * All stages of the pipeline run concurrently, each in its own thread, and are
+ * connected by bounded queues. This way, only a limited number of
+ * intermediate frames exist at any time, while the lower-level decoders keep
+ * decoding as long as the higher-level decoders keep up. For example:
+ * </p>
+ * 
+ * <pre>
+ * DecoderPipeline.from( spiAnalyserTask ).then( new SPIFlashDecoder() ).run( sink );
+ * </pre>
+ * <p>
+ * When one of the stages fails, all other stages are interrupted and the
+ * failure is rethrown by {@link #run(FrameSink)}.
+ * </p>
+ * 
+ * @param <T>
+ *          the type of frames produced by the last stage of this pipeline.
+ */
+public final class DecoderPipeline<T>
+{
+  // INNER TYPES
+
+  /**
+   * Runs a single stage of the pipeline, aborting the entire pipeline when it
+   * fails.
+   */
+  abstract static class Stage implements Runnable
+  {
+    // VARIABLES
+
+    private final ExecutorService executor;
+    private final AtomicReference<Exception> failure;
+    private final FrameQueue lastQueue;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Stage instance.
+     */
+    Stage( final ExecutorService aExecutor, final AtomicReference<Exception> aFailure, final FrameQueue aLastQueue )
+    {
+      this.executor = aExecutor;
+      this.failure = aFailure;
+      this.lastQueue = aLastQueue;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void run()
+    {
+      try
+      {
+        runStage();
+      }
+      catch ( Exception exception )
+      {
+        abort( exception );
+      }
+      catch ( Error error )
+      {
+        abort( new ExecutionException( error ) );
+        throw error;
+      }
+    }
+
+    /**
+     * Runs this stage.
+     * 
+     * @throws Exception
+     *           in case this stage failed.
+     */
+    protected abstract void runStage() throws Exception;
+
+    /**
+     * Aborts the pipeline, retaining the first failure.
+     */
+    private void abort( final Exception aException )
+    {
+      // Only the first failure is relevant, the other stages are likely to
+      // fail due to being interrupted...
+      if ( this.failure.compareAndSet( null, aException ) )
+      {
+        this.executor.shutdownNow();
+        this.lastQueue.abort();
+      }
+    }
+  }
+
+  /**
+   * Carries an I/O failure of a table writer through the sink of a pipeline.
+   */
+  static final class WriteFailure extends RuntimeException
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new WriteFailure instance.
+     */
+    WriteFailure( final IOException aCause )
+    {
+      super( aCause );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized IOException getCause()
+    {
+      return ( IOException )super.getCause();
+    }
+  }
+
+  // CONSTANTS
+
+  /** The default number of frames that can be pending between two stages. */
+  public static final int DEFAULT_QUEUE_CAPACITY = 16 * 1024;
+
+  /** The maximum number of frames that are passed as a single batch. */
+  private static final int MAX_BATCH_SIZE = 256;
+
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger( 0 );
+
+  // VARIABLES
+
+  private final FrameSource<?> source;
+  private final List<FrameDecoder<?, ?>> decoders;
+  private final int queueCapacity;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DecoderPipeline instance.
+   */
+  private DecoderPipeline( final FrameSource<?> aSource, final List<FrameDecoder<?, ?>> aDecoders,
+      final int aQueueCapacity )
+  {
+    this.source = aSource;
+    this.decoders = aDecoders;
+    this.queueCapacity = aQueueCapacity;
+  }
+
+  // METHODS
+
+  /**
+   * Creates a new pipeline starting with the given source, using the default
+   * queue capacity.
+   * 
+   * @param aSource
+   *          the source of the pipeline, cannot be <code>null</code>.
+   * @return a new pipeline, never <code>null</code>.
+   */
+  public static <T> DecoderPipeline<T> from( final FrameSource<T> aSource )
+  {
+    return from( aSource, DEFAULT_QUEUE_CAPACITY );
+  }
+
+  /**
+   * Creates a new pipeline starting with the given source.
+   * 
+   * @param aSource
+   *          the source of the pipeline, cannot be <code>null</code>;
+   * @param aQueueCapacity
+   *          the maximum number of frames that can be pending between two
+   *          stages, > 0.
+   * @return a new pipeline, never <code>null</code>.
+   */
+  public static <T> DecoderPipeline<T> from( final FrameSource<T> aSource, final int aQueueCapacity )
+  {
+    if ( aSource == null )
+    {
+      throw new IllegalArgumentException( "Source cannot be null!" );
+    }
+    if ( aQueueCapacity <= 0 )
+    {
+      throw new IllegalArgumentException( "Queue capacity should be positive!" );
+    }
+    return new DecoderPipeline<T>( aSource, Collections.<FrameDecoder<?, ?>> emptyList(), aQueueCapacity );
+  }
+
+  /**
+   * Runs this pipeline, and collects all frames of its last stage.
+   * <p>
+   * Note that this materializes all frames of the last stage, which is fine
+   * for high-level frames, but defeats the purpose of a pipeline otherwise.
+   * </p>
+   * 
+   * @return a list with all frames of the last stage, in order, never
+   *         <code>null</code>.
+   * @throws Exception
+   *           in case one of the stages failed, or the calling thread was
+   *           interrupted.
+   */
+  public List<T> collect() throws Exception
+  {
+    final List<T> result = new ArrayList<T>();
+    run( new FrameSink<T>()
+    {
+      @Override
+      public void frame( final T aFrame )
+      {
+        result.add( aFrame );
+      }
+    } );
+    return result;
+  }
+
+  /**
+   * Runs this pipeline, until all stages are completed.
+   * <p>
+   * The given sink is called from the calling thread, hence it does not need
+   * to be thread-safe.
+   * </p>
+   * 
+   * @param aSink
+   *          the sink to publish the frames of the last stage to, cannot be
+   *          <code>null</code>.
+   * @throws Exception
+   *           in case one of the stages or the given sink failed, or the
+   *           calling thread was interrupted.
+   */
+  @SuppressWarnings( "unchecked" )
+  public void run( final FrameSink<? super T> aSink ) throws Exception
+  {
+    final int stageCount = this.decoders.size() + 1;
+
+    final int batchSize = Math.min( MAX_BATCH_SIZE, this.queueCapacity );
+    final int batchCount = Math.max( 1, this.queueCapacity / batchSize );
+
+    final FrameQueue[] queues = new FrameQueue[stageCount];
+    for ( int i = 0; i < stageCount; i++ )
+    {
+      queues[i] = new FrameQueue( batchSize, batchCount );
+    }
+
+    final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+    final ExecutorService executor = Executors.newFixedThreadPool( stageCount, new ThreadFactory()
+    {
+      @Override
+      public Thread newThread( final Runnable aRunnable )
+      {
+        final Thread thread = new Thread( aRunnable, "DecoderPipeline-" + THREAD_COUNTER.incrementAndGet() );
+        thread.setDaemon( true );
+        thread.setPriority( Thread.NORM_PRIORITY - 1 );
+        return thread;
+      }
+    } );
+
+    try
+    {
+      final FrameQueue lastQueue = queues[stageCount - 1];
+
+      executor.execute( new Stage( executor, failure, lastQueue )
+      {
+        @Override
+        protected void runStage() throws Exception
+        {
+          ( ( FrameSource<Object> )DecoderPipeline.this.source ).produce( queues[0] );
+          queues[0].close();
+        }
+      } );
+
+      for ( int i = 1; i < stageCount; i++ )
+      {
+        final FrameDecoder<Object, Object> decoder = ( FrameDecoder<Object, Object> )this.decoders.get( i - 1 );
+        final FrameQueue input = queues[i - 1];
+        final FrameQueue output = queues[i];
+
+        executor.execute( new Stage( executor, failure, lastQueue )
+        {
+          @Override
+          protected void runStage() throws Exception
+          {
+            Object[] batch;
+            while ( ( batch = input.take() ) != null )
+            {
+              for ( Object frame : batch )
+              {
+                decoder.decode( frame, output );
+              }
+            }
+            decoder.end( output );
+            output.close();
+          }
+        } );
+      }
+
+      try
+      {
+        Object[] batch;
+        while ( ( batch = lastQueue.take() ) != null )
+        {
+          for ( Object frame : batch )
+          {
+            aSink.frame( ( T )frame );
+          }
+        }
+      }
+      catch ( Exception exception )
+      {
+        failure.compareAndSet( null, exception );
+      }
+
+      final Exception exception = failure.get();
+      if ( exception != null )
+      {
+        throw exception;
+      }
+    }
+    finally
+    {
+      // Interrupts all stages in case of failures...
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs this pipeline, writing each frame of the last stage as a row to the
+   * given table writer as soon as it is published.
+   * <p>
+   * The rows are streamed to the given writer, so no frames are retained by
+   * this pipeline. The writer is <em>not</em> closed by this method.
+   * </p>
+   * 
+   * @param aWriter
+   *          the table writer to write to, cannot be <code>null</code>;
+   * @param aMapper
+   *          the row mapper to map the frames onto the rows, cannot be
+   *          <code>null</code>.
+   * @throws Exception
+   *           in case one of the stages failed, writing a row failed, or the
+   *           calling thread was interrupted.
+   */
+  public void writeTo( final TableWriter aWriter, final RowMapper<? super T> aMapper ) throws Exception
+  {
+    aWriter.setColumns( aMapper.getColumnNames(), aMapper.getColumnTypes() );
+    try
+    {
+      run( new FrameSink<T>()
+      {
+        @Override
+        public void frame( final T aFrame )
+        {
+          try
+          {
+            aMapper.writeRow( aWriter, aFrame );
+            aWriter.endRow();
+          }
+          catch ( IOException exception )
+          {
+            throw new WriteFailure( exception );
+          }
+        }
+      } );
+    }
+    catch ( WriteFailure exception )
+    {
+      throw exception.getCause();
+    }
+  }
+
+  /**
+   * Returns a new pipeline that extends this pipeline with the given decoder.
+   * 
+   * @param aDecoder
+   *          the decoder to add, which consumes the frames of the current last
+   *          stage, cannot be <code>null</code>.
+   * @return a new pipeline, never <code>null</code>.
+   */
+  public <O> DecoderPipeline<O> then( final FrameDecoder<? super T, O> aDecoder )
+  {
+    if ( aDecoder == null )
+    {
+      throw new IllegalArgumentException( "Decoder cannot be null!" );
+    }
+
+    final List<FrameDecoder<?, ?>> newDecoders = new ArrayList<FrameDecoder<?, ?>>( this.decoders );
+    newDecoders.add( aDecoder );
+    return new DecoderPipeline<O>( this.source, newDecoders, this.queueCapacity );
+  }
+}
+
+/* EOF */
@@ -0,0 +1,68 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base.stream;
+
+
+/**
+ * Provides a stage of a decoder pipeline, which decodes higher-level frames
+ * from the frames of a lower-level decoder.
+ * <p>
+ * Decoders are only called from a single thread, hence, they do not need to
+ * be thread-safe.
+ * </p>
+ * 
+ * @param <I>
+ *          the type of frames consumed;
+ * @param <O>
+ *          the type of frames produced.
+ */
+public interface FrameDecoder<I, O>
+{
+  // METHODS
+
+  /**
+   * Decodes a single frame of the lower-level decoder, publishing zero or more
+   * frames to the given sink.
+   * 
+   * @param aFrame
+   *          the frame to decode, never <code>null</code>;
+   * @param aSink
+   *          the sink to publish the decoded frames to, never
+   *          <code>null</code>.
+   * @throws Exception
+   *           in case decoding failed, or the calling thread was interrupted.
+   */
+  void decode( I aFrame, FrameSink<? super O> aSink ) throws Exception;
+
+  /**
+   * Called after the last frame of the lower-level decoder, allowing any
+   * pending frames to be published.
+   * 
+   * @param aSink
+   *          the sink to publish the pending frames to, never
+   *          <code>null</code>.
+   * @throws Exception
+   *           in case decoding failed, or the calling thread was interrupted.
+   */
+  void end( FrameSink<? super O> aSink ) throws Exception;
+}
+
+/* EOF */
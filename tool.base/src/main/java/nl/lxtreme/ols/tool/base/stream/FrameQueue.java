@@ -0,0 +1,136 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base.stream;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+
+
+/**
+ * Provides a bounded queue of frames between two stages of a decoder pipeline.
+ * <p>
+ * Frames are passed in batches to keep the synchronization overhead per frame
+ * low. A producer blocks as long as the queue is full, thereby limiting the
+ * number of frames that are materialized at any time.
+ * </p>
+ */
+final class FrameQueue implements FrameSink<Object>
+{
+  // CONSTANTS
+
+  /** Denotes the end of the stream. */
+  private static final Object[] END = new Object[0];
+
+  // VARIABLES
+
+  private final BlockingQueue<Object[]> queue;
+  private final int batchSize;
+
+  private Object[] batch;
+  private int count;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new FrameQueue instance.
+   * 
+   * @param aBatchSize
+   *          the number of frames per batch, > 0;
+   * @param aBatchCount
+   *          the maximum number of pending batches, > 0.
+   */
+  FrameQueue( final int aBatchSize, final int aBatchCount )
+  {
+    this.queue = new ArrayBlockingQueue<Object[]>( aBatchCount );
+    this.batchSize = aBatchSize;
+    this.batch = new Object[aBatchSize];
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void frame( final Object aFrame ) throws InterruptedException
+  {
+    this.batch[this.count++] = aFrame;
+    if ( this.count == this.batchSize )
+    {
+      flush();
+    }
+  }
+
+  /**
+   * Wakes up the consumer of this queue, by discarding all pending frames and
+   * signalling the end of the stream. Used when the pipeline is aborted.
+   */
+  void abort()
+  {
+    this.queue.clear();
+    this.queue.offer( END );
+  }
+
+  /**
+   * Publishes all pending frames and signals the end of the stream.
+   * 
+   * @throws InterruptedException
+   *           in case the calling thread was interrupted.
+   */
+  void close() throws InterruptedException
+  {
+    flush();
+    this.queue.put( END );
+  }
+
+  /**
+   * Takes the next batch of frames from this queue, blocking until one is
+   * available.
+   * 
+   * @return the next batch of frames, or <code>null</code> at the end of the
+   *         stream.
+   * @throws InterruptedException
+   *           in case the calling thread was interrupted.
+   */
+  Object[] take() throws InterruptedException
+  {
+    final Object[] result = this.queue.take();
+    return ( result == END ) ? null : result;
+  }
+
+  /**
+   * Publishes the current (partial) batch of frames.
+   */
+  private void flush() throws InterruptedException
+  {
+    if ( this.count > 0 )
+    {
+      final Object[] full = ( this.count == this.batchSize ) ? this.batch : Arrays.copyOf( this.batch, this.count );
+      this.queue.put( full );
+
+      this.batch = new Object[this.batchSize];
+      this.count = 0;
+    }
+  }
+}
+
+/* EOF */
@@ -0,0 +1,47 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base.stream;
+
+
+/**
+ * Provides the first stage of a decoder pipeline, which decodes frames directly
+ * from sample data.
+ * 
+ * @param <T>
+ *          the type of frames produced.
+ */
+public interface FrameSource<T>
+{
+  // METHODS
+
+  /**
+   * Decodes all frames, and publishes them to the given sink, in order.
+   * 
+   * @param aSink
+   *          the sink to publish the decoded frames to, cannot be
+   *          <code>null</code>.
+   * @throws Exception
+   *           in case decoding failed, or the calling thread was interrupted.
+   */
+  void produce( FrameSink<? super T> aSink ) throws Exception;
+}
+
+/* EOF */
@@ -24,10 +24,13 @@ package nl.lxtreme.ols.tool.i2c;
 import static nl.lxtreme.ols.util.NumberUtils.*;
 
 import java.beans.*;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
 
 
@@ -36,6 +39,132 @@ import nl.lxtreme.ols.tool.base.annotation.*;
  */
 public class I2CAnalyserTask implements ToolTask<I2CDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Denotes the state of the decoder between two samples.
+   */
+  static final class DecoderState
+  {
+    // VARIABLES
+
+    int oldSCL;
+    int oldSDA;
+    int bitCount;
+    int byteValue;
+    int prevIdx;
+    boolean startCondFound;
+    boolean tenBitAddress;
+    int slaveAddress;
+    int direction;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new DecoderState instance, denoting an idle bus.
+     */
+    DecoderState()
+    {
+      this.bitCount = I2C_BITCOUNT;
+      this.prevIdx = -1;
+      this.direction = -1;
+    }
+
+    // METHODS
+
+    /**
+     * Returns a copy of this decoder state.
+     * 
+     * @return a copy of this state, never <code>null</code>.
+     */
+    DecoderState copy()
+    {
+      final DecoderState result = new DecoderState();
+      result.oldSCL = this.oldSCL;
+      result.oldSDA = this.oldSDA;
+      result.bitCount = this.bitCount;
+      result.byteValue = this.byteValue;
+      result.prevIdx = this.prevIdx;
+      result.startCondFound = this.startCondFound;
+      result.tenBitAddress = this.tenBitAddress;
+      result.slaveAddress = this.slaveAddress;
+      result.direction = this.direction;
+      return result;
+    }
+
+    /**
+     * Returns whether decoding from this state yields the same results as
+     * decoding from the given state.
+     * 
+     * @param aState
+     *          the state to compare against, cannot be <code>null</code>.
+     * @return <code>true</code> if both states are equivalent,
+     *         <code>false</code> otherwise.
+     */
+    boolean isEquivalentTo( final DecoderState aState )
+    {
+      if ( ( this.oldSCL != aState.oldSCL ) || ( this.oldSDA != aState.oldSDA ) || ( this.bitCount != aState.bitCount )
+          || ( this.byteValue != aState.byteValue ) || ( this.startCondFound != aState.startCondFound )
+          || ( this.tenBitAddress != aState.tenBitAddress ) || ( this.slaveAddress != aState.slaveAddress )
+          || ( this.direction != aState.direction ) )
+      {
+        return false;
+      }
+      // The start index of a byte is always overwritten by the first falling
+      // SCL edge in case we're at a byte boundary with SCL high...
+      if ( ( this.bitCount == I2C_BITCOUNT ) && ( this.oldSCL != 0 ) )
+      {
+        return true;
+      }
+      return this.prevIdx == aState.prevIdx;
+    }
+  }
+
+  /**
+   * Denotes a chunk of one or more I2C transactions that is decoded
+   * independently.
+   */
+  final class TransactionChunk
+  {
+    // VARIABLES
+
+    final int startIdx;
+    int endIdx;
+    DecoderState startState;
+    DecoderState endState;
+    I2CDataSet dataSet;
+    RecordingAnnotationListener annotations;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new TransactionChunk instance.
+     */
+    TransactionChunk( final DecoderState aStartState, final int aStartIdx )
+    {
+      this.startState = aStartState;
+      this.startIdx = aStartIdx;
+    }
+
+    // METHODS
+
+    /**
+     * Decodes this chunk, starting with its start state.
+     * 
+     * @param aDataSet
+     *          the data set defining the decoding range.
+     */
+    void decode( final I2CDataSet aDataSet )
+    {
+      this.dataSet = new I2CDataSet( aDataSet.getStartOfDecode(), aDataSet.getEndOfDecode(),
+          I2CAnalyserTask.this.context.getData() );
+      this.annotations = new RecordingAnnotationListener();
+      this.endState = this.startState.copy();
+
+      I2CAnalyserTask.this.decode( this.dataSet, this.annotations, this.endState, this.startIdx, this.endIdx, false );
+    }
+  }
+
   // CONSTANTS
 
   public static final String LINE_A = "LineA";
@@ -69,6 +198,7 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
   private int lineBidx;
   private int sdaIdx;
   private int sclIdx;
+  private boolean parallelDecode;
 
   // CONSTRUCTORS
 
@@ -89,6 +219,7 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
 
     // the default behaviour is remained as-is...
     this.detectSDA_SCL = true;
+    this.parallelDecode = true;
   }
 
   // METHODS
@@ -118,10 +249,6 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
 
     final int[] values = data.getValues();
 
-    // process the captured data and write to output
-    int oldSCL, oldSDA, bitCount;
-    int byteValue;
-
     if ( LOG.isLoggable( Level.FINE ) )
     {
       LOG.log( Level.FINE, "Line A mask = 0x{0}", Integer.toHexString( this.lineAmask ) );
@@ -157,19 +284,12 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
      * to scan for SCL rises and for SDA changes during SCL is high. Each byte
      * is followed by a 9th bit (ACK/NACK).
      */
-    int idx = i2cDataSet.getStartOfDecode();
-    int prevIdx = -1;
-
-    oldSCL = values[idx] & sclMask;
-    oldSDA = values[idx] & sdaMask;
-
-    bitCount = I2C_BITCOUNT;
-    byteValue = 0;
+    final int startIdx = i2cDataSet.getStartOfDecode();
+    final int endIdx = i2cDataSet.getEndOfDecode() - 1;
 
-    boolean startCondFound = false;
-    boolean tenBitAddress = false;
-    int slaveAddress = 0x00;
-    int direction = -1;
+    final DecoderState state = new DecoderState();
+    state.oldSCL = values[startIdx] & sclMask;
+    state.oldSDA = values[startIdx] & sdaMask;
 
     if ( this.detectSDA_SCL )
     {
@@ -179,168 +299,23 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
       this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, startOfDecode, startOfDecode,
           I2CDataSet.I2C_START ) );
 
-      startCondFound = true;
+      state.startCondFound = true;
     }
 
-    for ( ; idx < ( i2cDataSet.getEndOfDecode() - 1 ); idx++ )
+    // Transactions are delimited by STOP conditions, so we can decode them
+    // independently...
+    if ( this.parallelDecode && ( ( endIdx - startIdx ) >= ( 2 * ParallelDecoder.MIN_CHUNK_SIZE ) ) )
     {
-      final int dataValue = values[idx];
-
-      final int sda = ( dataValue & sdaMask );
-      final int scl = ( dataValue & sclMask );
-
-      // detect SCL fall/rise
-      if ( oldSCL > scl )
+      final List<TransactionChunk> chunks = findTransactionChunks( state, startIdx, endIdx );
+      if ( chunks.size() > 1 )
       {
-        // SCL falls
-        if ( ( prevIdx < 0 ) || ( bitCount == I2C_BITCOUNT ) )
-        {
-          prevIdx = idx;
-        }
-
-        if ( bitCount == 0 )
-        {
-          // store decoded byte
-          reportData( i2cDataSet, prevIdx, idx, byteValue );
-
-          final String annotation;
-          if ( startCondFound )
-          {
-            // This is the (7- or 10-bit) address part...
-            direction = ( byteValue & 0x01 );
-
-            if ( ( byteValue & 0xf8 ) == 0xf0 )
-            {
-              // 10-bit address part...
-              slaveAddress = ( byteValue & 0x06 ) << 6;
-              tenBitAddress = true;
-
-              annotation = String.format( "Setup %s 10-bit slave", ( direction == 1 ) ? "read from" : "write to" );
-            }
-            else
-            {
-              if ( tenBitAddress )
-              {
-                // 10-bit address needs the first few bits of the previous slave
-                // address, so OR-ing is needed here...
-                slaveAddress |= ( byteValue & 0xFF );
-              }
-              else
-              {
-                // 7-bit address, directly available. See issue #51
-                slaveAddress = ( ( byteValue >> 1 ) & 0xFF );
-              }
-              startCondFound = false;
-
-              annotation = String.format( tenBitAddress ? "Setup %s slave: 0x%X " : "Setup %s slave: 0x%X [0x%X]",
-                  ( direction == 1 ) ? "read from" : "write to", Integer.valueOf( slaveAddress ),
-                  Integer.valueOf( byteValue ) );
-
-              tenBitAddress = false;
-            }
-          }
-          else
-          {
-            annotation = String.format( "%s data: 0x%X (%c)", ( direction == 1 ) ? "Read" : "Write",
-                Integer.valueOf( byteValue ), Integer.valueOf( byteValue ) );
-          }
-
-          this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, prevIdx, idx, annotation ) );
-
-          byteValue = 0;
-        }
-      }
-      else if ( scl > oldSCL )
-      {
-        // SCL rises
-        if ( sda != oldSDA )
-        {
-          reportBusError( i2cDataSet, idx );
-        }
-        else
-        {
-          // read SDA
-          if ( bitCount != 0 )
-          {
-            bitCount--;
-            if ( sda != 0 )
-            {
-              byteValue |= ( 1 << bitCount );
-            }
-          }
-          else
-          {
-            // read the confirmation of the slave...
-            if ( sda != 0 )
-            {
-              // NACK
-              reportNACK( i2cDataSet, idx );
-
-              this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, idx, idx,
-                  I2CDataSet.I2C_NACK ) );
-            }
-            else
-            {
-              // ACK
-              reportACK( i2cDataSet, idx );
-
-              this.annotationListener
-                  .onAnnotation( new SampleDataAnnotation( this.sdaIdx, idx, idx, I2CDataSet.I2C_ACK ) );
-            }
-
-            // next byte
-            bitCount = I2C_BITCOUNT;
-            byteValue = 0;
-          }
-        }
+        decodeInParallel( i2cDataSet, chunks );
+        return i2cDataSet;
       }
-
-      // detect SDA change when SCL high
-      if ( ( scl == sclMask ) && ( sda != oldSDA ) )
-      {
-        // SDA changes here
-        if ( ( bitCount > 0 ) && ( bitCount < ( I2C_BITCOUNT - 1 ) ) )
-        {
-          // bus error, no complete byte detected
-          reportBusError( i2cDataSet, idx );
-        }
-        else
-        {
-          if ( sda > oldSDA )
-          {
-            // SDA rises, this is a stop condition
-            reportStopCondition( i2cDataSet, idx );
-
-            this.annotationListener
-                .onAnnotation( new SampleDataAnnotation( this.sdaIdx, idx, idx, I2CDataSet.I2C_STOP ) );
-
-            slaveAddress = 0x00;
-            direction = -1;
-          }
-          else
-          {
-            // SDA falls, this is a start condition
-            reportStartCondition( i2cDataSet, idx );
-
-            this.annotationListener
-                .onAnnotation( new SampleDataAnnotation( this.sdaIdx, idx, idx, I2CDataSet.I2C_START ) );
-
-            startCondFound = true;
-          }
-
-          // new byte
-          bitCount = I2C_BITCOUNT;
-          byteValue = 0;
-        }
-      }
-
-      oldSCL = scl;
-      oldSDA = sda;
-
-      this.progressListener
-          .setProgress( getPercentage( idx, i2cDataSet.getStartOfDecode(), i2cDataSet.getEndOfDecode() ) );
     }
 
+    decode( i2cDataSet, this.annotationListener, state, startIdx, endIdx, true );
+
     return i2cDataSet;
   }
 
@@ -382,6 +357,21 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
     this.lineBmask = 1 << aLineBidx;
   }
 
+  /**
+   * Sets whether or not the I2C transactions, as delimited by STOP
+   * conditions, may be decoded concurrently. This is only done when the data
+   * to decode is sufficiently large.
+   * 
+   * @param aParallelDecode
+   *          <code>true</code> to allow transactions to be decoded
+   *          concurrently, <code>false</code> to always decode all
+   *          transactions sequentially.
+   */
+  public void setParallelDecode( final boolean aParallelDecode )
+  {
+    this.parallelDecode = aParallelDecode;
+  }
+
   /**
    * @param aReportACK
    */
@@ -515,6 +505,328 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
     return sampleIdx;
   }
 
+  /**
+   * Decodes the I2C-data for a given range of samples.
+   * 
+   * @param aDataSet
+   *          the decoded data to fill;
+   * @param aAnnotationListener
+   *          the annotation listener to report the decoded data to;
+   * @param aState
+   *          the decoder state at the start of the given range, will be
+   *          updated to reflect the state at the end of the given range;
+   * @param aStartIdx
+   *          the first sample index to decode;
+   * @param aEndIdx
+   *          the sample index to stop decoding at (exclusive);
+   * @param aReportProgress
+   *          <code>true</code> to report the progress of the decoding,
+   *          <code>false</code> otherwise.
+   */
+  private void decode( final I2CDataSet aDataSet, final AnnotationListener aAnnotationListener,
+      final DecoderState aState, final int aStartIdx, final int aEndIdx, final boolean aReportProgress )
+  {
+    final int[] values = this.context.getData().getValues();
+
+    final int sdaMask = ( 1 << this.sdaIdx );
+    final int sclMask = ( 1 << this.sclIdx );
+
+    int oldSCL = aState.oldSCL;
+    int oldSDA = aState.oldSDA;
+    int bitCount = aState.bitCount;
+    int byteValue = aState.byteValue;
+    int prevIdx = aState.prevIdx;
+
+    boolean startCondFound = aState.startCondFound;
+    boolean tenBitAddress = aState.tenBitAddress;
+    int slaveAddress = aState.slaveAddress;
+    int direction = aState.direction;
+
+    for ( int idx = aStartIdx; idx < aEndIdx; idx++ )
+    {
+      final int dataValue = values[idx];
+
+      final int sda = ( dataValue & sdaMask );
+      final int scl = ( dataValue & sclMask );
+
+      // detect SCL fall/rise
+      if ( oldSCL > scl )
+      {
+        // SCL falls
+        if ( ( prevIdx < 0 ) || ( bitCount == I2C_BITCOUNT ) )
+        {
+          prevIdx = idx;
+        }
+
+        if ( bitCount == 0 )
+        {
+          // store decoded byte
+          reportData( aDataSet, prevIdx, idx, byteValue );
+
+          final String annotation;
+          if ( startCondFound )
+          {
+            // This is the (7- or 10-bit) address part...
+            direction = ( byteValue & 0x01 );
+
+            if ( ( byteValue & 0xf8 ) == 0xf0 )
+            {
+              // 10-bit address part...
+              slaveAddress = ( byteValue & 0x06 ) << 6;
+              tenBitAddress = true;
+
+              annotation = String.format( "Setup %s 10-bit slave", ( direction == 1 ) ? "read from" : "write to" );
+            }
+            else
+            {
+              if ( tenBitAddress )
+              {
+                // 10-bit address needs the first few bits of the previous slave
+                // address, so OR-ing is needed here...
+                slaveAddress |= ( byteValue & 0xFF );
+              }
+              else
+              {
+                // 7-bit address, directly available. See issue #51
+                slaveAddress = ( ( byteValue >> 1 ) & 0xFF );
+              }
+              startCondFound = false;
+
+              annotation = String.format( tenBitAddress ? "Setup %s slave: 0x%X " : "Setup %s slave: 0x%X [0x%X]",
+                  ( direction == 1 ) ? "read from" : "write to", Integer.valueOf( slaveAddress ),
+                  Integer.valueOf( byteValue ) );
+
+              tenBitAddress = false;
+            }
+          }
+          else
+          {
+            annotation = String.format( "%s data: 0x%X (%c)", ( direction == 1 ) ? "Read" : "Write",
+                Integer.valueOf( byteValue ), Integer.valueOf( byteValue ) );
+          }
+
+          aAnnotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, prevIdx, idx, annotation ) );
+
+          byteValue = 0;
+        }
+      }
+      else if ( scl > oldSCL )
+      {
+        // SCL rises
+        if ( sda != oldSDA )
+        {
+          reportBusError( aDataSet, idx );
+        }
+        else
+        {
+          // read SDA
+          if ( bitCount != 0 )
+          {
+            bitCount--;
+            if ( sda != 0 )
+            {
+              byteValue |= ( 1 << bitCount );
+            }
+          }
+          else
+          {
+            // read the confirmation of the slave...
+            if ( sda != 0 )
+            {
+              // NACK
+              reportNACK( aDataSet, idx );
+
+              aAnnotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, idx, idx,
+                  I2CDataSet.I2C_NACK ) );
+            }
+            else
+            {
+              // ACK
+              reportACK( aDataSet, idx );
+
+              aAnnotationListener
+                  .onAnnotation( new SampleDataAnnotation( this.sdaIdx, idx, idx, I2CDataSet.I2C_ACK ) );
+            }
+
+            // next byte
+            bitCount = I2C_BITCOUNT;
+            byteValue = 0;
+          }
+        }
+      }
+
+      // detect SDA change when SCL high
+      if ( ( scl == sclMask ) && ( sda != oldSDA ) )
+      {
+        // SDA changes here
+        if ( ( bitCount > 0 ) && ( bitCount < ( I2C_BITCOUNT - 1 ) ) )
+        {
+          // bus error, no complete byte detected
+          reportBusError( aDataSet, idx );
+        }
+        else
+        {
+          if ( sda > oldSDA )
+          {
+            // SDA rises, this is a stop condition
+            reportStopCondition( aDataSet, idx );
+
+            aAnnotationListener
+                .onAnnotation( new SampleDataAnnotation( this.sdaIdx, idx, idx, I2CDataSet.I2C_STOP ) );
+
+            slaveAddress = 0x00;
+            direction = -1;
+          }
+          else
+          {
+            // SDA falls, this is a start condition
+            reportStartCondition( aDataSet, idx );
+
+            aAnnotationListener
+                .onAnnotation( new SampleDataAnnotation( this.sdaIdx, idx, idx, I2CDataSet.I2C_START ) );
+
+            startCondFound = true;
+          }
+
+          // new byte
+          bitCount = I2C_BITCOUNT;
+          byteValue = 0;
+        }
+      }
+
+      oldSCL = scl;
+      oldSDA = sda;
+
+      if ( aReportProgress )
+      {
+        this.progressListener.setProgress( getPercentage( idx, aDataSet.getStartOfDecode(),
+            aDataSet.getEndOfDecode() ) );
+      }
+    }
+
+    aState.oldSCL = oldSCL;
+    aState.oldSDA = oldSDA;
+    aState.bitCount = bitCount;
+    aState.byteValue = byteValue;
+    aState.prevIdx = prevIdx;
+    aState.startCondFound = startCondFound;
+    aState.tenBitAddress = tenBitAddress;
+    aState.slaveAddress = slaveAddress;
+    aState.direction = direction;
+  }
+
+  /**
+   * Decodes the given transaction chunks concurrently, and merges their
+   * results in order into the given data set.
+   * <p>
+   * Each chunk (except the first) is decoded presuming that the bus is idle
+   * after the STOP condition the chunk starts after. While merging, this
+   * presumption is verified against the actual state at the end of the
+   * preceding chunk; if it does not hold (for example, due to a bus error),
+   * the chunk is decoded once more from the actual state. This way, the result
+   * is always identical to a sequential decode.
+   * </p>
+   * 
+   * @param aDataSet
+   *          the decoded data to fill;
+   * @param aChunks
+   *          the chunks to decode, cannot be <code>null</code> or empty.
+   */
+  private void decodeInParallel( final I2CDataSet aDataSet, final List<TransactionChunk> aChunks ) throws Exception
+  {
+    final List<Callable<TransactionChunk>> tasks = new ArrayList<Callable<TransactionChunk>>( aChunks.size() );
+    for ( final TransactionChunk chunk : aChunks )
+    {
+      tasks.add( new Callable<TransactionChunk>()
+      {
+        @Override
+        public TransactionChunk call() throws Exception
+        {
+          chunk.decode( aDataSet );
+          return chunk;
+        }
+      } );
+    }
+
+    final List<TransactionChunk> results = ParallelDecoder.invokeAll( tasks );
+
+    DecoderState actualState = null;
+    for ( TransactionChunk chunk : results )
+    {
+      if ( ( actualState != null ) && !actualState.isEquivalentTo( chunk.startState ) )
+      {
+        LOG.log( Level.FINE, "Transaction at {0} does not start on an idle bus; decoding it again...",
+            Integer.valueOf( chunk.startIdx ) );
+        chunk.startState = actualState.copy();
+        chunk.decode( aDataSet );
+      }
+
+      aDataSet.addAll( chunk.dataSet );
+      chunk.annotations.replay( this.annotationListener );
+      actualState = chunk.endState;
+
+      this.progressListener.setProgress( getPercentage( chunk.endIdx, aDataSet.getStartOfDecode(),
+          aDataSet.getEndOfDecode() ) );
+    }
+  }
+
+  /**
+   * Performs a fast pre-pass over the sample data to determine the chunks of
+   * transactions that can be decoded independently. Chunks always start right
+   * after a STOP condition, and are at least
+   * {@link ParallelDecoder#getChunkSize(int, int)} samples long.
+   * 
+   * @param aInitialState
+   *          the decoder state at the start of decoding;
+   * @param aStartIdx
+   *          the sample index at which decoding starts;
+   * @param aEndIdx
+   *          the sample index at which decoding ends.
+   * @return a list with transaction chunks, never <code>null</code>.
+   */
+  private List<TransactionChunk> findTransactionChunks( final DecoderState aInitialState, final int aStartIdx,
+      final int aEndIdx )
+  {
+    final int[] values = this.context.getData().getValues();
+
+    final int sdaMask = ( 1 << this.sdaIdx );
+    final int sclMask = ( 1 << this.sclIdx );
+
+    final int chunkSize = ParallelDecoder.getChunkSize( aStartIdx, aEndIdx );
+
+    final List<TransactionChunk> result = new ArrayList<TransactionChunk>();
+
+    TransactionChunk chunk = new TransactionChunk( aInitialState.copy(), aStartIdx );
+
+    int oldSDA = aInitialState.oldSDA;
+    for ( int idx = aStartIdx; idx < aEndIdx; idx++ )
+    {
+      final int dataValue = values[idx];
+      final int sda = ( dataValue & sdaMask );
+
+      // SDA rising while SCL is high denotes a STOP condition...
+      if ( ( sda > oldSDA ) && ( ( dataValue & sclMask ) != 0 ) && ( ( idx + 1 - chunk.startIdx ) >= chunkSize )
+          && ( ( aEndIdx - idx - 1 ) >= chunkSize ) )
+      {
+        chunk.endIdx = idx + 1;
+        result.add( chunk );
+
+        final DecoderState state = new DecoderState();
+        state.oldSCL = dataValue & sclMask;
+        state.oldSDA = sda;
+
+        chunk = new TransactionChunk( state, idx + 1 );
+      }
+
+      oldSDA = sda;
+    }
+
+    chunk.endIdx = aEndIdx;
+    result.add( chunk );
+
+    return result;
+  }
+
   /**
    * Prepares everything for the upcoming results.
    */
@@ -59,6 +59,33 @@ public final class I2CDataSet extends BaseDataSet<I2CData>
 
   // METHODS
 
+  /**
+   * Appends all data of the given data set to this data set, renumbering the
+   * appended data to follow the data already present in this data set.
+   * 
+   * @param aDataSet
+   *          the data set to append, cannot be <code>null</code>.
+   */
+  public void addAll( final I2CDataSet aDataSet )
+  {
+    for ( I2CData data : aDataSet.getData() )
+    {
+      final int idx = size();
+      if ( data.isEvent() )
+      {
+        addData( new I2CData( idx, data.getChannelIdx(), data.getStartSampleIndex(), data.getEventName() ) );
+      }
+      else
+      {
+        addData( new I2CData( idx, data.getChannelIdx(), data.getStartSampleIndex(), data.getEndSampleIndex(),
+            data.getValue() ) );
+      }
+    }
+
+    this.busErrors += aDataSet.busErrors;
+    this.decodedBytes += aDataSet.decodedBytes;
+  }
+
   /**
    * Returns the number of bus errors.
    * 
@@ -36,11 +36,11 @@ import java.util.logging.*;
 import javax.swing.*;
 
 import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.export.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.ToolUtils.RestorableAction;
 import nl.lxtreme.ols.util.*;
-import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
@@ -115,9 +115,9 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   @Override
   public void exportToFile( final File aOutputFile, final ExportFormat aFormat ) throws IOException
   {
-    if ( ExportFormat.CSV.equals( aFormat ) )
+    if ( ExportFormat.CSV.equals( aFormat ) || ExportFormat.BINARY.equals( aFormat ) )
     {
-      storeToCsvFile( aOutputFile, getLastResult() );
+      storeToTableFile( aOutputFile, aFormat, getLastResult() );
     }
     else if ( ExportFormat.HTML.equals( aFormat ) )
     {
@@ -398,6 +398,7 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   private JPanel createSettingsPane()
   {
     final int channelCount = getData().getChannels();
+    final int channelOffset = getChannelOffset();
 
     this.busSetSCL = new JLabel( "<autodetect>" );
     this.busSetSDA = new JLabel( "<autodetect>" );
@@ -410,12 +411,12 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
     this.lineBLabel = createRightAlignedLabel( "Line B" );
 
     panel.add( this.lineALabel );
-    this.lineA = SwingComponentUtils.createChannelSelector( channelCount );
+    this.lineA = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.lineA.setSelectedIndex( 0 );
     panel.add( this.lineA );
 
     panel.add( this.lineBLabel );
-    this.lineB = SwingComponentUtils.createChannelSelector( channelCount );
+    this.lineB = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.lineB.setSelectedIndex( 1 );
     panel.add( this.lineB );
 
@@ -534,40 +535,35 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   }
 
   /**
-   * Stores the given analysis results to the given file in CSV format.
+   * Stores the given analysis results to the given file as CSV or binary table.
    * 
-   * @param aSelectedFile
-   * @param aAnalysisResult
+   * @param aFile
+   *          the file to write to;
+   * @param aFormat
+   *          the tabular format to write in;
+   * @param aDataSet
+   *          the analysis results to write.
    */
-  private void storeToCsvFile( final File aSelectedFile, final I2CDataSet aAnalysisResult )
+  private void storeToTableFile( final File aFile, final ExportFormat aFormat, final I2CDataSet aDataSet )
   {
     try
     {
-      final CsvExporter exporter = ExportUtils.createCsvExporter( aSelectedFile );
-
-      exporter.setHeaders( "index", "start-time", "end-time", "event?", "event-type", "data" );
-
-      final List<I2CData> dataSet = aAnalysisResult.getData();
-      for ( int i = 0; i < dataSet.size(); i++ )
+      final TableWriter writer = ToolUtils.createTableWriter( aFile, aFormat );
+      try
       {
-        final I2CData ds = dataSet.get( i );
-
-        final String startTime = aAnalysisResult.getDisplayTime( ds.getStartSampleIndex() );
-        final String endTime = aAnalysisResult.getDisplayTime( ds.getEndSampleIndex() );
-        final String data = ds.isEvent() ? "" : Character.toString( ( char )ds.getValue() );
-
-        exporter.addRow( Integer.valueOf( i ), startTime, endTime, Boolean.valueOf( ds.isEvent() ), ds.getEventName(),
-            data );
+        aDataSet.writeTo( writer, new I2CDataRowMapper( aDataSet ) );
+      }
+      finally
+      {
+        writer.close();
       }
-
-      exporter.close();
     }
     catch ( final IOException exception )
     {
       // Make sure to handle IO-interrupted exceptions properly!
       if ( !HostUtils.handleInterruptedException( exception ) )
       {
-        LOG.log( Level.WARNING, "CSV export failed!", exception );
+        LOG.log( Level.WARNING, "Table export failed!", exception );
       }
     }
   }
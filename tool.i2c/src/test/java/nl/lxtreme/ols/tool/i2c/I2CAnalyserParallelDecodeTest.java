@@ -0,0 +1,238 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.i2c;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.test.data.DataTestUtils.TestDataProvider;
+import nl.lxtreme.ols.tool.base.*;
+
+import org.junit.*;
+import org.mockito.*;
+
+
+/**
+ * Tests that decoding I2C transactions concurrently yields the same results as
+ * decoding them sequentially.
+ */
+public class I2CAnalyserParallelDecodeTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides I2C write transactions of random bytes, optionally with the
+   * occasional bus error.
+   */
+  static class I2CTransactionDataProvider implements TestDataProvider
+  {
+    // VARIABLES
+
+    private final int errorInterval;
+
+    private int[] values;
+    private long[] timestamps;
+    private int idx;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new I2CTransactionDataProvider instance.
+     * 
+     * @param aErrorInterval
+     *          the interval of transactions that should contain a bus error, 0
+     *          to never cause a bus error.
+     */
+    public I2CTransactionDataProvider( final int aErrorInterval )
+    {
+      this.errorInterval = aErrorInterval;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fillData( final int[] aValues, final long[] aTimestamps, final int aDataSize )
+    {
+      final Random rnd = new Random( 4711L );
+
+      this.values = aValues;
+      this.timestamps = aTimestamps;
+      this.idx = 0;
+
+      int transaction = 0;
+      while ( this.idx < aDataSize )
+      {
+        transaction++;
+
+        // Bus idle...
+        addSample( SCL_MASK | SDA_MASK );
+        addSample( SCL_MASK | SDA_MASK );
+        // START condition...
+        addSample( SCL_MASK );
+        addSample( 0 );
+
+        final int byteCount = 1 + rnd.nextInt( 4 );
+        for ( int i = 0; i < byteCount; i++ )
+        {
+          int bits = 8;
+          if ( ( this.errorInterval > 0 ) && ( ( transaction % this.errorInterval ) == 0 ) && ( i == 0 ) )
+          {
+            // Cause a STOP condition halfway a byte...
+            bits = 4;
+          }
+          addByte( rnd.nextInt( 256 ), bits );
+        }
+
+        // STOP condition...
+        addSample( 0 );
+        addSample( SCL_MASK );
+        addSample( SCL_MASK | SDA_MASK );
+      }
+    }
+
+    /**
+     * Adds the given number of (MSB) bits of a byte, followed by an ACK.
+     */
+    private void addByte( final int aByteValue, final int aBits )
+    {
+      for ( int bit = 7; bit >= ( 8 - aBits ); bit-- )
+      {
+        addBit( ( aByteValue & ( 1 << bit ) ) != 0 );
+      }
+      if ( aBits == 8 )
+      {
+        // ACK...
+        addBit( false );
+      }
+    }
+
+    /**
+     * Adds a single bit.
+     */
+    private void addBit( final boolean aHigh )
+    {
+      final int sda = aHigh ? SDA_MASK : 0;
+      addSample( sda );
+      addSample( sda | SCL_MASK );
+      addSample( sda );
+    }
+
+    /**
+     * Adds a single sample, if there is room for it.
+     */
+    private void addSample( final int aValue )
+    {
+      if ( this.idx < this.values.length )
+      {
+        this.values[this.idx] = aValue;
+        this.timestamps[this.idx] = this.idx;
+        this.idx++;
+      }
+    }
+  }
+
+  // CONSTANTS
+
+  private static final int SCL_IDX = 0;
+  private static final int SDA_IDX = 1;
+
+  private static final int SCL_MASK = 1 << SCL_IDX;
+  private static final int SDA_MASK = 1 << SDA_IDX;
+
+  private static final int DATA_SIZE = 5 * ParallelDecoder.MIN_CHUNK_SIZE;
+
+  // METHODS
+
+  /**
+   * Tests that a parallel decode of well-formed transactions results in the
+   * same data as a sequential decode.
+   */
+  @Test
+  public void testParallelDecodeEqualsSequentialDecode() throws Exception
+  {
+    assertParallelDecodeEqualsSequentialDecode( new I2CTransactionDataProvider( 0 ) );
+  }
+
+  /**
+   * Tests that a parallel decode of transactions, some of which contain bus
+   * errors, results in the same data as a sequential decode.
+   */
+  @Test
+  public void testParallelDecodeWithBusErrorsEqualsSequentialDecode() throws Exception
+  {
+    assertParallelDecodeEqualsSequentialDecode( new I2CTransactionDataProvider( 101 ) );
+  }
+
+  /**
+   * Analyses the generated data.
+   */
+  private I2CDataSet analyse( final ToolContext aToolContext, final boolean aParallelDecode ) throws Exception
+  {
+    ToolProgressListener tpl = Mockito.mock( ToolProgressListener.class );
+    AnnotationListener al = Mockito.mock( AnnotationListener.class );
+
+    I2CAnalyserTask worker = new I2CAnalyserTask( aToolContext, tpl, al );
+    worker.setLineAIndex( SCL_IDX );
+    worker.setLineBIndex( SDA_IDX );
+    worker.setDetectSDA_SCL( true );
+    worker.setReportACK( true );
+    worker.setReportNACK( true );
+    worker.setReportStart( true );
+    worker.setReportStop( true );
+    worker.setParallelDecode( aParallelDecode );
+
+    return worker.call();
+  }
+
+  /**
+   * Decodes the data of the given provider both sequentially and in parallel,
+   * and asserts both results are equal.
+   */
+  private void assertParallelDecodeEqualsSequentialDecode( final TestDataProvider aProvider ) throws Exception
+  {
+    final DataContainer container = DataTestUtils.createMockDataContainer( DATA_SIZE, 2, 1000000, aProvider );
+    final ToolContext toolContext = DataTestUtils.createToolContext( container, 0, DATA_SIZE - 1 );
+
+    final I2CDataSet expected = analyse( toolContext, false );
+    final I2CDataSet actual = analyse( toolContext, true );
+
+    assertFalse( expected.isEmpty() );
+    assertEquals( expected.getDecodedByteCount(), actual.getDecodedByteCount() );
+    assertEquals( expected.getBusErrorCount(), actual.getBusErrorCount() );
+    assertEquals( expected.getData().size(), actual.getData().size() );
+    for ( int i = 0; i < expected.getData().size(); i++ )
+    {
+      final I2CData expectedData = expected.getData().get( i );
+      final I2CData actualData = actual.getData().get( i );
+
+      assertEquals( "Data at index " + i + " not equal, ", expectedData, actualData );
+      assertEquals( expectedData.getEventName(), actualData.getEventName() );
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.jtag;
+
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.data.export.*;
+
+
+/**
+ * Maps decoded JTAG data onto table rows, for exporting it.
+ */
+final class JTAGDataRowMapper implements RowMapper<JTAGData>
+{
+  // CONSTANTS
+
+  private static final String[] NAMES = { "index", "time", "state", "TDI data", "TDO data" };
+  private static final ColumnType[] TYPES = { ColumnType.INT, ColumnType.DOUBLE, ColumnType.STRING, ColumnType.INT,
+      ColumnType.INT };
+
+  // VARIABLES
+
+  private final JTAGDataSet dataSet;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new JTAGDataRowMapper instance.
+   * 
+   * @param aDataSet
+   *          the data set to take the time values from, cannot be
+   *          <code>null</code>.
+   */
+  JTAGDataRowMapper( final JTAGDataSet aDataSet )
+  {
+    this.dataSet = aDataSet;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String[] getColumnNames()
+  {
+    return NAMES.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ColumnType[] getColumnTypes()
+  {
+    return TYPES.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeRow( final TableWriter aWriter, final JTAGData aData ) throws IOException
+  {
+    aWriter.writeInt( aData.getIndex() );
+    aWriter.writeDouble( this.dataSet.getTime( aData.getStartSampleIndex() ) );
+    aWriter.writeString( aData.isEvent() ? aData.getEventName() : aData.getDataValue().getDisplayText() );
+
+    if ( aData.isTdiData() )
+    {
+      aWriter.writeInt( aData.getDataValue().ordinal() ).writeNull();
+    }
+    else if ( aData.isTdoData() )
+    {
+      aWriter.writeNull().writeInt( aData.getDataValue().ordinal() );
+    }
+  }
+}
@@ -36,11 +36,11 @@ import javax.swing.*;
 import org.osgi.framework.*;
 
 import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.export.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.ToolUtils.RestorableAction;
 import nl.lxtreme.ols.util.*;
-import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
@@ -108,9 +108,9 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
     {
       storeToHtmlFile( aOutputFile, getLastResult() );
     }
-    else if ( ExportFormat.CSV.equals( aFormat ) )
+    else if ( ExportFormat.CSV.equals( aFormat ) || ExportFormat.BINARY.equals( aFormat ) )
     {
-      storeToCsvFile( aOutputFile, getLastResult() );
+      storeToTableFile( aOutputFile, aFormat, getLastResult() );
     }
   }
 
@@ -307,28 +307,29 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
   private JPanel createSettingsPane()
   {
     final int channelCount = getData().getChannels();
+    final int channelOffset = getChannelOffset();
 
     final JPanel settings = new JPanel( new SpringLayout() );
 
     SpringLayoutUtils.addSeparator( settings, "Settings" );
 
     settings.add( createRightAlignedLabel( "TCK" ) );
-    this.tck = SwingComponentUtils.createChannelSelector( channelCount );
+    this.tck = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.tck.setSelectedIndex( 0 );
     settings.add( this.tck );
 
     settings.add( createRightAlignedLabel( "TMS" ) );
-    this.tms = SwingComponentUtils.createChannelSelector( channelCount );
+    this.tms = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.tms.setSelectedIndex( 1 );
     settings.add( this.tms );
 
     settings.add( createRightAlignedLabel( "TDI" ) );
-    this.tdi = SwingComponentUtils.createOptionalChannelSelector( channelCount );
+    this.tdi = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
     this.tdi.setSelectedIndex( 3 );
     settings.add( this.tdi );
 
     settings.add( createRightAlignedLabel( "TDO" ) );
-    this.tdo = SwingComponentUtils.createOptionalChannelSelector( channelCount );
+    this.tdo = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
     this.tdo.setSelectedIndex( 4 );
     settings.add( this.tdo );
 
@@ -392,40 +393,35 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
   }
 
   /**
-   * exports the table data to a CSV file
+   * Stores the given analysis results to the given file as CSV or binary table.
    * 
    * @param aFile
-   *          File object
+   *          the file to write to;
+   * @param aFormat
+   *          the tabular format to write in;
+   * @param aDataSet
+   *          the analysis results to write.
    */
-  private void storeToCsvFile( final File aFile, final JTAGDataSet aDataSet )
+  private void storeToTableFile( final File aFile, final ExportFormat aFormat, final JTAGDataSet aDataSet )
   {
     try
     {
-      final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
-
-      exporter.setHeaders( "index", "time", "state", "TDI data", "TDO data" );
-
-      final List<JTAGData> dataSet = aDataSet.getData();
-      for ( int i = 0; i < dataSet.size(); i++ )
+      final TableWriter writer = ToolUtils.createTableWriter( aFile, aFormat );
+      try
       {
-        final JTAGData data = dataSet.get( i );
-
-        final String Time = aDataSet.getDisplayTime( data.getStartSampleIndex() );
-        final String Event = data.isEvent() ? data.getEventName() : data.getDataValue().getDisplayText();
-        final String tdiDataValue = data.isTdiData() ? Integer.toString( data.getDataValue().ordinal() ) : null;
-        final String tdoDataValue = data.isTdoData() ? Integer.toString( data.getDataValue().ordinal() ) : null;
-
-        exporter.addRow( Integer.valueOf( i ), Time, Event, tdiDataValue, tdoDataValue );
+        aDataSet.writeTo( writer, new JTAGDataRowMapper( aDataSet ) );
+      }
+      finally
+      {
+        writer.close();
       }
-
-      exporter.close();
     }
     catch ( final IOException exception )
     {
       // Make sure to handle IO-interrupted exceptions properly!
       if ( !HostUtils.handleInterruptedException( exception ) )
       {
-        LOG.log( Level.WARNING, "CSV export failed!", exception );
+        LOG.log( Level.WARNING, "Table export failed!", exception );
       }
     }
   }
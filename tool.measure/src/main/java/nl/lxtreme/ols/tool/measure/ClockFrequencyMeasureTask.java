@@ -336,7 +336,7 @@ public class ClockFrequencyMeasureTask implements ToolTask<ClockFrequencyMeasure
   private final ToolContext context;
 
   private int channelMask;
-  private final Frequency<ClockPeriodStats> periodStats;
+  private final LongHistogram periodStats;
 
   // CONSTRUCTORS
 
@@ -350,7 +350,7 @@ public class ClockFrequencyMeasureTask implements ToolTask<ClockFrequencyMeasure
   {
     this.context = aContext;
 
-    this.periodStats = new Frequency<ClockPeriodStats>();
+    this.periodStats = new LongHistogram();
   }
 
   // METHODS
@@ -373,7 +373,7 @@ public class ClockFrequencyMeasureTask implements ToolTask<ClockFrequencyMeasure
     long lastTransition = 0;
     int lastBitValue = values[i++] & this.channelMask;
 
-    Long prevPeriodTime = null;
+    long prevPeriodTime = -1L;
 
     for ( ; i < end; i++ )
     {
@@ -383,16 +383,19 @@ public class ClockFrequencyMeasureTask implements ToolTask<ClockFrequencyMeasure
       {
         final long periodTime = timestamps[i] - lastTransition;
 
-        if ( prevPeriodTime != null )
+        if ( prevPeriodTime >= 0L )
         {
-          final ClockPeriodStats stats = new ClockPeriodStats( prevPeriodTime.longValue(), periodTime );
-          this.periodStats.addValue( stats );
+          final long key = packPeriods( prevPeriodTime, periodTime );
+          if ( key >= 0L )
+          {
+            this.periodStats.addValue( key );
+          }
 
-          prevPeriodTime = null;
+          prevPeriodTime = -1L;
         }
         else
         {
-          prevPeriodTime = Long.valueOf( periodTime );
+          prevPeriodTime = periodTime;
         }
 
         lastTransition = timestamps[i];
@@ -401,11 +404,17 @@ public class ClockFrequencyMeasureTask implements ToolTask<ClockFrequencyMeasure
       lastBitValue = bitValue;
     }
 
-    final ClockPeriodStats best = this.periodStats.getHighestRanked();
+    ClockPeriodStats best = null;
+
+    final long bestKey = this.periodStats.getMode( -1L );
+    if ( bestKey >= 0L )
+    {
+      best = unpackPeriods( bestKey );
+    }
 
     if ( LOG.isLoggable( Level.INFO ) && ( best != null ) )
     {
-      final long periodCount = this.periodStats.getCount( best );
+      final long periodCount = this.periodStats.getCount( bestKey );
       final int uniqueValues = this.periodStats.getUniqueValueCount();
       final long totalCount = this.periodStats.getTotalCount();
       final double percentage = ( 100.0 * periodCount ) / totalCount;
@@ -418,6 +427,45 @@ public class ClockFrequencyMeasureTask implements ToolTask<ClockFrequencyMeasure
     return new ClockStats( best, data.getSampleRate() );
   }
 
+  /**
+   * Packs a pair of periods into a single histogram key.
+   * <p>
+   * The key holds the total period in its upper half and the first period in
+   * its lower half, so the natural ordering of keys equals the ordering of
+   * {@link ClockPeriodStats}.
+   * </p>
+   * 
+   * @param aPeriod1
+   *          the first period, >= 0;
+   * @param aPeriod2
+   *          the second period, >= 0.
+   * @return a histogram key, or -1 if the total period is too large to be
+   *         packed.
+   */
+  private static long packPeriods( final long aPeriod1, final long aPeriod2 )
+  {
+    final long total = aPeriod1 + aPeriod2;
+    if ( ( aPeriod1 < 0L ) || ( aPeriod2 < 0L ) || ( total > Integer.MAX_VALUE ) )
+    {
+      return -1L;
+    }
+    return ( total << 32 ) | aPeriod1;
+  }
+
+  /**
+   * Unpacks a histogram key created by {@link #packPeriods(long, long)}.
+   * 
+   * @param aKey
+   *          the histogram key to unpack, >= 0.
+   * @return the period statistics, never <code>null</code>.
+   */
+  private static ClockPeriodStats unpackPeriods( final long aKey )
+  {
+    final long total = aKey >>> 32;
+    final long period1 = aKey & 0xFFFFFFFFL;
+    return new ClockPeriodStats( period1, total - period1 );
+  }
+
   /**
    * Sets the channel to measure the clock frequency for.
    * 
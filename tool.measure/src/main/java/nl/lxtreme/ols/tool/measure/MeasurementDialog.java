@@ -35,6 +35,7 @@ import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.measure.ClockFrequencyMeasureTask.ClockStats;
+import nl.lxtreme.ols.tool.measure.SignalStatisticsIndex.SignalStatistics;
 import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.swing.*;
 
@@ -42,7 +43,8 @@ import nl.lxtreme.ols.util.swing.*;
 /**
  * @author jajans
  */
-public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.ClockStats>
+public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.ClockStats> implements
+    CursorListener
 {
   // INNER TYPES
 
@@ -82,9 +84,9 @@ public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.
 
   /**
    * Provides an action listener which updates the measurements in this dialog
-   * on regular intervals.
+   * when one of its selections is changed.
    */
-  final class TimerActionListener implements ActionListener
+  final class UpdateMeasurementListener implements ActionListener
   {
     /**
      * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
@@ -92,14 +94,7 @@ public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.
     @Override
     public void actionPerformed( final ActionEvent aEvent )
     {
-      if ( SwingComponentUtils.isActivelyShown( MeasurementDialog.this ) )
-      {
-        if ( LOG.isLoggable( Level.FINE ) )
-        {
-          LOG.fine( "Updating measurement ..." );
-        }
-        MeasurementDialog.this.updateMeasurement();
-      }
+      MeasurementDialog.this.updateMeasurement();
     }
   }
 
@@ -113,7 +108,8 @@ public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.
 
   // VARIABLES
 
-  private final Timer updateTimer;
+  private volatile ServiceRegistration cursorListenerReg;
+  private SignalStatisticsIndex signalIndex;
 
   private JLabel[] cursorValueLabels;
   private JComboBox cursorB;
@@ -122,6 +118,11 @@ public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.
   private JLabel distanceLabel;
   private JLabel clockFrequencyLabel;
   private JLabel clockDutyCycleLabel;
+  private JLabel pulseCountLabel;
+  private JLabel dutyCycleLabel;
+  private JLabel averageFrequencyLabel;
+  private JLabel highTimeLabel;
+  private JLabel lowTimeLabel;
 
   private JComboBox clockChannelChooser;
 
@@ -146,15 +147,29 @@ public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.
 
     initDialog();
 
-    this.updateTimer = new Timer( 500, new TimerActionListener() );
-    this.updateTimer.setRepeats( true );
-    this.updateTimer.start();
-
     setLocationRelativeTo( getOwner() );
   }
 
   // METHODS
 
+  /**
+   * @see nl.lxtreme.ols.api.tools.CursorListener#cursorChanged(int, long)
+   */
+  @Override
+  public void cursorChanged( final int aCursorIdx, final long aCursorPosition )
+  {
+    scheduleMeasurementUpdate();
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.tools.CursorListener#cursorRemoved(int)
+   */
+  @Override
+  public void cursorRemoved( final int aCursorIdx )
+  {
+    scheduleMeasurementUpdate();
+  }
+
   /**
    * @see java.awt.Window#dispose()
    */
@@ -162,12 +177,10 @@ public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.
   public void dispose()
   {
     // Make sure that if this dialog is disposed without our explicit
-    // knowledge, the timer is stopped. Otherwise, this dialog would be kept
-    // in memory and AWT cannot be shutdown normally...
-    if ( ( this.updateTimer != null ) && this.updateTimer.isRunning() )
-    {
-      this.updateTimer.stop();
-    }
+    // knowledge, we no longer listen to cursor changes. Otherwise, this dialog
+    // would be kept in memory...
+    unregisterCursorListener();
+    this.signalIndex = null;
     super.dispose();
   }
 
@@ -188,10 +201,9 @@ public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.
   @Override
   public void reset()
   {
-    if ( !this.updateTimer.isRunning() )
-    {
-      this.updateTimer.start();
-    }
+    // The captured data might have been changed; let the index be recreated...
+    this.signalIndex = null;
+    updateMeasurement();
   }
 
   /**
@@ -239,6 +251,31 @@ public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.
 
     this.distanceLabel.setText( distanceText );
     this.frequencyLabel.setText( frequencyText );
+
+    updateSignalStatistics( data, cursorApos, cursorBpos );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void onBeforeCloseDialog()
+  {
+    unregisterCursorListener();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void onBeforeShowDialog()
+  {
+    if ( this.cursorListenerReg == null )
+    {
+      this.cursorListenerReg = getBundleContext().registerService( CursorListener.class.getName(), this, null );
+    }
+    // Make sure we're up-to-date with the current cursors...
+    updateMeasurement();
   }
 
   /**
@@ -337,6 +374,7 @@ public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.
   private Component createMeasurementPane( final String[] aCursorNames )
   {
     final int channelCount = getData().getChannels();
+    final int channelOffset = getChannelOffset();
 
     this.frequencyLabel = new JLabel( EMPTY_TEXT );
     this.distanceLabel = new JLabel( EMPTY_TEXT );
@@ -366,9 +404,33 @@ public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.
     rightPane.add( createRightAlignedLabel( "Frequency" ) );
     rightPane.add( this.frequencyLabel );
 
+    this.pulseCountLabel = new JLabel( EMPTY_TEXT );
+    this.dutyCycleLabel = new JLabel( EMPTY_TEXT );
+    this.averageFrequencyLabel = new JLabel( EMPTY_TEXT );
+    this.highTimeLabel = new JLabel( EMPTY_TEXT );
+    this.lowTimeLabel = new JLabel( EMPTY_TEXT );
+
+    SpringLayoutUtils.addSeparator( rightPane, "Signal (A-B)" );
+
+    rightPane.add( createRightAlignedLabel( "Pulse count" ) );
+    rightPane.add( this.pulseCountLabel );
+    rightPane.add( createRightAlignedLabel( "Duty cycle" ) );
+    rightPane.add( this.dutyCycleLabel );
+    rightPane.add( createRightAlignedLabel( "Avg. frequency" ) );
+    rightPane.add( this.averageFrequencyLabel );
+    rightPane.add( createRightAlignedLabel( "High time" ) );
+    rightPane.add( this.highTimeLabel );
+    rightPane.add( createRightAlignedLabel( "Low time" ) );
+    rightPane.add( this.lowTimeLabel );
+
     final MeasureClockFrequencyAction measureAction = new MeasureClockFrequencyAction();
 
-    this.clockChannelChooser = SwingComponentUtils.createChannelSelector( channelCount );
+    this.clockChannelChooser = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
+
+    final UpdateMeasurementListener updateListener = new UpdateMeasurementListener();
+    this.cursorA.addActionListener( updateListener );
+    this.cursorB.addActionListener( updateListener );
+    this.clockChannelChooser.addActionListener( updateListener );
 
     this.clockFrequencyLabel = new JLabel( EMPTY_TEXT );
     this.clockDutyCycleLabel = new JLabel( EMPTY_TEXT );
@@ -425,4 +487,98 @@ public class MeasurementDialog extends BaseToolDialog<ClockFrequencyMeasureTask.
 
     SwingComponentUtils.setupDialogContentPane( this, contentPane, buttonPane, closeButton );
   }
+
+  /**
+   * Schedules an update of the measurement on the EDT.
+   */
+  private void scheduleMeasurementUpdate()
+  {
+    SwingComponentUtils.invokeOnEDT( new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        if ( SwingComponentUtils.isActivelyShown( MeasurementDialog.this ) )
+        {
+          if ( LOG.isLoggable( Level.FINE ) )
+          {
+            LOG.fine( "Updating measurement ..." );
+          }
+          updateMeasurement();
+        }
+      }
+    } );
+  }
+
+  /**
+   * Unregisters this dialog as cursor listener, if needed.
+   */
+  private void unregisterCursorListener()
+  {
+    final ServiceRegistration reg = this.cursorListenerReg;
+    this.cursorListenerReg = null;
+    if ( reg != null )
+    {
+      try
+      {
+        reg.unregister();
+      }
+      catch ( IllegalStateException exception )
+      {
+        // Ignore; already unregistered...
+      }
+    }
+  }
+
+  /**
+   * Updates the signal statistics of the selected channel between the two
+   * selected cursors. The statistics index is (re)created only when the
+   * selected channel or the captured data changes, after which each update
+   * takes O(log n) time.
+   * 
+   * @param aData
+   *          the captured data;
+   * @param aCursorApos
+   *          the position of cursor A, can be <code>null</code>;
+   * @param aCursorBpos
+   *          the position of cursor B, can be <code>null</code>.
+   */
+  private void updateSignalStatistics( final AcquisitionResult aData, final Long aCursorApos, final Long aCursorBpos )
+  {
+    String pulseCountText = EMPTY_TEXT;
+    String dutyCycleText = EMPTY_TEXT;
+    String averageFrequencyText = EMPTY_TEXT;
+    String highTimeText = EMPTY_TEXT;
+    String lowTimeText = EMPTY_TEXT;
+
+    final int channelIdx = this.clockChannelChooser.getSelectedIndex();
+    if ( ( aData != null ) && ( channelIdx >= 0 ) && ( aCursorApos != null ) && ( aCursorBpos != null )
+        && !aCursorApos.equals( aCursorBpos ) )
+    {
+      SignalStatisticsIndex index = this.signalIndex;
+      if ( ( index == null ) || ( index.getChannelIndex() != channelIdx ) || !index.isIndexFor( aData ) )
+      {
+        index = SignalStatisticsIndex.create( aData, channelIdx );
+        this.signalIndex = index;
+      }
+
+      final SignalStatistics stats = index.getStatistics( aCursorApos.longValue(), aCursorBpos.longValue() );
+      final double rate = aData.getSampleRate();
+
+      pulseCountText = String.valueOf( stats.getPulseCount() );
+      dutyCycleText = DisplayUtils.displayPercentage( stats.getDutyCycle() );
+      if ( stats.getAverageFrequency() > 0.0 )
+      {
+        averageFrequencyText = DisplayUtils.displayFrequency( stats.getAverageFrequency() );
+      }
+      highTimeText = DisplayUtils.displayTime( stats.getHighTime() / rate );
+      lowTimeText = DisplayUtils.displayTime( stats.getLowTime() / rate );
+    }
+
+    this.pulseCountLabel.setText( pulseCountText );
+    this.dutyCycleLabel.setText( dutyCycleText );
+    this.averageFrequencyLabel.setText( averageFrequencyText );
+    this.highTimeLabel.setText( highTimeText );
+    this.lowTimeLabel.setText( lowTimeText );
+  }
 }
@@ -0,0 +1,419 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.measure;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a cumulative statistics index for a single channel of an
+ * acquisition result.
+ * <p>
+ * The index is built once in a single pass over the (compressed) sample data,
+ * and records for each edge of the channel its time, and the total time the
+ * signal was high before that edge. Using these prefix sums, the pulse count,
+ * duty cycle, average frequency and high/low times between any two points in
+ * time can be determined in O(log n).
+ * </p>
+ */
+public final class SignalStatisticsIndex
+{
+  // INNER TYPES
+
+  /**
+   * Provides the statistics of a channel between two points in time.
+   */
+  public static final class SignalStatistics
+  {
+    // VARIABLES
+
+    private final long duration;
+    private final long highTime;
+    private final int risingEdges;
+    private final int fallingEdges;
+    private final long firstRisingEdge;
+    private final long lastRisingEdge;
+    private final int sampleRate;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new SignalStatistics instance.
+     */
+    SignalStatistics( final long aDuration, final long aHighTime, final int aRisingEdges, final int aFallingEdges,
+        final long aFirstRisingEdge, final long aLastRisingEdge, final int aSampleRate )
+    {
+      this.duration = aDuration;
+      this.highTime = aHighTime;
+      this.risingEdges = aRisingEdges;
+      this.fallingEdges = aFallingEdges;
+      this.firstRisingEdge = aFirstRisingEdge;
+      this.lastRisingEdge = aLastRisingEdge;
+      this.sampleRate = aSampleRate;
+    }
+
+    // METHODS
+
+    /**
+     * Returns the average frequency of the signal, determined by the number of
+     * complete periods between the first and last rising edge.
+     * 
+     * @return the average frequency, in Hertz, or 0.0 if less than two rising
+     *         edges are present.
+     */
+    public double getAverageFrequency()
+    {
+      if ( ( this.risingEdges < 2 ) || ( this.lastRisingEdge <= this.firstRisingEdge ) )
+      {
+        return 0.0;
+      }
+      return ( ( double )this.sampleRate * ( this.risingEdges - 1 ) ) / ( this.lastRisingEdge - this.firstRisingEdge );
+    }
+
+    /**
+     * Returns the duration of the measured range.
+     * 
+     * @return a duration, in samples.
+     */
+    public long getDuration()
+    {
+      return this.duration;
+    }
+
+    /**
+     * Returns the duty cycle of the signal, meaning the percentage of time the
+     * signal was high in the measured range.
+     * 
+     * @return a duty cycle, as percentage between 0.0 and 1.0.
+     */
+    public double getDutyCycle()
+    {
+      if ( this.duration <= 0L )
+      {
+        return 0.0;
+      }
+      return this.highTime / ( double )this.duration;
+    }
+
+    /**
+     * Returns the number of falling edges in the measured range.
+     * 
+     * @return a falling edge count, >= 0.
+     */
+    public int getFallingEdgeCount()
+    {
+      return this.fallingEdges;
+    }
+
+    /**
+     * Returns the total time the signal was high in the measured range.
+     * 
+     * @return a high time, in samples.
+     */
+    public long getHighTime()
+    {
+      return this.highTime;
+    }
+
+    /**
+     * Returns the total time the signal was low in the measured range.
+     * 
+     * @return a low time, in samples.
+     */
+    public long getLowTime()
+    {
+      return this.duration - this.highTime;
+    }
+
+    /**
+     * Returns the number of (positive) pulses in the measured range, which
+     * equals the number of rising edges.
+     * 
+     * @return a pulse count, >= 0.
+     */
+    public int getPulseCount()
+    {
+      return this.risingEdges;
+    }
+
+    /**
+     * Returns the number of rising edges in the measured range.
+     * 
+     * @return a rising edge count, >= 0.
+     */
+    public int getRisingEdgeCount()
+    {
+      return this.risingEdges;
+    }
+  }
+
+  // VARIABLES
+
+  private final int channelIdx;
+  private final int[] sourceValues;
+  private final int sampleRate;
+  private final long startTime;
+  private final long endTime;
+  private final boolean startLevel;
+  private final long[] edgeTimes;
+  private final long[] highTimes;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SignalStatisticsIndex instance.
+   */
+  private SignalStatisticsIndex( final int aChannelIdx, final int[] aSourceValues, final int aSampleRate,
+      final long aStartTime, final long aEndTime, final boolean aStartLevel, final long[] aEdgeTimes,
+      final long[] aHighTimes )
+  {
+    this.channelIdx = aChannelIdx;
+    this.sourceValues = aSourceValues;
+    this.sampleRate = aSampleRate;
+    this.startTime = aStartTime;
+    this.endTime = aEndTime;
+    this.startLevel = aStartLevel;
+    this.edgeTimes = aEdgeTimes;
+    this.highTimes = aHighTimes;
+  }
+
+  // METHODS
+
+  /**
+   * Creates a new statistics index for the channel with the given index.
+   * 
+   * @param aData
+   *          the acquisition result to create the index for, cannot be
+   *          <code>null</code>;
+   * @param aChannelIdx
+   *          the index of the channel to create the index for, >= 0 && < 32.
+   * @return a new statistics index, never <code>null</code>.
+   */
+  public static SignalStatisticsIndex create( final AcquisitionResult aData, final int aChannelIdx )
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+    final int mask = 1 << aChannelIdx;
+
+    if ( values.length == 0 )
+    {
+      return new SignalStatisticsIndex( aChannelIdx, values, aData.getSampleRate(), 0L, 0L, false, new long[0],
+          new long[0] );
+    }
+
+    // First pass: count the number of edges, to avoid resizing arrays...
+    int edgeCount = 0;
+    int lastValue = values[0] & mask;
+    for ( int i = 1; i < values.length; i++ )
+    {
+      final int value = values[i] & mask;
+      if ( value != lastValue )
+      {
+        edgeCount++;
+        lastValue = value;
+      }
+    }
+
+    final long[] edgeTimes = new long[edgeCount];
+    final long[] highTimes = new long[edgeCount];
+
+    final long startTime = timestamps[0];
+    final boolean startLevel = ( values[0] & mask ) != 0;
+
+    // Second pass: record the edges and the accumulated high time...
+    boolean level = startLevel;
+    long levelStart = startTime;
+    long highTime = 0L;
+    lastValue = values[0] & mask;
+
+    for ( int i = 1, e = 0; i < values.length; i++ )
+    {
+      final int value = values[i] & mask;
+      if ( value != lastValue )
+      {
+        final long time = timestamps[i];
+        if ( level )
+        {
+          highTime += time - levelStart;
+        }
+
+        edgeTimes[e] = time;
+        highTimes[e] = highTime;
+        e++;
+
+        level = !level;
+        levelStart = time;
+        lastValue = value;
+      }
+    }
+
+    final long endTime = Math.max( timestamps[timestamps.length - 1], startTime + aData.getAbsoluteLength() - 1L );
+
+    return new SignalStatisticsIndex( aChannelIdx, values, aData.getSampleRate(), startTime, endTime, startLevel,
+        edgeTimes, highTimes );
+  }
+
+  /**
+   * Returns the index of the channel this index was created for.
+   * 
+   * @return a channel index, >= 0 && < 32.
+   */
+  public int getChannelIndex()
+  {
+    return this.channelIdx;
+  }
+
+  /**
+   * Returns the number of edges in this index.
+   * 
+   * @return an edge count, >= 0.
+   */
+  public int getEdgeCount()
+  {
+    return this.edgeTimes.length;
+  }
+
+  /**
+   * Returns the statistics of the signal between the two given points in
+   * time. The order of both points does not matter.
+   * 
+   * @param aTime1
+   *          the first point in time, as absolute sample time value;
+   * @param aTime2
+   *          the second point in time, as absolute sample time value.
+   * @return the signal statistics, never <code>null</code>.
+   */
+  public SignalStatistics getStatistics( final long aTime1, final long aTime2 )
+  {
+    final long from = clamp( Math.min( aTime1, aTime2 ) );
+    final long to = clamp( Math.max( aTime1, aTime2 ) );
+
+    final int edgesBeforeFrom = countEdgesUntil( from );
+    final int edgesBeforeTo = countEdgesUntil( to );
+
+    final int risingEdges = countRisingEdges( edgesBeforeTo ) - countRisingEdges( edgesBeforeFrom );
+    final int fallingEdges = ( edgesBeforeTo - edgesBeforeFrom ) - risingEdges;
+
+    final long highTime = getHighTimeUntil( to, edgesBeforeTo ) - getHighTimeUntil( from, edgesBeforeFrom );
+
+    long firstRisingEdge = -1L;
+    long lastRisingEdge = -1L;
+    if ( risingEdges > 0 )
+    {
+      // Edges in range are [edgesBeforeFrom, edgesBeforeTo); find the first
+      // and last of them that are rising...
+      int first = edgesBeforeFrom;
+      if ( !isRisingEdge( first ) )
+      {
+        first++;
+      }
+      int last = edgesBeforeTo - 1;
+      if ( !isRisingEdge( last ) )
+      {
+        last--;
+      }
+
+      firstRisingEdge = this.edgeTimes[first];
+      lastRisingEdge = this.edgeTimes[last];
+    }
+
+    return new SignalStatistics( to - from, highTime, risingEdges, fallingEdges, firstRisingEdge, lastRisingEdge,
+        this.sampleRate );
+  }
+
+  /**
+   * Returns whether this index was created for the given acquisition result.
+   * 
+   * @param aData
+   *          the acquisition result to test, cannot be <code>null</code>.
+   * @return <code>true</code> if this index belongs to the given data,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isIndexFor( final AcquisitionResult aData )
+  {
+    return this.sourceValues == aData.getValues();
+  }
+
+  /**
+   * Clamps the given time value to the range of this index.
+   */
+  private long clamp( final long aTime )
+  {
+    return Math.max( this.startTime, Math.min( this.endTime, aTime ) );
+  }
+
+  /**
+   * Counts the number of edges that occurred at or before the given time.
+   */
+  private int countEdgesUntil( final long aTime )
+  {
+    int idx = Arrays.binarySearch( this.edgeTimes, aTime );
+    if ( idx < 0 )
+    {
+      // Insertion point equals the number of edges before the given time...
+      return -( idx + 1 );
+    }
+    // Edge times are unique, so the found edge is the last one <= time...
+    return idx + 1;
+  }
+
+  /**
+   * Counts the number of rising edges amongst the given number of first edges.
+   */
+  private int countRisingEdges( final int aEdgeCount )
+  {
+    // Edges alternate, starting with a rising edge in case the signal starts
+    // low, or a falling edge in case it starts high...
+    return this.startLevel ? ( aEdgeCount >> 1 ) : ( ( aEdgeCount + 1 ) >> 1 );
+  }
+
+  /**
+   * Returns the total time the signal was high from the start of the index up
+   * and until the given time.
+   */
+  private long getHighTimeUntil( final long aTime, final int aEdgeCount )
+  {
+    if ( aEdgeCount == 0 )
+    {
+      return this.startLevel ? ( aTime - this.startTime ) : 0L;
+    }
+
+    final int lastEdge = aEdgeCount - 1;
+    long result = this.highTimes[lastEdge];
+    if ( isRisingEdge( lastEdge ) )
+    {
+      result += aTime - this.edgeTimes[lastEdge];
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether the edge with the given index is a rising edge.
+   */
+  private boolean isRisingEdge( final int aEdgeIdx )
+  {
+    // the first edge (index 0) is rising in case the signal started low...
+    return ( ( aEdgeIdx & 1 ) == 0 ) ^ this.startLevel;
+  }
+}
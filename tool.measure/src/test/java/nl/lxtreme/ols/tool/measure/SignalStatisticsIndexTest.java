@@ -0,0 +1,150 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.measure;
+
+
+import static org.junit.Assert.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.tool.measure.SignalStatisticsIndex.SignalStatistics;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link SignalStatisticsIndex}.
+ */
+public class SignalStatisticsIndexTest
+{
+  // CONSTANTS
+
+  private static final int SAMPLE_RATE = 1000;
+
+  // VARIABLES
+
+  private CapturedData data;
+
+  // METHODS
+
+  /**
+   * Creates a square wave on channel 0 with a period of 10 samples and a duty
+   * cycle of 30%, and a constant high level on channel 1.
+   */
+  @Before
+  public void setUp()
+  {
+    final int periods = 10;
+    final int[] values = new int[2 * periods];
+    final long[] timestamps = new long[2 * periods];
+    for ( int i = 0; i < periods; i++ )
+    {
+      values[2 * i] = 0x03;
+      timestamps[2 * i] = 10L * i;
+      values[2 * i + 1] = 0x02;
+      timestamps[2 * i + 1] = 10L * i + 3L;
+    }
+
+    this.data = new CapturedData( values, timestamps, -1L, SAMPLE_RATE, 2, 0x03, 10L * periods );
+  }
+
+  /**
+   * Tests the statistics of a constant signal.
+   */
+  @Test
+  public void testConstantSignal()
+  {
+    final SignalStatisticsIndex index = SignalStatisticsIndex.create( this.data, 1 );
+    assertEquals( 0, index.getEdgeCount() );
+
+    final SignalStatistics stats = index.getStatistics( 5L, 55L );
+    assertEquals( 0, stats.getPulseCount() );
+    assertEquals( 50L, stats.getHighTime() );
+    assertEquals( 0L, stats.getLowTime() );
+    assertEquals( 1.0, stats.getDutyCycle(), 1.0e-6 );
+    assertEquals( 0.0, stats.getAverageFrequency(), 1.0e-6 );
+  }
+
+  /**
+   * Tests that the order of the given cursor positions does not matter.
+   */
+  @Test
+  public void testCursorOrderIsIrrelevant()
+  {
+    final SignalStatisticsIndex index = SignalStatisticsIndex.create( this.data, 0 );
+
+    final SignalStatistics stats1 = index.getStatistics( 12L, 67L );
+    final SignalStatistics stats2 = index.getStatistics( 67L, 12L );
+
+    assertEquals( stats1.getPulseCount(), stats2.getPulseCount() );
+    assertEquals( stats1.getHighTime(), stats2.getHighTime() );
+    assertEquals( stats1.getLowTime(), stats2.getLowTime() );
+  }
+
+  /**
+   * Tests that the index is only valid for the data it was created for.
+   */
+  @Test
+  public void testIsIndexFor()
+  {
+    final SignalStatisticsIndex index = SignalStatisticsIndex.create( this.data, 0 );
+    assertTrue( index.isIndexFor( this.data ) );
+
+    final CapturedData other = new CapturedData( new int[] { 0, 1 }, new long[] { 0L, 1L }, -1L, SAMPLE_RATE, 1, 1,
+        2L );
+    assertFalse( index.isIndexFor( other ) );
+  }
+
+  /**
+   * Tests the statistics of a square wave over a partial range.
+   */
+  @Test
+  public void testPartialRange()
+  {
+    final SignalStatisticsIndex index = SignalStatisticsIndex.create( this.data, 0 );
+
+    // Range (1, 22]: high 1..3, rising at 10, high 10..13, rising at 20, high
+    // 20..22...
+    final SignalStatistics stats = index.getStatistics( 1L, 22L );
+    assertEquals( 2, stats.getRisingEdgeCount() );
+    assertEquals( 2, stats.getFallingEdgeCount() );
+    assertEquals( 2L + 3L + 2L, stats.getHighTime() );
+    assertEquals( 21L - 7L, stats.getLowTime() );
+  }
+
+  /**
+   * Tests the statistics of a square wave over whole periods.
+   */
+  @Test
+  public void testWholePeriods()
+  {
+    final SignalStatisticsIndex index = SignalStatisticsIndex.create( this.data, 0 );
+    assertEquals( 19, index.getEdgeCount() );
+
+    final SignalStatistics stats = index.getStatistics( 0L, 90L );
+    assertEquals( 9, stats.getPulseCount() );
+    assertEquals( 9, stats.getFallingEdgeCount() );
+    assertEquals( 27L, stats.getHighTime() );
+    assertEquals( 63L, stats.getLowTime() );
+    assertEquals( 0.3, stats.getDutyCycle(), 1.0e-6 );
+    // 9 rising edges (10..90) span 8 periods of 10 samples @ 1kHz...
+    assertEquals( 100.0, stats.getAverageFrequency(), 1.0e-6 );
+  }
+}
@@ -24,12 +24,16 @@ package nl.lxtreme.ols.tool.spi;
 import static nl.lxtreme.ols.util.NumberUtils.*;
 
 import java.beans.*;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
+import nl.lxtreme.ols.tool.base.stream.*;
 import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.NumberUtils.BitOrder;
 import nl.lxtreme.ols.util.analysis.*;
@@ -38,14 +42,131 @@ import nl.lxtreme.ols.util.analysis.*;
 /**
  * Provides a task for analyzing SPI traces.
  */
-public class SPIAnalyserTask implements ToolTask<SPIDataSet>
+public class SPIAnalyserTask implements ToolTask<SPIDataSet>, FrameSource<SPIData>
 {
+  // INNER TYPES
+
+  /**
+   * Denotes the state of the decoder between two samples.
+   */
+  static final class DecoderState
+  {
+    // VARIABLES
+
+    int oldSckValue;
+    int oldCsValue;
+    boolean slaveSelected;
+    int dataStartIdx;
+    int bitIdx;
+    int clockEdgeIdx;
+    int misovalue;
+    int mosivalue;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new DecoderState instance, denoting the start of a datagram.
+     */
+    DecoderState( final int aBitCount )
+    {
+      this.bitIdx = aBitCount;
+    }
+
+    // METHODS
+
+    /**
+     * Returns a copy of this decoder state.
+     * 
+     * @return a copy of this state, never <code>null</code>.
+     */
+    DecoderState copy()
+    {
+      final DecoderState result = new DecoderState( this.bitIdx );
+      result.oldSckValue = this.oldSckValue;
+      result.oldCsValue = this.oldCsValue;
+      result.slaveSelected = this.slaveSelected;
+      result.dataStartIdx = this.dataStartIdx;
+      result.clockEdgeIdx = this.clockEdgeIdx;
+      result.misovalue = this.misovalue;
+      result.mosivalue = this.mosivalue;
+      return result;
+    }
+
+    /**
+     * Returns whether decoding from this state yields the same results as
+     * decoding from the given state.
+     * 
+     * @param aState
+     *          the state to compare against, cannot be <code>null</code>.
+     * @return <code>true</code> if both states are equivalent,
+     *         <code>false</code> otherwise.
+     */
+    boolean isEquivalentTo( final DecoderState aState )
+    {
+      // The start index of a datagram is only relevant when we're halfway a
+      // datagram, in which case the bit indexes and values will differ...
+      return ( this.oldSckValue == aState.oldSckValue ) && ( this.oldCsValue == aState.oldCsValue )
+          && ( this.slaveSelected == aState.slaveSelected ) && ( this.bitIdx == aState.bitIdx )
+          && ( this.clockEdgeIdx == aState.clockEdgeIdx ) && ( this.misovalue == aState.misovalue )
+          && ( this.mosivalue == aState.mosivalue );
+    }
+  }
+
+  /**
+   * Denotes a chunk of one or more SPI frames that is decoded independently.
+   */
+  final class FrameChunk
+  {
+    // VARIABLES
+
+    final int startIdx;
+    int endIdx;
+    DecoderState startState;
+    DecoderState endState;
+    SPIDataSet dataSet;
+    RecordingAnnotationListener annotations;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new FrameChunk instance.
+     */
+    FrameChunk( final DecoderState aStartState, final int aStartIdx )
+    {
+      this.startState = aStartState;
+      this.startIdx = aStartIdx;
+    }
+
+    // METHODS
+
+    /**
+     * Decodes this chunk, starting with its start state.
+     * 
+     * @param aDataSet
+     *          the data set defining the decoding range;
+     * @param aMode
+     *          the SPI mode to use.
+     */
+    void decode( final SPIDataSet aDataSet, final SPIMode aMode )
+    {
+      this.dataSet = new SPIDataSet( aDataSet.getStartOfDecode(), aDataSet.getEndOfDecode(),
+          SPIAnalyserTask.this.context.getData() );
+      this.annotations = new RecordingAnnotationListener();
+      this.endState = this.startState.copy();
+
+      clockDataOnEdge( this.dataSet, this.annotations, aMode, this.endState, this.startIdx, this.endIdx, false );
+    }
+  }
+
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( SPIAnalyserTask.class.getName() );
 
   public static final String PROPERTY_AUTO_DETECT_MODE = "AutoDetectSPIMode";
 
+  /** The number of samples decoded at once when producing a stream of data. */
+  private static final int STREAM_CHUNK_SIZE = 1 << 14;
+
   // VARIABLES
 
   private final ToolContext context;
@@ -62,6 +183,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
   private boolean honourCS;
   private int mosiIdx;
   private int misoIdx;
+  private boolean parallelDecode;
 
   // CONSTRUCTORS
 
@@ -82,6 +204,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
 
     this.misoIdx = -1;
     this.mosiIdx = -1;
+    this.parallelDecode = true;
   }
 
   // METHODS
@@ -152,6 +275,72 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     return decodedData;
   }
 
+  /**
+   * Decodes the SPI-data and publishes it to the given sink, without
+   * materializing all decoded data at once.
+   * <p>
+   * The data is decoded sequentially in small chunks of samples, each of which
+   * is published as soon as it is decoded. No annotations are reported.
+   * </p>
+   * 
+   * @param aSink
+   *          the sink to publish the decoded data to, cannot be
+   *          <code>null</code>.
+   * @see DecoderPipeline
+   */
+  @Override
+  public void produce( final FrameSink<? super SPIData> aSink ) throws Exception
+  {
+    final int startOfDecode = this.context.getStartSampleIndex();
+    final int endOfDecode = this.context.getEndSampleIndex();
+    final int slaveSelected = slaveSelected( startOfDecode, endOfDecode );
+
+    if ( ( this.honourCS && ( slaveSelected < 0 ) ) || ( startOfDecode >= endOfDecode ) )
+    {
+      LOG.log( Level.WARNING, "No CS start-condition found! Analysis aborted..." );
+      throw new IllegalStateException( "No CS start-condition found!" );
+    }
+
+    if ( ( this.mode == null ) || ( this.mode == SPIMode.AUTODETECT ) )
+    {
+      this.mode = detectSPIMode( startOfDecode, endOfDecode );
+    }
+
+    // Notify any listeners of the detected mode...
+    this.pcs.firePropertyChange( PROPERTY_AUTO_DETECT_MODE, null, this.mode );
+
+    final AcquisitionResult data = this.context.getData();
+
+    SPIDataSet chunk = new SPIDataSet( startOfDecode, endOfDecode, data );
+    if ( slaveSelected >= 0 )
+    {
+      reportCsLow( chunk, slaveSelected );
+    }
+
+    final int firstIdx = Math.max( slaveSelected, startOfDecode );
+    final DecoderState state = createInitialState( data.getValues(), firstIdx );
+
+    int published = 0;
+    int idx = firstIdx + 1;
+    do
+    {
+      final int chunkEndIdx = ( int )Math.min( endOfDecode, ( long )idx + STREAM_CHUNK_SIZE );
+      if ( idx < chunkEndIdx )
+      {
+        clockDataOnEdge( chunk, null /* aAnnotationListener */, this.mode, state, idx, chunkEndIdx, true );
+      }
+
+      for ( SPIData spiData : chunk.getData() )
+      {
+        aSink.frame( spiData.withIndex( published++ ) );
+      }
+      chunk = new SPIDataSet( startOfDecode, endOfDecode, data );
+
+      idx = chunkEndIdx;
+    }
+    while ( idx < endOfDecode );
+  }
+
   /**
    * Removes the given property change listener.
    * 
@@ -241,6 +430,20 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     this.bitOrder = aOrder;
   }
 
+  /**
+   * Sets whether or not the SPI frames, as delimited by chip-select, may be
+   * decoded concurrently. This is only done when chip-select is honoured, and
+   * the data to decode is sufficiently large.
+   * 
+   * @param aParallelDecode
+   *          <code>true</code> to allow frames to be decoded concurrently,
+   *          <code>false</code> to always decode all frames sequentially.
+   */
+  public void setParallelDecode( final boolean aParallelDecode )
+  {
+    this.parallelDecode = aParallelDecode;
+  }
+
   /**
    * Sets whether or not chip-select events should be reported.
    * 
@@ -275,12 +478,62 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
    *          on which edges data can change.
    */
   private void clockDataOnEdge( final SPIDataSet aDataSet, final SPIMode aMode, final int aSlaveSelectedIdx )
+      throws Exception
+  {
+    final int[] values = this.context.getData().getValues();
+
+    final int startOfDecode = Math.max( aSlaveSelectedIdx, aDataSet.getStartOfDecode() );
+    final int endOfDecode = aDataSet.getEndOfDecode();
+
+    final DecoderState state = createInitialState( values, startOfDecode );
+
+    // Frames are delimited by /CS, so we can only decode them independently
+    // in case /CS is honoured...
+    if ( this.parallelDecode && this.honourCS
+        && ( ( endOfDecode - startOfDecode ) >= ( 2 * ParallelDecoder.MIN_CHUNK_SIZE ) ) )
+    {
+      final List<FrameChunk> chunks = findFrameChunks( state, startOfDecode, endOfDecode );
+      if ( chunks.size() > 1 )
+      {
+        clockDataOnEdgeInParallel( aDataSet, aMode, chunks );
+        return;
+      }
+    }
+
+    clockDataOnEdge( aDataSet, this.annotationListener, aMode, state, startOfDecode + 1, endOfDecode, true );
+  }
+
+  /**
+   * Decodes the SPI-data on a given clock edge for a given range of samples.
+   * 
+   * @param aDataSet
+   *          the decoded data to fill;
+   * @param aAnnotationListener
+   *          the annotation listener to report the decoded data to, can be
+   *          <code>null</code> to not report any annotations;
+   * @param aMode
+   *          the SPI mode defining the edges on which data can be sampled and
+   *          on which edges data can change;
+   * @param aState
+   *          the decoder state at the start of the given range, will be
+   *          updated to reflect the state at the end of the given range;
+   * @param aStartIdx
+   *          the first sample index to decode;
+   * @param aEndIdx
+   *          the sample index to stop decoding at (exclusive);
+   * @param aReportProgress
+   *          <code>true</code> to report the progress of the decoding,
+   *          <code>false</code> otherwise.
+   */
+  private void clockDataOnEdge( final SPIDataSet aDataSet, final AnnotationListener aAnnotationListener,
+      final SPIMode aMode, final DecoderState aState, final int aStartIdx, final int aEndIdx,
+      final boolean aReportProgress )
   {
     final AcquisitionResult data = this.context.getData();
 
     final int[] values = data.getValues();
 
-    final int startOfDecode = Math.max( aSlaveSelectedIdx, aDataSet.getStartOfDecode() );
+    final int startOfDecode = aDataSet.getStartOfDecode();
     final int endOfDecode = aDataSet.getEndOfDecode();
 
     final int misoMask = ( 1 << this.misoIdx );
@@ -289,21 +542,21 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     final int csMask = ( 1 << this.csIdx );
 
     // scanning for falling/rising clk edges
-    int oldSckValue = ( values[startOfDecode] & sckMask );
-    int oldCsValue = ( values[startOfDecode] & csMask );
+    int oldSckValue = aState.oldSckValue;
+    int oldCsValue = aState.oldCsValue;
 
-    boolean slaveSelected = true;
-    int dataStartIdx = startOfDecode;
+    boolean slaveSelected = aState.slaveSelected;
+    int dataStartIdx = aState.dataStartIdx;
 
-    int bitIdx = this.bitCount;
+    int bitIdx = aState.bitIdx;
 
     final int clockEdgeCount = ( this.bitCount + 1 ) * 2;
-    int clockEdgeIdx = 0;
+    int clockEdgeIdx = aState.clockEdgeIdx;
 
-    int misovalue = 0;
-    int mosivalue = 0;
+    int misovalue = aState.misovalue;
+    int mosivalue = aState.mosivalue;
 
-    for ( int idx = startOfDecode + 1; idx < endOfDecode; idx++ )
+    for ( int idx = aStartIdx; idx < aEndIdx; idx++ )
     {
       final int dataSample = values[idx];
       /* CLK edge detection */
@@ -331,7 +584,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
         if ( bitIdx == 0 )
         {
           // Full datagram decoded...
-          reportData( aDataSet, dataStartIdx, idx, mosivalue, misovalue );
+          reportData( aDataSet, aAnnotationListener, dataStartIdx, idx, mosivalue, misovalue );
 
           bitIdx = this.bitCount;
           misovalue = 0;
@@ -394,7 +647,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
         /* if ( bitIdx == 0 ) */
         {
           // Full datagram decoded...
-          reportData( aDataSet, dataStartIdx, idx, mosivalue, misovalue );
+          reportData( aDataSet, aAnnotationListener, dataStartIdx, idx, mosivalue, misovalue );
 
           bitIdx = this.bitCount;
           misovalue = 0;
@@ -402,8 +655,97 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
         }
       }
 
-      this.progressListener.setProgress( getPercentage( idx, startOfDecode, endOfDecode ) );
+      if ( aReportProgress )
+      {
+        this.progressListener.setProgress( getPercentage( idx, startOfDecode, endOfDecode ) );
+      }
     }
+
+    aState.oldSckValue = oldSckValue;
+    aState.oldCsValue = oldCsValue;
+    aState.slaveSelected = slaveSelected;
+    aState.dataStartIdx = dataStartIdx;
+    aState.bitIdx = bitIdx;
+    aState.clockEdgeIdx = clockEdgeIdx;
+    aState.misovalue = misovalue;
+    aState.mosivalue = mosivalue;
+  }
+
+  /**
+   * Decodes the given frame chunks concurrently, and merges their results in
+   * order into the given data set.
+   * <p>
+   * Each chunk (except the first) is decoded presuming that the decoder starts
+   * with a fresh datagram at the /CS falling edge the chunk starts with. While
+   * merging, this presumption is verified against the actual state at the end
+   * of the preceding chunk; if it does not hold (for example, due to a
+   * truncated datagram), the chunk is decoded once more from the actual state.
+   * This way, the result is always identical to a sequential decode.
+   * </p>
+   * 
+   * @param aDataSet
+   *          the decoded data to fill;
+   * @param aMode
+   *          the SPI mode to use;
+   * @param aChunks
+   *          the chunks to decode, cannot be <code>null</code> or empty.
+   */
+  private void clockDataOnEdgeInParallel( final SPIDataSet aDataSet, final SPIMode aMode,
+      final List<FrameChunk> aChunks ) throws Exception
+  {
+    final List<Callable<FrameChunk>> tasks = new ArrayList<Callable<FrameChunk>>( aChunks.size() );
+    for ( final FrameChunk chunk : aChunks )
+    {
+      tasks.add( new Callable<FrameChunk>()
+      {
+        @Override
+        public FrameChunk call() throws Exception
+        {
+          chunk.decode( aDataSet, aMode );
+          return chunk;
+        }
+      } );
+    }
+
+    final List<FrameChunk> results = ParallelDecoder.invokeAll( tasks );
+
+    DecoderState actualState = null;
+    for ( FrameChunk chunk : results )
+    {
+      if ( ( actualState != null ) && !actualState.isEquivalentTo( chunk.startState ) )
+      {
+        LOG.log( Level.FINE, "Frame at {0} does not start at a datagram boundary; decoding it again...",
+            Integer.valueOf( chunk.startIdx ) );
+        chunk.startState = actualState.copy();
+        chunk.decode( aDataSet, aMode );
+      }
+
+      aDataSet.addAll( chunk.dataSet );
+      chunk.annotations.replay( this.annotationListener );
+      actualState = chunk.endState;
+
+      this.progressListener.setProgress( getPercentage( chunk.endIdx, aDataSet.getStartOfDecode(),
+          aDataSet.getEndOfDecode() ) );
+    }
+  }
+
+  /**
+   * Creates the decoder state to start decoding with.
+   * 
+   * @param aValues
+   *          the sample values;
+   * @param aStartIdx
+   *          the sample index to start decoding at.
+   * @return a new decoder state, never <code>null</code>.
+   */
+  private DecoderState createInitialState( final int[] aValues, final int aStartIdx )
+  {
+    final DecoderState state = new DecoderState( this.bitCount );
+    state.oldSckValue = ( aValues[aStartIdx] & ( 1 << this.sckIdx ) );
+    state.oldCsValue = ( aValues[aStartIdx] & ( 1 << this.csIdx ) );
+    state.slaveSelected = true;
+    state.dataStartIdx = aStartIdx;
+    return state;
   }
 
   /**
@@ -425,7 +767,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
   private SPIMode detectSPIMode( final int aStartIndex, final int aEndIndex )
   {
     final AcquisitionResult data = this.context.getData();
-    final Frequency<Integer> valueStats = new Frequency<Integer>();
+    final LongHistogram valueStats = new LongHistogram();
 
     final int[] values = data.getValues();
     final int sckMask = 1 << this.sckIdx;
@@ -435,14 +777,14 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     for ( int i = aStartIndex; i < aEndIndex; i++ )
     {
       final int newValue = ( values[i] & sckMask ) >> this.sckIdx;
-      valueStats.addValue( Integer.valueOf( newValue ) );
+      valueStats.addValue( newValue );
     }
 
     SPIMode result;
 
     // If the clock line's most occurring value is one, then
     // we're fairly sure that CPOL == 1...
-    if ( valueStats.getHighestRanked().intValue() == 1 )
+    if ( valueStats.getMode( 0L ) == 1L )
     {
       LOG.log( Level.INFO, "SPI mode is probably mode 2 or 3 (CPOL == 1). Assuming mode 2 ..." );
       result = SPIMode.MODE_2;
@@ -456,6 +798,82 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     return result;
   }
 
+  /**
+   * Performs a fast pre-pass over the sample data to determine the chunks of
+   * frames that can be decoded independently. Chunks always start at a /CS
+   * falling edge, and are at least {@link ParallelDecoder#getChunkSize(int, int)}
+   * samples long.
+   * 
+   * @param aInitialState
+   *          the decoder state at the start of decoding;
+   * @param aStartIdx
+   *          the sample index at which decoding starts;
+   * @param aEndIdx
+   *          the sample index at which decoding ends.
+   * @return a list with frame chunks, never <code>null</code>.
+   */
+  private List<FrameChunk> findFrameChunks( final DecoderState aInitialState, final int aStartIdx, final int aEndIdx )
+  {
+    final int[] values = this.context.getData().getValues();
+
+    final int sckMask = ( 1 << this.sckIdx );
+    final int csMask = ( 1 << this.csIdx );
+
+    final int chunkSize = ParallelDecoder.getChunkSize( aStartIdx, aEndIdx );
+
+    final List<FrameChunk> result = new ArrayList<FrameChunk>();
+
+    FrameChunk chunk = new FrameChunk( aInitialState.copy(), aStartIdx + 1 );
+
+    // The clock-line is only tracked while the slave is selected, so we need to
+    // keep track of the selection state as well in order to know what the
+    // decoder state looks like at the start of each chunk...
+    int oldCsValue = aInitialState.oldCsValue;
+    int oldSckValue = aInitialState.oldSckValue;
+    boolean slaveSelected = aInitialState.slaveSelected;
+
+    for ( int idx = aStartIdx + 1; idx < aEndIdx; idx++ )
+    {
+      final int dataSample = values[idx];
+      final int csValue = ( dataSample & csMask );
+
+      if ( ( oldCsValue > csValue ) && ( ( idx - chunk.startIdx ) >= chunkSize ) && ( ( aEndIdx - idx ) >= chunkSize ) )
+      {
+        // Start a new chunk at this /CS falling edge...
+        chunk.endIdx = idx;
+        result.add( chunk );
+
+        final DecoderState state = new DecoderState( this.bitCount );
+        state.oldCsValue = oldCsValue;
+        state.oldSckValue = oldSckValue;
+        state.slaveSelected = slaveSelected;
+        state.dataStartIdx = idx;
+
+        chunk = new FrameChunk( state, idx );
+      }
+
+      if ( oldCsValue > csValue )
+      {
+        slaveSelected = true;
+      }
+      else if ( oldCsValue < csValue )
+      {
+        slaveSelected = false;
+      }
+      oldCsValue = csValue;
+
+      if ( slaveSelected )
+      {
+        oldSckValue = ( dataSample & sckMask );
+      }
+    }
+
+    chunk.endIdx = aEndIdx;
+    result.add( chunk );
+
+    return result;
+  }
+
   /**
    * Determines the channel labels that are used in the annotations and reports
    * and clears any existing annotations on the decoded channels.
@@ -523,6 +941,9 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
    * 
    * @param aDecodedData
    *          the data set to add the data event(s) to;
+   * @param aAnnotationListener
+   *          the annotation listener to report the data annotation(s) to, can
+   *          be <code>null</code>;
    * @param aStartIdx
    *          the starting sample index on which the data started;
    * @param aEndIdx
@@ -532,16 +953,19 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
    * @param aMisoValue
    *          the MISO data value.
    */
-  private void reportData( final SPIDataSet aDecodedData, final int aStartIdx, final int aEndIdx, final int aMosiValue,
-      final int aMisoValue )
+  private void reportData( final SPIDataSet aDecodedData, final AnnotationListener aAnnotationListener,
+      final int aStartIdx, final int aEndIdx, final int aMosiValue, final int aMisoValue )
   {
     if ( this.mosiIdx >= 0 )
     {
       // Perform bit-order conversion on the full byte...
       final int mosivalue = NumberUtils.convertBitOrder( aMosiValue, ( this.bitCount + 1 ), this.bitOrder );
 
-      this.annotationListener.onAnnotation( new SampleDataAnnotation( this.mosiIdx, aStartIdx, aEndIdx, String.format(
-          "0x%1$X (%1$c)", Integer.valueOf( mosivalue ) ) ) );
+      if ( aAnnotationListener != null )
+      {
+        aAnnotationListener.onAnnotation( new SampleDataAnnotation( this.mosiIdx, aStartIdx, aEndIdx, String.format(
+            "0x%1$X (%1$c)", Integer.valueOf( mosivalue ) ) ) );
+      }
 
       aDecodedData.reportMosiData( this.mosiIdx, aStartIdx, aEndIdx, mosivalue );
     }
@@ -551,8 +975,11 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
       // Perform bit-order conversion on the full byte...
       final int misovalue = NumberUtils.convertBitOrder( aMisoValue, ( this.bitCount + 1 ), this.bitOrder );
 
-      this.annotationListener.onAnnotation( new SampleDataAnnotation( this.misoIdx, aStartIdx, aEndIdx, String.format(
-          "0x%1$X (%1$c)", Integer.valueOf( misovalue ) ) ) );
+      if ( aAnnotationListener != null )
+      {
+        aAnnotationListener.onAnnotation( new SampleDataAnnotation( this.misoIdx, aStartIdx, aEndIdx, String.format(
+            "0x%1$X (%1$c)", Integer.valueOf( misovalue ) ) ) );
+      }
 
       aDecodedData.reportMisoData( this.misoIdx, aStartIdx, aEndIdx, misovalue );
     }
@@ -146,4 +146,21 @@ public final class SPIData extends BaseData<SPIData>
   {
     return SPIDataSet.SPI_MOSI.equals( this.dataName );
   }
+
+  /**
+   * Returns a copy of this data with the given index.
+   *
+   * @param aIdx
+   *          the index of the copy.
+   * @return a new SPI data instance, never <code>null</code>.
+   */
+  SPIData withIndex( final int aIdx )
+  {
+    if ( isEvent() )
+    {
+      return new SPIData( aIdx, getChannelIdx(), getEventName(), getStartSampleIndex() );
+    }
+    return new SPIData( aIdx, getChannelIdx(), this.dataName, this.dataValue, getStartSampleIndex(),
+        getEndSampleIndex() );
+  }
 }
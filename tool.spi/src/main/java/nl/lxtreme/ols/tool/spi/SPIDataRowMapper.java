@@ -0,0 +1,100 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.spi;
+
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.data.export.*;
+
+
+/**
+ * Maps decoded SPI data onto table rows, for exporting it.
+ */
+final class SPIDataRowMapper implements RowMapper<SPIData>
+{
+  // CONSTANTS
+
+  private static final String[] NAMES = { "index", "start-time", "end-time", "event?", "event-type", "MOSI data",
+      "MISO data" };
+  private static final ColumnType[] TYPES = { ColumnType.INT, ColumnType.DOUBLE, ColumnType.DOUBLE,
+      ColumnType.BOOLEAN, ColumnType.STRING, ColumnType.INT, ColumnType.INT };
+
+  // VARIABLES
+
+  private final SPIDataSet dataSet;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SPIDataRowMapper instance.
+   * 
+   * @param aDataSet
+   *          the data set to take the time values from, cannot be
+   *          <code>null</code>.
+   */
+  SPIDataRowMapper( final SPIDataSet aDataSet )
+  {
+    this.dataSet = aDataSet;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String[] getColumnNames()
+  {
+    return NAMES.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ColumnType[] getColumnTypes()
+  {
+    return TYPES.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeRow( final TableWriter aWriter, final SPIData aData ) throws IOException
+  {
+    aWriter.writeInt( aData.getIndex() );
+    aWriter.writeDouble( this.dataSet.getTime( aData.getStartSampleIndex() ) );
+    aWriter.writeDouble( this.dataSet.getTime( aData.getEndSampleIndex() ) );
+    aWriter.writeBoolean( aData.isEvent() );
+    aWriter.writeString( aData.getEventName() );
+
+    if ( aData.isMosiData() )
+    {
+      aWriter.writeInt( aData.getDataValue() ).writeNull();
+    }
+    else if ( aData.isMisoData() )
+    {
+      aWriter.writeNull().writeInt( aData.getDataValue() );
+    }
+  }
+}
@@ -23,13 +23,14 @@ package nl.lxtreme.ols.tool.spi;
 
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.util.*;
 
 
 /**
  * @author jajans
  */
-public final class SPIDataSet extends BaseDataSet<SPIData>
+public final class SPIDataSet extends BaseDataSet<SPIData> implements Sliceable<SPIDataSet>
 {
   // CONSTANTS
 
@@ -50,8 +51,49 @@ public final class SPIDataSet extends BaseDataSet<SPIData>
     super( aStartOfDecode, aEndOfDecode, aData );
   }
 
+  /**
+   * Creates a new, empty, SPIDataSet instance for a sub-range of the given
+   * data set.
+   */
+  private SPIDataSet( final SPIDataSet aSource, final int aStartOfDecode, final int aEndOfDecode )
+  {
+    super( aSource, aStartOfDecode, aEndOfDecode );
+  }
+
   // METHODS
 
+  /**
+   * Appends all data of the given data set to this data set, renumbering the
+   * appended data to follow the data already present in this data set.
+   * 
+   * @param aDataSet
+   *          the data set to append, cannot be <code>null</code>.
+   */
+  public void addAll( final SPIDataSet aDataSet )
+  {
+    for ( SPIData data : aDataSet.getData() )
+    {
+      addData( data.withIndex( size() ) );
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SPIDataSet slice( final int aStartSampleIdx, final int aEndSampleIdx )
+  {
+    final SPIDataSet result = new SPIDataSet( this, aStartSampleIdx, aEndSampleIdx );
+    for ( SPIData data : getData() )
+    {
+      if ( ( data.getStartSampleIndex() >= aStartSampleIdx ) && ( data.getEndSampleIndex() <= aEndSampleIdx ) )
+      {
+        result.addData( data.withIndex( result.size() ) );
+      }
+    }
+    return result;
+  }
+
   /**
    * Returns the time as display string.
    * 
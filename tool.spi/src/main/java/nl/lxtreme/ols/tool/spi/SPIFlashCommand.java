@@ -0,0 +1,172 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.spi;
+
+
+/**
+ * Denotes a single decoded instruction of a SPI NOR flash device.
+ * <p>
+ * This class is immutable.
+ * </p>
+ */
+public final class SPIFlashCommand
+{
+  // VARIABLES
+
+  private final int opcode;
+  private final SPIFlashOpcode instruction;
+  private final long address;
+  private final byte[] data;
+  private final int startSampleIdx;
+  private final int endSampleIdx;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SPIFlashCommand instance.
+   * 
+   * @param aOpcode
+   *          the raw opcode of this command;
+   * @param aAddress
+   *          the address of this command, or -1 if it has no address;
+   * @param aData
+   *          the data transferred by this command, cannot be <code>null</code>;
+   * @param aStartSampleIdx
+   *          the sample index at which this command starts;
+   * @param aEndSampleIdx
+   *          the sample index at which this command ends.
+   */
+  public SPIFlashCommand( final int aOpcode, final long aAddress, final byte[] aData, final int aStartSampleIdx,
+      final int aEndSampleIdx )
+  {
+    this.opcode = aOpcode;
+    this.instruction = SPIFlashOpcode.valueOf( aOpcode );
+    this.address = aAddress;
+    this.data = aData.clone();
+    this.startSampleIdx = aStartSampleIdx;
+    this.endSampleIdx = aEndSampleIdx;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the address of this command.
+   * 
+   * @return the address, or -1 if this command has no address.
+   */
+  public long getAddress()
+  {
+    return this.address;
+  }
+
+  /**
+   * Returns the data transferred by this command.
+   * 
+   * @return a copy of the data, never <code>null</code>.
+   */
+  public byte[] getData()
+  {
+    return this.data.clone();
+  }
+
+  /**
+   * Returns the number of data bytes transferred by this command.
+   * 
+   * @return a data length, >= 0.
+   */
+  public int getDataLength()
+  {
+    return this.data.length;
+  }
+
+  /**
+   * Returns the sample index at which this command ends.
+   * 
+   * @return a sample index.
+   */
+  public int getEndSampleIndex()
+  {
+    return this.endSampleIdx;
+  }
+
+  /**
+   * Returns the instruction of this command.
+   * 
+   * @return the instruction, or <code>null</code> if the opcode of this
+   *         command is not known.
+   */
+  public SPIFlashOpcode getInstruction()
+  {
+    return this.instruction;
+  }
+
+  /**
+   * Returns the name of this command.
+   * 
+   * @return a name, never <code>null</code>.
+   */
+  public String getName()
+  {
+    if ( this.instruction == null )
+    {
+      return String.format( "Unknown (0x%02X)", Integer.valueOf( this.opcode ) );
+    }
+    return this.instruction.getDisplayName();
+  }
+
+  /**
+   * Returns the raw opcode of this command.
+   * 
+   * @return the opcode, 0..255.
+   */
+  public int getOpcode()
+  {
+    return this.opcode;
+  }
+
+  /**
+   * Returns the sample index at which this command starts.
+   * 
+   * @return a sample index.
+   */
+  public int getStartSampleIndex()
+  {
+    return this.startSampleIdx;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder( getName() );
+    if ( this.address >= 0 )
+    {
+      sb.append( " @ 0x" ).append( Long.toHexString( this.address ).toUpperCase() );
+    }
+    if ( this.data.length > 0 )
+    {
+      sb.append( ", " ).append( this.data.length ).append( " byte(s)" );
+    }
+    return sb.toString();
+  }
+}
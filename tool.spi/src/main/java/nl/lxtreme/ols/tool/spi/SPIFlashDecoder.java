@@ -0,0 +1,227 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.spi;
+
+
+import java.io.*;
+
+import nl.lxtreme.ols.tool.base.stream.*;
+import nl.lxtreme.ols.tool.spi.SPIFlashOpcode.Direction;
+
+
+/**
+ * Decodes SPI NOR flash instructions from a stream of SPI data.
+ * <p>
+ * Instructions are delimited by the /CS events of the SPI data, hence the SPI
+ * data should be decoded with both honouring and reporting of /CS enabled. The
+ * first MOSI byte after /CS goes low denotes the opcode, which determines how
+ * the following MOSI and MISO bytes are interpreted.
+ * </p>
+ * <p>
+ * This class is not thread-safe; each pipeline should use its own instance.
+ * </p>
+ * 
+ * @see SPIAnalyserTask#produce(FrameSink)
+ */
+public class SPIFlashDecoder implements FrameDecoder<SPIData, SPIFlashCommand>
+{
+  // VARIABLES
+
+  private final int addressBytes;
+  private final ByteArrayOutputStream data;
+
+  private boolean selected;
+  private int startSampleIdx;
+  private int endSampleIdx;
+  private int opcode;
+  private SPIFlashOpcode instruction;
+  private long address;
+  private int mosiCount;
+  private int misoCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SPIFlashDecoder instance for flash devices using 3-byte
+   * addresses.
+   */
+  public SPIFlashDecoder()
+  {
+    this( 3 );
+  }
+
+  /**
+   * Creates a new SPIFlashDecoder instance.
+   * 
+   * @param aAddressBytes
+   *          the number of address bytes used by the flash device, either 3 or
+   *          4.
+   */
+  public SPIFlashDecoder( final int aAddressBytes )
+  {
+    if ( ( aAddressBytes != 3 ) && ( aAddressBytes != 4 ) )
+    {
+      throw new IllegalArgumentException( "Address bytes should be either 3 or 4!" );
+    }
+    this.addressBytes = aAddressBytes;
+    this.data = new ByteArrayOutputStream();
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void decode( final SPIData aData, final FrameSink<? super SPIFlashCommand> aSink )
+      throws InterruptedException
+  {
+    if ( aData.isEvent() )
+    {
+      if ( SPIDataSet.SPI_CS_LOW.equals( aData.getEventName() ) )
+      {
+        emit( aSink );
+        begin( aData.getStartSampleIndex() );
+      }
+      else if ( SPIDataSet.SPI_CS_HIGH.equals( aData.getEventName() ) )
+      {
+        this.endSampleIdx = aData.getStartSampleIndex();
+        emit( aSink );
+      }
+      return;
+    }
+
+    if ( !this.selected )
+    {
+      // Data outside a /CS-frame, treat it as the start of a new instruction...
+      begin( aData.getStartSampleIndex() );
+    }
+    this.endSampleIdx = aData.getEndSampleIndex();
+
+    final int value = aData.getDataValue() & 0xFF;
+    if ( aData.isMosiData() )
+    {
+      final int idx = this.mosiCount++;
+      if ( idx == 0 )
+      {
+        this.opcode = value;
+        this.instruction = SPIFlashOpcode.valueOf( value );
+      }
+      else if ( isAddressByte( idx ) )
+      {
+        this.address = ( this.address << 8 ) | value;
+      }
+      else if ( isDataByte( idx, Direction.MOSI ) )
+      {
+        this.data.write( value );
+      }
+    }
+    else if ( aData.isMisoData() )
+    {
+      final int idx = this.misoCount++;
+      if ( isDataByte( idx, Direction.MISO ) )
+      {
+        this.data.write( value );
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void end( final FrameSink<? super SPIFlashCommand> aSink ) throws InterruptedException
+  {
+    emit( aSink );
+  }
+
+  /**
+   * Starts a new instruction at the given sample index.
+   */
+  private void begin( final int aSampleIdx )
+  {
+    this.selected = true;
+    this.startSampleIdx = aSampleIdx;
+    this.endSampleIdx = aSampleIdx;
+    this.opcode = -1;
+    this.instruction = null;
+    this.address = 0L;
+    this.mosiCount = 0;
+    this.misoCount = 0;
+    this.data.reset();
+  }
+
+  /**
+   * Publishes the current instruction, if any, to the given sink.
+   */
+  private void emit( final FrameSink<? super SPIFlashCommand> aSink ) throws InterruptedException
+  {
+    if ( this.selected && ( this.opcode >= 0 ) )
+    {
+      final boolean hasAddress = ( this.instruction != null ) && this.instruction.isAddressed()
+          && ( this.mosiCount > this.addressBytes );
+
+      aSink.frame( new SPIFlashCommand( this.opcode, hasAddress ? this.address : -1L, this.data.toByteArray(),
+          this.startSampleIdx, this.endSampleIdx ) );
+    }
+    this.selected = false;
+  }
+
+  /**
+   * Returns the number of header bytes (opcode, address and dummy bytes) of
+   * the current instruction.
+   */
+  private int getHeaderLength()
+  {
+    if ( this.instruction == null )
+    {
+      return 1;
+    }
+    return 1 + ( this.instruction.isAddressed() ? this.addressBytes : 0 ) + this.instruction.getDummyBytes();
+  }
+
+  /**
+   * Returns whether the byte with the given index is part of the address of
+   * the current instruction.
+   */
+  private boolean isAddressByte( final int aIdx )
+  {
+    return ( this.instruction != null ) && this.instruction.isAddressed() && ( aIdx <= this.addressBytes );
+  }
+
+  /**
+   * Returns whether the byte with the given index on the given line is data of
+   * the current instruction.
+   */
+  private boolean isDataByte( final int aIdx, final Direction aLine )
+  {
+    if ( aIdx < getHeaderLength() )
+    {
+      return false;
+    }
+    if ( this.instruction == null )
+    {
+      // Unknown instruction; only keep what the master has sent...
+      return aLine == Direction.MOSI;
+    }
+    return this.instruction.getDirection() == aLine;
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.spi;
+
+
+/**
+ * Denotes the common instructions of SPI NOR flash devices.
+ */
+public enum SPIFlashOpcode
+{
+  // CONSTANTS
+
+  READ( 0x03, "Read data", true, 0, Direction.MISO ), //
+  FAST_READ( 0x0B, "Fast read", true, 1, Direction.MISO ), //
+  PAGE_PROGRAM( 0x02, "Page program", true, 0, Direction.MOSI ), //
+  SECTOR_ERASE( 0x20, "Sector erase (4KB)", true, 0, Direction.NONE ), //
+  BLOCK_ERASE_32K( 0x52, "Block erase (32KB)", true, 0, Direction.NONE ), //
+  BLOCK_ERASE( 0xD8, "Block erase (64KB)", true, 0, Direction.NONE ), //
+  CHIP_ERASE( 0xC7, "Chip erase", false, 0, Direction.NONE ), //
+  CHIP_ERASE_ALT( 0x60, "Chip erase", false, 0, Direction.NONE ), //
+  WRITE_ENABLE( 0x06, "Write enable", false, 0, Direction.NONE ), //
+  WRITE_DISABLE( 0x04, "Write disable", false, 0, Direction.NONE ), //
+  READ_STATUS( 0x05, "Read status register", false, 0, Direction.MISO ), //
+  WRITE_STATUS( 0x01, "Write status register", false, 0, Direction.MOSI ), //
+  READ_ID( 0x9F, "Read JEDEC ID", false, 0, Direction.MISO ), //
+  POWER_DOWN( 0xB9, "Power down", false, 0, Direction.NONE ), //
+  RELEASE_POWER_DOWN( 0xAB, "Release power down", false, 0, Direction.MISO );
+
+  // INNER TYPES
+
+  /**
+   * Denotes on which line the data of an instruction is transferred.
+   */
+  public static enum Direction
+  {
+    /** No data is transferred after the header of the instruction. */
+    NONE,
+    /** Data is transferred from the flash device to the master. */
+    MISO,
+    /** Data is transferred from the master to the flash device. */
+    MOSI;
+  }
+
+  // VARIABLES
+
+  private static final SPIFlashOpcode[] LOOKUP = new SPIFlashOpcode[256];
+
+  static
+  {
+    for ( SPIFlashOpcode value : values() )
+    {
+      LOOKUP[value.opcode] = value;
+    }
+  }
+
+  private final int opcode;
+  private final String displayName;
+  private final boolean addressed;
+  private final int dummyBytes;
+  private final Direction direction;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SPIFlashOpcode instance.
+   */
+  private SPIFlashOpcode( final int aOpcode, final String aDisplayName, final boolean aAddressed,
+      final int aDummyBytes, final Direction aDirection )
+  {
+    this.opcode = aOpcode;
+    this.displayName = aDisplayName;
+    this.addressed = aAddressed;
+    this.dummyBytes = aDummyBytes;
+    this.direction = aDirection;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the instruction for the given opcode.
+   * 
+   * @param aOpcode
+   *          the opcode to return the instruction for.
+   * @return the instruction, or <code>null</code> if the given opcode is not
+   *         known.
+   */
+  public static SPIFlashOpcode valueOf( final int aOpcode )
+  {
+    if ( ( aOpcode < 0 ) || ( aOpcode >= LOOKUP.length ) )
+    {
+      return null;
+    }
+    return LOOKUP[aOpcode];
+  }
+
+  /**
+   * Returns the direction of the data following the header of this
+   * instruction.
+   * 
+   * @return the data direction, never <code>null</code>.
+   */
+  public Direction getDirection()
+  {
+    return this.direction;
+  }
+
+  /**
+   * Returns the human readable name of this instruction.
+   * 
+   * @return a display name, never <code>null</code>.
+   */
+  public String getDisplayName()
+  {
+    return this.displayName;
+  }
+
+  /**
+   * Returns the number of dummy bytes between the address and the data of
+   * this instruction.
+   * 
+   * @return a number of dummy bytes, >= 0.
+   */
+  public int getDummyBytes()
+  {
+    return this.dummyBytes;
+  }
+
+  /**
+   * Returns the opcode of this instruction.
+   * 
+   * @return the opcode, 0..255.
+   */
+  public int getOpcode()
+  {
+    return this.opcode;
+  }
+
+  /**
+   * Returns whether this instruction is followed by an address.
+   * 
+   * @return <code>true</code> if this instruction is addressed,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isAddressed()
+  {
+    return this.addressed;
+  }
+}
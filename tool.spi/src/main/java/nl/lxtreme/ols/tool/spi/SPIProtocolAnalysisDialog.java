@@ -35,11 +35,11 @@ import java.util.logging.*;
 import javax.swing.*;
 
 import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.export.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.ToolUtils.RestorableAction;
 import nl.lxtreme.ols.util.*;
-import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
@@ -212,9 +212,9 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
     {
       storeToHtmlFile( aOutputFile, getLastResult() );
     }
-    else if ( ExportFormat.CSV.equals( aFormat ) )
+    else if ( ExportFormat.CSV.equals( aFormat ) || ExportFormat.BINARY.equals( aFormat ) )
     {
-      storeToCsvFile( aOutputFile, getLastResult() );
+      storeToTableFile( aOutputFile, aFormat, getLastResult() );
     }
   }
 
@@ -475,28 +475,29 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   private JPanel createSettingsPane()
   {
     final int channelCount = getData().getChannels();
+    final int channelOffset = getChannelOffset();
 
     final JPanel settings = new JPanel( new SpringLayout() );
 
     SpringLayoutUtils.addSeparator( settings, "Settings" );
 
     settings.add( createRightAlignedLabel( "SCK" ) );
-    this.sck = SwingComponentUtils.createChannelSelector( channelCount );
+    this.sck = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.sck.setSelectedIndex( 0 );
     settings.add( this.sck );
 
     settings.add( createRightAlignedLabel( "MISO" ) );
-    this.miso = SwingComponentUtils.createOptionalChannelSelector( channelCount );
+    this.miso = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
     this.miso.setSelectedIndex( 2 );
     settings.add( this.miso );
 
     settings.add( createRightAlignedLabel( "MOSI" ) );
-    this.mosi = SwingComponentUtils.createOptionalChannelSelector( channelCount );
+    this.mosi = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
     this.mosi.setSelectedIndex( 3 );
     settings.add( this.mosi );
 
     settings.add( createRightAlignedLabel( "/CS" ) );
-    this.cs = SwingComponentUtils.createChannelSelector( channelCount );
+    this.cs = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.cs.setSelectedIndex( 3 );
     settings.add( this.cs );
 
@@ -594,41 +595,35 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   }
 
   /**
-   * exports the table data to a CSV file
+   * Stores the given analysis results to the given file as CSV or binary table.
    * 
    * @param aFile
-   *          File object
+   *          the file to write to;
+   * @param aFormat
+   *          the tabular format to write in;
+   * @param aDataSet
+   *          the analysis results to write.
    */
-  private void storeToCsvFile( final File aFile, final SPIDataSet aDataSet )
+  private void storeToTableFile( final File aFile, final ExportFormat aFormat, final SPIDataSet aDataSet )
   {
     try
     {
-      final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
-
-      exporter.setHeaders( "index", "start-time", "end-time", "event?", "event-type", "MOSI data", "MISO data" );
-
-      final List<SPIData> decodedData = aDataSet.getData();
-      for ( int i = 0; i < decodedData.size(); i++ )
+      final TableWriter writer = ToolUtils.createTableWriter( aFile, aFormat );
+      try
       {
-        final SPIData ds = decodedData.get( i );
-
-        final String startTime = aDataSet.getDisplayTime( ds.getStartSampleIndex() );
-        final String endTime = aDataSet.getDisplayTime( ds.getStartSampleIndex() );
-        final String mosiDataValue = ds.isMosiData() ? Integer.toString( ds.getDataValue() ) : null;
-        final String misoDataValue = ds.isMisoData() ? Integer.toString( ds.getDataValue() ) : null;
-
-        exporter.addRow( Integer.valueOf( i ), startTime, endTime, Boolean.valueOf( ds.isEvent() ), ds.getEventName(),
-            mosiDataValue, misoDataValue );
+        aDataSet.writeTo( writer, new SPIDataRowMapper( aDataSet ) );
+      }
+      finally
+      {
+        writer.close();
       }
-
-      exporter.close();
     }
     catch ( final IOException exception )
     {
       // Make sure to handle IO-interrupted exceptions properly!
       if ( !HostUtils.handleInterruptedException( exception ) )
       {
-        LOG.log( Level.WARNING, "CSV export failed!", exception );
+        LOG.log( Level.WARNING, "Table export failed!", exception );
       }
     }
   }
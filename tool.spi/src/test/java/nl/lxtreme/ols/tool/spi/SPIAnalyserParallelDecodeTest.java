@@ -0,0 +1,205 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.spi;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.test.data.DataTestUtils.TestDataProvider;
+import nl.lxtreme.ols.tool.base.*;
+import nl.lxtreme.ols.util.NumberUtils.BitOrder;
+
+import org.junit.*;
+import org.mockito.*;
+
+
+/**
+ * Tests that decoding SPI frames concurrently yields the same results as
+ * decoding them sequentially.
+ */
+public class SPIAnalyserParallelDecodeTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides SPI mode 0 frames of random bytes, optionally with the occasional
+   * truncated frame.
+   */
+  static class SPIFrameDataProvider implements TestDataProvider
+  {
+    // VARIABLES
+
+    private final int truncateInterval;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new SPIFrameDataProvider instance.
+     * 
+     * @param aTruncateInterval
+     *          the interval of frames that should be truncated, 0 to never
+     *          truncate a frame.
+     */
+    public SPIFrameDataProvider( final int aTruncateInterval )
+    {
+      this.truncateInterval = aTruncateInterval;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fillData( final int[] aValues, final long[] aTimestamps, final int aDataSize )
+    {
+      final Random rnd = new Random( 4711L );
+
+      int idx = 0;
+      int frame = 0;
+      while ( idx < aDataSize )
+      {
+        // /CS high, idle...
+        for ( int i = 0; ( i < 3 ) && ( idx < aDataSize ); i++ )
+        {
+          idx = addSample( aValues, aTimestamps, idx, CS_MASK );
+        }
+
+        final int byteValue = rnd.nextInt( 256 );
+        // Every now and then, truncate a frame halfway...
+        frame++;
+        final int bits = ( ( this.truncateInterval > 0 ) && ( ( frame % this.truncateInterval ) == 0 ) ) ? 5 : 8;
+        for ( int bit = 7; ( bit >= ( 8 - bits ) ) && ( idx < aDataSize ); bit-- )
+        {
+          final int data = ( ( byteValue & ( 1 << bit ) ) != 0 ) ? ( MOSI_MASK | MISO_MASK ) : 0;
+          idx = addSample( aValues, aTimestamps, idx, data );
+          if ( idx < aDataSize )
+          {
+            idx = addSample( aValues, aTimestamps, idx, data | SCK_MASK );
+          }
+        }
+        if ( idx < aDataSize )
+        {
+          idx = addSample( aValues, aTimestamps, idx, 0 );
+        }
+      }
+    }
+
+    /**
+     * Adds a single sample.
+     */
+    private int addSample( final int[] aValues, final long[] aTimestamps, final int aIdx, final int aValue )
+    {
+      aValues[aIdx] = aValue;
+      aTimestamps[aIdx] = aIdx;
+      return aIdx + 1;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final int MISO_IDX = 0;
+  private static final int MOSI_IDX = 1;
+  private static final int CS_IDX = 2;
+  private static final int SCK_IDX = 3;
+
+  private static final int MISO_MASK = 1 << MISO_IDX;
+  private static final int MOSI_MASK = 1 << MOSI_IDX;
+  private static final int CS_MASK = 1 << CS_IDX;
+  private static final int SCK_MASK = 1 << SCK_IDX;
+
+  private static final int DATA_SIZE = 5 * ParallelDecoder.MIN_CHUNK_SIZE;
+
+  // METHODS
+
+  /**
+   * Tests that a parallel decode of well-formed frames results in the same
+   * data as a sequential decode.
+   */
+  @Test
+  public void testParallelDecodeEqualsSequentialDecode() throws Exception
+  {
+    assertParallelDecodeEqualsSequentialDecode( new SPIFrameDataProvider( 0 ) );
+  }
+
+  /**
+   * Tests that a parallel decode of frames, some of which are truncated,
+   * results in the same data as a sequential decode.
+   */
+  @Test
+  public void testParallelDecodeWithTruncatedFramesEqualsSequentialDecode() throws Exception
+  {
+    assertParallelDecodeEqualsSequentialDecode( new SPIFrameDataProvider( 997 ) );
+  }
+
+  /**
+   * Analyses the generated data.
+   */
+  private SPIDataSet analyse( final ToolContext aToolContext, final boolean aParallelDecode ) throws Exception
+  {
+    ToolProgressListener tpl = Mockito.mock( ToolProgressListener.class );
+    AnnotationListener al = Mockito.mock( AnnotationListener.class );
+
+    SPIAnalyserTask worker = new SPIAnalyserTask( aToolContext, tpl, al );
+    worker.setBitCount( 7 );
+    worker.setHonourCS( true );
+    worker.setReportCS( true );
+    worker.setMode( SPIMode.MODE_0 );
+    worker.setOrder( BitOrder.MSB_FIRST );
+    worker.setMisoIndex( MISO_IDX );
+    worker.setMosiIndex( MOSI_IDX );
+    worker.setCSIndex( CS_IDX );
+    worker.setSCKIndex( SCK_IDX );
+    worker.setParallelDecode( aParallelDecode );
+
+    return worker.call();
+  }
+
+  /**
+   * Decodes the data of the given provider both sequentially and in parallel,
+   * and asserts both results are equal.
+   */
+  private void assertParallelDecodeEqualsSequentialDecode( final TestDataProvider aProvider ) throws Exception
+  {
+    final DataContainer container = DataTestUtils.createMockDataContainer( DATA_SIZE, 4, 1000000, aProvider );
+    final ToolContext toolContext = DataTestUtils.createToolContext( container, 0, DATA_SIZE - 1 );
+
+    final SPIDataSet expected = analyse( toolContext, false );
+    final SPIDataSet actual = analyse( toolContext, true );
+
+    assertFalse( expected.isEmpty() );
+    assertEquals( expected.getData().size(), actual.getData().size() );
+    for ( int i = 0; i < expected.getData().size(); i++ )
+    {
+      final SPIData expectedData = expected.getData().get( i );
+      final SPIData actualData = actual.getData().get( i );
+
+      assertEquals( "Data at index " + i + " not equal, ", expectedData, actualData );
+      assertEquals( expectedData.getDataName(), actualData.getDataName() );
+      assertEquals( expectedData.getEventName(), actualData.getEventName() );
+    }
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.spi;
+
+
+import static nl.lxtreme.ols.tool.spi.SPIFlashTrafficProvider.*;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.tool.base.*;
+import nl.lxtreme.ols.tool.base.DecodeResultCache.CachedResult;
+import nl.lxtreme.ols.tool.base.DecodeResultCache.Key;
+import nl.lxtreme.ols.tool.base.DecodeResultCache.Recorder;
+import nl.lxtreme.ols.util.NumberUtils.BitOrder;
+
+import org.junit.*;
+import org.mockito.*;
+
+
+/**
+ * Tests the caching of SPI analysis results in the {@link DecodeResultCache}.
+ */
+public class SPIDecodeResultCacheTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides the settings of the SPI analyser.
+   */
+  static final class SPISettings implements Configurable
+  {
+    // VARIABLES
+
+    private final SPIMode mode;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new SPISettings instance.
+     */
+    public SPISettings( final SPIMode aMode )
+    {
+      this.mode = aMode;
+    }
+
+    // METHODS
+
+    @Override
+    public void readPreferences( final UserSettings aSettings )
+    {
+      // Nop
+    }
+
+    @Override
+    public void writePreferences( final UserSettings aSettings )
+    {
+      aSettings.putInt( "mode", this.mode.ordinal() );
+      aSettings.putInt( "bits", 7 );
+    }
+  }
+
+  /**
+   * Collects all annotations it receives.
+   */
+  static final class CollectingAnnotationListener implements AnnotationListener
+  {
+    // VARIABLES
+
+    final List<Annotation<?>> annotations = new ArrayList<Annotation<?>>();
+
+    // METHODS
+
+    @Override
+    public void clearAnnotations()
+    {
+      this.annotations.clear();
+    }
+
+    @Override
+    public void clearAnnotations( final int aChannelIdx )
+    {
+      final Iterator<Annotation<?>> iter = this.annotations.iterator();
+      while ( iter.hasNext() )
+      {
+        if ( iter.next().getChannel() == aChannelIdx )
+        {
+          iter.remove();
+        }
+      }
+    }
+
+    @Override
+    public void onAnnotation( final Annotation<?> aAnnotation )
+    {
+      this.annotations.add( aAnnotation );
+    }
+  }
+
+  // CONSTANTS
+
+  private static final int DATA_SIZE = 1024;
+  private static final String TOOL_NAME = "SPI analyser";
+
+  // VARIABLES
+
+  private DataContainer container;
+  private DecodeResultCache cache;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    this.container = DataTestUtils.createMockDataContainer( DATA_SIZE, 4, 1000000, new SPIFlashTrafficProvider(
+        false /* aRepeat */) );
+    this.cache = new DecodeResultCache( 1024L * 1024L );
+  }
+
+  /**
+   * Tests that a result is only reused for the same settings.
+   */
+  @Test
+  public void testCachedResultIsOnlyReusedForSameSettings() throws Exception
+  {
+    final ToolContext context = DataTestUtils.createToolContext( this.container, 0, DATA_SIZE - 1 );
+
+    final CollectingAnnotationListener annotations = new CollectingAnnotationListener();
+    final SPIDataSet expected = analyse( context, SPIMode.MODE_0, annotations );
+    assertFalse( annotations.annotations.isEmpty() );
+
+    final CachedResult<SPIDataSet> cached = this.cache.get( createKey( context, SPIMode.MODE_0 ) );
+    assertNotNull( cached );
+    assertSame( expected, cached.getResult() );
+
+    final CollectingAnnotationListener replayed = new CollectingAnnotationListener();
+    cached.replay( replayed );
+    assertEquals( annotations.annotations, replayed.annotations );
+
+    assertNull( this.cache.get( createKey( context, SPIMode.MODE_3 ) ) );
+  }
+
+  /**
+   * Tests that a result is not reused after new data is captured.
+   */
+  @Test
+  public void testCachedResultIsNotReusedForNewCapture() throws Exception
+  {
+    final ToolContext context = DataTestUtils.createToolContext( this.container, 0, DATA_SIZE - 1 );
+    analyse( context, SPIMode.MODE_0, new CollectingAnnotationListener() );
+    assertNotNull( this.cache.get( createKey( context, SPIMode.MODE_0 ) ) );
+
+    final DataContainer other = DataTestUtils.createMockDataContainer( DATA_SIZE, 4, 1000000,
+        new SPIFlashTrafficProvider( false /* aRepeat */) );
+    this.container.setCapturedData( other.getCapturedData() );
+
+    assertNull( this.cache.get( createKey( context, SPIMode.MODE_0 ) ) );
+  }
+
+  /**
+   * Tests that a request for a sub-range is served by slicing a cached result.
+   */
+  @Test
+  public void testSubRangeIsServedBySlicing() throws Exception
+  {
+    final ToolContext context = DataTestUtils.createToolContext( this.container, 0, DATA_SIZE - 1 );
+    final SPIDataSet full = analyse( context, SPIMode.MODE_0, new CollectingAnnotationListener() );
+
+    final int start = DATA_SIZE / 4;
+    final int end = DATA_SIZE / 2;
+    final ToolContext subContext = DataTestUtils.createToolContext( this.container, start, end );
+
+    final CachedResult<SPIDataSet> cached = this.cache.get( createKey( subContext, SPIMode.MODE_0 ) );
+    assertNotNull( cached );
+
+    final SPIDataSet sliced = cached.getResult();
+    assertEquals( start, sliced.getStartOfDecode() );
+    assertEquals( end, sliced.getEndOfDecode() );
+    assertFalse( sliced.isEmpty() );
+    assertTrue( sliced.getData().size() < full.getData().size() );
+
+    int idx = 0;
+    for ( SPIData data : sliced.getData() )
+    {
+      assertEquals( idx++, data.getIndex() );
+      assertTrue( data.getStartSampleIndex() >= start );
+      assertTrue( data.getEndSampleIndex() <= end );
+    }
+
+    final CollectingAnnotationListener replayed = new CollectingAnnotationListener();
+    cached.replay( replayed );
+    for ( Annotation<?> annotation : replayed.annotations )
+    {
+      if ( annotation instanceof DataAnnotation )
+      {
+        assertTrue( ( ( DataAnnotation<?> )annotation ).getStartSampleIndex() >= start );
+        assertTrue( ( ( DataAnnotation<?> )annotation ).getEndSampleIndex() <= end );
+      }
+    }
+
+    // A range that is not covered by the cached result cannot be served...
+    final ToolContext otherContext = DataTestUtils.createToolContext( this.container, 1, DATA_SIZE );
+    assertNull( this.cache.get( createKey( otherContext, SPIMode.MODE_0 ) ) );
+  }
+
+  /**
+   * Tests that the least recently used results are evicted when the budget of
+   * the cache is exceeded.
+   */
+  @Test
+  public void testLeastRecentlyUsedResultIsEvicted() throws Exception
+  {
+    this.cache = new DecodeResultCache( 32L * 1024L );
+
+    final ToolContext context1 = DataTestUtils.createToolContext( this.container, 0, DATA_SIZE - 1 );
+    final ToolContext context2 = DataTestUtils.createToolContext( this.container, 1, DATA_SIZE - 1 );
+    final ToolContext context3 = DataTestUtils.createToolContext( this.container, 2, DATA_SIZE - 1 );
+
+    analyse( context1, SPIMode.MODE_0, new CollectingAnnotationListener() );
+    analyse( context2, SPIMode.MODE_0, new CollectingAnnotationListener() );
+    assertEquals( 2, this.cache.getSize() );
+
+    // Use the first result, making the second the least recently used one...
+    assertNotNull( this.cache.get( createKey( context1, SPIMode.MODE_0 ) ) );
+
+    analyse( context3, SPIMode.MODE_0, new CollectingAnnotationListener() );
+    assertEquals( 2, this.cache.getSize() );
+
+    assertNotNull( this.cache.get( createKey( context1, SPIMode.MODE_0 ) ) );
+    assertNotNull( this.cache.get( createKey( context3, SPIMode.MODE_0 ) ) );
+  }
+
+  /**
+   * Analyses the SPI data of the given context, and caches the result.
+   */
+  private SPIDataSet analyse( final ToolContext aContext, final SPIMode aMode, final AnnotationListener aListener )
+      throws Exception
+  {
+    final Recorder recorder = new Recorder( aListener );
+
+    final SPIAnalyserTask worker = new SPIAnalyserTask( aContext, Mockito.mock( ToolProgressListener.class ),
+        recorder );
+    worker.setBitCount( 7 );
+    worker.setHonourCS( true );
+    worker.setReportCS( true );
+    worker.setMode( aMode );
+    worker.setOrder( BitOrder.MSB_FIRST );
+    worker.setMisoIndex( MISO_IDX );
+    worker.setMosiIndex( MOSI_IDX );
+    worker.setCSIndex( CS_IDX );
+    worker.setSCKIndex( SCK_IDX );
+
+    final SPIDataSet result = worker.call();
+    this.cache.put( createKey( aContext, aMode ), recorder.createResult( result ) );
+    return result;
+  }
+
+  /**
+   * Creates a cache key for the SPI analyser.
+   */
+  private Key createKey( final ToolContext aContext, final SPIMode aMode )
+  {
+    return DecodeResultCache.createKey( aContext, TOOL_NAME, new SPISettings( aMode ) );
+  }
+}
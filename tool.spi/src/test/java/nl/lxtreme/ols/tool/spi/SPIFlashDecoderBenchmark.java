@@ -0,0 +1,181 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.spi;
+
+
+import static nl.lxtreme.ols.tool.spi.SPIFlashTrafficProvider.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.tool.base.stream.*;
+import nl.lxtreme.ols.util.NumberUtils.BitOrder;
+
+
+/**
+ * Measures the throughput of decoding SPI NOR flash instructions, both through
+ * a streaming pipeline and by first materializing all SPI data.
+ * <p>
+ * Run as: <tt>SPIFlashDecoderBenchmark [sample count]</tt>.
+ * </p>
+ */
+public class SPIFlashDecoderBenchmark
+{
+  // INNER TYPES
+
+  /**
+   * Counts the frames it receives.
+   */
+  static final class CountingSink implements FrameSink<SPIFlashCommand>
+  {
+    // VARIABLES
+
+    long frames;
+    long bytes;
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void frame( final SPIFlashCommand aFrame )
+    {
+      this.frames++;
+      this.bytes += aFrame.getDataLength();
+    }
+  }
+
+  /**
+   * Ignores all progress and annotations.
+   */
+  static final class NullListener implements ToolProgressListener, AnnotationListener
+  {
+    // METHODS
+
+    @Override
+    public void clearAnnotations()
+    {
+      // Nop
+    }
+
+    @Override
+    public void clearAnnotations( final int aChannelIdx )
+    {
+      // Nop
+    }
+
+    @Override
+    public void onAnnotation( final Annotation<?> aAnnotation )
+    {
+      // Nop
+    }
+
+    @Override
+    public void setProgress( final int aPercentage )
+    {
+      // Nop
+    }
+  }
+
+  // CONSTANTS
+
+  private static final int DEFAULT_SAMPLE_COUNT = 32 * 1024 * 1024;
+  private static final int RUNS = 5;
+
+  // METHODS
+
+  /**
+   * Runs the benchmark.
+   * 
+   * @param aArgs
+   *          the optional number of samples to decode.
+   */
+  public static void main( final String[] aArgs ) throws Exception
+  {
+    final int sampleCount = ( aArgs.length > 0 ) ? Integer.parseInt( aArgs[0] ) : DEFAULT_SAMPLE_COUNT;
+
+    final int[] values = new int[sampleCount];
+    final long[] timestamps = new long[sampleCount];
+    new SPIFlashTrafficProvider( true /* aRepeat */).fillData( values, timestamps, sampleCount );
+
+    final AcquisitionResult data = new CapturedData( values, timestamps, Ols.NOT_AVAILABLE, 1000000, 4, 0x0F,
+        sampleCount );
+    final ToolContext context = DataTestUtils.createToolContext( data, 0, sampleCount - 1 );
+
+    for ( int run = 0; run < RUNS; run++ )
+    {
+      long start = System.nanoTime();
+      final CountingSink streamed = new CountingSink();
+      DecoderPipeline.from( createTask( context ) ).then( new SPIFlashDecoder() ).run( streamed );
+      report( "streaming", streamed, System.nanoTime() - start, sampleCount );
+
+      start = System.nanoTime();
+      final CountingSink materialized = new CountingSink();
+      final List<SPIData> spiData = createTask( context ).call().getData();
+      final SPIFlashDecoder decoder = new SPIFlashDecoder();
+      for ( SPIData item : spiData )
+      {
+        decoder.decode( item, materialized );
+      }
+      decoder.end( materialized );
+      report( "materialized", materialized, System.nanoTime() - start, sampleCount );
+    }
+  }
+
+  /**
+   * Creates the SPI analyser task.
+   */
+  private static SPIAnalyserTask createTask( final ToolContext aContext )
+  {
+    final NullListener listener = new NullListener();
+
+    final SPIAnalyserTask worker = new SPIAnalyserTask( aContext, listener, listener );
+    worker.setBitCount( 7 );
+    worker.setHonourCS( true );
+    worker.setReportCS( true );
+    worker.setMode( SPIMode.MODE_0 );
+    worker.setOrder( BitOrder.MSB_FIRST );
+    worker.setMisoIndex( MISO_IDX );
+    worker.setMosiIndex( MOSI_IDX );
+    worker.setCSIndex( CS_IDX );
+    worker.setSCKIndex( SCK_IDX );
+    worker.setParallelDecode( false );
+    return worker;
+  }
+
+  /**
+   * Reports the throughput of a single run.
+   */
+  private static void report( final String aName, final CountingSink aSink, final long aNanos,
+      final int aSampleCount )
+  {
+    final double seconds = aNanos / 1.0e9;
+    System.out.printf( "%-12s: %8d frames, %8.0f frames/s, %8.2f Msamples/s, %6.2f MB/s payload (%d ms)%n",
+        aName, Long.valueOf( aSink.frames ), Double.valueOf( aSink.frames / seconds ),
+        Double.valueOf( aSampleCount / seconds / 1.0e6 ), Double.valueOf( aSink.bytes / seconds / ( 1024.0 * 1024.0 ) ),
+        Long.valueOf( aNanos / 1000000L ) );
+  }
+}
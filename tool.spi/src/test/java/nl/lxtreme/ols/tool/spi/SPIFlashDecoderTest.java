@@ -0,0 +1,208 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.spi;
+
+
+import static nl.lxtreme.ols.tool.spi.SPIFlashTrafficProvider.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.tool.base.stream.*;
+import nl.lxtreme.ols.util.NumberUtils.BitOrder;
+
+import org.junit.*;
+import org.mockito.*;
+
+
+/**
+ * Tests the decoding of SPI NOR flash instructions on top of streamed SPI data.
+ */
+public class SPIFlashDecoderTest
+{
+  // CONSTANTS
+
+  private static final int DATA_SIZE = 1024;
+
+  // VARIABLES
+
+  private ToolContext toolContext;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    final DataContainer container = DataTestUtils.createMockDataContainer( DATA_SIZE, 4, 1000000,
+        new SPIFlashTrafficProvider( false /* aRepeat */) );
+    this.toolContext = DataTestUtils.createToolContext( container, 0, DATA_SIZE - 1 );
+  }
+
+  /**
+   * Tests that the flash instructions are decoded from the SPI data stream.
+   */
+  @Test
+  public void testDecodeFlashInstructions() throws Exception
+  {
+    final List<SPIFlashCommand> commands = DecoderPipeline.from( createTask() ).then( new SPIFlashDecoder() )
+        .collect();
+
+    assertEquals( SCRIPT.length, commands.size() );
+
+    assertCommand( commands.get( 0 ), SPIFlashOpcode.WRITE_ENABLE, -1L );
+    assertCommand( commands.get( 1 ), SPIFlashOpcode.PAGE_PROGRAM, 0x012345L, 0xDE, 0xAD, 0xBE, 0xEF );
+    assertCommand( commands.get( 2 ), SPIFlashOpcode.READ, 0x000100L, 0xAA, 0x55 );
+    assertCommand( commands.get( 3 ), SPIFlashOpcode.READ_ID, -1L, 0xEF, 0x40, 0x18 );
+    assertCommand( commands.get( 4 ), SPIFlashOpcode.FAST_READ, 0x000010L, 0x12, 0x34 );
+    assertCommand( commands.get( 5 ), SPIFlashOpcode.READ_STATUS, -1L, 0x03 );
+
+    for ( int i = 1; i < commands.size(); i++ )
+    {
+      assertTrue( commands.get( i - 1 ).getEndSampleIndex() < commands.get( i ).getStartSampleIndex() );
+    }
+  }
+
+  /**
+   * Tests that 4-byte addresses and unknown instructions are decoded.
+   */
+  @Test
+  public void testDecodeFourByteAddressAndUnknownInstruction() throws Exception
+  {
+    final List<SPIFlashCommand> commands = new ArrayList<SPIFlashCommand>();
+    final FrameSink<SPIFlashCommand> sink = new FrameSink<SPIFlashCommand>()
+    {
+      @Override
+      public void frame( final SPIFlashCommand aFrame )
+      {
+        commands.add( aFrame );
+      }
+    };
+
+    final SPIFlashDecoder decoder = new SPIFlashDecoder( 4 );
+
+    int idx = 0;
+    decoder.decode( new SPIData( idx++, CS_IDX, SPIDataSet.SPI_CS_LOW, 0 ), sink );
+    for ( int value : new int[] { 0x03, 0x12, 0x34, 0x56, 0x78, 0x00 } )
+    {
+      decoder.decode( new SPIData( idx++, MOSI_IDX, SPIDataSet.SPI_MOSI, value, 0, 1 ), sink );
+      decoder.decode( new SPIData( idx++, MISO_IDX, SPIDataSet.SPI_MISO, ( value == 0 ) ? 0x42 : 0xFF, 0, 1 ),
+          sink );
+    }
+    decoder.decode( new SPIData( idx++, CS_IDX, SPIDataSet.SPI_CS_HIGH, 4 ), sink );
+
+    decoder.decode( new SPIData( idx++, CS_IDX, SPIDataSet.SPI_CS_LOW, 5 ), sink );
+    decoder.decode( new SPIData( idx++, MOSI_IDX, SPIDataSet.SPI_MOSI, 0x77, 5, 6 ), sink );
+    decoder.decode( new SPIData( idx++, MOSI_IDX, SPIDataSet.SPI_MOSI, 0x01, 6, 7 ), sink );
+    // No /CS high; the instruction should be emitted upon the end of stream...
+    decoder.end( sink );
+
+    assertEquals( 2, commands.size() );
+    assertCommand( commands.get( 0 ), SPIFlashOpcode.READ, 0x12345678L, 0x42 );
+
+    assertNull( commands.get( 1 ).getInstruction() );
+    assertEquals( 0x77, commands.get( 1 ).getOpcode() );
+    assertArrayEquals( new byte[] { 0x01 }, commands.get( 1 ).getData() );
+  }
+
+  /**
+   * Tests that streaming the SPI data yields the same data as decoding it at
+   * once.
+   */
+  @Test
+  public void testProduceEqualsCall() throws Exception
+  {
+    final List<SPIData> expected = createTask().call().getData();
+    final List<SPIData> actual = DecoderPipeline.from( createTask(), 4 /* aQueueCapacity */).collect();
+
+    assertFalse( expected.isEmpty() );
+    assertEquals( expected, actual );
+  }
+
+  /**
+   * Tests that writing the streamed SPI data to a table yields the same table
+   * as writing the data decoded at once.
+   */
+  @Test
+  public void testWriteToEqualsCall() throws Exception
+  {
+    final SPIDataSet dataSet = createTask().call();
+
+    final StringWriter expected = new StringWriter();
+    final TableWriter expectedWriter = new CsvTableWriter( expected, ',', 1 /* aParallelism */);
+    dataSet.writeTo( expectedWriter, new SPIDataRowMapper( dataSet ) );
+    expectedWriter.close();
+
+    final StringWriter actual = new StringWriter();
+    final TableWriter actualWriter = new CsvTableWriter( actual, ',', 1 /* aParallelism */);
+    DecoderPipeline.from( createTask(), 4 /* aQueueCapacity */).writeTo( actualWriter,
+        new SPIDataRowMapper( dataSet ) );
+    actualWriter.close();
+
+    assertTrue( expected.toString().startsWith( "index,start-time,end-time" ) );
+    assertEquals( expected.toString(), actual.toString() );
+  }
+
+  /**
+   * Asserts the given command equals the given expectations.
+   */
+  private void assertCommand( final SPIFlashCommand aCommand, final SPIFlashOpcode aInstruction,
+      final long aAddress, final int... aData )
+  {
+    assertEquals( aInstruction, aCommand.getInstruction() );
+    assertEquals( aAddress, aCommand.getAddress() );
+
+    final byte[] data = new byte[aData.length];
+    for ( int i = 0; i < aData.length; i++ )
+    {
+      data[i] = ( byte )aData[i];
+    }
+    assertArrayEquals( data, aCommand.getData() );
+  }
+
+  /**
+   * Creates the SPI analyser task.
+   */
+  private SPIAnalyserTask createTask()
+  {
+    ToolProgressListener tpl = Mockito.mock( ToolProgressListener.class );
+    AnnotationListener al = Mockito.mock( AnnotationListener.class );
+
+    SPIAnalyserTask worker = new SPIAnalyserTask( this.toolContext, tpl, al );
+    worker.setBitCount( 7 );
+    worker.setHonourCS( true );
+    worker.setReportCS( true );
+    worker.setMode( SPIMode.MODE_0 );
+    worker.setOrder( BitOrder.MSB_FIRST );
+    worker.setMisoIndex( MISO_IDX );
+    worker.setMosiIndex( MOSI_IDX );
+    worker.setCSIndex( CS_IDX );
+    worker.setSCKIndex( SCK_IDX );
+    return worker;
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.spi;
+
+
+import nl.lxtreme.ols.test.data.DataTestUtils.TestDataProvider;
+
+
+/**
+ * Provides SPI mode 0 traffic of a SPI NOR flash device, consisting of a fixed
+ * script of instructions.
+ */
+class SPIFlashTrafficProvider implements TestDataProvider
+{
+  // CONSTANTS
+
+  static final int MISO_IDX = 0;
+  static final int MOSI_IDX = 1;
+  static final int CS_IDX = 2;
+  static final int SCK_IDX = 3;
+
+  private static final int MISO_MASK = 1 << MISO_IDX;
+  private static final int MOSI_MASK = 1 << MOSI_IDX;
+  private static final int CS_MASK = 1 << CS_IDX;
+  private static final int SCK_MASK = 1 << SCK_IDX;
+
+  /** The MOSI and MISO bytes of each instruction in the script. */
+  static final int[][][] SCRIPT = { //
+  { { 0x06 }, { 0xFF } }, // WRITE_ENABLE
+      { { 0x02, 0x01, 0x23, 0x45, 0xDE, 0xAD, 0xBE, 0xEF }, {} }, // PAGE_PROGRAM
+      { { 0x03, 0x00, 0x01, 0x00 }, { 0xFF, 0xFF, 0xFF, 0xFF, 0xAA, 0x55 } }, // READ
+      { { 0x9F }, { 0xFF, 0xEF, 0x40, 0x18 } }, // READ_ID
+      { { 0x0B, 0x00, 0x00, 0x10, 0x00 }, { 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x12, 0x34 } }, // FAST_READ
+      { { 0x05 }, { 0xFF, 0x03 } }, // READ_STATUS
+  };
+
+  // VARIABLES
+
+  private final boolean repeat;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SPIFlashTrafficProvider instance.
+   * 
+   * @param aRepeat
+   *          <code>true</code> to repeat the script until all data is filled,
+   *          <code>false</code> to run the script only once.
+   */
+  public SPIFlashTrafficProvider( final boolean aRepeat )
+  {
+    this.repeat = aRepeat;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void fillData( final int[] aValues, final long[] aTimestamps, final int aDataSize )
+  {
+    int idx = 0;
+    int cmd = 0;
+    while ( idx < aDataSize )
+    {
+      // /CS high, idle...
+      for ( int i = 0; ( i < 3 ) && ( idx < aDataSize ); i++ )
+      {
+        idx = addSample( aValues, aTimestamps, idx, CS_MASK );
+      }
+
+      if ( !this.repeat && ( cmd >= SCRIPT.length ) )
+      {
+        continue;
+      }
+
+      final int[] mosi = SCRIPT[cmd % SCRIPT.length][0];
+      final int[] miso = SCRIPT[cmd % SCRIPT.length][1];
+      cmd++;
+
+      final int length = Math.max( mosi.length, miso.length );
+      for ( int b = 0; b < length; b++ )
+      {
+        final int mosiValue = ( b < mosi.length ) ? mosi[b] : 0;
+        final int misoValue = ( b < miso.length ) ? miso[b] : 0;
+        for ( int bit = 7; ( bit >= 0 ) && ( idx < aDataSize ); bit-- )
+        {
+          int data = 0;
+          if ( ( mosiValue & ( 1 << bit ) ) != 0 )
+          {
+            data |= MOSI_MASK;
+          }
+          if ( ( misoValue & ( 1 << bit ) ) != 0 )
+          {
+            data |= MISO_MASK;
+          }
+          idx = addSample( aValues, aTimestamps, idx, data );
+          if ( idx < aDataSize )
+          {
+            idx = addSample( aValues, aTimestamps, idx, data | SCK_MASK );
+          }
+        }
+      }
+      if ( idx < aDataSize )
+      {
+        idx = addSample( aValues, aTimestamps, idx, 0 );
+      }
+    }
+  }
+
+  /**
+   * Adds a single sample.
+   */
+  private int addSample( final int[] aValues, final long[] aTimestamps, final int aIdx, final int aValue )
+  {
+    aValues[aIdx] = aValue;
+    aTimestamps[aIdx] = aIdx;
+    return aIdx + 1;
+  }
+}
@@ -29,7 +29,7 @@ import org.osgi.framework.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
-import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.virtual.StateView.ClockEdge;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.ToolUtils.RestorableAction;
@@ -46,9 +46,9 @@ public final class StateAnalysisDialog extends BaseToolDialog<AcquisitionResult>
   // INNER TYPES
 
   /**
-   * Provides a combobox renderer for {@link Edge} values.
+   * Provides a combobox renderer for {@link ClockEdge} values.
    */
-  static final class EdgeItemRenderer extends EnumItemRenderer<Edge>
+  static final class EdgeItemRenderer extends EnumItemRenderer<ClockEdge>
   {
     // CONSTANTS
 
@@ -60,17 +60,21 @@ public final class StateAnalysisDialog extends BaseToolDialog<AcquisitionResult>
      * @see nl.lxtreme.ols.client.diagram.settings.GeneralSettingsDialog.EnumItemRenderer#getDisplayValue(java.lang.Enum)
      */
     @Override
-    protected String getDisplayValue( final Edge aValue )
+    protected String getDisplayValue( final ClockEdge aValue )
     {
       String text = super.getDisplayValue( aValue );
-      if ( Edge.FALLING.equals( aValue ) )
+      if ( ClockEdge.FALLING.equals( aValue ) )
       {
         text = "Falling";
       }
-      else if ( Edge.RISING.equals( aValue ) )
+      else if ( ClockEdge.RISING.equals( aValue ) )
       {
         text = "Rising";
       }
+      else if ( ClockEdge.BOTH.equals( aValue ) )
+      {
+        text = "Both";
+      }
       return text;
     }
   }
@@ -85,6 +89,8 @@ public final class StateAnalysisDialog extends BaseToolDialog<AcquisitionResult>
 
   private JComboBox edgeSelect;
   private JComboBox channelSelect;
+  private JComboBox qualifierSelect;
+  private JComboBox qualifierLevelSelect;
   private RestorableAction runAction;
 
   // CONSTRUCTORS
@@ -124,6 +130,9 @@ public final class StateAnalysisDialog extends BaseToolDialog<AcquisitionResult>
   {
     this.edgeSelect.setSelectedIndex( aSettings.getInt( "edge", this.edgeSelect.getSelectedIndex() ) );
     this.channelSelect.setSelectedIndex( aSettings.getInt( "channel", this.channelSelect.getSelectedIndex() ) );
+    this.qualifierSelect.setSelectedIndex( aSettings.getInt( "qualifier", this.qualifierSelect.getSelectedIndex() ) );
+    this.qualifierLevelSelect.setSelectedIndex( aSettings.getInt( "qualifierLevel",
+        this.qualifierLevelSelect.getSelectedIndex() ) );
   }
 
   /**
@@ -143,6 +152,19 @@ public final class StateAnalysisDialog extends BaseToolDialog<AcquisitionResult>
   {
     aSettings.putInt( "channel", this.channelSelect.getSelectedIndex() );
     aSettings.putInt( "edge", this.edgeSelect.getSelectedIndex() );
+    aSettings.putInt( "qualifier", this.qualifierSelect.getSelectedIndex() );
+    aSettings.putInt( "qualifierLevel", this.qualifierLevelSelect.getSelectedIndex() );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean isResultCacheable()
+  {
+    // The result replaces the captured data, so there is no point in keeping
+    // it around...
+    return false;
   }
 
   /**
@@ -200,14 +222,17 @@ public final class StateAnalysisDialog extends BaseToolDialog<AcquisitionResult>
     final StateAnalysisTask toolTask = ( StateAnalysisTask )aToolTask;
 
     toolTask.setNumber( this.channelSelect.getSelectedIndex() );
+    toolTask.setEdge( ( ClockEdge )this.edgeSelect.getSelectedItem() );
 
-    if ( Edge.RISING == this.edgeSelect.getSelectedItem() )
+    final int qualifierIdx = this.qualifierSelect.getSelectedIndex() - 1;
+    if ( qualifierIdx < 0 )
     {
-      toolTask.setLevel( 0 );
+      toolTask.setQualifier( 0, 0 );
     }
     else
     {
-      toolTask.setLevel( 1 );
+      final int mask = 1 << qualifierIdx;
+      toolTask.setQualifier( mask, ( this.qualifierLevelSelect.getSelectedIndex() == 0 ) ? mask : 0 );
     }
   }
 
@@ -226,15 +251,22 @@ public final class StateAnalysisDialog extends BaseToolDialog<AcquisitionResult>
   private JPanel createContentPane()
   {
     final int channelCount = getData().getChannels();
+    final int channelOffset = getChannelOffset();
 
-    this.channelSelect = SwingComponentUtils.createChannelSelector( channelCount );
+    this.channelSelect = SwingComponentUtils.createChannelSelector( channelCount, channelOffset );
     this.channelSelect.setSelectedIndex( 0 );
 
-    this.edgeSelect = new JComboBox( new Edge[] { Edge.RISING, Edge.FALLING } );
+    this.edgeSelect = new JComboBox( ClockEdge.values() );
     this.edgeSelect.setSelectedIndex( 0 );
     this.edgeSelect.setRenderer( new EdgeItemRenderer() );
 
-    final JPanel pane = new JPanel( new GridLayout( 2, 2, 5, 5 ) );
+    this.qualifierSelect = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
+    this.qualifierSelect.setSelectedIndex( 0 );
+
+    this.qualifierLevelSelect = new JComboBox( new String[] { "High", "Low" } );
+    this.qualifierLevelSelect.setSelectedIndex( 0 );
+
+    final JPanel pane = new JPanel( new GridLayout( 4, 2, 5, 5 ) );
     pane.setBorder( BorderFactory.createEmptyBorder( 5, 5, 5, 0 ) );
 
     pane.add( new JLabel( "Clock Channel" ) );
@@ -242,6 +274,12 @@ public final class StateAnalysisDialog extends BaseToolDialog<AcquisitionResult>
 
     pane.add( new JLabel( "Clock Edge" ) );
     pane.add( this.edgeSelect );
+
+    pane.add( new JLabel( "Qualifier Channel" ) );
+    pane.add( this.qualifierSelect );
+
+    pane.add( new JLabel( "Qualifier Level" ) );
+    pane.add( this.qualifierLevelSelect );
     return pane;
   }
 
@@ -23,14 +23,20 @@ package nl.lxtreme.ols.tool.state;
 
 import java.util.logging.*;
 
-import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
-import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.virtual.*;
+import nl.lxtreme.ols.api.data.virtual.StateView.ClockEdge;
 import nl.lxtreme.ols.api.tools.*;
 
 
 /**
- * 
+ * Converts captured timing data to state data, sampling all channels on the
+ * (qualified) edges of a clock channel.
+ * <p>
+ * The result is a {@link StateView} on the captured data, which is derived
+ * from the transitions of the clock channel only, and which maps each state
+ * back to the time stamp of its clock edge.
+ * </p>
  */
 public class StateAnalysisTask implements ToolTask<AcquisitionResult>
 {
@@ -43,7 +49,9 @@ public class StateAnalysisTask implements ToolTask<AcquisitionResult>
   private final ToolContext context;
 
   private int number;
-  private int level;
+  private ClockEdge edge;
+  private int qualifierMask;
+  private int qualifierValue;
 
   // CONSTRUCTORS
 
@@ -53,6 +61,7 @@ public class StateAnalysisTask implements ToolTask<AcquisitionResult>
   public StateAnalysisTask( final ToolContext aContext )
   {
     this.context = aContext;
+    this.edge = ClockEdge.RISING;
   }
 
   // METHODS
@@ -64,71 +73,46 @@ public class StateAnalysisTask implements ToolTask<AcquisitionResult>
    * @see javax.swing.SwingWorker#doInBackground()
    */
   @Override
-  public CapturedData call() throws Exception
+  public StateView call() throws Exception
   {
     final AcquisitionResult data = this.context.getData();
 
-    // obtain data from captured data
-    final int[] values = data.getValues();
-    final long triggerPosition = data.getTriggerPosition();
-
-    final int maskValue = 1 << this.number;
-
-    int size = 0;
-    int last = ( values[0] & maskValue ) >> this.number;
-
-    // calculate new sample array size
-    for ( final int value : values )
-    {
-      final int current = ( value & maskValue ) >> this.number;
-      if ( ( last == this.level ) && ( current != this.level ) )
-      {
-        size++;
-      }
-      last = current;
-    }
-
-    if ( size <= 0 )
+    final StateView result = StateView.create( data, this.number, this.edge, this.qualifierMask,
+        this.qualifierValue );
+    if ( result.getStateCount() <= 0 )
     {
       LOG.log( Level.WARNING, "No state changes found in data; aborting analysis..." );
       throw new IllegalStateException( "No state changes found!" );
     }
 
-    // convert captured data
-    last = values[0] & maskValue;
-    int pos = 0;
-    int newTrigger = -1;
+    return result;
+  }
 
-    final int[] newValues = new int[size];
-    for ( int i = 0; i < values.length; i++ )
+  /**
+   * Sets the clock edges to sample on.
+   * 
+   * @param aEdge
+   *          the edges to sample on, cannot be <code>null</code>.
+   */
+  public void setEdge( final ClockEdge aEdge )
+  {
+    if ( aEdge == null )
     {
-      final int current = ( values[i] & maskValue ) >> this.number;
-      if ( ( last == this.level ) && ( current != this.level ) )
-      {
-        newValues[pos++] = values[i - 1];
-      }
-      if ( triggerPosition == i )
-      {
-        newTrigger = pos;
-      }
-      last = current;
+      throw new IllegalArgumentException( "Edge cannot be null!" );
     }
-
-    final CapturedData newCapturedData = new CapturedData( newValues, newTrigger, Ols.NOT_AVAILABLE,
-        data.getChannels(), data.getEnabledChannels() );
-
-    return newCapturedData;
+    this.edge = aEdge;
   }
 
   /**
    * Sets the level to the given value.
    * 
    * @param aLevel
-   *          the level to set, cannot be <code>null</code>.
+   *          the level the clock leaves upon sampling, 0 to sample on rising
+   *          edges, 1 to sample on falling edges.
    */
   public void setLevel( final int aLevel )
   {
-    this.level = aLevel;
+    this.edge = ( aLevel == 0 ) ? ClockEdge.RISING : ClockEdge.FALLING;
   }
 
   /**
@@ -141,4 +125,20 @@ public class StateAnalysisTask implements ToolTask<AcquisitionResult>
   {
     this.number = aNumber;
   }
+
+  /**
+   * Sets the channels qualifying the clock edges.
+   * 
+   * @param aMask
+   *          the bit mask of the qualifier channels, use 0 to sample on all
+   *          clock edges;
+   * @param aValue
+   *          the value the qualifier channels should have for a clock edge to
+   *          be sampled on.
+   */
+  public void setQualifier( final int aMask, final int aValue )
+  {
+    this.qualifierMask = aMask;
+    this.qualifierValue = aValue;
+  }
 }
@@ -29,7 +29,6 @@ import nl.lxtreme.ols.util.analysis.*;
  * allows to evaluate each detected bit length. The bit length with the highest
  * occurrence is used for baudrate calculation.
  */
-@SuppressWarnings( "boxing" )
 final class BaudRateAnalyzer
 {
   // CONSTANTS
@@ -40,7 +39,7 @@ final class BaudRateAnalyzer
   // VARIABLES
 
   private final double sampleRate;
-  private final Frequency<Integer> statData;
+  private final LongHistogram statData;
 
   // CONSTRUCTORS
 
@@ -55,7 +54,7 @@ final class BaudRateAnalyzer
   public BaudRateAnalyzer( final int aSampleRate, final int aFixedBaudRate )
   {
     this.sampleRate = aSampleRate;
-    this.statData = new Frequency<Integer>();
+    this.statData = new LongHistogram();
 
     // We already know our baudrate, so lets put a single value for the
     // corresponding bitlength in our frequency mapping to let it be used...
@@ -78,7 +77,7 @@ final class BaudRateAnalyzer
   public BaudRateAnalyzer( final int aSampleRate, final int[] aValues, final long[] aTimestamps, final int aMask )
   {
     this.sampleRate = aSampleRate;
-    this.statData = new Frequency<Integer>();
+    this.statData = new LongHistogram();
 
     long lastTransition = 0;
     int lastBitValue = aValues[0] & aMask;
@@ -149,7 +148,6 @@ final class BaudRateAnalyzer
    */
   public int getBestBitLength()
   {
-    final Integer highestRanked = this.statData.getHighestRanked();
-    return highestRanked == null ? -1 : highestRanked.intValue();
+    return ( int )this.statData.getMode( -1L );
   }
 }
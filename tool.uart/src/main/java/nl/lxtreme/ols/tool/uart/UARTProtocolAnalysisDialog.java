@@ -34,11 +34,11 @@ import java.util.logging.*;
 import javax.swing.*;
 
 import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.export.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.ToolUtils.RestorableAction;
 import nl.lxtreme.ols.util.*;
-import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
@@ -219,9 +219,9 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
     {
       storeToHtmlFile( aOutputFile, getLastResult() );
     }
-    else if ( ExportFormat.CSV.equals( aFormat ) )
+    else if ( ExportFormat.CSV.equals( aFormat ) || ExportFormat.BINARY.equals( aFormat ) )
     {
-      storeToCsvFile( aOutputFile, getLastResult() );
+      storeToTableFile( aOutputFile, aFormat, getLastResult() );
     }
   }
 
@@ -472,41 +472,42 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   private JPanel createSettingsPane()
   {
     final int channelCount = getData().getChannels();
+    final int channelOffset = getChannelOffset();
 
     final JPanel settings = new JPanel( new SpringLayout() );
 
     SpringLayoutUtils.addSeparator( settings, "Settings" );
 
     settings.add( createRightAlignedLabel( "RxD" ) );
-    this.rxd = SwingComponentUtils.createOptionalChannelSelector( channelCount );
+    this.rxd = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
     settings.add( this.rxd );
 
     settings.add( createRightAlignedLabel( "TxD" ) );
-    this.txd = SwingComponentUtils.createOptionalChannelSelector( channelCount );
+    this.txd = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
     settings.add( this.txd );
 
     settings.add( createRightAlignedLabel( "CTS" ) );
-    this.cts = SwingComponentUtils.createOptionalChannelSelector( channelCount );
+    this.cts = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
     settings.add( this.cts );
 
     settings.add( createRightAlignedLabel( "RTS" ) );
-    this.rts = SwingComponentUtils.createOptionalChannelSelector( channelCount );
+    this.rts = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
     settings.add( this.rts );
 
     settings.add( createRightAlignedLabel( "DTR" ) );
-    this.dtr = SwingComponentUtils.createOptionalChannelSelector( channelCount );
+    this.dtr = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
     settings.add( this.dtr );
 
     settings.add( createRightAlignedLabel( "DSR" ) );
-    this.dsr = SwingComponentUtils.createOptionalChannelSelector( channelCount );
+    this.dsr = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
     settings.add( this.dsr );
 
     settings.add( createRightAlignedLabel( "DCD" ) );
-    this.dcd = SwingComponentUtils.createOptionalChannelSelector( channelCount );
+    this.dcd = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
     settings.add( this.dcd );
 
     settings.add( createRightAlignedLabel( "RI" ) );
-    this.ri = SwingComponentUtils.createOptionalChannelSelector( channelCount );
+    this.ri = SwingComponentUtils.createOptionalChannelSelector( channelCount, channelOffset );
     settings.add( this.ri );
 
     final Integer[] baudrates = new Integer[BaudRateAnalyzer.COMMON_BAUDRATES.length + 1];
@@ -624,72 +625,35 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   }
 
   /**
-   * exports the data to a CSV file
+   * Stores the given analysis results to the given file as CSV or binary table.
    * 
    * @param aFile
-   *          File object
+   *          the file to write to;
+   * @param aFormat
+   *          the tabular format to write in;
+   * @param aDataSet
+   *          the analysis results to write.
    */
-  private void storeToCsvFile( final File aFile, final UARTDataSet aDataSet )
+  private void storeToTableFile( final File aFile, final ExportFormat aFormat, final UARTDataSet aDataSet )
   {
     try
     {
-      final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
-
-      exporter.setHeaders( "index", "start-time", "end-time", "event?", "event-type", "RxD event", "TxD event",
-          "RxD data", "TxD data" );
-
-      final List<UARTData> decodedData = aDataSet.getData();
-      for ( int i = 0; i < decodedData.size(); i++ )
+      final TableWriter writer = ToolUtils.createTableWriter( aFile, aFormat );
+      try
       {
-        final UARTData ds = decodedData.get( i );
-
-        final String startTime = aDataSet.getDisplayTime( ds.getStartSampleIndex() );
-        final String endTime = aDataSet.getDisplayTime( ds.getEndSampleIndex() );
-
-        String eventType = null;
-        String rxdEvent = null;
-        String txdEvent = null;
-        String rxdData = null;
-        String txdData = null;
-
-        switch ( ds.getType() )
-        {
-          case UARTData.UART_TYPE_EVENT:
-            eventType = ds.getEventName();
-            break;
-
-          case UARTData.UART_TYPE_RXEVENT:
-            rxdEvent = ds.getEventName();
-            break;
-
-          case UARTData.UART_TYPE_TXEVENT:
-            txdEvent = ds.getEventName();
-            break;
-
-          case UARTData.UART_TYPE_RXDATA:
-            rxdData = Integer.toString( ds.getData() );
-            break;
-
-          case UARTData.UART_TYPE_TXDATA:
-            txdData = Integer.toString( ds.getData() );
-            break;
-
-          default:
-            break;
-        }
-
-        exporter.addRow( Integer.valueOf( i ), startTime, endTime, Boolean.valueOf( ds.isEvent() ), eventType,
-            rxdEvent, txdEvent, rxdData, txdData );
+        aDataSet.writeTo( writer, new UARTDataRowMapper( aDataSet ) );
+      }
+      finally
+      {
+        writer.close();
       }
-
-      exporter.close();
     }
     catch ( final IOException exception )
     {
       // Make sure to handle IO-interrupted exceptions properly!
       if ( !HostUtils.handleInterruptedException( exception ) )
       {
-        LOG.log( Level.WARNING, "CSV export failed!", exception );
+        LOG.log( Level.WARNING, "Table export failed!", exception );
       }
     }
   }
@@ -0,0 +1,357 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.analysis;
+
+
+import java.util.*;
+
+
+/**
+ * Provides a frequency distribution of primitive <code>long</code> values.
+ * <p>
+ * In contrast to {@link Frequency}, this histogram does not box its keys or
+ * counts, but stores them in an open-addressing hash table. Adding a value is
+ * therefore allocation-free (apart from the occasional rehash), which makes it
+ * suitable for use in the inner loops of analysis tools.
+ * </p>
+ * <p>
+ * This class is <b>not</b> thread-safe.
+ * </p>
+ */
+public final class LongHistogram
+{
+  // CONSTANTS
+
+  private static final int DEFAULT_CAPACITY = 64;
+
+  // VARIABLES
+
+  private long[] keys;
+  private long[] counts;
+  private int size;
+  private long totalCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new LongHistogram instance.
+   */
+  public LongHistogram()
+  {
+    this( DEFAULT_CAPACITY );
+  }
+
+  /**
+   * Creates a new LongHistogram instance.
+   * 
+   * @param aExpectedSize
+   *          the expected number of unique values, > 0.
+   * @throws IllegalArgumentException
+   *           in case the given size was less than one.
+   */
+  public LongHistogram( final int aExpectedSize )
+  {
+    if ( aExpectedSize < 1 )
+    {
+      throw new IllegalArgumentException( "Expected size must be at least one!" );
+    }
+
+    final int capacity = Integer.highestOneBit( Math.max( 4, aExpectedSize ) - 1 ) << 2;
+    this.keys = new long[capacity];
+    this.counts = new long[capacity];
+  }
+
+  // METHODS
+
+  /**
+   * Spreads the bits of the given key to get a usable hash code.
+   * 
+   * @param aKey
+   *          the key to hash.
+   * @return a hash code.
+   */
+  private static int hash( final long aKey )
+  {
+    long h = aKey * 0x9E3779B97F4A7C15L;
+    h ^= ( h >>> 32 );
+    return ( int )( h ^ ( h >>> 16 ) );
+  }
+
+  /**
+   * Adds a given value to this histogram.
+   * 
+   * @param aValue
+   *          the value to add.
+   */
+  public void addValue( final long aValue )
+  {
+    addValue( aValue, 1L );
+  }
+
+  /**
+   * Adds a given value a number of times to this histogram.
+   * 
+   * @param aValue
+   *          the value to add;
+   * @param aCount
+   *          the number of occurrences to add, > 0.
+   * @throws IllegalArgumentException
+   *           in case the given count was less than one.
+   */
+  public void addValue( final long aValue, final long aCount )
+  {
+    if ( aCount < 1L )
+    {
+      throw new IllegalArgumentException( "Count must be at least one!" );
+    }
+
+    int idx = indexOf( aValue );
+    if ( this.counts[idx] == 0L )
+    {
+      if ( ( this.size + 1 ) > ( this.keys.length >> 1 ) )
+      {
+        rehash( this.keys.length << 1 );
+        idx = indexOf( aValue );
+      }
+
+      this.keys[idx] = aValue;
+      this.size++;
+    }
+
+    this.counts[idx] += aCount;
+    this.totalCount += aCount;
+  }
+
+  /**
+   * Clears all values from this histogram.
+   */
+  public void clear()
+  {
+    Arrays.fill( this.keys, 0L );
+    Arrays.fill( this.counts, 0L );
+    this.size = 0;
+    this.totalCount = 0L;
+  }
+
+  /**
+   * Counts the number of occurrences of the given value.
+   * 
+   * @param aValue
+   *          the value to count.
+   * @return the number of occurrences, >= 0.
+   */
+  public long getCount( final long aValue )
+  {
+    return this.counts[indexOf( aValue )];
+  }
+
+  /**
+   * Returns the value with the highest count, also known as the mode of this
+   * histogram. In case multiple values share the highest count, the smallest
+   * of these values is returned.
+   * 
+   * @param aDefaultValue
+   *          the value to return in case this histogram is empty.
+   * @return the value with the highest count, or the given default value if
+   *         this histogram is empty.
+   */
+  public long getMode( final long aDefaultValue )
+  {
+    long result = aDefaultValue;
+    long rank = 0L;
+
+    for ( int i = 0; i < this.counts.length; i++ )
+    {
+      final long count = this.counts[i];
+      if ( count == 0L )
+      {
+        continue;
+      }
+
+      final long key = this.keys[i];
+      if ( ( count > rank ) || ( ( count == rank ) && ( key < result ) ) )
+      {
+        rank = count;
+        result = key;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the values with the highest counts, ordered from highest to lowest
+   * count. Values sharing the same count are ordered by ascending value.
+   * 
+   * @param aK
+   *          the maximum number of values to return, >= 0.
+   * @return an array with at most <tt>aK</tt> values, never <code>null</code>.
+   */
+  public long[] getTopK( final int aK )
+  {
+    final int k = Math.max( 0, Math.min( aK, this.size ) );
+
+    final long[] topKeys = new long[k];
+    final long[] topCounts = new long[k];
+    int found = 0;
+
+    for ( int i = 0; i < this.counts.length; i++ )
+    {
+      final long count = this.counts[i];
+      if ( count == 0L )
+      {
+        continue;
+      }
+
+      final long key = this.keys[i];
+
+      // Insertion sort into the (small) top-k arrays...
+      int pos = found;
+      while ( ( pos > 0 ) && isRankedHigher( count, key, topCounts[pos - 1], topKeys[pos - 1] ) )
+      {
+        pos--;
+      }
+      if ( pos >= k )
+      {
+        continue;
+      }
+
+      final int last = Math.min( found, k - 1 );
+      System.arraycopy( topKeys, pos, topKeys, pos + 1, last - pos );
+      System.arraycopy( topCounts, pos, topCounts, pos + 1, last - pos );
+      topKeys[pos] = key;
+      topCounts[pos] = count;
+
+      if ( found < k )
+      {
+        found++;
+      }
+    }
+
+    return topKeys;
+  }
+
+  /**
+   * Returns the total number of values added to this histogram.
+   * 
+   * @return a total count, >= 0.
+   */
+  public long getTotalCount()
+  {
+    return this.totalCount;
+  }
+
+  /**
+   * Returns the number of unique values in this histogram.
+   * 
+   * @return a unique value count, >= 0.
+   */
+  public int getUniqueValueCount()
+  {
+    return this.size;
+  }
+
+  /**
+   * Returns whether or not this histogram is empty.
+   * 
+   * @return <code>true</code> if no values were added to this histogram,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isEmpty()
+  {
+    return this.size == 0;
+  }
+
+  /**
+   * Returns all unique values of this histogram.
+   * 
+   * @return an array with all values, sorted in natural order.
+   */
+  public long[] values()
+  {
+    final long[] result = new long[this.size];
+
+    int idx = 0;
+    for ( int i = 0; i < this.counts.length; i++ )
+    {
+      if ( this.counts[i] != 0L )
+      {
+        result[idx++] = this.keys[i];
+      }
+    }
+
+    Arrays.sort( result );
+    return result;
+  }
+
+  /**
+   * Returns the slot index of the given key, which is either the slot the key
+   * currently occupies, or the (empty) slot it should be placed in.
+   * 
+   * @param aKey
+   *          the key to find the slot for.
+   * @return a slot index.
+   */
+  private int indexOf( final long aKey )
+  {
+    final int mask = this.keys.length - 1;
+
+    int idx = hash( aKey ) & mask;
+    while ( ( this.counts[idx] != 0L ) && ( this.keys[idx] != aKey ) )
+    {
+      idx = ( idx + 1 ) & mask;
+    }
+    return idx;
+  }
+
+  /**
+   * Determines whether a given key/count pair ranks higher than another one.
+   */
+  private boolean isRankedHigher( final long aCount, final long aKey, final long aOtherCount, final long aOtherKey )
+  {
+    return ( aCount > aOtherCount ) || ( ( aCount == aOtherCount ) && ( aKey < aOtherKey ) );
+  }
+
+  /**
+   * Grows the internal hash table to the given capacity.
+   * 
+   * @param aCapacity
+   *          the new capacity, should be a power of two.
+   */
+  private void rehash( final int aCapacity )
+  {
+    final long[] oldKeys = this.keys;
+    final long[] oldCounts = this.counts;
+
+    this.keys = new long[aCapacity];
+    this.counts = new long[aCapacity];
+
+    for ( int i = 0; i < oldCounts.length; i++ )
+    {
+      if ( oldCounts[i] != 0L )
+      {
+        final int idx = indexOf( oldKeys[i] );
+        this.keys[idx] = oldKeys[i];
+        this.counts[idx] = oldCounts[i];
+      }
+    }
+  }
+}
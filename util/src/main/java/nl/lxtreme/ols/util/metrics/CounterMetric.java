@@ -0,0 +1,142 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.metrics;
+
+
+import java.util.concurrent.atomic.*;
+
+
+/**
+ * Provides a metric that accumulates a count, such as the number of bytes read
+ * or annotations produced.
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class CounterMetric implements Metric, CounterMetricMBean
+{
+  // VARIABLES
+
+  private final String name;
+  private final AtomicLong count;
+  private final AtomicLong updates;
+  private volatile long startTime;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CounterMetric instance.
+   * 
+   * @param aName
+   *          the name of this metric, cannot be <code>null</code>.
+   */
+  CounterMetric( final String aName )
+  {
+    this.name = aName;
+    this.count = new AtomicLong();
+    this.updates = new AtomicLong();
+    this.startTime = System.nanoTime();
+  }
+
+  // METHODS
+
+  /**
+   * Adds the given value to this counter.
+   * 
+   * @param aValue
+   *          the value to add.
+   */
+  public void add( final long aValue )
+  {
+    this.count.addAndGet( aValue );
+    this.updates.incrementAndGet();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getCount()
+  {
+    return this.count.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getName()
+  {
+    return this.name;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getRatePerSecond()
+  {
+    final long elapsed = System.nanoTime() - this.startTime;
+    if ( elapsed <= 0L )
+    {
+      return 0.0;
+    }
+    return ( this.count.get() * 1.0e9 ) / elapsed;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getUpdateCount()
+  {
+    return this.updates.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getValuesAsCSV()
+  {
+    return String.format( "%d,%d,%.3f", Long.valueOf( getCount() ), Long.valueOf( getUpdateCount() ),
+        Double.valueOf( getRatePerSecond() ) );
+  }
+
+  /**
+   * Increments this counter by one.
+   */
+  public void increment()
+  {
+    add( 1L );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reset()
+  {
+    this.count.set( 0L );
+    this.updates.set( 0L );
+    this.startTime = System.nanoTime();
+  }
+}
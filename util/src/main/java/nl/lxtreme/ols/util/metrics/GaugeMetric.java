@@ -0,0 +1,79 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.metrics;
+
+
+/**
+ * Provides a metric whose value is sampled on demand, such as the depth of a
+ * queue or the size of a cache.
+ */
+public abstract class GaugeMetric implements Metric, GaugeMetricMBean
+{
+  // VARIABLES
+
+  private final String name;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new GaugeMetric instance.
+   * 
+   * @param aName
+   *          the name of this metric, cannot be <code>null</code>.
+   */
+  protected GaugeMetric( final String aName )
+  {
+    if ( aName == null )
+    {
+      throw new IllegalArgumentException( "Name cannot be null!" );
+    }
+    this.name = aName;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final String getName()
+  {
+    return this.name;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final String getValuesAsCSV()
+  {
+    return Long.toString( getValue() );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reset()
+  {
+    // Nothing to reset by default...
+  }
+}
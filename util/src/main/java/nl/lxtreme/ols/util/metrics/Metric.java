@@ -0,0 +1,51 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.metrics;
+
+
+/**
+ * Denotes a single named metric that is maintained by the {@link Metrics}
+ * registry.
+ */
+public interface Metric
+{
+  // METHODS
+
+  /**
+   * Returns the name of this metric.
+   * 
+   * @return a name, never <code>null</code>.
+   */
+  String getName();
+
+  /**
+   * Returns the current values of this metric as comma-separated list, used
+   * when dumping all metrics to a log or CSV-file.
+   * 
+   * @return a comma-separated list of values, never <code>null</code>.
+   */
+  String getValuesAsCSV();
+
+  /**
+   * Resets this metric to its initial state.
+   */
+  void reset();
+}
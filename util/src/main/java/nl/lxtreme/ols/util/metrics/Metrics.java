@@ -0,0 +1,340 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.metrics;
+
+
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import javax.management.*;
+
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides a registry for all metrics of the client, such as acquisition
+ * rates, decode durations and paint times.
+ * <p>
+ * All metrics are exported as MBeans in the platform MBean server under the
+ * domain {@value #DOMAIN}, and can therefore be inspected with tools like
+ * JConsole or VisualVM. In addition, all metrics can periodically be dumped to
+ * the log or a CSV-file by defining the system property
+ * {@value #PROPERTY_DUMP_INTERVAL} (in seconds) and optionally the system
+ * property {@value #PROPERTY_DUMP_FILE}.
+ * </p>
+ */
+public final class Metrics
+{
+  // CONSTANTS
+
+  /** The JMX domain in which all metrics are registered. */
+  public static final String DOMAIN = "nl.lxtreme.ols";
+
+  /** The interval (in seconds) in which the metrics are dumped. */
+  public static final String PROPERTY_DUMP_INTERVAL = "nl.lxtreme.ols.metrics.interval";
+  /** The CSV-file to dump the metrics to, if omitted they are logged. */
+  public static final String PROPERTY_DUMP_FILE = "nl.lxtreme.ols.metrics.file";
+
+  private static final Logger LOG = Logger.getLogger( Metrics.class.getName() );
+
+  private static final ConcurrentMap<String, Metric> METRICS = new ConcurrentHashMap<String, Metric>();
+
+  private static ScheduledExecutorService dumpExecutor;
+
+  static
+  {
+    final long interval = Long.getLong( PROPERTY_DUMP_INTERVAL, 0L ).longValue();
+    if ( interval > 0L )
+    {
+      final String fileName = System.getProperty( PROPERTY_DUMP_FILE );
+      startPeriodicDump( interval, TimeUnit.SECONDS, ( fileName == null ) ? null : new File( fileName ) );
+    }
+  }
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new Metrics instance.
+   */
+  private Metrics()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Writes the current values of all metrics to the given output, one line per
+   * metric, as comma-separated values.
+   * 
+   * @param aOutput
+   *          the output to write the metrics to, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public static void dump( final Appendable aOutput ) throws IOException
+  {
+    final long now = System.currentTimeMillis();
+    for ( Metric metric : getMetrics() )
+    {
+      aOutput.append( Long.toString( now ) ).append( ',' ).append( metric.getName() ).append( ',' )
+          .append( metric.getValuesAsCSV() ).append( '\n' );
+    }
+  }
+
+  /**
+   * Returns the counter with the given name, creating it if it does not exist
+   * yet.
+   * 
+   * @param aName
+   *          the name of the counter, cannot be <code>null</code>.
+   * @return the counter, never <code>null</code>.
+   */
+  public static CounterMetric getCounter( final String aName )
+  {
+    Metric result = METRICS.get( aName );
+    if ( result == null )
+    {
+      result = register( new CounterMetric( aName ), CounterMetricMBean.class, "Counter" );
+    }
+    return ( CounterMetric )result;
+  }
+
+  /**
+   * Returns all currently registered metrics.
+   * 
+   * @return a list of metrics, sorted by name, never <code>null</code>.
+   */
+  public static List<Metric> getMetrics()
+  {
+    final List<Metric> result = new ArrayList<Metric>( METRICS.values() );
+    Collections.sort( result, new Comparator<Metric>()
+    {
+      @Override
+      public int compare( final Metric aMetric1, final Metric aMetric2 )
+      {
+        return aMetric1.getName().compareTo( aMetric2.getName() );
+      }
+    } );
+    return result;
+  }
+
+  /**
+   * Returns the timer with the given name, creating it if it does not exist
+   * yet.
+   * 
+   * @param aName
+   *          the name of the timer, cannot be <code>null</code>.
+   * @return the timer, never <code>null</code>.
+   */
+  public static TimerMetric getTimer( final String aName )
+  {
+    Metric result = METRICS.get( aName );
+    if ( result == null )
+    {
+      result = register( new TimerMetric( aName ), TimerMetricMBean.class, "Timer" );
+    }
+    return ( TimerMetric )result;
+  }
+
+  /**
+   * Registers the given gauge.
+   * 
+   * @param aGauge
+   *          the gauge to register, cannot be <code>null</code>.
+   * @return the registered gauge, which might be a gauge that was registered
+   *         earlier under the same name.
+   */
+  public static GaugeMetric register( final GaugeMetric aGauge )
+  {
+    return ( GaugeMetric )register( aGauge, GaugeMetricMBean.class, "Gauge" );
+  }
+
+  /**
+   * Starts dumping all metrics periodically to the given file, or the log.
+   * 
+   * @param aInterval
+   *          the interval in which the metrics should be dumped, > 0;
+   * @param aUnit
+   *          the time unit of the given interval, cannot be <code>null</code>;
+   * @param aFile
+   *          the CSV-file to append the metrics to, if <code>null</code>, the
+   *          metrics are logged instead.
+   */
+  public static synchronized void startPeriodicDump( final long aInterval, final TimeUnit aUnit, final File aFile )
+  {
+    stopPeriodicDump();
+
+    dumpExecutor = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+    {
+      @Override
+      public Thread newThread( final Runnable aRunnable )
+      {
+        final Thread thread = new Thread( aRunnable, "Metrics dumper" );
+        thread.setDaemon( true );
+        return thread;
+      }
+    } );
+    dumpExecutor.scheduleAtFixedRate( new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        dumpTo( aFile );
+      }
+    }, aInterval, aInterval, aUnit );
+  }
+
+  /**
+   * Stops the periodic dumping of metrics, if started.
+   */
+  public static synchronized void stopPeriodicDump()
+  {
+    if ( dumpExecutor != null )
+    {
+      dumpExecutor.shutdownNow();
+      dumpExecutor = null;
+    }
+  }
+
+  /**
+   * Unregisters the metric with the given name.
+   * 
+   * @param aName
+   *          the name of the metric to unregister, cannot be <code>null</code>.
+   */
+  public static void unregister( final String aName )
+  {
+    final Metric metric = METRICS.remove( aName );
+    if ( metric == null )
+    {
+      return;
+    }
+
+    try
+    {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName objectName = createObjectName( metric );
+      if ( server.isRegistered( objectName ) )
+      {
+        server.unregisterMBean( objectName );
+      }
+    }
+    catch ( Exception exception )
+    {
+      LOG.log( Level.FINE, "Failed to unregister metric " + aName + " from JMX!", exception );
+    }
+  }
+
+  /**
+   * Creates the JMX object name of the given metric.
+   */
+  private static ObjectName createObjectName( final Metric aMetric ) throws MalformedObjectNameException
+  {
+    final String type;
+    if ( aMetric instanceof TimerMetric )
+    {
+      type = "Timer";
+    }
+    else if ( aMetric instanceof CounterMetric )
+    {
+      type = "Counter";
+    }
+    else
+    {
+      type = "Gauge";
+    }
+    return createObjectName( type, aMetric.getName() );
+  }
+
+  /**
+   * Creates the JMX object name of a metric with the given type and name.
+   */
+  private static ObjectName createObjectName( final String aType, final String aName )
+      throws MalformedObjectNameException
+  {
+    return new ObjectName( DOMAIN + ":type=" + aType + ",name=" + aName.replaceAll( "[,=:\"*?]", "_" ) );
+  }
+
+  /**
+   * Dumps all metrics to the given file, or to the log if no file is given.
+   */
+  private static void dumpTo( final File aFile )
+  {
+    try
+    {
+      if ( aFile == null )
+      {
+        final StringBuilder sb = new StringBuilder( "Metrics:\n" );
+        dump( sb );
+        LOG.info( sb.toString() );
+      }
+      else
+      {
+        final Writer writer = new BufferedWriter( new FileWriter( aFile, true /* append */) );
+        try
+        {
+          dump( writer );
+        }
+        finally
+        {
+          HostUtils.closeResource( writer );
+        }
+      }
+    }
+    catch ( IOException exception )
+    {
+      LOG.log( Level.WARNING, "Failed to dump metrics!", exception );
+    }
+  }
+
+  /**
+   * Registers the given metric, both in our registry and in JMX.
+   */
+  private static <T> Metric register( final Metric aMetric, final Class<T> aMBeanInterface, final String aType )
+  {
+    final Metric existing = METRICS.putIfAbsent( aMetric.getName(), aMetric );
+    if ( existing != null )
+    {
+      return existing;
+    }
+
+    try
+    {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName objectName = createObjectName( aType, aMetric.getName() );
+      if ( !server.isRegistered( objectName ) )
+      {
+        server.registerMBean( new StandardMBean( aMBeanInterface.cast( aMetric ), aMBeanInterface ), objectName );
+      }
+    }
+    catch ( Exception exception )
+    {
+      // Not fatal; the metric is still available through our own registry...
+      LOG.log( Level.FINE, "Failed to register metric " + aMetric.getName() + " in JMX!", exception );
+    }
+
+    return aMetric;
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.metrics;
+
+
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+
+/**
+ * Measures the duration of the phases of the client startup, recording each of
+ * them as timer metric "startup.&lt;phase&gt;" and logging them.
+ * <p>
+ * As the runner and the bundles of the client use different class loaders,
+ * the startup time is passed on as system property {@value #PROPERTY_START_TIME}
+ * so all phases are measured relative to the same moment.
+ * </p>
+ */
+public final class StartupTimer
+{
+  // CONSTANTS
+
+  /** The start time of the client, as value of {@link System#nanoTime()}. */
+  public static final String PROPERTY_START_TIME = "nl.lxtreme.ols.startup.time";
+  /** Enables the fast startup mode, in both the runner and the client. */
+  public static final String PROPERTY_FAST_STARTUP = "nl.lxtreme.ols.fastStartup";
+
+  private static final Logger LOG = Logger.getLogger( StartupTimer.class.getName() );
+
+  // VARIABLES
+
+  private final long startTime;
+  private long lastTime;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new StartupTimer instance.
+   */
+  private StartupTimer( final long aStartTime )
+  {
+    this.startTime = aStartTime;
+    this.lastTime = aStartTime;
+  }
+
+  // METHODS
+
+  /**
+   * Returns whether or not the fast startup mode is enabled.
+   * 
+   * @return <code>true</code> if fast startup mode is enabled,
+   *         <code>false</code> otherwise.
+   */
+  public static boolean isFastStartupMode()
+  {
+    return Boolean.parseBoolean( System.getProperty( PROPERTY_FAST_STARTUP, "false" ) );
+  }
+
+  /**
+   * Returns a startup timer that continues measuring from the startup time as
+   * set by {@link #start()}.
+   * 
+   * @return a startup timer, never <code>null</code>. If the startup time is
+   *         not set, all phases are measured from now.
+   */
+  public static StartupTimer resume()
+  {
+    final Long startTime = Long.getLong( PROPERTY_START_TIME );
+    return new StartupTimer( ( startTime == null ) ? System.nanoTime() : startTime.longValue() );
+  }
+
+  /**
+   * Starts measuring the startup of the client.
+   * 
+   * @return a startup timer, never <code>null</code>.
+   */
+  public static StartupTimer start()
+  {
+    final long now = System.nanoTime();
+    System.setProperty( PROPERTY_START_TIME, Long.toString( now ) );
+    return new StartupTimer( now );
+  }
+
+  /**
+   * Marks the end of a startup phase, which started at the end of the previous
+   * phase.
+   * 
+   * @param aName
+   *          the name of the phase, cannot be <code>null</code>.
+   * @return the total time since the start of the client, in milliseconds.
+   */
+  public synchronized long phase( final String aName )
+  {
+    final long now = System.nanoTime();
+    final long duration = now - this.lastTime;
+    this.lastTime = now;
+
+    Metrics.getTimer( "startup." + aName ).record( duration, TimeUnit.NANOSECONDS );
+
+    final long total = TimeUnit.NANOSECONDS.toMillis( now - this.startTime );
+    LOG.log( Level.INFO, "Startup phase \"{0}\" took {1} ms (total: {2} ms) ...", new Object[] { aName,
+        Long.valueOf( TimeUnit.NANOSECONDS.toMillis( duration ) ), Long.valueOf( total ) } );
+    return total;
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.metrics;
+
+
+import java.util.concurrent.*;
+
+
+/**
+ * Provides a metric that records durations, such as the time to paint a
+ * diagram or to run a decoder, in a histogram.
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class TimerMetric implements Metric, TimerMetricMBean
+{
+  // CONSTANTS
+
+  /** The (exclusive) upper bounds of the histogram buckets, in milliseconds. */
+  private static final long[] BUCKET_BOUNDS = { 1L, 2L, 5L, 10L, 20L, 50L, 100L, 200L, 500L, 1000L, 2000L, 5000L,
+      10000L };
+
+  private static final double NANOS_PER_MILLI = 1.0e6;
+
+  // VARIABLES
+
+  private final String name;
+
+  private final long[] histogram;
+  private long count;
+  private long total;
+  private long min;
+  private long max;
+  private long last;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new TimerMetric instance.
+   * 
+   * @param aName
+   *          the name of this metric, cannot be <code>null</code>.
+   */
+  TimerMetric( final String aName )
+  {
+    this.name = aName;
+    this.histogram = new long[BUCKET_BOUNDS.length + 1];
+    reset();
+  }
+
+  // METHODS
+
+  /**
+   * Returns the current time, to be used as start time for
+   * {@link #stop(long)}.
+   * 
+   * @return a time stamp, in nanoseconds.
+   */
+  public static long start()
+  {
+    return System.nanoTime();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized long getCount()
+  {
+    return this.count;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized long[] getHistogram()
+  {
+    return this.histogram.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String[] getHistogramBuckets()
+  {
+    final String[] result = new String[BUCKET_BOUNDS.length + 1];
+    for ( int i = 0; i < BUCKET_BOUNDS.length; i++ )
+    {
+      result[i] = "< " + BUCKET_BOUNDS[i] + "ms";
+    }
+    result[BUCKET_BOUNDS.length] = ">= " + BUCKET_BOUNDS[BUCKET_BOUNDS.length - 1] + "ms";
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized double getLastTimeMillis()
+  {
+    return this.last / NANOS_PER_MILLI;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized double getMaxTimeMillis()
+  {
+    return ( this.count == 0L ) ? 0.0 : ( this.max / NANOS_PER_MILLI );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized double getMeanTimeMillis()
+  {
+    return ( this.count == 0L ) ? 0.0 : ( this.total / ( this.count * NANOS_PER_MILLI ) );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized double getMinTimeMillis()
+  {
+    return ( this.count == 0L ) ? 0.0 : ( this.min / NANOS_PER_MILLI );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getName()
+  {
+    return this.name;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized double getTotalTimeMillis()
+  {
+    return this.total / NANOS_PER_MILLI;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized String getValuesAsCSV()
+  {
+    final StringBuilder sb = new StringBuilder();
+    sb.append( this.count );
+    sb.append( String.format( ",%.3f,%.3f,%.3f,%.3f", Double.valueOf( getTotalTimeMillis() ),
+        Double.valueOf( getMinTimeMillis() ), Double.valueOf( getMeanTimeMillis() ),
+        Double.valueOf( getMaxTimeMillis() ) ) );
+    for ( long bucket : this.histogram )
+    {
+      sb.append( ',' ).append( bucket );
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Records a single duration.
+   * 
+   * @param aDuration
+   *          the duration to record, >= 0;
+   * @param aUnit
+   *          the time unit of the given duration, cannot be <code>null</code>.
+   */
+  public void record( final long aDuration, final TimeUnit aUnit )
+  {
+    final long nanos = Math.max( 0L, aUnit.toNanos( aDuration ) );
+    final long millis = TimeUnit.NANOSECONDS.toMillis( nanos );
+
+    int bucket = 0;
+    while ( ( bucket < BUCKET_BOUNDS.length ) && ( millis >= BUCKET_BOUNDS[bucket] ) )
+    {
+      bucket++;
+    }
+
+    synchronized ( this )
+    {
+      this.histogram[bucket]++;
+      this.count++;
+      this.total += nanos;
+      this.min = Math.min( this.min, nanos );
+      this.max = Math.max( this.max, nanos );
+      this.last = nanos;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void reset()
+  {
+    for ( int i = 0; i < this.histogram.length; i++ )
+    {
+      this.histogram[i] = 0L;
+    }
+    this.count = 0L;
+    this.total = 0L;
+    this.min = Long.MAX_VALUE;
+    this.max = 0L;
+    this.last = 0L;
+  }
+
+  /**
+   * Records the time elapsed since the given start time.
+   * 
+   * @param aStartTime
+   *          the start time, as obtained by {@link #start()}.
+   * @return the recorded duration, in nanoseconds.
+   */
+  public long stop( final long aStartTime )
+  {
+    final long duration = System.nanoTime() - aStartTime;
+    record( duration, TimeUnit.NANOSECONDS );
+    return duration;
+  }
+}
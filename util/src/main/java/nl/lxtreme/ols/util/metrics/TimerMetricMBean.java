@@ -0,0 +1,92 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.metrics;
+
+
+/**
+ * Provides the management interface of a {@link TimerMetric}.
+ */
+public interface TimerMetricMBean
+{
+  // METHODS
+
+  /**
+   * Returns the number of recorded durations.
+   * 
+   * @return a count, >= 0.
+   */
+  long getCount();
+
+  /**
+   * Returns the number of recorded durations per histogram bucket.
+   * 
+   * @return the bucket counts, never <code>null</code>.
+   * @see #getHistogramBuckets()
+   */
+  long[] getHistogram();
+
+  /**
+   * Returns the labels of the individual histogram buckets.
+   * 
+   * @return the bucket labels, never <code>null</code>.
+   */
+  String[] getHistogramBuckets();
+
+  /**
+   * Returns the duration that was recorded last.
+   * 
+   * @return a duration, in milliseconds.
+   */
+  double getLastTimeMillis();
+
+  /**
+   * Returns the longest recorded duration.
+   * 
+   * @return a duration, in milliseconds.
+   */
+  double getMaxTimeMillis();
+
+  /**
+   * Returns the average recorded duration.
+   * 
+   * @return a duration, in milliseconds.
+   */
+  double getMeanTimeMillis();
+
+  /**
+   * Returns the shortest recorded duration.
+   * 
+   * @return a duration, in milliseconds.
+   */
+  double getMinTimeMillis();
+
+  /**
+   * Returns the sum of all recorded durations.
+   * 
+   * @return a duration, in milliseconds.
+   */
+  double getTotalTimeMillis();
+
+  /**
+   * Resets this timer.
+   */
+  void reset();
+}
@@ -22,6 +22,7 @@ package nl.lxtreme.ols.util.osgi;
 
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import org.osgi.framework.*;
@@ -37,6 +38,12 @@ import org.osgi.util.tracker.*;
  * Code based on PAX Extender and <a
  * href="http://www.toedter.com/blog/?p=236">this blog</a> posting.
  * </p>
+ * <p>
+ * By default, bundles are scanned synchronously while they are started or
+ * stopped. In deferred mode, scanning and calling the observers is done on a
+ * background thread instead, in the order of the bundle events, so starting
+ * bundles is not delayed by the observers.
+ * </p>
  */
 public final class BundleWatcher
 {
@@ -69,7 +76,14 @@ public final class BundleWatcher
     @Override
     public Object addingBundle( final Bundle aBundle, final BundleEvent aEvent )
     {
-      bundleStarted( aBundle );
+      dispatch( new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          bundleStarted( aBundle );
+        }
+      } );
       return aBundle;
     }
 
@@ -80,7 +94,14 @@ public final class BundleWatcher
     @Override
     public void removedBundle( final Bundle aBundle, final BundleEvent aEvent, final Object aObject )
     {
-      bundleStopped( aBundle );
+      dispatch( new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          bundleStopped( aBundle );
+        }
+      } );
     }
   }
 
@@ -88,6 +109,9 @@ public final class BundleWatcher
 
   private static final Logger LOG = Logger.getLogger( BundleWatcher.class.getName() );
 
+  /** The maximum time to wait for pending scans upon stopping, in seconds. */
+  private static final long STOP_TIMEOUT = 5L;
+
   // VARIABLES
 
   private final BundleContext bundleContext;
@@ -97,6 +121,8 @@ public final class BundleWatcher
   private final List<BundleObserver> observers;
 
   private volatile BundleTracker bundleTracker;
+  private volatile ExecutorService executor;
+  private boolean deferred;
 
   // CONSTRUCTORS
 
@@ -179,6 +205,37 @@ public final class BundleWatcher
     return this;
   }
 
+  /**
+   * Returns whether bundles are scanned on a background thread.
+   * 
+   * @return <code>true</code> if scanning is deferred to a background thread,
+   *         <code>false</code> if bundles are scanned synchronously.
+   */
+  public boolean isDeferred()
+  {
+    return this.deferred;
+  }
+
+  /**
+   * Sets whether bundles should be scanned on a background thread.
+   * 
+   * @param aDeferred
+   *          <code>true</code> to defer scanning to a background thread,
+   *          <code>false</code> to scan bundles synchronously.
+   * @return this bundle watcher, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case the bundle watcher is already started.
+   */
+  public BundleWatcher setDeferred( final boolean aDeferred ) throws IllegalStateException
+  {
+    if ( this.bundleTracker != null )
+    {
+      throw new IllegalStateException( "Bundle Watcher already started?!" );
+    }
+    this.deferred = aDeferred;
+    return this;
+  }
+
   /**
    * Starts the bundle watcher for registration/deregistration of bundles.
    * 
@@ -192,6 +249,20 @@ public final class BundleWatcher
       throw new IllegalStateException( "Bundle Watcher already started?!" );
     }
 
+    if ( this.deferred )
+    {
+      this.executor = Executors.newSingleThreadExecutor( new ThreadFactory()
+      {
+        @Override
+        public Thread newThread( final Runnable aRunnable )
+        {
+          final Thread thread = new Thread( aRunnable, "BundleWatcher" );
+          thread.setDaemon( true );
+          return thread;
+        }
+      } );
+    }
+
     this.bundleTracker = new ExtenderBundleTracker( this.bundleContext );
     this.bundleTracker.open();
 
@@ -214,6 +285,26 @@ public final class BundleWatcher
     this.bundleTracker.close();
     this.bundleTracker = null;
 
+    final ExecutorService service = this.executor;
+    if ( service != null )
+    {
+      // Let all pending scans complete, including the ones for the bundles
+      // removed by closing the tracker...
+      service.shutdown();
+      try
+      {
+        if ( !service.awaitTermination( STOP_TIMEOUT, TimeUnit.SECONDS ) )
+        {
+          LOG.log( Level.WARNING, "Pending bundle scans did not complete in time!" );
+        }
+      }
+      catch ( InterruptedException exception )
+      {
+        Thread.currentThread().interrupt();
+      }
+      this.executor = null;
+    }
+
     this.registry.clear();
 
     LOG.log( Level.FINE, "Bundle watcher stopped ..." );
@@ -227,6 +318,12 @@ public final class BundleWatcher
    */
   final void bundleStarted( final Bundle aBundle )
   {
+    if ( aBundle.getState() != Bundle.ACTIVE )
+    {
+      // Bundle is stopped before we got the chance to scan it...
+      return;
+    }
+
     final ManifestHeader[] entries = this.bundleScanner.scan( aBundle );
     if ( ( entries == null ) || ( entries.length == 0 ) )
     {
@@ -277,4 +374,31 @@ public final class BundleWatcher
       }
     }
   }
+
+  /**
+   * Runs the given task, either directly or on the background thread when
+   * scanning is deferred.
+   * 
+   * @param aTask
+   *          the task to run, cannot be <code>null</code>.
+   */
+  final void dispatch( final Runnable aTask )
+  {
+    final ExecutorService service = this.executor;
+    if ( service == null )
+    {
+      aTask.run();
+      return;
+    }
+
+    try
+    {
+      service.execute( aTask );
+    }
+    catch ( RejectedExecutionException exception )
+    {
+      // Already stopping; handle it directly...
+      aTask.run();
+    }
+  }
 }
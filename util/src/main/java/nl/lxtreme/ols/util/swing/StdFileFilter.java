@@ -34,6 +34,7 @@ public final class StdFileFilter
   public static final FileFilter HTML = new FileNameExtensionFilter( "HTML files", "htm", "html" );
   public static final FileFilter CSV = new FileNameExtensionFilter( "CSV files", "csv" );
   public static final FileFilter XML = new FileNameExtensionFilter( "XML files", "xml" );
+  public static final FileFilter BINARY_TABLE = new FileNameExtensionFilter( "Binary table files", "bin" );
 
   // CONSTRUCTORS
 
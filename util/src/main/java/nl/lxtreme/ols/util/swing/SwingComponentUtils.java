@@ -153,7 +153,26 @@ public final class SwingComponentUtils
    */
   public static JComboBox createChannelSelector( final int aChannelCount )
   {
-    return internalCreateChannelSelector( aChannelCount, false /* aAddUnusedOption */);
+    return internalCreateChannelSelector( aChannelCount, 0, false /* aAddUnusedOption */);
+  }
+
+  /**
+   * Creates a channel selector combobox, where only a valid channel can be
+   * selected, and the options are numbered from a given channel offset.
+   * <p>
+   * The selected index of the combobox still is the index of the selected
+   * channel, counted from zero.
+   * </p>
+   * 
+   * @param aChannelCount
+   *          the number of channels to include in the combobox options;
+   * @param aChannelOffset
+   *          the number of the first channel, >= 0.
+   * @return a combobox with channel selector options.
+   */
+  public static JComboBox createChannelSelector( final int aChannelCount, final int aChannelOffset )
+  {
+    return internalCreateChannelSelector( aChannelCount, aChannelOffset, false /* aAddUnusedOption */);
   }
 
   /**
@@ -204,7 +223,22 @@ public final class SwingComponentUtils
    */
   public static JComboBox createOptionalChannelSelector( final int aChannelCount )
   {
-    return internalCreateChannelSelector( aChannelCount, true /* aAddUnusedOption */);
+    return internalCreateChannelSelector( aChannelCount, 0, true /* aAddUnusedOption */);
+  }
+
+  /**
+   * Creates a channel selector combobox, where optionally a channel can be
+   * selected, and the options are numbered from a given channel offset.
+   * 
+   * @param aChannelCount
+   *          the number of channels to include in the combobox options;
+   * @param aChannelOffset
+   *          the number of the first channel, >= 0.
+   * @return a combobox with channel selector options.
+   */
+  public static JComboBox createOptionalChannelSelector( final int aChannelCount, final int aChannelOffset )
+  {
+    return internalCreateChannelSelector( aChannelCount, aChannelOffset, true /* aAddUnusedOption */);
   }
 
   /**
@@ -945,12 +979,15 @@ public final class SwingComponentUtils
    * 
    * @param aChannelCount
    *          the number of channels to include in the combobox options;
+   * @param aChannelOffset
+   *          the number of the first channel, >= 0;
    * @param aAddUnusedOption
    *          <code>true</code> to add "unused" as first option,
    *          <code>false</code> to omit this option.
    * @return a combobox with channel selector options.
    */
-  private static JComboBox internalCreateChannelSelector( final int aChannelCount, final boolean aAddUnusedOption )
+  private static JComboBox internalCreateChannelSelector( final int aChannelCount, final int aChannelOffset,
+      final boolean aAddUnusedOption )
   {
     int modelSize = Math.max( 0, Math.min( 32, aChannelCount ) );
     if ( aAddUnusedOption )
@@ -968,7 +1005,7 @@ public final class SwingComponentUtils
     for ( ; i < modelSize; i++ )
     {
       final int index = aAddUnusedOption ? i - 1 : i;
-      dataChannels[i] = String.format( "Channel %d", Integer.valueOf( index ) );
+      dataChannels[i] = String.format( "Channel %d", Integer.valueOf( aChannelOffset + index ) );
     }
 
     final JComboBox result = new JComboBox( dataChannels );
@@ -0,0 +1,133 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.analysis;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link LongHistogram}.
+ */
+public class LongHistogramTest
+{
+  // METHODS
+
+  /**
+   * Test method for {@link LongHistogram#getCount(long)}.
+   */
+  @Test
+  public void testGetCount()
+  {
+    final LongHistogram h = createHistogram();
+
+    for ( int i = 0; i <= 10; i++ )
+    {
+      assertEquals( i, h.getCount( i ) );
+    }
+    assertEquals( 0, h.getCount( 11 ) );
+    assertEquals( 55, h.getTotalCount() );
+    assertEquals( 10, h.getUniqueValueCount() );
+  }
+
+  /**
+   * Test method for {@link LongHistogram#getMode(long)}.
+   */
+  @Test
+  public void testGetMode()
+  {
+    final LongHistogram h = createHistogram();
+
+    assertEquals( 10L, h.getMode( -1L ) );
+    assertEquals( -1L, new LongHistogram().getMode( -1L ) );
+  }
+
+  /**
+   * Test method for {@link LongHistogram#getMode(long)} with equally ranked
+   * values.
+   */
+  @Test
+  public void testGetModeReturnsSmallestValueOnTie()
+  {
+    final LongHistogram h = new LongHistogram();
+    h.addValue( 42L, 3L );
+    h.addValue( Long.MAX_VALUE, 3L );
+    h.addValue( 0L, 3L );
+    h.addValue( 7L, 2L );
+
+    assertEquals( 0L, h.getMode( -1L ) );
+  }
+
+  /**
+   * Test method for {@link LongHistogram#getTopK(int)}.
+   */
+  @Test
+  public void testGetTopK()
+  {
+    final LongHistogram h = createHistogram();
+
+    assertArrayEquals( new long[] { 10L, 9L, 8L }, h.getTopK( 3 ) );
+    assertArrayEquals( new long[0], h.getTopK( 0 ) );
+    assertEquals( 10, h.getTopK( 20 ).length );
+  }
+
+  /**
+   * Tests that adding many unique values grows the histogram correctly.
+   */
+  @Test
+  public void testManyUniqueValues()
+  {
+    final LongHistogram h = new LongHistogram( 1 );
+    for ( long i = -5000L; i < 5000L; i++ )
+    {
+      h.addValue( i * 31L );
+      h.addValue( i * 31L );
+    }
+
+    assertEquals( 10000, h.getUniqueValueCount() );
+    assertEquals( 20000L, h.getTotalCount() );
+    assertEquals( 2L, h.getCount( 31L * 1234L ) );
+    assertEquals( 0L, h.getCount( 1L ) );
+    assertEquals( -5000L * 31L, h.getMode( 0L ) );
+
+    final long[] values = h.values();
+    assertEquals( -5000L * 31L, values[0] );
+    assertEquals( 4999L * 31L, values[values.length - 1] );
+  }
+
+  /**
+   * Creates a histogram in which each value i in [1..10] occurs i times.
+   */
+  private LongHistogram createHistogram()
+  {
+    final LongHistogram h = new LongHistogram();
+    for ( int i = 0; i <= 10; i++ )
+    {
+      for ( int j = 0; j < i; j++ )
+      {
+        h.addValue( i );
+      }
+    }
+    return h;
+  }
+}
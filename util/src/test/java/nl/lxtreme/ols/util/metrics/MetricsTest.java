@@ -0,0 +1,121 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.metrics;
+
+
+import static org.junit.Assert.*;
+
+import java.lang.management.*;
+import java.util.concurrent.*;
+
+import javax.management.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link Metrics} and its metric types.
+ */
+public class MetricsTest
+{
+  // METHODS
+
+  /**
+   * Cleans up after each test.
+   */
+  @After
+  public void tearDown()
+  {
+    Metrics.unregister( "test.counter" );
+    Metrics.unregister( "test.gauge" );
+    Metrics.unregister( "test.timer" );
+  }
+
+  /**
+   * Tests that a counter accumulates its values.
+   */
+  @Test
+  public void testCounter()
+  {
+    final CounterMetric counter = Metrics.getCounter( "test.counter" );
+    assertSame( counter, Metrics.getCounter( "test.counter" ) );
+
+    counter.add( 10L );
+    counter.increment();
+
+    assertEquals( 11L, counter.getCount() );
+    assertEquals( 2L, counter.getUpdateCount() );
+
+    counter.reset();
+    assertEquals( 0L, counter.getCount() );
+  }
+
+  /**
+   * Tests that a gauge is exported via JMX, and removed again upon
+   * unregistration.
+   */
+  @Test
+  public void testGaugeIsExportedViaJMX() throws Exception
+  {
+    Metrics.register( new GaugeMetric( "test.gauge" )
+    {
+      @Override
+      public long getValue()
+      {
+        return 42L;
+      }
+    } );
+
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    final ObjectName name = new ObjectName( Metrics.DOMAIN + ":type=Gauge,name=test.gauge" );
+
+    assertEquals( Long.valueOf( 42L ), server.getAttribute( name, "Value" ) );
+
+    Metrics.unregister( "test.gauge" );
+    assertFalse( server.isRegistered( name ) );
+  }
+
+  /**
+   * Tests that a timer records its durations in the correct histogram
+   * buckets.
+   */
+  @Test
+  public void testTimer()
+  {
+    final TimerMetric timer = Metrics.getTimer( "test.timer" );
+
+    timer.record( 500L, TimeUnit.MICROSECONDS );
+    timer.record( 3L, TimeUnit.MILLISECONDS );
+    timer.record( 3L, TimeUnit.MILLISECONDS );
+    timer.record( 1L, TimeUnit.MINUTES );
+
+    assertEquals( 4L, timer.getCount() );
+    assertEquals( 0.5, timer.getMinTimeMillis(), 1.0e-6 );
+    assertEquals( 60000.0, timer.getMaxTimeMillis(), 1.0e-6 );
+    assertEquals( 60000.0, timer.getLastTimeMillis(), 1.0e-6 );
+
+    final long[] histogram = timer.getHistogram();
+    assertEquals( timer.getHistogramBuckets().length, histogram.length );
+    assertEquals( 1L, histogram[0] ); // < 1ms
+    assertEquals( 2L, histogram[2] ); // < 5ms
+    assertEquals( 1L, histogram[histogram.length - 1] ); // >= 10s
+  }
+}